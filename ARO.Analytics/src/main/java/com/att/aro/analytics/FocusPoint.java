@@ -63,6 +63,23 @@ public class FocusPoint {
     public FocusPoint(String name) {
         this.name = name;
     }
+
+    /**
+     * Snapshot of another focus point. Values are copied as they are, already encoded.
+     *
+     * @param focusPoint
+     */
+    public FocusPoint(FocusPoint focusPoint) {
+        this.name = focusPoint.name;
+        this.eventCategory = focusPoint.eventCategory;
+        this.eventAction = focusPoint.eventAction;
+        this.eventLabel = focusPoint.eventLabel;
+        this.eventValue = focusPoint.eventValue;
+        this.exceptionDesc = focusPoint.exceptionDesc;
+        this.dataSource = focusPoint.dataSource;
+        this.isFatal = focusPoint.isFatal;
+        this.session = focusPoint.session;
+    }
 /*
     public FocusPoint(String name, FocusPoint parentFocusPoint) {
         this(name);
@@ -0,0 +1,290 @@
+package com.att.aro.analytics;
+
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.att.aro.db.GABatchRecordPojo;
+import com.att.aro.db.IARODatabaseObject;
+
+/**
+ * Bounded event queue drained by a single background worker.
+ *
+ * Callers only ever offer a snapshot of the focus point to the queue, so the UI thread never waits on the network or the database.
+ * The worker coalesces queued events into batches of up to {@link #BATCH_SIZE} hits and posts them to the batch endpoint over a kept-alive
+ * connection. While offline whole batches are appended to the local store and replayed once a send succeeds again, stored events carry
+ * an event value of 1 and no session as they always have. Exception events are dropped, no url was ever built for them.
+ * The worker is the only thread that touches the store.
+ */
+public class GAEventDispatcher {
+
+	private static final Logger LOGGER = Logger.getLogger(GAEventDispatcher.class.getName());
+
+	/**
+	 * maximum number of hits google analytics accepts in one batch request
+	 */
+	public static final int BATCH_SIZE = 20;
+
+	private static final long IDLE_POLL_MILLIS = 500;
+
+	private final BlockingQueue<FocusPoint> queue;
+	private final HTTPPostMethod httpPost;
+	private final IARODatabaseObject store;
+	private final int maxStoredHits;
+
+	private volatile URLBuildingStrategy urlBuildingStrategy;
+	private volatile Proxy proxy;
+	private volatile boolean running = false;
+	private volatile boolean flushRequested = false;
+
+	private long lingerMillis = 500;
+	private long retryMillis = 60000;
+	private Thread worker;
+
+	// worker thread state
+	private int storedHits = -1;
+	private long nextRetry = 0;
+
+	/**
+	 * @param urlBuildingStrategy builds the hit payloads and the batch url
+	 * @param httpPost
+	 * @param store local store for offline batches, may be null to drop them instead
+	 * @param queueCapacity events kept in memory, the oldest event is dropped when full
+	 * @param maxStoredHits events kept in the local store
+	 */
+	public GAEventDispatcher(URLBuildingStrategy urlBuildingStrategy, HTTPPostMethod httpPost, IARODatabaseObject store, int queueCapacity,
+			int maxStoredHits) {
+		this.urlBuildingStrategy = urlBuildingStrategy;
+		this.httpPost = httpPost;
+		this.store = store;
+		this.maxStoredHits = maxStoredHits;
+		this.queue = new LinkedBlockingQueue<FocusPoint>(queueCapacity);
+	}
+
+	/**
+	 * Start the worker.
+	 *
+	 * @param startupTask run on the worker before the first send, may be null
+	 */
+	public synchronized void start(final Runnable startupTask) {
+		if (running) {
+			return;
+		}
+		running = true;
+		worker = new Thread(new Runnable() {
+			public void run() {
+				if (startupTask != null) {
+					try {
+						startupTask.run();
+					} catch (Exception e) {
+						LOGGER.fine("startup task failed :" + e.getMessage());
+					}
+				}
+				dispatch();
+			}
+		}, "GA-EventDispatcher");
+		worker.setDaemon(true);
+		worker.setPriority(Thread.MIN_PRIORITY);
+		worker.start();
+	}
+
+	/**
+	 * Queue a snapshot of the focusPoint, never blocks.
+	 *
+	 * @param focusPoint
+	 */
+	public void offer(FocusPoint focusPoint) {
+		FocusPoint snapshot = new FocusPoint(focusPoint);
+		while (!queue.offer(snapshot)) {
+			queue.poll();
+		}
+	}
+
+	/**
+	 * Send what is queued without waiting for the batch to fill up.
+	 */
+	public void flush() {
+		flushRequested = true;
+	}
+
+	/**
+	 * Stop the worker after the queued events have been sent or stored.
+	 *
+	 * @param waitMillis longest time to wait for the worker
+	 */
+	public void shutdown(long waitMillis) {
+		Thread thread;
+		synchronized (this) {
+			running = false;
+			flushRequested = true;
+			thread = worker;
+			worker = null;
+		}
+		if (thread != null) {
+			try {
+				thread.join(waitMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	public void setUrlBuildingStrategy(URLBuildingStrategy urlBuildingStrategy) {
+		this.urlBuildingStrategy = urlBuildingStrategy;
+	}
+
+	public void setProxy(Proxy proxy) {
+		this.proxy = proxy;
+	}
+
+	/**
+	 * @param lingerMillis how long the worker waits for more events before sending a partial batch
+	 */
+	public void setLingerMillis(long lingerMillis) {
+		this.lingerMillis = lingerMillis;
+	}
+
+	/**
+	 * @param retryMillis how long the worker stays offline after a failed send
+	 */
+	public void setRetryMillis(long retryMillis) {
+		this.retryMillis = retryMillis;
+	}
+
+	private void dispatch() {
+		List<FocusPoint> batch = new ArrayList<FocusPoint>(BATCH_SIZE);
+		while (running || !queue.isEmpty()) {
+			try {
+				FocusPoint first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					long deadline = System.currentTimeMillis() + lingerMillis;
+					while (batch.size() < BATCH_SIZE && !flushRequested) {
+						long remaining = deadline - System.currentTimeMillis();
+						FocusPoint next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+						if (next == null) {
+							break;
+						}
+						batch.add(next);
+					}
+					queue.drainTo(batch, BATCH_SIZE - batch.size());
+					if (queue.isEmpty()) {
+						flushRequested = false;
+					}
+					deliver(batch);
+					batch.clear();
+				}
+				if (running) {
+					replayStored();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (Exception e) {
+				LOGGER.fine("analytics dispatch failed :" + e.getMessage());
+				batch.clear();
+			}
+		}
+	}
+
+	private void deliver(List<FocusPoint> batch) {
+		List<FocusPoint> hits = new ArrayList<FocusPoint>(batch.size());
+		for (FocusPoint focusPoint : batch) {
+			if (focusPoint.getExceptionDesc() == null) {
+				hits.add(focusPoint);
+			}
+		}
+		if (hits.isEmpty()) {
+			return;
+		}
+		if (!isOffline() && send(buildBody(hits))) {
+			return;
+		}
+		for (FocusPoint focusPoint : hits) {
+			focusPoint.setEventValue("1");
+			focusPoint.resetSession();
+		}
+		spill(buildBody(hits), hits.size());
+	}
+
+	private String buildBody(List<FocusPoint> focusPoints) {
+		StringBuilder body = new StringBuilder();
+		for (FocusPoint focusPoint : focusPoints) {
+			if (body.length() > 0) {
+				body.append('\n');
+			}
+			body.append(urlBuildingStrategy.buildPayload(focusPoint));
+		}
+		return body.toString();
+	}
+
+	private boolean isOffline() {
+		return nextRetry != 0 && System.currentTimeMillis() < nextRetry;
+	}
+
+	private boolean send(String payload) {
+		boolean sent = httpPost.requestBatch(urlBuildingStrategy.getBatchURL(), payload, proxy);
+		nextRetry = sent ? 0 : System.currentTimeMillis() + retryMillis;
+		return sent;
+	}
+
+	/**
+	 * Append one batch to the local store, the batch is dropped once the store holds maxStoredHits events.
+	 */
+	private void spill(String payload, int hitCount) {
+		if (store == null || storedHits() + hitCount > maxStoredHits) {
+			return;
+		}
+		store.put(new GABatchRecordPojo(payload, hitCount));
+		storedHits += hitCount;
+	}
+
+	/**
+	 * Send stored batches, oldest first, until one fails. Records saved one event at a time by earlier versions are sent as well.
+	 */
+	private void replayStored() {
+		if (store == null || isOffline() || storedHits() == 0) {
+			return;
+		}
+		for (GABatchRecordPojo record : store.get(new GABatchRecordPojo())) {
+			if (!send(record.getPayload())) {
+				return;
+			}
+			store.delete(record);
+			storedHits -= record.getHitCount();
+		}
+		List<FocusPoint> legacyRecords = store.get(new FocusPoint());
+		for (int start = 0; start < legacyRecords.size(); start += BATCH_SIZE) {
+			List<FocusPoint> chunk = legacyRecords.subList(start, Math.min(start + BATCH_SIZE, legacyRecords.size()));
+			if (!send(buildBody(chunk))) {
+				return;
+			}
+			for (FocusPoint focusPoint : chunk) {
+				store.delete(focusPoint);
+			}
+			storedHits -= chunk.size();
+		}
+		storedHits = Math.max(storedHits, 0);
+	}
+
+	private int storedHits() {
+		if (storedHits < 0) {
+			int count = (int) store.recordCount(new FocusPoint());
+			if (store.recordCount(new GABatchRecordPojo()) > 0) {
+				for (GABatchRecordPojo record : store.get(new GABatchRecordPojo())) {
+					count += record.getHitCount();
+				}
+			}
+			storedHits = count;
+		}
+		return storedHits;
+	}
+}
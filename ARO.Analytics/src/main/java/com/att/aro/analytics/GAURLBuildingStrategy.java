@@ -23,6 +23,8 @@ public class GAURLBuildingStrategy implements URLBuildingStrategy {
 
 	private static final String TRACKING_URL_Prefix = "http://www.google-analytics.com/collect"; // http://www.google-analytics.com/collect
 
+	private static final String BATCH_URL = "http://www.google-analytics.com/batch";
+
 	private static final Random random = new Random();
 	private static String hostName = "localhost";
 	private static String ipAddress = "1";
@@ -55,6 +57,19 @@ public class GAURLBuildingStrategy implements URLBuildingStrategy {
 		return url.toString();
 	}
 
+	/**
+	 * Hit parameters of the focusPoint without the collect url, one line of a
+	 * batch request body.
+	 */
+	public String buildPayload(FocusPoint focusPoint) {
+		String url = buildURL(focusPoint);
+		return url.substring(url.indexOf('?') + 1);
+	}
+
+	public String getBatchURL() {
+		return BATCH_URL;
+	}
+
 	public void setRefererURL(String refererURL) {
 		this.refererURL = refererURL;
 	}
@@ -1,8 +1,8 @@
 package com.att.aro.analytics;
 
-import java.util.List;
 import java.util.logging.Logger;
 import com.att.aro.db.AROObjectDao;
+import com.att.aro.util.AnalyticsCommon;
 
 /**
  * Main class for tracking google analytics data.
@@ -12,6 +12,9 @@ import com.att.aro.db.AROObjectDao;
  * Modified by Borey Sao
  * On November 19, 2014
  * Description: use lazy initialization to speed up startup time and add close() for database clean up
+ *
+ * Events are handed to a single GAEventDispatcher worker which sends them in batches
+ * and owns all access to the local database.
  */
 public class GoogleAnalyticsTracker {
 
@@ -19,10 +22,7 @@ public class GoogleAnalyticsTracker {
     private URLBuildingStrategy urlBuildingStrategy = null;
     private HTTPGetMethod httpRequest = new HTTPGetMethod();
     private AROObjectDao aroDAO = null;
-    private GoogleAnalyticsTracker gaTracker;
-    
-    private static boolean runninDBThreadTracker = false; // Check DB thread is running or not
-    private int maxDBRecords;
+    private GAEventDispatcher dispatcher = null;
 
     /**
      * Constructor passing the application name, application version & google analytics tracking code
@@ -33,15 +33,19 @@ public class GoogleAnalyticsTracker {
      */
     public GoogleAnalyticsTracker(String appName, String appVersion, String googleAnalyticsTrackingCode, int maxDBRecords){ //ARO, version Name, UA-48887240-1
     	this.urlBuildingStrategy = new GAURLBuildingStrategy(appName, appVersion, googleAnalyticsTrackingCode);
-        this.httpRequest.setApplicationName(appName);
-        this.maxDBRecords = maxDBRecords;
-        this.gaTracker = this;
-        inetChecker();
+        HTTPGetMethod.setApplicationName(appName);
+        HTTPPostMethod.setApplicationName(appName);
         aroDAO = AROObjectDao.getInstance();
+        dispatcher = new GAEventDispatcher(urlBuildingStrategy, new HTTPPostMethod(), aroDAO, AnalyticsCommon.GA_QUEUE_CAPACITY, maxDBRecords);
+        dispatcher.start(new Runnable() {
+			public void run() {
+				inetChecker();
+				dispatcher.setProxy(httpRequest.getProxy());
+			}
+		});
     }
 
     public GoogleAnalyticsTracker(){
-    	this.gaTracker = this;
     };
 
     /**
@@ -50,6 +54,9 @@ public class GoogleAnalyticsTracker {
      */
     public void setUrlBuildingStrategy(URLBuildingStrategy urlBuildingStrategy) {
         this.urlBuildingStrategy = urlBuildingStrategy;
+        if(dispatcher != null){
+        	dispatcher.setUrlBuildingStrategy(urlBuildingStrategy);
+        }
     }
     
 
@@ -64,60 +71,21 @@ public class GoogleAnalyticsTracker {
     public void inetChecker(){
     	new NetworkConnectionChecker(httpRequest).run();
     }
-    
-    public static void setRunninDBThreadTracker(boolean runninDBThreadTracker) {
-		GoogleAnalyticsTracker.runninDBThreadTracker = runninDBThreadTracker;
-	}
 
     /**
-     * Push all the events to google Analytics server if internet is available</br>
-     * Other wise save all the records into local database.
+     * Queue the event for the dispatcher, which pushes it to the Google Analytics server when internet is available</br>
+     * Other wise saves it into local database. Never blocks the caller.
      * @param focusPoint
-     * @param appCloseEvent
+     * @param appCloseEvent send without waiting for more events to batch with
      */
 	public void pushToCloud(FocusPoint focusPoint, boolean appCloseEvent){
-		//LOGGER.info("Max Number records stored : " + this.maxDBRecords);
-		//LOGGER.info("Number of records in DB : " + this.aroDAO.recordCount(focusPoint));
-    	if(httpRequest.isValidIConnection()){ //Check for Internet
-    		if(appCloseEvent){
-    			boolean pushReqFlag = httpRequest.request(urlBuildingStrategy.buildURL(focusPoint));
-    			if(!pushReqFlag){
-    				if(this.aroDAO.recordCount(focusPoint) < maxDBRecords){ // add not to save more than Max number of records
-	    				//focusPoint.setEventLabel("offline");
-    					focusPoint.setEventValue("1");
-	    				focusPoint.resetSession();
-	    				this.aroDAO.put(focusPoint);
-    				}
-    			}
-    		}else{ // send Async req
-    			trackAsynchronously(focusPoint); // Send GA req..Send separate thread
-    			  			
-    			if(this.aroDAO.recordCount(focusPoint) > 0){ // Invoke DB thread
-        			
-        			if(!runninDBThreadTracker){ // Check for db records Thread running. On separate thread push all the db records to cloud
-        				runninDBThreadTracker = true;
-        				new TrackDBRecordsThread(this.aroDAO.get(focusPoint)).start();
-        				
-        				//GARecordPojo testRecord = new GARecordPojo();
-    
-        				
-        			}
-        			
-        		} 
-    			 
-    		}
-    		
-    	} else { //Since No internet save the record to DB and check again for internet
-    		if(this.aroDAO.recordCount(focusPoint) < maxDBRecords){ // add not to save more than Max number of records
-	    		//focusPoint.setEventLabel("offline");
-    			focusPoint.setEventValue("1");
-	    		focusPoint.resetSession();
-	    		this.aroDAO.put(focusPoint);
-    		}
-    		
-     	   inetChecker(); //Check for internet connection since no internet.
-        }
-    	
+		if(dispatcher == null){
+			return;
+		}
+		dispatcher.offer(focusPoint);
+		if(appCloseEvent){
+			dispatcher.flush();
+		}
     }
 
     /**
@@ -139,80 +107,16 @@ public class GoogleAnalyticsTracker {
      * @param focusPoint Focus point of the application like application load, application module load, user actions, error events etc.
      */
     public void trackAsynchronously(FocusPoint focusPoint) {
-    	   new TrackingThread(focusPoint).start();
-    }
-
-    /**
-     * Send the google analytics request Asynchronously 
-     *
-     *
-     */
-    private class TrackingThread extends Thread {
-        private FocusPoint focusPointObj;
-       //private IARODatabaseObject aDAOThread = AROObjectDao.getInstance();
-
-        public TrackingThread(FocusPoint focusPoint) {
-            this.focusPointObj = focusPoint;
-            this.setPriority(Thread.MIN_PRIORITY);
-        }
-
-        public void run() {
-        	String url = "";
-        	if (this.focusPointObj.getExceptionDesc()==null) {
-        		url = urlBuildingStrategy.buildURL(this.focusPointObj);
-        	} 
-            boolean pushCloudFlag = httpRequest.request(url);
-            
-            //If fails...Update Internet Flag. 
-            //send record to DB.
-            if(!pushCloudFlag){
-            	httpRequest.setIsValidIConnection(false);
-	            	if(gaTracker.aroDAO.recordCount(this.focusPointObj) < gaTracker.maxDBRecords){
-		            	//focusPointObj.setEventLabel("offline");
-	            		focusPointObj.setEventValue("1");
-		            	focusPointObj.resetSession();
-		            	gaTracker.aroDAO.put(focusPointObj);
-		           	}
-            }
-         }
-    }
-    
-    /**
-     * Separate thread push all the records in database to cloud. 
-     *
-     *
-     */
-    private class TrackDBRecordsThread extends Thread{
-        //private FocusPoint focusPoint;
-        private List<FocusPoint> dbObjList;
-    	
-    	public TrackDBRecordsThread(List<FocusPoint> dbList){
-    		this.dbObjList = dbList;
-    		this.setPriority(Thread.MIN_PRIORITY);
-    	}
-    	
-    	public void run(){
-    		for (FocusPoint focusPointObj : dbObjList){  // Push all the off-line records to cloud when internet is up.
-    			boolean pushCloudFlag = httpRequest.request(urlBuildingStrategy.buildURL(focusPointObj));
-    
-    			if(pushCloudFlag){
-    				gaTracker.aroDAO.delete(focusPointObj);
-    			} else {
-    				
-    				httpRequest.setIsValidIConnection(false);
-    				break;
-    			}
-    		}
-    		
-    		GoogleAnalyticsTracker.setRunninDBThreadTracker(false);
-			
-    	}
+    	pushToCloud(focusPoint, false);
     }
 
     /**
-     * properly close database
+     * send or store the queued events then properly close database
      */
     public void close(){
+    	if(dispatcher != null){
+    		dispatcher.shutdown(AnalyticsCommon.GA_SHUTDOWN_WAIT);
+    	}
     	if(aroDAO != null){
     		aroDAO.closeDB();
     		LOGGER.info("Properly closed database");
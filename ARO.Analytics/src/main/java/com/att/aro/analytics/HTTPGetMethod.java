@@ -142,4 +142,11 @@ public class HTTPGetMethod {
     public synchronized void setProxyObj(Proxy proxyObject){
     	this.proxyObj = proxyObject;
     }
+
+    /**
+     * @return the proxy found by the NetworkConnectionChecker, null when connecting directly
+     */
+    public synchronized Proxy getProxy(){
+    	return isProxy ? proxyObj : null;
+    }
 }
@@ -1,8 +1,12 @@
 package com.att.aro.analytics;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Proxy;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Created by Harikrishna Yaramachu on 3/31/14.
@@ -49,6 +53,54 @@ public class HTTPPostMethod {
         return gaRequestStatus;
     }
 
+    /**
+     * Post a batch body to the urlString. The connection is not disconnected,
+     * the response is drained instead so the socket goes back to the keep-alive
+     * cache and is reused by the next batch.
+     *
+     * @param urlString
+     * @param body newline separated hit payloads
+     * @param proxy null for a direct connection
+     * @return true if the server accepted the batch
+     */
+    public boolean requestBatch(String urlString, String body, Proxy proxy) {
+        boolean gaRequestStatus = false;
+        try {
+            URL url = new URL(urlString);
+            HttpURLConnection urlConnection = proxy == null ? openURLConnection(url)
+                    : (HttpURLConnection) url.openConnection(proxy);
+            byte[] content = body.getBytes(StandardCharsets.UTF_8);
+            urlConnection.setConnectTimeout(3000);
+            urlConnection.setReadTimeout(5000);
+            urlConnection.setRequestMethod(POST_METHOD_NAME);
+            urlConnection.setRequestProperty("User-Agent", getUserAgentInfo());
+            urlConnection.setDoOutput(true);
+            urlConnection.setFixedLengthStreamingMode(content.length);
+            OutputStream out = urlConnection.getOutputStream();
+            try {
+                out.write(content);
+            } finally {
+                out.close();
+            }
+            int responseCode = getResponseCode(urlConnection);
+            gaRequestStatus = responseCode == HttpURLConnection.HTTP_OK;
+            InputStream in = gaRequestStatus ? urlConnection.getInputStream() : urlConnection.getErrorStream();
+            if (in != null) {
+                byte[] buffer = new byte[512];
+                try {
+                    while (in.read(buffer) != -1) {
+                        // drain for keep-alive
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } catch (Exception e) {
+            gaRequestStatus = false;
+        }
+        return gaRequestStatus;
+    }
+
     /**
      *
      * @param urlConnection
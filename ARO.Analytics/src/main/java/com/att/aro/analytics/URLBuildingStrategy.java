@@ -8,6 +8,8 @@ package com.att.aro.analytics;
 public interface URLBuildingStrategy {
 
     public String buildURL(FocusPoint focusPoint);
+    public String buildPayload(FocusPoint focusPoint);
+    public String getBatchURL();
     public void setRefererURL(String refererURL);
 
 }
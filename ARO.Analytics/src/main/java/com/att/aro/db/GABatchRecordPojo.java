@@ -0,0 +1,40 @@
+/**
+ * 
+ */
+package com.att.aro.db;
+
+/**
+ * One batch of google analytics hits saved while offline.
+ * Batches are only appended and deleted, never updated.
+ */
+public class GABatchRecordPojo {
+
+	private String payload;
+	private int hitCount;
+
+	public GABatchRecordPojo(){
+		
+	}
+
+	public GABatchRecordPojo(String payload, int hitCount){
+		this.payload = payload;
+		this.hitCount = hitCount;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	public void setPayload(String payload) {
+		this.payload = payload;
+	}
+
+	public int getHitCount() {
+		return hitCount;
+	}
+
+	public void setHitCount(int hitCount) {
+		this.hitCount = hitCount;
+	}
+
+}
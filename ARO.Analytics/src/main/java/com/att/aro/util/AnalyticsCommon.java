@@ -12,6 +12,8 @@ public interface AnalyticsCommon {
 	public static final String GA_TRACK_ID="";
 	public static final int GA_VERSION_ID=1;
 	public static final int GA_CAPACITY=50;
+	public static final int GA_QUEUE_CAPACITY=500;
+	public static final long GA_SHUTDOWN_WAIT=3000;
 	
 	public static final String GA_ANALYZER="Analyzer";
 	public static final String GA_START_APP="StartApplication";
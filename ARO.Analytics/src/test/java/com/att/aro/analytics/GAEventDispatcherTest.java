@@ -0,0 +1,237 @@
+package com.att.aro.analytics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.db.GABatchRecordPojo;
+import com.att.aro.db.IARODatabaseObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the dispatcher against a local stub of the batch endpoint.
+ */
+public class GAEventDispatcherTest {
+
+	private HttpServer server;
+	private final List<String> bodies = new CopyOnWriteArrayList<String>();
+	private volatile int responseCode = 200;
+	private MemoryStore store;
+	private GAEventDispatcher dispatcher;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/batch", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				bodies.add(read(exchange.getRequestBody()));
+				exchange.sendResponseHeaders(responseCode, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+		store = new MemoryStore();
+		dispatcher = new GAEventDispatcher(new StubStrategy("http://127.0.0.1:" + server.getAddress().getPort() + "/batch"),
+				new HTTPPostMethod(), store, 100, 50);
+		dispatcher.setLingerMillis(200);
+		dispatcher.setRetryMillis(0);
+	}
+
+	@After
+	public void tearDown() {
+		dispatcher.shutdown(1000);
+		server.stop(0);
+	}
+
+	@Test
+	public void burstIsSentAsOneBatch() throws Exception {
+		dispatcher.start(null);
+		for (int idx = 0; idx < 5; idx++) {
+			dispatcher.offer(event("action" + idx));
+		}
+		dispatcher.flush();
+		waitFor(1);
+
+		assertEquals(1, bodies.size());
+		assertEquals("ea=action0\nea=action1\nea=action2\nea=action3\nea=action4", bodies.get(0));
+	}
+
+	@Test
+	public void batchLimitSplitsBurst() throws Exception {
+		for (int idx = 0; idx < GAEventDispatcher.BATCH_SIZE + 1; idx++) {
+			dispatcher.offer(event("action" + idx));
+		}
+		dispatcher.start(null);
+		waitFor(2);
+
+		assertEquals(GAEventDispatcher.BATCH_SIZE, bodies.get(0).split("\n").length);
+		assertEquals("ea=action20", bodies.get(1));
+	}
+
+	@Test
+	public void offlineBatchIsStoredThenReplayed() throws Exception {
+		responseCode = 500;
+		dispatcher.start(null);
+		dispatcher.offer(event("first"));
+		dispatcher.offer(event("second"));
+		dispatcher.flush();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (store.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(1, store.batches.size());
+		assertEquals(2, store.batches.get(0).getHitCount());
+
+		responseCode = 200;
+		deadline = System.currentTimeMillis() + 5000;
+		while (!store.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue(store.batches.isEmpty());
+		assertEquals("ea=first&ev=1\nea=second&ev=1", bodies.get(bodies.size() - 1));
+	}
+
+	@Test
+	public void offlineBatchIsStoredWithValueAndWithoutSession() throws Exception {
+		responseCode = 500;
+		dispatcher.start(null);
+		FocusPoint focusPoint = event("offline");
+		focusPoint.setSession("start");
+		dispatcher.offer(focusPoint);
+		dispatcher.flush();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (store.batches.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+
+		assertEquals(1, store.batches.size());
+		assertEquals("ea=offline&ev=1", store.batches.get(0).getPayload());
+		assertEquals("ea=offline&sc=start", bodies.get(0));
+	}
+
+	@Test
+	public void exceptionEventIsNotSent() throws Exception {
+		FocusPoint exception = event("crash");
+		exception.setExceptionDesc("failure");
+		dispatcher.offer(exception);
+		dispatcher.offer(event("after"));
+		dispatcher.start(null);
+		dispatcher.flush();
+		waitFor(1);
+
+		assertEquals(1, bodies.size());
+		assertEquals("ea=after", bodies.get(0));
+	}
+
+	@Test
+	public void offerSnapshotsTheFocusPoint() throws Exception {
+		FocusPoint focusPoint = event("before");
+		dispatcher.offer(focusPoint);
+		focusPoint.setEventAction("after");
+		dispatcher.start(null);
+		dispatcher.flush();
+		waitFor(1);
+
+		assertEquals("ea=before", bodies.get(0));
+	}
+
+	private FocusPoint event(String action) {
+		FocusPoint focusPoint = new FocusPoint("test");
+		focusPoint.setEventAction(action);
+		return focusPoint;
+	}
+
+	private void waitFor(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (bodies.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[256];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			out.write(buffer, 0, len);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static class StubStrategy implements URLBuildingStrategy {
+		private final String batchUrl;
+
+		StubStrategy(String batchUrl) {
+			this.batchUrl = batchUrl;
+		}
+
+		public String buildURL(FocusPoint focusPoint) {
+			return batchUrl + "?" + buildPayload(focusPoint);
+		}
+
+		public String buildPayload(FocusPoint focusPoint) {
+			StringBuilder payload = new StringBuilder("ea=").append(focusPoint.getEventAction());
+			if (!"0".equals(focusPoint.getEventValue())) {
+				payload.append("&ev=").append(focusPoint.getEventValue());
+			}
+			if (focusPoint.getSession() != null) {
+				payload.append("&sc=").append(focusPoint.getSession());
+			}
+			return payload.toString();
+		}
+
+		public String getBatchURL() {
+			return batchUrl;
+		}
+
+		public void setRefererURL(String refererURL) {
+		}
+	}
+
+	private static class MemoryStore implements IARODatabaseObject {
+		final List<GABatchRecordPojo> batches = new CopyOnWriteArrayList<GABatchRecordPojo>();
+
+		public <T> void put(T iPojo) {
+			if (iPojo instanceof GABatchRecordPojo) {
+				batches.add((GABatchRecordPojo) iPojo);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		public <T> List<T> get(T iTypeObject) {
+			if (iTypeObject instanceof GABatchRecordPojo) {
+				return new ArrayList<T>((List<T>) batches);
+			}
+			return new ArrayList<T>();
+		}
+
+		public <T> void delete(T iPojo) {
+			batches.remove(iPojo);
+		}
+
+		public <T> long recordCount(T iPojoClass) {
+			return iPojoClass instanceof GABatchRecordPojo ? batches.size() : 0;
+		}
+
+		public <T> T getDataBase() {
+			return null;
+		}
+
+		public void closeDB() {
+		}
+	}
+}
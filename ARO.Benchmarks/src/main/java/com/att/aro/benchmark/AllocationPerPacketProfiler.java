@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Reports the bytes allocated per packet of the trace by each operation, for
+ * benchmarks with a packetCount parameter:
+ * 
+ * <pre>
+ * java -jar target/benchmarks.jar -prof com.att.aro.benchmark.AllocationPerPacketProfiler
+ * </pre>
+ * 
+ * Allocation is summed over the live threads of the fork, as the gc profiler
+ * of JMH does, so work handed to other threads is counted too.
+ */
+public class AllocationPerPacketProfiler implements InternalProfiler {
+
+	public static final String PACKET_COUNT = "packetCount";
+
+	private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private long allocatedBefore;
+
+	public AllocationPerPacketProfiler() {
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			throw new UnsupportedOperationException("Thread allocation counters are not supported by this JVM");
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Override
+	public String getDescription() {
+		return "Bytes allocated per packet of the trace";
+	}
+
+	@Override
+	public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+		allocatedBefore = allocatedBytes();
+	}
+
+	@Override
+	public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+			IterationResult result) {
+		long allocated = allocatedBytes() - allocatedBefore;
+		long operations = result.getMetadata().getAllOps();
+		String packetCount = benchmarkParams.getParam(PACKET_COUNT);
+		if (operations == 0 || packetCount == null) {
+			return Collections.emptyList();
+		}
+		double perPacket = (double) allocated / operations / Integer.parseInt(packetCount);
+		return Collections.singletonList(new ScalarResult("alloc.bytes/packet", perPacket, "B/packet", AggregationPolicy.AVG));
+	}
+
+	private long allocatedBytes() {
+		long total = 0;
+		for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			// -1 for threads that ended in the meantime
+			if (allocated > 0) {
+				total += allocated;
+			}
+		}
+		return total;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.att.aro.core.packetreader.INativePacketSubscriber;
+import com.att.aro.core.packetreader.impl.PcapStreamReader;
+import com.att.aro.pcap.PCapAdapter;
+
+/**
+ * PCapAdapter that reads libpcap files with PcapStreamReader instead of the
+ * native library, so the benchmarks run the trace reader on any machine and
+ * time the Java side of packet reading only.
+ */
+public class StreamPCapAdapter extends PCapAdapter {
+
+	private INativePacketSubscriber packetSubscriber;
+
+	@Override
+	public void setSubscriber(INativePacketSubscriber subscriber) {
+		super.setSubscriber(subscriber);
+		this.packetSubscriber = subscriber;
+	}
+
+	/**
+	 * @return null when all packets were read, otherwise the reason reading
+	 *         stopped, as the native adapter does
+	 */
+	@Override
+	public String readData(String filename) {
+		try (InputStream input = new BufferedInputStream(new FileInputStream(filename), 1 << 16)) {
+			new PcapStreamReader(input).readRecords(packetSubscriber);
+			return null;
+		} catch (IOException e) {
+			return e.getMessage();
+		}
+	}
+
+	@Override
+	public void loadAroLib(String filename, String libname) {
+		// nothing to load
+	}
+}
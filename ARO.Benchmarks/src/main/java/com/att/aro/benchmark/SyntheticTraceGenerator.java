@@ -0,0 +1,700 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.att.aro.benchmark.TrafficMix.Type;
+import com.att.aro.core.packetanalysis.pojo.TraceDataConst;
+import com.att.aro.pcap.packetrebuild.PCapFileWriter;
+
+/**
+ * Writes a trace directory as the collector would, traffic.cap plus the
+ * peripheral files the trace reader looks for, filled with made up but well
+ * formed traffic. The same seed, packet count and mix give the same trace.
+ *
+ * Traffic comes in bursts separated by idle gaps of one to fifteen seconds so
+ * the radio model sees promotions and tails. Each burst opens a few flows of
+ * the kinds picked from the traffic mix: HTTP/1.1 connections fetching pages,
+ * scripts, style sheets, images and json, some of them more than once, TLS
+ * connections, HLS video with a manifest and paced segments, and DNS lookups.
+ * The trace is cut off as soon as it holds the requested number of packets.
+ */
+public class SyntheticTraceGenerator {
+
+	/** address of the device, written to device_info */
+	public static final String DEVICE_ADDRESS = "10.0.0.2";
+
+	public static final String APP_NAME = "com.att.synthetic";
+
+	private static final byte[] DEVICE = { 10, 0, 0, 2 };
+	private static final byte[] RESOLVER = { 10, 0, 0, 1 };
+
+	// 2017-11-30 16:00:00 UTC
+	private static final long START_MICROS = 1512057600000000L;
+
+	private static final int PROTOCOL_TCP = 6;
+	private static final int PROTOCOL_UDP = 17;
+	private static final int FIN = 0x01;
+	private static final int SYN = 0x02;
+	private static final int PSH = 0x08;
+	private static final int ACK = 0x10;
+	private static final int MSS = 1460;
+	private static final int TLS_RECORD_SIZE = 16384;
+	private static final int TS_PACKET_SIZE = 188;
+
+	private static final String[] WEB_HOSTS = { "www.example.com", "cdn.example.com", "static.example.org" };
+	private static final String[] API_HOSTS = { "api.example.com", "metrics.example.org", "auth.example.net" };
+	private static final String VIDEO_HOST = "video.example.net";
+	private static final String USER_AGENT = "Mozilla/5.0 (Linux; Android 7.0; Synthetic) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/59.0.3071.125 Mobile Safari/537.36";
+
+	/**
+	 * The resources a web host serves, a few paths are asked for often so
+	 * duplicate downloads show up. Cache headers differ on purpose.
+	 */
+	private static final Resource[] WEB_RESOURCES = {
+			new Resource("/index.html", 200, "text/html; charset=utf-8", 24000, "Cache-Control: no-cache\r\n"),
+			new Resource("/about.html", 200, "text/html; charset=utf-8", 9000, "Cache-Control: max-age=600\r\n"),
+			new Resource("/js/app.js", 200, "application/javascript", 96000, "Cache-Control: max-age=86400\r\nETag: \"5a1f2c3d-17700\"\r\n"),
+			new Resource("/js/vendor.js", 200, "application/javascript", 180000, ""),
+			new Resource("/css/site.css", 200, "text/css", 32000, "Last-Modified: Mon, 13 Nov 2017 09:30:12 GMT\r\n"),
+			new Resource("/img/hero.jpg", 200, "image/jpeg", 210000, "Cache-Control: max-age=3600\r\n"),
+			new Resource("/img/logo.png", 200, "image/png", 14000, "Expires: Thu, 01 Dec 2016 16:00:00 GMT\r\n"),
+			new Resource("/img/sprite-1.png", 200, "image/png", 3000, "Cache-Control: max-age=86400\r\n"),
+			new Resource("/img/sprite-2.png", 200, "image/png", 2500, "Cache-Control: max-age=86400\r\n"),
+			new Resource("/api/feed", 200, "application/json", 6000, "Cache-Control: private, no-store\r\n"),
+			new Resource("/favicon.ico", 404, "text/html", 180, ""),
+			new Resource("/old/home", 301, "text/html", 0, "Location: http://www.example.com/index.html\r\n") };
+
+	private final Random random;
+	private int packetCount = 10000;
+	private TrafficMix trafficMix = TrafficMix.parse(TrafficMix.DEFAULT);
+
+	private final Map<String, byte[]> hostAddresses = new HashMap<String, byte[]>();
+	private final Map<String, byte[]> bodies = new HashMap<String, byte[]>();
+	private final Set<String> resolved = new HashSet<String>();
+	private final List<Long> userEvents = new ArrayList<Long>();
+	private int nextPort;
+	private int ipId;
+
+	public SyntheticTraceGenerator(long seed) {
+		random = new Random(seed);
+		List<String> hosts = new ArrayList<String>(Arrays.asList(WEB_HOSTS));
+		hosts.addAll(Arrays.asList(API_HOSTS));
+		hosts.add(VIDEO_HOST);
+		for (int idx = 0; idx < hosts.size(); idx++) {
+			hostAddresses.put(hosts.get(idx), new byte[] { 93, (byte) 184, (byte) 216, (byte) (10 + idx) });
+		}
+	}
+
+	public int getPacketCount() {
+		return packetCount;
+	}
+
+	public void setPacketCount(int packetCount) {
+		if (packetCount < 1) {
+			throw new IllegalArgumentException("packet count must be at least 1");
+		}
+		this.packetCount = packetCount;
+	}
+
+	public TrafficMix getTrafficMix() {
+		return trafficMix;
+	}
+
+	public void setTrafficMix(TrafficMix trafficMix) {
+		this.trafficMix = trafficMix;
+	}
+
+	/**
+	 * Writes the trace into the directory, which is created if needed.
+	 * 
+	 * @param directory
+	 * @return number of packets written
+	 * @throws IOException
+	 */
+	public int generate(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create trace directory " + directory);
+		}
+		resolved.clear();
+		userEvents.clear();
+		nextPort = 40000;
+		ipId = 0;
+
+		int written = 0;
+		long time = START_MICROS;
+		File pcap = new File(directory, TraceDataConst.FileName.PCAP_FILE);
+		PCapFileWriter writer = new PCapFileWriter(new BufferedOutputStream(new FileOutputStream(pcap), 1 << 16));
+		try {
+			while (written < packetCount) {
+				time += seconds(1 + random.nextDouble() * 14);
+				if (random.nextInt(3) == 0) {
+					userEvents.add(time - 300000);
+				}
+				List<Record> records = new ArrayList<Record>();
+				int flows = 1 + random.nextInt(4);
+				for (int flow = 0; flow < flows; flow++) {
+					addFlow(records, time + random.nextInt(300000));
+				}
+				// stable, a packet never overtakes the one before it on the same flow
+				Collections.sort(records);
+				for (Record record : records) {
+					if (written == packetCount) {
+						break;
+					}
+					writer.addPacket(record.ip, 0, record.ip.length, record.micros * 1000);
+					time = record.micros;
+					written++;
+				}
+			}
+		} finally {
+			writer.close();
+		}
+		writePeripherals(directory, START_MICROS, time);
+		return written;
+	}
+
+	private void addFlow(List<Record> records, long start) {
+		Type type = trafficMix.pick(random);
+		switch (type) {
+		case HTTP:
+			addHttp(records, start);
+			break;
+		case TLS:
+			addTls(records, start);
+			break;
+		case VIDEO:
+			addVideo(records, start);
+			break;
+		case DNS:
+			lookup(records, start, pick(API_HOSTS), true);
+			break;
+		default:
+			throw new IllegalStateException("No flow for " + type);
+		}
+	}
+
+	/**
+	 * A keep-alive connection fetching one to three resources.
+	 */
+	private void addHttp(List<Record> records, long start) {
+		String host = pick(WEB_HOSTS);
+		Connection connection = new Connection(records, host, 80, lookup(records, start, host, false));
+		connection.open();
+		int requests = 1 + random.nextInt(3);
+		for (int request = 0; request < requests; request++) {
+			Resource resource = WEB_RESOURCES[random.nextInt(WEB_RESOURCES.length)];
+			connection.upload(ascii("GET " + resource.path + " HTTP/1.1\r\n"
+					+ "Host: " + host + "\r\n"
+					+ "User-Agent: " + USER_AGENT + "\r\n"
+					+ "Accept: */*\r\n"
+					+ "Accept-Encoding: gzip, deflate\r\n"
+					+ "Connection: keep-alive\r\n"
+					+ "\r\n"));
+			connection.download(response(resource.status, resource.contentType, resource.headers, body(resource)));
+			connection.pause(random.nextInt(200000));
+		}
+		connection.close();
+	}
+
+	/**
+	 * Handshake, then a few requests each answered by one or more records.
+	 */
+	private void addTls(List<Record> records, long start) {
+		String host = pick(API_HOSTS);
+		Connection connection = new Connection(records, host, 443, lookup(records, start, host, false));
+		connection.open();
+		connection.upload(tlsRecord(22, handshake(1, clientHello(host))));
+		connection.download(concat(tlsRecord(22, concat(handshake(2, serverHello()),
+				handshake(11, certificate()),
+				handshake(12, randomBytes(329)),
+				handshake(14, new byte[0])))));
+		connection.upload(concat(tlsRecord(22, handshake(16, randomBytes(66))),
+				tlsRecord(20, new byte[] { 1 }),
+				tlsRecord(22, randomBytes(40))));
+		connection.download(concat(tlsRecord(20, new byte[] { 1 }), tlsRecord(22, randomBytes(40))));
+		int exchanges = 1 + random.nextInt(5);
+		for (int exchange = 0; exchange < exchanges; exchange++) {
+			connection.upload(tlsRecord(23, randomBytes(200 + random.nextInt(1000))));
+			connection.download(applicationData(1000 + random.nextInt(80000)));
+			connection.pause(random.nextInt(500000));
+		}
+		connection.close();
+	}
+
+	/**
+	 * Manifest and then segments, paced the way a player keeps its buffer
+	 * filled.
+	 */
+	private void addVideo(List<Record> records, long start) {
+		Connection connection = new Connection(records, VIDEO_HOST, 80, lookup(records, start, VIDEO_HOST, false));
+		connection.open();
+		String folder = "/vod/" + (1000 + random.nextInt(20)) + "/720p/";
+		int segments = 3 + random.nextInt(6);
+		StringBuilder manifest = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n#EXT-X-TARGETDURATION:6\n#EXT-X-MEDIA-SEQUENCE:0\n");
+		for (int segment = 0; segment < segments; segment++) {
+			manifest.append("#EXTINF:6.006,\n").append(segmentName(segment)).append('\n');
+		}
+		manifest.append("#EXT-X-ENDLIST\n");
+		connection.upload(videoRequest(folder + "index.m3u8"));
+		connection.download(response(200, "application/vnd.apple.mpegurl", "Cache-Control: max-age=5\r\n", ascii(manifest.toString())));
+		for (int segment = 0; segment < segments; segment++) {
+			connection.pause(seconds(1.5 + random.nextDouble()));
+			connection.upload(videoRequest(folder + segmentName(segment)));
+			connection.download(response(200, "video/MP2T", "Cache-Control: max-age=604800\r\n", transportStream(150000 + random.nextInt(350000))));
+		}
+		connection.close();
+	}
+
+	private static String segmentName(int segment) {
+		return String.format(Locale.US, "segment_%05d.ts", segment);
+	}
+
+	private byte[] videoRequest(String path) {
+		return ascii("GET " + path + " HTTP/1.1\r\n"
+				+ "Host: " + VIDEO_HOST + "\r\n"
+				+ "User-Agent: ExoPlayerLib/2.5.4\r\n"
+				+ "Accept-Encoding: identity\r\n"
+				+ "Connection: Keep-Alive\r\n"
+				+ "\r\n");
+	}
+
+	/**
+	 * Resolves the host unless it was resolved before, now and then it is
+	 * looked up again anyway as an expired entry would be.
+	 * 
+	 * @return time the answer arrived, or start if there was no lookup
+	 */
+	private long lookup(List<Record> records, long start, String host, boolean always) {
+		if (!always && resolved.contains(host) && random.nextInt(10) != 0) {
+			return start;
+		}
+		resolved.add(host);
+		int port = nextPort();
+		int id = random.nextInt(0x10000);
+		long answered = start + 20000 + random.nextInt(60000);
+		records.add(new Record(start, udp(DEVICE, port, RESOLVER, 53, dnsMessage(id, host, null))));
+		records.add(new Record(answered, udp(RESOLVER, 53, DEVICE, port, dnsMessage(id, host, hostAddresses.get(host)))));
+		return answered;
+	}
+
+	private static byte[] dnsMessage(int id, String host, byte[] address) {
+		ByteBuffer message = ByteBuffer.allocate(512);
+		message.putShort((short) id);
+		message.putShort((short) (address == null ? 0x0100 : 0x8180));
+		message.putShort((short) 1);
+		message.putShort((short) (address == null ? 0 : 1));
+		message.putInt(0);
+		for (String label : host.split("\\.")) {
+			message.put((byte) label.length());
+			message.put(ascii(label));
+		}
+		message.put((byte) 0);
+		message.putShort((short) 1);
+		message.putShort((short) 1);
+		if (address != null) {
+			// name points back at the question
+			message.putShort((short) 0xc00c);
+			message.putShort((short) 1);
+			message.putShort((short) 1);
+			message.putInt(300);
+			message.putShort((short) 4);
+			message.put(address);
+		}
+		return Arrays.copyOf(message.array(), message.position());
+	}
+
+	private static byte[] response(int status, String contentType, String headers, byte[] body) {
+		String reason = status == 200 ? "OK" : status == 301 ? "Moved Permanently" : "Not Found";
+		byte[] head = ascii("HTTP/1.1 " + status + " " + reason + "\r\n"
+				+ "Date: Thu, 30 Nov 2017 16:00:00 GMT\r\n"
+				+ "Server: nginx\r\n"
+				+ "Content-Type: " + contentType + "\r\n"
+				+ "Content-Length: " + body.length + "\r\n"
+				+ headers
+				+ "Connection: keep-alive\r\n"
+				+ "\r\n");
+		return concat(head, body);
+	}
+
+	/**
+	 * The same resource always comes with the same body, so a second download
+	 * is a duplicate.
+	 */
+	private byte[] body(Resource resource) {
+		byte[] body = bodies.get(resource.path);
+		if (body == null) {
+			Random content = new Random(resource.path.hashCode());
+			body = new byte[resource.size];
+			if (resource.contentType.startsWith("image/")) {
+				content.nextBytes(body);
+			} else {
+				byte[] line = ascii("  var item" + resource.path.length() + " = { name: \"synthetic\", value: 42 };\n");
+				for (int idx = 0; idx < body.length; idx++) {
+					body[idx] = line[idx % line.length];
+				}
+			}
+			bodies.put(resource.path, body);
+		}
+		return body;
+	}
+
+	private byte[] transportStream(int size) {
+		byte[] stream = randomBytes(size - size % TS_PACKET_SIZE);
+		for (int offset = 0; offset < stream.length; offset += TS_PACKET_SIZE) {
+			stream[offset] = 0x47;
+		}
+		return stream;
+	}
+
+	private byte[] applicationData(int size) {
+		List<byte[]> records = new ArrayList<byte[]>();
+		for (int remaining = size; remaining > 0; remaining -= TLS_RECORD_SIZE) {
+			records.add(tlsRecord(23, randomBytes(Math.min(TLS_RECORD_SIZE, remaining))));
+		}
+		return concat(records.toArray(new byte[records.size()][]));
+	}
+
+	private byte[] clientHello(String host) {
+		byte[] name = ascii(host);
+		ByteBuffer hello = ByteBuffer.allocate(64 + name.length);
+		hello.putShort((short) 0x0303);
+		hello.put(randomBytes(32));
+		hello.put((byte) 0);
+		// TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256, TLS_RSA_WITH_AES_128_GCM_SHA256
+		hello.putShort((short) 4);
+		hello.putShort((short) 0xc02f);
+		hello.putShort((short) 0x009c);
+		hello.put((byte) 1);
+		hello.put((byte) 0);
+		// server name extension
+		hello.putShort((short) (9 + name.length));
+		hello.putShort((short) 0);
+		hello.putShort((short) (5 + name.length));
+		hello.putShort((short) (3 + name.length));
+		hello.put((byte) 0);
+		hello.putShort((short) name.length);
+		hello.put(name);
+		return Arrays.copyOf(hello.array(), hello.position());
+	}
+
+	private byte[] serverHello() {
+		ByteBuffer hello = ByteBuffer.allocate(40);
+		hello.putShort((short) 0x0303);
+		hello.put(randomBytes(32));
+		hello.put((byte) 0);
+		hello.putShort((short) 0xc02f);
+		hello.put((byte) 0);
+		hello.putShort((short) 0);
+		return Arrays.copyOf(hello.array(), hello.position());
+	}
+
+	private byte[] certificate() {
+		byte[] der = randomBytes(1200 + random.nextInt(800));
+		return concat(uint24(der.length + 3), uint24(der.length), der);
+	}
+
+	private static byte[] handshake(int type, byte[] body) {
+		byte[] length = uint24(body.length);
+		return concat(new byte[] { (byte) type, length[0], length[1], length[2] }, body);
+	}
+
+	private static byte[] tlsRecord(int type, byte[] body) {
+		return concat(new byte[] { (byte) type, 3, 3, (byte) (body.length >> 8), (byte) body.length }, body);
+	}
+
+	private static byte[] uint24(int value) {
+		return new byte[] { (byte) (value >> 16), (byte) (value >> 8), (byte) value };
+	}
+
+	private byte[] udp(byte[] source, int sourcePort, byte[] destination, int destinationPort, byte[] payload) {
+		byte[] packet = ipPacket(source, destination, PROTOCOL_UDP, 8 + payload.length);
+		ByteBuffer udp = ByteBuffer.wrap(packet, 20, 8 + payload.length);
+		udp.putShort((short) sourcePort);
+		udp.putShort((short) destinationPort);
+		udp.putShort((short) (8 + payload.length));
+		udp.putShort((short) 0);
+		udp.put(payload);
+		return packet;
+	}
+
+	/**
+	 * IPv4 packet of the given payload length with its header filled in and
+	 * checksummed, the payload is left to the caller.
+	 */
+	private byte[] ipPacket(byte[] source, byte[] destination, int protocol, int payloadLength) {
+		byte[] packet = new byte[20 + payloadLength];
+		ByteBuffer header = ByteBuffer.wrap(packet);
+		header.put((byte) 0x45);
+		header.put((byte) 0);
+		header.putShort((short) packet.length);
+		header.putShort((short) ipId++);
+		// don't fragment
+		header.putShort((short) 0x4000);
+		header.put((byte) 64);
+		header.put((byte) protocol);
+		header.putShort((short) 0);
+		header.put(source);
+		header.put(destination);
+		int sum = 0;
+		for (int idx = 0; idx < 20; idx += 2) {
+			sum += ((packet[idx] & 0xff) << 8) | (packet[idx + 1] & 0xff);
+		}
+		sum = (sum & 0xffff) + (sum >> 16);
+		sum += sum >> 16;
+		header.putShort(10, (short) ~sum);
+		return packet;
+	}
+
+	private int nextPort() {
+		if (nextPort >= 60000) {
+			nextPort = 40000;
+		}
+		return nextPort++;
+	}
+
+	private void writePeripherals(File directory, long startMicros, long endMicros) throws IOException {
+		double start = startMicros / 1e6;
+		double end = endMicros / 1e6;
+
+		write(directory, TraceDataConst.FileName.TIME_FILE, "Synchronized timestamps", time(start),
+				Long.toString(startMicros / 1000), time(end), "0");
+		write(directory, TraceDataConst.FileName.APPNAME_FILE, APP_NAME + " 1.0");
+		write(directory, TraceDataConst.FileName.DEVICEINFO_FILE, DEVICE_ADDRESS);
+		write(directory, TraceDataConst.FileName.DEVICEDETAILS_FILE, "com.att.arocollector", "Synthetic", "ARO", "android",
+				"7.0", "6.0", Integer.toString(TraceDataConst.TraceNetworkType.LTE), "1080*1920");
+		write(directory, TraceDataConst.FileName.NETWORKINFO_FILE, time(start) + " " + TraceDataConst.TraceNetworkType.LTE);
+		write(directory, TraceDataConst.FileName.SCREEN_STATE_FILE, time(start) + " " + TraceDataConst.SCREEN_ON + " 30 128",
+				time(end) + " " + TraceDataConst.SCREEN_OFF);
+
+		double gpsOn = start + (end - start) / 2;
+		write(directory, TraceDataConst.FileName.GPS_FILE, time(start) + " " + TraceDataConst.GPS_STANDBY,
+				time(gpsOn) + " " + TraceDataConst.GPS_ACTIVE, time(gpsOn + 30) + " " + TraceDataConst.GPS_STANDBY);
+
+		List<String> cpu = new ArrayList<String>();
+		List<String> battery = new ArrayList<String>();
+		for (double second = start; second < end; second++) {
+			int usage = 5 + random.nextInt(60);
+			cpu.add(time(second) + " " + usage + " " + APP_NAME + "=" + random.nextInt(usage));
+			if (((long) (second - start)) % 60 == 0) {
+				battery.add(time(second) + " " + Math.max(5, 90 - (int) ((second - start) / 600)) + " 30 false");
+			}
+		}
+		write(directory, TraceDataConst.FileName.CPU_FILE, cpu);
+		write(directory, TraceDataConst.FileName.BATTERY_FILE, battery);
+
+		List<String> events = new ArrayList<String>();
+		for (long micros : userEvents) {
+			events.add(time(micros / 1e6) + " " + TraceDataConst.UserEvent.SCREEN + " " + TraceDataConst.UserEvent.PRESS);
+			events.add(time(micros / 1e6 + 0.1) + " " + TraceDataConst.UserEvent.SCREEN + " " + TraceDataConst.UserEvent.RELEASE);
+		}
+		write(directory, TraceDataConst.FileName.USER_EVENTS_FILE, events);
+	}
+
+	private static void write(File directory, String name, String... lines) throws IOException {
+		write(directory, name, Arrays.asList(lines));
+	}
+
+	private static void write(File directory, String name, List<String> lines) throws IOException {
+		Files.write(new File(directory, name).toPath(), lines, StandardCharsets.UTF_8);
+	}
+
+	private static String time(double seconds) {
+		return String.format(Locale.US, "%.3f", seconds);
+	}
+
+	private static long seconds(double seconds) {
+		return (long) (seconds * 1e6);
+	}
+
+	private String pick(String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		int length = 0;
+		for (byte[] part : parts) {
+			length += part.length;
+		}
+		byte[] result = new byte[length];
+		int offset = 0;
+		for (byte[] part : parts) {
+			System.arraycopy(part, 0, result, offset, part.length);
+			offset += part.length;
+		}
+		return result;
+	}
+
+	/**
+	 * One TCP connection from the device, keeps the sequence numbers and the
+	 * clock of the connection.
+	 */
+	private final class Connection {
+		private final List<Record> records;
+		private final byte[] server;
+		private final int clientPort;
+		private final int serverPort;
+		private final long roundTrip;
+		private long clientSeq;
+		private long serverSeq;
+		private long time;
+
+		Connection(List<Record> records, String host, int serverPort, long start) {
+			this.records = records;
+			this.server = hostAddresses.get(host);
+			this.clientPort = nextPort();
+			this.serverPort = serverPort;
+			this.roundTrip = 30000 + random.nextInt(90000);
+			this.clientSeq = random.nextInt() & 0xffffffffL;
+			this.serverSeq = random.nextInt() & 0xffffffffL;
+			this.time = start;
+		}
+
+		void open() {
+			segment(true, SYN, null, 0, 0);
+			clientSeq++;
+			time += roundTrip;
+			segment(false, SYN | ACK, null, 0, 0);
+			serverSeq++;
+			time += 500;
+			segment(true, ACK, null, 0, 0);
+		}
+
+		/**
+		 * The device sends the payload, the answer starts a round trip later.
+		 */
+		void upload(byte[] payload) {
+			send(true, payload);
+			time += roundTrip;
+		}
+
+		/**
+		 * The server sends the payload, the device acknowledges every second
+		 * segment.
+		 */
+		void download(byte[] payload) {
+			send(false, payload);
+		}
+
+		void pause(long micros) {
+			time += micros;
+		}
+
+		void close() {
+			segment(true, FIN | ACK, null, 0, 0);
+			clientSeq++;
+			time += roundTrip;
+			segment(false, FIN | ACK, null, 0, 0);
+			serverSeq++;
+			time += 500;
+			segment(true, ACK, null, 0, 0);
+		}
+
+		private void send(boolean uplink, byte[] payload) {
+			int count = 0;
+			for (int offset = 0; offset < payload.length; offset += MSS) {
+				int length = Math.min(MSS, payload.length - offset);
+				boolean last = offset + length == payload.length;
+				segment(uplink, ACK | (last ? PSH : 0), payload, offset, length);
+				if (uplink) {
+					clientSeq += length;
+					time += 200;
+				} else {
+					serverSeq += length;
+					time += 100 + random.nextInt(900);
+					if (++count % 2 == 0 || last) {
+						segment(true, ACK, null, 0, 0);
+					}
+				}
+			}
+		}
+
+		private void segment(boolean uplink, int flags, byte[] payload, int offset, int length) {
+			byte[] packet = ipPacket(uplink ? DEVICE : server, uplink ? server : DEVICE, PROTOCOL_TCP, 20 + length);
+			ByteBuffer tcp = ByteBuffer.wrap(packet, 20, 20 + length);
+			tcp.putShort((short) (uplink ? clientPort : serverPort));
+			tcp.putShort((short) (uplink ? serverPort : clientPort));
+			tcp.putInt((int) (uplink ? clientSeq : serverSeq));
+			tcp.putInt((flags & ACK) == 0 ? 0 : (int) (uplink ? serverSeq : clientSeq));
+			tcp.put((byte) 0x50);
+			tcp.put((byte) flags);
+			tcp.putShort((short) 0xffff);
+			tcp.putInt(0);
+			if (length > 0) {
+				tcp.put(payload, offset, length);
+			}
+			records.add(new Record(time, packet));
+		}
+	}
+
+	private static final class Resource {
+		private final String path;
+		private final int status;
+		private final String contentType;
+		private final int size;
+		private final String headers;
+
+		Resource(String path, int status, String contentType, int size, String headers) {
+			this.path = path;
+			this.status = status;
+			this.contentType = contentType;
+			this.size = size;
+			this.headers = headers;
+		}
+	}
+
+	private static final class Record implements Comparable<Record> {
+		private final long micros;
+		private final byte[] ip;
+
+		Record(long micros, byte[] ip) {
+			this.micros = micros;
+			this.ip = ip;
+		}
+
+		@Override
+		public int compareTo(Record other) {
+			return Long.compare(micros, other.micros);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.att.aro.core.AROConfig;
+import com.att.aro.core.packetanalysis.IPacketAnalyzer;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.TraceDataConst;
+import com.att.aro.core.packetreader.IPacketReader;
+import com.att.aro.core.packetreader.impl.PacketReaderImpl;
+
+/**
+ * A synthetic trace directory of packetCount packets in the given traffic
+ * mix, analyzed once per trial by the regular pipeline. Benchmarks of single
+ * stages take their input from the analysis and their beans from the same
+ * context.
+ * 
+ * The capture is read with {@link StreamPCapAdapter}, the native pcap
+ * library is not needed.
+ */
+@State(Scope.Benchmark)
+public class SyntheticTraceState {
+
+	@Param({ "10000", "100000" })
+	int packetCount;
+
+	@Param({ TrafficMix.DEFAULT, "video=6,tls=2,dns=2" })
+	String trafficMix;
+
+	private AnnotationConfigApplicationContext context;
+	private File traceDirectory;
+	private PacketAnalyzerResult analysis;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		traceDirectory = Files.createTempDirectory("aro-benchmark").toFile();
+		SyntheticTraceGenerator generator = new SyntheticTraceGenerator(31L * packetCount + trafficMix.hashCode());
+		generator.setPacketCount(packetCount);
+		generator.setTrafficMix(TrafficMix.parse(trafficMix));
+		generator.generate(traceDirectory);
+
+		context = new AnnotationConfigApplicationContext(AROConfig.class);
+		PacketReaderImpl packetReader = (PacketReaderImpl) context.getBean("packetReader", IPacketReader.class);
+		packetReader.setAdapter(new StreamPCapAdapter());
+		analysis = context.getBean(IPacketAnalyzer.class).analyzeTraceDirectory(traceDirectory.getPath(), null, null);
+		if (analysis == null || analysis.getTraceresult() == null) {
+			throw new IllegalStateException("Synthetic trace could not be analyzed: " + traceDirectory);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		context.close();
+		FileUtils.deleteDirectory(traceDirectory);
+	}
+
+	public int getPacketCount() {
+		return packetCount;
+	}
+
+	public File getTraceDirectory() {
+		return traceDirectory;
+	}
+
+	public File getPcapFile() {
+		return new File(traceDirectory, TraceDataConst.FileName.PCAP_FILE);
+	}
+
+	public PacketAnalyzerResult getAnalysis() {
+		return analysis;
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	public <T> T getBean(String name, Class<T> type) {
+		return context.getBean(name, type);
+	}
+}
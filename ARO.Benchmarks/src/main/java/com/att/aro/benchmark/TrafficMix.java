@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.benchmark;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Relative share of each kind of traffic in a synthetic trace, written as
+ * comma separated weights such as "http=4,tls=4,video=1,dns=1" so it can be
+ * passed as a JMH parameter. Kinds that are left out do not occur.
+ */
+public class TrafficMix {
+
+	public enum Type {
+		/** plain HTTP/1.1 pages, scripts, style sheets, images and json */
+		HTTP,
+		/** TLS handshake followed by application data records */
+		TLS,
+		/** HLS manifest and transport stream segments over HTTP */
+		VIDEO,
+		/** a DNS lookup on its own */
+		DNS
+	}
+
+	public static final String DEFAULT = "http=4,tls=4,video=1,dns=1";
+
+	private final Map<Type, Integer> weights = new EnumMap<Type, Integer>(Type.class);
+	private final int total;
+
+	private TrafficMix(Map<Type, Integer> weights) {
+		this.weights.putAll(weights);
+		int sum = 0;
+		for (int weight : weights.values()) {
+			sum += weight;
+		}
+		this.total = sum;
+	}
+
+	/**
+	 * @param mix
+	 *            weights such as "http=4,tls=4,video=1,dns=1"
+	 * @return the mix
+	 * @throws IllegalArgumentException
+	 *             if a kind is not known, a weight is negative or all weights
+	 *             are zero
+	 */
+	public static TrafficMix parse(String mix) {
+		Map<Type, Integer> weights = new EnumMap<Type, Integer>(Type.class);
+		for (String part : mix.split(",")) {
+			String[] pair = part.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("Expected kind=weight in traffic mix: " + part);
+			}
+			Type type;
+			int weight;
+			try {
+				type = Type.valueOf(pair[0].trim().toUpperCase());
+				weight = Integer.parseInt(pair[1].trim());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid traffic mix entry: " + part, e);
+			}
+			if (weight < 0) {
+				throw new IllegalArgumentException("Negative weight in traffic mix: " + part);
+			}
+			weights.put(type, weight);
+		}
+		TrafficMix trafficMix = new TrafficMix(weights);
+		if (trafficMix.total == 0) {
+			throw new IllegalArgumentException("Traffic mix has no traffic: " + mix);
+		}
+		return trafficMix;
+	}
+
+	public int getWeight(Type type) {
+		Integer weight = weights.get(type);
+		return weight == null ? 0 : weight;
+	}
+
+	/**
+	 * Picks a kind of traffic with a chance proportional to its weight.
+	 */
+	public Type pick(Random random) {
+		int value = random.nextInt(total);
+		for (Map.Entry<Type, Integer> entry : weights.entrySet()) {
+			value -= entry.getValue();
+			if (value < 0) {
+				return entry.getKey();
+			}
+		}
+		throw new IllegalStateException("weights changed");
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for (Map.Entry<Type, Integer> entry : weights.entrySet()) {
+			if (text.length() > 0) {
+				text.append(',');
+			}
+			text.append(entry.getKey().name().toLowerCase()).append('=').append(entry.getValue());
+		}
+		return text.toString();
+	}
+}
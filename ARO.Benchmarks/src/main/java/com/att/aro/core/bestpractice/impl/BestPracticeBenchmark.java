@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.bestpractice.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.att.aro.benchmark.SyntheticTraceState;
+import com.att.aro.core.bestpractice.IBestPractice;
+import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+
+/**
+ * One best practice test per trial over an analyzed synthetic trace, the
+ * bestPractice parameter is the bean name from AROBestPracticeConfig. Narrow
+ * it down with -p bestPractice=cacheControl,duplicateContent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BestPracticeBenchmark {
+
+	@Param({ "periodicTransfer", "unnecessaryConnection", "connectionOpening", "connectionClosing", "wifiOffloading",
+			"screenRotation", "prefetching", "accessingPeripheral", "combineCsJss", "http10Usage", "cacheControl",
+			"usingCache", "duplicateContent", "http4xx5xx", "http3xx", "textFileCompression", "imageSize",
+			"imageCompression", "imageMetadata", "imageFormat", "minify", "emptyUrl", "flash", "spriteImage", "scripts",
+			"async", "displaynoneincss", "fileorder", "videoStall", "startupDelay", "bufferOccupancy",
+			"networkComparison", "tcpConnection", "chunkSize", "chunkPacing", "videoRedundancy", "httpsUsage",
+			"transmissionPrivateData", "unsecureSSLVersion", "weakCipher", "forwardSecrecy" })
+	String bestPractice;
+
+	private IBestPractice test;
+	private PacketAnalyzerResult analysis;
+
+	@Setup(Level.Trial)
+	public void setUp(SyntheticTraceState trace) {
+		test = trace.getBean(bestPractice, IBestPractice.class);
+		analysis = trace.getAnalysis();
+	}
+
+	@Benchmark
+	public AbstractBestPracticeResult runTest() {
+		return test.runTest(analysis);
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.att.aro.core.AROConfig;
+import com.att.aro.core.configuration.pojo.Profile3G;
+import com.att.aro.core.packetanalysis.IBurstCollectionAnalysis;
+import com.att.aro.core.packetanalysis.pojo.BurstCollectionAnalysisData;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RRCState;
+import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TcpInfo;
+import com.att.aro.core.packetreader.pojo.Packet;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+import com.att.aro.core.peripheral.pojo.CpuActivity;
+import com.att.aro.core.peripheral.pojo.UserEvent;
+import com.att.aro.core.peripheral.pojo.UserEvent.UserEventType;
+
+/**
+ * Burst grouping, normalization and categorization over synthetic timelines.
+ * Packets arrive in bursts separated by idle gaps, each gap followed by an
+ * IDLE to DCH promotion, with a user event every few bursts and a cpu sample
+ * every half second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BurstCollectionAnalysisBenchmark {
+
+	@Param({ "100000", "1000000" })
+	int packetCount;
+
+	private AnnotationConfigApplicationContext context;
+	private IBurstCollectionAnalysis burstCollectionAnalysis;
+	private Profile3G profile;
+	private List<PacketInfo> packets;
+	private Map<Integer, Integer> packetSizeToCountMap;
+	private List<RrcStateRange> rrcStateRanges;
+	private List<UserEvent> userEvents;
+	private List<CpuActivity> cpuActivities;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new AnnotationConfigApplicationContext(AROConfig.class);
+		burstCollectionAnalysis = context.getBean(IBurstCollectionAnalysis.class);
+		profile = new Profile3G();
+
+		Random random = new Random(packetCount);
+		packets = new ArrayList<PacketInfo>(packetCount);
+		packetSizeToCountMap = new HashMap<Integer, Integer>();
+		rrcStateRanges = new ArrayList<RrcStateRange>();
+		userEvents = new ArrayList<UserEvent>();
+		TcpInfo[] tcpInfos = TcpInfo.values();
+		double time = 0;
+		int burst = 0;
+		while (packets.size() < packetCount) {
+			double gap = 2 + random.nextDouble() * 20;
+			double promotion = profile.getIdleDchPromoAvg();
+			rrcStateRanges.add(new RrcStateRange(time, time + gap - promotion, RRCState.STATE_IDLE));
+			rrcStateRanges.add(new RrcStateRange(time + gap - promotion, time + gap, RRCState.PROMO_IDLE_DCH));
+			time += gap;
+			double burstBegin = time;
+			if (burst++ % 4 == 0) {
+				userEvents.add(new UserEvent(UserEventType.SCREEN_TOUCH, time - 0.5, time - 0.4));
+			}
+			int burstPackets = 1 + random.nextInt(200);
+			for (int idx = 0; idx < burstPackets && packets.size() < packetCount; idx++) {
+				time += random.nextDouble() * 0.05;
+				int payloadLen = random.nextInt(3) == 0 ? 1460 : random.nextInt(1400);
+				long micros = (long) (time * 1000000);
+				PacketInfo packetInfo = new PacketInfo(new Packet(micros / 1000000, micros % 1000000, payloadLen, 0, new byte[0]));
+				packetInfo.setDir(random.nextBoolean() ? PacketDirection.UPLINK : PacketDirection.DOWNLINK);
+				packetInfo.setTcpInfo(tcpInfos[random.nextInt(tcpInfos.length)]);
+				packets.add(packetInfo);
+				Integer count = packetSizeToCountMap.get(payloadLen);
+				packetSizeToCountMap.put(payloadLen, count == null ? 1 : count + 1);
+			}
+			rrcStateRanges.add(new RrcStateRange(burstBegin, time, RRCState.STATE_DCH));
+		}
+		cpuActivities = new ArrayList<CpuActivity>();
+		for (double sample = 0; sample < time; sample += 0.5) {
+			CpuActivity cpuActivity = new CpuActivity();
+			cpuActivity.setTimestamp(sample);
+			cpuActivity.setTotalCpuUsage(random.nextDouble() * 100);
+			cpuActivities.add(cpuActivity);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public BurstCollectionAnalysisData analyze() {
+		return burstCollectionAnalysis.analyze(packets, profile, packetSizeToCountMap, rrcStateRanges, userEvents, cpuActivities,
+				new ArrayList<Session>());
+	}
+}
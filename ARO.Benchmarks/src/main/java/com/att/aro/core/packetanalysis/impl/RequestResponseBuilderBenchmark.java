@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.att.aro.benchmark.SyntheticTraceState;
+import com.att.aro.core.packetanalysis.IRequestResponseBuilder;
+import com.att.aro.core.packetanalysis.pojo.Session;
+
+/**
+ * Request/response extraction over the TCP sessions of a synthetic trace,
+ * from the reassembled session storage the session manager left behind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestResponseBuilderBenchmark {
+
+	private IRequestResponseBuilder requestResponseBuilder;
+	private final List<Session> sessions = new ArrayList<Session>();
+
+	@Setup(Level.Trial)
+	public void setUp(SyntheticTraceState trace) {
+		requestResponseBuilder = trace.getBean(IRequestResponseBuilder.class);
+		sessions.clear();
+		for (Session session : trace.getAnalysis().getSessionlist()) {
+			if (!session.isUDP()) {
+				sessions.add(session);
+			}
+		}
+	}
+
+	@Benchmark
+	public void createRequestResponseInfo(Blackhole blackhole) throws IOException {
+		for (Session session : sessions) {
+			blackhole.consume(requestResponseBuilder.createRequestResponseInfo(session));
+		}
+	}
+}
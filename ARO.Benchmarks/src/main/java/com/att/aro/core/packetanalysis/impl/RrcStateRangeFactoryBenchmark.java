@@ -0,0 +1,68 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.att.aro.benchmark.SyntheticTraceState;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.packetanalysis.IRrcStateRangeFactory;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+
+/**
+ * RRC state ranges of a synthetic trace under the profile it was analyzed
+ * with, LTE unless the trace says otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RrcStateRangeFactoryBenchmark {
+
+	private IRrcStateRangeFactory rrcStateRangeFactory;
+	private List<PacketInfo> packets;
+	private Profile profile;
+	private double traceDuration;
+
+	@Setup(Level.Trial)
+	public void setUp(SyntheticTraceState trace) {
+		rrcStateRangeFactory = trace.getBean(IRrcStateRangeFactory.class);
+		packets = trace.getAnalysis().getTraceresult().getAllpackets();
+		profile = trace.getAnalysis().getProfile();
+		traceDuration = trace.getAnalysis().getTraceresult().getTraceDuration();
+	}
+
+	@Benchmark
+	public List<RrcStateRange> create() {
+		return rrcStateRangeFactory.create(packets, profile, traceDuration);
+	}
+}
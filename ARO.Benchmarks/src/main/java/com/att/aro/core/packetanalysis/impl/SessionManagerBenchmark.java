@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.att.aro.benchmark.SyntheticTraceState;
+import com.att.aro.core.packetanalysis.ISessionManager;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+
+/**
+ * Session assembly, TCP reassembly and request/response extraction of all
+ * packets of a synthetic trace. The session manager resets the tcp info of
+ * every packet it looks at, so the same packets can be assembled again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SessionManagerBenchmark {
+
+	private ISessionManager sessionManager;
+	private List<PacketInfo> packets;
+
+	@Setup(Level.Trial)
+	public void setUp(SyntheticTraceState trace) {
+		sessionManager = trace.getBean(ISessionManager.class);
+		packets = trace.getAnalysis().getTraceresult().getAllpackets();
+	}
+
+	@Benchmark
+	public List<Session> assembleSession() {
+		return sessionManager.assembleSession(packets);
+	}
+}
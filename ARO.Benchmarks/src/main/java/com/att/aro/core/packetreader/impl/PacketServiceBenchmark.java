@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.impl;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.att.aro.benchmark.SyntheticTraceState;
+import com.att.aro.core.packetreader.ICaptureFormatReader;
+import com.att.aro.core.packetreader.INativePacketSubscriber;
+import com.att.aro.core.packetreader.IPacketService;
+import com.att.aro.core.packetreader.pojo.CaptureFormat;
+
+/**
+ * Decoding of every record of a synthetic capture into a Packet, the records
+ * are read into memory first so only the decoding is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PacketServiceBenchmark {
+
+	private IPacketService packetService;
+	private CaptureFormat captureFormat;
+	private final List<PcapRecord> records = new ArrayList<PcapRecord>();
+
+	@Setup(Level.Trial)
+	public void setUp(SyntheticTraceState trace) throws IOException {
+		packetService = trace.getBean(IPacketService.class);
+		captureFormat = trace.getBean(ICaptureFormatReader.class).read(trace.getPcapFile().getPath());
+		records.clear();
+		try (InputStream input = new BufferedInputStream(new FileInputStream(trace.getPcapFile()))) {
+			new PcapStreamReader(input).readRecords(new INativePacketSubscriber() {
+				@Override
+				public void receive(int datalink, long seconds, long microSeconds, int len, byte[] data) {
+					records.add(new PcapRecord(datalink, seconds, microSeconds, len, data));
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public void createPacketFromPcap(Blackhole blackhole) {
+		for (PcapRecord record : records) {
+			blackhole.consume(packetService.createPacketFromPcap(captureFormat, record.datalink, record.seconds,
+					record.microSeconds, record.len, record.data));
+		}
+	}
+
+	private static final class PcapRecord {
+		private final int datalink;
+		private final long seconds;
+		private final long microSeconds;
+		private final int len;
+		private final byte[] data;
+
+		PcapRecord(int datalink, long seconds, long microSeconds, int len, byte[] data) {
+			this.datalink = datalink;
+			this.seconds = seconds;
+			this.microSeconds = microSeconds;
+			this.len = len;
+			this.data = data;
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.videoanalysis.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.att.aro.core.videoanalysis.pojo.VideoEvent.VideoType;
+import com.att.aro.core.videoanalysis.pojo.config.VideoAnalysisConfig;
+import com.att.aro.core.videoanalysis.pojo.config.VideoDataTags;
+
+/**
+ * Config lookup for every request of a trace, the linear patternFind scan
+ * findConfig did before against VideoConfigDispatcher. The configs are the
+ * defaults VideoAnalysisConfigHelperImpl writes, the requests a mix of
+ * segment URIs for each of them and the API, image and script requests that
+ * make up most of a trace. Like VideoUsageAnalysisImpl every request is
+ * looked up twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VideoConfigDispatchBenchmark {
+
+	private static final String[][] CONFIGS = {
+			{ "HLS-NOW", "(dtvn-live).+channel\\((.+)\\).+-(\\d{2})-(\\d{8}T\\d{6})\\.([a-zA-Z]*)" },
+			{ "HLS-VOD", "http:\\/\\/directv-vod\\.hls\\.adaptive\\.(level3)\\.net\\/.+\\/([A|B]\\d+U)(\\d)_(\\d)_(\\d{1,4})\\.([a-zA-Z]*)\\?exptime=(\\d+)" },
+			{ "HLS-vc3m", "http:\\/\\/directvc3m\\-prod\\-vod\\.hls\\.adaptive\\.(level3)\\.net\\/.+\\/([A|B]\\d+U)(\\d)\\/(\\d{2})\\/(\\d{1,4})\\.([a-zA-Z]*)\\?exptime=(\\d+)" },
+			{ "HLS-vlst-live", "directvlst-live\\.hls\\.adaptive\\.(level3)\\.net\\/livetv\\/30\\/(\\d+)\\/(\\d{2})\\/(\\d{8}T\\d{8,10})\\.([a-zA-Z]*)\\?exptime=(\\d+).+" },
+			{ "HLS-vlst_llnwd", "http:\\/\\/directvlst\\.vo\\.(llnwd)\\.net\\/e1\\/livetv\\/30\\/(\\d+)\\/(\\d{2})\\/(\\d{8}T\\d{8,10})\\.([a-zA-Z]*)\\?p=([a-zA-Z_0-9]*)" },
+			{ "HLS_aav", "directvaav.+\\/(aav).+\\/([A|B]\\d+U)(\\d)_(\\d{1,2})_(\\d{1,4})\\.([a-zA-Z]*)" },
+			{ "HLS_aav_akamai", "http:\\/\\/aav-akamai3.directv.com.edgesuite.net\\/(aav).+\\/([A|B]\\d+U)(\\d)_(\\d{1,2})_(\\d{1,4})\\.([a-zA-Z]*)\\?exptime=(\\d+).+" },
+			{ "dash_vod", "\\/([a-zA-Z_0-9\\-]*)_video_(\\d)\\.([a-zA-Z]*\\d{1})" },
+			{ "ssm_ism", "\\/([a-zA-Z_0-9\\-]*)\\.ism\\/QualityLevels\\((\\d+)\\)\\/Fragments\\(video=(\\d+)\\)" },
+			{ "uverse-YouTube", "\\.(uverse)\\..+\\/([a-zA-Z_0-9\\-]*)\\.([a-zA-Z]*\\d{1})" } };
+
+	// %d is the segment number
+	private static final String[] SEGMENTS = {
+			"http://directv-vod.hls.adaptive.level3.net/aav/30/B001573958U3/HLS4/B001573958U0_4_%d.ts?exptime=1474072717&token=fa36ffe95386a7384260f920d813f101",
+			"http://directvc3m-prod-vod.hls.adaptive.level3.net/c3/30/movie/2016_12/B002021484/B002021484U3/06/%d.ts?exptime=1481067556&token=3d469e9848c0679ff4cc0cd84364fc4e",
+			"http://directvlst-live.hls.adaptive.level3.net/livetv/30/8249/05/20161122T2230%05d.ts?exptime=1479868099&token=aab902d3ef9e795f1cd9d51bb8c99c53",
+			"http://aav-akamai3.directv.com.edgesuite.net/aav/30/B001844891U3/HLS2/B001844891U0_2_%d.ts?exptime=1476236042&token=ce277f64e9b02097f4348298653ea86a",
+			"http://a19avoddashs3us-a.akamaihd.net/d/1$A43PXU4ZN2AL1,6B4DCD80/videoquality$480p/ondemand/c4ea/0a2e/f7f7/481b-9753-a90e82e9b0e8/ced3d82d-e939-418b-a06c-59e11f7e1bdd_video_2.mp4?seg=%d",
+			"http://ds79lt46qzmj0.cloudfront.net/dm/2$w-i4rGny79gdQDF6YsenLjtAzZ0~/6d64/b2c7/6f71/4725-b1e2-b68bb43c0171/7b81c27d-83fc-4f78-98ca-d549ed3a211c.ism/QualityLevels(450000)/Fragments(video=%d0000)" };
+
+	private static final String[] OTHERS = {
+			"http://api.example.com/v1/feed?limit=25&cursor=%d",
+			"http://cdn.example.com/assets/img/thumb_%d@2x.jpg",
+			"http://www.example.com/static/js/app.%d.min.js",
+			"http://metrics.example.org:8080/collect?v=1&t=event&z=%d",
+			"http://ads.example.net/vast/creative/%d/preroll.xml",
+			"http://img.example.com/posters/w342/%d.webp" };
+
+	@Param({ "20000", "50000" })
+	int requestCount;
+
+	@Param({ "20" })
+	int videoPercent;
+
+	private List<VideoAnalysisConfig> configs;
+	private List<String> requests;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		configs = new ArrayList<VideoAnalysisConfig>();
+		for (String[] config : CONFIGS) {
+			VideoAnalysisConfig vConfig = new VideoAnalysisConfig(VideoType.HLS, config[0], "GET", config[1], null, null, new VideoDataTags[0]);
+			vConfig.setValid(true);
+			configs.add(vConfig);
+		}
+		Random random = new Random(42);
+		requests = new ArrayList<String>(requestCount);
+		for (int idx = 0; idx < requestCount; idx++) {
+			String[] templates = random.nextInt(100) < videoPercent ? SEGMENTS : OTHERS;
+			requests.add(String.format(templates[random.nextInt(templates.length)], idx));
+		}
+	}
+
+	/**
+	 * findConfig as it was, last hit first, then patternFind on every config.
+	 * The info log line it wrote per config is left out.
+	 */
+	@Benchmark
+	public int linearPatternFind() {
+		int found = 0;
+		VideoAnalysisConfig last = null;
+		for (String request : requests) {
+			for (int lookup = 0; lookup < 2; lookup++) {
+				VideoAnalysisConfig vConfig = null;
+				if (last != null && last.getPattern().matcher(request).matches()) {
+					vConfig = last;
+				} else {
+					for (VideoAnalysisConfig tempConfig : configs) {
+						if (tempConfig.isValidated() && tempConfig.patternFind(request)) {
+							vConfig = tempConfig;
+							last = vConfig;
+							break;
+						}
+					}
+				}
+				if (vConfig != null) {
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * findConfig now, last hit first, then the dispatcher. Built once per
+	 * trace like the helper does, so its cache starts empty.
+	 */
+	@Benchmark
+	public int dispatcher() {
+		int found = 0;
+		VideoConfigDispatcher dispatcher = new VideoConfigDispatcher(configs);
+		VideoAnalysisConfig last = null;
+		for (String request : requests) {
+			for (int lookup = 0; lookup < 2; lookup++) {
+				VideoAnalysisConfig vConfig;
+				if (last != null && last.getPattern().matcher(request).matches()) {
+					vConfig = last;
+				} else {
+					vConfig = dispatcher.find(request);
+					if (vConfig != null) {
+						last = vConfig;
+					}
+				}
+				if (vConfig != null) {
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+}
@@ -23,8 +23,10 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
 
@@ -48,14 +50,26 @@ import com.att.aro.core.datacollector.IDataCollectorManager;
 import com.att.aro.core.datacollector.pojo.CollectorStatus;
 import com.att.aro.core.datacollector.pojo.StatusResult;
 import com.att.aro.core.fileio.IFileManager;
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.pojo.HistogramMetric;
+import com.att.aro.core.metrics.pojo.MetricsReport;
+import com.att.aro.core.metrics.pojo.TimerMetric;
 import com.att.aro.core.mobiledevice.pojo.IAroDevice;
 import com.att.aro.core.mobiledevice.pojo.IAroDevice.AroDeviceState;
 import com.att.aro.core.mobiledevice.pojo.IAroDevice.Platform;
 import com.att.aro.core.mobiledevice.pojo.IAroDevices;
+import com.att.aro.core.packetanalysis.IPacketAnalyzer;
+import com.att.aro.core.packetanalysis.ITraceDataReader;
+import com.att.aro.core.packetanalysis.ITraceExporter;
 import com.att.aro.core.packetanalysis.pojo.AbstractTraceResult;
 import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
+import com.att.aro.core.packetanalysis.pojo.ApplicationSelection;
+import com.att.aro.core.packetanalysis.pojo.TimeRange;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.core.pojo.ErrorCode;
+import com.att.aro.core.report.IDataDump;
+import com.att.aro.core.report.IDataDumpListener;
+import com.att.aro.core.report.pojo.HtmlReportOptions;
 import com.att.aro.core.util.Util;
 import com.att.aro.core.video.pojo.VideoOption;
 import com.att.aro.mvc.AROController;
@@ -100,6 +114,8 @@ public final class Application implements IAROView {
 		if (cmds.isHelp() 
 				|| !((cmds.isListcollector() || cmds.isListDevices()) 
 						|| !(cmds.getAnalyze() == null 
+							&& cmds.getExport() == null
+							&& cmds.getDatadump() == null
 							&& cmds.getStartcollector() == null 
 							&& cmds.getAsk() == null
 							))) {
@@ -144,6 +160,10 @@ public final class Application implements IAROView {
 			runDataCollector(context, cmds);
 		} else if (cmds.getAnalyze() != null) {
 			runAnalyzer(context, cmds);
+		} else if (cmds.getExport() != null) {
+			runExport(context, cmds);
+		} else if (cmds.getDatadump() != null) {
+			runDataDump(context, cmds);
 		}
 
 		outSave = prepareSystemOut();
@@ -398,6 +418,8 @@ public final class Application implements IAROView {
 		String trace = cmds.getAnalyze();
 		IAROService serv = context.getBean(IAROService.class);
 		AROTraceData results = null;
+		context.getBean(IMetricsRegistry.class).setEnabled(cmds.isMetrics());
+		context.getBean(IPacketAnalyzer.class).setWindowed(cmds.isWindowed());
 
 		// analyze trace file or directory?
 		OutSave outSave = prepareSystemOut();
@@ -428,12 +450,19 @@ public final class Application implements IAROView {
 						errln("Failed to produce JSON report.");
 					}
 				} else {
-					if (serv.getHtmlReport(cmds.getOutput(), results)) {
+					HtmlReportOptions options = new HtmlReportOptions();
+					options.setSessionTable(cmds.isSessions());
+					options.setRequestTable(cmds.isRequests());
+					options.setPageSize(cmds.getPageSize());
+					if (serv.getHtmlReport(cmds.getOutput(), results, options)) {
 						outln("Successfully produced HTML report: " + cmds.getOutput());
 					} else {
 						errln("Failed to produce HTML report.");
 					}
 				}
+				if (results.getMetrics() != null) {
+					printMetrics(results.getMetrics());
+				}
 			} else {
 				printError(results.getError());
 			}
@@ -447,6 +476,115 @@ public final class Application implements IAROView {
 		System.exit(1);
 	}
 	
+	/**
+	 * Prints the --metrics of an analysis, a line per stage in the order the
+	 * stages ran.
+	 */
+	private void printMetrics(MetricsReport metrics) {
+		outln(String.format("Analysis: %.0f ms, %d packets, %.0f packets/s, %.0f bytes/s, %s allocated",
+				metrics.getWallTimeMillis(), metrics.getPackets(), metrics.getPacketsPerSecond(),
+				metrics.getBytesPerSecond(), formatBytes(metrics.getAllocatedBytes())));
+		outln(String.format("%-40s %10s %12s %10s %12s", "stage", "runs", "total ms", "max ms", "allocated"));
+		for (TimerMetric timer : metrics.getTimers()) {
+			outln(String.format("%-40s %10d %12.1f %10.2f %12s", timer.getName(), timer.getCount(),
+					timer.getTotalMillis(), timer.getMaxMillis(), formatBytes(timer.getAllocatedBytes())));
+		}
+		for (Map.Entry<String, Long> counter : metrics.getCounters().entrySet()) {
+			outln(counter.getKey() + ": " + counter.getValue());
+		}
+		for (HistogramMetric histogram : metrics.getHistograms()) {
+			outln(String.format("%s: min %d, p50 %d, p90 %d, p99 %d, max %d", histogram.getName(), histogram.getMin(),
+					histogram.getP50(), histogram.getP90(), histogram.getP99(), histogram.getMax()));
+		}
+	}
+
+	private String formatBytes(long bytes) {
+		if (bytes < 0) {
+			return "n/a";
+		}
+		return bytes < 1024 * 1024 ? (bytes / 1024) + " KB" : (bytes / (1024 * 1024)) + " MB";
+	}
+
+	/**
+	 * Writes the packets of a trace between --begin and --end, of the --app
+	 * applications if given, to a new trace folder --output. The rest of the
+	 * trace folder is cut to the same time, video is left out.
+	 * 
+	 * @param context - Spring ApplicationContext
+	 * @param cmds - user commands
+	 */
+	void runExport(ApplicationContext context, Commands cmds) {
+		String trace = cmds.getExport();
+		ITraceDataReader reader = context.getBean(ITraceDataReader.class);
+		String message;
+		OutSave outSave = prepareSystemOut();
+		try {
+			AbstractTraceResult result = context.getBean(IFileManager.class).isFile(trace)
+					? reader.readTraceFile(trace)
+					: reader.readTraceDirectory(trace);
+			message = export(context, cmds, result);
+		} catch (IOException e) {
+			message = "Error occured exporting trace, detail: " + e.getMessage();
+		} finally {
+			restoreSystemOut(outSave);
+		}
+		outln(message);
+		System.exit(1);
+	}
+
+	private String export(ApplicationContext context, Commands cmds, AbstractTraceResult result) throws IOException {
+		Map<String, ApplicationSelection> appSelections = null;
+		if (cmds.getApp() != null) {
+			appSelections = new HashMap<String, ApplicationSelection>();
+			for (String app : cmds.getApp().split(",")) {
+				app = app.trim();
+				if (!result.getAppIps().containsKey(app)) {
+					return "Error: application " + app + " is not in the trace, found: " + result.getAppIps().keySet();
+				}
+				appSelections.put(app, new ApplicationSelection(app, result.getAppIps().get(app)));
+			}
+		}
+		double end = Math.min(cmds.getEnd(), result.getTraceDuration());
+		AnalysisFilter filter = new AnalysisFilter(appSelections, new TimeRange(cmds.getBegin(), end), null);
+
+		int count = context.getBean(ITraceExporter.class).export(result, filter, null, cmds.getOutput());
+		return "Exported " + count + " packets to trace folder: " + cmds.getOutput();
+	}
+
+	/**
+	 * Analyzes every trace folder at or below --datadump, a few at a time, and
+	 * writes all the results to the --output JSON file as they complete.
+	 * 
+	 * @param context - Spring ApplicationContext
+	 * @param cmds - user commands
+	 */
+	void runDataDump(ApplicationContext context, Commands cmds) {
+		IDataDump dataDump = context.getBean(IDataDump.class);
+		List<String> traces = dataDump.findTraces(cmds.getDatadump());
+		if (traces.isEmpty()) {
+			errln("Error: no trace folders found in " + cmds.getDatadump());
+			System.exit(1);
+		}
+		OutSave outSave = prepareSystemOut();
+		try {
+			int written = dataDump.dump(getBestPractice(), traces, null, new File(cmds.getOutput()),
+					new IDataDumpListener() {
+						@Override
+						public void traceDone(String trace, AROTraceData data, int done, int total) {
+							outln(done + "/" + total + (data != null ? " analyzed: " : " failed: ") + trace);
+						}
+					});
+			outln("Successfully produced data dump of " + written + " traces: " + cmds.getOutput());
+		} catch (IOException e) {
+			errln("Error occured writing data dump, detail: " + e.getMessage());
+		} catch (InterruptedException e) {
+			errln("Data dump interrupted, " + cmds.getOutput() + " holds the traces done so far");
+		} finally {
+			restoreSystemOut(outSave);
+		}
+		System.exit(1);
+	}
+
 	private VideoOption getVideoOption() {
 
 		switch (cmds.getVideo()) {
@@ -682,11 +820,17 @@ public final class Application implements IAROView {
 				.append("\n  --analyze [trace location]: analyze a trace folder or file.")
 				.append("\n  --startcollector [rooted_android|vpn_android|ios]: run a collector.")
 				.append("\n  --ask [auto|rooted_android|vpn_android|ios]: asks for a device then runs the collector.")
+				.append("\n  --export [trace location]: copy part of a trace folder or file to the --output trace folder.")
+				.append("\n  --begin [seconds] --end [seconds]: optional part of the trace to export. Default: all of it.")
+				.append("\n  --app [name,name]: optional applications to export. Default: all of them.")
+				.append("\n  --datadump [folder]: analyze every trace folder in a folder into the --output JSON file.")
 				.append("\n  --output [fullpath including filename] : output to a file or trace folder")
 				.append("\n  --overwrite [yes/no] : overwrite a trace folder")
 				.append("\n  --deviceid [device id]: optional device id of Android or Serial Number for IOS.")
 				.append("\n    If not delcared first device found is used.")
 				.append("\n  --format [json|html]: optional type of report to generate. Default: json.")
+				.append("\n  --sessions --requests: optional tables of all sessions and http messages in the html report.")
+				.append("\n  --pagesize [rows]: optional rows per page of those tables. Default: 500.")
 				.append(
 						(Util.isMacOS())
 						?"\n  --video [hd|sd|slow|no]: optional command to record video when running collector. Default: no."
@@ -698,6 +842,8 @@ public final class Application implements IAROView {
 				.append("\n  --downlink [number in millisecond]: optional command for downlink delay, range from 0 to 2000 millisecond.")
 				.append("\n  --listcollectors: optional command to list available data collector.")
 				.append("\n  --verbose:  optional command to enables detailed messages for '--analyze' and '--startcollector'")
+				.append("\n  --metrics:  optional command for '--analyze' to print how long every analysis stage took, also added to a json report.")
+				.append("\n  --windowed:  optional command for '--analyze' to work through long traces in windows in parallel, with the same results.")
 				.append("\n  --help,-h,-?: show help menu.")
 				.append("\n\nUsage examples: ")
 				.append("\n=============")
@@ -733,7 +879,13 @@ public final class Application implements IAROView {
 				.append("\n  --analyze /User/documents/test --output /User/documents/report.html --format html")
 				
 				.append("\nAnalyze trace and produce JSON report:")
-				.append("\n  --analyze /User/documents/test/traffic.cap --output /User/documents/report.json");
+				.append("\n  --analyze /User/documents/test/traffic.cap --output /User/documents/report.json")
+
+				.append("\nExport the first minute of a trace to a new trace folder:")
+				.append("\n  --export /User/documents/test --begin 0 --end 60 --output /User/documents/test_first_minute")
+
+				.append("\nAnalyze all traces of a folder into one JSON file:")
+				.append("\n  --datadump /User/documents/traces --output /User/documents/datadump.json");
 		outln(sbuilder.toString());
 	}
 
@@ -15,6 +15,7 @@
 */
 package com.att.aro.console;
 
+import com.att.aro.core.report.pojo.HtmlReportOptions;
 import com.beust.jcommander.Parameter;
 
 public class Commands {
@@ -30,6 +31,21 @@ public class Commands {
 	@Parameter(names = "--analyze", description="analyze trace file or folder")
 	private String analyze = null;
 	
+	@Parameter(names = "--export", description="export part of a trace file or folder to a new trace folder")
+	private String export = null;
+
+	@Parameter(names="--begin", description="seconds into the trace where the exported part starts")
+	private double begin = 0;
+
+	@Parameter(names="--end", description="seconds into the trace where the exported part ends")
+	private double end = Double.MAX_VALUE;
+
+	@Parameter(names="--app", description="comma separated applications to export, all if missing")
+	private String app = null;
+
+	@Parameter(names = "--datadump", description="analyze every trace folder in a folder into one JSON file")
+	private String datadump = null;
+
 	@Parameter(names="--output", description="provide output location of report")
 	private String output = null;	
 	
@@ -64,6 +80,21 @@ public class Commands {
 
 	@Parameter(names="--verbose", description="verbose output - more than just the important messages")
 	private boolean verbose = false;
+
+	@Parameter(names="--metrics", description="time the analysis stages, print the times and add them to the report")
+	private boolean metrics = false;
+
+	@Parameter(names="--windowed", description="analyze long traces in windows cut at radio idle gaps, in parallel")
+	private boolean windowed = false;
+
+	@Parameter(names="--sessions", description="add a table of all sessions to the html report")
+	private boolean sessions = false;
+
+	@Parameter(names="--requests", description="add a table of all http requests and responses to the html report")
+	private boolean requests = false;
+
+	@Parameter(names="--pagesize", description="rows per page of the html report tables")
+	private int pageSize = HtmlReportOptions.DEFAULT_PAGE_SIZE;
 	
 	@Parameter(names="--secure", description="enable secure collector")
 	private boolean secure = false;
@@ -121,6 +152,46 @@ public class Commands {
 		this.analyze = analyze;
 	}
 
+	public String getExport() {
+		return export;
+	}
+
+	public void setExport(String export) {
+		this.export = export;
+	}
+
+	public String getDatadump() {
+		return datadump;
+	}
+
+	public void setDatadump(String datadump) {
+		this.datadump = datadump;
+	}
+
+	public double getBegin() {
+		return begin;
+	}
+
+	public void setBegin(double begin) {
+		this.begin = begin;
+	}
+
+	public double getEnd() {
+		return end;
+	}
+
+	public void setEnd(double end) {
+		this.end = end;
+	}
+
+	public String getApp() {
+		return app;
+	}
+
+	public void setApp(String app) {
+		this.app = app;
+	}
+
 	public String getOverwrite() {
 		return this.overwrite;
 	}
@@ -165,6 +236,26 @@ public class Commands {
 		return verbose;
 	}
 
+	public boolean isMetrics() {
+		return metrics;
+	}
+
+	public boolean isWindowed() {
+		return windowed;
+	}
+
+	public boolean isSessions() {
+		return sessions;
+	}
+
+	public boolean isRequests() {
+		return requests;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
 	public boolean isListDevices() {
 		return listdevices;
 	}
@@ -208,6 +299,15 @@ public class Commands {
 		if (analyze != null) {
 			sb.append(", analyze:" + getAnalyze());
 		}
+		if (export != null) {
+			sb.append(", export:" + getExport());
+		}
+		if (app != null) {
+			sb.append(", app:" + getApp());
+		}
+		if (datadump != null) {
+			sb.append(", datadump:" + getDatadump());
+		}
 		if (deviceid != null) {
 			sb.append(", deviceid:" + getDeviceid());
 		}
@@ -97,4 +97,11 @@ public final class ErrorCodeRegistry {
 		err.setDescription("Downlink value should be a number and range from 0 to 2000.");
 		return err;
 	}
+	public static ErrorCode getInvalidTimeRange() {
+		ErrorCode err = new ErrorCode();
+		err.setCode(311);
+		err.setName("Invalid time range");
+		err.setDescription("--begin and --end are seconds into the trace, begin cannot be after end.");
+		return err;
+	}
 }
@@ -55,6 +55,27 @@ public class Validator {
 				}
 			}
 		}
+		if (cmd.getExport() != null) {
+			if (cmd.getOutput() == null) {
+				return ErrorCodeRegistry.getOutputRequired();
+			}
+			if (cmd.getBegin() < 0 || cmd.getBegin() > cmd.getEnd()) {
+				return ErrorCodeRegistry.getInvalidTimeRange();
+			}
+			IFileManager filemg = context.getBean(IFileManager.class);
+			if (filemg.directoryExistAndNotEmpty(cmd.getOutput()) && !"yes".equals(cmd.getOverwrite())) {
+				return ErrorCodeRegistry.getFileExist();
+			}
+		}
+		if (cmd.getDatadump() != null) {
+			if (cmd.getOutput() == null) {
+				return ErrorCodeRegistry.getOutputRequired();
+			}
+			IFileManager filemg = context.getBean(IFileManager.class);
+			if (filemg.fileExist(cmd.getOutput()) && !"yes".equals(cmd.getOverwrite())) {
+				return ErrorCodeRegistry.getFileExist();
+			}
+		}
 		if (cmd.getVideo() != null
 				&& !cmd.getVideo().equals("yes") 
 				&& !cmd.getVideo().equals("no")
@@ -32,18 +32,24 @@ import com.att.aro.core.android.IAndroid;
 import com.att.aro.core.android.impl.AndroidImpl;
 import com.att.aro.core.commandline.IExternalProcessReader;
 import com.att.aro.core.commandline.IExternalProcessRunner;
+import com.att.aro.core.commandline.IProcessExecutor;
 import com.att.aro.core.commandline.IProcessFactory;
 import com.att.aro.core.commandline.impl.ExternalProcessReaderImpl;
 import com.att.aro.core.commandline.impl.ExternalProcessRunnerImpl;
+import com.att.aro.core.commandline.impl.ProcessExecutorImpl;
 import com.att.aro.core.commandline.impl.ProcessFactoryImpl;
 import com.att.aro.core.concurrent.IThreadExecutor;
 import com.att.aro.core.concurrent.impl.ThreadExecutorImpl;
 import com.att.aro.core.configuration.IProfileFactory;
 import com.att.aro.core.configuration.impl.ProfileFactoryImpl;
+import com.att.aro.core.displayfilter.IDisplayFilterService;
+import com.att.aro.core.displayfilter.impl.DisplayFilterServiceImpl;
 import com.att.aro.core.fileio.IFileManager;
 import com.att.aro.core.fileio.impl.FileManagerImpl;
 import com.att.aro.core.impl.AROServiceImpl;
 import com.att.aro.core.impl.LoggerImpl;
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.impl.MetricsRegistryImpl;
 import com.att.aro.core.mobiledevice.IAndroidDevice;
 import com.att.aro.core.mobiledevice.impl.AndroidDeviceImpl;
 import com.att.aro.core.mobiledevice.pojo.AroDevices;
@@ -52,7 +58,10 @@ import com.att.aro.core.packetanalysis.IBurstCollectionAnalysis;
 import com.att.aro.core.packetanalysis.IByteArrayLineReader;
 import com.att.aro.core.packetanalysis.ICacheAnalysis;
 import com.att.aro.core.packetanalysis.IEnergyModelFactory;
+import com.att.aro.core.packetanalysis.IHttpHeaderParser;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
+import com.att.aro.core.packetanalysis.ILiveTraceAnalyzer;
 import com.att.aro.core.packetanalysis.IPacketAnalyzer;
 import com.att.aro.core.packetanalysis.IParseHeaderLine;
 import com.att.aro.core.packetanalysis.IPktAnazlyzerTimeRangeUtil;
@@ -62,12 +71,17 @@ import com.att.aro.core.packetanalysis.IRrcStateRangeFactory;
 import com.att.aro.core.packetanalysis.ISessionManager;
 import com.att.aro.core.packetanalysis.IThroughputCalculator;
 import com.att.aro.core.packetanalysis.ITraceDataReader;
+import com.att.aro.core.packetanalysis.ITraceExporter;
+import com.att.aro.core.packetanalysis.ITraceMemoryReporter;
 import com.att.aro.core.packetanalysis.IVideoUsageAnalysis;
 import com.att.aro.core.packetanalysis.impl.BurstCollectionAnalysisImpl;
 import com.att.aro.core.packetanalysis.impl.ByteArrayLineReaderImpl;
 import com.att.aro.core.packetanalysis.impl.CacheAnalysisImpl;
 import com.att.aro.core.packetanalysis.impl.EnergyModelFactoryImpl;
+import com.att.aro.core.packetanalysis.impl.HttpHeaderParserImpl;
 import com.att.aro.core.packetanalysis.impl.HttpRequestResponseHelperImpl;
+import com.att.aro.core.packetanalysis.impl.ImageAnalysisImpl;
+import com.att.aro.core.packetanalysis.impl.LiveTraceAnalyzerImpl;
 import com.att.aro.core.packetanalysis.impl.PacketAnalyzerImpl;
 import com.att.aro.core.packetanalysis.impl.ParseHeaderLineImpl;
 import com.att.aro.core.packetanalysis.impl.PktAnazlyzerTimeRangeImpl;
@@ -77,15 +91,19 @@ import com.att.aro.core.packetanalysis.impl.RrcStateRangeFactoryImpl;
 import com.att.aro.core.packetanalysis.impl.SessionManagerImpl;
 import com.att.aro.core.packetanalysis.impl.ThroughputCalculatorImpl;
 import com.att.aro.core.packetanalysis.impl.TraceDataReaderImpl;
+import com.att.aro.core.packetanalysis.impl.TraceExporterImpl;
+import com.att.aro.core.packetanalysis.impl.TraceMemoryReporterImpl;
 import com.att.aro.core.packetanalysis.impl.VideoUsageAnalysisImpl;
 import com.att.aro.core.packetreader.IDomainNameParser;
 import com.att.aro.core.packetreader.IPacketReader;
 import com.att.aro.core.packetreader.IPacketService;
+import com.att.aro.core.packetreader.ICaptureFormatReader;
 import com.att.aro.core.packetreader.IPcapngHelper;
 import com.att.aro.core.packetreader.impl.DomainNameParserImpl;
 import com.att.aro.core.packetreader.impl.NetmonPacketReaderImpl;
 import com.att.aro.core.packetreader.impl.PacketReaderImpl;
 import com.att.aro.core.packetreader.impl.PacketServiceImpl;
+import com.att.aro.core.packetreader.impl.CaptureFormatReaderImpl;
 import com.att.aro.core.packetreader.impl.PcapngHelperImpl;
 import com.att.aro.core.peripheral.IAlarmAnalysisInfoParser;
 import com.att.aro.core.peripheral.IAlarmDumpsysTimestampReader;
@@ -136,7 +154,10 @@ import com.att.aro.core.peripheral.impl.VideoTimeReaderImpl;
 import com.att.aro.core.peripheral.impl.WakelockInfoReaderImpl;
 import com.att.aro.core.peripheral.impl.WifiInfoReaderImpl;
 import com.att.aro.core.pojo.VersionInfo;
+import com.att.aro.core.report.IDataDump;
+import com.att.aro.core.report.IHtmlReport;
 import com.att.aro.core.report.IReport;
+import com.att.aro.core.report.impl.DataDumpImpl;
 import com.att.aro.core.report.impl.HtmlReportImpl;
 import com.att.aro.core.report.impl.JSonReportImpl;
 import com.att.aro.core.resourceextractor.IReadWriteFileExtractor;
@@ -168,6 +189,7 @@ import com.att.aro.core.video.impl.VideoCaptureImpl;
 import com.att.aro.core.video.impl.VideoWriterImpl;
 import com.att.aro.core.videoanalysis.IVideoAnalysisConfigHelper;
 import com.att.aro.core.videoanalysis.IVideoEventDataHelper;
+import com.att.aro.core.videoanalysis.IVideoPlaybackSimulator;
 import com.att.aro.core.videoanalysis.IVideoTabHelper;
 import com.att.aro.core.videoanalysis.IVideoUsagePrefsManager;
 import com.att.aro.core.videoanalysis.PlotHelperAbstract;
@@ -177,8 +199,11 @@ import com.att.aro.core.videoanalysis.impl.FFmpegConfirmationImpl;
 import com.att.aro.core.videoanalysis.impl.VideoAnalysisConfigHelperImpl;
 import com.att.aro.core.videoanalysis.impl.VideoChunkPlotterImpl;
 import com.att.aro.core.videoanalysis.impl.VideoEventDataHelperImpl;
+import com.att.aro.core.videoanalysis.impl.VideoPlaybackSimulatorImpl;
 import com.att.aro.core.videoanalysis.impl.VideoTabHelperImpl;
 import com.att.aro.core.videoanalysis.impl.VideoUsagePrefsManagerImpl;
+import com.att.aro.core.workspace.ITraceWorkspace;
+import com.att.aro.core.workspace.impl.TraceWorkspaceImpl;
 
 /**
  * Spring configuration for ARO.Core<br>
@@ -246,6 +271,11 @@ public class AROConfig {
 		return new PcapngHelperImpl();
 	}
 
+	@Bean
+	public ICaptureFormatReader getCaptureFormatReader() {
+		return new CaptureFormatReaderImpl();
+	}
+
 	@Bean
 	public IDomainNameParser getDomainNameParser() {
 		return new DomainNameParserImpl();
@@ -266,12 +296,16 @@ public class AROConfig {
 		return new CpuActivityReaderImpl();
 	}
 
+	// keeps state while it parses a session, every session manager gets its own
 	@Bean
+	@Scope("prototype")
 	public IRequestResponseBuilder getRequestResponseBuilder() {
 		return new RequestResponseBuilderImpl();
 	}
 
+	// keeps state while it assembles, every user gets its own
 	@Bean
+	@Scope("prototype")
 	public ISessionManager getSessionManager() {
 		return new SessionManagerImpl();
 	}
@@ -427,6 +461,11 @@ public class AROConfig {
 		return new RrcStateRangeFactoryImpl();
 	}
 
+	@Bean
+	public ILiveTraceAnalyzer getLiveTraceAnalyzer() {
+		return new LiveTraceAnalyzerImpl();
+	}
+
 	@Bean
 	public IRrcStateMachineFactory getRrcStateMachineFactory() {
 		return new RrcStateMachineFactoryImpl();
@@ -462,11 +501,31 @@ public class AROConfig {
 		return new CacheAnalysisImpl();
 	}
 
+	@Bean
+	public IImageAnalysis getImageAnalysis() {
+		return new ImageAnalysisImpl();
+	}
+
+	@Bean
+	public ITraceMemoryReporter getTraceMemoryReporter() {
+		return new TraceMemoryReporterImpl();
+	}
+
+	@Bean
+	public ITraceExporter getTraceExporter() {
+		return new TraceExporterImpl();
+	}
+
 	@Bean
 	public IParseHeaderLine getParseHeaderLineImpl() {
 		return new ParseHeaderLineImpl();
 	}
 
+	@Bean
+	public IHttpHeaderParser getHttpHeaderParser() {
+		return new HttpHeaderParserImpl();
+	}
+
 	@Bean
 	@Scope(value = "prototype")
 	// => always create a new instance
@@ -489,16 +548,41 @@ public class AROConfig {
 		return new ExternalProcessRunnerImpl();
 	}
 
+	@Bean
+	public IProcessExecutor getProcessExecutor() {
+		return new ProcessExecutorImpl();
+	}
+
 	@Bean(name = "jsongenerate")
 	public IReport getJSonGanarate() {
 		return new JSonReportImpl();
 	}
 
 	@Bean(name = "htmlgenerate")
-	public IReport getHtmlGenerate() {
+	public IHtmlReport getHtmlGenerate() {
 		return new HtmlReportImpl();
 	}
 
+	@Bean
+	public IDataDump getDataDump() {
+		return new DataDumpImpl();
+	}
+
+	@Bean
+	public ITraceWorkspace getTraceWorkspace() {
+		return new TraceWorkspaceImpl();
+	}
+
+	@Bean
+	public IMetricsRegistry getMetricsRegistry() {
+		return new MetricsRegistryImpl();
+	}
+
+	@Bean
+	public IDisplayFilterService getDisplayFilterService() {
+		return new DisplayFilterServiceImpl();
+	}
+
 	@Bean
 	public Settings getAROConfigFile() {
 		return SettingsImpl.getInstance();
@@ -586,6 +670,11 @@ public class AROConfig {
 		return new BufferInSecondsCalculatorImpl();
 	}
 
+	@Bean
+	public IVideoPlaybackSimulator getVideoPlaybackSimulator() {
+		return new VideoPlaybackSimulatorImpl();
+	}
+
 	@Bean
 	public IVideoUsagePrefsManager getVideoUsagePrefsManagerImpl() {
 		return new VideoUsagePrefsManagerImpl();
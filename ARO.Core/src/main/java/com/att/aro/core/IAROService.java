@@ -23,6 +23,7 @@ import com.att.aro.core.configuration.pojo.Profile;
 import com.att.aro.core.packetanalysis.IPacketAnalyzer;
 import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
 import com.att.aro.core.pojo.AROTraceData;
+import com.att.aro.core.report.pojo.HtmlReportOptions;
 
 /**
  * This class provides access to ARO.Core functionality for analyzing and
@@ -132,6 +133,21 @@ public interface IAROService {
 	 */
 	boolean getHtmlReport(String resultFilePath, AROTraceData results);
 
+	/**
+	 * Generate Packet Analysis Report in HTML format, with the session and
+	 * request tables the options ask for
+	 * 
+	 * @param resultFilePath
+	 *            the path for the output report
+	 * @param results
+	 *            the AROTraceData path
+	 * @param options
+	 *            tables to add and their page size
+	 * @return true if report generated, false if AROTraceData is null or failed
+	 *         to create/write output file
+	 */
+	boolean getHtmlReport(String resultFilePath, AROTraceData results, HtmlReportOptions options);
+
 	/**
 	 * Generate Packet Analysis Report in JSON format
 	 * 
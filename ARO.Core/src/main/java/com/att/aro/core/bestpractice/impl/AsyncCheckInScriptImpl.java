@@ -34,8 +34,8 @@ import com.att.aro.core.bestpractice.pojo.AsyncCheckInScriptResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -80,23 +80,19 @@ public class AsyncCheckInScriptImpl implements IBestPractice {
 	public AbstractBestPracticeResult runTest(PacketAnalyzerResult tracedata) {
 		AsyncCheckInScriptResult result = new AsyncCheckInScriptResult();
 		List<AsyncCheckEntry> entrylist = new ArrayList<AsyncCheckEntry>();
-		for (Session session : tracedata.getSessionlist()) {
-			HttpRequestResponseInfo lastRequestObj = null;
-			for (HttpRequestResponseInfo req : session.getRequestResponseInfo()) {
-				if (req.getDirection() == HttpDirection.REQUEST) {
-					lastRequestObj = req;
-				}
-				if (req.getDirection() == HttpDirection.RESPONSE && req.getContentType() != null && req.getContentLength() > 0 && reqhelper.isHtml(req.getContentType())) {
-					result = parseHtmlToFindSyncLoadingScripts(req, session, result);
-					if (result.getSyncLoadedScripts() > 0) {
-						result.incrementSyncPacketCount();
-						result.setSyncLoadedScripts(0);
-						entrylist.add(new AsyncCheckEntry(req, lastRequestObj, session.getDomainName()));
-						// modified according to the logic in 4.1
-					} else if (result.getAsyncLoadedScripts() > 0) {
-						result.incrementAsyncPacketCount();
-						result.setAsyncLoadedScripts(0);
-					}
+		for (HttpRequestResponseInfoWithSession itemsession : tracedata.getRequestResponseIndex().getResponses()) {
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			Session session = itemsession.getSession();
+			if (req.getContentType() != null && req.getContentLength() > 0 && reqhelper.isHtml(req.getContentType())) {
+				result = parseHtmlToFindSyncLoadingScripts(req, session, result);
+				if (result.getSyncLoadedScripts() > 0) {
+					result.incrementSyncPacketCount();
+					result.setSyncLoadedScripts(0);
+					entrylist.add(new AsyncCheckEntry(req, itemsession.getPrecedingRequest(), session.getDomainName()));
+					// modified according to the logic in 4.1
+				} else if (result.getAsyncLoadedScripts() > 0) {
+					result.incrementAsyncPacketCount();
+					result.setAsyncLoadedScripts(0);
 				}
 			}
 		}
@@ -27,11 +27,10 @@ import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.CombineCsJssResult;
 import com.att.aro.core.bestpractice.pojo.CsJssFilesDetails;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
-import com.att.aro.core.packetanalysis.pojo.Session;
 
 /**
  * Best practice for combining CSS and JSS
@@ -72,72 +71,67 @@ public class CombineCsJssImpl implements IBestPractice {
 		double cssLastTimeStamp = 0.0;
 		double jsLastTimeStamp = 0.0;
 		String contentType = "";
-		for(Session session: tracedata.getSessionlist()){
-			HttpRequestResponseInfo lastRequestObj = null;
-			for(HttpRequestResponseInfo httpreq: session.getRequestResponseInfo()){
-				if(httpreq.getDirection() == HttpDirection.REQUEST){
-					lastRequestObj = httpreq;
-				}
-				if(httpreq.getDirection() == HttpDirection.RESPONSE && httpreq.getContentType() != null){
-					PacketInfo pktInfo = httpreq.getFirstDataPacket();
-					if(pktInfo != null){
-						contentType = httpreq.getContentType().toLowerCase().trim();
-						if(contentType.equalsIgnoreCase("text/css")){
-							if (cssLastTimeStamp == 0.0) {
-								cssLastTimeStamp = pktInfo.getTimeStamp();
-								continue;
+		for(HttpRequestResponseInfoWithSession itemsession: tracedata.getRequestResponseIndex().getResponsesByContentType(
+				"text/css", "text/javascript", "application/x-javascript", "application/javascript")){
+			HttpRequestResponseInfo httpreq = itemsession.getInfo();
+			HttpRequestResponseInfo lastRequestObj = itemsession.getPrecedingRequest();
+			PacketInfo pktInfo = httpreq.getFirstDataPacket();
+			if(pktInfo != null){
+				contentType = httpreq.getContentType().toLowerCase().trim();
+				if(contentType.equalsIgnoreCase("text/css")){
+					if (cssLastTimeStamp == 0.0) {
+						cssLastTimeStamp = pktInfo.getTimeStamp();
+						continue;
+					} else {
+						if ((pktInfo.getTimeStamp() - cssLastTimeStamp) <= 2.0) {
+							inefficientCssRequests++;
+							CsJssFilesDetails cssFileDetails = new CsJssFilesDetails(); //Changes for US432336
+							cssFileDetails.setTimeStamp(pktInfo.getTimeStamp());
+							if(httpreq.getObjName() != null){
+								cssFileDetails.setFileName(httpreq.getObjName());
 							} else {
-								if ((pktInfo.getTimeStamp() - cssLastTimeStamp) <= 2.0) {
-									inefficientCssRequests++;
-									CsJssFilesDetails cssFileDetails = new CsJssFilesDetails(); //Changes for US432336
-									cssFileDetails.setTimeStamp(pktInfo.getTimeStamp());
-									if(httpreq.getObjName() != null){
-										cssFileDetails.setFileName(httpreq.getObjName());
-									} else {
-										if(lastRequestObj != null){
-											cssFileDetails.setFileName(lastRequestObj.getObjName());
-										}
-									}
-									cssFileDetails.setSize(httpreq.getContentLength());
-									fileDetails.add(cssFileDetails);
-									
-									if (consecutiveCssJsFirstPacket == null) {
-										consecutiveCssJsFirstPacket = pktInfo;
-									}
+								if(lastRequestObj != null){
+									cssFileDetails.setFileName(lastRequestObj.getObjName());
 								}
-								cssLastTimeStamp = pktInfo.getTimeStamp();
 							}
-						}else if(contentType.equalsIgnoreCase("text/javascript") ||
-								contentType.equalsIgnoreCase("application/x-javascript") ||
-								contentType.equalsIgnoreCase("application/javascript")){
-							if (jsLastTimeStamp == 0.0) {
-								jsLastTimeStamp = pktInfo.getTimeStamp();
-								continue;
-							} else {
-								if ((pktInfo.getTimeStamp() - jsLastTimeStamp) < 2.0) {
-									inefficientJsRequests++;
-									
-									CsJssFilesDetails jsFileDetails = new CsJssFilesDetails(); //Changes for US432336
-									jsFileDetails.setTimeStamp(pktInfo.getTimeStamp());
-									if(httpreq.getObjName() != null){
-										jsFileDetails.setFileName(httpreq.getObjName());
-									} else{
-										if(lastRequestObj != null){
-											jsFileDetails.setFileName(lastRequestObj.getObjName());
-										}
-									}
-									
-									jsFileDetails.setSize(httpreq.getContentLength());
-									
-									fileDetails.add(jsFileDetails);
-									
-									if (consecutiveCssJsFirstPacket == null) {
-										consecutiveCssJsFirstPacket = pktInfo;
-									}
+							cssFileDetails.setSize(httpreq.getContentLength());
+							fileDetails.add(cssFileDetails);
+							
+							if (consecutiveCssJsFirstPacket == null) {
+								consecutiveCssJsFirstPacket = pktInfo;
+							}
+						}
+						cssLastTimeStamp = pktInfo.getTimeStamp();
+					}
+				}else if(contentType.equalsIgnoreCase("text/javascript") ||
+						contentType.equalsIgnoreCase("application/x-javascript") ||
+						contentType.equalsIgnoreCase("application/javascript")){
+					if (jsLastTimeStamp == 0.0) {
+						jsLastTimeStamp = pktInfo.getTimeStamp();
+						continue;
+					} else {
+						if ((pktInfo.getTimeStamp() - jsLastTimeStamp) < 2.0) {
+							inefficientJsRequests++;
+							
+							CsJssFilesDetails jsFileDetails = new CsJssFilesDetails(); //Changes for US432336
+							jsFileDetails.setTimeStamp(pktInfo.getTimeStamp());
+							if(httpreq.getObjName() != null){
+								jsFileDetails.setFileName(httpreq.getObjName());
+							} else{
+								if(lastRequestObj != null){
+									jsFileDetails.setFileName(lastRequestObj.getObjName());
 								}
-								jsLastTimeStamp = pktInfo.getTimeStamp();
+							}
+							
+							jsFileDetails.setSize(httpreq.getContentLength());
+							
+							fileDetails.add(jsFileDetails);
+							
+							if (consecutiveCssJsFirstPacket == null) {
+								consecutiveCssJsFirstPacket = pktInfo;
 							}
 						}
+						jsLastTimeStamp = pktInfo.getTimeStamp();
 					}
 				}
 			}
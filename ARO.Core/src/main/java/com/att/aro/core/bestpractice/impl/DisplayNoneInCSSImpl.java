@@ -35,8 +35,8 @@ import com.att.aro.core.bestpractice.pojo.DisplayNoneInCSSEntry;
 import com.att.aro.core.bestpractice.pojo.DisplayNoneInCSSResult;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -83,26 +83,26 @@ public class DisplayNoneInCSSImpl implements IBestPractice {
 		DisplayNoneInCSSResult result = new DisplayNoneInCSSResult();
 
 		List<DisplayNoneInCSSEntry> results = new ArrayList<DisplayNoneInCSSEntry>();
-		for (Session session : tracedata.getSessionlist()) {
-			for (HttpRequestResponseInfo reqinfo : session.getRequestResponseInfo()) {
-				Document doc = null;
-				String css;
-				if ((reqinfo.getDirection() == HttpDirection.RESPONSE) && (reqinfo.getContentType() != null) && (reqinfo.getContentType().equalsIgnoreCase("text/html"))) {
+		for (HttpRequestResponseInfoWithSession itemsession : tracedata.getRequestResponseIndex().getResponsesByContentType("text/html", "text/css")) {
+			HttpRequestResponseInfo reqinfo = itemsession.getInfo();
+			Session session = itemsession.getSession();
+			Document doc = null;
+			String css;
+			if (reqinfo.getContentType().equalsIgnoreCase("text/html")) {
 
-					doc = getParsedHtml(reqinfo, session);
+				doc = getParsedHtml(reqinfo, session);
 
-					if (doc != null && checkIfDisplayNoneIsPresentInCSSembeddedInHTML(doc)) {
-						results.add(new DisplayNoneInCSSEntry(reqinfo));
-					}
-
-				} else if (reqinfo.getDirection() == HttpDirection.RESPONSE && reqinfo.getContentType() != null && reqinfo.getContentType().equalsIgnoreCase("text/css")) {
-					css = getCSS(reqinfo, session);
+				if (doc != null && checkIfDisplayNoneIsPresentInCSSembeddedInHTML(doc)) {
+					results.add(new DisplayNoneInCSSEntry(reqinfo));
+				}
 
-					if (css != null && checkIfDisplayNoneIsPresentInCSS(css)) {
-						results.add(new DisplayNoneInCSSEntry(reqinfo));
-					}
+			} else if (reqinfo.getContentType().equalsIgnoreCase("text/css")) {
+				css = getCSS(reqinfo, session);
 
+				if (css != null && checkIfDisplayNoneIsPresentInCSS(css)) {
+					results.add(new DisplayNoneInCSSEntry(reqinfo));
 				}
+
 			}
 		}
 		int numOfCSSFiles = results.size();
@@ -32,8 +32,8 @@ import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.EmptyUrlResult;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -79,12 +79,10 @@ public class EmptyUrlImpl implements IBestPractice {
 	@Override
 	public AbstractBestPracticeResult runTest(PacketAnalyzerResult tracedata) {
 		EmptyUrlResult result = new EmptyUrlResult();
-		for(Session session:tracedata.getSessionlist()){
-			for(HttpRequestResponseInfo req: session.getRequestResponseInfo()){
-				if(req.getContentType() != null && reqhelper.isHtml(req.getContentType()) && 
-						req.getContentLength() > 0 && req.getDirection() == HttpDirection.RESPONSE){
-					result = analyzeHtml(req,session,result);
-				}
+		for(HttpRequestResponseInfoWithSession itemsession: tracedata.getRequestResponseIndex().getResponses()){
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			if(req.getContentType() != null && reqhelper.isHtml(req.getContentType()) && req.getContentLength() > 0){
+				result = analyzeHtml(req,itemsession.getSession(),result);
 			}
 		}
 		String text = "";
@@ -36,8 +36,8 @@ import com.att.aro.core.bestpractice.pojo.FileCompressionResult;
 import com.att.aro.core.bestpractice.pojo.TextFileCompressionEntry;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetreader.pojo.PacketDirection;
@@ -93,31 +93,26 @@ public class FileCompressionImpl implements IBestPractice {
 		int uncompressedCounter = 0;
 		int compressedCounter = 0;
 		int totalUncompressBytes = 0;
-		for(Session session: tracedata.getSessionlist()){
-			HttpRequestResponseInfo lastRequestObj = null;
-			for(HttpRequestResponseInfo req:session.getRequestResponseInfo()){
-				if(req.getDirection() == HttpDirection.REQUEST){
-					lastRequestObj = req;
-				}
-				if(req.getPacketDirection() == PacketDirection.DOWNLINK &&
-						req.getContentLength() > 0 && req.getContentType() != null &&
-						isTextContent(req.getContentType())){
-					//no compression?
-					if(req.getContentEncoding() == null || req.getContentEncoding().contains("identity")){
-						//don't count tiny file
-						if(req.getContentLength() > FILE_SIZE_THRESHOLD_BYTES){
-							uncompressedCounter++;
-						}else{
-							compressedCounter++;
-						}
-						totalUncompressBytes += req.getContentLength();
-						TextFileCompressionEntry tfcEntry = new TextFileCompressionEntry(req,lastRequestObj,session.getDomainName());
-						tfcEntry.setSavingsTextPercentage(calculateSavingForTextBasedOnGzip(req, session));
-						resultlist.add(tfcEntry);
-						
+		for(HttpRequestResponseInfoWithSession itemsession: tracedata.getRequestResponseIndex().getTraceOrdered()){
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			if(req.getPacketDirection() == PacketDirection.DOWNLINK &&
+					req.getContentLength() > 0 && req.getContentType() != null &&
+					isTextContent(req.getContentType())){
+				//no compression?
+				if(req.getContentEncoding() == null || req.getContentEncoding().contains("identity")){
+					//don't count tiny file
+					if(req.getContentLength() > FILE_SIZE_THRESHOLD_BYTES){
+						uncompressedCounter++;
 					}else{
 						compressedCounter++;
 					}
+					totalUncompressBytes += req.getContentLength();
+					TextFileCompressionEntry tfcEntry = new TextFileCompressionEntry(req,itemsession.getPrecedingRequest(),itemsession.getSession().getDomainName());
+					tfcEntry.setSavingsTextPercentage(calculateSavingForTextBasedOnGzip(req, itemsession.getSession()));
+					resultlist.add(tfcEntry);
+					
+				}else{
+					compressedCounter++;
 				}
 			}
 		}
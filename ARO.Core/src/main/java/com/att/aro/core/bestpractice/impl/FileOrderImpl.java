@@ -34,8 +34,8 @@ import com.att.aro.core.bestpractice.pojo.FileOrderEntry;
 import com.att.aro.core.bestpractice.pojo.FileOrderResult;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -82,20 +82,13 @@ public class FileOrderImpl implements IBestPractice {
 	public AbstractBestPracticeResult runTest(PacketAnalyzerResult tracedata) {
 		FileOrderResult result = new FileOrderResult();
 		List<FileOrderEntry> results = new ArrayList<FileOrderEntry>();
-		for (Session session : tracedata.getSessionlist()) {
-			HttpRequestResponseInfo lastRequestObj = null;
-			for (HttpRequestResponseInfo req : session.getRequestResponseInfo()) {
-				Document doc = null;
-				if (req.getDirection() == HttpDirection.RESPONSE) {
-					doc = parseHtml(req, session);
-				} else if (req.getDirection() == HttpDirection.REQUEST) {
-					lastRequestObj = req;
-				}
-
-				if (doc != null && checkFileOrderAnalysisResults(doc, result)) {
-					results.add(new FileOrderEntry(req, lastRequestObj, session.getDomainName()));
-				}
+		for (HttpRequestResponseInfoWithSession itemsession : tracedata.getRequestResponseIndex().getResponses()) {
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			Session session = itemsession.getSession();
+			Document doc = parseHtml(req, session);
 
+			if (doc != null && checkFileOrderAnalysisResults(doc, result)) {
+				results.add(new FileOrderEntry(req, itemsession.getPrecedingRequest(), session.getDomainName()));
 			}
 		}
 		String text = "";
@@ -32,8 +32,8 @@ import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.FlashResult;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -74,22 +74,20 @@ public class FlashImpl implements IBestPractice {
 	public AbstractBestPracticeResult runTest(PacketAnalyzerResult tracedata) {
 		FlashResult result = new FlashResult();
 		String contentType = "";
-		for(Session session:tracedata.getSessionlist()){
-			for(HttpRequestResponseInfo req:session.getRequestResponseInfo()){
-				if(req.getDirection() == HttpDirection.RESPONSE &&
-						req.getContentType() != null &&
-						req.getContentLength() > 0){
-					contentType = req.getContentType();
-					if(contentType.equalsIgnoreCase("application/x-shockwave-flash") || 
-							contentType.equalsIgnoreCase("video/x-flv")){
-						result.incrementNumberOfFlash();
-						if(result.getFirstFlash() == null){
-							result.setFirstFlash(req);
-						}
-					}else if(contentType.equalsIgnoreCase("text/css") || 
-							contentType.equalsIgnoreCase("text/html")){
-						result = checkEmbeddedFlashInHTMLOrCSS(req, session, result);
+		for(HttpRequestResponseInfoWithSession itemsession:tracedata.getRequestResponseIndex()
+				.getResponsesByContentType("application/x-shockwave-flash", "video/x-flv", "text/css", "text/html")){
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			if(req.getContentLength() > 0){
+				contentType = req.getContentType();
+				if(contentType.equalsIgnoreCase("application/x-shockwave-flash") || 
+						contentType.equalsIgnoreCase("video/x-flv")){
+					result.incrementNumberOfFlash();
+					if(result.getFirstFlash() == null){
+						result.setFirstFlash(req);
 					}
+				}else if(contentType.equalsIgnoreCase("text/css") || 
+						contentType.equalsIgnoreCase("text/html")){
+					result = checkEmbeddedFlashInHTMLOrCSS(req, itemsession.getSession(), result);
 				}
 			}
 		}
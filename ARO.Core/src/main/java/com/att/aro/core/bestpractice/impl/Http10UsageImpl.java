@@ -25,6 +25,7 @@ import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.Http10UsageResult;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -59,13 +60,11 @@ public class Http10UsageImpl implements IBestPractice {
 		Http10UsageResult result = new Http10UsageResult();
 		int http10HeaderCount = 0;
 		Session http10Session = null;
-		for(Session session: tracedata.getSessionlist()){
-			for(HttpRequestResponseInfo httpreq: session.getRequestResponseInfo()){
-				if(HttpRequestResponseInfo.HTTP10.equals(httpreq.getVersion())){
-					++http10HeaderCount;
-					if(http10Session == null){
-						http10Session = session;
-					}
+		for(HttpRequestResponseInfoWithSession itemsession: tracedata.getRequestResponseIndex().getTraceOrdered()){
+			if(HttpRequestResponseInfo.HTTP10.equals(itemsession.getInfo().getVersion())){
+				++http10HeaderCount;
+				if(http10Session == null){
+					http10Session = itemsession.getSession();
 				}
 			}
 		}
@@ -31,10 +31,9 @@ import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.Http3xxCodeResult;
 import com.att.aro.core.bestpractice.pojo.HttpCode3xxEntry;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
-import com.att.aro.core.packetanalysis.pojo.Session;
 
 /**
  * best practice for Http 3xx errors
@@ -75,27 +74,18 @@ public class Http3xxCodeImpl implements IBestPractice {
 		SortedMap<Integer, Integer> httpRedirectCounts3XX = new TreeMap<Integer, Integer>();
 		Map<Integer, HttpRequestResponseInfo> firstResMap = new HashMap<Integer, HttpRequestResponseInfo>();
 		List<HttpCode3xxEntry> httprescodelist = new ArrayList<HttpCode3xxEntry>();
-		HttpRequestResponseInfo lastRequestObj = null;
-		for(Session session: tracedata.getSessionlist()){
-			lastRequestObj = null;
-			for(HttpRequestResponseInfo req: session.getRequestResponseInfo()){
-				if(req.getDirection() == HttpDirection.REQUEST){
-					lastRequestObj = req;
-				}
-				if(req.getDirection() == HttpDirection.RESPONSE &&
-						HttpRequestResponseInfo.HTTP_SCHEME.equals(req.getScheme()) &&
-						req.getStatusCode() >= 300 &&
-						req.getStatusCode() < 400){
-					Integer code = req.getStatusCode();
-					Integer count = httpRedirectCounts3XX.get(code);
-					if(count != null){
-						httpRedirectCounts3XX.put(code, count + 1);
-					}else{
-						httpRedirectCounts3XX.put(code, 1);
-						firstResMap.put(code, req);
-					}
-					httprescodelist.add(new HttpCode3xxEntry(req, lastRequestObj, session.getDomainName()));
+		for(HttpRequestResponseInfoWithSession itemsession: tracedata.getRequestResponseIndex().getResponsesByStatusCode(300, 400)){
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			if(HttpRequestResponseInfo.HTTP_SCHEME.equals(req.getScheme())){
+				Integer code = req.getStatusCode();
+				Integer count = httpRedirectCounts3XX.get(code);
+				if(count != null){
+					httpRedirectCounts3XX.put(code, count + 1);
+				}else{
+					httpRedirectCounts3XX.put(code, 1);
+					firstResMap.put(code, req);
 				}
+				httprescodelist.add(new HttpCode3xxEntry(req, itemsession.getPrecedingRequest(), itemsession.getSession().getDomainName()));
 			}
 		}
 		if(httpRedirectCounts3XX.isEmpty()){
@@ -31,10 +31,9 @@ import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.Http4xx5xxResult;
 import com.att.aro.core.bestpractice.pojo.Http4xx5xxStatusResponseCodesEntry;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
-import com.att.aro.core.packetanalysis.pojo.Session;
 /**
  * Best practice for Http 4xx/5xx errors
  * Date: December 1, 2014
@@ -75,28 +74,18 @@ public class Http4xx5xxImpl implements IBestPractice {
 		SortedMap<Integer, Integer> httpErrorCounts4XX = new TreeMap<Integer, Integer>();
 		List<Http4xx5xxStatusResponseCodesEntry> httpResCodelist = new ArrayList<Http4xx5xxStatusResponseCodesEntry>();
 		
-		HttpRequestResponseInfo lastRequestObj = null;
-		for(Session session: tracedata.getSessionlist()){
-			
-			lastRequestObj = null;
-			for(HttpRequestResponseInfo req: session.getRequestResponseInfo()){
-				if(req.getDirection() == HttpDirection.REQUEST){
-					lastRequestObj = req;
-				}
-				if(req.getDirection() == HttpDirection.RESPONSE &&
-						HttpRequestResponseInfo.HTTP_SCHEME.equals(req.getScheme()) &&
-						req.getStatusCode() >= 400 &&
-						req.getStatusCode() < 600){
-					Integer code = req.getStatusCode();
-					Integer count = httpErrorCounts4XX.get(code);
-					if(count != null){
-						httpErrorCounts4XX.put(code, count + 1);
-					}else{
-						httpErrorCounts4XX.put(code, 1);
-						firstErrorRespMap4XX.put(code, req);
-					}
-					httpResCodelist.add(new Http4xx5xxStatusResponseCodesEntry(req, lastRequestObj, session.getDomainName()));
+		for(HttpRequestResponseInfoWithSession itemsession: tracedata.getRequestResponseIndex().getResponsesByStatusCode(400, 600)){
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			if(HttpRequestResponseInfo.HTTP_SCHEME.equals(req.getScheme())){
+				Integer code = req.getStatusCode();
+				Integer count = httpErrorCounts4XX.get(code);
+				if(count != null){
+					httpErrorCounts4XX.put(code, count + 1);
+				}else{
+					httpErrorCounts4XX.put(code, 1);
+					firstErrorRespMap4XX.put(code, req);
 				}
+				httpResCodelist.add(new Http4xx5xxStatusResponseCodesEntry(req, itemsession.getPrecedingRequest(), itemsession.getSession().getDomainName()));
 			}
 		}
 		if(httpErrorCounts4XX.isEmpty()){
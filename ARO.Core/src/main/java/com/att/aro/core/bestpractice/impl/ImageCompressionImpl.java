@@ -15,73 +15,28 @@
  */
 package com.att.aro.core.bestpractice.impl;
 
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-
-import javax.imageio.IIOImage;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.stream.ImageOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 import com.att.aro.core.ApplicationConfig;
-import com.att.aro.core.ILogger;
 import com.att.aro.core.bestpractice.IBestPractice;
 import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.ImageCompressionEntry;
 import com.att.aro.core.bestpractice.pojo.ImageCompressionResult;
-import com.att.aro.core.fileio.IFileManager;
-import com.att.aro.core.model.InjectLogger;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
-import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.ImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.ImageInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageTrial;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
-import com.att.aro.core.packetanalysis.pojo.Session;
-import com.att.aro.core.util.Util;
 
 //FIXME ADD UNIT TESTS
 public class ImageCompressionImpl implements IBestPractice {
-	enum Quality {
-		MID(85), LOW(70);
-		private int percent;
-
-		private Quality(int percent) {
-			this.percent = percent;
-		}
-
-		public int getPercent() {
-			return percent;
-		}
-
-		public float getFraction() {
-			return ((float) percent) / 100;
-		}
-
-		public String getFileDesc() {
-			return "_compressed_" + getPercent() + ".0";
-		}
-	}
-
-	@InjectLogger
-	private static ILogger LOGGER;
-
-	static String FILE_DESC = "_compressed_";
-
 	@Value("${imageCompression.title}")
 	private String overviewTitle;
 
@@ -101,30 +56,19 @@ public class ImageCompressionImpl implements IBestPractice {
 	private String textResults;
 
 	@Autowired
-	private IFileManager filemanager;
+	private IImageAnalysis imageAnalyzer;
 
 	long orginalImagesSize = 0L;
 	long midQualImgsSize = 0L;
-	String imageFolderPath = "";
-	PacketAnalyzerResult packetResult = new PacketAnalyzerResult();
-	String imageCompressionFolderPath = "";
 
 	@Override
 	public AbstractBestPracticeResult runTest(PacketAnalyzerResult tracedata) {
 		ImageCompressionResult result = new ImageCompressionResult();
-		packetResult = tracedata;
-		String tracePath = packetResult.getTraceresult().getTraceDirectory() + System.getProperty("file.separator");
-		imageFolderPath = tracePath + "Image" + System.getProperty("file.separator");
-		imageCompressionFolderPath = imageFolderPath + "Compressed"+ System.getProperty("file.separator");
 		orginalImagesSize = 0L;
 		midQualImgsSize = 0L;
 
-		boolean isImagesCompressed = isImagesCompressed();
-
-		if (!isImagesCompressed) {
-			compressImages();
-		}
-		List<ImageCompressionEntry> entrylist = getEntryList();
+		ImageAnalysis imageAnalysis = imageAnalyzer.analyze(tracedata, EnumSet.of(ImageTrial.COMPRESSION));
+		List<ImageCompressionEntry> entrylist = getEntryList(imageAnalysis);
 
 		result.setResults(entrylist);
 		String text = "";
@@ -151,158 +95,26 @@ public class ImageCompressionImpl implements IBestPractice {
 		return result;
 	}
 
-	private boolean isImagesCompressed() {
-
-		if (filemanager.directoryExist(imageCompressionFolderPath)) {
-			File folder = new File(imageFolderPath);
-			File[] listOfFiles = folder.listFiles();
-			if (listOfFiles != null && listOfFiles.length != 0) {
-				for (int i = 0; i < listOfFiles.length; i++) {
-					if (listOfFiles[i].isFile() && listOfFiles[i].getName().contains(FILE_DESC)) {
-						return true;
-					}
-				}
-			}
-		} else {
-			filemanager.mkDir(imageCompressionFolderPath);
-		}
-		return false;
-	}
-
-	private List<ImageCompressionEntry> getEntryList() {
-		String originalImage = "";
-		String midCompressedImagePath = "";
-		String logCompressedImagepath = "";
-
-		long lowQualityImgSize = 0L;
-		long midQualityImgSize = 0L;
-		long orgImageSize = 0L;
-		String imgExtn = "";
-		long orgImgSize;
-		long midQualityImageSize;
-		long lowQualityImageSize;
+	private List<ImageCompressionEntry> getEntryList(ImageAnalysis imageAnalysis) {
 		List<ImageCompressionEntry> entryList = new ArrayList<ImageCompressionEntry>();
-		for (Session session : packetResult.getSessionlist()) {
-			for (HttpRequestResponseInfo reqResp : session.getRequestResponseInfo()) {
-
-				if (reqResp.getDirection() == HttpDirection.RESPONSE && reqResp.getContentType() != null
-						&& reqResp.getContentType().contains("image/")) {
-
-					originalImage = extractFullNameFromRRInfo(reqResp);
-					int pos = originalImage.lastIndexOf(".");
-					imgExtn = originalImage.substring(pos + 1, originalImage.length());
-					if (imgExtn.equalsIgnoreCase("jpeg") || imgExtn.equalsIgnoreCase("jpg")) {
-
-						midCompressedImagePath = imageCompressionFolderPath 
-								+ originalImage.substring(0, originalImage.lastIndexOf(".")) + Quality.MID.getFileDesc()
-								+ originalImage.substring(originalImage.lastIndexOf("."), originalImage.length());
-
-						logCompressedImagepath = imageCompressionFolderPath 
-								+ originalImage.substring(0, originalImage.lastIndexOf(".")) + Quality.LOW.getFileDesc()
-								+ originalImage.substring(originalImage.lastIndexOf("."), originalImage.length());
-						orgImageSize = new File(imageFolderPath + originalImage).length();
-						midQualityImgSize = new File(midCompressedImagePath).length();
-						lowQualityImgSize = new File(logCompressedImagepath).length();
-						if (midQualityImgSize > 0 && ((orgImageSize - midQualityImgSize) * 100 / orgImageSize >= 15)
-								&& lowQualityImgSize < orgImageSize) {
-
-							orginalImagesSize = orginalImagesSize + orgImageSize;
-							midQualImgsSize = midQualImgsSize + midQualityImgSize;
-
-							orgImgSize = orgImageSize / 1024;
-							midQualityImageSize = midQualityImgSize / 1024;
-							lowQualityImageSize = lowQualityImgSize / 1024;
-						
-
-							entryList.add(new ImageCompressionEntry(reqResp, session.getDomainName(),
-									imageFolderPath + originalImage, orgImgSize, midQualityImageSize,
-									lowQualityImageSize));
-						}
-
-					}
+		for (ImageInfo image : imageAnalysis.getImages()) {
+			if (image.isJpeg()) {
+				long orgImageSize = image.getFileSize();
+				long midQualityImgSize = image.getMidQualitySize();
+				long lowQualityImgSize = image.getLowQualitySize();
+				if (midQualityImgSize > 0 && ((orgImageSize - midQualityImgSize) * 100 / orgImageSize >= 15)
+						&& lowQualityImgSize < orgImageSize) {
+
+					orginalImagesSize = orginalImagesSize + orgImageSize;
+					midQualImgsSize = midQualImgsSize + midQualityImgSize;
+
+					entryList.add(new ImageCompressionEntry(image.getResponse(), image.getSession().getDomainName(),
+							image.getFilePath(), orgImageSize / 1024, midQualityImgSize / 1024,
+							lowQualityImgSize / 1024));
 				}
 			}
 		}
 		return entryList;
 	}
 
-	private void compressImages() {
-		ExecutorService exec = Executors.newFixedThreadPool(5);
-		for (final Session session : packetResult.getSessionlist()) {
-			for (final HttpRequestResponseInfo req : session.getRequestResponseInfo()) {
-				if (req.getDirection() == HttpDirection.RESPONSE && req.getContentType() != null
-						&& req.getContentType().contains("image/")) {
-					final String extractedImage = extractFullNameFromRRInfo(req);
-
-					File imgFile = new File(imageFolderPath + extractedImage);
-					if (imgFile.exists() && !imgFile.isDirectory()) {
-						int posExtn = extractedImage.lastIndexOf(".");
-						String imgExtn = extractedImage.substring(posExtn + 1, extractedImage.length());
-						if (imgExtn.equalsIgnoreCase("jpeg") || imgExtn.equalsIgnoreCase("jpg")) {
-							exec.submit(new Runnable() {
-								@Override
-								public void run() {
-									compressImage(imageFolderPath, extractedImage);
-								}
-							});
-						}
-					}
-				}
-			}
-		}
-		try {// Time out after 10 minutes
-			exec.shutdown();
-			exec.awaitTermination(10, TimeUnit.MINUTES);
-		} catch (InterruptedException e) {
-			LOGGER.error(e.getMessage(), e);
-		}
-	}
-
-	private void compressImage(String imgPath, String imgfile) {
-		String compressedImageName = "";
-		String orgImagePath = imgPath + imgfile;
-		File orgImgFile = new File(orgImagePath);
-		try (InputStream inputStrm = new FileInputStream(orgImgFile)) {
-			BufferedImage buffImage = ImageIO.read(inputStrm);
-			for (Quality qual : Quality.values()) {
-				compressedImageName = imageCompressionFolderPath
-						+ imgfile.substring(0, imgfile.lastIndexOf(".")) + qual.getFileDesc() + "."
-						+ imgfile.substring(imgfile.lastIndexOf(".") + 1, imgfile.length());
-				File compressedFile = new File(compressedImageName);
-				ImageWriter writer = null;
-				try (OutputStream outputStr = new FileOutputStream(compressedFile);
-						ImageOutputStream imgOutputStrm = ImageIO.createImageOutputStream(outputStr)) {
-
-					Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(
-							imgfile.substring(imgfile.lastIndexOf(".") + 1, imgfile.length()));
-					writer = (ImageWriter) writers.next();
-					writer.setOutput(imgOutputStrm);
-					ImageWriteParam param = writer.getDefaultWriteParam();
-					param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-					param.setCompressionQuality((float) qual.getFraction());
-					writer.write(null, new IIOImage(buffImage, null, null), param);
-				} finally {
-					if (writer != null) {
-						writer.dispose();
-					}
-				}
-			}
-		} catch (IOException fileException) {
-			LOGGER.error(fileException.toString(), fileException);
-		}
-	}
-
-	private String extractFullNameFromRRInfo(HttpRequestResponseInfo hrri) {
-		HttpRequestResponseInfo rsp = hrri.getAssocReqResp();
-		String extractedImageName = "";
-		String imageName = "";
-		if (rsp != null) {
-			String imagefromReq = rsp.getObjName();
-			imageName = imagefromReq.substring(imagefromReq.lastIndexOf(Util.FILE_SEPARATOR) + 1);
-			int pos = imageName.lastIndexOf("/") + 1;
-			extractedImageName = imageName.substring(pos);
-		}
-		return extractedImageName;
-	}
-
 }
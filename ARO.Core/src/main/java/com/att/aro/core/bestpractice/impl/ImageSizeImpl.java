@@ -18,6 +18,7 @@ package com.att.aro.core.bestpractice.impl;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
 import javax.swing.ImageIcon;
@@ -39,8 +40,12 @@ import com.att.aro.core.bestpractice.pojo.ImageSizeEntry;
 import com.att.aro.core.bestpractice.pojo.ImageSizeResult;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.ImageInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageTrial;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
@@ -77,6 +82,9 @@ public class ImageSizeImpl implements IBestPractice {
 
 	private IHttpRequestResponseHelper reqhelper;
 
+	@Autowired
+	private IImageAnalysis imageAnalyzer;
+
 	@Autowired
 	public void setReqhelper(IHttpRequestResponseHelper helper) {
 		this.reqhelper = helper;
@@ -98,32 +106,27 @@ public class ImageSizeImpl implements IBestPractice {
 			deviceScreenSizeX = (dirdata.getDeviceScreenSizeX() * 110) / 100;
 			deviceScreenSizeY = (dirdata.getDeviceScreenSizeY() * 110) / 100;
 		}
-		for (Session session : tracedata.getSessionlist()) {
-			HttpRequestResponseInfo lastReq = null;
-			for (HttpRequestResponseInfo req : session.getRequestResponseInfo()) {
-				if (req.getDirection() == HttpDirection.REQUEST) {
-					lastReq = req;
-				}
-				if (req.getDirection() == HttpDirection.RESPONSE && req.getContentType() != null && req.getContentType().contains("image/")) {
-					boolean isBigSize = false;
-					List<HtmlImage> htmlImageList = checkThisImageInAllHTMLOrCSS(session, req);
-					if (mImageFoundInHtmlOrCss) {
-						mImageFoundInHtmlOrCss = false;
-						if (!htmlImageList.isEmpty()) {
-							for (int index = 0; index < htmlImageList.size(); index++) {
-								HtmlImage htmlImage = htmlImageList.get(index);
-								isBigSize = compareDownloadedImgSizeWithStdImageSize(req, htmlImage, deviceScreenSizeX, deviceScreenSizeY, session);
-								if (isBigSize) {
-									break;
-								}
-							}
-						} else {
-							isBigSize = compareDownloadedImgSizeWithStdImageSize(req, null, deviceScreenSizeX, deviceScreenSizeY, session);
-						}
+		ImageAnalysis imageAnalysis = imageAnalyzer.analyze(tracedata, EnumSet.noneOf(ImageTrial.class));
+		for (ImageInfo image : imageAnalysis.getImages()) {
+			Session session = image.getSession();
+			HttpRequestResponseInfo req = image.getResponse();
+			boolean isBigSize = false;
+			List<HtmlImage> htmlImageList = checkThisImageInAllHTMLOrCSS(session, req);
+			if (mImageFoundInHtmlOrCss) {
+				mImageFoundInHtmlOrCss = false;
+				if (!htmlImageList.isEmpty()) {
+					for (int index = 0; index < htmlImageList.size(); index++) {
+						HtmlImage htmlImage = htmlImageList.get(index);
+						isBigSize = compareDownloadedImgSizeWithStdImageSize(image, htmlImage, deviceScreenSizeX, deviceScreenSizeY);
 						if (isBigSize) {
-							entrylist.add(new ImageSizeEntry(req, lastReq, session.getDomainName()));
+							break;
 						}
 					}
+				} else {
+					isBigSize = compareDownloadedImgSizeWithStdImageSize(image, null, deviceScreenSizeX, deviceScreenSizeY);
+				}
+				if (isBigSize) {
+					entrylist.add(new ImageSizeEntry(req, image.getPrecedingRequest(), session.getDomainName()));
 				}
 			}
 		}
@@ -228,28 +231,31 @@ public class ImageSizeImpl implements IBestPractice {
 	 * 
 	 * @return true if the height or width of downloaded image >= 110% of Standard Image Size else false
 	 */
-	private boolean compareDownloadedImgSizeWithStdImageSize(HttpRequestResponseInfo reqRessInfo, HtmlImage htmlImage, int deviceScreenSizeRangeX, int deviceScreenSizeRangeY,
-			Session session) {
-		byte[] content = null;
-		try {
-			content = reqhelper.getContent(reqRessInfo, session);
-		} catch (Exception e) {
-			log.error("Failed to get content from HttpRequestResponseInfo: " + e.getMessage());
-		}
-		if (content != null) {
-			int widthRange = deviceScreenSizeRangeX;
-			int heightRange = deviceScreenSizeRangeY;
-			if (htmlImage != null) {
-				widthRange = (htmlImage.getWidth() * 110) / 100;
-				heightRange = (htmlImage.getHeight() * 110) / 100;
+	private boolean compareDownloadedImgSizeWithStdImageSize(ImageInfo image, HtmlImage htmlImage, int deviceScreenSizeRangeX, int deviceScreenSizeRangeY) {
+		int imageWidth = image.getWidth();
+		int imageHeight = image.getHeight();
+		if (imageWidth < 0 || imageHeight < 0) {
+			// no extracted file was read, decode the response body instead
+			byte[] content = null;
+			try {
+				content = reqhelper.getContent(image.getResponse(), image.getSession());
+			} catch (Exception e) {
+				log.error("Failed to get content from HttpRequestResponseInfo: " + e.getMessage());
 			}
-
-			ImageIcon downloadedImg = new ImageIcon(content);
-			if ((downloadedImg != null) && (downloadedImg.getIconWidth() >= widthRange || downloadedImg.getIconHeight() >= heightRange)) {
-				return true;
+			if (content == null) {
+				return false;
 			}
+			ImageIcon downloadedImg = new ImageIcon(content);
+			imageWidth = downloadedImg.getIconWidth();
+			imageHeight = downloadedImg.getIconHeight();
+		}
+		int widthRange = deviceScreenSizeRangeX;
+		int heightRange = deviceScreenSizeRangeY;
+		if (htmlImage != null) {
+			widthRange = (htmlImage.getWidth() * 110) / 100;
+			heightRange = (htmlImage.getHeight() * 110) / 100;
 		}
-		return false;
+		return imageWidth >= widthRange || imageHeight >= heightRange;
 	}
 
 }// end class
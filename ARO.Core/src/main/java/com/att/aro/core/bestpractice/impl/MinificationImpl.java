@@ -46,8 +46,8 @@ import com.att.aro.core.bestpractice.pojo.MinificationResult;
 import com.att.aro.core.bestpractice.pojo.YuiCompressorErrorReporter;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.googlecode.htmlcompressor.compressor.HtmlCompressor;
@@ -138,15 +138,11 @@ public class MinificationImpl implements IBestPractice {
 		final ExecutorService executorService = Executors.newFixedThreadPool(50);
 		Collection<Worker> workers = new ArrayList<Worker>();
 		
-		for (Session session : tracedata.getSessionlist()) {
-			HttpRequestResponseInfo lastRequestObj = null;
-			for (HttpRequestResponseInfo req : session.getRequestResponseInfo()) {
-				if (req.getDirection() == HttpDirection.REQUEST) {
-					lastRequestObj = req;
-				}
-				contentType = req.getContentType();
-				if (req.getDirection() == HttpDirection.RESPONSE && req.getContentLength() > 0 && contentType != null) {
-					workers.add(new Worker(contentType, req, lastRequestObj, session));
+		for (HttpRequestResponseInfoWithSession itemsession : tracedata.getRequestResponseIndex().getResponses()) {
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			contentType = req.getContentType();
+			if (req.getContentLength() > 0 && contentType != null) {
+				workers.add(new Worker(contentType, req, itemsession.getPrecedingRequest(), itemsession.getSession()));
 //					if (reqhelper.isJavaScript(contentType)) {
 //						entry = calculateSavingMinifiedJavascript(req, lastRequestObj, session);
 //					} else if (reqhelper.isCss(contentType)) {
@@ -162,7 +158,6 @@ public class MinificationImpl implements IBestPractice {
 //						totalSavingInBytes += entry.getSavingsSizeInByte();
 //						minificationEntryList.add(entry);
 //					}
-				}
 			}
 		}
 
@@ -18,23 +18,27 @@ package com.att.aro.core.bestpractice.impl;
 import java.net.InetAddress;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.springframework.beans.factory.annotation.Value;
 
 import com.att.aro.core.ApplicationConfig;
+import com.att.aro.core.ILogger;
 import com.att.aro.core.bestpractice.IBestPractice;
 import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
-import com.att.aro.core.bestpractice.pojo.IatInfo;
 import com.att.aro.core.bestpractice.pojo.PeriodicTransferResult;
 import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.pojo.Burst;
 import com.att.aro.core.packetanalysis.pojo.BurstCategory;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
@@ -52,15 +56,10 @@ import com.att.aro.core.packetreader.pojo.PacketDirection;
  * Date: November 6, 2014
  */
 public class PeriodicTransferImpl implements IBestPractice {
-	/*
-	 *  Maximum number of requests the algorithm can process in reasonable time.
-	 *  Testings have shown that the number should be smaller than 400 or even smaller for large traces.
-	 */
-	private static final int MAX_NUM_OF_REQUESTS = 200;
 	private static final int SMALL_PERIODICITY = 3;
 	
-//	@InjectLogger
-//	private static ILogger logger;
+	@InjectLogger
+	private static ILogger logger;
 	
 	int periodicCount = 0;
 	int diffPeriodicCount = 0;
@@ -222,297 +221,75 @@ public class PeriodicTransferImpl implements IBestPractice {
 		}
 		//logger.info("done looping session");
 		
-		Set<String> hostList = new HashSet<String>();
-		Set<String> objList = new HashSet<String>();
-		Set<InetAddress> ipList = new HashSet<InetAddress>();
-		//logger.info("create hostlist");
-//		count = 0;
-		for (Map.Entry<String, List<Double>> iter : requestedHost2tsList.entrySet()) {
-			if (determinePeriodicity(iter.getValue(), profile)) {
-				hostList.add(iter.getKey());
-			}
-			//logger.info("count: "+count++);
-		}
-		//logger.info("create objList");
-//		count = 0;
-		for (Map.Entry<String, List<Double>> iter : requestedObj2tsList.entrySet()) {
-			if (determinePeriodicity(iter.getValue(), profile)) {
-				objList.add(iter.getKey());
-			}
-			//logger.info("count: "+count++);
-		}
-		//logger.info("create ipList");
-//		count = 0;
-		for (Map.Entry<InetAddress, List<Double>> iter : connectedIP2tsList.entrySet()) {
-			if (determinePeriodicity(iter.getValue(), profile)) {
-				ipList.add(iter.getKey());
-			}
-			//logger.info("count: "+count++);
+		PeriodicityDetector detector = new PeriodicityDetector(profile);
+		int keys = requestedHost2tsList.size() + requestedObj2tsList.size() + connectedIP2tsList.size();
+		ExecutorService exec = Executors.newFixedThreadPool(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), keys)));
+		Set<String> hostList;
+		Set<String> objList;
+		Set<InetAddress> ipList;
+		try {
+			Map<String, Future<Boolean>> hostFutures = submitPeriodicity(requestedHost2tsList, detector, exec);
+			Map<String, Future<Boolean>> objFutures = submitPeriodicity(requestedObj2tsList, detector, exec);
+			Map<InetAddress, Future<Boolean>> ipFutures = submitPeriodicity(connectedIP2tsList, detector, exec);
+			hostList = collectPeriodic(hostFutures);
+			objList = collectPeriodic(objFutures);
+			ipList = collectPeriodic(ipFutures);
+		} finally {
+			exec.shutdownNow();
 		}
-		//logger.info("Done looping, now go to determinePeriodicity");
 		determinePeriodicity(hostList, objList, ipList, burstCollection, profile, sessionlist);
 		
 	}
 	/**
-	 * Determines whether the request are periodic.
+	 * Finds the keys whose request timeline is periodic, one task per key.
+	 * Keys requested only a few times are never periodic.
 	 * 
-	 * @param timeList List of timestamps when the object was requested
-	 * @return true if periodic, false if not
+	 * @param timelines timestamps of the requests for each key
+	 * @param detector periodicity test with the profile parameters
+	 * @param exec runs the tests
+	 * @return futures with the result of each tested key
 	 */
-	private boolean determinePeriodicity(List<Double> timeList, Profile profile) {
-		
-		// ignore request occurring only few times
-		if (timeList.size() > SMALL_PERIODICITY) {
-
-			// requests occurring too frequently must be split to improve performance
-			if (timeList.size() > MAX_NUM_OF_REQUESTS) {
-
-				List<List<Double>> chunks = splitIntoChunks(timeList, MAX_NUM_OF_REQUESTS);
-				boolean ret = false;
-				for (List<Double> list : chunks) {
-					if (isPeriodicalTraffic(list, profile)) {
-						ret = true;
+	private <K> Map<K, Future<Boolean>> submitPeriodicity(Map<K, List<Double>> timelines, final PeriodicityDetector detector,
+			ExecutorService exec) {
+		Map<K, Future<Boolean>> futures = new HashMap<K, Future<Boolean>>();
+		for (Map.Entry<K, List<Double>> iter : timelines.entrySet()) {
+			if (iter.getValue().size() > SMALL_PERIODICITY) {
+				final double[] timeline = toArray(iter.getValue());
+				futures.put(iter.getKey(), exec.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						return detector.isPeriodic(timeline);
 					}
-				}
-				return ret;
-
-			} else {
-				// requests occurring less frequently can be processed all at once
-				return isPeriodicalTraffic(timeList, profile);
+				}));
 			}
-		} else {
-			return false;
-		}
-	}
-	/**
-	 * Splits List into smaller Lists/chunks
-	 * 
-	 * @param timeList List of timestamps when the object was requested
-	 * @param maxChunkLength determines the maximum size of chunks
-	 * @return List of chunks
-	 */
-	protected List<List<Double>> splitIntoChunks(List<Double> timeList, final int maxChunkLength) {
-		
-		List<List<Double>> chunks = new ArrayList<List<Double>>();
-		int size = timeList.size();
-		int reminder = size % maxChunkLength;
-		
-		for(int ii=0; ii < size; ii += maxChunkLength) {
-	
-			if(ii + maxChunkLength <= size) {
-				chunks.add(timeList.subList(ii, ii + maxChunkLength));
-			} else if (reminder > 0) {
-				chunks.add(timeList.subList(size - reminder, size));
-			} else {
-				assert(false);
-			}
-			
 		}
-		return chunks;
-	}
-	/**
-	 * Determines whether the request are periodic.
-	 * 
-	 * @param timeList List of timestamps when the object was requested
-	 * @return true if periodic, false if not
-	 */
-	private boolean isPeriodicalTraffic(List<Double> timeList, Profile profile) {
-		
-		int numberOfRequests = timeList.size();
-		// Collection for storing Inter-Arrival Times
-		List<IatInfo> iatInfoList = new ArrayList<IatInfo>(numberOfRequests * (numberOfRequests - 1) / 2);
-		//logger.info("isPeriodicTraffic.calculateInterArrrivalTime");
-		calculateInterArrivalTime(timeList, numberOfRequests, iatInfoList);
-		//logger.info("isPeriodicTraffic.sortInterArritvalTime");
-		sortInterArrivalTime(iatInfoList);
-		//logger.info("isPeriodicTraffic.calculateClusterParameters");
-		return calculateClusterParameters(iatInfoList, profile);
-	}
-	/**
-	 * Creates clusters from the list of Inter-Arrival Time list and calculates
-	 * cluster related parameters. Compare these parameters with the profile thresholds and
-	 * returns boolean as a result of the comparison.
-	 * 
-	 * @param iatInfoList List of IAT objects
-	 * @return true if periodic, false if not
-	 */
-	private boolean calculateClusterParameters(List<IatInfo> iatInfoList, Profile profile) {
-		//logger.info("calculateClusterParameters -> profile.getPeriodMinCycle");
-		/*
-		 * This parameter is used to find clusters of PTs (periodic transfers). 
-		 * This parameter/criterion is applied onto all identified clusters of PTs. 
-		 * In order for the cluster to be considered periodical its average value of 
-		 * IATs must be greater than this parameter. 
-		 * The default value of the parameter is 10 seconds.
-		 */
-		double minVariation = profile.getPeriodMinCycle();
-		/* 
-		 * This parameter is used to find clusters of PTs. Each PT has so called 
-		 * IAT (Inter Arrival Time) which is the length of time this PT took place. 
-		 * A cluster is only created from PTs which have their IAT values close 
-		 * to each another within the value specified here by this parameters. 
-		 * Only resulting clusters are considered to be further analyzed for periodicity. 
-		 * The default value of the parameter is 1 second.
-		 */
-		//logger.info("calculateClusterParameters -> profile.getPeriodCycleTol");
-		double maxVariation = profile.getPeriodCycleTol();
-		/*
-		 * This parameter is used to find clusters of PTs.
-		 * A cluster of PTs must contain PTs which are continuously linked. 
-		 * The number of linked PTs must be greater than this parameter. 
-		 * The default value is 3.
-		 */
-		//logger.info("calculateClusterParameters -> profile.getPeriodMinSamples");
-		int minSamples = profile.getPeriodMinSamples();
-		
-		int iatInfoSize = iatInfoList.size();
-		int bestNonOverlapSize = 0;
-		double cycle = 0;
-		List<IatInfo> iAtCluster;
-		double sumOfClusterIATs;
-		int nonOverlapSize;
-		double avgIatInCluster;
-		//logger.info("calculateClusterParameters -> for loop, size: "+iatInfoSize);
-		for (int idx = 0; idx < iatInfoSize; idx++) {
-
-			iAtCluster = new ArrayList<IatInfo>();
-			sumOfClusterIATs = 0;
-			//logger.info("calculateClusterParameters.createIatCluster, ids: "+idx+" of size: "+iatInfoSize);
-			sumOfClusterIATs += createIatCluster(iatInfoList, iAtCluster, idx, maxVariation);
-			
-			avgIatInCluster = sumOfClusterIATs / iAtCluster.size();
-			if (avgIatInCluster > minVariation) {
-				//logger.info("calculateClusterParameters.gerNonOverlapSize");
-				nonOverlapSize = getNonOverlapSize(iAtCluster);
-				if (nonOverlapSize > bestNonOverlapSize) {
-					bestNonOverlapSize = nonOverlapSize;
-					cycle = avgIatInCluster;
-				}
-			}
-		}
-
-		if (bestNonOverlapSize < minSamples) {
-			return false;
-		} else {
-			return cycle > 0;
-		} 
+		return futures;
 	}
-	/**
-	 * Method to calculate the over lap events in burst.
-	 * 
-	 * It finds the longest series of subsequent events linked together by event end ID and event begin ID.
-	 * 
-	 */
-	int getNonOverlapSize(List<IatInfo> iAtCluster) {
-
-		sortIatClusterByBeginTime(iAtCluster);
-
-		// find the longest path
-		int clusterSize = iAtCluster.size();
-		int[] opt = new int[clusterSize];
-		int best = -1;
-		int tmpBest;
-		IatInfo iatInfo;
 
-		for (int i = 0; i < clusterSize; i++) {
-			iatInfo = iAtCluster.get(i);
-			tmpBest = 1;
-
-			for (int j = 0; j <= i - 1; j++) {
-				if (opt[j] >= tmpBest && iAtCluster.get(j).getEndEvent() == iatInfo.getBeginEvent()) {
-					tmpBest = opt[j] + 1;
+	private <K> Set<K> collectPeriodic(Map<K, Future<Boolean>> futures) {
+		Set<K> periodic = new HashSet<K>();
+		for (Map.Entry<K, Future<Boolean>> iter : futures.entrySet()) {
+			try {
+				if (iter.getValue().get()) {
+					periodic.add(iter.getKey());
 				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.error(e.getMessage(), e);
+				break;
+			} catch (ExecutionException e) {
+				logger.error("Periodicity test failed for " + iter.getKey(), e.getCause());
 			}
-
-			if (tmpBest > best) {
-				best = tmpBest;
-			}
-
-			opt[i] = tmpBest;
 		}
-
-		return best;
+		return periodic;
 	}
-	/**
-	 * @param iAtCluster
-	 */
-	private void sortIatClusterByBeginTime(List<IatInfo> iAtCluster) {
-		Collections.sort(iAtCluster, new SortByBeginTime());
-	}
-	
-	/* 
-	 * Finds all IAT objects with IAT.time close to IAT.time of a IAT object identified by index idx. 
-	 * If IAT.time difference between the objects is less than the threshold (maxVariation), 
-	 * the IAT object is added to IAT Cluster.Sum of all IAT.time in the cluster is returned. 
-	 */
-	
-	/**
-	 * @param iatInfoList List of IAT objects
-	 * @param iat IAT object
-	 * @param iAtCluster Cluster of IAT objects 
-	 * @param idx Starting index
-	 * @param maxVariation max. variation
-	 * @return Sum of all IAT.time in the cluster is returned.
-	 **/
-	double createIatCluster(List<IatInfo> iatInfoList, List<IatInfo> iAtCluster, int idx, double maxVariation) {
 
-		int index = idx;
-		IatInfo iat = iatInfoList.get(index);
-		IatInfo iatInfo;
-		int iatInfoSize = iatInfoList.size();
-		double sumOfIatInCluster = 0;
-		while ((index < iatInfoSize) && (iatInfoList.get(index).getIat() - iat.getIat() < maxVariation)) {
-			iatInfo = iatInfoList.get(index);
-			iAtCluster.add(iatInfo);
-			sumOfIatInCluster += iatInfo.getIat();
-			++index;
-		}
-		return sumOfIatInCluster;
-	}
-	/**
-	 * Sorts Inter-Arrival Time collection.
-	 * 
-	 * @param iatInfoList Collection to be sorted.
-	 */
-	private void sortInterArrivalTime(List<IatInfo> iatInfoList) {
-		Collections.sort(iatInfoList, new SortByIAT());
-	}
-	/**
-	 * Calculates Inter-Arrival Time between all events in the collection, time between each events.
-	 * 
-	 * @param timeList Contains a collection of events represented by the event's occurrence timestamp.
-	 * @param numberOfRequests The total number of events.
-	 * @param iatInfoList Stores the results; the calculated IAT, begin time, and other information.
-	 */
-	private void calculateInterArrivalTime(List<Double> timeList, int numberOfRequests, List<IatInfo> iatInfoList) {
-		
-		double time1;
-		double time2;
-		IatInfo iInfo;
-		
-		for (int i = 0; i < numberOfRequests - 1; i++) {
-			for (int j = i + 1; j < numberOfRequests; j++) {
-				time1 = timeList.get(i).doubleValue();
-				time2 = timeList.get(j).doubleValue();
-
-				iInfo = new IatInfo();
-				if (time1 <= time2) {
-					iInfo.setBeginTime(time1);
-					iInfo.setIat(time2 - time1);
-					iInfo.setBeginEvent(i);
-					iInfo.setEndEvent(j);
-				} else {
-
-					iInfo.setBeginTime(time2);
-					iInfo.setIat(time1 - time2);
-					iInfo.setBeginEvent(j);
-					iInfo.setEndEvent(i);
-
-				}
-
-				iatInfoList.add(iInfo);
-			}
+	private double[] toArray(List<Double> timeList) {
+		double[] timeline = new double[timeList.size()];
+		for (int idx = 0; idx < timeline.length; idx++) {
+			timeline[idx] = timeList.get(idx).doubleValue();
 		}
+		return timeline;
 	}
 	/**
 	 * Determine periodicity 
@@ -648,41 +425,5 @@ public class PeriodicTransferImpl implements IBestPractice {
 			return false;
 		}
 	}
-	
-	//Helper inner classes, remove to pojo
-	/**
-	 * Bean class to contain the information of Request Event's Inter Arrival
-	 * Time.
-	 */
-//	class IatInfo {
-//		private double iat;
-//		private double beginTime;
-//		private int beginEvent;
-//		private int endEvent;	
-//		IatInfo(double iat, double beginTime, int beginEvent, int endEvent) {
-//			super();
-//			this.iat = iat;
-//			this.beginTime = beginTime;
-//			this.beginEvent = beginEvent;
-//			this.endEvent = endEvent;
-//		}
-//		public IatInfo() {
-//		}
-//	}
-
-	private class SortByBeginTime implements Comparator<IatInfo> {
-		@Override
-		public int compare(IatInfo info1, IatInfo info2) {
-			return Double.valueOf(info1.getBeginTime()).compareTo(info2.getBeginTime());
-		}
-	}
-
-	private class SortByIAT implements Comparator<IatInfo> {
-
-		@Override
-		public int compare(IatInfo info1, IatInfo info2) {
-			return Double.valueOf(info1.getIat()).compareTo(info2.getIat());
-		}
-	}
 
 }//end class
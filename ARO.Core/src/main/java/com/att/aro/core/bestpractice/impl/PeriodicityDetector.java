@@ -0,0 +1,187 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.bestpractice.impl;
+
+import java.util.Arrays;
+
+import com.att.aro.core.configuration.pojo.Profile;
+
+/**
+ * Decides whether a timeline of requests is periodic, using the profile
+ * parameters of the periodic transfer best practice.
+ *
+ * A timeline is periodic when the intervals in some window [a, a + cycle
+ * tolerance) average more than the minimum cycle and link at least the minimum
+ * number of samples into a chain, each interval starting where the previous one
+ * ended. For a fixed window the longest chain is found in one pass over the
+ * sorted timestamps, so no interval objects are created.
+ *
+ * Up to EXACT_PAIR_LIMIT intervals every distinct interval is tried as a window
+ * start, as the pairwise clustering did. Above that the window starts step by
+ * half the tolerance up to the longest interval a chain can have, which keeps
+ * the cost linear in the number of requests for a given trace duration.
+ */
+class PeriodicityDetector {
+
+	// 200 requests, the chunk size the pairwise clustering was limited to
+	static final int EXACT_PAIR_LIMIT = 200 * 199 / 2;
+	private static final int STEPS_PER_TOLERANCE = 2;
+
+	private final double minCycle;
+	private final double cycleTolerance;
+	private final int minSamples;
+
+	PeriodicityDetector(Profile profile) {
+		this(profile.getPeriodMinCycle(), profile.getPeriodCycleTol(), profile.getPeriodMinSamples());
+	}
+
+	PeriodicityDetector(double minCycle, double cycleTolerance, int minSamples) {
+		this.minCycle = minCycle;
+		this.cycleTolerance = cycleTolerance;
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * @param timeline
+	 *            timestamps of the requests in any order, not modified
+	 * @return true if periodic, false if not
+	 */
+	boolean isPeriodic(double[] timeline) {
+		int count = timeline.length;
+		if (count < 2 || !(cycleTolerance > 0)) {
+			return false;
+		}
+		double[] times = timeline.clone();
+		Arrays.sort(times);
+		long pairs = (long) count * (count - 1) / 2;
+		return pairs <= EXACT_PAIR_LIMIT ? isPeriodicExact(times, (int) pairs) : isPeriodicStepped(times);
+	}
+
+	private boolean isPeriodicExact(double[] times, int pairs) {
+		double[] intervals = new double[pairs];
+		int index = 0;
+		for (int first = 0; first < times.length - 1; first++) {
+			for (int second = first + 1; second < times.length; second++) {
+				intervals[index++] = times[second] - times[first];
+			}
+		}
+		Arrays.sort(intervals);
+		double[] sums = prefixSums(intervals);
+
+		int end = 0;
+		for (int start = 0; start < pairs; start++) {
+			double windowStart = intervals[start];
+			if (start > 0 && windowStart == intervals[start - 1]) {
+				continue;
+			}
+			while (end < pairs && intervals[end] - windowStart < cycleTolerance) {
+				end++;
+			}
+			double average = (sums[end] - sums[start]) / (end - start);
+			if (windowStart > 0 && average > minCycle && longestChain(times, windowStart) >= minSamples) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isPeriodicStepped(double[] times) {
+		double step = cycleTolerance / STEPS_PER_TOLERANCE;
+		double duration = times[times.length - 1] - times[0];
+		double longestStep = minSamples > 1 ? duration / minSamples : duration;
+		double[] sums = prefixSums(times);
+
+		long first = Math.max(1, (long) Math.floor((minCycle - cycleTolerance) / step));
+		long last = (long) Math.ceil(longestStep / step);
+		for (long stepIndex = first; stepIndex <= last; stepIndex++) {
+			double windowStart = stepIndex * step;
+			double average = averageInterval(times, sums, windowStart);
+			if (average > minCycle && longestChain(times, windowStart) >= minSamples) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Average of all intervals in [windowStart, windowStart + cycle
+	 * tolerance), NaN if there are none.
+	 */
+	private double averageInterval(double[] times, double[] sums, double windowStart) {
+		long count = 0;
+		double sum = 0;
+		int low = 0;
+		int high = 0;
+		for (int idx = 0; idx < times.length; idx++) {
+			// the earlier requests idx is windowStart or more, but less than the tolerance beyond it, after
+			while (low < idx && times[idx] - times[low] - windowStart >= cycleTolerance) {
+				low++;
+			}
+			while (high < idx && times[idx] - times[high] >= windowStart) {
+				high++;
+			}
+			if (high > low) {
+				count += high - low;
+				sum += (high - low) * times[idx] - (sums[high] - sums[low]);
+			}
+		}
+		return sum / count;
+	}
+
+	/**
+	 * Longest chain of intervals in [windowStart, windowStart + cycle
+	 * tolerance), counted in intervals. The requests that can precede request
+	 * idx in the chain form a range that only moves forward, its best chain is
+	 * kept at the head of a queue of decreasing chain lengths.
+	 */
+	int longestChain(double[] times, double windowStart) {
+		int count = times.length;
+		int[] chain = new int[count];
+		int[] queue = new int[count];
+		int head = 0;
+		int tail = 0;
+		int low = 0;
+		int high = 0;
+		int best = 0;
+		for (int idx = 0; idx < count; idx++) {
+			while (high < idx && times[idx] - times[high] >= windowStart) {
+				while (tail > head && chain[queue[tail - 1]] <= chain[high]) {
+					tail--;
+				}
+				queue[tail++] = high++;
+			}
+			while (low < high && times[idx] - times[low] - windowStart >= cycleTolerance) {
+				low++;
+			}
+			while (tail > head && queue[head] < low) {
+				head++;
+			}
+			if (tail > head) {
+				chain[idx] = chain[queue[head]] + 1;
+				best = Math.max(best, chain[idx]);
+			}
+		}
+		return best;
+	}
+
+	private static double[] prefixSums(double[] values) {
+		double[] sums = new double[values.length + 1];
+		for (int idx = 0; idx < values.length; idx++) {
+			sums[idx + 1] = sums[idx] + values[idx];
+		}
+		return sums;
+	}
+}
@@ -35,8 +35,8 @@ import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.ScriptsResult;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -77,11 +77,10 @@ public class ScriptsImpl implements IBestPractice {
 	public AbstractBestPracticeResult runTest(PacketAnalyzerResult tracedata) {
 		ScriptsResult result = new ScriptsResult();
 
-		for (Session session : tracedata.getSessionlist()) {
-			for (HttpRequestResponseInfo req : session.getRequestResponseInfo()) {
-				if (req.getDirection() == HttpDirection.RESPONSE && req.getContentLength() > 0 && req.getContentType() != null && reqhelper.isHtml(req.getContentType())) {
-					result = analyzeHtml(req, session, result);
-				}
+		for (HttpRequestResponseInfoWithSession itemsession : tracedata.getRequestResponseIndex().getResponses()) {
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			if (req.getContentLength() > 0 && req.getContentType() != null && reqhelper.isHtml(req.getContentType())) {
+				result = analyzeHtml(req, itemsession.getSession(), result);
 			}
 		}
 		String text = "";
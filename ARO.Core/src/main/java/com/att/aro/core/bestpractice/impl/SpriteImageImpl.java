@@ -17,8 +17,10 @@ package com.att.aro.core.bestpractice.impl;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 import com.att.aro.core.ApplicationConfig;
@@ -27,8 +29,10 @@ import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.bestpractice.pojo.SpriteImageEntry;
 import com.att.aro.core.bestpractice.pojo.SpriteImageResult;
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageTrial;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
@@ -56,55 +60,63 @@ public class SpriteImageImpl implements IBestPractice{
 	@Value("${exportall.csvNumberOfSpriteFiles}")
 	private String exportAllNumberOfSpriteFiles;
 	
+	@Autowired
+	private IImageAnalysis imageAnalyzer;
+	
 	@Override
 	public AbstractBestPracticeResult runTest(PacketAnalyzerResult tracedata) {
 		SpriteImageResult result = new SpriteImageResult();
 		List<SpriteImageEntry> analysisResults = new ArrayList<SpriteImageEntry>();
-		for(Session session:tracedata.getSessionlist()){
-			double lastTimeStamp = 0.0;
-			HttpRequestResponseInfo lastReqRessInfo = null;
-			HttpRequestResponseInfo secondReqRessInfo = null;
-			boolean thirdOccurrenceTriggered = false;
-			
-			for(HttpRequestResponseInfo req:session.getRequestResponseInfo()){
-				if(req.getDirection() == HttpDirection.RESPONSE && req.getContentType() != null 
-						&& req.getFirstDataPacket() != null 
-						&& req.getContentType().contains("image/")
-						&& req.getContentLength() < IMAGE_SIZE_LIMIT){
-					PacketInfo pktInfo = req.getFirstDataPacket();
-					if (lastTimeStamp == 0.0) {
-						lastTimeStamp = pktInfo.getTimeStamp();
-						lastReqRessInfo = req;
-						continue;
-					} else{ 
-						if ((pktInfo.getTimeStamp() - lastTimeStamp) <= 5.0) {
-							if (!thirdOccurrenceTriggered) {
-								secondReqRessInfo = req;
-								thirdOccurrenceTriggered = true;
-								continue;
-							} else {
-								/* -At this stage 3 images found to be downloaded in 5 secs. store them.
-								 * -fix for defect DE26829*/
-								
-								analysisResults.add(new SpriteImageEntry(lastReqRessInfo));
-								
-								analysisResults.add(new SpriteImageEntry(secondReqRessInfo));
-								
-								analysisResults.add(new SpriteImageEntry(req));
-								/* -reset the variables to search more such images in this session
-								 * -fix for defect DE26829 */
-								
-								lastTimeStamp = 0.0;
-								lastReqRessInfo = null;
-								secondReqRessInfo = null;
-								thirdOccurrenceTriggered = false;
-							}
+		Session session = null;
+		double lastTimeStamp = 0.0;
+		HttpRequestResponseInfo lastReqRessInfo = null;
+		HttpRequestResponseInfo secondReqRessInfo = null;
+		boolean thirdOccurrenceTriggered = false;
+		for(ImageInfo image:imageAnalyzer.analyze(tracedata, EnumSet.noneOf(ImageTrial.class)).getImages()){
+			if(image.getSession() != session){
+				// images are searched session by session
+				session = image.getSession();
+				lastTimeStamp = 0.0;
+				lastReqRessInfo = null;
+				secondReqRessInfo = null;
+				thirdOccurrenceTriggered = false;
+			}
+			HttpRequestResponseInfo req = image.getResponse();
+			if(req.getFirstDataPacket() != null 
+					&& req.getContentLength() < IMAGE_SIZE_LIMIT){
+				PacketInfo pktInfo = req.getFirstDataPacket();
+				if (lastTimeStamp == 0.0) {
+					lastTimeStamp = pktInfo.getTimeStamp();
+					lastReqRessInfo = req;
+					continue;
+				} else{ 
+					if ((pktInfo.getTimeStamp() - lastTimeStamp) <= 5.0) {
+						if (!thirdOccurrenceTriggered) {
+							secondReqRessInfo = req;
+							thirdOccurrenceTriggered = true;
+							continue;
+						} else {
+							/* -At this stage 3 images found to be downloaded in 5 secs. store them.
+							 * -fix for defect DE26829*/
+							
+							analysisResults.add(new SpriteImageEntry(lastReqRessInfo));
+							
+							analysisResults.add(new SpriteImageEntry(secondReqRessInfo));
+							
+							analysisResults.add(new SpriteImageEntry(req));
+							/* -reset the variables to search more such images in this session
+							 * -fix for defect DE26829 */
+							
+							lastTimeStamp = 0.0;
+							lastReqRessInfo = null;
+							secondReqRessInfo = null;
+							thirdOccurrenceTriggered = false;
 						}
-						lastTimeStamp = pktInfo.getTimeStamp();
-						lastReqRessInfo = req;
-						secondReqRessInfo = null;
-						thirdOccurrenceTriggered = false;
 					}
+					lastTimeStamp = pktInfo.getTimeStamp();
+					lastReqRessInfo = req;
+					secondReqRessInfo = null;
+					thirdOccurrenceTriggered = false;
 				}
 			}
 		}
@@ -33,8 +33,6 @@ import com.att.aro.core.bestpractice.pojo.VideoUsage;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.videoanalysis.IVideoUsagePrefsManager;
-import com.att.aro.core.videoanalysis.PlotHelperAbstract;
-import com.att.aro.core.videoanalysis.impl.VideoChunkPlotterImpl;
 import com.att.aro.core.videoanalysis.pojo.AROManifest;
 
 /**
@@ -110,12 +108,11 @@ public class VideoStartUpDelayImpl implements IBestPractice{
 													ApplicationConfig.getInstance().getAppUrlBase()));
 		result.setOverviewTitle(overviewTitle);
 		result.setResultType(BPResultType.SELF_TEST);	// this VideoBestPractice is to be reported as a selftest until further notice
-		PlotHelperAbstract videoChunkPlot = new VideoChunkPlotterImpl();
 		
 		if(videoEventList.isEmpty()){
 			result.setResultText(textResultEmpty);
 		}else{
-			if(videoChunkPlot.chunkPlayTimeList.size() ==0){
+			if(videoUsage.getChunkPlayTimeList().isEmpty()){
 				result.setResultText(MessageFormat.format(textResultInit, startupDelay, startupDelay ==1 ?"":"s"));
 			}else{		
 				//	if (videoEventList != null) {
@@ -20,8 +20,13 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.codehaus.jackson.annotate.JsonIgnore;
+
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.videoanalysis.IVideoSegmentStore;
 import com.att.aro.core.videoanalysis.pojo.AROManifest;
+import com.att.aro.core.videoanalysis.pojo.PlaybackSimulation;
+import com.att.aro.core.videoanalysis.pojo.VideoEvent;
 import com.att.aro.core.videoanalysis.pojo.VideoUsagePrefs;
 
 /**
@@ -51,6 +56,16 @@ public class VideoUsage extends AbstractBestPracticeResult {
 
 	private VideoUsagePrefs videoUsagePrefs;
 
+	/**
+	 * play start times the user picked for segments, keyed by the segment picked
+	 */
+	private Map<VideoEvent, Double> chunkPlayTimeList = new HashMap<>();
+
+	private PlaybackSimulation playbackSimulation;
+
+	@JsonIgnore
+	private IVideoSegmentStore segmentStore;
+
 	public VideoUsage(String tracePath) {
 		this.tracePath = tracePath;
 	}
@@ -154,6 +169,43 @@ public class VideoUsage extends AbstractBestPracticeResult {
 		this.videoUsagePrefs = videoUsagePrefs;
 	}
 
+	public Map<VideoEvent, Double> getChunkPlayTimeList() {
+		return chunkPlayTimeList;
+	}
+
+	public void setChunkPlayTimeList(Map<VideoEvent, Double> chunkPlayTimeList) {
+		this.chunkPlayTimeList = chunkPlayTimeList;
+	}
+
+	/**
+	 * Returns the last playback simulation of this trace, null until the video
+	 * plots have been drawn with a startup delay.
+	 * 
+	 * @return PlaybackSimulation
+	 */
+	public PlaybackSimulation getPlaybackSimulation() {
+		return playbackSimulation;
+	}
+
+	public void setPlaybackSimulation(PlaybackSimulation playbackSimulation) {
+		this.playbackSimulation = playbackSimulation;
+	}
+
+	/**
+	 * Returns the segments of this trace, their files are written when asked
+	 * for.
+	 * 
+	 * @return IVideoSegmentStore, null before the analysis
+	 */
+	@JsonIgnore
+	public IVideoSegmentStore getSegmentStore() {
+		return segmentStore;
+	}
+
+	public void setSegmentStore(IVideoSegmentStore segmentStore) {
+		this.segmentStore = segmentStore;
+	}
+
 	public TreeMap<Double, HttpRequestResponseInfo> getRequestMap() {
 		return requestMap;
 	}
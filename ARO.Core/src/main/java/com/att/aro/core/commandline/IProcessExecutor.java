@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.commandline;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.att.aro.core.commandline.pojo.ProcessExecutorStats;
+import com.att.aro.core.commandline.pojo.ProcessResult;
+
+/**
+ * Runs external tools such as ffmpeg, ffprobe and adb directly from their
+ * argument list, without a bash or CMD shell in between. Commands wait for a
+ * free slot on a pool of limited size, so a video analysis cannot start more
+ * processes than the machine has cores.
+ *
+ * Commands that name input files are remembered by the content of those
+ * files, running the same command on the same bytes again returns the earlier
+ * result without starting a process.
+ */
+public interface IProcessExecutor {
+
+	/**
+	 * Queues the command.
+	 * 
+	 * @param command
+	 *            program followed by its arguments, passed as is
+	 * @param timeoutMillis
+	 *            the process is killed after this long, 0 or less waits forever
+	 * @param inputs
+	 *            files the command reads, when given a successful result is
+	 *            kept and reused for files with the same content
+	 * @return Future of the result
+	 */
+	Future<ProcessResult> submit(List<String> command, long timeoutMillis, File... inputs);
+
+	/**
+	 * Runs the command and waits for it, see {@link #submit}.
+	 * 
+	 * @return result, never null
+	 */
+	ProcessResult execute(List<String> command, long timeoutMillis, File... inputs);
+
+	/**
+	 * Sets the number of processes that may run at the same time, the default
+	 * is the processParallelism setting or else the number of processors.
+	 * 
+	 * @param parallelism
+	 */
+	void setParallelism(int parallelism);
+
+	int getParallelism();
+
+	/**
+	 * @return counts and timings since start up or the last reset
+	 */
+	ProcessExecutorStats getStats();
+
+	void resetStats();
+
+	/**
+	 * Forgets all kept results.
+	 */
+	void clearCache();
+}
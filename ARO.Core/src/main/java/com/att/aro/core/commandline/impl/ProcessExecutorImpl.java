@@ -0,0 +1,368 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.commandline.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.att.aro.core.ILogger;
+import com.att.aro.core.commandline.IProcessExecutor;
+import com.att.aro.core.commandline.pojo.ProcessExecutorStats;
+import com.att.aro.core.commandline.pojo.ProcessResult;
+import com.att.aro.core.model.InjectLogger;
+import com.att.aro.core.settings.Settings;
+import com.att.aro.core.settings.impl.SettingsImpl;
+
+/**
+ * Runs each command on a pool thread with ProcessBuilder, stdout and stderr
+ * are drained by separate reader threads so neither pipe can fill up and stall
+ * the process while the pool thread waits out the timeout.
+ *
+ * Results of commands with input files are kept as Futures, keyed by a SHA-256
+ * over the arguments and the content of the inputs. Input paths are left out of
+ * the key, so the same segment saved under another name is a hit as well. A
+ * command submitted while the same one is still running shares its Future.
+ */
+public class ProcessExecutorImpl implements IProcessExecutor {
+
+	private static final int CACHE_SIZE = 256;
+	private static final int BUFFER_SIZE = 8192;
+	private static final long IDLE_SECONDS = 60;
+
+	@InjectLogger
+	private static ILogger log;
+
+	@Autowired
+	private Settings settings;
+
+	private ThreadPoolExecutor pool;
+	private final ExecutorService readers = Executors.newCachedThreadPool(daemonThreads("ARO-process-reader-"));
+
+	// access ordered, the least recently used result goes first
+	private final Map<String, Future<ProcessResult>> cache = new LinkedHashMap<String, Future<ProcessResult>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Future<ProcessResult>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong executed = new AtomicLong();
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong totalQueueWait = new AtomicLong();
+	private final AtomicLong maxQueueWait = new AtomicLong();
+	private final AtomicLong totalRun = new AtomicLong();
+	private final AtomicLong maxRun = new AtomicLong();
+
+	public void setSettings(Settings settings) {
+		this.settings = settings;
+	}
+
+	@Override
+	public Future<ProcessResult> submit(List<String> command, long timeoutMillis, File... inputs) {
+		submitted.incrementAndGet();
+		List<String> argv = new ArrayList<String>(command);
+		String key = inputs.length == 0 ? null : cacheKey(argv, inputs);
+		if (key == null) {
+			return getPool().submit(new ProcessTask(argv, timeoutMillis, null));
+		}
+
+		FutureTask<ProcessResult> task;
+		synchronized (cache) {
+			Future<ProcessResult> kept = cache.get(key);
+			if (kept != null) {
+				cacheHits.incrementAndGet();
+				return kept;
+			}
+			task = new FutureTask<ProcessResult>(new ProcessTask(argv, timeoutMillis, key));
+			cache.put(key, task);
+		}
+		getPool().execute(task);
+		return task;
+	}
+
+	@Override
+	public ProcessResult execute(List<String> command, long timeoutMillis, File... inputs) {
+		try {
+			return submit(command, timeoutMillis, inputs).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return ProcessResult.failed("interrupted while waiting for " + command);
+		} catch (ExecutionException e) {
+			log.error("Error executing " + command, e.getCause());
+			return ProcessResult.failed(String.valueOf(e.getCause()));
+		}
+	}
+
+	@Override
+	public synchronized void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+		}
+		ThreadPoolExecutor executor = getPool();
+		if (parallelism > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(parallelism);
+			executor.setCorePoolSize(parallelism);
+		} else {
+			executor.setCorePoolSize(parallelism);
+			executor.setMaximumPoolSize(parallelism);
+		}
+	}
+
+	@Override
+	public synchronized int getParallelism() {
+		return getPool().getMaximumPoolSize();
+	}
+
+	@Override
+	public ProcessExecutorStats getStats() {
+		return new ProcessExecutorStats(submitted.get(), executed.get(), cacheHits.get(), timeouts.get(), failures.get(),
+				totalQueueWait.get(), maxQueueWait.get(), totalRun.get(), maxRun.get());
+	}
+
+	@Override
+	public void resetStats() {
+		for (AtomicLong counter : new AtomicLong[] { submitted, executed, cacheHits, timeouts, failures, totalQueueWait,
+				maxQueueWait, totalRun, maxRun }) {
+			counter.set(0);
+		}
+	}
+
+	@Override
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	private synchronized ThreadPoolExecutor getPool() {
+		if (pool == null) {
+			int parallelism = readParallelism();
+			pool = new ThreadPoolExecutor(parallelism, parallelism, IDLE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), daemonThreads("ARO-process-"));
+			pool.allowCoreThreadTimeOut(true);
+		}
+		return pool;
+	}
+
+	private int readParallelism() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		String value = settings == null ? null
+				: settings.getAttribute(SettingsImpl.ConfigFileAttributes.processParallelism.name());
+		if (value != null) {
+			try {
+				int parallelism = Integer.parseInt(value.trim());
+				if (parallelism > 0) {
+					return parallelism;
+				}
+			} catch (NumberFormatException e) {
+				log.warn("ignoring processParallelism " + value + ", not a number");
+			}
+		}
+		return processors;
+	}
+
+	/**
+	 * @return hex SHA-256 of the arguments and input contents, null if an
+	 *         input cannot be read
+	 */
+	private String cacheKey(List<String> argv, File[] inputs) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			log.error("SHA-256 not available, results are not kept", e);
+			return null;
+		}
+		for (String arg : argv) {
+			int input = indexOfInput(arg, inputs);
+			digest.update((input < 0 ? arg : "\u0000input" + input).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		byte[] buffer = new byte[BUFFER_SIZE];
+		for (File input : inputs) {
+			try (InputStream stream = new FileInputStream(input)) {
+				int count;
+				while ((count = stream.read(buffer)) != -1) {
+					digest.update(buffer, 0, count);
+				}
+			} catch (IOException e) {
+				log.debug("not keeping result, cannot read " + input + ": " + e.getMessage());
+				return null;
+			}
+			digest.update((byte) 0);
+		}
+		StringBuilder key = new StringBuilder();
+		for (byte value : digest.digest()) {
+			key.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	private static int indexOfInput(String arg, File[] inputs) {
+		for (int idx = 0; idx < inputs.length; idx++) {
+			if (arg.equals(inputs[idx].getPath()) || arg.equals(inputs[idx].getAbsolutePath())) {
+				return idx;
+			}
+		}
+		return -1;
+	}
+
+	private void forget(String key) {
+		if (key != null) {
+			synchronized (cache) {
+				cache.remove(key);
+			}
+		}
+	}
+
+	private static void recordMax(AtomicLong max, long value) {
+		long current;
+		while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+			// another thread raised it, look again
+		}
+	}
+
+	private static ThreadFactory daemonThreads(final String prefix) {
+		return new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	private static Callable<byte[]> reader(final InputStream input) {
+		return new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws IOException {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[BUFFER_SIZE];
+				try (InputStream stream = input) {
+					int count;
+					while ((count = stream.read(buffer)) != -1) {
+						out.write(buffer, 0, count);
+					}
+				}
+				return out.toByteArray();
+			}
+		};
+	}
+
+	private class ProcessTask implements Callable<ProcessResult> {
+		private final List<String> argv;
+		private final long timeoutMillis;
+		private final String key;
+		private final long queued = System.nanoTime();
+
+		ProcessTask(List<String> argv, long timeoutMillis, String key) {
+			this.argv = argv;
+			this.timeoutMillis = timeoutMillis;
+			this.key = key;
+		}
+
+		@Override
+		public ProcessResult call() {
+			long start = System.nanoTime();
+			long waited = TimeUnit.NANOSECONDS.toMillis(start - queued);
+
+			Process process;
+			try {
+				process = new ProcessBuilder(argv).start();
+			} catch (IOException e) {
+				failures.incrementAndGet();
+				forget(key);
+				log.error("Error executing " + argv + " IOException:" + e.getMessage());
+				return ProcessResult.failed(e.getMessage());
+			}
+			executed.incrementAndGet();
+			try {
+				// nothing is fed to stdin, ffmpeg would otherwise wait on it for keys
+				process.getOutputStream().close();
+			} catch (IOException e) {
+				log.debug("closing stdin of " + argv.get(0) + ": " + e.getMessage());
+			}
+			Future<byte[]> stdout = readers.submit(reader(process.getInputStream()));
+			Future<byte[]> stderr = readers.submit(reader(process.getErrorStream()));
+
+			ProcessResult result;
+			try {
+				boolean timedOut = false;
+				if (timeoutMillis <= 0) {
+					process.waitFor();
+				} else if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+					timedOut = true;
+					timeouts.incrementAndGet();
+					log.warn("killing " + argv + " after " + timeoutMillis + " ms");
+					process.destroyForcibly().waitFor();
+				}
+				result = new ProcessResult(process.exitValue(), stdout.get(), new String(stderr.get(), StandardCharsets.UTF_8), timedOut);
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+				result = ProcessResult.failed("interrupted while running " + argv);
+			} catch (ExecutionException e) {
+				log.error("Error reading output of " + argv, e.getCause());
+				result = ProcessResult.failed(String.valueOf(e.getCause()));
+			}
+
+			long ran = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			totalQueueWait.addAndGet(waited);
+			recordMax(maxQueueWait, waited);
+			totalRun.addAndGet(ran);
+			recordMax(maxRun, ran);
+			log.debug(argv.get(0) + " exit " + result.getExitCode() + ", waited " + waited + " ms, ran " + ran + " ms");
+
+			// only a clean run is kept, a failure may come from the moment rather than the input
+			if (!result.isSuccess()) {
+				forget(key);
+			}
+			return result;
+		}
+	}
+}
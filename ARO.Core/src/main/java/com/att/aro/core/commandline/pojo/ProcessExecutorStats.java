@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.commandline.pojo;
+
+/**
+ * Snapshot of the IProcessExecutor counters. Queue wait is the time from
+ * submit until a slot was free, run time is from process start until it ended
+ * and its output was read.
+ */
+public class ProcessExecutorStats {
+
+	private final long submitted;
+	private final long executed;
+	private final long cacheHits;
+	private final long timeouts;
+	private final long failures;
+	private final long totalQueueWaitMillis;
+	private final long maxQueueWaitMillis;
+	private final long totalRunMillis;
+	private final long maxRunMillis;
+
+	public ProcessExecutorStats(long submitted, long executed, long cacheHits, long timeouts, long failures,
+			long totalQueueWaitMillis, long maxQueueWaitMillis, long totalRunMillis, long maxRunMillis) {
+		this.submitted = submitted;
+		this.executed = executed;
+		this.cacheHits = cacheHits;
+		this.timeouts = timeouts;
+		this.failures = failures;
+		this.totalQueueWaitMillis = totalQueueWaitMillis;
+		this.maxQueueWaitMillis = maxQueueWaitMillis;
+		this.totalRunMillis = totalRunMillis;
+		this.maxRunMillis = maxRunMillis;
+	}
+
+	public long getSubmitted() {
+		return submitted;
+	}
+
+	/**
+	 * @return number of processes started
+	 */
+	public long getExecuted() {
+		return executed;
+	}
+
+	/**
+	 * @return number of commands answered from kept results
+	 */
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	/**
+	 * @return number of processes that could not be started
+	 */
+	public long getFailures() {
+		return failures;
+	}
+
+	public long getTotalQueueWaitMillis() {
+		return totalQueueWaitMillis;
+	}
+
+	public long getMaxQueueWaitMillis() {
+		return maxQueueWaitMillis;
+	}
+
+	public double getAverageQueueWaitMillis() {
+		return executed == 0 ? 0 : (double) totalQueueWaitMillis / executed;
+	}
+
+	public long getTotalRunMillis() {
+		return totalRunMillis;
+	}
+
+	public long getMaxRunMillis() {
+		return maxRunMillis;
+	}
+
+	public double getAverageRunMillis() {
+		return executed == 0 ? 0 : (double) totalRunMillis / executed;
+	}
+
+	@Override
+	public String toString() {
+		return "ProcessExecutorStats [submitted=" + submitted + ", executed=" + executed + ", cacheHits=" + cacheHits
+				+ ", timeouts=" + timeouts + ", failures=" + failures + ", queueWait avg/max=" + getAverageQueueWaitMillis() + "/"
+				+ maxQueueWaitMillis + " ms, run avg/max=" + getAverageRunMillis() + "/" + maxRunMillis + " ms]";
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.commandline.pojo;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Outcome of an external process, stdout as raw bytes and stderr as text.
+ */
+public class ProcessResult {
+
+	private final int exitCode;
+	private final byte[] output;
+	private final String errorOutput;
+	private final boolean timedOut;
+
+	public ProcessResult(int exitCode, byte[] output, String errorOutput, boolean timedOut) {
+		this.exitCode = exitCode;
+		this.output = output;
+		this.errorOutput = errorOutput;
+		this.timedOut = timedOut;
+	}
+
+	/**
+	 * Result of a command that could not be started or waited for.
+	 * 
+	 * @param message
+	 * @return ProcessResult with exit code -1
+	 */
+	public static ProcessResult failed(String message) {
+		return new ProcessResult(-1, new byte[0], message, false);
+	}
+
+	public int getExitCode() {
+		return exitCode;
+	}
+
+	public byte[] getOutput() {
+		return output;
+	}
+
+	public String getOutputString() {
+		return new String(output, StandardCharsets.UTF_8);
+	}
+
+	public String getErrorOutput() {
+		return errorOutput;
+	}
+
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	public boolean isSuccess() {
+		return exitCode == 0 && !timedOut;
+	}
+
+	@Override
+	public String toString() {
+		return "ProcessResult [exitCode=" + exitCode + ", output=" + output.length + " bytes, timedOut=" + timedOut + "]";
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.concurrent;
+
+import java.io.IOException;
+
+import com.att.aro.core.pojo.AROTraceData;
+
+/**
+ * Takes the results of a ParallelTraceAnalyzer run, one at a time on the
+ * thread that started the run.
+ */
+public interface ITraceAnalysisHandler {
+
+	/**
+	 * @param trace
+	 *            trace directory or file
+	 * @param data
+	 *            result of the analysis, null if it failed without one
+	 * @param done
+	 *            number of traces done so far, this one included
+	 * @param total
+	 *            number of traces in the run
+	 * @throws IOException
+	 *             ends the run
+	 */
+	void traceDone(String trace, AROTraceData data, int done, int total) throws IOException;
+}
@@ -0,0 +1,247 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.concurrent.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.att.aro.core.AROConfig;
+import com.att.aro.core.IAROService;
+import com.att.aro.core.ILogger;
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.concurrent.IAnalysisContextFactory;
+import com.att.aro.core.concurrent.ITraceAnalysisHandler;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.impl.LoggerImpl;
+import com.att.aro.core.pojo.AROTraceData;
+import com.att.aro.core.pojo.ErrorCodeRegistry;
+
+/**
+ * Analyzes several traces at the same time on a small fixed pool and hands
+ * every result to the caller as soon as it is done. A worker with a finished
+ * trace waits for the caller before taking the next one, so no more results
+ * than workers are held at once.
+ * 
+ * The analysis beans keep the trace being read in their fields, so every
+ * worker analyzes on an application context of its own rather than on the
+ * shared one.
+ */
+public class ParallelTraceAnalyzer {
+
+	private static final ILogger LOGGER = new LoggerImpl(ParallelTraceAnalyzer.class.getName());
+
+	public static final int MAX_PARALLELISM = 4;
+
+	private final String threadName;
+	private final IAnalysisContextFactory contextFactory;
+
+	/**
+	 * Workers analyze on contexts of AROConfig.
+	 * 
+	 * @param threadName
+	 *            workers are named this followed by a number
+	 */
+	public ParallelTraceAnalyzer(String threadName) {
+		this(threadName, new IAnalysisContextFactory() {
+			@Override
+			public ConfigurableApplicationContext createContext() {
+				return new AnnotationConfigApplicationContext(AROConfig.class);
+			}
+		});
+	}
+
+	/**
+	 * @param threadName
+	 *            workers are named this followed by a number
+	 * @param contextFactory
+	 *            creates the context of every worker
+	 */
+	public ParallelTraceAnalyzer(String threadName, IAnalysisContextFactory contextFactory) {
+		this.threadName = threadName;
+		this.contextFactory = contextFactory;
+	}
+
+	/**
+	 * Half the processors, at most MAX_PARALLELISM. Every worker holds a trace
+	 * and an application context.
+	 */
+	public static int getDefaultParallelism() {
+		return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() / 2, MAX_PARALLELISM));
+	}
+
+	/**
+	 * Analyzes the traces and passes each result to the handler, in the order
+	 * the analyses complete. Returns once the handler had every trace.
+	 * 
+	 * @param requests
+	 *            best practices to run on every trace
+	 * @param traces
+	 *            trace directories or files
+	 * @param profile
+	 *            device profile, null for the default profile
+	 * @param parallelism
+	 *            most traces analyzed at the same time
+	 * @param handler
+	 *            called on this thread
+	 * @throws IOException
+	 *             thrown by the handler, the analyses still running are
+	 *             cancelled
+	 * @throws InterruptedException
+	 *             if this thread is interrupted, the analyses still running
+	 *             are cancelled
+	 */
+	public void run(List<BestPracticeType> requests, List<String> traces, Profile profile, int parallelism,
+			ITraceAnalysisHandler handler) throws IOException, InterruptedException {
+		int total = traces.size();
+		if (total == 0) {
+			return;
+		}
+		int workers = Math.max(1, Math.min(parallelism, total));
+		ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<String>(traces);
+		BlockingQueue<Result> results = new ArrayBlockingQueue<Result>(workers);
+		AtomicBoolean stopped = new AtomicBoolean();
+
+		ExecutorService executor = Executors.newFixedThreadPool(workers, new WorkerFactory(threadName));
+		try {
+			for (int idx = 0; idx < workers; idx++) {
+				executor.execute(new Worker(requests, profile, pending, results, stopped));
+			}
+			executor.shutdown();
+
+			for (int done = 1; done <= total; done++) {
+				Result result = results.take();
+				handler.traceDone(result.trace, result.data, done, total);
+			}
+		} finally {
+			stopped.set(true);
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Same handling as AROController.runAnalyzer, a trace too big to load or
+	 * not readable still gets a result holding the error.
+	 */
+	private AROTraceData analyze(IAROService service, List<BestPracticeType> requests, String trace,
+			Profile profile) {
+		AROTraceData data;
+		try {
+			if (service.isFile(trace)) {
+				data = service.analyzeFile(requests, trace, profile, null);
+			} else {
+				data = service.analyzeDirectory(requests, trace, profile, null);
+			}
+		} catch (OutOfMemoryError error) {
+			LOGGER.error(trace + ": " + error.getMessage(), error);
+			data = new AROTraceData();
+			data.setSuccess(false);
+			data.setError(ErrorCodeRegistry.getOutOfMemoryError());
+		} catch (IOException exception) {
+			LOGGER.error(trace + ": " + exception.getMessage(), exception);
+			data = new AROTraceData();
+			data.setSuccess(false);
+			data.setError(ErrorCodeRegistry.getUnknownFileFormat());
+		}
+		return data;
+	}
+
+	private static class Result {
+		private final String trace;
+		private final AROTraceData data;
+
+		Result(String trace, AROTraceData data) {
+			this.trace = trace;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * Takes traces until none are left or the run stopped. Every trace taken
+	 * gets a result, even a failed one, the caller counts on one result per
+	 * trace.
+	 */
+	private class Worker implements Runnable {
+		private final List<BestPracticeType> requests;
+		private final Profile profile;
+		private final ConcurrentLinkedQueue<String> pending;
+		private final BlockingQueue<Result> results;
+		private final AtomicBoolean stopped;
+
+		Worker(List<BestPracticeType> requests, Profile profile, ConcurrentLinkedQueue<String> pending,
+				BlockingQueue<Result> results, AtomicBoolean stopped) {
+			this.requests = requests;
+			this.profile = profile;
+			this.pending = pending;
+			this.results = results;
+			this.stopped = stopped;
+		}
+
+		@Override
+		public void run() {
+			ConfigurableApplicationContext context = null;
+			try {
+				String trace;
+				while (!stopped.get() && (trace = pending.poll()) != null) {
+					AROTraceData data;
+					try {
+						if (context == null) {
+							context = contextFactory.createContext();
+						}
+						data = analyze(context.getBean(IAROService.class), requests, trace, profile);
+					} catch (Throwable throwable) {
+						// an error escaping here would leave the caller waiting for this trace
+						LOGGER.error("Unable to run analysis on: " + trace, throwable);
+						data = null;
+					}
+					results.put(new Result(trace, data));
+				}
+			} catch (InterruptedException exception) {
+				LOGGER.debug("trace analysis cancelled");
+			} finally {
+				if (context != null) {
+					context.close();
+				}
+			}
+		}
+	}
+
+	private static class WorkerFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+		private final String name;
+
+		WorkerFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter;
+
+import java.util.List;
+
+import com.att.aro.core.displayfilter.pojo.DisplayFilter;
+import com.att.aro.core.displayfilter.pojo.DisplayFilterResult;
+import com.att.aro.core.displayfilter.pojo.PacketTable;
+import com.att.aro.core.exception.DisplayFilterException;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+
+/**
+ * Wireshark style display filters over analyzed packets, for example
+ * <pre>
+ * ip.addr == 10.0.0.0/8 &amp;&amp; tcp.port == 443 &amp;&amp; dir == down
+ * http.host contains "cdn" and http.status &gt;= 400
+ * tcp.flags.syn &amp;&amp; !tcp.flags.ack &amp;&amp; time &gt;= 12.5 &amp;&amp; time &lt; 20
+ * app == "com.example" or size &gt; 1400
+ * </pre>
+ * Fields are listed in FilterField, operators in FilterOperator. Words are
+ * and, or, not or &amp;&amp;, ||, !, grouped with parentheses. Strings that
+ * hold spaces or operator characters are written in double quotes.
+ */
+public interface IDisplayFilterService {
+
+	/**
+	 * @param expression
+	 *            display filter expression
+	 * @return the compiled filter, can be applied to any table
+	 * @throws DisplayFilterException
+	 *             if the expression is not valid
+	 */
+	DisplayFilter compile(String expression);
+
+	/**
+	 * Reads the fields of the packets into a table, done once per packet list.
+	 * 
+	 * @param packets
+	 *            packets to filter
+	 * @param sessions
+	 *            sessions of the packets, null if not assembled yet
+	 */
+	PacketTable createTable(List<PacketInfo> packets, List<Session> sessions);
+
+	/**
+	 * Tests every row of the table, in parallel on large tables. A time range
+	 * or a session the filter requires limits the rows that are tested.
+	 * 
+	 * @return the matching rows
+	 */
+	DisplayFilterResult filter(DisplayFilter filter, PacketTable table);
+}
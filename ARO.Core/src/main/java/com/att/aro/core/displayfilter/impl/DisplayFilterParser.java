@@ -0,0 +1,329 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import com.att.aro.core.displayfilter.pojo.FilterExpression;
+import com.att.aro.core.displayfilter.pojo.FilterField;
+import com.att.aro.core.displayfilter.pojo.FilterOperator;
+import com.att.aro.core.exception.DisplayFilterException;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+
+/**
+ * Recursive descent parser of display filter expressions, not and binds
+ * tighter than and, and tighter than or.
+ * 
+ * <pre>
+ * or      := and (("or" | "||") and)*
+ * and     := not (("and" | "&amp;&amp;") not)*
+ * not     := ("not" | "!") not | primary
+ * primary := "(" or ")" | field [operator value]
+ * </pre>
+ */
+class DisplayFilterParser {
+
+	// literal addresses only, anything else would be looked up as a host name
+	private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+	private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+	private static final String OPERATOR_CHARS = "()!=<>&|\"";
+
+	private final String expression;
+	private final List<Token> tokens = new ArrayList<Token>();
+	private int next;
+
+	private static class Token {
+		private final String text;
+		private final int position;
+		// true for quoted strings, which are never words or operators
+		private final boolean quoted;
+
+		Token(String text, int position, boolean quoted) {
+			this.text = text;
+			this.position = position;
+			this.quoted = quoted;
+		}
+
+		boolean is(String... words) {
+			if (quoted) {
+				return false;
+			}
+			for (String word : words) {
+				if (text.equalsIgnoreCase(word)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	DisplayFilterParser(String expression) {
+		this.expression = expression;
+	}
+
+	FilterExpression parse() {
+		tokenize();
+		if (tokens.isEmpty()) {
+			throw new DisplayFilterException("Empty filter", 0);
+		}
+		FilterExpression root = parseOr();
+		if (next < tokens.size()) {
+			throw error("Unexpected \"" + peek().text + "\"", peek());
+		}
+		return root;
+	}
+
+	private void tokenize() {
+		int pos = 0;
+		int length = expression.length();
+		while (pos < length) {
+			char chr = expression.charAt(pos);
+			if (Character.isWhitespace(chr)) {
+				pos++;
+			} else if (chr == '"') {
+				pos = readString(pos);
+			} else if (chr == '(' || chr == ')') {
+				tokens.add(new Token(String.valueOf(chr), pos++, false));
+			} else if (OPERATOR_CHARS.indexOf(chr) >= 0) {
+				String two = pos + 1 < length ? expression.substring(pos, pos + 2) : "";
+				if ("==".equals(two) || "!=".equals(two) || ">=".equals(two) || "<=".equals(two)
+						|| "&&".equals(two) || "||".equals(two)) {
+					tokens.add(new Token(two, pos, false));
+					pos += 2;
+				} else if (chr == '!' || chr == '<' || chr == '>') {
+					tokens.add(new Token(String.valueOf(chr), pos++, false));
+				} else {
+					throw new DisplayFilterException("Unexpected \"" + chr + "\"", pos);
+				}
+			} else {
+				int start = pos;
+				while (pos < length && !Character.isWhitespace(expression.charAt(pos))
+						&& OPERATOR_CHARS.indexOf(expression.charAt(pos)) < 0) {
+					pos++;
+				}
+				tokens.add(new Token(expression.substring(start, pos), start, false));
+			}
+		}
+	}
+
+	private int readString(int start) {
+		StringBuilder text = new StringBuilder();
+		int pos = start + 1;
+		while (pos < expression.length()) {
+			char chr = expression.charAt(pos++);
+			if (chr == '"') {
+				tokens.add(new Token(text.toString(), start, true));
+				return pos;
+			}
+			if (chr == '\\' && pos < expression.length()) {
+				chr = expression.charAt(pos++);
+			}
+			text.append(chr);
+		}
+		throw new DisplayFilterException("Missing closing quote", start);
+	}
+
+	private Token peek() {
+		return next < tokens.size() ? tokens.get(next) : null;
+	}
+
+	private Token take(String what) {
+		if (next >= tokens.size()) {
+			throw new DisplayFilterException("Expected " + what + " after the end", expression.length());
+		}
+		return tokens.get(next++);
+	}
+
+	private DisplayFilterException error(String message, Token token) {
+		return new DisplayFilterException(message, token.position);
+	}
+
+	private FilterExpression parseOr() {
+		List<FilterExpression> operands = new ArrayList<FilterExpression>();
+		operands.add(parseAnd());
+		while (peek() != null && peek().is("or", "||")) {
+			next++;
+			operands.add(parseAnd());
+		}
+		return operands.size() == 1 ? operands.get(0) : new FilterExpression.Or(operands);
+	}
+
+	private FilterExpression parseAnd() {
+		List<FilterExpression> operands = new ArrayList<FilterExpression>();
+		operands.add(parseNot());
+		while (peek() != null && peek().is("and", "&&")) {
+			next++;
+			operands.add(parseNot());
+		}
+		return operands.size() == 1 ? operands.get(0) : new FilterExpression.And(operands);
+	}
+
+	private FilterExpression parseNot() {
+		if (peek() != null && peek().is("not", "!")) {
+			next++;
+			return new FilterExpression.Not(parseNot());
+		}
+		return parsePrimary();
+	}
+
+	private FilterExpression parsePrimary() {
+		Token token = take("a field");
+		if (token.is("(")) {
+			FilterExpression inner = parseOr();
+			Token close = take("\")\"");
+			if (!close.is(")")) {
+				throw error("Expected \")\"", close);
+			}
+			return inner;
+		}
+		FilterField field = token.quoted ? null : FilterField.forName(token.text);
+		if (field == null) {
+			throw error("Unknown field \"" + token.text + "\"", token);
+		}
+		Token operatorToken = peek();
+		FilterOperator operator = operatorToken == null || operatorToken.quoted ? null
+				: FilterOperator.forToken(operatorToken.text.toLowerCase(Locale.US));
+		if (operator == null) {
+			// every packet has a direction, dir on its own would match all of them
+			if (field.getKind() != FilterField.Kind.DIRECTION) {
+				return new FilterExpression.Presence(field);
+			}
+			throw error("Expected an operator after " + field.getFieldName(), token);
+		}
+		next++;
+		Token value = take("a value");
+		if (!value.quoted && (value.is("(", ")", "!", "&&", "||", "and", "or", "not")
+				|| FilterOperator.forToken(value.text) != null)) {
+			throw error("Expected a value", value);
+		}
+		return comparison(field, operator, operatorToken, value);
+	}
+
+	private FilterExpression comparison(FilterField field, FilterOperator operator, Token operatorToken, Token value) {
+		FilterExpression.Comparison comparison = new FilterExpression.Comparison(field, operator, value.text);
+		switch (field.getKind()) {
+		case PROTOCOL:
+			throw error(field.getFieldName() + " can not be compared", operatorToken);
+		case ADDRESS:
+			requireEquality(field, operator, operatorToken);
+			parseAddress(comparison, value);
+			break;
+		case DIRECTION:
+			requireEquality(field, operator, operatorToken);
+			comparison.setDirection(parseDirection(value));
+			break;
+		case STRING:
+			if (operator != FilterOperator.EQ && operator != FilterOperator.NE && operator != FilterOperator.CONTAINS) {
+				throw error(field.getFieldName() + " takes ==, != or contains", operatorToken);
+			}
+			break;
+		case FLAG:
+			requireEquality(field, operator, operatorToken);
+			double flag = parseNumber(value);
+			if (flag != 0 && flag != 1) {
+				throw error(field.getFieldName() + " is 0 or 1", value);
+			}
+			comparison.setNumber(flag);
+			break;
+		default:
+			if (operator == FilterOperator.CONTAINS) {
+				throw error(field.getFieldName() + " is a number, contains only works on text", operatorToken);
+			}
+			comparison.setNumber(parseNumber(value));
+			break;
+		}
+		return comparison;
+	}
+
+	private void requireEquality(FilterField field, FilterOperator operator, Token operatorToken) {
+		if (operator != FilterOperator.EQ && operator != FilterOperator.NE) {
+			throw error(field.getFieldName() + " takes == or !=", operatorToken);
+		}
+	}
+
+	private double parseNumber(Token value) {
+		String text = value.text;
+		try {
+			if (text.startsWith("0x") || text.startsWith("0X")) {
+				return Long.parseLong(text.substring(2), 16);
+			}
+			double number = Double.parseDouble(text);
+			if (Double.isNaN(number) || Double.isInfinite(number)) {
+				throw new NumberFormatException(text);
+			}
+			return number;
+		} catch (NumberFormatException exception) {
+			throw error("\"" + text + "\" is not a number", value);
+		}
+	}
+
+	private PacketDirection parseDirection(Token value) {
+		if (value.is("up", "uplink")) {
+			return PacketDirection.UPLINK;
+		} else if (value.is("down", "downlink")) {
+			return PacketDirection.DOWNLINK;
+		} else if (value.is("unknown")) {
+			return PacketDirection.UNKNOWN;
+		}
+		throw error("dir is up, down or unknown", value);
+	}
+
+	private void parseAddress(FilterExpression.Comparison comparison, Token value) {
+		String text = value.text;
+		int slash = text.indexOf('/');
+		String address = slash < 0 ? text : text.substring(0, slash);
+		if (!isIPv4(address) && !IPV6.matcher(address).matches()) {
+			throw error("\"" + text + "\" is not an IP address", value);
+		}
+		InetAddress inetAddress;
+		try {
+			inetAddress = InetAddress.getByName(address);
+		} catch (UnknownHostException exception) {
+			throw error("\"" + text + "\" is not an IP address", value);
+		}
+		int bits = inetAddress.getAddress().length * 8;
+		int prefixLength = bits;
+		if (slash >= 0) {
+			try {
+				prefixLength = Integer.parseInt(text.substring(slash + 1));
+			} catch (NumberFormatException exception) {
+				prefixLength = -1;
+			}
+			if (prefixLength < 0 || prefixLength > bits) {
+				throw error("\"" + text + "\" has no valid prefix length", value);
+			}
+		}
+		comparison.setAddress(inetAddress, prefixLength);
+	}
+
+	private static boolean isIPv4(String address) {
+		if (!IPV4.matcher(address).matches()) {
+			return false;
+		}
+		for (String octet : address.split("\\.")) {
+			if (Integer.parseInt(octet) > 255) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,417 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.impl;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.att.aro.core.displayfilter.IDisplayFilterService;
+import com.att.aro.core.displayfilter.pojo.DisplayFilter;
+import com.att.aro.core.displayfilter.pojo.DisplayFilterResult;
+import com.att.aro.core.displayfilter.pojo.FilterExpression;
+import com.att.aro.core.displayfilter.pojo.FilterField;
+import com.att.aro.core.displayfilter.pojo.FilterOperator;
+import com.att.aro.core.displayfilter.pojo.PacketTable;
+import com.att.aro.core.exception.DisplayFilterException;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+
+/**
+ * Binds a compiled filter to the columns of a table, then tests the rows in
+ * chunks on the common fork join pool. Before testing, the top level and of
+ * the filter is searched for a session and a time range, which limit the
+ * rows to the rows of that session or, on a table in time order, to the rows
+ * found by binary search.
+ */
+public class DisplayFilterServiceImpl implements IDisplayFilterService {
+
+	// rows tested by one task, smaller tables are tested on the calling thread
+	static final int CHUNK_SIZE = 32 * 1024;
+
+	@Override
+	public DisplayFilter compile(String expression) {
+		if (expression == null) {
+			throw new DisplayFilterException("Empty filter", 0);
+		}
+		return new DisplayFilter(expression, new DisplayFilterParser(expression).parse());
+	}
+
+	@Override
+	public PacketTable createTable(List<PacketInfo> packets, List<Session> sessions) {
+		return new PacketTable(packets, sessions);
+	}
+
+	@Override
+	public DisplayFilterResult filter(DisplayFilter filter, PacketTable table) {
+		RowPredicate predicate = bind(filter.getRoot(), table);
+		Candidates candidates = candidates(filter.getRoot(), table);
+		int[] rows;
+		if (candidates.size() <= CHUNK_SIZE) {
+			rows = new FilterTask(predicate, candidates, 0, candidates.size()).compute();
+		} else {
+			rows = ForkJoinPool.commonPool().invoke(new FilterTask(predicate, candidates, 0, candidates.size()));
+		}
+		return new DisplayFilterResult(filter, table, rows);
+	}
+
+	/**
+	 * Rows that can match, either a range of rows or a list of rows.
+	 */
+	private static class Candidates {
+		private final int from;
+		private final int to;
+		private final int[] rows;
+
+		Candidates(int from, int to) {
+			this.from = from;
+			this.to = Math.max(from, to);
+			this.rows = null;
+		}
+
+		Candidates(int[] rows) {
+			this.from = 0;
+			this.to = rows.length;
+			this.rows = rows;
+		}
+
+		int size() {
+			return to - from;
+		}
+
+		int row(int index) {
+			return rows == null ? from + index : rows[index];
+		}
+	}
+
+	private static class FilterTask extends RecursiveTask<int[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient RowPredicate predicate;
+		private final transient Candidates candidates;
+		private final int start;
+		private final int end;
+
+		FilterTask(RowPredicate predicate, Candidates candidates, int start, int end) {
+			this.predicate = predicate;
+			this.candidates = candidates;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (end - start <= CHUNK_SIZE) {
+				int[] rows = new int[end - start];
+				int found = 0;
+				for (int index = start; index < end; index++) {
+					int row = candidates.row(index);
+					if (predicate.test(row)) {
+						rows[found++] = row;
+					}
+				}
+				return Arrays.copyOf(rows, found);
+			}
+			int middle = (start + end) >>> 1;
+			FilterTask second = new FilterTask(predicate, candidates, middle, end);
+			second.fork();
+			int[] first = new FilterTask(predicate, candidates, start, middle).compute();
+			int[] rest = second.join();
+			int[] rows = Arrays.copyOf(first, first.length + rest.length);
+			System.arraycopy(rest, 0, rows, first.length, rest.length);
+			return rows;
+		}
+	}
+
+	/**
+	 * Narrows the rows to test by the session and time range every match
+	 * needs, the predicate still tests those conditions on each row.
+	 */
+	private Candidates candidates(FilterExpression root, PacketTable table) {
+		List<FilterExpression> terms = root instanceof FilterExpression.And
+				? ((FilterExpression.And) root).getOperands() : Arrays.asList(root);
+		double begin = Double.NEGATIVE_INFINITY;
+		double end = Double.POSITIVE_INFINITY;
+		int session = -1;
+		for (FilterExpression term : terms) {
+			if (!(term instanceof FilterExpression.Comparison)) {
+				continue;
+			}
+			FilterExpression.Comparison comparison = (FilterExpression.Comparison) term;
+			FilterOperator operator = comparison.getOperator();
+			double number = comparison.getNumber();
+			if (comparison.getField() == FilterField.SESSION && operator == FilterOperator.EQ) {
+				if (number < 0 || number >= table.getSessionRows().length || number != Math.floor(number)) {
+					return new Candidates(0, 0);
+				}
+				session = (int) number;
+			} else if (comparison.getField() == FilterField.TIME) {
+				if (operator == FilterOperator.GT || operator == FilterOperator.GE || operator == FilterOperator.EQ) {
+					begin = Math.max(begin, number);
+				}
+				if (operator == FilterOperator.LT || operator == FilterOperator.LE || operator == FilterOperator.EQ) {
+					end = Math.min(end, number);
+				}
+			}
+		}
+		if (session >= 0) {
+			return new Candidates(table.getSessionRows()[session]);
+		}
+		if (table.isTimeSorted() && (begin != Double.NEGATIVE_INFINITY || end != Double.POSITIVE_INFINITY)) {
+			double[] times = table.getTimes();
+			return new Candidates(firstAtOrAfter(times, begin), firstAfter(times, end));
+		}
+		return new Candidates(0, table.getRowCount());
+	}
+
+	private static int firstAtOrAfter(double[] times, double time) {
+		int low = 0;
+		int high = times.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (times[middle] < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static int firstAfter(double[] times, double time) {
+		int low = 0;
+		int high = times.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (times[middle] <= time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private RowPredicate bind(FilterExpression expression, PacketTable table) {
+		if (expression instanceof FilterExpression.And) {
+			return new RowPredicate.And(bindAll(((FilterExpression.And) expression).getOperands(), table));
+		} else if (expression instanceof FilterExpression.Or) {
+			return new RowPredicate.Or(bindAll(((FilterExpression.Or) expression).getOperands(), table));
+		} else if (expression instanceof FilterExpression.Not) {
+			return new RowPredicate.Not(bind(((FilterExpression.Not) expression).getOperand(), table));
+		} else if (expression instanceof FilterExpression.Presence) {
+			return bindPresence(((FilterExpression.Presence) expression).getField(), table);
+		}
+		return bindComparison((FilterExpression.Comparison) expression, table);
+	}
+
+	private RowPredicate[] bindAll(List<FilterExpression> expressions, PacketTable table) {
+		RowPredicate[] predicates = new RowPredicate[expressions.size()];
+		for (int idx = 0; idx < predicates.length; idx++) {
+			predicates[idx] = bind(expressions.get(idx), table);
+		}
+		return predicates;
+	}
+
+	private RowPredicate bindPresence(FilterField field, PacketTable table) {
+		byte[] protocols = table.getProtocols();
+		switch (field) {
+		case IP:
+			return new RowPredicate.Protocol(protocols, PacketTable.PROTOCOL_IPV4);
+		case IPV6:
+			return new RowPredicate.Protocol(protocols, PacketTable.PROTOCOL_IPV6);
+		case TCP:
+		case TCP_PORT:
+		case TCP_SRCPORT:
+		case TCP_DSTPORT:
+		case TCP_FLAGS:
+			return new RowPredicate.Protocol(protocols, PacketTable.PROTOCOL_TCP);
+		case UDP:
+		case UDP_PORT:
+		case UDP_SRCPORT:
+		case UDP_DSTPORT:
+			return new RowPredicate.Protocol(protocols, PacketTable.PROTOCOL_UDP);
+		case HTTP:
+			return new RowPredicate.Protocol(protocols, PacketTable.PROTOCOL_HTTP);
+		case IP_ADDR:
+		case IP_SRC:
+		case IP_DST:
+			return new RowPredicate.Protocol(protocols, PacketTable.PROTOCOL_IPV4 | PacketTable.PROTOCOL_IPV6);
+		case TCP_FLAGS_FIN:
+		case TCP_FLAGS_SYN:
+		case TCP_FLAGS_RST:
+		case TCP_FLAGS_PSH:
+		case TCP_FLAGS_ACK:
+		case TCP_FLAGS_URG:
+			return new RowPredicate.Flag(table.getTcpFlags(), flagMask(field), true);
+		case HTTP_HOST:
+			return new RowPredicate.IntColumn(table.getHttpHosts(), protocols, 0, FilterOperator.GE, 0);
+		case HTTP_STATUS:
+			return new RowPredicate.IntColumn(table.getHttpStatus(), protocols, 0, FilterOperator.GE, 0);
+		case APP:
+			return new RowPredicate.IntColumn(table.getApps(), protocols, 0, FilterOperator.GE, 0);
+		case SESSION:
+			return new RowPredicate.IntColumn(table.getSessionColumn(), protocols, 0, FilterOperator.GE, 0);
+		default:
+			// size and time, every packet has them
+			return new RowPredicate.Not(RowPredicate.NONE);
+		}
+	}
+
+	private RowPredicate bindComparison(FilterExpression.Comparison comparison, PacketTable table) {
+		FilterField field = comparison.getField();
+		FilterOperator operator = comparison.getOperator();
+		double number = comparison.getNumber();
+		byte[] protocols = table.getProtocols();
+		switch (field) {
+		case IP_ADDR:
+			return new RowPredicate.DictionaryPair(table.getSourceAddresses(), table.getDestinationAddresses(),
+					addressMatches(comparison, table.getAddresses()), operator == FilterOperator.NE);
+		case IP_SRC:
+			return new RowPredicate.Dictionary(table.getSourceAddresses(), addressMatches(comparison, table.getAddresses()));
+		case IP_DST:
+			return new RowPredicate.Dictionary(table.getDestinationAddresses(),
+					addressMatches(comparison, table.getAddresses()));
+		case TCP_PORT:
+			return new RowPredicate.IntColumnPair(table.getSourcePorts(), table.getDestinationPorts(), protocols,
+					PacketTable.PROTOCOL_TCP, operator, number);
+		case TCP_SRCPORT:
+			return new RowPredicate.IntColumn(table.getSourcePorts(), protocols, PacketTable.PROTOCOL_TCP, operator, number);
+		case TCP_DSTPORT:
+			return new RowPredicate.IntColumn(table.getDestinationPorts(), protocols, PacketTable.PROTOCOL_TCP, operator,
+					number);
+		case UDP_PORT:
+			return new RowPredicate.IntColumnPair(table.getSourcePorts(), table.getDestinationPorts(), protocols,
+					PacketTable.PROTOCOL_UDP, operator, number);
+		case UDP_SRCPORT:
+			return new RowPredicate.IntColumn(table.getSourcePorts(), protocols, PacketTable.PROTOCOL_UDP, operator, number);
+		case UDP_DSTPORT:
+			return new RowPredicate.IntColumn(table.getDestinationPorts(), protocols, PacketTable.PROTOCOL_UDP, operator,
+					number);
+		case TCP_FLAGS:
+			return new RowPredicate.IntColumn(table.getTcpFlags(), protocols, 0, operator, number);
+		case TCP_FLAGS_FIN:
+		case TCP_FLAGS_SYN:
+		case TCP_FLAGS_RST:
+		case TCP_FLAGS_PSH:
+		case TCP_FLAGS_ACK:
+		case TCP_FLAGS_URG:
+			boolean set = number == 1;
+			return new RowPredicate.Flag(table.getTcpFlags(), flagMask(field), operator == FilterOperator.EQ ? set : !set);
+		case HTTP_HOST:
+			// host names are not case sensitive
+			return new RowPredicate.Dictionary(table.getHttpHosts(), textMatches(comparison, table.getHostNames(), true));
+		case HTTP_STATUS:
+			return new RowPredicate.IntColumn(table.getHttpStatus(), protocols, 0, operator, number);
+		case APP:
+			return new RowPredicate.Dictionary(table.getApps(), textMatches(comparison, table.getAppNames(), false));
+		case DIR:
+			return new RowPredicate.ByteValue(table.getDirections(), direction(comparison.getDirection()),
+					operator == FilterOperator.EQ);
+		case SIZE:
+			return new RowPredicate.IntColumn(table.getSizes(), protocols, 0, operator, number);
+		case TIME:
+			return new RowPredicate.DoubleColumn(table.getTimes(), operator, number);
+		case SESSION:
+			return new RowPredicate.IntColumn(table.getSessionColumn(), protocols, 0, operator, number);
+		default:
+			throw new IllegalArgumentException(field.getFieldName() + " can not be compared");
+		}
+	}
+
+	private static int flagMask(FilterField field) {
+		switch (field) {
+		case TCP_FLAGS_FIN:
+			return PacketTable.FLAG_FIN;
+		case TCP_FLAGS_SYN:
+			return PacketTable.FLAG_SYN;
+		case TCP_FLAGS_RST:
+			return PacketTable.FLAG_RST;
+		case TCP_FLAGS_PSH:
+			return PacketTable.FLAG_PSH;
+		case TCP_FLAGS_ACK:
+			return PacketTable.FLAG_ACK;
+		default:
+			return PacketTable.FLAG_URG;
+		}
+	}
+
+	private static byte direction(PacketDirection direction) {
+		if (direction == PacketDirection.UPLINK) {
+			return PacketTable.DIRECTION_UP;
+		} else if (direction == PacketDirection.DOWNLINK) {
+			return PacketTable.DIRECTION_DOWN;
+		}
+		return PacketTable.DIRECTION_UNKNOWN;
+	}
+
+	/**
+	 * Which of the distinct addresses match, for != the ones that do not
+	 * equal the operand.
+	 */
+	private static boolean[] addressMatches(FilterExpression.Comparison comparison, List<InetAddress> addresses) {
+		byte[] operand = comparison.getAddress().getAddress();
+		int prefixLength = comparison.getPrefixLength();
+		boolean[] matches = new boolean[addresses.size()];
+		for (int id = 0; id < matches.length; id++) {
+			boolean equal = inPrefix(addresses.get(id).getAddress(), operand, prefixLength);
+			matches[id] = comparison.getOperator() == FilterOperator.NE ? !equal : equal;
+		}
+		return matches;
+	}
+
+	private static boolean inPrefix(byte[] address, byte[] prefix, int prefixLength) {
+		if (address.length != prefix.length) {
+			return false;
+		}
+		int bytes = prefixLength / 8;
+		for (int idx = 0; idx < bytes; idx++) {
+			if (address[idx] != prefix[idx]) {
+				return false;
+			}
+		}
+		int bits = prefixLength % 8;
+		if (bits == 0) {
+			return true;
+		}
+		int mask = 0xff << (8 - bits) & 0xff;
+		return (address[bytes] & mask) == (prefix[bytes] & mask);
+	}
+
+	private static boolean[] textMatches(FilterExpression.Comparison comparison, List<String> values, boolean ignoreCase) {
+		String operand = ignoreCase ? comparison.getValue().toLowerCase(Locale.US) : comparison.getValue();
+		boolean[] matches = new boolean[values.size()];
+		for (int id = 0; id < matches.length; id++) {
+			String value = ignoreCase ? values.get(id).toLowerCase(Locale.US) : values.get(id);
+			switch (comparison.getOperator()) {
+			case CONTAINS:
+				matches[id] = value.contains(operand);
+				break;
+			case NE:
+				matches[id] = !value.equals(operand);
+				break;
+			default:
+				matches[id] = value.equals(operand);
+				break;
+			}
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.impl;
+
+import com.att.aro.core.displayfilter.pojo.FilterOperator;
+
+/**
+ * A display filter bound to the columns of one PacketTable. Predicates only
+ * read the columns, so one predicate can test rows on several threads.
+ */
+abstract class RowPredicate {
+
+	abstract boolean test(int row);
+
+	static final RowPredicate NONE = new RowPredicate() {
+		@Override
+		boolean test(int row) {
+			return false;
+		}
+	};
+
+	static class And extends RowPredicate {
+		private final RowPredicate[] operands;
+
+		And(RowPredicate[] operands) {
+			this.operands = operands;
+		}
+
+		@Override
+		boolean test(int row) {
+			for (RowPredicate operand : operands) {
+				if (!operand.test(row)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	static class Or extends RowPredicate {
+		private final RowPredicate[] operands;
+
+		Or(RowPredicate[] operands) {
+			this.operands = operands;
+		}
+
+		@Override
+		boolean test(int row) {
+			for (RowPredicate operand : operands) {
+				if (operand.test(row)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	static class Not extends RowPredicate {
+		private final RowPredicate operand;
+
+		Not(RowPredicate operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		boolean test(int row) {
+			return !operand.test(row);
+		}
+	}
+
+	/**
+	 * Any of the protocol bits is set.
+	 */
+	static class Protocol extends RowPredicate {
+		private final byte[] protocols;
+		private final int mask;
+
+		Protocol(byte[] protocols, int mask) {
+			this.protocols = protocols;
+			this.mask = mask;
+		}
+
+		@Override
+		boolean test(int row) {
+			return (protocols[row] & mask) != 0;
+		}
+	}
+
+	/**
+	 * A TCP flag is set, or not set when expected is false. Only TCP packets
+	 * have flags.
+	 */
+	static class Flag extends RowPredicate {
+		private final int[] flags;
+		private final int mask;
+		private final boolean expected;
+
+		Flag(int[] flags, int mask, boolean expected) {
+			this.flags = flags;
+			this.mask = mask;
+			this.expected = expected;
+		}
+
+		@Override
+		boolean test(int row) {
+			return flags[row] >= 0 && ((flags[row] & mask) != 0) == expected;
+		}
+	}
+
+	/**
+	 * Number column with -1 for a missing value. A protocol mask other than 0
+	 * limits the column to packets of that protocol, ports are kept for TCP
+	 * and UDP in the same column.
+	 */
+	static class IntColumn extends RowPredicate {
+		private final int[] column;
+		private final byte[] protocols;
+		private final int protocolMask;
+		private final FilterOperator operator;
+		private final double operand;
+
+		IntColumn(int[] column, byte[] protocols, int protocolMask, FilterOperator operator, double operand) {
+			this.column = column;
+			this.protocols = protocols;
+			this.protocolMask = protocolMask;
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		@Override
+		boolean test(int row) {
+			if (column[row] < 0 || (protocolMask != 0 && (protocols[row] & protocolMask) == 0)) {
+				return false;
+			}
+			return operator.test(column[row], operand);
+		}
+	}
+
+	/**
+	 * Two number columns of one field, such as the source and destination
+	 * port of tcp.port.
+	 */
+	static class IntColumnPair extends RowPredicate {
+		private final int[] first;
+		private final int[] second;
+		private final byte[] protocols;
+		private final int protocolMask;
+		private final FilterOperator operator;
+		private final double operand;
+
+		IntColumnPair(int[] first, int[] second, byte[] protocols, int protocolMask, FilterOperator operator,
+				double operand) {
+			this.first = first;
+			this.second = second;
+			this.protocols = protocols;
+			this.protocolMask = protocolMask;
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		@Override
+		boolean test(int row) {
+			if (first[row] < 0 || (protocols[row] & protocolMask) == 0) {
+				return false;
+			}
+			if (operator == FilterOperator.NE) {
+				return first[row] != operand && second[row] != operand;
+			}
+			return operator.test(first[row], operand) || operator.test(second[row], operand);
+		}
+	}
+
+	static class DoubleColumn extends RowPredicate {
+		private final double[] column;
+		private final FilterOperator operator;
+		private final double operand;
+
+		DoubleColumn(double[] column, FilterOperator operator, double operand) {
+			this.column = column;
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		@Override
+		boolean test(int row) {
+			return operator.test(column[row], operand);
+		}
+	}
+
+	static class ByteValue extends RowPredicate {
+		private final byte[] column;
+		private final byte value;
+		private final boolean equal;
+
+		ByteValue(byte[] column, byte value, boolean equal) {
+			this.column = column;
+			this.value = value;
+			this.equal = equal;
+		}
+
+		@Override
+		boolean test(int row) {
+			return (column[row] == value) == equal;
+		}
+	}
+
+	/**
+	 * Column of indexes into a list of distinct values, the values that match
+	 * were worked out once when the filter was bound. -1 is a missing value.
+	 */
+	static class Dictionary extends RowPredicate {
+		private final int[] column;
+		private final boolean[] matches;
+
+		Dictionary(int[] column, boolean[] matches) {
+			this.column = column;
+			this.matches = matches;
+		}
+
+		@Override
+		boolean test(int row) {
+			return column[row] >= 0 && matches[column[row]];
+		}
+	}
+
+	/**
+	 * Two dictionary columns of one field, ip.addr. With all set a row
+	 * matches when both values match, as needed for !=.
+	 */
+	static class DictionaryPair extends RowPredicate {
+		private final int[] first;
+		private final int[] second;
+		private final boolean[] matches;
+		private final boolean all;
+
+		DictionaryPair(int[] first, int[] second, boolean[] matches, boolean all) {
+			this.first = first;
+			this.second = second;
+			this.matches = matches;
+			this.all = all;
+		}
+
+		@Override
+		boolean test(int row) {
+			if (first[row] < 0 || second[row] < 0) {
+				return false;
+			}
+			boolean firstMatch = matches[first[row]];
+			boolean secondMatch = matches[second[row]];
+			return all ? firstMatch && secondMatch : firstMatch || secondMatch;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.pojo;
+
+import java.io.Serializable;
+
+/**
+ * A compiled display filter expression, such as
+ * <pre>
+ * http.host contains "cdn" &amp;&amp; (http.status &gt;= 400 || tcp.flags.reset)
+ * </pre>
+ * Compiled once by IDisplayFilterService.compile(...), then applied to any
+ * number of packet tables.
+ */
+public class DisplayFilter implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String expression;
+	private final FilterExpression root;
+
+	public DisplayFilter(String expression, FilterExpression root) {
+		this.expression = expression;
+		this.root = root;
+	}
+
+	/**
+	 * @return the expression as the user wrote it
+	 */
+	public String getExpression() {
+		return expression;
+	}
+
+	public FilterExpression getRoot() {
+		return root;
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+}
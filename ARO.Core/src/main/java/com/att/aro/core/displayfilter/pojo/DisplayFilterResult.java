@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.pojo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+
+/**
+ * Rows of a PacketTable a display filter matched. A session matches when any
+ * of its packets matches.
+ */
+public class DisplayFilterResult {
+
+	private final DisplayFilter filter;
+	private final PacketTable table;
+	private final int[] rows;
+	private final BitSet matchedRows;
+	private final BitSet matchedSessions;
+
+	/**
+	 * @param rows
+	 *            matching rows, ascending
+	 */
+	public DisplayFilterResult(DisplayFilter filter, PacketTable table, int[] rows) {
+		this.filter = filter;
+		this.table = table;
+		this.rows = rows;
+		matchedRows = new BitSet(table.getRowCount());
+		matchedSessions = new BitSet(table.getSessions().size());
+		int[] sessionColumn = table.getSessionColumn();
+		for (int row : rows) {
+			matchedRows.set(row);
+			if (sessionColumn[row] >= 0) {
+				matchedSessions.set(sessionColumn[row]);
+			}
+		}
+	}
+
+	public DisplayFilter getFilter() {
+		return filter;
+	}
+
+	public PacketTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @return matching rows, ascending
+	 */
+	public int[] getRows() {
+		return rows;
+	}
+
+	public int getPacketCount() {
+		return rows.length;
+	}
+
+	/**
+	 * @return matching packets in table order
+	 */
+	public List<PacketInfo> getPackets() {
+		List<PacketInfo> packets = new ArrayList<PacketInfo>(rows.length);
+		for (int row : rows) {
+			packets.add(table.getPackets().get(row));
+		}
+		return packets;
+	}
+
+	/**
+	 * @return sessions with a matching packet, in session list order
+	 */
+	public List<Session> getSessions() {
+		List<Session> sessions = new ArrayList<Session>(matchedSessions.cardinality());
+		for (int index = matchedSessions.nextSetBit(0); index >= 0; index = matchedSessions.nextSetBit(index + 1)) {
+			sessions.add(table.getSessions().get(index));
+		}
+		return sessions;
+	}
+
+	/**
+	 * @return true if the packet is in the table and matched
+	 */
+	public boolean includes(PacketInfo packet) {
+		int row = table.getRow(packet);
+		return row >= 0 && matchedRows.get(row);
+	}
+
+	/**
+	 * @return true if the session is in the table and one of its packets
+	 *         matched
+	 */
+	public boolean includes(Session session) {
+		int index = table.getSessionIndex(session);
+		return index >= 0 && matchedSessions.get(index);
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.pojo;
+
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+
+/**
+ * Node of a compiled display filter. Comparisons on a field a packet does not
+ * have are false, whatever the operator, so "tcp.port != 80" only matches TCP
+ * packets. On fields with two values, ip.addr, tcp.port and udp.port, an
+ * operator matches when either value matches, except != which matches when
+ * neither value is equal.
+ */
+public abstract class FilterExpression implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private FilterExpression() {
+	}
+
+	/**
+	 * Every operand must match, and, &amp;&amp;.
+	 */
+	public static final class And extends FilterExpression {
+		private static final long serialVersionUID = 1L;
+
+		private final List<FilterExpression> operands;
+
+		public And(List<FilterExpression> operands) {
+			this.operands = Collections.unmodifiableList(operands);
+		}
+
+		public List<FilterExpression> getOperands() {
+			return operands;
+		}
+	}
+
+	/**
+	 * Any operand must match, or, ||.
+	 */
+	public static final class Or extends FilterExpression {
+		private static final long serialVersionUID = 1L;
+
+		private final List<FilterExpression> operands;
+
+		public Or(List<FilterExpression> operands) {
+			this.operands = Collections.unmodifiableList(operands);
+		}
+
+		public List<FilterExpression> getOperands() {
+			return operands;
+		}
+	}
+
+	/**
+	 * The operand must not match, not, !.
+	 */
+	public static final class Not extends FilterExpression {
+		private static final long serialVersionUID = 1L;
+
+		private final FilterExpression operand;
+
+		public Not(FilterExpression operand) {
+			this.operand = operand;
+		}
+
+		public FilterExpression getOperand() {
+			return operand;
+		}
+	}
+
+	/**
+	 * A field on its own, matches packets that have the field. A flag field on
+	 * its own matches packets that have the flag set.
+	 */
+	public static final class Presence extends FilterExpression {
+		private static final long serialVersionUID = 1L;
+
+		private final FilterField field;
+
+		public Presence(FilterField field) {
+			this.field = field;
+		}
+
+		public FilterField getField() {
+			return field;
+		}
+	}
+
+	/**
+	 * A field compared to a value. The value is kept as written and as parsed
+	 * for the kind of the field, only the parsed form of that kind is set.
+	 */
+	public static final class Comparison extends FilterExpression {
+		private static final long serialVersionUID = 1L;
+
+		private final FilterField field;
+		private final FilterOperator operator;
+		private final String value;
+		private double number;
+		private InetAddress address;
+		// bits of the address that have to match, the whole address if no prefix was given
+		private int prefixLength;
+		private PacketDirection direction;
+
+		public Comparison(FilterField field, FilterOperator operator, String value) {
+			this.field = field;
+			this.operator = operator;
+			this.value = value;
+		}
+
+		public FilterField getField() {
+			return field;
+		}
+
+		public FilterOperator getOperator() {
+			return operator;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public double getNumber() {
+			return number;
+		}
+
+		public void setNumber(double number) {
+			this.number = number;
+		}
+
+		public InetAddress getAddress() {
+			return address;
+		}
+
+		public int getPrefixLength() {
+			return prefixLength;
+		}
+
+		public void setAddress(InetAddress address, int prefixLength) {
+			this.address = address;
+			this.prefixLength = prefixLength;
+		}
+
+		public PacketDirection getDirection() {
+			return direction;
+		}
+
+		public void setDirection(PacketDirection direction) {
+			this.direction = direction;
+		}
+	}
+}
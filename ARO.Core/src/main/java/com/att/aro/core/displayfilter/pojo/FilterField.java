@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.pojo;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fields a display filter can test, named as in Wireshark where Wireshark has
+ * the field. ip.addr, ip.src and ip.dst cover IPv4 and IPv6 addresses, time
+ * is in seconds since the start of the trace and session is the index of the
+ * session in the session list, starting at 0.
+ */
+public enum FilterField {
+	IP("ip", Kind.PROTOCOL),
+	IPV6("ipv6", Kind.PROTOCOL),
+	TCP("tcp", Kind.PROTOCOL),
+	UDP("udp", Kind.PROTOCOL),
+	HTTP("http", Kind.PROTOCOL),
+	IP_ADDR("ip.addr", Kind.ADDRESS),
+	IP_SRC("ip.src", Kind.ADDRESS),
+	IP_DST("ip.dst", Kind.ADDRESS),
+	TCP_PORT("tcp.port", Kind.NUMBER),
+	TCP_SRCPORT("tcp.srcport", Kind.NUMBER),
+	TCP_DSTPORT("tcp.dstport", Kind.NUMBER),
+	UDP_PORT("udp.port", Kind.NUMBER),
+	UDP_SRCPORT("udp.srcport", Kind.NUMBER),
+	UDP_DSTPORT("udp.dstport", Kind.NUMBER),
+	TCP_FLAGS("tcp.flags", Kind.NUMBER),
+	TCP_FLAGS_FIN("tcp.flags.fin", Kind.FLAG),
+	TCP_FLAGS_SYN("tcp.flags.syn", Kind.FLAG),
+	TCP_FLAGS_RST("tcp.flags.reset", Kind.FLAG),
+	TCP_FLAGS_PSH("tcp.flags.push", Kind.FLAG),
+	TCP_FLAGS_ACK("tcp.flags.ack", Kind.FLAG),
+	TCP_FLAGS_URG("tcp.flags.urg", Kind.FLAG),
+	HTTP_HOST("http.host", Kind.STRING),
+	HTTP_STATUS("http.status", Kind.NUMBER),
+	DIR("dir", Kind.DIRECTION),
+	APP("app", Kind.STRING),
+	SIZE("size", Kind.NUMBER),
+	TIME("time", Kind.NUMBER),
+	SESSION("session", Kind.NUMBER);
+
+	/**
+	 * What a field holds, which decides the operators and values it takes.
+	 */
+	public enum Kind {
+		// no value, only tested for being present
+		PROTOCOL,
+		ADDRESS,
+		NUMBER,
+		// 0 or 1, present when set if used without a value
+		FLAG,
+		STRING,
+		// up or down
+		DIRECTION
+	}
+
+	private static final Map<String, FilterField> BY_NAME = new HashMap<String, FilterField>();
+
+	static {
+		for (FilterField field : values()) {
+			BY_NAME.put(field.fieldName, field);
+		}
+	}
+
+	private final String fieldName;
+	private final Kind kind;
+
+	private FilterField(String fieldName, Kind kind) {
+		this.fieldName = fieldName;
+		this.kind = kind;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return the field of that name, ignoring case, null if there is none
+	 */
+	public static FilterField forName(String name) {
+		return BY_NAME.get(name.toLowerCase(Locale.US));
+	}
+}
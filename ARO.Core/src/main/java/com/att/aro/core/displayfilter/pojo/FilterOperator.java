@@ -0,0 +1,82 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.pojo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Comparison operators of a display filter, in symbol and word form.
+ */
+public enum FilterOperator {
+	EQ("==", "eq"),
+	NE("!=", "ne"),
+	GT(">", "gt"),
+	LT("<", "lt"),
+	GE(">=", "ge"),
+	LE("<=", "le"),
+	CONTAINS("contains", "contains");
+
+	private static final Map<String, FilterOperator> BY_TOKEN = new HashMap<String, FilterOperator>();
+
+	static {
+		for (FilterOperator operator : values()) {
+			BY_TOKEN.put(operator.symbol, operator);
+			BY_TOKEN.put(operator.word, operator);
+		}
+	}
+
+	private final String symbol;
+	private final String word;
+
+	private FilterOperator(String symbol, String word) {
+		this.symbol = symbol;
+		this.word = word;
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * @return the operator written as the token, null if it is not one
+	 */
+	public static FilterOperator forToken(String token) {
+		return BY_TOKEN.get(token);
+	}
+
+	/**
+	 * Compares a value of a field against the operand of the filter.
+	 */
+	public boolean test(double value, double operand) {
+		switch (this) {
+		case EQ:
+			return value == operand;
+		case NE:
+			return value != operand;
+		case GT:
+			return value > operand;
+		case LT:
+			return value < operand;
+		case GE:
+			return value >= operand;
+		case LE:
+			return value <= operand;
+		default:
+			return false;
+		}
+	}
+}
@@ -0,0 +1,346 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.pojo;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetreader.pojo.IPPacket;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+import com.att.aro.core.packetreader.pojo.TCPPacket;
+import com.att.aro.core.packetreader.pojo.UDPPacket;
+
+/**
+ * The fields display filters test, read out of a packet list once and kept
+ * as one array per field, a row per packet in list order. Addresses, apps
+ * and hosts are stored as an index into a list of the distinct values, so a
+ * filter compares each distinct value once instead of once per packet.
+ * <p>
+ * Built after an analysis the table knows the session and the HTTP message
+ * of every packet. Built without sessions, as done for AnalysisFilter before
+ * sessions are assembled, the session and http fields are missing on every
+ * packet.
+ * </p>
+ */
+public class PacketTable {
+
+	// bits of the protocols column
+	public static final int PROTOCOL_IPV4 = 0x01;
+	public static final int PROTOCOL_IPV6 = 0x02;
+	public static final int PROTOCOL_TCP = 0x04;
+	public static final int PROTOCOL_UDP = 0x08;
+	public static final int PROTOCOL_HTTP = 0x10;
+
+	// bits of the tcp flags column, as in the TCP header
+	public static final int FLAG_FIN = 0x01;
+	public static final int FLAG_SYN = 0x02;
+	public static final int FLAG_RST = 0x04;
+	public static final int FLAG_PSH = 0x08;
+	public static final int FLAG_ACK = 0x10;
+	public static final int FLAG_URG = 0x20;
+
+	// values of the directions column
+	public static final byte DIRECTION_UNKNOWN = 0;
+	public static final byte DIRECTION_UP = 1;
+	public static final byte DIRECTION_DOWN = 2;
+
+	private final List<PacketInfo> packets;
+	private final List<Session> sessions;
+	private final Map<PacketInfo, Integer> packetRows;
+	private final Map<Session, Integer> sessionIndexes;
+
+	private final double[] times;
+	private final boolean timeSorted;
+	private final int[] sizes;
+	private final byte[] directions;
+	private final byte[] protocols;
+	// -1 where the packet has no such field
+	private final int[] sourcePorts;
+	private final int[] destinationPorts;
+	private final int[] tcpFlags;
+	private final int[] sourceAddresses;
+	private final int[] destinationAddresses;
+	private final int[] apps;
+	private final int[] sessionColumn;
+	private final int[] httpHosts;
+	private final int[] httpStatus;
+
+	private final List<InetAddress> addresses = new ArrayList<InetAddress>();
+	private final List<String> appNames = new ArrayList<String>();
+	private final List<String> hostNames = new ArrayList<String>();
+	// rows of every session, ascending
+	private final int[][] sessionRows;
+
+	/**
+	 * @param packets
+	 *            rows of the table
+	 * @param sessions
+	 *            sessions of the packets, null if not known yet
+	 */
+	public PacketTable(List<PacketInfo> packets, List<Session> sessions) {
+		this.packets = Collections.unmodifiableList(new ArrayList<PacketInfo>(packets));
+		this.sessions = sessions == null ? Collections.<Session>emptyList()
+				: Collections.unmodifiableList(new ArrayList<Session>(sessions));
+		int count = packets.size();
+		packetRows = new IdentityHashMap<PacketInfo, Integer>(count);
+		sessionIndexes = new IdentityHashMap<Session, Integer>(this.sessions.size());
+		times = new double[count];
+		sizes = new int[count];
+		directions = new byte[count];
+		protocols = new byte[count];
+		sourcePorts = new int[count];
+		destinationPorts = new int[count];
+		tcpFlags = new int[count];
+		sourceAddresses = new int[count];
+		destinationAddresses = new int[count];
+		apps = new int[count];
+		sessionColumn = new int[count];
+		httpHosts = new int[count];
+		httpStatus = new int[count];
+		Arrays.fill(sessionColumn, -1);
+		Arrays.fill(httpHosts, -1);
+		Arrays.fill(httpStatus, -1);
+
+		Map<InetAddress, Integer> addressIds = new HashMap<InetAddress, Integer>();
+		Map<String, Integer> appIds = new HashMap<String, Integer>();
+		boolean sorted = true;
+		for (int row = 0; row < count; row++) {
+			PacketInfo packetInfo = this.packets.get(row);
+			packetRows.put(packetInfo, row);
+			times[row] = packetInfo.getTimeStamp();
+			sorted &= row == 0 || times[row - 1] <= times[row];
+			sizes[row] = packetInfo.getLen();
+			directions[row] = direction(packetInfo.getDir());
+			apps[row] = id(packetInfo.getAppName(), appIds, appNames);
+			readPacket(row, packetInfo, addressIds);
+		}
+		timeSorted = sorted;
+
+		sessionRows = new int[this.sessions.size()][];
+		Map<String, Integer> hostIds = new HashMap<String, Integer>();
+		for (int index = 0; index < this.sessions.size(); index++) {
+			Session session = this.sessions.get(index);
+			sessionIndexes.put(session, index);
+			sessionRows[index] = readSession(index, session, hostIds);
+		}
+	}
+
+	private void readPacket(int row, PacketInfo packetInfo, Map<InetAddress, Integer> addressIds) {
+		int protocol = 0;
+		sourcePorts[row] = -1;
+		destinationPorts[row] = -1;
+		tcpFlags[row] = -1;
+		sourceAddresses[row] = -1;
+		destinationAddresses[row] = -1;
+		if (packetInfo.getPacket() instanceof IPPacket) {
+			IPPacket ipPacket = (IPPacket) packetInfo.getPacket();
+			InetAddress source = ipPacket.getSourceIPAddress();
+			if (source instanceof Inet4Address) {
+				protocol |= PROTOCOL_IPV4;
+			} else if (source instanceof Inet6Address) {
+				protocol |= PROTOCOL_IPV6;
+			}
+			sourceAddresses[row] = id(source, addressIds, addresses);
+			destinationAddresses[row] = id(ipPacket.getDestinationIPAddress(), addressIds, addresses);
+		}
+		if (packetInfo.getPacket() instanceof TCPPacket) {
+			TCPPacket tcpPacket = (TCPPacket) packetInfo.getPacket();
+			protocol |= PROTOCOL_TCP;
+			sourcePorts[row] = tcpPacket.getSourcePort();
+			destinationPorts[row] = tcpPacket.getDestinationPort();
+			tcpFlags[row] = (tcpPacket.isFIN() ? FLAG_FIN : 0) | (tcpPacket.isSYN() ? FLAG_SYN : 0)
+					| (tcpPacket.isRST() ? FLAG_RST : 0) | (tcpPacket.isPSH() ? FLAG_PSH : 0)
+					| (tcpPacket.isACK() ? FLAG_ACK : 0) | (tcpPacket.isURG() ? FLAG_URG : 0);
+		} else if (packetInfo.getPacket() instanceof UDPPacket) {
+			UDPPacket udpPacket = (UDPPacket) packetInfo.getPacket();
+			protocol |= PROTOCOL_UDP;
+			sourcePorts[row] = udpPacket.getSourcePort();
+			destinationPorts[row] = udpPacket.getDestinationPort();
+		}
+		protocols[row] = (byte) protocol;
+	}
+
+	private int[] readSession(int index, Session session, Map<String, Integer> hostIds) {
+		List<PacketInfo> sessionPackets = session.isUDP() ? session.getUDPPackets() : session.getPackets();
+		int[] rows = new int[sessionPackets == null ? 0 : sessionPackets.size()];
+		int found = 0;
+		if (sessionPackets != null) {
+			for (PacketInfo packetInfo : sessionPackets) {
+				Integer row = packetRows.get(packetInfo);
+				if (row != null) {
+					sessionColumn[row] = index;
+					rows[found++] = row;
+				}
+			}
+		}
+		rows = Arrays.copyOf(rows, found);
+		Arrays.sort(rows);
+
+		if (session.getRequestResponseInfo() != null) {
+			for (HttpRequestResponseInfo info : session.getRequestResponseInfo()) {
+				Integer row = info.getFirstDataPacket() == null ? null : packetRows.get(info.getFirstDataPacket());
+				if (row == null) {
+					continue;
+				}
+				protocols[row] |= PROTOCOL_HTTP;
+				if (info.getDirection() == HttpDirection.REQUEST && info.getHostName() != null) {
+					httpHosts[row] = id(info.getHostName(), hostIds, hostNames);
+				} else if (info.getDirection() == HttpDirection.RESPONSE && info.getStatusCode() > 0) {
+					httpStatus[row] = info.getStatusCode();
+				}
+			}
+		}
+		return rows;
+	}
+
+	private static <T> int id(T value, Map<T, Integer> ids, List<T> values) {
+		if (value == null) {
+			return -1;
+		}
+		Integer id = ids.get(value);
+		if (id == null) {
+			id = values.size();
+			ids.put(value, id);
+			values.add(value);
+		}
+		return id;
+	}
+
+	private static byte direction(PacketDirection direction) {
+		if (direction == PacketDirection.UPLINK) {
+			return DIRECTION_UP;
+		} else if (direction == PacketDirection.DOWNLINK) {
+			return DIRECTION_DOWN;
+		}
+		return DIRECTION_UNKNOWN;
+	}
+
+	public int getRowCount() {
+		return packets.size();
+	}
+
+	public List<PacketInfo> getPackets() {
+		return packets;
+	}
+
+	public List<Session> getSessions() {
+		return sessions;
+	}
+
+	/**
+	 * @return row of the packet, -1 if it is not in the table
+	 */
+	public int getRow(PacketInfo packet) {
+		Integer row = packetRows.get(packet);
+		return row == null ? -1 : row;
+	}
+
+	/**
+	 * @return index of the session, -1 if it is not in the table
+	 */
+	public int getSessionIndex(Session session) {
+		Integer index = sessionIndexes.get(session);
+		return index == null ? -1 : index;
+	}
+
+	public double[] getTimes() {
+		return times;
+	}
+
+	/**
+	 * @return true if the rows are in time order, then a time range is found
+	 *         by binary search
+	 */
+	public boolean isTimeSorted() {
+		return timeSorted;
+	}
+
+	public int[] getSizes() {
+		return sizes;
+	}
+
+	public byte[] getDirections() {
+		return directions;
+	}
+
+	public byte[] getProtocols() {
+		return protocols;
+	}
+
+	public int[] getSourcePorts() {
+		return sourcePorts;
+	}
+
+	public int[] getDestinationPorts() {
+		return destinationPorts;
+	}
+
+	public int[] getTcpFlags() {
+		return tcpFlags;
+	}
+
+	public int[] getSourceAddresses() {
+		return sourceAddresses;
+	}
+
+	public int[] getDestinationAddresses() {
+		return destinationAddresses;
+	}
+
+	public List<InetAddress> getAddresses() {
+		return Collections.unmodifiableList(addresses);
+	}
+
+	public int[] getApps() {
+		return apps;
+	}
+
+	public List<String> getAppNames() {
+		return Collections.unmodifiableList(appNames);
+	}
+
+	public int[] getSessionColumn() {
+		return sessionColumn;
+	}
+
+	public int[][] getSessionRows() {
+		return sessionRows;
+	}
+
+	public int[] getHttpHosts() {
+		return httpHosts;
+	}
+
+	public List<String> getHostNames() {
+		return Collections.unmodifiableList(hostNames);
+	}
+
+	public int[] getHttpStatus() {
+		return httpStatus;
+	}
+}
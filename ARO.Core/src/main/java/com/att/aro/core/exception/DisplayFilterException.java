@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.exception;
+
+/**
+ * A display filter expression that does not compile. The position points at
+ * the character of the expression the problem was found at.
+ */
+public class DisplayFilterException extends IllegalArgumentException {
+	private static final long serialVersionUID = 1L;
+
+	private final int position;
+
+	public DisplayFilterException(String message, int position) {
+		super(message + " at position " + position);
+		this.position = position;
+	}
+
+	/**
+	 * @return 0 based index into the expression
+	 */
+	public int getPosition() {
+		return position;
+	}
+}
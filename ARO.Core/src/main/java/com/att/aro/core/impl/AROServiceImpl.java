@@ -19,7 +19,9 @@ package com.att.aro.core.impl;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -30,14 +32,22 @@ import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BestPracticeType;
 import com.att.aro.core.configuration.pojo.Profile;
 import com.att.aro.core.fileio.IFileManager;
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.IStopwatch;
+import com.att.aro.core.metrics.MetricName;
+import com.att.aro.core.metrics.impl.MetricsRegistryImpl;
 import com.att.aro.core.packetanalysis.ICacheAnalysis;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
 import com.att.aro.core.packetanalysis.IPacketAnalyzer;
 import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
+import com.att.aro.core.packetanalysis.pojo.ImageTrial;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.core.pojo.ErrorCodeRegistry;
 import com.att.aro.core.pojo.VersionInfo;
+import com.att.aro.core.report.IHtmlReport;
 import com.att.aro.core.report.IReport;
+import com.att.aro.core.report.pojo.HtmlReportOptions;
 
 /**
  * This class provides access to ARO.Core functionality for analyzing and
@@ -69,6 +79,7 @@ public class AROServiceImpl implements IAROService {
 
 	private IPacketAnalyzer packetanalyzer;
 	private ICacheAnalysis cacheAnalyzer;
+	private IImageAnalysis imageAnalyzer;
 
 	@Autowired
 	private transient VersionInfo info;
@@ -76,6 +87,9 @@ public class AROServiceImpl implements IAROService {
 	@Autowired
 	private IFileManager filemanager;
 
+	@Autowired
+	private IMetricsRegistry metrics = new MetricsRegistryImpl();
+
 	private IReport jsonreport;
 
 	@Autowired
@@ -84,11 +98,11 @@ public class AROServiceImpl implements IAROService {
 		this.jsonreport = jsonreport;
 	}
 
-	private IReport htmlreport;
+	private IHtmlReport htmlreport;
 
 	@Autowired
 	@Qualifier("htmlgenerate")
-	public void setHtmlreport(IReport htmlreport) {
+	public void setHtmlreport(IHtmlReport htmlreport) {
 		this.htmlreport = htmlreport;
 	}
 
@@ -144,6 +158,11 @@ public class AROServiceImpl implements IAROService {
 		this.cacheAnalyzer = cacheanalysis;
 	}
 
+	@Autowired
+	public void setImageAnalysis(IImageAnalysis imageanalysis) {
+		this.imageAnalyzer = imageanalysis;
+	}
+
 	@Autowired
 	@Qualifier("periodicTransfer")
 	public void setPeriodicTransfer(IBestPractice periodicTransfer) {
@@ -446,6 +465,8 @@ public class AROServiceImpl implements IAROService {
 	@Override
 	public AROTraceData analyzeFile(List<BestPracticeType> requests, String traceFile, Profile profile, AnalysisFilter filter) throws IOException {
 		AROTraceData data = new AROTraceData();
+		metrics.reset();
+		IStopwatch analysis = metrics.start(MetricName.ANALYSIS);
 		PacketAnalyzerResult result = packetanalyzer.analyzeTraceFile(traceFile, profile, filter);
 		if (result == null) {
 			//TODO: define error code, description etc.
@@ -462,6 +483,8 @@ public class AROServiceImpl implements IAROService {
 				data.setSuccess(true);
 			}
 		}
+		analysis.stop();
+		data.setMetrics(metrics.report());
 		return data;
 	}
 
@@ -509,6 +532,8 @@ public class AROServiceImpl implements IAROService {
 	@Override
 	public AROTraceData analyzeDirectory(List<BestPracticeType> requests, String traceDirectory, Profile profile, AnalysisFilter filter) throws IOException {
 		AROTraceData data = new AROTraceData();
+		metrics.reset();
+		IStopwatch analysis = metrics.start(MetricName.ANALYSIS);
 		PacketAnalyzerResult result = null;
 		try {
 			result = packetanalyzer.analyzeTraceDirectory(traceDirectory, profile, filter);
@@ -534,6 +559,8 @@ public class AROServiceImpl implements IAROService {
 				data.setSuccess(true);
 			}
 		}
+		analysis.stop();
+		data.setMetrics(metrics.report());
 		return data;
 	}
 
@@ -555,6 +582,7 @@ public class AROServiceImpl implements IAROService {
 		}
 		List<AbstractBestPracticeResult> resultlist = new ArrayList<AbstractBestPracticeResult>();
 		List<IBestPractice> workers = new ArrayList<IBestPractice>();
+		Set<ImageTrial> imageTrials = EnumSet.noneOf(ImageTrial.class);
 
 		for (BestPracticeType type : requests) {
 			switch (type) {
@@ -616,12 +644,15 @@ public class AROServiceImpl implements IAROService {
 				workers.add(imageSize);
 				break;
 			case IMAGE_MDATA:
+				imageTrials.add(ImageTrial.METADATA);
 				workers.add(imageMetadata);
 				break;
 			case IMAGE_CMPRS:
+				imageTrials.add(ImageTrial.COMPRESSION);
 				workers.add(imageCompression);
 				break;
 			case IMAGE_FORMAT:
+				imageTrials.add(ImageTrial.FORMAT);
 				workers.add(imageFormat);
 				break;
 			case MINIFICATION:
@@ -687,8 +718,18 @@ public class AROServiceImpl implements IAROService {
 				break;
 			}
 		}
+		if (!imageTrials.isEmpty()) {
+			// one pass over the images for all of the image best practices
+			IStopwatch images = metrics.start(MetricName.IMAGES);
+			imageAnalyzer.analyze(result, imageTrials);
+			images.stop();
+		}
 		for (IBestPractice worker : workers) {
+			long start = System.nanoTime();
 			AbstractBestPracticeResult testresult = worker.runTest(result);
+			if (metrics.isEnabled() && testresult != null) {
+				metrics.addTime(MetricName.BEST_PRACTICE + testresult.getBestPracticeType(), System.nanoTime() - start);
+			}
 			resultlist.add(testresult);
 		}
 		return resultlist;
@@ -702,7 +743,9 @@ public class AROServiceImpl implements IAROService {
 	 */
 	private void createCacheAnalysis(PacketAnalyzerResult result) {
 		if (result.getCacheAnalysis() == null) {
-			result.setCacheAnalysis(cacheAnalyzer.analyze(result.getSessionlist()));
+			IStopwatch cache = metrics.start(MetricName.CACHE);
+			result.setCacheAnalysis(cacheAnalyzer.analyze(result.getRequestResponseIndex()));
+			cache.stop();
 		}
 	}
 
@@ -757,6 +800,24 @@ public class AROServiceImpl implements IAROService {
 		return htmlreport.reportGenerator(resultFilePath, results);
 	}
 
+	/**
+	 * Generate Packet Analysis Report in HTML format with the optional session
+	 * and request tables
+	 * 
+	 * @param resultFilePath
+	 *            the path for the output report
+	 * @param results
+	 *            the AROTraceData path
+	 * @param options
+	 *            tables to add and their page size
+	 * @return true if report generated, false if AROTraceData is null or failed
+	 *         to create/write output file
+	 */
+	@Override
+	public boolean getHtmlReport(String resultFilePath, AROTraceData results, HtmlReportOptions options) {
+		return htmlreport.reportGenerator(resultFilePath, results, options);
+	}
+
 	/**
 	 * Generate Packet Analysis Report in JSON format
 	 * 
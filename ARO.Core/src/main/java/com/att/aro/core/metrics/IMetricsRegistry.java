@@ -0,0 +1,83 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics;
+
+import com.att.aro.core.metrics.pojo.MetricsReport;
+
+/**
+ * Timers, counters and histograms of the analysis pipeline, looked up by
+ * name, see MetricName for the names the pipeline uses.
+ * <p>
+ * Disabled by default. While disabled every call returns right away without
+ * recording or allocating anything, so stages can be measured unconditionally.
+ * Per packet code should still test isEnabled() before measuring.
+ * </p>
+ */
+public interface IMetricsRegistry {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Drops everything recorded so far, called when an analysis starts. A
+	 * stopwatch started before the reset adds to the dropped timer.
+	 */
+	void reset();
+
+	/**
+	 * Starts timing one run of a stage. Stop the returned stopwatch when the
+	 * stage is done, on the same thread, to add the run to the timer.
+	 * 
+	 * @param timer
+	 *            name of the timer
+	 * @return stopwatch that is running, or one that does nothing when
+	 *         disabled
+	 */
+	IStopwatch start(String timer);
+
+	/**
+	 * Adds one run of a stage timed by the caller. Cheaper than start(...) for
+	 * code that runs once per packet, allocated bytes are not measured.
+	 * 
+	 * @param timer
+	 *            name of the timer
+	 * @param nanos
+	 *            time the run took
+	 */
+	void addTime(String timer, long nanos);
+
+	/**
+	 * @param counter
+	 *            name of the counter
+	 * @param delta
+	 *            added to the counter
+	 */
+	void increment(String counter, long delta);
+
+	/**
+	 * @param histogram
+	 *            name of the histogram
+	 * @param value
+	 *            a value of 0 or more, negative values count as 0
+	 */
+	void record(String histogram, long value);
+
+	/**
+	 * @return what was recorded since the last reset, null when disabled
+	 */
+	MetricsReport report();
+}
@@ -0,0 +1,30 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics;
+
+/**
+ * One running measurement of a stage, from IMetricsRegistry.start(...).
+ */
+public interface IStopwatch {
+
+	/**
+	 * Adds the time and the bytes allocated since the start to the timer. Only
+	 * the first call counts.
+	 * 
+	 * @return nanoseconds since the start, 0 if the registry was disabled
+	 */
+	long stop();
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics;
+
+/**
+ * Names of the timers, counters and histograms the analysis pipeline records.
+ * Timers nest, the time of http.parse is also part of session.assembly and
+ * every timer is part of analysis.
+ */
+public final class MetricName {
+
+	// timers
+	public static final String ANALYSIS = "analysis";
+	public static final String TRACE_READ = "trace.read";
+	public static final String PCAP_READ = "pcap.read";
+	public static final String PACKET_DECODE = "packet.decode";
+	public static final String SESSION_ASSEMBLY = "session.assembly";
+	public static final String HTTP_PARSE = "http.parse";
+	public static final String STATISTICS = "statistics";
+	public static final String RRC = "rrc";
+	public static final String ENERGY = "energy";
+	public static final String BURSTS = "bursts";
+	public static final String VIDEO = "video";
+	public static final String CACHE = "cache";
+	public static final String IMAGES = "images";
+	// followed by the BestPracticeType
+	public static final String BEST_PRACTICE = "bestpractice.";
+
+	// counters
+	public static final String PACKETS = "packets";
+	public static final String PACKET_BYTES = "packet.bytes";
+	public static final String SESSIONS = "sessions";
+
+	// histograms
+	public static final String PACKET_SIZE = "packet.size";
+	public static final String SESSION_PACKETS = "session.packets";
+
+	private MetricName() {
+	}
+}
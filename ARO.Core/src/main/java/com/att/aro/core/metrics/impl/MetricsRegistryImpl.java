@@ -0,0 +1,295 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.IStopwatch;
+import com.att.aro.core.metrics.MetricName;
+import com.att.aro.core.metrics.pojo.HistogramMetric;
+import com.att.aro.core.metrics.pojo.MetricsReport;
+import com.att.aro.core.metrics.pojo.TimerMetric;
+
+/**
+ * Keeps the metrics in memory until the next reset. Beans that are built
+ * without Spring start with a registry of their own, which stays disabled.
+ */
+public class MetricsRegistryImpl implements IMetricsRegistry {
+
+	private static final double NANOS_PER_MILLI = 1000000.0;
+
+	private static final IStopwatch STOPPED = new IStopwatch() {
+		@Override
+		public long stop() {
+			return 0;
+		}
+	};
+
+	// null when the JVM can not tell the bytes a thread allocated
+	private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+	private volatile boolean enabled;
+
+	private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+	private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+	private final AtomicInteger timerSequence = new AtomicInteger();
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) bean;
+				if (allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled()) {
+					return allocation;
+				}
+			}
+		} catch (LinkageError error) {
+			// not a HotSpot JVM
+		}
+		return null;
+	}
+
+	private static long allocatedBytes() {
+		return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void reset() {
+		timers.clear();
+		counters.clear();
+		histograms.clear();
+	}
+
+	@Override
+	public IStopwatch start(String timer) {
+		if (!enabled) {
+			return STOPPED;
+		}
+		// the timer is added now so timers are reported in the order they started
+		return new Stopwatch(getTimer(timer), allocatedBytes());
+	}
+
+	@Override
+	public void addTime(String timer, long nanos) {
+		if (enabled) {
+			getTimer(timer).add(nanos, -1);
+		}
+	}
+
+	@Override
+	public void increment(String counter, long delta) {
+		if (!enabled) {
+			return;
+		}
+		AtomicLong value = counters.get(counter);
+		if (value == null) {
+			AtomicLong added = new AtomicLong();
+			value = counters.putIfAbsent(counter, added);
+			if (value == null) {
+				value = added;
+			}
+		}
+		value.addAndGet(delta);
+	}
+
+	@Override
+	public void record(String histogram, long value) {
+		if (!enabled) {
+			return;
+		}
+		Histogram values = histograms.get(histogram);
+		if (values == null) {
+			Histogram added = new Histogram();
+			values = histograms.putIfAbsent(histogram, added);
+			if (values == null) {
+				values = added;
+			}
+		}
+		values.add(Math.max(0, value));
+	}
+
+	private Timer getTimer(String name) {
+		Timer timer = timers.get(name);
+		if (timer == null) {
+			Timer added = new Timer(timerSequence.incrementAndGet());
+			timer = timers.putIfAbsent(name, added);
+			if (timer == null) {
+				timer = added;
+			}
+		}
+		return timer;
+	}
+
+	@Override
+	public MetricsReport report() {
+		if (!enabled) {
+			return null;
+		}
+		List<Map.Entry<String, Timer>> timerEntries = new ArrayList<Map.Entry<String, Timer>>(timers.entrySet());
+		Collections.sort(timerEntries, new Comparator<Map.Entry<String, Timer>>() {
+			@Override
+			public int compare(Map.Entry<String, Timer> entry1, Map.Entry<String, Timer> entry2) {
+				return Integer.compare(entry1.getValue().sequence, entry2.getValue().sequence);
+			}
+		});
+		List<TimerMetric> timerMetrics = new ArrayList<TimerMetric>(timerEntries.size());
+		for (Map.Entry<String, Timer> entry : timerEntries) {
+			timerMetrics.add(entry.getValue().toMetric(entry.getKey()));
+		}
+
+		Map<String, Long> counterValues = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+			counterValues.put(entry.getKey(), entry.getValue().get());
+		}
+
+		List<HistogramMetric> histogramMetrics = new ArrayList<HistogramMetric>();
+		for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(histograms).entrySet()) {
+			histogramMetrics.add(entry.getValue().toMetric(entry.getKey()));
+		}
+
+		double wallTimeMillis = 0;
+		long allocated = -1;
+		Timer analysis = timers.get(MetricName.ANALYSIS);
+		if (analysis != null) {
+			TimerMetric metric = analysis.toMetric(MetricName.ANALYSIS);
+			wallTimeMillis = metric.getTotalMillis();
+			allocated = metric.getAllocatedBytes();
+		}
+		Long packets = counterValues.get(MetricName.PACKETS);
+		Long bytes = counterValues.get(MetricName.PACKET_BYTES);
+		return new MetricsReport(wallTimeMillis, packets == null ? 0 : packets, bytes == null ? 0 : bytes, allocated,
+				timerMetrics, counterValues, histogramMetrics);
+	}
+
+	private static class Stopwatch implements IStopwatch {
+		private final Timer timer;
+		private final long thread = Thread.currentThread().getId();
+		private final long startAllocated;
+		private final long startNanos;
+		private boolean stopped;
+
+		Stopwatch(Timer timer, long startAllocated) {
+			this.timer = timer;
+			this.startAllocated = startAllocated;
+			this.startNanos = System.nanoTime();
+		}
+
+		@Override
+		public long stop() {
+			long nanos = System.nanoTime() - startNanos;
+			if (stopped) {
+				return nanos;
+			}
+			stopped = true;
+			long allocated = -1;
+			if (startAllocated >= 0 && thread == Thread.currentThread().getId()) {
+				allocated = allocatedBytes() - startAllocated;
+			}
+			timer.add(nanos, allocated);
+			return nanos;
+		}
+	}
+
+	private static class Timer {
+		private final int sequence;
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private long allocated;
+		// false once a run without allocated bytes was added
+		private boolean allocationKnown = true;
+
+		Timer(int sequence) {
+			this.sequence = sequence;
+		}
+
+		synchronized void add(long nanos, long allocatedBytes) {
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+			if (allocatedBytes < 0) {
+				allocationKnown = false;
+			} else {
+				allocated += allocatedBytes;
+			}
+		}
+
+		synchronized TimerMetric toMetric(String name) {
+			return new TimerMetric(name, count, totalNanos / NANOS_PER_MILLI, maxNanos / NANOS_PER_MILLI,
+					allocationKnown ? allocated : -1);
+		}
+	}
+
+	/**
+	 * Counts values by the number of bits they need, bucket 0 holds 0, bucket n
+	 * holds 2^(n-1) up to 2^n - 1.
+	 */
+	private static class Histogram {
+		private final long[] buckets = new long[Long.SIZE + 1];
+		private long count;
+		private long min = Long.MAX_VALUE;
+		private long max;
+		private double sum;
+
+		synchronized void add(long value) {
+			buckets[Long.SIZE - Long.numberOfLeadingZeros(value)]++;
+			count++;
+			sum += value;
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+
+		synchronized HistogramMetric toMetric(String name) {
+			return new HistogramMetric(name, count, count == 0 ? 0 : min, max, count == 0 ? 0 : sum / count,
+					percentile(0.5), percentile(0.9), percentile(0.99));
+		}
+
+		private long percentile(double fraction) {
+			long rank = (long) Math.ceil(fraction * count);
+			long seen = 0;
+			for (int bucket = 0; bucket < buckets.length; bucket++) {
+				seen += buckets[bucket];
+				if (seen >= rank && seen > 0) {
+					long upper = bucket == Long.SIZE ? Long.MAX_VALUE : (1L << bucket) - 1;
+					return Math.min(upper, max);
+				}
+			}
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics.pojo;
+
+/**
+ * Distribution of the values of one histogram. Values are kept in power of two
+ * buckets, so the percentiles are the upper bound of their bucket, at most
+ * twice the exact value.
+ */
+public class HistogramMetric {
+
+	private final String name;
+	private final long count;
+	private final long min;
+	private final long max;
+	private final double mean;
+	private final long p50;
+	private final long p90;
+	private final long p99;
+
+	public HistogramMetric(String name, long count, long min, long max, double mean, long p50, long p90, long p99) {
+		this.name = name;
+		this.count = count;
+		this.min = min;
+		this.max = max;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public long getP90() {
+		return p90;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+}
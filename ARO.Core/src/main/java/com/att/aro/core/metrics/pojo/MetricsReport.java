@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics.pojo;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metrics of one analysis, exported with the AROTraceData of the analysis.
+ * The rates are over the wall time of the whole analysis.
+ */
+public class MetricsReport {
+
+	private final double wallTimeMillis;
+	private final long packets;
+	private final long bytes;
+	private final long allocatedBytes;
+	private final List<TimerMetric> timers;
+	private final Map<String, Long> counters;
+	private final List<HistogramMetric> histograms;
+
+	public MetricsReport(double wallTimeMillis, long packets, long bytes, long allocatedBytes,
+			List<TimerMetric> timers, Map<String, Long> counters, List<HistogramMetric> histograms) {
+		this.wallTimeMillis = wallTimeMillis;
+		this.packets = packets;
+		this.bytes = bytes;
+		this.allocatedBytes = allocatedBytes;
+		this.timers = Collections.unmodifiableList(timers);
+		this.counters = Collections.unmodifiableMap(counters);
+		this.histograms = Collections.unmodifiableList(histograms);
+	}
+
+	public double getWallTimeMillis() {
+		return wallTimeMillis;
+	}
+
+	public long getPackets() {
+		return packets;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public double getPacketsPerSecond() {
+		return wallTimeMillis > 0 ? packets * 1000 / wallTimeMillis : 0;
+	}
+
+	public double getBytesPerSecond() {
+		return wallTimeMillis > 0 ? bytes * 1000 / wallTimeMillis : 0;
+	}
+
+	/**
+	 * Bytes allocated by the analysis thread, -1 when unknown. Threads
+	 * started by the analysis are not included.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return timers in the order they first ran
+	 */
+	public List<TimerMetric> getTimers() {
+		return timers;
+	}
+
+	/**
+	 * @return timer of that name, null if it never ran
+	 */
+	public TimerMetric getTimer(String name) {
+		for (TimerMetric timer : timers) {
+			if (timer.getName().equals(name)) {
+				return timer;
+			}
+		}
+		return null;
+	}
+
+	public Map<String, Long> getCounters() {
+		return counters;
+	}
+
+	public List<HistogramMetric> getHistograms() {
+		return histograms;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics.pojo;
+
+/**
+ * Runs of one stage of the analysis.
+ */
+public class TimerMetric {
+
+	private final String name;
+	private final long count;
+	private final double totalMillis;
+	private final double maxMillis;
+	private final long allocatedBytes;
+
+	/**
+	 * @param allocatedBytes
+	 *            -1 when the JVM can not measure it
+	 */
+	public TimerMetric(String name, long count, double totalMillis, double maxMillis, long allocatedBytes) {
+		this.name = name;
+		this.count = count;
+		this.totalMillis = totalMillis;
+		this.maxMillis = maxMillis;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getTotalMillis() {
+		return totalMillis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	public double getMeanMillis() {
+		return count == 0 ? 0 : totalMillis / count;
+	}
+
+	/**
+	 * Bytes allocated by the thread while the stage ran, -1 when unknown.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+}
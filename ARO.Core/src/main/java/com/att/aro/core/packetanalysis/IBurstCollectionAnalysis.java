@@ -23,6 +23,7 @@ import com.att.aro.core.packetanalysis.pojo.BurstCollectionAnalysisData;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
 import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 import com.att.aro.core.peripheral.pojo.CpuActivity;
 import com.att.aro.core.peripheral.pojo.UserEvent;
 
@@ -30,4 +31,12 @@ public interface IBurstCollectionAnalysis {
 	BurstCollectionAnalysisData analyze(List<PacketInfo> packets, Profile profile, Map<Integer, Integer> packetSizeToCountMap,
 			List<RrcStateRange> rrcstaterangelist, List<UserEvent> usereventlist, List<CpuActivity> cpuactivitylist, 
 			List<Session> sessionlist);
+
+	/**
+	 * Same bursts as for the whole packet list, grouped and categorized per
+	 * window in parallel.
+	 */
+	BurstCollectionAnalysisData analyze(List<PacketInfo> packets, Profile profile, Map<Integer, Integer> packetSizeToCountMap,
+			List<RrcStateRange> rrcstaterangelist, List<UserEvent> usereventlist, List<CpuActivity> cpuactivitylist,
+			List<Session> sessionlist, List<TraceWindow> windows);
 }
@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis;
+
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+
+/**
+ * Parses HTTP/1.x and RTSP/1.x message heads straight out of the reassembled
+ * session storage. Lines are given as start/end offsets into the byte array,
+ * the end excluding the CRLF, and only the values HttpRequestResponseInfo
+ * keeps are decoded into Strings.
+ */
+public interface IHttpHeaderParser {
+
+	/**
+	 * Returns the offset of the CR of the CRLF that ends the line starting at
+	 * from, or -1 when the line runs up to to.
+	 */
+	int findLineEnd(byte[] data, int from, int to);
+
+	/**
+	 * Reads a request line such as "GET /index.html HTTP/1.1" into rrInfo.
+	 * 
+	 * @return false, leaving rrInfo untouched, when the line is not a request line
+	 */
+	boolean parseRequestLine(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo);
+
+	/**
+	 * Reads a status line such as "HTTP/1.1 200 OK" into rrInfo.
+	 * 
+	 * @return false, leaving rrInfo untouched, when the line is not a status line
+	 */
+	boolean parseStatusLine(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo);
+
+	/**
+	 * Reads the value of one header line into rrInfo, headers it does not know
+	 * are skipped.
+	 */
+	void parseHeaderLine(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo);
+}
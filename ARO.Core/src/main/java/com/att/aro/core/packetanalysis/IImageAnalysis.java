@@ -0,0 +1,36 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis;
+
+import java.util.Set;
+
+import com.att.aro.core.packetanalysis.pojo.ImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.ImageTrial;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+
+public interface IImageAnalysis {
+
+	/**
+	 * Reads every image extracted from the trace once and runs the trials on them in parallel.
+	 * The result is stored with setImageAnalysis and returned as is by later calls that ask for no new trials.
+	 *
+	 * @param tracedata
+	 * @param trials
+	 *            optional work, may be empty
+	 * @return ImageAnalysis
+	 */
+	ImageAnalysis analyze(PacketAnalyzerResult tracedata, Set<ImageTrial> trials);
+}
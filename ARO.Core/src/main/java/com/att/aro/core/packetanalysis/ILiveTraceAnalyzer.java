@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis;
+
+import java.io.InputStream;
+import java.util.concurrent.Future;
+
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.packetanalysis.pojo.LiveTraceSnapshot;
+
+/**
+ * Analyzes a capture while it is being collected. Sessions, RRC states and
+ * throughput are extended as packets come in and handed to the listener as a
+ * snapshot every snapshot interval, so problems show up during a long session
+ * instead of after the trace is pulled. The full analysis of the pulled trace
+ * stays the reference, the live view is a preview of it.
+ */
+public interface ILiveTraceAnalyzer {
+
+	/**
+	 * Starts reading pcap records from the stream on a background thread, for
+	 * instance a TailingFileInputStream on the capture file or the input of a
+	 * socket. Analysis ends with the stream or when the Future is cancelled,
+	 * which also closes the stream.
+	 * 
+	 * @param pcapStream
+	 *            libpcap formatted stream, global header first
+	 * @param profile
+	 *            device profile for the RRC states and throughput window
+	 * @param listener
+	 *            gets each snapshot on the analysis thread, may be null
+	 * @return the last snapshot, once the stream has ended
+	 */
+	Future<LiveTraceSnapshot> analyze(InputStream pcapStream, Profile profile, ILiveTraceListener listener);
+
+	/**
+	 * @param millis
+	 *            time between two snapshots
+	 */
+	void setSnapshotInterval(long millis);
+
+	long getSnapshotInterval();
+}
@@ -31,4 +31,11 @@ public interface IPacketAnalyzer {
 	PacketAnalyzerResult analyzeTraceDirectory(String traceDirectory, Profile profile, 
 			AnalysisFilter filter) throws FileNotFoundException;
 	Statistic getStatistic(List<PacketInfo> packetlist);
+
+	/**
+	 * Long traces are cut into windows at RRC idle gaps and the sessions,
+	 * state ranges and bursts of the windows are worked out in parallel. The
+	 * result is the same as without windows.
+	 */
+	void setWindowed(boolean windowed);
 }
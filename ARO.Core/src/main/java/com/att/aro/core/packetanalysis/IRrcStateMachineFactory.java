@@ -21,6 +21,7 @@ import com.att.aro.core.configuration.pojo.Profile;
 import com.att.aro.core.packetanalysis.pojo.AbstractRrcStateMachine;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.TimeRange;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 
 /**
  * create RrcStateMachine based on profile type and return different implementation of AbstractRrcStateMachine
@@ -29,4 +30,11 @@ import com.att.aro.core.packetanalysis.pojo.TimeRange;
 public interface IRrcStateMachineFactory {
 	AbstractRrcStateMachine create(List<PacketInfo> packetlist, Profile profile, double packetDuration, 
 			double traceDuration,double totalBytes, TimeRange timerange);
+
+	/**
+	 * Same as create for the whole packet list, the state ranges are made per
+	 * window, see IRrcStateRangeFactory.
+	 */
+	AbstractRrcStateMachine create(List<PacketInfo> packetlist, Profile profile, double packetDuration,
+			double traceDuration, double totalBytes, TimeRange timerange, List<TraceWindow> windows);
 }
@@ -20,6 +20,7 @@ import java.util.List;
 import com.att.aro.core.configuration.pojo.Profile;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 
 /**
  * create RrcStateRange based on profile type
@@ -27,4 +28,11 @@ import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
  */
 public interface IRrcStateRangeFactory {
 	List<RrcStateRange> create(List<PacketInfo> packetlist, Profile profile, double traceDuration);
+
+	/**
+	 * Same ranges as for the whole packet list, made for each window in
+	 * parallel and joined in the idle gaps between the windows.
+	 */
+	List<RrcStateRange> create(List<PacketInfo> packetlist, Profile profile, double traceDuration,
+			List<TraceWindow> windows);
 }
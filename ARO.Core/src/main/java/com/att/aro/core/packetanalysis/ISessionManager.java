@@ -19,7 +19,14 @@ import java.util.List;
 
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 
 public interface ISessionManager {
 	List<Session> assembleSession(List<PacketInfo> packets);
+
+	/**
+	 * Same sessions as for the whole packet list, reassembled and parsed per
+	 * window in parallel.
+	 */
+	List<Session> assembleSession(List<PacketInfo> packets, List<TraceWindow> windows);
 }
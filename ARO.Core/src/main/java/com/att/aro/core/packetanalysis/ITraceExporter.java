@@ -0,0 +1,49 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import com.att.aro.core.packetanalysis.pojo.AbstractTraceResult;
+import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
+import com.att.aro.core.packetanalysis.pojo.Session;
+
+public interface ITraceExporter {
+
+	/**
+	 * Writes the packets of a trace that pass the filter as a new trace. The
+	 * records are copied from the capture file as they are, a trace folder
+	 * also gets its peripheral files cut to the same time window and an appid
+	 * file for the packets that were kept. Video files are left out.
+	 * 
+	 * @param trace
+	 *            trace as read, or as analyzed with a filter
+	 * @param filter
+	 *            time range, applications and IP versions to keep, null keeps
+	 *            every packet. Without application selections every
+	 *            application is kept.
+	 * @param sessions
+	 *            only keep the packets of these sessions, null for all
+	 * @param targetDirectory
+	 *            folder the new trace is written to, created when missing
+	 * @return number of packets written
+	 * @throws IOException
+	 *             if the capture is not a libpcap file or the target cannot
+	 *             be written
+	 */
+	int export(AbstractTraceResult trace, AnalysisFilter filter, Collection<Session> sessions, String targetDirectory) throws IOException;
+}
@@ -0,0 +1,32 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis;
+
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.TraceMemoryReport;
+
+public interface ITraceMemoryReporter {
+
+	/**
+	 * Estimates the heap held by the packets, sessions and requests/responses
+	 * of an analyzed trace. The header block of a request/response is left
+	 * out, asking for it would decode it.
+	 * 
+	 * @param tracedata
+	 * @return TraceMemoryReport
+	 */
+	TraceMemoryReport report(PacketAnalyzerResult tracedata);
+}
@@ -18,20 +18,17 @@ package com.att.aro.core.packetanalysis.impl;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import com.att.aro.core.configuration.IProfileFactory;
 import com.att.aro.core.configuration.pojo.Profile;
-import com.att.aro.core.configuration.pojo.Profile3G;
-import com.att.aro.core.configuration.pojo.ProfileLTE;
-import com.att.aro.core.configuration.pojo.ProfileType;
-import com.att.aro.core.configuration.pojo.ProfileWiFi;
 import com.att.aro.core.packetanalysis.IBurstCollectionAnalysis;
 import com.att.aro.core.packetanalysis.pojo.Burst;
 import com.att.aro.core.packetanalysis.pojo.BurstAnalysisInfo;
@@ -42,6 +39,7 @@ import com.att.aro.core.packetanalysis.pojo.RRCState;
 import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetanalysis.pojo.TcpInfo;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 import com.att.aro.core.packetreader.pojo.PacketDirection;
 import com.att.aro.core.peripheral.pojo.CpuActivity;
 import com.att.aro.core.peripheral.pojo.UserEvent;
@@ -73,18 +71,114 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 		if(!burstCollection.isEmpty()){
 			int longBurstCount = analyzeBursts(burstCollection, usereventlist, cpuactivitylist, profile);
 			data.setLongBurstCount(longBurstCount);
-			
-			double totalEnergy = computeBurstEnergyRadioResource(rrcstaterangelist, burstCollection, profile, packets);
-			data.setTotalEnergy(totalEnergy);
-			
-			List<BurstAnalysisInfo> burstAnalysisInfo = analyzeBurstStat(burstCollection);
-			data.setBurstAnalysisInfo(burstAnalysisInfo);
-			
-			PacketInfo shortestPacket = findShortestPeriodPacketInfo(burstCollection);
-			data.setShortestPeriodPacketInfo(shortestPacket);
+			analyzeBurstEnergy(data, burstCollection, rrcstaterangelist, profile, packets);
+		}
+		return data;
+	}
+
+	@Override
+	public BurstCollectionAnalysisData analyze(final List<PacketInfo> packets, final Profile profile,
+			Map<Integer, Integer> packetSizeToCountMap, List<RrcStateRange> rrcstaterangelist,
+			final List<UserEvent> usereventlist, final List<CpuActivity> cpuactivitylist, List<Session> sessionlist,
+			List<TraceWindow> windows) {
+		if (windows.size() < 2 || !isSorted(usereventlist, cpuactivitylist)) {
+			return analyze(packets, profile, packetSizeToCountMap, rrcstaterangelist, usereventlist, cpuactivitylist,
+					sessionlist);
+		}
+		BurstCollectionAnalysisData data = new BurstCollectionAnalysisData();
+
+		final Set<Integer> mss = calculateMssLargerPacketSizeSet(packetSizeToCountMap);
+		final double[] timestamps = timestamps(packets);
+		final int[] payloadLengths = payloadLengths(packets);
+		final double[] normalized = normalizeCore(timestamps, rrcstaterangelist);
+
+		// bursts are not split after a packet of the mss size, not even at a
+		// window cut, such windows are grouped together
+		final List<Integer> begins = new ArrayList<Integer>();
+		for (TraceWindow window : windows) {
+			int first = window.getFirstPacket();
+			if (first == 0 || !mss.contains(payloadLengths[first - 1])) {
+				begins.add(first);
+			}
 		}
+		begins.add(packets.size());
+
+		int count = begins.size() - 1;
+		final List<List<Burst>> parts = new ArrayList<List<Burst>>(count);
+		final int[] longBurstCounts = new int[count];
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(count);
+		for (int idx = 0; idx < count; idx++) {
+			final int part = idx;
+			parts.add(null);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					int from = begins.get(part);
+					List<Burst> bursts = groupIntoBursts(packets, from, begins.get(part + 1), timestamps,
+							payloadLengths, normalized, profile, mss);
+					// the events before the window are passed in a single pass
+					double begin = timestamps[from] - USER_EVENT_TOLERATE;
+					int userEvent = 0;
+					while (userEvent < usereventlist.size() && usereventlist.get(userEvent).getReleaseTime() < begin) {
+						userEvent++;
+					}
+					int cpuEvent = 0;
+					while (cpuEvent < cpuactivitylist.size() && cpuactivitylist.get(cpuEvent).getTimeStamp() < begin) {
+						cpuEvent++;
+					}
+					longBurstCounts[part] = analyzeBursts(bursts, usereventlist, userEvent, cpuactivitylist, cpuEvent,
+							profile);
+					parts.set(part, bursts);
+					return null;
+				}
+			});
+		}
+		TraceWindows.runAll(tasks);
+
+		List<Burst> burstCollection = new ArrayList<Burst>();
+		int longBurstCount = 0;
+		for (int idx = 0; idx < count; idx++) {
+			burstCollection.addAll(parts.get(idx));
+			longBurstCount += longBurstCounts[idx];
+		}
+		data.setBurstCollection(burstCollection);
+		data.setLongBurstCount(longBurstCount);
+		analyzeBurstEnergy(data, burstCollection, rrcstaterangelist, profile, packets);
 		return data;
 	}
+
+	/**
+	 * Energy and statistics of the categorized bursts.
+	 */
+	private void analyzeBurstEnergy(BurstCollectionAnalysisData data, List<Burst> burstCollection,
+			List<RrcStateRange> rrcstaterangelist, Profile profile, List<PacketInfo> packets) {
+		double totalEnergy = computeBurstEnergyRadioResource(rrcstaterangelist, burstCollection, profile, packets);
+		data.setTotalEnergy(totalEnergy);
+		
+		List<BurstAnalysisInfo> burstAnalysisInfo = analyzeBurstStat(burstCollection);
+		data.setBurstAnalysisInfo(burstAnalysisInfo);
+		
+		PacketInfo shortestPacket = findShortestPeriodPacketInfo(burstCollection);
+		data.setShortestPeriodPacketInfo(shortestPacket);
+	}
+
+	/**
+	 * The windowed analysis finds the first events of a window by time, which
+	 * needs the events in time order.
+	 */
+	private static boolean isSorted(List<UserEvent> userEvents, List<CpuActivity> cpuEvents) {
+		for (int idx = 1; idx < userEvents.size(); idx++) {
+			if (userEvents.get(idx).getReleaseTime() < userEvents.get(idx - 1).getReleaseTime()) {
+				return false;
+			}
+		}
+		for (int idx = 1; idx < cpuEvents.size(); idx++) {
+			if (cpuEvents.get(idx).getTimeStamp() < cpuEvents.get(idx - 1).getTimeStamp()) {
+				return false;
+			}
+		}
+		return true;
+	}
 	/**
 	 * Method to find the different periodic connection and periodic duration.
 	 */
@@ -192,26 +286,69 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 	}
 	
 	/**
-	 * Computes the total burst energy.
+	 * Computes the total burst energy. A burst is charged from its begin time
+	 * until the next burst begins, the first one from the start of the trace
+	 * and the last one until the end. Bursts are worked out window by window
+	 * on a thread pool and added up in trace order afterwards.
 	 * @return 
 	 */
-	private double computeBurstEnergyRadioResource(List<RrcStateRange> rrcstaterangelist, List<Burst> burstCollection,
+	private double computeBurstEnergyRadioResource(final List<RrcStateRange> rrcstaterangelist, final List<Burst> burstCollection,
 			Profile profile, List<PacketInfo> packets) {
-		List<RrcStateRange> rrcCollection = rrcstaterangelist;
-		int rrcCount = rrcCollection.size();
+		int rrcCount = rrcstaterangelist.size();
 		if (rrcCount == 0) {
 			return 0;
 		}
-		int pCount = 0;
-		double time2 = -1;
+		int burstCount = burstCollection.size();
+		final double[] energies = new double[burstCount];
+		final double[] activeTimes = new double[burstCount];
+		final WindowedEnergyCalculator calculator = new WindowedEnergyCalculator(profilefactory, profile, packets);
+
+		List<Callable<Void>> windows = new ArrayList<Callable<Void>>();
+		int begin = 0;
+		int windowPackets = 0;
+		for (int idx = 0; idx < burstCount; idx++) {
+			windowPackets += burstCollection.get(idx).getPackets().size();
+			if (windowPackets >= calculator.getWindowPackets() || idx == burstCount - 1) {
+				final int from = begin;
+				final int to = idx + 1;
+				windows.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						computeBurstEnergy(calculator, rrcstaterangelist, burstCollection, from, to, energies, activeTimes);
+						return null;
+					}
+				});
+				begin = idx + 1;
+				windowPackets = 0;
+			}
+		}
+		calculator.runAll(windows);
+
 		double totalEnergy = 0.0f;
-		Iterator<Burst> iter = burstCollection.iterator();
-		Burst currentBurst = iter.next();
-		double time1 = rrcCollection.get(0).getBeginTime();
-		while (true) {
-			Burst nextBurst = iter.hasNext() ? iter.next() : null;
-			time2 = nextBurst != null ? nextBurst.getBeginTime() : rrcCollection.get(rrcCount - 1)
-					.getEndTime();
+		for (int idx = 0; idx < burstCount; idx++) {
+			Burst burst = burstCollection.get(idx);
+			burst.setEnergy(energies[idx]);
+			totalEnergy += energies[idx];
+			burst.setActiveTime(activeTimes[idx]);
+		}
+		return totalEnergy;
+	}
+
+	/**
+	 * Energy and active time of the bursts from, inclusive, to to, exclusive.
+	 * Starts on the first state range that does not end before the first
+	 * burst, from there on the ranges are walked as for the whole trace.
+	 */
+	private void computeBurstEnergy(WindowedEnergyCalculator calculator, List<RrcStateRange> rrcCollection,
+			List<Burst> burstCollection, int from, int to, double[] energies, double[] activeTimes) {
+		int rrcCount = rrcCollection.size();
+		int burstCount = burstCollection.size();
+		double time1 = from == 0 ? rrcCollection.get(0).getBeginTime() : burstCollection.get(from).getBeginTime();
+		// the trace starts on the first range, later windows look theirs up
+		int pCount = from == 0 ? 0 : firstRangeEndingAtOrAfter(rrcCollection, time1);
+		for (int idx = from; idx < to; idx++) {
+			double time2 = idx + 1 < burstCount ? burstCollection.get(idx + 1).getBeginTime()
+					: rrcCollection.get(rrcCount - 1).getEndTime();
 			double energy = 0.0f;
 			double activeTime = 0.0f;
 			while (pCount < rrcCount) {
@@ -220,18 +357,8 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 					pCount++;
 				} else {
 					if (time2 > rrCntrl.getEndTime()) {
-						if(profile.getProfileType() == ProfileType.T3G){
-							energy += profilefactory.energy3G(time1, rrCntrl.getEndTime(), rrCntrl.getState(), (Profile3G)profile);
-						}else if(profile.getProfileType() == ProfileType.LTE){
-							energy += profilefactory.energyLTE(time1, rrCntrl.getEndTime(), rrCntrl.getState(), (ProfileLTE)profile, packets);
-						}else if(profile.getProfileType() == ProfileType.WIFI){
-							energy += profilefactory.energyWiFi(time1, rrCntrl.getEndTime(), rrCntrl.getState(), (ProfileWiFi)profile);
-						}
-						if ((rrCntrl.getState() == RRCState.STATE_DCH || rrCntrl.getState() == RRCState.TAIL_DCH)
-								|| (rrCntrl.getState() == RRCState.LTE_CONTINUOUS || rrCntrl
-										.getState() == RRCState.LTE_CR_TAIL)
-								|| (rrCntrl.getState() == RRCState.WIFI_ACTIVE || rrCntrl
-										.getState() == RRCState.WIFI_TAIL)) {
+						energy += calculator.energy(time1, rrCntrl.getEndTime(), rrCntrl.getState());
+						if (isActive(rrCntrl.getState())) {
 							activeTime += rrCntrl.getEndTime() - time1;
 						}
 						pCount++;
@@ -242,60 +369,82 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 			while (pCount < rrcCount) {
 				RrcStateRange rrCntrl = rrcCollection.get(pCount);
 				if (rrCntrl.getEndTime() < time2) {
-					if(profile.getProfileType() == ProfileType.T3G){
-						energy += profilefactory.energy3G(Math.max(rrCntrl.getBeginTime(), time1), rrCntrl.getEndTime(), rrCntrl.getState(), (Profile3G)profile);
-					}else if(profile.getProfileType() == ProfileType.LTE){
-						energy += profilefactory.energyLTE(Math.max(rrCntrl.getBeginTime(), time1), rrCntrl.getEndTime(), rrCntrl.getState(), (ProfileLTE)profile, packets);
-					}else if(profile.getProfileType() == ProfileType.WIFI){
-						energy += profilefactory.energyWiFi(Math.max(rrCntrl.getBeginTime(), time1), rrCntrl.getEndTime(), rrCntrl.getState(), (ProfileWiFi)profile);
-					}
-					if ((rrCntrl.getState() == RRCState.STATE_DCH || rrCntrl.getState() == RRCState.TAIL_DCH)
-							|| (rrCntrl.getState() == RRCState.LTE_CONTINUOUS || rrCntrl.getState() == RRCState.LTE_CR_TAIL)
-							|| (rrCntrl.getState() == RRCState.WIFI_ACTIVE || rrCntrl.getState() == RRCState.WIFI_TAIL)) {
+					energy += calculator.energy(Math.max(rrCntrl.getBeginTime(), time1), rrCntrl.getEndTime(), rrCntrl.getState());
+					if (isActive(rrCntrl.getState())) {
 						activeTime += rrCntrl.getEndTime()
 								- Math.max(rrCntrl.getBeginTime(), time1);
 					}
 					pCount++;
 				} else {
-					if(profile.getProfileType() == ProfileType.T3G){
-						energy += profilefactory.energy3G(Math.max(rrCntrl.getBeginTime(), time1), time2, rrCntrl.getState(), (Profile3G)profile);
-					}else if(profile.getProfileType() == ProfileType.LTE){
-						energy += profilefactory.energyLTE(Math.max(rrCntrl.getBeginTime(), time1), time2, rrCntrl.getState(), (ProfileLTE)profile, packets);
-					}else if(profile.getProfileType() == ProfileType.WIFI){
-						energy += profilefactory.energyWiFi(Math.max(rrCntrl.getBeginTime(), time1), time2, rrCntrl.getState(), (ProfileWiFi)profile);
-					}
-					if ((rrCntrl.getState() == RRCState.STATE_DCH || rrCntrl.getState() == RRCState.TAIL_DCH)
-							|| (rrCntrl.getState() == RRCState.LTE_CONTINUOUS || rrCntrl.getState() == RRCState.LTE_CR_TAIL)
-							|| (rrCntrl.getState() == RRCState.WIFI_ACTIVE || rrCntrl.getState() == RRCState.WIFI_TAIL)) {
+					energy += calculator.energy(Math.max(rrCntrl.getBeginTime(), time1), time2, rrCntrl.getState());
+					if (isActive(rrCntrl.getState())) {
 						activeTime += time2 - Math.max(rrCntrl.getBeginTime(), time1);
 					}
 					break;
 				}
 			}
-			currentBurst.setEnergy(energy);
-			totalEnergy += energy;
-			currentBurst.setActiveTime(activeTime);
-
+			energies[idx] = energy;
+			activeTimes[idx] = activeTime;
 			time1 = time2;
-			if (nextBurst != null) {
-				currentBurst = nextBurst;
+		}
+	}
+
+	private static int firstRangeEndingAtOrAfter(List<RrcStateRange> rrcCollection, double time) {
+		int low = 0;
+		int high = rrcCollection.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (rrcCollection.get(mid).getEndTime() < time) {
+				low = mid + 1;
 			} else {
-				break;
+				high = mid;
 			}
 		}
-		return totalEnergy;
+		return low;
+	}
+
+	private static boolean isActive(RRCState state) {
+		return (state == RRCState.STATE_DCH || state == RRCState.TAIL_DCH)
+				|| (state == RRCState.LTE_CONTINUOUS || state == RRCState.LTE_CR_TAIL)
+				|| (state == RRCState.WIFI_ACTIVE || state == RRCState.WIFI_TAIL);
 	}
 	/**
 	 * Assigns burst category to each burst in a collection of bursts.
 	 * The collection of bursts have been populated prior to this API call.
+	 * User events and cpu events are walked once in time order alongside the bursts.
 	 */
 	private int analyzeBursts(List<Burst> burstCollection, List<UserEvent> userEvents, List<CpuActivity> cpuEvents,
 			Profile profile) {
+		return analyzeBursts(burstCollection, userEvents, 0, cpuEvents, 0, profile);
+	}
+
+	/**
+	 * Assigns the burst categories, starting the walk over the events at the
+	 * given ones. A burst before the first one ended at least a window cut
+	 * gap earlier, longer than the user event tolerance, so it does not count.
+	 */
+	private int analyzeBursts(List<Burst> burstCollection, List<UserEvent> userEvents, int userEventStart,
+			List<CpuActivity> cpuEvents, int cpuEventStart, Profile profile) {
 		
 		int userEventsSize = userEvents.size();
 		int cpuEventsSize = cpuEvents.size();
-		int userEventPointer = 0;
-		int cpuPointer = 0;
+		double[] pressTimes = new double[userEventsSize];
+		double[] releaseTimes = new double[userEventsSize];
+		for (int i = 0; i < userEventsSize; i++) {
+			UserEvent uEvent = userEvents.get(i);
+			pressTimes[i] = uEvent.getPressTime();
+			releaseTimes[i] = uEvent.getReleaseTime();
+		}
+		double[] cpuTimes = new double[cpuEventsSize];
+		double[] cpuUsages = new double[cpuEventsSize];
+		for (int i = 0; i < cpuEventsSize; i++) {
+			CpuActivity cpuAct = cpuEvents.get(i);
+			cpuTimes[i] = cpuAct.getTimeStamp();
+			cpuUsages[i] = cpuAct.getTotalCpuUsage();
+		}
+		Set<TcpInfo> burstPacketTcpInfo = EnumSet.noneOf(TcpInfo.class);
+		int userEventPointer = userEventStart;
+		int cpuPointer = cpuEventStart;
 		int longBurstCount = 0;
 		// Analyze each burst
 		Burst burst = null;
@@ -304,12 +453,11 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 			
 			lastBurst = burst;
 			burst = iterator.next();
-			List<PacketInfo> burstPacketCollection = new ArrayList<PacketInfo>(burst.getPackets().size());
+			List<PacketInfo> burstPacketCollection = burst.getPackets();
 			int burstPayloadLen = 0;
-			Set<TcpInfo> burstPacketTcpInfo = new HashSet<TcpInfo>();
-			for (PacketInfo pInfo : burst.getPackets()) {
+			burstPacketTcpInfo.clear();
+			for (PacketInfo pInfo : burstPacketCollection) {
 				burstPayloadLen += pInfo.getPayloadLen();
-				burstPacketCollection.add(pInfo);
 				TcpInfo tcp = pInfo.getTcpInfo();
 				if (tcp != null) {
 					burstPacketTcpInfo.add(tcp);
@@ -399,20 +547,21 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 				int userEventCount = userEventPointer;
 				double minGap = Double.MAX_VALUE;
 				while (userEventCount < userEventsSize) {
-					UserEvent uEvent = userEvents.get(userEventCount);
-					if (withinTolerate(uEvent.getPressTime(), time0)) {
-						double gap = time0 - uEvent.getPressTime();
+					double pressTime = pressTimes[userEventCount];
+					double releaseTime = releaseTimes[userEventCount];
+					if (withinTolerate(pressTime, time0)) {
+						double gap = time0 - pressTime;
 						if (gap < minGap) {
 							minGap = gap;
 						}
 					}
-					if (withinTolerate(uEvent.getReleaseTime(), time0)) {
-						double gap = time0 - uEvent.getReleaseTime();
+					if (withinTolerate(releaseTime, time0)) {
+						double gap = time0 - releaseTime;
 						if (gap < minGap) {
 							minGap = gap;
 						}
 					}
-					if (uEvent.getPressTime() > time0) {
+					if (pressTime > time0) {
 						break;
 					}
 					userEventCount++;
@@ -426,7 +575,7 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 					double cpuEnd = time0;
 					// Check CPU usage
 					while (cpuPointer < cpuEventsSize) {
-						double eventTimeStamp = cpuEvents.get(cpuPointer).getTimeStamp();
+						double eventTimeStamp = cpuTimes[cpuPointer];
 						if (eventTimeStamp < burst.getBeginTime() - USER_EVENT_TOLERATE) {
 							++cpuPointer;
 						} else {
@@ -437,10 +586,9 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 					double totalCpuUsage = 0.0f;
 					int cEventsCount = 0;
 					while (cpuActivityKey < cpuEventsSize) {
-						CpuActivity cpuAct = cpuEvents.get(cpuActivityKey);
-						double caTimeStamp = cpuAct.getTimeStamp();
+						double caTimeStamp = cpuTimes[cpuActivityKey];
 						if (caTimeStamp > cpuBegin && caTimeStamp < cpuEnd) {
-							totalCpuUsage += cpuAct.getTotalCpuUsage();
+							totalCpuUsage += cpuUsages[cpuActivityKey];
 							cEventsCount++;
 						}
 						if (caTimeStamp >= cpuEnd) {
@@ -491,39 +639,51 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 			burstCollection = Collections.emptyList();
 			return burstCollection;
 		}
-		ArrayList<Burst> result = new ArrayList<Burst>();
+		double[] timestamps = timestamps(packets);
+		int[] payloadLengths = payloadLengths(packets);
+		double[] normalized = normalizeCore(timestamps, rrcstaterangelist);
+		return groupIntoBursts(packets, 0, packets.size(), timestamps, payloadLengths, normalized, profile, mss);
+	}
+
+	/**
+	 * Groups the packets from, inclusive, to to, exclusive, into bursts. The
+	 * last burst is taken to be followed by a long gap.
+	 * 
+	 * @param normalized
+	 *            timestamps of all packets without the promotion delays
+	 */
+	private List<Burst> groupIntoBursts(List<PacketInfo> packets, int from, int to, double[] timestamps,
+			int[] payloadLengths, double[] normalized, Profile profile, Set<Integer> mss) {
+		List<Burst> burstCollection;
 		double burstThresh = profile.getBurstTh();
 		double longBurstThresh = profile.getLongBurstTh();
-		List<PacketInfo> burstPackets = new ArrayList<PacketInfo>();
-		// Step 1: Build bursts using burst time threshold
-		PacketInfo lastPacket = null;
-		for (PacketInfo packet : packets) {
-			if ((lastPacket == null
-					|| (packet.getTimeStamp() - lastPacket.getTimeStamp() > burstThresh && 
-							!mss.contains(lastPacket.getPayloadLen()))) && (!burstPackets.isEmpty())) {
-
-				result.add(new Burst(burstPackets));
-				burstPackets.clear();
+		// Step 1: Build bursts using burst time threshold, burstEnds holds the position of each burst's last packet
+		int[] burstEnds = new int[to - from];
+		int burstCount = 0;
+		for (int i = from + 1; i < to; i++) {
+			if (timestamps[i] - timestamps[i - 1] > burstThresh && !mss.contains(payloadLengths[i - 1])) {
+				burstEnds[burstCount++] = i - 1;
 			}
-			burstPackets.add(packet);
-			lastPacket = packet;
 		}
-		result.add(new Burst(burstPackets));
+		burstEnds[burstCount++] = to - 1;
 
 		// Step 2: Remove promotion delays and merge bursts if possible
-		Map<PacketInfo, Double> timestampList = normalizeCore(packets, rrcstaterangelist);
-		List<Burst> newBurstColl = new ArrayList<Burst>(result.size());
-		int size = result.size();
-		Burst newBurst = result.get(0);
-		for (int i = 0; i < size - 1; i++) {
-			Burst bnext = result.get(i + 1);
-			double time1 = timestampList.get(newBurst.getEndPacket());
-			double time2 = timestampList.get(bnext.getBeginPacket());
-			if ((time2 - time1) < burstThresh) {
+		List<Burst> newBurstColl = new ArrayList<Burst>(burstCount);
+		Burst newBurst = new Burst(packets.subList(from, burstEnds[0] + 1));
+		int endIdx = burstEnds[0]; // position of newBurst's end packet
+		for (int i = 0; i < burstCount - 1; i++) {
+			int nextBegin = burstEnds[i] + 1;
+			int nextEnd = burstEnds[i + 1];
+			Burst bnext = new Burst(packets.subList(nextBegin, nextEnd + 1));
+			if ((normalized[nextBegin] - normalized[endIdx]) < burstThresh) {
 				newBurst.merge(bnext);
+				if (timestamps[endIdx] < timestamps[nextEnd]) {
+					endIdx = nextEnd;
+				}
 			} else {
 				newBurstColl.add(newBurst);
 				newBurst = bnext;
+				endIdx = nextEnd;
 			}
 		}
 		newBurstColl.add(newBurst);
@@ -531,7 +691,7 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 
 
 		// determine short/long IBTs
-		size = burstCollection.size();
+		int size = burstCollection.size();
 		for (int i = 0; i < size; i++) {
 			Burst aBurst = burstCollection.get(i);
 //			assert (aBurst.getEndTime() >= aBurst.getBeginTime());
@@ -545,13 +705,30 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 		}
 		return burstCollection;
 	}
+	private static double[] timestamps(List<PacketInfo> packets) {
+		double[] timestamps = new double[packets.size()];
+		for (int i = 0; i < timestamps.length; i++) {
+			timestamps[i] = packets.get(i).getTimeStamp();
+		}
+		return timestamps;
+	}
+
+	private static int[] payloadLengths(List<PacketInfo> packets) {
+		int[] payloadLengths = new int[packets.size()];
+		for (int i = 0; i < payloadLengths.length; i++) {
+			payloadLengths[i] = packets.get(i).getPayloadLen();
+		}
+		return payloadLengths;
+	}
+
 	/**
 	 * Method orginally found in whatif.cpp
 	 * 
-	 * @param packets
-	 *            returns timestampList - List of doubles
+	 * @param timestamps
+	 *            packet timestamps in packet order
+	 * @return normalized timestamps, indexed by packet position
 	 */
-	private Map<PacketInfo, Double> normalizeCore(List<PacketInfo> packets, List<RrcStateRange> rrcstaterangelist) {
+	double[] normalizeCore(double[] timestamps, List<RrcStateRange> rrcstaterangelist) {
 
 		// Step 1: Identify Promotions
 		List<RrcStateRange> promoDelays = new ArrayList<RrcStateRange>();
@@ -562,10 +739,7 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 			}
 		}
 		Collections.sort(promoDelays);
-		PacketTimestamp[] timeStampList = new PacketTimestamp[packets.size()];
-		for (int i = 0; i < packets.size(); i++) {
-			timeStampList[i] = new PacketTimestamp(packets.get(i));
-		}
+		double[] timeStampList = new double[timestamps.length];
 
 		// Step 2: Remove all promo delays
 		int pdSize = promoDelays.size();
@@ -574,7 +748,7 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 		int pdMiddlePosKey = -1; // "in-the-middle" position
 		double middlePos = 0; // How to initialize??
 		for (int i = 0; i < timeStampList.length; i++) {
-			double timeStamp = timeStampList[i].timestamp;
+			double timeStamp = timestamps[i];
 			while (pdKey < pdSize && timeStamp >= promoDelays.get(pdKey).getEndTime() - EPS) {
 				if (pdMiddlePosKey != -1) {
 //					assert (pdMiddlePosKey == pdKey && i > 0 && promoDelays.get(pdKey).getEndTime() >= middlePos);
@@ -599,14 +773,10 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 					middlePos = timeStamp;
 				}
 			}
-			timeStampList[i].timestamp = timeStampList[i].timestamp - timeStampShift;
-//			assert (i == 0 || timeStampList[i].timestamp >= timeStampList[i - 1].timestamp);
+			timeStampList[i] = timeStamp - timeStampShift;
+//			assert (i == 0 || timeStampList[i] >= timeStampList[i - 1]);
 		}
-		Map<PacketInfo, Double> result = new LinkedHashMap<PacketInfo, Double>(timeStampList.length);
-		for (int i = 0; i < timeStampList.length; ++i) {
-			result.put(timeStampList[i].packet, timeStampList[i].timestamp);
-		}
-		return result;
+		return timeStampList;
 	}
 
 	/**
@@ -644,19 +814,5 @@ public class BurstCollectionAnalysisImpl implements IBurstCollectionAnalysis {
 		}
 		return mssLargerPacketSizeSet;
 	}
-	//helper classes
-	/**
-	 * Private utility class
-	 */
-	private class PacketTimestamp {
-		private PacketInfo packet;
-		private double timestamp;
-
-		public PacketTimestamp(PacketInfo packet) {
-			this.packet = packet;
-			this.timestamp = packet.getTimeStamp();
-		}
-	}
 
-	
 }
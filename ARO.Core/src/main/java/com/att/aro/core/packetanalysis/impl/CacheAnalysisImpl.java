@@ -39,6 +39,7 @@ import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Range;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
 
@@ -56,6 +57,10 @@ public class CacheAnalysisImpl implements ICacheAnalysis{
 	
 	int itindex = 0;
 	public CacheAnalysis analyze(List<Session> sessionlist){
+		return analyze(new RequestResponseIndex(sessionlist));
+	}
+
+	public CacheAnalysis analyze(RequestResponseIndex requestResponseIndex){
 		CacheAnalysis result = new CacheAnalysis();
 		
 		long totalRequestResponseBytes = 0;
@@ -74,20 +79,8 @@ public class CacheAnalysisImpl implements ICacheAnalysis{
 			cacheExpirationResponses.put(expiration,
 					new ArrayList<CacheEntry>());
 		}
-		// Build a sorted list of all of the HTTP request/response in the trace
-		List<HttpRequestResponseInfoWithSession> rrInfo = new ArrayList<HttpRequestResponseInfoWithSession>();
-		for(Session session:sessionlist){
-			if(!session.isUDP()){
-				//rrInfo.addAll(session.getRequestResponseInfo());
-				for(HttpRequestResponseInfo item: session.getRequestResponseInfo()){
-					HttpRequestResponseInfoWithSession itemsession = new HttpRequestResponseInfoWithSession();
-					itemsession.setInfo(item);
-					itemsession.setSession(session);
-					rrInfo.add(itemsession);
-				}
-			} 
-		}
-		Collections.sort(rrInfo);
+		// sorted list of all of the HTTP request/response in the trace
+		List<HttpRequestResponseInfoWithSession> rrInfo = requestResponseIndex.getSorted();
 		// Iterate through responses looking for duplicates
 		for (HttpRequestResponseInfoWithSession httpreqres : rrInfo) {
 			
@@ -0,0 +1,634 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.att.aro.core.ILogger;
+import com.att.aro.core.model.InjectLogger;
+import com.att.aro.core.packetanalysis.IHttpHeaderParser;
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.util.StringPool;
+import com.att.aro.core.util.Util;
+
+/**
+ * Byte level HTTP header parser, it replaces the regular expressions that were
+ * run against every header line. Header names are matched ignoring case
+ * through a table keyed on the length of the name, and a value is only turned
+ * into a String when HttpRequestResponseInfo keeps it. Values that repeat
+ * across a trace, such as host names and content types, share one String
+ * through a StringPool.
+ */
+public class HttpHeaderParserImpl implements IHttpHeaderParser {
+
+	@InjectLogger
+	private static ILogger logger;
+
+	private enum Header {
+		HOST("host"),
+		CONTENT_LENGTH("content-length"),
+		TRANSFER_ENCODING("transfer-encoding"),
+		CONTENT_ENCODING("content-encoding"),
+		CONTENT_TYPE("content-type"),
+		DATE("date"),
+		PRAGMA("pragma"),
+		CACHE_CONTROL("cache-control"),
+		ETAG("etag"),
+		AGE("age"),
+		EXPIRES("expires"),
+		LAST_MODIFIED("last-modified"),
+		CONTENT_RANGE("content-range"),
+		REFERER("referer"),
+		IF_MODIFIED_SINCE("if-modified-since"),
+		IF_NONE_MATCH("if-none-match");
+
+		private final byte[] name;
+
+		private Header(String name) {
+			this.name = ascii(name);
+		}
+	}
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+
+	// "HTTP/1.1", the version may end in 0, 1 or | like the old pattern allowed
+	private static final int VERSION_LENGTH = 8;
+	private static final byte[] HTTP_VERSION = ascii("HTTP/1.");
+	private static final byte[] RTSP_VERSION = ascii("RTSP/1.");
+	private static final String HTTP = "HTTP";
+	private static final String RTSP = "RTSP";
+
+	// shared Strings for the values nearly every message has
+	private static final String[] KNOWN_METHODS = { "GET", "POST", "HEAD", "PUT", "DELETE", "OPTIONS", "CONNECT", "PATCH", "TRACE" };
+	private static final String[] KNOWN_VERSIONS = { "HTTP/1.1", "HTTP/1.0", "RTSP/1.0" };
+
+	private static final int VALUE_POOL_SIZE = 4096;
+
+	private static final byte[] CHUNKED = ascii("chunked");
+	private static final byte[] CHARSET = ascii("charset");
+	private static final byte[] NOCACHE = ascii("no-cache");
+	private static final byte[] NOSTORE = ascii("no-store");
+	private static final byte[] MAXAGE = ascii("max-age");
+	private static final byte[] SMAXAGE = ascii("s-maxage");
+	private static final byte[] MINFRESH = ascii("min-fresh");
+	private static final byte[] MAXSTALE = ascii("max-stale");
+	private static final byte[] PUBLIC = ascii("public");
+	private static final byte[] PRIVATE = ascii("private");
+	private static final byte[] MUSTREVALIDATE = ascii("must-revalidate");
+	private static final byte[] PROXYREVALIDATE = ascii("proxy-revalidate");
+	private static final byte[] ONLYIFCACHED = ascii("only-if-cached");
+	private static final byte[] BYTES = ascii("bytes ");
+	private static final byte[] WEAK = ascii("W/");
+
+	// lower case of every byte value
+	private static final byte[] LOWER = new byte[256];
+
+	// the known headers by the length of their name
+	private static final Header[][] HEADERS_BY_LENGTH;
+
+	static {
+		for (int value = 0; value < LOWER.length; value++) {
+			LOWER[value] = (byte) (value >= 'A' && value <= 'Z' ? value + ('a' - 'A') : value);
+		}
+		int maxLength = 0;
+		for (Header header : Header.values()) {
+			maxLength = Math.max(maxLength, header.name.length);
+		}
+		HEADERS_BY_LENGTH = new Header[maxLength + 1][];
+		for (Header header : Header.values()) {
+			Header[] headers = HEADERS_BY_LENGTH[header.name.length];
+			headers = headers == null ? new Header[1] : Arrays.copyOf(headers, headers.length + 1);
+			headers[headers.length - 1] = header;
+			HEADERS_BY_LENGTH[header.name.length] = headers;
+		}
+	}
+
+	// host names, content types, encodings, charsets and response status lines
+	private final StringPool values = new StringPool(VALUE_POOL_SIZE);
+
+	/**
+	 * A CR takes the byte after it along, as in ByteArrayLineReaderImpl, so
+	 * "\r\r\n" does not end a line. Only CR is compared for in the loop.
+	 */
+	@Override
+	public int findLineEnd(byte[] data, int from, int to) {
+		for (int idx = from; idx < to; idx++) {
+			if (data[idx] == CR) {
+				if (++idx < to && data[idx] == LF) {
+					return idx - 1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean parseRequestLine(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		int methodEnd = skipToken(data, start, end);
+		int targetStart = skipSeparator(data, methodEnd, end);
+		if (targetStart < 0) {
+			return false;
+		}
+		int targetEnd = skipToken(data, targetStart, end);
+		int versionStart = skipSeparator(data, targetEnd, end);
+		if (versionStart < 0 || !isVersion(data, versionStart, end)) {
+			return false;
+		}
+
+		rrInfo.setStatusLine(string(data, start, end));
+		rrInfo.setRequestType(known(data, start, methodEnd, KNOWN_METHODS));
+		rrInfo.setDirection(HttpDirection.REQUEST);
+		rrInfo.setObjName(string(data, targetStart, targetEnd));
+		try {
+			rrInfo.setObjUri(new URI(rrInfo.getObjName()));
+			if (rrInfo.getObjUri().getHost() != null) {
+				rrInfo.setHostName(values.intern(rrInfo.getObjUri().getHost()));
+			}
+		} catch (URISyntaxException e) {
+			// Ignore since value does not have to be a URI
+			logger.error(e.getMessage());
+		}
+		rrInfo.setVersion(known(data, versionStart, versionStart + VERSION_LENGTH, KNOWN_VERSIONS));
+		rrInfo.setScheme(data[versionStart] == 'H' ? HTTP : RTSP);
+		return true;
+	}
+
+	/**
+	 * The reason phrase may be left out, "HTTP/1.1 200" is read as well.
+	 */
+	@Override
+	public boolean parseStatusLine(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		if (!isVersion(data, start, end)) {
+			return false;
+		}
+		int codeStart = skipSeparator(data, start + VERSION_LENGTH, end);
+		if (codeStart < 0) {
+			return false;
+		}
+		int codeEnd = skipDigits(data, codeStart, end);
+		int reasonStart = codeEnd == end ? end : skipSeparator(data, codeEnd, end);
+		long statusCode = parseDigits(data, codeStart, codeEnd);
+		if (reasonStart < 0 || statusCode < 0 || statusCode > Integer.MAX_VALUE) {
+			return false;
+		}
+
+		rrInfo.setStatusLine(values.intern(data, start, end));
+		rrInfo.setDirection(HttpDirection.RESPONSE);
+		rrInfo.setVersion(known(data, start, start + VERSION_LENGTH, KNOWN_VERSIONS));
+		rrInfo.setScheme(data[start] == 'H' ? HTTP : RTSP);
+		rrInfo.setStatusCode((int) statusCode);
+		rrInfo.setResponseResult(values.intern(data, reasonStart, end));
+		return true;
+	}
+
+	@Override
+	public void parseHeaderLine(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		int colon = indexOf(data, start, end, (byte) ':');
+		if (colon < 0) {
+			return;
+		}
+		int nameEnd = colon;
+		while (nameEnd > start && isWhitespace(data[nameEnd - 1])) {
+			nameEnd--;
+		}
+		Header header = lookup(data, start, nameEnd);
+		if (header == null) {
+			return;
+		}
+
+		int valueStart = trimStart(data, colon + 1, end);
+		int valueEnd = trimEnd(data, valueStart, end);
+		switch (header) {
+		case HOST:
+			// Strip port info if included
+			int port = indexOf(data, valueStart, valueEnd, (byte) ':');
+			rrInfo.setHostName(values.intern(data, valueStart, port < 0 ? valueEnd : port));
+			break;
+		case CONTENT_LENGTH:
+			if (rrInfo.getContentLength() == 0) {
+				long contentLength = parseDigits(data, valueStart, valueEnd);
+				if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+					rrInfo.setContentLength((int) contentLength);
+				} else {
+					logger.info("Cannot parse the string to int for contentLength, the value to parse is :" + string(data, valueStart, valueEnd));
+				}
+			}
+			break;
+		case TRANSFER_ENCODING:
+			rrInfo.setChunked(matches(data, valueStart, valueEnd, CHUNKED));
+			break;
+		case CONTENT_ENCODING:
+			rrInfo.setContentEncoding(values.internLowerCase(data, valueStart, valueEnd));
+			break;
+		case CONTENT_TYPE:
+			parseContentType(data, valueStart, valueEnd, rrInfo);
+			break;
+		case DATE:
+			rrInfo.setDate(Util.readHttpDate(string(data, valueStart, valueEnd), false));
+			break;
+		case PRAGMA:
+			if (startsWith(data, valueStart, valueEnd, NOCACHE)) {
+				rrInfo.setHasCacheHeaders(true);
+				rrInfo.setPragmaNoCache(true);
+			}
+			break;
+		case CACHE_CONTROL:
+			parseCacheControl(data, valueStart, valueEnd, rrInfo);
+			break;
+		default:
+			if (rrInfo.getDirection() == HttpDirection.RESPONSE) {
+				parseResponseHeader(header, data, valueStart, valueEnd, rrInfo);
+			} else if (rrInfo.getDirection() == HttpDirection.REQUEST) {
+				parseRequestHeader(header, data, valueStart, valueEnd, rrInfo);
+			}
+			break;
+		}
+	}
+
+	private void parseResponseHeader(Header header, byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		switch (header) {
+		case ETAG:
+			int quote = startsWith(data, start, end, WEAK) ? start + WEAK.length : start;
+			if (quote < end && data[quote] == '"') {
+				int lastQuote = -1;
+				for (int idx = quote + 1; idx < end && data[idx] != CR && data[idx] != LF; idx++) {
+					if (data[idx] == '"') {
+						lastQuote = idx;
+					}
+				}
+				if (lastQuote >= 0) {
+					rrInfo.setEtag(string(data, quote + 1, lastQuote));
+				}
+			}
+			break;
+		case AGE:
+			long age = parseDigits(data, start, skipDigits(data, start, end));
+			if (age >= 0) {
+				rrInfo.setAge(age);
+			}
+			break;
+		case EXPIRES:
+			rrInfo.setExpires(Util.readHttpDate(string(data, start, end), true));
+			break;
+		case LAST_MODIFIED:
+			rrInfo.setLastModified(Util.readHttpDate(string(data, start, end), false));
+			break;
+		case CONTENT_RANGE:
+			parseContentRange(data, start, end, rrInfo);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void parseRequestHeader(Header header, byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		switch (header) {
+		case REFERER:
+			String referrer = string(data, start, end);
+			try {
+				rrInfo.setReferrer(new URI(referrer));
+			} catch (URISyntaxException e) {
+				logger.warn("Invalid referrer URI: " + referrer);
+			}
+			break;
+		case IF_MODIFIED_SINCE:
+			rrInfo.setIfModifiedSince(true);
+			break;
+		case IF_NONE_MATCH:
+			rrInfo.setIfNoneMatch(true);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * "text/html; charset=UTF-8", the media type is kept in lower case.
+	 */
+	private void parseContentType(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		int semicolon = indexOf(data, start, end, (byte) ';');
+		int typeEnd = semicolon < 0 ? end : semicolon;
+		rrInfo.setContentType(values.internLowerCase(data, start, trimEnd(data, start, typeEnd)));
+		while (semicolon >= 0) {
+			int paramStart = semicolon + 1;
+			semicolon = indexOf(data, paramStart, end, (byte) ';');
+			int paramEnd = semicolon < 0 ? end : semicolon;
+			int equals = indexOf(data, paramStart, paramEnd, (byte) '=');
+			if (equals >= 0) {
+				int nameStart = trimStart(data, paramStart, equals);
+				if (matches(data, nameStart, trimEnd(data, nameStart, equals), CHARSET)) {
+					int charsetStart = trimStart(data, equals + 1, paramEnd);
+					rrInfo.setCharset(values.intern(data, charsetStart, trimEnd(data, charsetStart, paramEnd)));
+				}
+			}
+		}
+	}
+
+	private void parseCacheControl(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		rrInfo.setHasCacheHeaders(true);
+		int directiveEnd = start - 1;
+		while (directiveEnd < end) {
+			int directiveStart = directiveEnd + 1;
+			directiveEnd = indexOf(data, directiveStart, end, (byte) ',');
+			if (directiveEnd < 0) {
+				directiveEnd = end;
+			}
+			directiveStart = trimStart(data, directiveStart, directiveEnd);
+			parseCacheDirective(data, directiveStart, trimEnd(data, directiveStart, directiveEnd), rrInfo);
+		}
+	}
+
+	private void parseCacheDirective(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		if (matches(data, start, end, NOCACHE)) {
+			rrInfo.setNoCache(true);
+			return;
+		} else if (matches(data, start, end, NOSTORE)) {
+			rrInfo.setNoStore(true);
+			return;
+		}
+
+		long maxAge = directiveSeconds(data, start, end, MAXAGE);
+		if (maxAge >= 0) {
+			rrInfo.setMaxAge(maxAge);
+			return;
+		}
+
+		if (rrInfo.getDirection() == HttpDirection.REQUEST) {
+			if (matches(data, start, end, ONLYIFCACHED)) {
+				rrInfo.setOnlyIfCached(true);
+				return;
+			}
+			long minFresh = directiveSeconds(data, start, end, MINFRESH);
+			if (minFresh >= 0) {
+				rrInfo.setMinFresh(minFresh);
+				return;
+			}
+			if (startsWith(data, start, end, MAXSTALE)) {
+				// without a number any stale response is accepted
+				int equals = skipWhitespace(data, start + MAXSTALE.length, end);
+				long maxStale = -1;
+				if (equals < end && data[equals] == '=') {
+					int digits = skipWhitespace(data, equals + 1, end);
+					maxStale = parseDigits(data, digits, skipDigits(data, digits, end));
+				}
+				rrInfo.setMaxStale(maxStale >= 0 ? maxStale : Long.MAX_VALUE);
+			}
+
+		} else if (rrInfo.getDirection() == HttpDirection.RESPONSE) {
+			if (matches(data, start, end, PUBLIC)) {
+				rrInfo.setPublicCache(true);
+			} else if (matches(data, start, end, PRIVATE)) {
+				rrInfo.setPrivateCache(true);
+			} else if (matches(data, start, end, MUSTREVALIDATE)) {
+				rrInfo.setMustRevalidate(true);
+			} else if (matches(data, start, end, PROXYREVALIDATE)) {
+				rrInfo.setProxyRevalidate(true);
+			} else {
+				long sMaxAge = directiveSeconds(data, start, end, SMAXAGE);
+				if (sMaxAge >= 0) {
+					rrInfo.setsMaxAge(sMaxAge);
+				}
+			}
+		}
+	}
+
+	/**
+	 * "bytes 0-499/1234", a total of "*" leaves rangeFull unset.
+	 */
+	private void parseContentRange(byte[] data, int start, int end, HttpRequestResponseInfo rrInfo) {
+		if (!startsWith(data, start, end, BYTES)) {
+			return;
+		}
+		int firstStart = start + BYTES.length;
+		int firstEnd = skipDigits(data, firstStart, end);
+		int dash = skipWhitespace(data, firstEnd, end);
+		if (dash == end || data[dash] != '-') {
+			return;
+		}
+		int lastStart = skipWhitespace(data, dash + 1, end);
+		int lastEnd = skipDigits(data, lastStart, end);
+		int slash = skipWhitespace(data, lastEnd, end);
+		if (slash == end || data[slash] != '/') {
+			return;
+		}
+		long first = parseDigits(data, firstStart, firstEnd);
+		if (first < 0 || first > Integer.MAX_VALUE) {
+			return;
+		}
+
+		rrInfo.setRangeResponse(true);
+		rrInfo.setRangeFirst((int) first);
+		long last = parseDigits(data, lastStart, lastEnd);
+		if (last >= 0 && last <= Integer.MAX_VALUE) {
+			rrInfo.setRangeLast((int) last);
+		} else {
+			logger.info("Cannot parse the string to int for rangeLast, the value to parse is :" + string(data, lastStart, lastEnd));
+		}
+		int fullStart = skipWhitespace(data, slash + 1, end);
+		long full = parseDigits(data, fullStart, skipDigits(data, fullStart, end));
+		if (full >= 0) {
+			rrInfo.setRangeFull(full);
+		}
+
+		if (rrInfo.getContentLength() == 0) {
+			rrInfo.setContentLength(rrInfo.getRangeLast() - rrInfo.getRangeFirst() + 1);
+		}
+	}
+
+	/**
+	 * Seconds of a "name=seconds" cache directive, -1 when the directive has
+	 * another name or no number.
+	 */
+	private static long directiveSeconds(byte[] data, int start, int end, byte[] name) {
+		if (!startsWith(data, start, end, name)) {
+			return -1;
+		}
+		int equals = skipWhitespace(data, start + name.length, end);
+		if (equals == end || data[equals] != '=') {
+			return -1;
+		}
+		int digits = skipWhitespace(data, equals + 1, end);
+		return parseDigits(data, digits, skipDigits(data, digits, end));
+	}
+
+	private static Header lookup(byte[] data, int start, int end) {
+		int length = end - start;
+		if (length >= HEADERS_BY_LENGTH.length || HEADERS_BY_LENGTH[length] == null) {
+			return null;
+		}
+		for (Header header : HEADERS_BY_LENGTH[length]) {
+			if (equalsIgnoreCase(data, start, header.name)) {
+				return header;
+			}
+		}
+		return null;
+	}
+
+	private static boolean equalsIgnoreCase(byte[] data, int start, byte[] lowerCaseName) {
+		for (int idx = 0; idx < lowerCaseName.length; idx++) {
+			if (LOWER[data[start + idx] & 0xFF] != lowerCaseName[idx]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isVersion(byte[] data, int start, int end) {
+		if (end - start < VERSION_LENGTH
+				|| !(startsWith(data, start, end, HTTP_VERSION) || startsWith(data, start, end, RTSP_VERSION))) {
+			return false;
+		}
+		byte minor = data[start + VERSION_LENGTH - 1];
+		return minor == '0' || minor == '1' || minor == '|';
+	}
+
+	/**
+	 * Value of the digits in data[start, end), -1 when there are none or they
+	 * do not fit a long.
+	 */
+	private static long parseDigits(byte[] data, int start, int end) {
+		if (start >= end) {
+			return -1;
+		}
+		long value = 0;
+		for (int idx = start; idx < end; idx++) {
+			int digit = data[idx] - '0';
+			if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private static int skipDigits(byte[] data, int from, int end) {
+		int idx = from;
+		while (idx < end && data[idx] >= '0' && data[idx] <= '9') {
+			idx++;
+		}
+		return idx;
+	}
+
+	private static int skipToken(byte[] data, int from, int end) {
+		int idx = from;
+		while (idx < end && !isWhitespace(data[idx])) {
+			idx++;
+		}
+		return idx;
+	}
+
+	private static int skipWhitespace(byte[] data, int from, int end) {
+		int idx = from;
+		while (idx < end && isWhitespace(data[idx])) {
+			idx++;
+		}
+		return idx;
+	}
+
+	/**
+	 * Skips whitespace that has at least one space in it, returns -1 when
+	 * there is no such separator at from.
+	 */
+	private static int skipSeparator(byte[] data, int from, int end) {
+		boolean space = false;
+		int idx = from;
+		while (idx < end && isWhitespace(data[idx])) {
+			space |= data[idx] == ' ';
+			idx++;
+		}
+		return space ? idx : -1;
+	}
+
+	private static boolean isWhitespace(byte value) {
+		return value == ' ' || value == '\t' || value == LF || value == CR || value == '\f' || value == 0x0B;
+	}
+
+	/**
+	 * Same as String.trim(), skips everything up to and including space.
+	 */
+	private static int trimStart(byte[] data, int from, int end) {
+		int idx = from;
+		while (idx < end && (data[idx] & 0xFF) <= ' ') {
+			idx++;
+		}
+		return idx;
+	}
+
+	private static int trimEnd(byte[] data, int start, int to) {
+		int idx = to;
+		while (idx > start && (data[idx - 1] & 0xFF) <= ' ') {
+			idx--;
+		}
+		return idx;
+	}
+
+	private static int indexOf(byte[] data, int from, int end, byte value) {
+		for (int idx = from; idx < end; idx++) {
+			if (data[idx] == value) {
+				return idx;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean startsWith(byte[] data, int start, int end, byte[] prefix) {
+		if (end - start < prefix.length) {
+			return false;
+		}
+		for (int idx = 0; idx < prefix.length; idx++) {
+			if (data[start + idx] != prefix[idx]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(byte[] data, int start, int end, byte[] value) {
+		return end - start == value.length && startsWith(data, start, end, value);
+	}
+
+	/**
+	 * Returns the shared String when data[start, end) spells one of the known
+	 * values.
+	 */
+	private static String known(byte[] data, int start, int end, String[] knownValues) {
+		for (String value : knownValues) {
+			if (value.length() == end - start && value.charAt(0) == data[start]) {
+				int idx = 1;
+				while (idx < value.length() && value.charAt(idx) == data[start + idx]) {
+					idx++;
+				}
+				if (idx == value.length()) {
+					return value;
+				}
+			}
+		}
+		return string(data, start, end);
+	}
+
+	private static String string(byte[] data, int start, int end) {
+		return new String(data, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
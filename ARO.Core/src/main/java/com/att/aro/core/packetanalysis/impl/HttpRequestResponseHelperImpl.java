@@ -18,7 +18,8 @@ package com.att.aro.core.packetanalysis.impl;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Iterator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.zip.GZIPInputStream;
@@ -26,6 +27,7 @@ import java.util.zip.GZIPInputStream;
 import com.att.aro.core.ILogger;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
+import com.att.aro.core.packetanalysis.pojo.ContentFingerprint;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -185,66 +187,49 @@ public class HttpRequestResponseHelperImpl implements IHttpRequestResponseHelper
 		if (left.getContentLength() > 0 && left.getContentLength() != right.getContentLength()) {
 			return false;
 		}
-		boolean yes = true;
-		long leftcount = getActualByteCount(left, session);
-		long rightcount = getActualByteCount(right, sessionRight);
-		if(leftcount == rightcount){
-			
-			if(leftcount == 0){
-				return true;
-			}
-			
-			// Otherwise do byte by byte compare
-			byte[] bufferLeft = getStorageBuffer(left, session);
-			byte[] bufferRight = getStorageBuffer(right, sessionRight);
-			
-			Iterator<Map.Entry<Integer, Integer>> itleft = left.getContentOffsetLength().entrySet().iterator();
-			Iterator<Map.Entry<Integer, Integer>> itright = right.getContentOffsetLength().entrySet().iterator();
-			int indexLeft = 0;
-			int stopLeft = 0;
-			int indexRight = 0;
-			int stopRight = 0;
-			if(itleft.hasNext() && itright.hasNext()){
-				Map.Entry<Integer, Integer> entryLeft = itleft.next();
-				Map.Entry<Integer, Integer> entryRight = itright.next();
-				indexLeft = entryLeft.getKey();
-				stopLeft = indexLeft + entryLeft.getValue();
-				indexRight = entryRight.getKey();
-				stopRight = entryRight.getValue();
-				do{
-					if(bufferLeft[indexLeft] != bufferRight[indexRight]){
-						return false;
-					}
-					++indexLeft;
-					++indexRight;
-					if(indexLeft >= bufferLeft.length || indexRight >= bufferRight.length){
-						break;
-					}
-					if(indexLeft >= stopLeft){
-						if(itleft.hasNext()){
-							entryLeft = itleft.next();
-							indexLeft = entryLeft.getKey();
-							stopLeft = indexLeft + entryLeft.getValue();
-						}else{
-							break;
-						}
-					}
-					if(indexRight >= stopRight){
-						if(itright.hasNext()){
-							entryRight = itright.next();
-							indexRight = entryRight.getKey();
-							stopRight = entryRight.getValue();
-						}else{
-							break;
-						}
+		if (getActualByteCount(left, session) != getActualByteCount(right, sessionRight)) {
+			return false;
+		}
+		return getContentFingerprint(left, session).equals(getContentFingerprint(right, sessionRight));
+	}
+	/**
+	 * Returns the fingerprint of the captured body bytes. It is computed on the
+	 * first call and kept on the request/response, so every body is read once
+	 * however often it is compared.
+	 * 
+	 * @param item
+	 * @param session the session item was read from
+	 * @return ContentFingerprint, of no bytes when nothing was captured
+	 */
+	public ContentFingerprint getContentFingerprint(HttpRequestResponseInfo item, Session session) {
+		ContentFingerprint fingerprint = item.getContentFingerprint();
+		if (fingerprint == null) {
+			MessageDigest digest = newDigest();
+			long byteCount = 0;
+			byte[] buffer = getStorageBuffer(item, session);
+			if (item.getContentOffsetLength() != null && buffer != null) {
+				for (Map.Entry<Integer, Integer> entry : item.getContentOffsetLength().entrySet()) {
+					int start = entry.getKey();
+					// Only include what was actually downloaded.
+					int size = (int) Math.min(entry.getValue(), (long) buffer.length - start);
+					if (start >= 0 && size > 0) {
+						digest.update(buffer, start, size);
+						byteCount += size;
 					}
-				}while(true);
+				}
 			}
-			yes = true;
-		}else{
-			yes = false;
+			fingerprint = new ContentFingerprint(byteCount, digest.digest());
+			item.setContentFingerprint(fingerprint);
+		}
+		return fingerprint;
+	}
+	private MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to provide SHA-256
+			throw new IllegalStateException(e);
 		}
-		return yes;
 	}
 	/**
 	 * Gets the number of bytes in the request/response body. The actual byte
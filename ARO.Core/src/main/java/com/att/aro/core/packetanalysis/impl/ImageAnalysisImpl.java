@@ -0,0 +1,556 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.GenericImageMetadata;
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.bytesource.ByteSourceFile;
+import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
+import org.apache.commons.imaging.formats.jpeg.JpegImageParser;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.att.aro.core.ILogger;
+import com.att.aro.core.fileio.IFileManager;
+import com.att.aro.core.model.InjectLogger;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.AbstractTraceResult;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
+import com.att.aro.core.packetanalysis.pojo.ImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.ImageInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageTrial;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
+import com.att.aro.core.util.Util;
+import com.github.jaiimageio.jpeg2000.J2KImageWriteParam;
+import com.luciad.imageio.webp.WebPWriteParam;
+
+/**
+ * Reads the images extracted to the trace Image folder for the image best practices.
+ * <p>
+ * Each image file is handled by one task, no matter how many responses carried it. The task reads the dimensions from the
+ * image header and the metadata of jpeg images, then submits one task per trial output that is not on disk yet. Trial tasks
+ * share decoded rasters through a cache bounded by pixel count, so a jpeg is decoded once for its mid quality, low quality and
+ * converted copies, and once more at most when the cache evicted it in between.
+ */
+public class ImageAnalysisImpl implements IImageAnalysis {
+
+	enum Quality {
+		MID(85), LOW(70);
+		private int percent;
+
+		private Quality(int percent) {
+			this.percent = percent;
+		}
+
+		public int getPercent() {
+			return percent;
+		}
+
+		public float getFraction() {
+			return ((float) percent) / 100;
+		}
+
+		public String getFileDesc() {
+			return "_compressed_" + getPercent() + ".0";
+		}
+	}
+
+	/**
+	 * about 64MB of 32 bit pixels, held only while one analysis runs
+	 */
+	private static final long RASTER_CACHE_PIXELS = 16L * 1024 * 1024;
+
+	private static final long TIMEOUT_MINUTES = 10;
+
+	@InjectLogger
+	private static ILogger LOGGER;
+
+	@Autowired
+	private IFileManager filemanager;
+
+	@Override
+	public synchronized ImageAnalysis analyze(PacketAnalyzerResult tracedata, Set<ImageTrial> trials) {
+		ImageAnalysis previous = tracedata.getImageAnalysis();
+		if (previous != null && previous.getTrials().containsAll(trials)) {
+			return previous;
+		}
+		Set<ImageTrial> allTrials = EnumSet.noneOf(ImageTrial.class);
+		allTrials.addAll(trials);
+		if (previous != null) {
+			allTrials.addAll(previous.getTrials());
+		}
+
+		ImageAnalysis result = new ImageAnalysis();
+		result.setTrials(allTrials);
+		Map<String, List<ImageInfo>> imagesByFile = collectImages(tracedata, result.getImages());
+
+		AbstractTraceResult traceresult = tracedata.getTraceresult();
+		if (traceresult != null && traceresult.getTraceDirectory() != null && !imagesByFile.isEmpty()) {
+			String imageFolderPath = traceresult.getTraceDirectory() + Util.FILE_SEPARATOR + "Image" + Util.FILE_SEPARATOR;
+			result.setImageFolderPath(imageFolderPath);
+			result.setCompressedFolderPath(imageFolderPath + "Compressed" + Util.FILE_SEPARATOR);
+			result.setFormatFolderPath(imageFolderPath + "Format" + Util.FILE_SEPARATOR);
+			result.setConvertedExtension(isAndroid(traceresult) ? "webp" : "jp2");
+			if (filemanager.directoryExist(imageFolderPath)) {
+				readImages(result, imagesByFile);
+			}
+		}
+		tracedata.setImageAnalysis(result);
+		return result;
+	}
+
+	/**
+	 * Collects every image response in trace order
+	 *
+	 * @return the images grouped by file name
+	 */
+	private Map<String, List<ImageInfo>> collectImages(PacketAnalyzerResult tracedata, List<ImageInfo> images) {
+		Map<String, List<ImageInfo>> imagesByFile = new LinkedHashMap<String, List<ImageInfo>>();
+		if (tracedata.getSessionlist() == null) {
+			return imagesByFile;
+		}
+		for (HttpRequestResponseInfoWithSession itemsession : tracedata.getRequestResponseIndex().getResponses()) {
+			HttpRequestResponseInfo req = itemsession.getInfo();
+			if (req.getContentType() != null && req.getContentType().contains("image/")) {
+				ImageInfo image = new ImageInfo();
+				image.setResponse(req);
+				image.setPrecedingRequest(itemsession.getPrecedingRequest());
+				image.setSession(itemsession.getSession());
+				image.setFileName(extractFullNameFromRRInfo(req));
+				images.add(image);
+				if (!image.getFileName().isEmpty()) {
+					List<ImageInfo> sameFile = imagesByFile.get(image.getFileName());
+					if (sameFile == null) {
+						sameFile = new ArrayList<ImageInfo>();
+						imagesByFile.put(image.getFileName(), sameFile);
+					}
+					sameFile.add(image);
+				}
+			}
+		}
+		return imagesByFile;
+	}
+
+	private void readImages(ImageAnalysis result, Map<String, List<ImageInfo>> imagesByFile) {
+		if (result.hasTrial(ImageTrial.COMPRESSION) && !filemanager.directoryExist(result.getCompressedFolderPath())) {
+			filemanager.mkDir(result.getCompressedFolderPath());
+		}
+		if (result.hasTrial(ImageTrial.FORMAT) && !filemanager.directoryExist(result.getFormatFolderPath())) {
+			filemanager.mkDir(result.getFormatFolderPath());
+		}
+
+		// file names come from urls, match them to the extracted files ignoring case as before
+		Map<String, File> filesByName = new HashMap<String, File>();
+		File[] listOfFiles = new File(result.getImageFolderPath()).listFiles();
+		if (listOfFiles != null) {
+			for (File file : listOfFiles) {
+				if (file.isFile()) {
+					filesByName.put(file.getName().toLowerCase(Locale.ENGLISH), file);
+				}
+			}
+		}
+
+		int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), imagesByFile.size()));
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		RasterCache rasterCache = new RasterCache(RASTER_CACHE_PIXELS);
+		try {
+			Map<String, Future<ImageFileResult>> futures = new LinkedHashMap<String, Future<ImageFileResult>>();
+			for (String fileName : imagesByFile.keySet()) {
+				File file = filesByName.get(fileName.toLowerCase(Locale.ENGLISH));
+				if (file != null) {
+					futures.put(fileName, exec.submit(new ImageFileTask(file, fileName, result, exec, rasterCache)));
+				}
+			}
+
+			long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(TIMEOUT_MINUTES);
+			for (Map.Entry<String, Future<ImageFileResult>> entry : futures.entrySet()) {
+				ImageFileResult fileResult = await(entry.getValue(), deadline);
+				if (fileResult == null) {
+					continue;
+				}
+				long midQualitySize = sizeOf(fileResult.midQuality, deadline);
+				long lowQualitySize = sizeOf(fileResult.lowQuality, deadline);
+				long convertedSize = sizeOf(fileResult.converted, deadline);
+				for (ImageInfo image : imagesByFile.get(entry.getKey())) {
+					image.setFilePath(result.getImageFolderPath() + image.getFileName());
+					image.setFileSize(fileResult.fileSize);
+					image.setJpeg(fileResult.jpeg);
+					image.setWidth(fileResult.width);
+					image.setHeight(fileResult.height);
+					image.setMetadataPresent(fileResult.metadataPresent);
+					image.setMetadataSize(fileResult.metadataSize);
+					image.setMidQualitySize(midQualitySize);
+					image.setLowQualitySize(lowQualitySize);
+					image.setConvertedSize(convertedSize);
+				}
+			}
+		} finally {
+			exec.shutdownNow();
+		}
+	}
+
+	private long sizeOf(Future<Long> trial, long deadline) {
+		if (trial == null) {
+			return 0;
+		}
+		Long size = await(trial, deadline);
+		return size != null ? size : 0;
+	}
+
+	private <T> T await(Future<T> future, long deadline) {
+		try {
+			return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.error(e.getMessage(), e);
+		} catch (ExecutionException e) {
+			LOGGER.error("Image analysis failed", e.getCause());
+		} catch (TimeoutException e) {
+			LOGGER.error("Image analysis timed out after " + TIMEOUT_MINUTES + " minutes");
+			future.cancel(true);
+		}
+		return null;
+	}
+
+	private boolean isAndroid(AbstractTraceResult traceresult) {
+		if (traceresult instanceof TraceDirectoryResult) {
+			TraceDirectoryResult traceDirectoryResult = (TraceDirectoryResult) traceresult;
+			return traceDirectoryResult.getDeviceDetail() != null
+					&& "android".equalsIgnoreCase(traceDirectoryResult.getDeviceDetail().getOsType());
+		}
+		return true;
+	}
+
+	private String extractFullNameFromRRInfo(HttpRequestResponseInfo hrri) {
+		HttpRequestResponseInfo rsp = hrri.getAssocReqResp();
+		String extractedImageName = "";
+		String imageName = "";
+		if (rsp != null && rsp.getObjName() != null) {
+			String imagefromReq = rsp.getObjName();
+			imageName = imagefromReq.substring(imagefromReq.lastIndexOf(Util.FILE_SEPARATOR) + 1);
+			int pos = imageName.lastIndexOf("/") + 1;
+			extractedImageName = imageName.substring(pos);
+		}
+		return extractedImageName;
+	}
+
+	/**
+	 * What was learned about one image file, trial sizes are filled in as their tasks complete
+	 */
+	private static class ImageFileResult {
+		long fileSize;
+		boolean jpeg;
+		int width = -1;
+		int height = -1;
+		boolean metadataPresent;
+		long metadataSize;
+		Future<Long> midQuality;
+		Future<Long> lowQuality;
+		Future<Long> converted;
+	}
+
+	private class ImageFileTask implements Callable<ImageFileResult> {
+		private final File file;
+		private final String fileName;
+		private final ImageAnalysis analysis;
+		private final ExecutorService exec;
+		private final RasterCache rasterCache;
+
+		ImageFileTask(File file, String fileName, ImageAnalysis analysis, ExecutorService exec, RasterCache rasterCache) {
+			this.file = file;
+			this.fileName = fileName;
+			this.analysis = analysis;
+			this.exec = exec;
+			this.rasterCache = rasterCache;
+		}
+
+		@Override
+		public ImageFileResult call() {
+			ImageFileResult fileResult = new ImageFileResult();
+			fileResult.fileSize = file.length();
+			String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+			fileResult.jpeg = fileName.lastIndexOf('.') >= 0
+					&& (extension.equalsIgnoreCase("jpeg") || extension.equalsIgnoreCase("jpg"));
+
+			readDimensions(fileResult);
+			if (!fileResult.jpeg) {
+				return fileResult;
+			}
+			if (analysis.hasTrial(ImageTrial.METADATA)) {
+				readMetadata(fileResult);
+			}
+
+			String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+			List<TrialTask> trialTasks = new ArrayList<TrialTask>(3);
+			if (analysis.hasTrial(ImageTrial.COMPRESSION)) {
+				trialTasks.add(new TrialTask(file, new File(analysis.getCompressedFolderPath() + baseName + Quality.MID.getFileDesc() + "." + extension), extension, Quality.MID, rasterCache));
+				trialTasks.add(new TrialTask(file, new File(analysis.getCompressedFolderPath() + baseName + Quality.LOW.getFileDesc() + "." + extension), extension, Quality.LOW, rasterCache));
+			}
+			if (analysis.hasTrial(ImageTrial.FORMAT)) {
+				String convertedExtension = analysis.getConvertedExtension();
+				trialTasks.add(new TrialTask(file, new File(analysis.getFormatFolderPath() + baseName + "." + convertedExtension), convertedExtension, null, rasterCache));
+			}
+
+			// decode before fanning out so the trials find the raster in the cache
+			for (TrialTask trialTask : trialTasks) {
+				if (trialTask.output.length() == 0) {
+					decode(file, rasterCache);
+					break;
+				}
+			}
+			for (TrialTask trialTask : trialTasks) {
+				Future<Long> future = exec.submit(trialTask);
+				if (trialTask.quality == Quality.MID) {
+					fileResult.midQuality = future;
+				} else if (trialTask.quality == Quality.LOW) {
+					fileResult.lowQuality = future;
+				} else {
+					fileResult.converted = future;
+				}
+			}
+			return fileResult;
+		}
+
+		/**
+		 * reads width and height from the image header without decoding the image
+		 */
+		private void readDimensions(ImageFileResult fileResult) {
+			BufferedImage cached = rasterCache.get(file);
+			if (cached != null) {
+				fileResult.width = cached.getWidth();
+				fileResult.height = cached.getHeight();
+				return;
+			}
+			try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+				if (input == null) {
+					return;
+				}
+				Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+				if (readers.hasNext()) {
+					ImageReader reader = readers.next();
+					try {
+						reader.setInput(input, true, true);
+						fileResult.width = reader.getWidth(0);
+						fileResult.height = reader.getHeight(0);
+					} finally {
+						reader.dispose();
+					}
+				}
+			} catch (IOException e) {
+				LOGGER.debug("Failed to read dimensions of " + file.getName() + ": " + e.getMessage());
+			}
+		}
+
+		private void readMetadata(ImageFileResult fileResult) {
+			try {
+				ImageMetadata metadata = Imaging.getMetadata(file);
+				if (metadata instanceof JpegImageMetadata) {
+					fileResult.metadataPresent = ((JpegImageMetadata) metadata).getExif() != null;
+				} else if (metadata instanceof GenericImageMetadata) {
+					GenericImageMetadata genMetadata = (GenericImageMetadata) metadata;
+					fileResult.metadataPresent = genMetadata.getItems() != null && genMetadata.getItems().size() > 5;
+				}
+			} catch (IOException | ImageReadException imgException) {
+				LOGGER.error(imgException.toString());
+			}
+			if (fileResult.metadataPresent) {
+				try {
+					byte[] mdata = new JpegImageParser().getExifRawData(new ByteSourceFile(file));
+					fileResult.metadataSize = mdata != null ? mdata.length : 0;
+				} catch (ImageReadException | IOException e) {
+					LOGGER.debug("No EXIF data in " + file.getName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes one compressed or converted copy of an image, an output left by an earlier analysis is kept
+	 */
+	private class TrialTask implements Callable<Long> {
+		private final File source;
+		private final File output;
+		private final String formatName;
+		private final Quality quality;
+		private final RasterCache rasterCache;
+
+		/**
+		 * @param quality
+		 *            jpeg quality, null to convert to formatName
+		 */
+		TrialTask(File source, File output, String formatName, Quality quality, RasterCache rasterCache) {
+			this.source = source;
+			this.output = output;
+			this.formatName = formatName;
+			this.quality = quality;
+			this.rasterCache = rasterCache;
+		}
+
+		@Override
+		public Long call() throws IOException {
+			if (output.length() > 0) {
+				return output.length();
+			}
+			BufferedImage image = decode(source, rasterCache);
+			if (image == null) {
+				return 0L;
+			}
+			if (quality != null) {
+				compress(image);
+			} else {
+				convert(image);
+			}
+			return output.length();
+		}
+
+		private void compress(BufferedImage image) throws IOException {
+			ImageWriter writer = null;
+			try (OutputStream outputStr = new FileOutputStream(output);
+					ImageOutputStream imgOutputStrm = ImageIO.createImageOutputStream(outputStr)) {
+				Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+				writer = writers.next();
+				writer.setOutput(imgOutputStrm);
+				ImageWriteParam param = writer.getDefaultWriteParam();
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(quality.getFraction());
+				writer.write(null, new IIOImage(image, null, null), param);
+			} finally {
+				if (writer != null) {
+					writer.dispose();
+				}
+			}
+		}
+
+		private void convert(BufferedImage image) throws IOException {
+			ImageWriter writer = null;
+			try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(output)) {
+				ImageWriteParam writeParam;
+				if (formatName.equalsIgnoreCase("webp")) {
+					writer = ImageIO.getImageWritersByMIMEType("image/webp").next();
+					writeParam = new WebPWriteParam(writer.getLocale());
+					writeParam.setCompressionMode(WebPWriteParam.MODE_EXPLICIT);
+				} else {
+					writer = ImageIO.getImageWritersBySuffix("jp2").next();
+					J2KImageWriteParam writeParams = (J2KImageWriteParam) writer.getDefaultWriteParam();
+					writeParams.setLossless(false);
+					writeParams.setCompressionMode(J2KImageWriteParam.MODE_EXPLICIT);
+					writeParams.setFilter(J2KImageWriteParam.FILTER_97);
+					writeParams.setCompressionType("JPEG2000");
+					writeParams.setCompressionQuality(0.85f);
+					writeParam = writeParams;
+				}
+				writer.setOutput(imageOutputStream);
+				writer.write(null, new IIOImage(image, null, null), writeParam);
+				imageOutputStream.flush();
+			} finally {
+				if (writer != null) {
+					writer.dispose();
+				}
+			}
+		}
+	}
+
+	private BufferedImage decode(File file, RasterCache rasterCache) {
+		BufferedImage image = rasterCache.get(file);
+		if (image == null) {
+			try {
+				image = ImageIO.read(file);
+			} catch (IOException e) {
+				LOGGER.error(e.toString(), e);
+			}
+			if (image != null) {
+				rasterCache.put(file, image);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Least recently used decoded images, bounded by their total pixel count.
+	 * Entries are keyed by path, size and modification time so a re-extracted file is decoded again.
+	 */
+	private static class RasterCache {
+		private final long maxPixels;
+		private long pixels = 0;
+		private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true);
+
+		RasterCache(long maxPixels) {
+			this.maxPixels = maxPixels;
+		}
+
+		synchronized BufferedImage get(File file) {
+			return images.get(key(file));
+		}
+
+		synchronized void put(File file, BufferedImage image) {
+			long size = pixels(image);
+			if (size > maxPixels) {
+				return;
+			}
+			BufferedImage replaced = images.put(key(file), image);
+			if (replaced != null) {
+				pixels -= pixels(replaced);
+			}
+			pixels += size;
+			Iterator<BufferedImage> eldest = images.values().iterator();
+			while (pixels > maxPixels && eldest.hasNext()) {
+				pixels -= pixels(eldest.next());
+				eldest.remove();
+			}
+		}
+
+		private static long pixels(BufferedImage image) {
+			return (long) image.getWidth() * image.getHeight();
+		}
+
+		private static String key(File file) {
+			return file.getAbsolutePath() + '|' + file.length() + '|' + file.lastModified();
+		}
+	}
+}
@@ -0,0 +1,409 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.packetanalysis.IRrcStateRangeFactory;
+import com.att.aro.core.packetanalysis.ISessionManager;
+import com.att.aro.core.packetanalysis.pojo.LiveTraceSnapshot;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.Throughput;
+import com.att.aro.core.packetreader.pojo.IPPacket;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+import com.att.aro.core.packetreader.pojo.TCPPacket;
+import com.att.aro.core.packetreader.pojo.UDPPacket;
+
+/**
+ * Analysis state of one live trace, only used from its analysis thread.
+ *
+ * Every snapshot only redoes the work the new packets make necessary:
+ * <ul>
+ * <li>Sessions are assembled per connection, and only for connections that
+ * got packets since the last snapshot. A TCP connection is assembled with the
+ * DNS packets seen before it started, so it gets the same host name. The
+ * session manager has no way to add packets to a session it assembled, so a
+ * connection is assembled from its first packet every time. To keep that
+ * linear in the packets of the connection, one of LARGE_CONNECTION packets or
+ * more is only assembled again once it has grown by half. Until then
+ * snapshots show its sessions as they were, the last snapshot has them all
+ * up to date.</li>
+ * <li>RRC states before an idle period do not depend on later packets, the
+ * radio starts over after it. The ranges up to the last idle period are kept
+ * and only the packets from the one before it on go through the state range
+ * factory again. That packet is there because the 3G model treats the first
+ * packet of a trace differently, its ranges are dropped. An idle period too
+ * short to come out the same that way is not used.</li>
+ * <li>Throughput windows are closed as packets pass their end, only the open
+ * window is worked out for each snapshot.</li>
+ * </ul>
+ * Packets get direction, relative time stamp and id the way TraceDataReaderImpl
+ * gives them, but from the packets seen so far.
+ */
+final class LiveTrace {
+
+	static final int LARGE_CONNECTION = 1000;
+
+	private final ISessionManager sessionmanager;
+	private final IRrcStateRangeFactory staterange;
+	private final Profile profile;
+	private final double throughputWindow;
+
+	private final List<PacketInfo> packets = new ArrayList<PacketInfo>();
+	private double pcapTime0 = -1;
+	private long uploadBytes;
+	private long downloadBytes;
+
+	private final Set<InetAddress> localIPAddresses = new HashSet<InetAddress>();
+	private final Map<InetAddress, Integer> ipCountMap = new HashMap<InetAddress, Integer>();
+
+	private final Map<String, Connection> connections = new LinkedHashMap<String, Connection>();
+	private final List<PacketInfo> dnsPackets = new ArrayList<PacketInfo>();
+	private final Set<String> changed = new LinkedHashSet<String>();
+
+	// ranges before the idle period at rrcCheckpointTime, the state range factory starts at packet rrcCheckpoint,
+	// the last packet before that idle period
+	private final List<RrcStateRange> rrcRanges = new ArrayList<RrcStateRange>();
+	private int rrcCheckpoint;
+	private double rrcCheckpointTime;
+
+	private final List<Throughput> throughput = new ArrayList<Throughput>();
+	private double windowEnd;
+	private long windowUploadBytes;
+	private long windowDownloadBytes;
+	// bytes of the open window at its latest time stamp, which ThroughputCalculatorImpl leaves out
+	private double latestTime = -1;
+	private long latestUploadBytes;
+	private long latestDownloadBytes;
+
+	LiveTrace(ISessionManager sessionmanager, IRrcStateRangeFactory staterange, Profile profile) {
+		this.sessionmanager = sessionmanager;
+		this.staterange = staterange;
+		this.profile = profile;
+		this.throughputWindow = profile.getThroughputWindow();
+		this.windowEnd = throughputWindow;
+	}
+
+	int getPacketCount() {
+		return packets.size();
+	}
+
+	/**
+	 * Adds a packet as read from the capture, packets other than IP are dropped.
+	 */
+	void add(PacketInfo packet) {
+		if (!(packet.getPacket() instanceof IPPacket)) {
+			return;
+		}
+		IPPacket ipPacket = (IPPacket) packet.getPacket();
+		if (pcapTime0 < 0) {
+			pcapTime0 = ipPacket.getTimeStamp();
+		}
+		addIpCount(ipPacket.getSourceIPAddress());
+		addIpCount(ipPacket.getDestinationIPAddress());
+		packet.setDir(determinePacketDirection(ipPacket.getSourceIPAddress(), ipPacket.getDestinationIPAddress()));
+		packet.setTimestamp(ipPacket.getTimeStamp() - pcapTime0);
+		packet.setPacketId(packets.size() + 1);
+
+		addInTimeOrder(packet);
+		addToThroughput(packet);
+		addToConnection(packet);
+	}
+
+	/**
+	 * Capture tools write packets in time order but for the odd one, which is
+	 * moved back to its place. One that goes before the RRC checkpoint has all
+	 * RRC states worked out again.
+	 */
+	private void addInTimeOrder(PacketInfo packet) {
+		int index = packets.size();
+		while (index > 0 && packets.get(index - 1).getTimeStamp() > packet.getTimeStamp()) {
+			index--;
+		}
+		packets.add(index, packet);
+		if (index <= rrcCheckpoint + 1 && rrcCheckpoint > 0) {
+			rrcRanges.clear();
+			rrcCheckpoint = 0;
+		}
+	}
+
+	private void addIpCount(InetAddress address) {
+		Integer count = ipCountMap.get(address);
+		ipCountMap.put(address, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * Same guess as TraceDataReaderImpl: known local addresses first, then the
+	 * 10.x.x.x range, then the address seen in more packets.
+	 */
+	private PacketDirection determinePacketDirection(InetAddress source, InetAddress dest) {
+		if (localIPAddresses.contains(source)) {
+			return PacketDirection.UPLINK;
+		} else if (localIPAddresses.contains(dest)) {
+			return PacketDirection.DOWNLINK;
+		}
+		boolean srcLocal = isLocal(source);
+		boolean destLocal = isLocal(dest);
+		if (srcLocal && !destLocal) {
+			localIPAddresses.add(source);
+			return PacketDirection.UPLINK;
+		} else if (destLocal && !srcLocal) {
+			localIPAddresses.add(dest);
+			return PacketDirection.DOWNLINK;
+		}
+		if (ipCountMap.get(source).intValue() >= ipCountMap.get(dest).intValue()) {
+			localIPAddresses.add(source);
+			return PacketDirection.UPLINK;
+		} else {
+			localIPAddresses.add(dest);
+			return PacketDirection.DOWNLINK;
+		}
+	}
+
+	private static boolean isLocal(InetAddress ipAddress) {
+		return ipAddress instanceof Inet4Address && ipAddress.getAddress()[0] == 10;
+	}
+
+	/**
+	 * Closes the windows the packet is past, then counts it in the open one.
+	 * Same windows as ThroughputCalculatorImpl with the profile throughput
+	 * window as step.
+	 */
+	private void addToThroughput(PacketInfo packet) {
+		while (packet.getTimeStamp() >= windowEnd) {
+			throughput.add(new Throughput(windowEnd - throughputWindow, windowEnd, windowUploadBytes, windowDownloadBytes));
+			windowUploadBytes = 0;
+			windowDownloadBytes = 0;
+			latestUploadBytes = 0;
+			latestDownloadBytes = 0;
+			windowEnd += throughputWindow;
+		}
+		if (packet.getTimeStamp() > latestTime) {
+			latestTime = packet.getTimeStamp();
+			latestUploadBytes = 0;
+			latestDownloadBytes = 0;
+		}
+		boolean latest = packet.getTimeStamp() == latestTime;
+		if (packet.getDir() == PacketDirection.UPLINK) {
+			uploadBytes += packet.getLen();
+			windowUploadBytes += packet.getLen();
+			latestUploadBytes += latest ? packet.getLen() : 0;
+		} else if (packet.getDir() == PacketDirection.DOWNLINK) {
+			downloadBytes += packet.getLen();
+			windowDownloadBytes += packet.getLen();
+			latestDownloadBytes += latest ? packet.getLen() : 0;
+		}
+	}
+
+	/**
+	 * Connections are keyed the way SessionManagerImpl keys its sessions.
+	 */
+	private void addToConnection(PacketInfo packet) {
+		int sourcePort;
+		int destinationPort;
+		boolean udp;
+		if (packet.getPacket() instanceof TCPPacket) {
+			TCPPacket tcp = (TCPPacket) packet.getPacket();
+			sourcePort = tcp.getSourcePort();
+			destinationPort = tcp.getDestinationPort();
+			udp = false;
+		} else if (packet.getPacket() instanceof UDPPacket) {
+			UDPPacket udpPacket = (UDPPacket) packet.getPacket();
+			sourcePort = udpPacket.getSourcePort();
+			destinationPort = udpPacket.getDestinationPort();
+			udp = true;
+			if (udpPacket.isDNSPacket()) {
+				dnsPackets.add(packet);
+			}
+		} else {
+			return;
+		}
+		IPPacket ipPacket = (IPPacket) packet.getPacket();
+		String key;
+		if (packet.getDir() == PacketDirection.UPLINK) {
+			key = sourcePort + " " + destinationPort + " " + ipPacket.getDestinationIPAddress().getHostAddress();
+		} else {
+			key = destinationPort + " " + sourcePort + " " + ipPacket.getSourceIPAddress().getHostAddress();
+		}
+		key = (udp ? "UDP " : "TCP ") + key;
+		Connection connection = connections.get(key);
+		if (connection == null) {
+			connection = new Connection(udp, dnsPackets.size());
+			connections.put(key, connection);
+		}
+		connection.packets.add(packet);
+		changed.add(key);
+	}
+
+	LiveTraceSnapshot snapshot(boolean last) {
+		double traceDuration = packets.isEmpty() ? 0 : packets.get(packets.size() - 1).getTimeStamp();
+		return new LiveTraceSnapshot(packets.size(), traceDuration, uploadBytes, downloadBytes, assembleSessions(last),
+				rrcStateRanges(traceDuration), throughput(traceDuration), last);
+	}
+
+	private List<Session> assembleSessions(boolean last) {
+		for (Iterator<String> keys = changed.iterator(); keys.hasNext();) {
+			Connection connection = connections.get(keys.next());
+			if (!last && !connection.isAssemblyDue()) {
+				continue;
+			}
+			keys.remove();
+			List<PacketInfo> input = new ArrayList<PacketInfo>();
+			if (!connection.udp) {
+				input.addAll(dnsPackets.subList(0, connection.dnsPacketsBefore));
+			}
+			input.addAll(connection.packets);
+			List<Session> assembled;
+			// the session manager keeps state while it assembles
+			synchronized (sessionmanager) {
+				assembled = sessionmanager.assembleSession(input);
+			}
+			// the UDP sessions of the DNS packets belong to other connections
+			connection.sessions.clear();
+			for (Session session : assembled) {
+				if (session.isUDP() == connection.udp) {
+					connection.sessions.add(session);
+				}
+			}
+			connection.assembledPackets = connection.packets.size();
+		}
+
+		List<Session> tcpSessions = new ArrayList<Session>();
+		List<Session> udpSessions = new ArrayList<Session>();
+		for (Connection connection : connections.values()) {
+			(connection.udp ? udpSessions : tcpSessions).addAll(connection.sessions);
+		}
+		Collections.sort(tcpSessions);
+		Collections.sort(udpSessions);
+		tcpSessions.addAll(udpSessions);
+		return tcpSessions;
+	}
+
+	/**
+	 * Runs the state range factory from the checkpoint, then moves the
+	 * checkpoint to the last idle period that has a packet after it.
+	 */
+	private List<RrcStateRange> rrcStateRanges(double traceDuration) {
+		List<RrcStateRange> ranges = new ArrayList<RrcStateRange>(rrcRanges);
+		List<RrcStateRange> computed = staterange.create(packets.subList(rrcCheckpoint, packets.size()), profile, traceDuration);
+		if (rrcCheckpoint > 0) {
+			RrcStateRange range = leadIdle(computed);
+			if (range == null || range.getEndTime() <= rrcCheckpointTime) {
+				// the packets after the checkpoint do not start from idle after all
+				rrcRanges.clear();
+				rrcCheckpoint = 0;
+				return rrcStateRanges(traceDuration);
+			}
+			ranges.add(new RrcStateRange(rrcCheckpointTime, range.getEndTime(), range.getState()));
+			ranges.addAll(computed.subList(computed.indexOf(range) + 1, computed.size()));
+		} else {
+			ranges.addAll(computed);
+		}
+
+		for (int idx = ranges.size() - 2; idx > rrcRanges.size(); idx--) {
+			RrcStateRange range = ranges.get(idx);
+			if (WindowedEnergyCalculator.isIdle(range.getState())) {
+				int lead = firstPacketAt(range.getBeginTime()) - 1;
+				if (lead > rrcCheckpoint && lead < packets.size() - 1 && isCheckpoint(lead, range)) {
+					rrcCheckpoint = lead;
+					rrcCheckpointTime = range.getBeginTime();
+					rrcRanges.clear();
+					rrcRanges.addAll(ranges.subList(0, idx));
+				}
+				break;
+			}
+		}
+		return ranges;
+	}
+
+	/**
+	 * @return the idle range that follows the ranges of the lead packet, null if there is none
+	 */
+	private static RrcStateRange leadIdle(List<RrcStateRange> ranges) {
+		for (int idx = 1; idx < ranges.size(); idx++) {
+			if (WindowedEnergyCalculator.isIdle(ranges.get(idx).getState())) {
+				return ranges.get(idx);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Runs the factory on the lead packet and the one after the idle period
+	 * only, the idle period has to end at the same time as in the full ranges.
+	 */
+	private boolean isCheckpoint(int lead, RrcStateRange idle) {
+		List<PacketInfo> pair = packets.subList(lead, lead + 2);
+		RrcStateRange range = leadIdle(staterange.create(pair, profile, pair.get(1).getTimeStamp()));
+		return range != null && range.getEndTime() == idle.getEndTime();
+	}
+
+	private int firstPacketAt(double time) {
+		int low = 0;
+		int high = packets.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (packets.get(mid).getTimeStamp() < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private List<Throughput> throughput(double traceDuration) {
+		List<Throughput> result = new ArrayList<Throughput>(throughput);
+		double windowBegin = windowEnd - throughputWindow;
+		if (traceDuration > windowBegin) {
+			result.add(new Throughput(windowBegin, traceDuration, windowUploadBytes - latestUploadBytes,
+					windowDownloadBytes - latestDownloadBytes));
+		}
+		return result;
+	}
+
+	private static final class Connection {
+		private final boolean udp;
+		private final int dnsPacketsBefore;
+		private final List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		// sessions as last assembled, a port used again gives more than one
+		private final List<Session> sessions = new ArrayList<Session>();
+		private int assembledPackets;
+
+		Connection(boolean udp, int dnsPacketsBefore) {
+			this.udp = udp;
+			this.dnsPacketsBefore = dnsPacketsBefore;
+		}
+
+		boolean isAssemblyDue() {
+			return assembledPackets < LARGE_CONNECTION || packets.size() - assembledPackets >= assembledPackets / 2;
+		}
+	}
+}
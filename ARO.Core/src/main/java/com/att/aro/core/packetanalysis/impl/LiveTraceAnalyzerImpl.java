@@ -0,0 +1,195 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.att.aro.core.ILogger;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.model.InjectLogger;
+import com.att.aro.core.packetanalysis.ILiveTraceAnalyzer;
+import com.att.aro.core.packetanalysis.ILiveTraceListener;
+import com.att.aro.core.packetanalysis.IRrcStateRangeFactory;
+import com.att.aro.core.packetanalysis.ISessionManager;
+import com.att.aro.core.packetanalysis.pojo.LiveTraceSnapshot;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetreader.INativePacketSubscriber;
+import com.att.aro.core.packetreader.IPacketService;
+import com.att.aro.core.packetreader.impl.PcapStreamReader;
+import com.att.aro.core.packetreader.pojo.Packet;
+
+/**
+ * Each analysis runs on two threads. One reads the pcap stream, which blocks
+ * while the collector has nothing new, and queues the packets. The other adds
+ * them to a LiveTrace and takes a snapshot whenever the snapshot interval is
+ * up, so snapshots keep coming while the stream is quiet.
+ */
+public class LiveTraceAnalyzerImpl implements ILiveTraceAnalyzer {
+
+	private static final long DEFAULT_SNAPSHOT_MILLIS = 2000;
+
+	// put on the queue by the reader when the stream has ended
+	private static final PacketInfo END_OF_STREAM = new PacketInfo(new Packet(0, 0, 0, 0, new byte[0]));
+
+	@InjectLogger
+	private static ILogger logger;
+
+	@Autowired
+	private IPacketService packetservice;
+
+	@Autowired
+	private ISessionManager sessionmanager;
+
+	@Autowired
+	private IRrcStateRangeFactory staterange;
+
+	private volatile long snapshotInterval = DEFAULT_SNAPSHOT_MILLIS;
+
+	private final ExecutorService threads = Executors.newCachedThreadPool(new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ARO-live-analysis-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	@Override
+	public void setSnapshotInterval(long millis) {
+		this.snapshotInterval = millis;
+	}
+
+	@Override
+	public long getSnapshotInterval() {
+		return snapshotInterval;
+	}
+
+	@Override
+	public Future<LiveTraceSnapshot> analyze(InputStream pcapStream, Profile profile, ILiveTraceListener listener) {
+		BlockingQueue<PacketInfo> queue = new LinkedBlockingQueue<PacketInfo>();
+		AtomicBoolean stopped = new AtomicBoolean();
+		threads.submit(new StreamReader(pcapStream, queue, stopped));
+		return threads.submit(new Analysis(new LiveTrace(sessionmanager, staterange, profile), pcapStream, queue, stopped,
+				listener));
+	}
+
+	private class StreamReader implements Runnable, INativePacketSubscriber {
+		private final InputStream input;
+		private final BlockingQueue<PacketInfo> queue;
+		private final AtomicBoolean stopped;
+
+		StreamReader(InputStream input, BlockingQueue<PacketInfo> queue, AtomicBoolean stopped) {
+			this.input = input;
+			this.queue = queue;
+			this.stopped = stopped;
+		}
+
+		@Override
+		public void run() {
+			try {
+				long count = new PcapStreamReader(input).readRecords(this);
+				logger.debug("live trace stream ended after " + count + " records");
+			} catch (IOException e) {
+				if (!stopped.get()) {
+					logger.error("Error reading live trace stream", e);
+				}
+			} finally {
+				queue.add(END_OF_STREAM);
+			}
+		}
+
+		@Override
+		public void receive(int datalink, long seconds, long microSeconds, int len, byte[] data) {
+			Packet packet = packetservice.createPacketFromPcap(datalink, seconds, microSeconds, len, data, null);
+			queue.add(new PacketInfo(packet));
+		}
+	}
+
+	private class Analysis implements Callable<LiveTraceSnapshot> {
+		private final LiveTrace trace;
+		private final InputStream input;
+		private final BlockingQueue<PacketInfo> queue;
+		private final AtomicBoolean stopped;
+		private final ILiveTraceListener listener;
+
+		Analysis(LiveTrace trace, InputStream input, BlockingQueue<PacketInfo> queue, AtomicBoolean stopped,
+				ILiveTraceListener listener) {
+			this.trace = trace;
+			this.input = input;
+			this.queue = queue;
+			this.stopped = stopped;
+			this.listener = listener;
+		}
+
+		@Override
+		public LiveTraceSnapshot call() throws InterruptedException {
+			try {
+				long nextSnapshot = System.currentTimeMillis() + snapshotInterval;
+				while (true) {
+					long wait = Math.max(0, nextSnapshot - System.currentTimeMillis());
+					PacketInfo packet = queue.poll(wait, TimeUnit.MILLISECONDS);
+					if (packet == END_OF_STREAM) {
+						break;
+					}
+					if (packet != null) {
+						trace.add(packet);
+					}
+					if (System.currentTimeMillis() >= nextSnapshot) {
+						publish(trace.snapshot(false));
+						nextSnapshot = System.currentTimeMillis() + snapshotInterval;
+					}
+				}
+				LiveTraceSnapshot last = trace.snapshot(true);
+				publish(last);
+				return last;
+			} finally {
+				// also ends a read still waiting on the stream after a cancel
+				stopped.set(true);
+				try {
+					input.close();
+				} catch (IOException e) {
+					logger.debug("closing live trace stream: " + e.getMessage());
+				}
+			}
+		}
+
+		private void publish(LiveTraceSnapshot snapshot) {
+			if (listener == null) {
+				return;
+			}
+			try {
+				listener.snapshotUpdated(snapshot);
+			} catch (RuntimeException e) {
+				logger.error("Live trace listener failed", e);
+			}
+		}
+	}
+}
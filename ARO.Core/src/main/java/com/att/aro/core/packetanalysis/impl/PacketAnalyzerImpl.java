@@ -31,6 +31,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import com.att.aro.core.configuration.IProfileFactory;
 import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.displayfilter.IDisplayFilterService;
+import com.att.aro.core.displayfilter.impl.DisplayFilterServiceImpl;
+import com.att.aro.core.displayfilter.pojo.DisplayFilterResult;
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.IStopwatch;
+import com.att.aro.core.metrics.MetricName;
+import com.att.aro.core.metrics.impl.MetricsRegistryImpl;
 import com.att.aro.core.packetanalysis.IBurstCollectionAnalysis;
 import com.att.aro.core.packetanalysis.IEnergyModelFactory;
 import com.att.aro.core.packetanalysis.IPacketAnalyzer;
@@ -49,11 +56,13 @@ import com.att.aro.core.packetanalysis.pojo.IPPacketSummary;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.PacketCounter;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetanalysis.pojo.Statistic;
 import com.att.aro.core.packetanalysis.pojo.TimeRange;
 import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
 import com.att.aro.core.packetanalysis.pojo.TraceFileResult;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 import com.att.aro.core.packetreader.pojo.IPPacket;
 import com.att.aro.core.packetreader.pojo.TCPPacket;
 import com.att.aro.core.packetreader.pojo.UDPPacket;
@@ -79,6 +88,15 @@ public class PacketAnalyzerImpl implements IPacketAnalyzer {
 	private IPktAnazlyzerTimeRangeUtil pktTimeUtil;
 
 	private IVideoUsageAnalysis videoUsageAnalyzer;
+
+	private IMetricsRegistry metrics = new MetricsRegistryImpl();
+
+	private IDisplayFilterService displayFilterService = new DisplayFilterServiceImpl();
+
+	private boolean windowed;
+
+	// fewest packets in a window, smaller in tests
+	int windowPackets = WindowedEnergyCalculator.WINDOW_PACKETS;
 	
 //	@InjectLogger
 //	private static ILogger logger;
@@ -118,19 +136,35 @@ public class PacketAnalyzerImpl implements IPacketAnalyzer {
 	public void setVideoUsageAnalayzer(IVideoUsageAnalysis videoUsageAnalyzer){
 		this.videoUsageAnalyzer = videoUsageAnalyzer;
 	}
+	@Autowired
+	public void setMetricsRegistry(IMetricsRegistry metrics){
+		this.metrics = metrics;
+	}
+	@Autowired
+	public void setDisplayFilterService(IDisplayFilterService displayFilterService){
+		this.displayFilterService = displayFilterService;
+	}
+	@Override
+	public void setWindowed(boolean windowed){
+		this.windowed = windowed;
+	}
 
 
 	@Override
 	public PacketAnalyzerResult analyzeTraceFile(String traceFilePath, Profile profile, 
 			AnalysisFilter filter) throws IOException{
+		IStopwatch read = metrics.start(MetricName.TRACE_READ);
 		TraceFileResult result = tracereader.readTraceFile(traceFilePath);
+		read.stop();
 		
 		return finalResult(result,profile,filter);
 	}
 	@Override
 	public PacketAnalyzerResult analyzeTraceDirectory(String traceDirectory, Profile profile, 
 			AnalysisFilter filter) throws FileNotFoundException{
+		IStopwatch read = metrics.start(MetricName.TRACE_READ);
 		TraceDirectoryResult result = tracereader.readTraceDirectory(traceDirectory);
+		read.stop();
 		if(filter !=null){
 			TimeRange tempTimeRange = filter.getTimeRange();
 			if(tempTimeRange != null){
@@ -191,7 +225,18 @@ public class PacketAnalyzerImpl implements IPacketAnalyzer {
 			result.setAllpackets(filteredPackets);
 		}
  		
-		List<Session> sessionlist = sessionmanager.assembleSession(filteredPackets);
+		List<TraceWindow> windows = null;
+		if (windowed && result != null) {
+			windows = TraceWindows.split(filteredPackets, aProfile, result.getTraceDuration(), windowPackets);
+			if (windows.size() < 2) {
+				windows = null;
+			}
+		}
+
+		IStopwatch watch = metrics.start(MetricName.SESSION_ASSEMBLY);
+		List<Session> sessionlist = windows == null ? sessionmanager.assembleSession(filteredPackets)
+				: sessionmanager.assembleSession(filteredPackets, windows);
+		watch.stop();
 		List<PacketInfo> filteredPacketsNoDNSUDP = new ArrayList<PacketInfo>();
 		for(Session session: sessionlist){
 			for(PacketInfo packet:session.getPackets()){
@@ -202,7 +247,9 @@ public class PacketAnalyzerImpl implements IPacketAnalyzer {
 		for(Session byteCountSession:sessionlist){
 			totaltemp += byteCountSession.getBytesTransferred();
 		}
+		watch = metrics.start(MetricName.STATISTICS);
 		Statistic stat = this.getStatistic(filteredPacketsNoDNSUDP);
+		watch.stop();
 		if (stat.getAppName() != null && stat.getAppName().size() == 1 && stat.getAppName().contains("Unknown")){
 			stat.setAppName(new HashSet<String>(result.getAppInfos()));
 		}
@@ -212,21 +259,37 @@ public class PacketAnalyzerImpl implements IPacketAnalyzer {
 		
 		
 		if (result!=null){
-			AbstractRrcStateMachine statemachine = statemachinefactory.create(filteredPackets, aProfile, 
-					stat.getPacketDuration(), result.getTraceDuration(), stat.getTotalByte(), timeRange);
+			watch = metrics.start(MetricName.RRC);
+			AbstractRrcStateMachine statemachine = windows == null
+					? statemachinefactory.create(filteredPackets, aProfile, stat.getPacketDuration(),
+							result.getTraceDuration(), stat.getTotalByte(), timeRange)
+					: statemachinefactory.create(filteredPackets, aProfile, stat.getPacketDuration(),
+							result.getTraceDuration(), stat.getTotalByte(), timeRange, windows);
+			watch.stop();
 			
+			watch = metrics.start(MetricName.ENERGY);
 			EnergyModel energymodel = energymodelfactory.create(aProfile, statemachine.getTotalRRCEnergy(), 
 					result.getGpsInfos(), result.getCameraInfos(), result.getBluetoothInfos(), result.getScreenStateInfos());
+			watch.stop();
 			
-			BurstCollectionAnalysisData burstcollectiondata = burstcollectionanalyzer.analyze(filteredPackets, 
-					aProfile, stat.getPacketSizeToCountMap(), statemachine.getStaterangelist(), 
-					result.getUserEvents(), result.getCpuActivityList().getCpuActivities(), sessionlist);
+			watch = metrics.start(MetricName.BURSTS);
+			BurstCollectionAnalysisData burstcollectiondata = windows == null
+					? burstcollectionanalyzer.analyze(filteredPackets, aProfile, stat.getPacketSizeToCountMap(),
+							statemachine.getStaterangelist(), result.getUserEvents(),
+							result.getCpuActivityList().getCpuActivities(), sessionlist)
+					: burstcollectionanalyzer.analyze(filteredPackets, aProfile, stat.getPacketSizeToCountMap(),
+							statemachine.getStaterangelist(), result.getUserEvents(),
+							result.getCpuActivityList().getCpuActivities(), sessionlist, windows);
+			watch.stop();
 			
+			watch = metrics.start(MetricName.VIDEO);
 			data.setVideoUsage(videoUsageAnalyzer.analyze(result, sessionlist));
+			watch.stop();
 			
 			data.setBurstcollectionAnalysisData(burstcollectiondata);
 			data.setEnergyModel(energymodel);
 			data.setSessionlist(sessionlist);
+			data.setRequestResponseIndex(new RequestResponseIndex(sessionlist));
 			data.setStatemachine(statemachine);
 			data.setStatistic(stat);
 			data.setTraceresult(result);
@@ -269,8 +332,18 @@ public class PacketAnalyzerImpl implements IPacketAnalyzer {
 			
 		}
 
+		// only packet fields are known here, sessions come later
+		DisplayFilterResult displayFilterResult = null;
+		if (filter.getDisplayFilter() != null && !filter.getDisplayFilter().trim().isEmpty()) {
+			displayFilterResult = displayFilterService.filter(displayFilterService.compile(filter.getDisplayFilter()),
+					displayFilterService.createTable(packetsInfo, null));
+		}
+
 		for (PacketInfo packetInfo : packetsInfo) {
 
+			if (displayFilterResult != null && !displayFilterResult.includes(packetInfo)) {
+				continue;
+			}
 			if(ipv4Flag && packetInfo.getRemoteIPAddress() instanceof Inet4Address){
 				continue;
 			}
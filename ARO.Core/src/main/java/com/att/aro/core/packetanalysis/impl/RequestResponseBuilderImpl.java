@@ -18,6 +18,7 @@ package com.att.aro.core.packetanalysis.impl;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -25,17 +26,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.att.aro.core.ILogger;
 import com.att.aro.core.model.InjectLogger;
-import com.att.aro.core.packetanalysis.IByteArrayLineReader;
-import com.att.aro.core.packetanalysis.IParseHeaderLine;
+import com.att.aro.core.packetanalysis.IHttpHeaderParser;
 import com.att.aro.core.packetanalysis.IRequestResponseBuilder;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
-import com.att.aro.core.packetanalysis.pojo.HttpPattern;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.RequestResponseTimeline;
@@ -52,17 +50,19 @@ public class RequestResponseBuilderImpl implements IRequestResponseBuilder {
 	private static ILogger logger;
 	
 	@Autowired
-	private IParseHeaderLine parseHeaderLine;
+	private IHttpHeaderParser headerParser;
 
 	private Session session;
 
-	private IByteArrayLineReader storageReader;
-	
-	@Autowired
-	public void setByteArrayLineReader(IByteArrayLineReader reader){
-		this.storageReader = reader;
-	}
-	
+	// storage of the direction being read, index is the start of the next line
+	private byte[] storage;
+	private int storageLength;
+	private int index;
+
+	// bounds of the last line read, without its CRLF
+	private int lineStart;
+	private int lineEnd;
+
 	private ArrayList<HttpRequestResponseInfo> result = null;
 
 	Map<String, Integer> wellKnownParts = new HashMap<String, Integer>(5);
@@ -216,11 +216,11 @@ public class RequestResponseBuilderImpl implements IRequestResponseBuilder {
 		SortedMap<Integer, PacketInfo> packetOffsets;
 		switch (direction) {
 		case DOWNLINK:
-			storageReader.init(session.getStorageDl());
+			initStorage(session.getStorageDl());
 			packetOffsets = session.getPacketOffsetsDl();
 			break;
 		case UPLINK:
-			storageReader.init(session.getStorageUl());
+			initStorage(session.getStorageUl());
 			packetOffsets = session.getPacketOffsetsUl();
 			break;
 		default:
@@ -228,60 +228,48 @@ public class RequestResponseBuilderImpl implements IRequestResponseBuilder {
 		}
 
 		HttpRequestResponseInfo rrInfo = findNextRequestResponse(direction,	packetOffsets);
-		String line;
-		while ((line = storageReader.readLine()) != null && rrInfo != null) {
-			if (line.length() == 0) {
+		int headerStart = index;
+		while (rrInfo != null && readLine()) {
+			if (lineStart == lineEnd) {
+				rrInfo.setAllHeaders(storage, headerStart, lineStart);
 				if (rrInfo.getContentLength() > 0) {
 					rrInfo.setContentOffsetLength(new TreeMap<Integer, Integer>());
-					rrInfo.getContentOffsetLength().put(storageReader.getIndex(), rrInfo.getContentLength());
+					rrInfo.getContentOffsetLength().put(index, rrInfo.getContentLength());
 
 					// Skip content
-					storageReader.skipContent(rrInfo.getContentLength());
+					index += Math.min(storageLength - index, rrInfo.getContentLength());
 				} else if (rrInfo.isChunked()) {
 					rrInfo.setContentOffsetLength(new TreeMap<Integer, Integer>());
-					while (true) {
-
-						line = storageReader.readLine();//read next one
-
-						if (line != null) {
-							String[] str = line.split(";");
-							int size = 0;
-							try {
-								String trim = str[0].trim();
-								size = Integer.parseInt(trim, 16);
-							} catch (NumberFormatException e) {
-								logger.warn("Unexpected begin of the chunk format : " + line);
-							}
-							if (size > 0) {
-
-								// Save content offsets
-								rrInfo.getContentOffsetLength().put(storageReader.getIndex(), size);
-								rrInfo.setContentLength(rrInfo.getContentLength() + size);
-								storageReader.skipForward(size);
-
-								// CRLF at end of each chunk
-								line = storageReader.readLine();
+					while (readLine()) {
+						int size = parseChunkSize();
+						if (size < 0) {
+							logger.warn("Unexpected begin of the chunk format : " + currentLine());
+						}
+						if (size > 0) {
 
-								if (line != null && line.length() > 0) {
-									logger.warn("Unexpected end of chunk: " + line);
-								}
-							} else {
-								rrInfo.setChunkModeFinished(true);
-								line = storageReader.readLine(); // End of chunks
+							// Save content offsets
+							rrInfo.getContentOffsetLength().put(index, size);
+							rrInfo.setContentLength(rrInfo.getContentLength() + size);
+							index = size < storageLength - index ? index + size : storageLength - 1;
 
-								if (line != null && line.length() > 0) {
-									logger.warn("Unexpected end of chunked data: " + line);
-								}
-								break;
+							// CRLF at end of each chunk
+							if (readLine() && lineEnd > lineStart) {
+								logger.warn("Unexpected end of chunk: " + currentLine());
 							}
 						} else {
+							rrInfo.setChunkModeFinished(true);
+
+							// End of chunks
+							if (readLine() && lineEnd > lineStart) {
+								logger.warn("Unexpected end of chunked data: " + currentLine());
+							}
 							break;
 						}
 					}
 				}
 
-				mapPackets(packetOffsets, rrInfo.getRrStart(), storageReader.getIndex() - 1, direction, rrInfo);
-				rrInfo.setRawSize(storageReader.getIndex() - rrInfo.getRrStart());
+				mapPackets(packetOffsets, rrInfo.getRrStart(), index - 1, direction, rrInfo);
+				rrInfo.setRawSize(index - rrInfo.getRrStart());
 				
 				// Build an absolute URI if possible
 				if (rrInfo.getObjUri() != null && !rrInfo.getObjUri().isAbsolute()) {
@@ -302,10 +290,78 @@ public class RequestResponseBuilderImpl implements IRequestResponseBuilder {
 					logger.warn("Request/response object has unknown direction");
 				}
 				rrInfo = findNextRequestResponse(direction, packetOffsets);
+				headerStart = index;
 			} else {
-				parseHeaderLine.parseHeaderLine(line, rrInfo);
+				headerParser.parseHeaderLine(storage, lineStart, lineEnd, rrInfo);
 			}
 		} // end: while
+		if (rrInfo != null) {
+			// storage ended inside the headers
+			rrInfo.setAllHeaders(storage, headerStart, index);
+		}
+	}
+
+	private void initStorage(byte[] data) {
+		storage = data != null ? data : new byte[0];
+		storageLength = storage.length;
+		index = 0;
+	}
+
+	/**
+	 * Moves to the next CRLF terminated line, the last line of the storage
+	 * may end without one.
+	 * 
+	 * @return false at the end of the storage
+	 */
+	private boolean readLine() {
+		if (index >= storageLength) {
+			return false;
+		}
+		lineStart = index;
+		int crlf = headerParser.findLineEnd(storage, index, storageLength);
+		if (crlf < 0) {
+			lineEnd = storageLength;
+			index = storageLength;
+		} else {
+			lineEnd = crlf;
+			index = crlf + 2;
+		}
+		return true;
+	}
+
+	private String currentLine() {
+		return new String(storage, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the hex size in front of a chunk, skipping any chunk extension.
+	 * 
+	 * @return the size, or -1 when it is not a hex number
+	 */
+	private int parseChunkSize() {
+		int start = lineStart;
+		int end = lineStart;
+		while (end < lineEnd && storage[end] != ';') {
+			end++;
+		}
+		while (start < end && (storage[start] & 0xFF) <= ' ') {
+			start++;
+		}
+		while (end > start && (storage[end - 1] & 0xFF) <= ' ') {
+			end--;
+		}
+		if (start == end) {
+			return -1;
+		}
+		int size = 0;
+		for (int idx = start; idx < end; idx++) {
+			int digit = Character.digit(storage[idx], 16);
+			if (digit < 0 || size > (Integer.MAX_VALUE >> 4)) {
+				return -1;
+			}
+			size = (size << 4) | digit;
+		}
+		return size;
 	}
 
 	/**
@@ -386,55 +442,29 @@ public class RequestResponseBuilderImpl implements IRequestResponseBuilder {
 			PacketDirection direction
 			, SortedMap<Integer, PacketInfo> packetOffsets) throws IOException {
 		
-		int index = storageReader.getIndex();
-		String line = storageReader.readLine();
-		while (line != null && line.length() == 0) {
-			index = storageReader.getIndex();
-			line = storageReader.readLine();
+		int rrStart = index;
+		boolean found = readLine();
+		while (found && lineStart == lineEnd) {
+			rrStart = index;
+			found = readLine();
 		}
 
 		HttpRequestResponseInfo rrInfo = null;
-		if (line != null && direction != null) {
-			Matcher matcher;
+		if (found && direction != null) {
 			rrInfo = new HttpRequestResponseInfo(session.getRemoteHostName(), direction);
-			rrInfo.setRrStart(index);
+			rrInfo.setRrStart(rrStart);
 
 			// Check for request type
-			matcher = HttpPattern.strReRequestType.matcher(line);
-			if (matcher.lookingAt()) {
-				rrInfo.setStatusLine( line);
-				rrInfo.setRequestType(matcher.group(1));
-				rrInfo.setDirection(HttpDirection.REQUEST);
-				rrInfo.setObjName(matcher.group(2));
-				try {
-					rrInfo.setObjUri(new URI(rrInfo.getObjName()));
-					if (rrInfo.getObjUri().getHost() != null) {
-						rrInfo.setHostName(rrInfo.getObjUri().getHost());
-					}
-				} catch (URISyntaxException e) {
-					// Ignore since value does not have to be a URI
-					logger.error(e.getMessage());
-				}
-				rrInfo.setVersion(matcher.group(3));
-				rrInfo.setScheme(rrInfo.getVersion().split("/")[0]);
-				
+			if (headerParser.parseRequestLine(storage, lineStart, lineEnd, rrInfo)) {
 				if(direction == PacketDirection.UPLINK){
 					rrInfo.setPort(session.getRemotePort());
 				}else if(direction == PacketDirection.DOWNLINK){
 					rrInfo.setPort(session.getLocalPort());
 				}
 
-			}
-
-			// Get response
-			matcher = HttpPattern.strReResponseResults.matcher(line);
-			if (matcher.lookingAt()) {
-				rrInfo.setStatusLine(line);
-				rrInfo.setDirection(HttpDirection.RESPONSE);
-				rrInfo.setVersion(matcher.group(1));
-				rrInfo.setScheme(rrInfo.getVersion().split("/")[0]);
-				rrInfo.setStatusCode(Integer.parseInt(matcher.group(2)));
-				rrInfo.setResponseResult(matcher.group(3));
+			} else {
+				// Get response
+				headerParser.parseStatusLine(storage, lineStart, lineEnd, rrInfo);
 			}
 
 			if (rrInfo.getDirection() == null) {
@@ -443,13 +473,13 @@ public class RequestResponseBuilderImpl implements IRequestResponseBuilder {
 				if (session.isSsl()) {
 					rrInfo.setSsl(true);
 				}
-				//storageArray.readLine() will increment global counter to the end
-				while ((line = storageReader.readLine()) != null) {
-					if(line.length() <= 0){
+				//readLine() will increment global counter to the end
+				while (readLine()) {
+					if(lineStart == lineEnd){
 						break;
 					}
 				}
-				rrInfo.setRawSize(storageReader.getIndex() - index);
+				rrInfo.setRawSize(index - rrStart);
 
 				if(direction == PacketDirection.UPLINK){
 					rrInfo.setDirection(HttpDirection.REQUEST);
@@ -458,10 +488,10 @@ public class RequestResponseBuilderImpl implements IRequestResponseBuilder {
 
 					// Actual content length is unknown so headers are included
 					rrInfo.setContentOffsetLength(new TreeMap<Integer, Integer>());
-					rrInfo.getContentOffsetLength().put(index, rrInfo.getRawSize());
+					rrInfo.getContentOffsetLength().put(rrStart, rrInfo.getRawSize());
 				}
 				
-				mapPackets(packetOffsets, index, storageReader.getIndex() - 1, direction, rrInfo);
+				mapPackets(packetOffsets, rrStart, index - 1, direction, rrInfo);
 				result.add(rrInfo);
 			}
 		}
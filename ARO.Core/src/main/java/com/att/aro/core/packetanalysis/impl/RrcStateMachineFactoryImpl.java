@@ -22,10 +22,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import com.att.aro.core.configuration.IProfileFactory;
 import com.att.aro.core.configuration.pojo.Profile;
-import com.att.aro.core.configuration.pojo.Profile3G;
-import com.att.aro.core.configuration.pojo.ProfileLTE;
 import com.att.aro.core.configuration.pojo.ProfileType;
-import com.att.aro.core.configuration.pojo.ProfileWiFi;
 import com.att.aro.core.packetanalysis.IRrcStateMachineFactory;
 import com.att.aro.core.packetanalysis.IRrcStateRangeFactory;
 import com.att.aro.core.packetanalysis.pojo.AbstractRrcStateMachine;
@@ -35,6 +32,7 @@ import com.att.aro.core.packetanalysis.pojo.RrcStateMachineLTE;
 import com.att.aro.core.packetanalysis.pojo.RrcStateMachineWiFi;
 import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
 import com.att.aro.core.packetanalysis.pojo.TimeRange;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 
 /**
  * Date: November 3, 2014
@@ -51,29 +49,43 @@ public class RrcStateMachineFactoryImpl implements IRrcStateMachineFactory {
 			Profile profile, double packetDuration, double traceDuration, double totalBytes,
 			TimeRange timerange) {
 		List<RrcStateRange> staterangelist = staterange.create(packetlist, profile, traceDuration);
+		return create(staterangelist, packetlist, profile, packetDuration, traceDuration, totalBytes, timerange);
+	}
+
+	@Override
+	public AbstractRrcStateMachine create(List<PacketInfo> packetlist, Profile profile, double packetDuration,
+			double traceDuration, double totalBytes, TimeRange timerange, List<TraceWindow> windows) {
+		List<RrcStateRange> staterangelist = staterange.create(packetlist, profile, traceDuration, windows);
+		return create(staterangelist, packetlist, profile, packetDuration, traceDuration, totalBytes, timerange);
+	}
+
+	private AbstractRrcStateMachine create(List<RrcStateRange> staterangelist, List<PacketInfo> packetlist,
+			Profile profile, double packetDuration, double traceDuration, double totalBytes, TimeRange timerange) {
 		if(timerange != null){
 			staterangelist = this.getRRCStatesForTheTimeRange(staterangelist, timerange.getBeginTime(), timerange.getEndTime());
 		}
+		double[] energies = new WindowedEnergyCalculator(profilefactory, profile, packetlist).rangeEnergies(staterangelist);
 		AbstractRrcStateMachine data = null;
 		if(profile.getProfileType() == ProfileType.T3G){
-			data = run3GRRcStatistics(staterangelist, (Profile3G)profile, totalBytes, packetDuration, traceDuration);
+			data = run3GRRcStatistics(staterangelist, energies, totalBytes, packetDuration, traceDuration);
 		}else if(profile.getProfileType() == ProfileType.LTE){
-			data = runLTERRcStatistics(staterangelist, (ProfileLTE)profile, packetlist, totalBytes, packetDuration, traceDuration);
+			data = runLTERRcStatistics(staterangelist, energies, totalBytes, packetDuration, traceDuration);
 		}else if(profile.getProfileType() == ProfileType.WIFI){
-			data = runWiFiRRcStatistics(staterangelist, (ProfileWiFi)profile, totalBytes, packetDuration, traceDuration);
+			data = runWiFiRRcStatistics(staterangelist, energies, totalBytes, packetDuration, traceDuration);
 		}
 		if(data != null){
 			data.setStaterangelist(staterangelist);
 		}
 		return data;
 	}
-	private RrcStateMachineWiFi runWiFiRRcStatistics(List<RrcStateRange> staterangelist, ProfileWiFi prof,
+	private RrcStateMachineWiFi runWiFiRRcStatistics(List<RrcStateRange> staterangelist, double[] energies,
 			double totalBytes, double packetDuration, double traceDuration) {
 		double totalRRCEnergy = 0, wifiActiveTime = 0, wifiActiveEnergy = 0, wifiTailTime = 0;
 		double wifiTailEnergy = 0, wifiIdleTime = 0, wifiIdleEnergy = 0;
-		for (RrcStateRange rrc : staterangelist) {
+		for (int idx = 0; idx < staterangelist.size(); idx++) {
+			RrcStateRange rrc = staterangelist.get(idx);
 			double rrcTimeDiff = rrc.getEndTime() - rrc.getBeginTime();
-			double energy = profilefactory.energyWiFi(rrc.getBeginTime(), rrc.getEndTime(), rrc.getState(), prof);
+			double energy = energies[idx];
 			totalRRCEnergy += energy;
 			switch (rrc.getState()) {
 			case WIFI_ACTIVE:
@@ -115,15 +127,16 @@ public class RrcStateMachineFactoryImpl implements IRrcStateMachineFactory {
 	/**
 	 * LTE RRC state time modification.
 	 */
-	private RrcStateMachineLTE runLTERRcStatistics(List<RrcStateRange> staterangelist, ProfileLTE profile, List<PacketInfo> packets,
+	private RrcStateMachineLTE runLTERRcStatistics(List<RrcStateRange> staterangelist, double[] energies,
 			double totalBytes, double packetsDuration, double traceDuration) {
 		double totalRRCEnergy = 0, lteIdleTime = 0, lteIdleEnergy = 0, lteIdleToCRPromotionTime = 0;
 		double lteIdleToCRPromotionEnergy = 0, lteCrTime = 0, lteCrEnergy = 0, lteCrTailTime = 0;
 		double lteCrTailEnergy = 0, lteDrxShortTime = 0, lteDrxShortEnergy = 0, lteDrxLongTime = 0;
 		double lteDrxLongEnergy = 0;
-		for (RrcStateRange rrc : staterangelist) {
+		for (int idx = 0; idx < staterangelist.size(); idx++) {
+			RrcStateRange rrc = staterangelist.get(idx);
 			double duration = rrc.getEndTime() - rrc.getBeginTime();
-			double energy = profilefactory.energyLTE(rrc.getBeginTime(), rrc.getEndTime(), rrc.getState(), profile, packets);
+			double energy = energies[idx];
 			totalRRCEnergy += energy;
 			switch (rrc.getState()) {
 			case LTE_IDLE:
@@ -186,7 +199,7 @@ public class RrcStateMachineFactoryImpl implements IRrcStateMachineFactory {
 	 * 3G RRC state time modification.
 	 */
 	private RrcStateMachine3G run3GRRcStatistics(List<RrcStateRange> staterangelist,
-			Profile3G prof3g, double totalBytes, double packetsDuration, double traceDuration) {
+			double[] energies, double totalBytes, double packetsDuration, double traceDuration) {
 		
 		double idleTime = 0, idleEnergy = 0, dchTime = 0, dchEnergy = 0, dchTailTime =0, dchTailEnergy=0;
 		double fachTime=0, fachEnergy=0, fachTailTime=0;
@@ -194,8 +207,9 @@ public class RrcStateMachineFactoryImpl implements IRrcStateMachineFactory {
 		double fachToDchTime=0, fachToDchEnergy=0;
 		RrcStateMachine3G statemachine = new RrcStateMachine3G();
 		
-		for (RrcStateRange rrc : staterangelist) {
-			double energy = profilefactory.energy3G(rrc.getBeginTime(), rrc.getEndTime(), rrc.getState(), prof3g);
+		for (int idx = 0; idx < staterangelist.size(); idx++) {
+			RrcStateRange rrc = staterangelist.get(idx);
+			double energy = energies[idx];
 			double duration = rrc.getEndTime() - rrc.getBeginTime();
 			switch (rrc.getState()) {
 			case STATE_IDLE:
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.att.aro.core.configuration.pojo.Profile;
 import com.att.aro.core.configuration.pojo.Profile3G;
@@ -31,6 +32,7 @@ import com.att.aro.core.packetanalysis.pojo.FachQueue;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.RRCState;
 import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 import com.att.aro.core.packetreader.pojo.PacketDirection;
 
 
@@ -57,6 +59,47 @@ public class RrcStateRangeFactoryImpl implements IRrcStateRangeFactory {
 					+ profile.getClass());
 		}
 	}
+
+	@Override
+	public List<RrcStateRange> create(final List<PacketInfo> packetlist, final Profile profile, double traceDuration,
+			final List<TraceWindow> windows) {
+		if (windows.size() < 2) {
+			return create(packetlist, profile, traceDuration);
+		}
+		final List<List<RrcStateRange>> parts = new ArrayList<List<RrcStateRange>>(windows.size());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(windows.size());
+		for (int idx = 0; idx < windows.size(); idx++) {
+			final int window = idx;
+			parts.add(null);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					TraceWindow traceWindow = windows.get(window);
+					parts.set(window, create(traceWindow.getPackets(packetlist), profile,
+							traceWindow.getTimeRange().getEndTime()));
+					return null;
+				}
+			});
+		}
+		TraceWindows.runAll(tasks);
+
+		// A window ends on an idle range up to the next window and starts on
+		// one from the beginning of the trace, in one pass they are the same
+		// range. A cut that does not land on idle has no such range to join,
+		// then the trace is worked out in one pass.
+		List<RrcStateRange> result = parts.get(0);
+		for (int idx = 1; idx < parts.size(); idx++) {
+			List<RrcStateRange> part = parts.get(idx);
+			if (result.isEmpty() || part.isEmpty() || !WindowedEnergyCalculator.isIdle(result.get(result.size() - 1).getState())
+					|| !WindowedEnergyCalculator.isIdle(part.get(0).getState())) {
+				return create(packetlist, profile, traceDuration);
+			}
+			RrcStateRange idle = result.remove(result.size() - 1);
+			part.get(0).setBeginTime(idle.getBeginTime());
+			result.addAll(part);
+		}
+		return result;
+	}
 	/**
 	 * This method contains the main algorithm for creating the List of
 	 * RrcStateRange for a LTE profile
@@ -28,10 +28,16 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.att.aro.core.ILogger;
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.IStopwatch;
+import com.att.aro.core.metrics.MetricName;
+import com.att.aro.core.metrics.impl.MetricsRegistryImpl;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IRequestResponseBuilder;
 import com.att.aro.core.packetanalysis.ISessionManager;
@@ -43,6 +49,7 @@ import com.att.aro.core.packetanalysis.pojo.Reassembler;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetanalysis.pojo.TcpInfo;
 import com.att.aro.core.packetanalysis.pojo.Termination;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
 import com.att.aro.core.packetreader.pojo.DomainNameSystem;
 import com.att.aro.core.packetreader.pojo.PacketDirection;
 import com.att.aro.core.packetreader.pojo.TCPPacket;
@@ -74,6 +81,13 @@ public class SessionManagerImpl implements ISessionManager {
 	@Autowired
 	IRequestResponseBuilder requestResponseBuilder;
 
+	// one for each window, the builder keeps state while it parses a session
+	@Autowired
+	ObjectFactory<IRequestResponseBuilder> requestResponseBuilders;
+
+	@Autowired
+	IMetricsRegistry metrics = new MetricsRegistryImpl();
+
 	// TODO @Autowired add here
 	@Autowired
 	ITLSSessionInfo tsiServer;
@@ -134,6 +148,7 @@ public class SessionManagerImpl implements ISessionManager {
 	public static final int ALERT_LEVEL_FATAL = 2;
 	public static final int ALERT_CLOSE_NOTIFY = 0;
 
+	@Override
 	public List<Session> assembleSession(List<PacketInfo> packets) {
 		this.packets = packets;
 		Map<String, Session> allSessions = new LinkedHashMap<String, Session>();
@@ -171,7 +186,115 @@ public class SessionManagerImpl implements ISessionManager {
 			upl.clear();
 			dol.clear();
 		}
+		return sortSessions(sessions, udpPackets);
+	}
+
+	@Override
+	public List<Session> assembleSession(List<PacketInfo> packets, final List<TraceWindow> windows) {
+		if (windows.size() < 2) {
+			return assembleSession(packets);
+		}
+		this.packets = packets;
+		Map<String, Session> allSessions = new LinkedHashMap<String, Session>();
+		List<PacketInfo> dnsPackets = new ArrayList<PacketInfo>();
+		List<PacketInfo> udpPackets = new ArrayList<PacketInfo>();
+		Map<InetAddress, String> hostMap = new HashMap<InetAddress, String>();
+
+		// keys and DNS names depend on all packets before, sessions are found
+		// in one pass and may go on in later windows
+		iteratePackets(packets, allSessions, dnsPackets, udpPackets, hostMap);
+		List<Session> sessions = new ArrayList<Session>(allSessions.values());
+
+		// sessions are in the order of their first packet, each window takes
+		// the ones that start in it
+		final List<List<List<Session>>> windowSessions = new ArrayList<List<List<Session>>>(windows.size());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(windows.size());
+		int from = 0;
+		for (int idx = 0; idx < windows.size(); idx++) {
+			int to = from;
+			if (idx == windows.size() - 1) {
+				to = sessions.size();
+			} else {
+				double nextWindow = windows.get(idx + 1).getTimeRange().getBeginTime();
+				while (to < sessions.size() && sessions.get(to).getPackets().get(0).getTimeStamp() < nextWindow) {
+					to++;
+				}
+			}
+			final List<List<Session>> levels = new ArrayList<List<Session>>();
+			levels.add(sessions.subList(from, to));
+			windowSessions.add(levels);
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					reassembleWindow(levels);
+					return null;
+				}
+			});
+			from = to;
+		}
+		TraceWindows.runAll(tasks);
+
+		// one pass appends the sessions split off by a new SYN to the end of
+		// the list, level by level
+		List<Session> merged = new ArrayList<Session>(sessions);
+		for (int level = 1;; level++) {
+			boolean more = false;
+			for (List<List<Session>> levels : windowSessions) {
+				if (level < levels.size()) {
+					merged.addAll(levels.get(level));
+					more = true;
+				}
+			}
+			if (!more) {
+				break;
+			}
+		}
+		if (Util.isMacOS()) {
+			analyzeSSLRequestResponseInfo(merged);
+		}
+		return sortSessions(merged, udpPackets);
+	}
+
+	/**
+	 * Reassembles the sessions of one window and the ones split off them into
+	 * further levels, then parses their requests and responses.
+	 */
+	private void reassembleWindow(List<List<Session>> levels) {
+		Reassembler upl = new Reassembler();
+		Reassembler dol = new Reassembler();
+		try {
+			List<Session> level = levels.get(0);
+			while (!level.isEmpty()) {
+				List<Session> next = new ArrayList<Session>();
+				for (Session session : level) {
+					Session newSession = reassembleSession(session, upl, dol);
+					if (newSession != null) {
+						next.add(newSession);
+					}
+				}
+				if (!next.isEmpty()) {
+					levels.add(next);
+				}
+				level = next;
+			}
+		} finally {
+			upl.clear();
+			dol.clear();
+		}
+		//FIXME Temporary fix until dll issue is resolved
+		if (!Util.isMacOS()) {
+			IRequestResponseBuilder builder = requestResponseBuilders.getObject();
+			for (List<Session> level : levels) {
+				analyzeRequestResponseInfo(level, builder);
+			}
+		}
+	}
 
+	/**
+	 * Sorts the TCP sessions, adds the UDP ones and releases the reassembly
+	 * storage.
+	 */
+	private List<Session> sortSessions(List<Session> sessions, List<PacketInfo> udpPackets) {
 		Collections.sort(sessions);
 
 		/* Get UDP sessions. */
@@ -187,8 +310,14 @@ public class SessionManagerImpl implements ISessionManager {
 		}
 
 		for(Session session : sessions) {
-			session.getpStorageBothRAW().clear();
-			session.setpStorageBothRAW(null);
+			session.releaseAssemblyStorage();
+		}
+
+		if (metrics.isEnabled()) {
+			metrics.increment(MetricName.SESSIONS, sessions.size());
+			for (Session session : sessions) {
+				metrics.record(MetricName.SESSION_PACKETS, session.getPackets().size());
+			}
 		}
 
 		return sessions;
@@ -291,11 +420,13 @@ public class SessionManagerImpl implements ISessionManager {
 				//
 
 				// Parse HTTP request response info
+				IStopwatch parse = metrics.start(MetricName.HTTP_PARSE);
 				try {
 					session.setRequestResponseInfo(requestResponseBuilder.createRequestResponseInfo(session));
 				} catch (IOException e) {
 					logger.error("IOException " + e.getMessage());
 				}
+				parse.stop();
 
 				for (HttpRequestResponseInfo hrri : session.getRequestResponseInfo()) {
 					if (hrri.getDirection() == HttpDirection.REQUEST) {
@@ -1481,6 +1612,10 @@ public class SessionManagerImpl implements ISessionManager {
 	// end of ssl
 	
 	private void analyzeRequestResponseInfo(List<Session> sessions) {
+		analyzeRequestResponseInfo(sessions, requestResponseBuilder);
+	}
+
+	private void analyzeRequestResponseInfo(List<Session> sessions, IRequestResponseBuilder requestResponseBuilder) {
 		for (Session session : sessions) {
 			for (PacketInfo sPacket : session.getPackets()) {
 				session.setBytesTransferred(session.getBytesTransferred() + sPacket.getLen());
@@ -1490,11 +1625,13 @@ public class SessionManagerImpl implements ISessionManager {
 			analyzeRecoverPkts(session);
 
 			// Parse HTTP request response info
+			IStopwatch parse = metrics.start(MetricName.HTTP_PARSE);
 			try {
 				session.setRequestResponseInfo(requestResponseBuilder.createRequestResponseInfo(session));
 			} catch (IOException exe) {
 				logger.error("Error create RequestResponseInfo", exe);
 			}
+			parse.stop();
 			for (HttpRequestResponseInfo rrinfo : session.getRequestResponseInfo()) {
 				if (rrinfo.getDirection() == HttpDirection.REQUEST) {
 
@@ -1524,203 +1661,217 @@ public class SessionManagerImpl implements ISessionManager {
 
 			// Iterator is not used because items may be added to list during.
 			// iterations
-			Session pSes = sessions.get(sessionIndex);
-			// Reset variables
-			boolean bTerminated = false;
-			upl.clear();
-			dol.clear();
-			// logger.debug("Session index: "+sessionIndex+" has packets:
-			// "+pSes.getPackets().size());
-			PacketInfo lastPacket = null;
-			for (PacketInfo packetInfo : pSes.getPackets()) {
-
-				TCPPacket pac = (TCPPacket) packetInfo.getPacket();
-
-				pSes.setSsl(pac.isSsl());
-
-				Reassembler reassembledSession;
-				switch (packetInfo.getDir()) {
-				case UPLINK:
-					reassembledSession = upl;
-					break;
-
-				case DOWNLINK:
-					reassembledSession = dol;
-					break;
-
-				default:
-					logger.warn("91 - No direction for packet");
-					continue;
-				}
+			Session newSession = reassembleSession(sessions.get(sessionIndex), upl, dol);
+			if (newSession != null) {
+				sessions.add(newSession);
+			}
+		} // END: Reassemble sessions
+			// -logger.info("END: Reassemble sessions");
+	}
 
-				// If this is the initial sequence number
-				if (pac.isSYN()) {
-					packetInfo.setTcpInfo(TcpInfo.TCP_ESTABLISH);
-					if (reassembledSession.getBaseSeq() == null
-							|| reassembledSession.getBaseSeq().equals(pac.getSequenceNumber())) {
-						// Finds establish
-						reassembledSession.setBaseSeq(pac.getSequenceNumber());
-						if (pac.getPayloadLen() != 0) {
-							logger.warn("92 - Payload in establish packet");
-						}
-					} else {
+	/**
+	 * Reassembles one session. A SYN with a new sequence number starts a new
+	 * TCP session on the same ports, its packets are moved to the returned
+	 * session, which still has to be reassembled.
+	 * 
+	 * @return the new session or null
+	 */
+	private Session reassembleSession(Session pSes, Reassembler upl, Reassembler dol) {
+		Session newSession = null;
+		// Reset variables
+		boolean bTerminated = false;
+		upl.clear();
+		dol.clear();
+		// logger.debug("Session index: "+sessionIndex+" has packets:
+		// "+pSes.getPackets().size());
+		PacketInfo lastPacket = null;
+		for (PacketInfo packetInfo : pSes.getPackets()) {
+
+			TCPPacket pac = (TCPPacket) packetInfo.getPacket();
+
+			pSes.setSsl(pac.isSsl());
+
+			Reassembler reassembledSession;
+			switch (packetInfo.getDir()) {
+			case UPLINK:
+				reassembledSession = upl;
+				break;
 
-						// New TCP session
-						List<PacketInfo> currentList = pSes.getPackets();
-						int index = currentList.indexOf(packetInfo);
-						if (!bTerminated) {
-							logger.debug("28 - Session termination not found");
-						}
+			case DOWNLINK:
+				reassembledSession = dol;
+				break;
 
-						// Correct packet list in original session
-						pSes.setPackets(new ArrayList<PacketInfo>(currentList.subList(0, index)));
+			default:
+				logger.warn("91 - No direction for packet");
+				continue;
+			}
 
-						// Create new session for remaining packets
-						Session newSession = new Session(pSes.getRemoteIP(), pSes.getRemotePort(), pSes.getLocalPort());
-						newSession.getPackets().addAll(currentList.subList(index, currentList.size()));
-						sessions.add(newSession);
+			// If this is the initial sequence number
+			if (pac.isSYN()) {
+				packetInfo.setTcpInfo(TcpInfo.TCP_ESTABLISH);
+				if (reassembledSession.getBaseSeq() == null
+						|| reassembledSession.getBaseSeq().equals(pac.getSequenceNumber())) {
+					// Finds establish
+					reassembledSession.setBaseSeq(pac.getSequenceNumber());
+					if (pac.getPayloadLen() != 0) {
+						logger.warn("92 - Payload in establish packet");
+					}
+				} else {
 
-						// Break out of packet loop
-						break;
+					// New TCP session
+					List<PacketInfo> currentList = pSes.getPackets();
+					int index = currentList.indexOf(packetInfo);
+					if (!bTerminated) {
+						logger.debug("28 - Session termination not found");
 					}
 
-				} else {
-					// FIN: No more data from sender
-					// RST: Reset the connection
-					if (pac.isFIN() || pac.isRST()) {
-						// Calculate session termination info
-						if (!bTerminated && lastPacket != null) {
-							double delay = packetInfo.getTimeStamp() - lastPacket.getTimeStamp();
-							pSes.setSessionTermination(new Termination(packetInfo, delay));
-						}
+					// Correct packet list in original session
+					pSes.setPackets(new ArrayList<PacketInfo>(currentList.subList(0, index)));
 
-						// Mark session terminated
-						bTerminated = true;
-						if (pac.isFIN()) {
-							packetInfo.setTcpInfo(TcpInfo.TCP_CLOSE);
-						} else if (pac.isRST()) {
-							packetInfo.setTcpInfo(TcpInfo.TCP_RESET);
-						}
+					// Create new session for remaining packets
+					newSession = new Session(pSes.getRemoteIP(), pSes.getRemotePort(), pSes.getLocalPort());
+					newSession.getPackets().addAll(currentList.subList(index, currentList.size()));
 
+					// Break out of packet loop
+					break;
+				}
+
+			} else {
+				// FIN: No more data from sender
+				// RST: Reset the connection
+				if (pac.isFIN() || pac.isRST()) {
+					// Calculate session termination info
+					if (!bTerminated && lastPacket != null) {
+						double delay = packetInfo.getTimeStamp() - lastPacket.getTimeStamp();
+						pSes.setSessionTermination(new Termination(packetInfo, delay));
 					}
 
-					// I believe this handles case where we have joined in the
-					// middle of a TCP session
-					if (reassembledSession.getBaseSeq() == null) {
-						switch (packetInfo.getDir()) {
-						case UPLINK:
-							upl.setBaseSeq(pac.getSequenceNumber());
-							dol.setBaseSeq(pac.getAckNumber());
-							break;
-						case DOWNLINK:
-							dol.setBaseSeq(pac.getSequenceNumber());
-							upl.setBaseSeq(pac.getAckNumber());
-							break;
-						default:
-							logger.error("Invalid packet direction");
-						}
+					// Mark session terminated
+					bTerminated = true;
+					if (pac.isFIN()) {
+						packetInfo.setTcpInfo(TcpInfo.TCP_CLOSE);
+					} else if (pac.isRST()) {
+						packetInfo.setTcpInfo(TcpInfo.TCP_RESET);
 					}
-				}
 
-				// Get appName (there really should be only one per TCP session
-				String appName = packetInfo.getAppName();
-				if (appName != null) {
-					pSes.getAppNames().add(appName);
-					assert (pSes.getAppNames().size() <= 1) : pSes.getAppNames().size() + " app names per TCP session: "
-							+ pSes.getAppNames();
 				}
 
-				long seqn = pac.getSequenceNumber() - reassembledSession.getBaseSeq();
-				if (seqn < 0) {
-					seqn += 0xFFFFFFFF;
-					seqn++;
+				// I believe this handles case where we have joined in the
+				// middle of a TCP session
+				if (reassembledSession.getBaseSeq() == null) {
+					switch (packetInfo.getDir()) {
+					case UPLINK:
+						upl.setBaseSeq(pac.getSequenceNumber());
+						dol.setBaseSeq(pac.getAckNumber());
+						break;
+					case DOWNLINK:
+						dol.setBaseSeq(pac.getSequenceNumber());
+						upl.setBaseSeq(pac.getAckNumber());
+						break;
+					default:
+						logger.error("Invalid packet direction");
+					}
 				}
-				long seq = seqn;
+			}
 
-				if (reassembledSession.getSeq() == -1) {
-					reassembledSession.setSeq(seqn);
-				}
+			// Get appName (there really should be only one per TCP session
+			String appName = packetInfo.getAppName();
+			if (appName != null) {
+				pSes.getAppNames().add(appName);
+				assert (pSes.getAppNames().size() <= 1) : pSes.getAppNames().size() + " app names per TCP session: "
+						+ pSes.getAppNames();
+			}
 
-				if (seqn == reassembledSession.getSeq()) {
+			long seqn = pac.getSequenceNumber() - reassembledSession.getBaseSeq();
+			if (seqn < 0) {
+				seqn += 0xFFFFFFFF;
+				seqn++;
+			}
+			long seq = seqn;
 
-					if (seq == reassembledSession.getSeq() || (seq < reassembledSession.getSeq()
-							&& seq + pac.getPayloadLen() > reassembledSession.getSeq())) {
-						reassembledSession = reAssembleSession(pac, packetInfo, reassembledSession, pSes);
-					}
+			if (reassembledSession.getSeq() == -1) {
+				reassembledSession.setSeq(seqn);
+			}
 
-					// -logger.info("[1] "+reassembledSession);
+			if (seqn == reassembledSession.getSeq()) {
 
-					while (true) {
-						boolean bOODone = true;
-						List<PacketInfo> fixed = new ArrayList<PacketInfo>(reassembledSession.getOoid().size());
-						for (PacketInfo pin1 : reassembledSession.getOoid()) {
-							TCPPacket tPacket1 = (TCPPacket) pin1.getPacket();
-
-							seqn = tPacket1.getSequenceNumber() - reassembledSession.getBaseSeq();
-							if (seqn < 0) {
-								seqn += 0xFFFFFFFF;
-								seqn++;
-							}
+				if (seq == reassembledSession.getSeq() || (seq < reassembledSession.getSeq()
+						&& seq + pac.getPayloadLen() > reassembledSession.getSeq())) {
+					reassembledSession = reAssembleSession(pac, packetInfo, reassembledSession, pSes);
+				}
 
-							long seq2 = seqn;
+				// -logger.info("[1] "+reassembledSession);
 
-							if (seqn == reassembledSession.getSeq()) {
+				while (true) {
+					boolean bOODone = true;
+					List<PacketInfo> fixed = new ArrayList<PacketInfo>(reassembledSession.getOoid().size());
+					for (PacketInfo pin1 : reassembledSession.getOoid()) {
+						TCPPacket tPacket1 = (TCPPacket) pin1.getPacket();
+
+						seqn = tPacket1.getSequenceNumber() - reassembledSession.getBaseSeq();
+						if (seqn < 0) {
+							seqn += 0xFFFFFFFF;
+							seqn++;
+						}
 
-								if (seq2 == reassembledSession.getSeq() || (seq2 < reassembledSession.getSeq()
-										&& seq2 + pac.getPayloadLen() > reassembledSession.getSeq())) {
-									reassembledSession = reAssembleSession(tPacket1, pin1, reassembledSession, pSes);
-								}
+						long seq2 = seqn;
 
-								// -logger.info("_2_ "+reassembledSession);
+						if (seqn == reassembledSession.getSeq()) {
 
-								fixed.add(pin1);
-								bOODone = false;
-							} else if (tPacket1.getPayloadLen() == 0 && seqn == reassembledSession.getSeq() - 1
-									&& tPacket1.isACK() && !tPacket1.isSYN() && !tPacket1.isFIN()
-									&& !tPacket1.isRST()) {
-								logger.warn("31 - ???");
+							if (seq2 == reassembledSession.getSeq() || (seq2 < reassembledSession.getSeq()
+									&& seq2 + pac.getPayloadLen() > reassembledSession.getSeq())) {
+								reassembledSession = reAssembleSession(tPacket1, pin1, reassembledSession, pSes);
 							}
-						}
-						reassembledSession.getOoid().removeAll(fixed);
-						if (bOODone) {
-							break;
-						}
-					} // end while true
 
-					// -logger.info(" f "+reassembledSession);
+							// -logger.info("_2_ "+reassembledSession);
 
-				} else { // out of order packet, i_temp.e., seq != *XLseq
-					if (pac.getPayloadLen() == 0 && seqn == reassembledSession.getSeq() - 1 && pac.isACK()
-							&& !pac.isSYN() && !pac.isFIN() && !pac.isRST()) {
-						packetInfo.setTcpInfo(TcpInfo.TCP_KEEP_ALIVE);
-					} else {
-						reassembledSession.getOoid().add(packetInfo);
+							fixed.add(pin1);
+							bOODone = false;
+						} else if (tPacket1.getPayloadLen() == 0 && seqn == reassembledSession.getSeq() - 1
+								&& tPacket1.isACK() && !tPacket1.isSYN() && !tPacket1.isFIN()
+								&& !tPacket1.isRST()) {
+							logger.warn("31 - ???");
+						}
 					}
+					reassembledSession.getOoid().removeAll(fixed);
+					if (bOODone) {
+						break;
+					}
+				} // end while true
+
+				// -logger.info(" f "+reassembledSession);
+
+			} else { // out of order packet, i_temp.e., seq != *XLseq
+				if (pac.getPayloadLen() == 0 && seqn == reassembledSession.getSeq() - 1 && pac.isACK()
+						&& !pac.isSYN() && !pac.isFIN() && !pac.isRST()) {
+					packetInfo.setTcpInfo(TcpInfo.TCP_KEEP_ALIVE);
+				} else {
+					reassembledSession.getOoid().add(packetInfo);
 				}
+			}
 
-				lastPacket = packetInfo;
-			} // packet loop
+			lastPacket = packetInfo;
+		} // packet loop
 
-			pSes.setStorageDl(dol.getStorage().toByteArray());
-			pSes.setPacketOffsetsDl(dol.getPacketOffsets());
-			pSes.setPktRangesDl(dol.getPktRanges());
-			pSes.setStorageUl(upl.getStorage().toByteArray());
-			pSes.setPacketOffsetsUl(upl.getPacketOffsets());
-			pSes.setPktRangesUl(upl.getPktRanges());
+		pSes.setStorageDl(dol.getStorage().toByteArray());
+		pSes.setPacketOffsetsDl(dol.getPacketOffsets());
+		pSes.setPktRangesDl(dol.getPktRanges());
+		pSes.setStorageUl(upl.getStorage().toByteArray());
+		pSes.setPacketOffsetsUl(upl.getPacketOffsets());
+		pSes.setPktRangesUl(upl.getPktRanges());
 
-			for (PacketInfo pinfo : dol.getOoid()) {
-				if (pinfo.getPacket().getPayloadLen() > 0) {
-					pinfo.setTcpInfo(TcpInfo.TCP_DATA_DUP);
-				}
+		for (PacketInfo pinfo : dol.getOoid()) {
+			if (pinfo.getPacket().getPayloadLen() > 0) {
+				pinfo.setTcpInfo(TcpInfo.TCP_DATA_DUP);
 			}
+		}
 
-			for (PacketInfo pinfo : upl.getOoid()) {
-				if (pinfo.getPacket().getPayloadLen() > 0) {
-					pinfo.setTcpInfo(TcpInfo.TCP_DATA_DUP);
-				}
+		for (PacketInfo pinfo : upl.getOoid()) {
+			if (pinfo.getPacket().getPayloadLen() > 0) {
+				pinfo.setTcpInfo(TcpInfo.TCP_DATA_DUP);
 			}
-		} // END: Reassemble sessions
-			// -logger.info("END: Reassemble sessions");
+		}
+		return newSession;
 	}
 
 	private void iteratePackets(List<PacketInfo> packets, Map<String, Session> allSessions, List<PacketInfo> dnsPackets,
@@ -35,6 +35,10 @@ import org.springframework.beans.factory.annotation.Qualifier;
 
 import com.att.aro.core.ILogger;
 import com.att.aro.core.fileio.IFileManager;
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.IStopwatch;
+import com.att.aro.core.metrics.MetricName;
+import com.att.aro.core.metrics.impl.MetricsRegistryImpl;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.ITraceDataReader;
 import com.att.aro.core.packetanalysis.pojo.AbstractTraceResult;
@@ -106,6 +110,9 @@ public class TraceDataReaderImpl implements IPacketListener, ITraceDataReader {
 	@Autowired
 	@Qualifier("packetReader")
 	private IPacketReader packetreader;
+
+	@Autowired
+	private IMetricsRegistry metrics = new MetricsRegistryImpl();
 	
 	@Autowired
 	private ICpuActivityReader cpureader;
@@ -611,7 +618,9 @@ public class TraceDataReaderImpl implements IPacketListener, ITraceDataReader {
 			//this.packetreader = new PacketReaderImpl();
 			throw new NullPointerException("this.packetreader is null");
 		}
+		IStopwatch read = metrics.start(MetricName.PCAP_READ);
 		this.packetreader.readPacket(filepath, this);
+		read.stop();
 
 		double pcapTime0 = 0;
 		double traceDuration = 0;
@@ -0,0 +1,464 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.att.aro.core.ILogger;
+import com.att.aro.core.model.InjectLogger;
+import com.att.aro.core.packetanalysis.ITraceExporter;
+import com.att.aro.core.packetanalysis.pojo.AbstractTraceResult;
+import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TimeRange;
+import com.att.aro.core.packetanalysis.pojo.TraceDataConst;
+import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
+import com.att.aro.core.packetreader.pojo.Packet;
+import com.att.aro.core.packetreader.pojo.UDPPacket;
+import com.att.aro.core.util.Util;
+
+/**
+ * Cuts a trace down to the packets a filter keeps. When the trace came from a
+ * single libpcap file the records are copied with FileChannel.transferTo at
+ * the offsets PacketReaderImpl noted while reading, runs of adjacent records
+ * in one call. Otherwise they are written from the packet data in memory.
+ */
+public class TraceExporterImpl implements ITraceExporter {
+
+	@InjectLogger
+	private static ILogger logger;
+
+	private static final int FILE_HEADER_SIZE = 24;
+	private static final int RECORD_HEADER_SIZE = 16;
+	private static final int MAGIC_MICROS = 0xa1b2c3d4;
+	private static final int MAGIC_NANOS = 0xa1b23c4d;
+
+	// lines are "timestamp state", the state of the last line before the window still holds in it
+	private static final Set<String> STATE_FILES = new HashSet<String>(Arrays.asList(
+			TraceDataConst.FileName.GPS_FILE,
+			TraceDataConst.FileName.BLUETOOTH_FILE,
+			TraceDataConst.FileName.CAMERA_FILE,
+			TraceDataConst.FileName.SCREEN_STATE_FILE,
+			TraceDataConst.FileName.WIFI_FILE,
+			TraceDataConst.FileName.BATTERY_FILE,
+			TraceDataConst.FileName.NETWORKINFO_FILE));
+
+	// lines are "timestamp values", only the ones in the window are kept
+	private static final Set<String> EVENT_FILES = new HashSet<String>(Arrays.asList(
+			TraceDataConst.FileName.CPU_FILE,
+			TraceDataConst.FileName.TEMPERATURE_FILE,
+			TraceDataConst.FileName.LOCATION_FILE,
+			TraceDataConst.FileName.RADIO_EVENTS_FILE,
+			TraceDataConst.FileName.SCREEN_ROTATIONS_FILE));
+
+	// videos cannot be cut without re-encoding, they are what makes a trace large
+	private static final Set<String> SKIPPED_FILES = new HashSet<String>(Arrays.asList(
+			TraceDataConst.FileName.VIDEO_MOV_FILE,
+			TraceDataConst.FileName.VIDEO_MP4_FILE,
+			TraceDataConst.FileName.VIDEO_TIME_FILE,
+			TraceDataConst.FileName.EXVIDEO_TIME_FILE));
+
+	@Override
+	public int export(AbstractTraceResult trace, AnalysisFilter filter, Collection<Session> sessions, String targetDirectory) throws IOException {
+		File target = new File(targetDirectory);
+		File capture = captureFile(trace);
+		if (target.getCanonicalFile().equals(capture.getParentFile().getCanonicalFile())) {
+			throw new IOException("Cannot export a trace into its own folder " + targetDirectory);
+		}
+		if (!target.isDirectory() && !target.mkdirs()) {
+			throw new IOException("Cannot create " + targetDirectory);
+		}
+
+		List<PacketInfo> packets = select(trace.getAllpackets(), filter, sessions);
+		List<PacketInfo> written = writeCapture(capture, isSingleCapture(trace), packets,
+				new File(target, TraceDataConst.FileName.PCAP_FILE));
+
+		if (trace instanceof TraceDirectoryResult && (trace.getTraceFile() == null || trace.getTraceFile().isEmpty())) {
+			double begin;
+			double end;
+			TimeRange timeRange = filter != null ? filter.getTimeRange() : null;
+			if (timeRange != null) {
+				begin = timeRange.getBeginTime();
+				end = timeRange.getEndTime();
+			} else if (!written.isEmpty()) {
+				begin = written.get(0).getTimeStamp();
+				end = written.get(written.size() - 1).getTimeStamp();
+			} else {
+				begin = 0;
+				end = 0;
+			}
+			for (PacketInfo packet : written) {
+				begin = Math.min(begin, packet.getTimeStamp());
+				end = Math.max(end, packet.getTimeStamp());
+			}
+			copyPeripherals(new File(trace.getTraceDirectory()), target, trace.getPcapTime0(), begin, end);
+			writeAppIds(new File(trace.getTraceDirectory()), target, trace.getAppInfos(), written);
+		}
+		logger.info("Exported " + written.size() + " of " + trace.getAllpackets().size() + " packets to " + targetDirectory);
+		return written.size();
+	}
+
+	/**
+	 * Same checks as PacketAnalyzerImpl.filterPackets, without numbering the
+	 * packets again.
+	 */
+	private List<PacketInfo> select(List<PacketInfo> packets, AnalysisFilter filter, Collection<Session> sessions) {
+		Map<PacketInfo, Boolean> sessionPackets = null;
+		if (sessions != null) {
+			sessionPackets = new IdentityHashMap<PacketInfo, Boolean>();
+			for (Session session : sessions) {
+				for (PacketInfo packet : session.getAllPackets()) {
+					sessionPackets.put(packet, Boolean.TRUE);
+				}
+			}
+		}
+		TimeRange timeRange = filter != null ? filter.getTimeRange() : null;
+		List<PacketInfo> selected = new ArrayList<PacketInfo>();
+		for (PacketInfo packet : packets) {
+			if (sessionPackets != null && !sessionPackets.containsKey(packet)) {
+				continue;
+			}
+			if (filter != null) {
+				if (!filter.isIpv4Sel() && packet.getRemoteIPAddress() instanceof Inet4Address
+						|| !filter.isIpv6Sel() && packet.getRemoteIPAddress() instanceof Inet6Address
+						|| !filter.isUdpSel() && packet.getPacket() instanceof UDPPacket) {
+					continue;
+				}
+				if (timeRange != null && (timeRange.getBeginTime() > packet.getTimeStamp() || timeRange.getEndTime() < packet.getTimeStamp())) {
+					continue;
+				}
+				if (filter.getAppSelections() != null && filter.getPacketColor(packet) == null) {
+					continue;
+				}
+			}
+			selected.add(packet);
+		}
+		return selected;
+	}
+
+	private static File captureFile(AbstractTraceResult trace) {
+		if (trace.getTraceFile() != null && !trace.getTraceFile().isEmpty()) {
+			return new File(trace.getTraceFile()).getAbsoluteFile();
+		}
+		return new File(trace.getTraceDirectory(), TraceDataConst.FileName.PCAP_FILE).getAbsoluteFile();
+	}
+
+	/**
+	 * The offsets are per file, a folder with traffic1.cap and on has packets
+	 * from several.
+	 */
+	private static boolean isSingleCapture(AbstractTraceResult trace) {
+		return (trace.getTraceFile() != null && !trace.getTraceFile().isEmpty())
+				|| !new File(trace.getTraceDirectory(), TraceDataConst.FileName.TRAFFIC + 1 + TraceDataConst.FileName.CAP_EXT).exists();
+	}
+
+	/**
+	 * @return the packets in the order their records were written
+	 */
+	private List<PacketInfo> writeCapture(File capture, boolean single, List<PacketInfo> packets, File file) throws IOException {
+		FileChannel in = FileChannel.open(capture.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+			readFully(in, header, 0);
+			ByteOrder order = byteOrder(header.getInt(0));
+			if (order == null) {
+				throw new IOException(capture + " is not a libpcap capture, only libpcap traces can be exported");
+			}
+			boolean nanos = header.order(order).getInt(0) == MAGIC_NANOS;
+
+			FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				header.rewind();
+				writeFully(out, header);
+				List<PacketInfo> byOffset = single ? sortByOffset(packets) : null;
+				if (byOffset != null && checkOffsets(in, order, byOffset)) {
+					transferRecords(in, out, byOffset);
+					return byOffset;
+				}
+				logger.debug("Record offsets unknown for " + capture + ", writing the packets from memory");
+				writeRecords(out, order, nanos, packets);
+				return packets;
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return the packets in file order, null if any has no offset
+	 */
+	private static List<PacketInfo> sortByOffset(List<PacketInfo> packets) {
+		List<PacketInfo> sorted = new ArrayList<PacketInfo>(packets);
+		for (PacketInfo packet : sorted) {
+			if (packet.getPacket().getRecordOffset() < 0) {
+				return null;
+			}
+		}
+		Collections.sort(sorted, new Comparator<PacketInfo>() {
+			@Override
+			public int compare(PacketInfo packet1, PacketInfo packet2) {
+				return Long.compare(packet1.getPacket().getRecordOffset(), packet2.getPacket().getRecordOffset());
+			}
+		});
+		return sorted;
+	}
+
+	/**
+	 * Reads the record header at the start of every run and compares it with
+	 * the packet, in case the file changed or was not read as libpcap.
+	 */
+	private static boolean checkOffsets(FileChannel in, ByteOrder order, List<PacketInfo> packets) throws IOException {
+		ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE).order(order);
+		long size = in.size();
+		long runEnd = -1;
+		for (PacketInfo info : packets) {
+			Packet packet = info.getPacket();
+			long offset = packet.getRecordOffset();
+			if (offset != runEnd) {
+				if (offset + RECORD_HEADER_SIZE > size) {
+					return false;
+				}
+				recordHeader.clear();
+				readFully(in, recordHeader, offset);
+				if ((recordHeader.getInt(0) & 0xffffffffL) != packet.getSeconds() || recordHeader.getInt(8) != packet.getData().length) {
+					return false;
+				}
+			}
+			runEnd = offset + RECORD_HEADER_SIZE + packet.getData().length;
+			if (runEnd > size) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void transferRecords(FileChannel in, FileChannel out, List<PacketInfo> packets) throws IOException {
+		long runStart = -1;
+		long runEnd = -1;
+		for (PacketInfo info : packets) {
+			long offset = info.getPacket().getRecordOffset();
+			if (offset != runEnd) {
+				transfer(in, runStart, runEnd - runStart, out);
+				runStart = offset;
+			}
+			runEnd = offset + RECORD_HEADER_SIZE + info.getPacket().getData().length;
+		}
+		transfer(in, runStart, runEnd - runStart, out);
+	}
+
+	private static void transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+		long done = 0;
+		while (done < count) {
+			long moved = in.transferTo(position + done, count - done, out);
+			if (moved <= 0) {
+				throw new EOFException("Capture ended at " + (position + done));
+			}
+			done += moved;
+		}
+	}
+
+	/**
+	 * The original length is not kept by Packet, records are written as not
+	 * truncated.
+	 */
+	private static void writeRecords(FileChannel out, ByteOrder order, boolean nanos, List<PacketInfo> packets) throws IOException {
+		ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE).order(order);
+		for (PacketInfo info : packets) {
+			Packet packet = info.getPacket();
+			byte[] data = packet.getData();
+			recordHeader.clear();
+			recordHeader.putInt((int) packet.getSeconds());
+			recordHeader.putInt((int) (nanos ? packet.getMicroSeconds() * 1000 : packet.getMicroSeconds()));
+			recordHeader.putInt(data.length);
+			recordHeader.putInt(data.length);
+			recordHeader.flip();
+			writeFully(out, recordHeader);
+			writeFully(out, ByteBuffer.wrap(data));
+		}
+	}
+
+	private static ByteOrder byteOrder(int magic) {
+		if (magic == MAGIC_MICROS || magic == MAGIC_NANOS) {
+			return ByteOrder.BIG_ENDIAN;
+		}
+		if (Integer.reverseBytes(magic) == MAGIC_MICROS || Integer.reverseBytes(magic) == MAGIC_NANOS) {
+			return ByteOrder.LITTLE_ENDIAN;
+		}
+		return null;
+	}
+
+	private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+		long offset = position;
+		while (buffer.hasRemaining()) {
+			int read = in.read(buffer, offset);
+			if (read < 0) {
+				throw new EOFException("Capture ended at " + offset);
+			}
+			offset += read;
+		}
+	}
+
+	private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+	}
+
+	/**
+	 * Copies the files of the trace folder, the ones with timestamped lines
+	 * cut to [begin, end] seconds of the trace.
+	 */
+	private void copyPeripherals(File source, File target, double pcapTime0, double begin, double end) throws IOException {
+		File[] files = source.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (!file.isFile() || SKIPPED_FILES.contains(name) || TraceDataConst.FileName.APPID_FILE.equals(name)
+					|| (name.startsWith(TraceDataConst.FileName.TRAFFIC) && name.endsWith(TraceDataConst.FileName.CAP_EXT))) {
+				continue;
+			}
+			File copy = new File(target, name);
+			if (STATE_FILES.contains(name) || EVENT_FILES.contains(name)) {
+				sliceLines(file, copy, pcapTime0, begin, end, STATE_FILES.contains(name));
+			} else if (TraceDataConst.FileName.TIME_FILE.equals(name)) {
+				writeTimeFile(file, copy, pcapTime0 + end);
+			} else {
+				Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	private static void sliceLines(File source, File target, double pcapTime0, double begin, double end, boolean carryState) throws IOException {
+		BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8);
+		try {
+			BufferedWriter writer = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8);
+			try {
+				String carried = null;
+				String line;
+				while ((line = reader.readLine()) != null) {
+					Double timestamp = timestamp(line);
+					if (timestamp == null) {
+						writeLine(writer, line);
+						continue;
+					}
+					double time = Util.normalizeTime(timestamp, pcapTime0);
+					if (time < begin) {
+						carried = carryState ? line : null;
+					} else if (time <= end) {
+						if (carried != null) {
+							writeLine(writer, carried);
+							carried = null;
+						}
+						writeLine(writer, line);
+					}
+				}
+				if (carried != null) {
+					writeLine(writer, carried);
+				}
+			} finally {
+				writer.close();
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static Double timestamp(String line) {
+		int space = line.indexOf(' ');
+		try {
+			return Double.valueOf(space < 0 ? line.trim() : line.substring(0, space));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Keeps the start time so the packets keep their offsets into the trace,
+	 * only the end time, the fourth line, is moved to the end of the window.
+	 */
+	private static void writeTimeFile(File source, File target, double endTime) throws IOException {
+		List<String> lines = Files.readAllLines(source.toPath(), StandardCharsets.UTF_8);
+		if (lines.size() > 3) {
+			try {
+				if (Double.parseDouble(lines.get(3).trim()) > endTime) {
+					lines.set(3, BigDecimal.valueOf(endTime).toPlainString());
+				}
+			} catch (NumberFormatException e) {
+				logger.warn("Unexpected end time in " + source + ": " + lines.get(3));
+			}
+		}
+		Files.write(target.toPath(), lines, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * appid has one line per IP packet in capture order, so it is written
+	 * again for the packets that were kept.
+	 */
+	private static void writeAppIds(File source, File target, List<String> appInfos, List<PacketInfo> packets) throws IOException {
+		if (!new File(source, TraceDataConst.FileName.APPID_FILE).exists()) {
+			return;
+		}
+		Map<String, Integer> appIds = new HashMap<String, Integer>();
+		for (int idx = appInfos.size() - 1; idx >= 0; idx--) {
+			appIds.put(appInfos.get(idx), idx);
+		}
+		BufferedWriter writer = Files.newBufferedWriter(new File(target, TraceDataConst.FileName.APPID_FILE).toPath(), StandardCharsets.UTF_8);
+		try {
+			for (PacketInfo packet : packets) {
+				Integer appId = appIds.get(packet.getAppName());
+				writeLine(writer, String.valueOf(appId != null ? appId : TraceDataConst.VALID_UNKNOWN_APP_ID));
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static void writeLine(BufferedWriter writer, String line) throws IOException {
+		writer.write(line);
+		writer.newLine();
+	}
+}
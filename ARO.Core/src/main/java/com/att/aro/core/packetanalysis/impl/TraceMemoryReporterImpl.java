@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.att.aro.core.packetanalysis.ITraceMemoryReporter;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TraceMemoryReport;
+
+/**
+ * Walks the packets, sessions and requests/responses of a trace once and adds
+ * up the estimated size of what they hold.
+ */
+public class TraceMemoryReporterImpl implements ITraceMemoryReporter {
+
+	// estimates for a 64 bit JVM with compressed references
+	static final int ARRAY_HEADER = 16;
+	static final int STRING_HEADER = 24 + ARRAY_HEADER;
+	static final int PACKET_OBJECTS = 120; // PacketInfo, Packet subclass and its list slot
+	static final int MAP_ENTRY = 40; // TreeMap entry with a boxed key
+	static final int REQUEST_RESPONSE_OBJECT = 280;
+
+	@Override
+	public TraceMemoryReport report(PacketAnalyzerResult tracedata) {
+		Strings strings = new Strings();
+
+		List<PacketInfo> packets = tracedata.getTraceresult() != null ? tracedata.getTraceresult().getAllpackets() : null;
+		int packetCount = 0;
+		long packetBytes = 0;
+		if (packets != null) {
+			for (PacketInfo packet : packets) {
+				packetCount++;
+				packetBytes += packetBytes(packet);
+				strings.add(packet.getAppName());
+			}
+		}
+
+		int sessionCount = 0;
+		long storageBytes = 0;
+		int requestResponseCount = 0;
+		long requestResponseBytes = 0;
+		if (tracedata.getSessionlist() != null) {
+			for (Session session : tracedata.getSessionlist()) {
+				sessionCount++;
+				storageBytes += arrayBytes(session.getStorageUl()) + arrayBytes(session.getStorageDl());
+				storageBytes += mapBytes(session.getPacketOffsetsUl()) + mapBytes(session.getPacketOffsetsDl());
+				strings.add(session.getDomainName());
+				strings.add(session.getRemoteHostName());
+				if (packets == null) {
+					// no trace result to take the packets from, the sessions have them all
+					for (PacketInfo packet : session.getPackets()) {
+						packetCount++;
+						packetBytes += packetBytes(packet);
+					}
+				}
+				for (HttpRequestResponseInfo rrInfo : session.getRequestResponseInfo()) {
+					requestResponseCount++;
+					requestResponseBytes += REQUEST_RESPONSE_OBJECT + mapBytes(rrInfo.getContentOffsetLength());
+					strings.add(rrInfo.getHostName());
+					strings.add(rrInfo.getContentType());
+					strings.add(rrInfo.getContentEncoding());
+					strings.add(rrInfo.getCharset());
+					strings.add(rrInfo.getStatusLine());
+					strings.add(rrInfo.getResponseResult());
+					strings.add(rrInfo.getObjName());
+					strings.add(rrInfo.getEtag());
+					strings.add(rrInfo.getVersion());
+					strings.add(rrInfo.getRequestType());
+					strings.add(rrInfo.getScheme());
+				}
+			}
+		}
+
+		return new TraceMemoryReport(packetCount, packetBytes, sessionCount, storageBytes, requestResponseCount,
+				requestResponseBytes, strings.bytes, strings.duplicateBytes);
+	}
+
+	private static long packetBytes(PacketInfo packet) {
+		return PACKET_OBJECTS + (packet.getPacket() != null ? arrayBytes(packet.getPacket().getData()) : 0);
+	}
+
+	private static long arrayBytes(byte[] data) {
+		return data != null ? ARRAY_HEADER + data.length : 0;
+	}
+
+	private static long mapBytes(Map<?, ?> map) {
+		return map != null ? (long) MAP_ENTRY * map.size() : 0;
+	}
+
+	static long stringBytes(String value) {
+		return STRING_HEADER + 2L * value.length();
+	}
+
+	/**
+	 * Counts every String instance once, and the instances that equal an
+	 * instance counted before as duplicates.
+	 */
+	private static class Strings {
+		private final Map<String, Boolean> instances = new IdentityHashMap<String, Boolean>();
+		private final Map<String, String> values = new HashMap<String, String>();
+		private long bytes;
+		private long duplicateBytes;
+
+		void add(String value) {
+			if (value == null || instances.put(value, Boolean.TRUE) != null) {
+				return;
+			}
+			long size = stringBytes(value);
+			bytes += size;
+			if (values.put(value, value) != null) {
+				duplicateBytes += size;
+			}
+		}
+	}
+}
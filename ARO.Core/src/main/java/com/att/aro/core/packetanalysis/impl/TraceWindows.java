@@ -0,0 +1,183 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.configuration.pojo.Profile3G;
+import com.att.aro.core.configuration.pojo.ProfileLTE;
+import com.att.aro.core.configuration.pojo.ProfileType;
+import com.att.aro.core.configuration.pojo.ProfileWiFi;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.TimeRange;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+
+/**
+ * Cuts long traces into windows that can be analyzed on their own and runs
+ * the work of the windows on a thread pool.
+ *
+ * A window is only cut off at a gap between packets long enough for the
+ * radio to go through all of its tails, idle and promote again, and for the
+ * bursts on both sides to stay apart. The RRC state machine starts over at
+ * such a gap, so the state ranges of a window are the same as in a single
+ * pass, apart from the idle range at its start.
+ */
+final class TraceWindows {
+
+	private TraceWindows() {
+	}
+
+	/**
+	 * Cuts the packets into windows of at least windowPackets packets. Packets
+	 * out of time order are not cut.
+	 * 
+	 * @param packets
+	 *            packets of the analysis, in time order
+	 * @param traceDuration
+	 *            end of the last window
+	 * @return the windows in time order, one window for the whole trace when
+	 *         it can not be cut
+	 */
+	static List<TraceWindow> split(List<PacketInfo> packets, Profile profile, double traceDuration, int windowPackets) {
+		List<TraceWindow> windows = new ArrayList<TraceWindow>();
+		int size = packets != null ? packets.size() : 0;
+		int first = 0;
+		if (windowPackets > 0 && size >= 2 * windowPackets && isSorted(packets)) {
+			double gap = cutGap(profile);
+			boolean uplinkOnly = profile.getProfileType() == ProfileType.T3G;
+			double last = packets.get(0).getTimeStamp();
+			for (int idx = 1; idx < size; idx++) {
+				PacketInfo packet = packets.get(idx);
+				double time = packet.getTimeStamp();
+				if (idx - first >= windowPackets && time - last > gap
+						&& (!uplinkOnly || packet.getDir() == PacketDirection.UPLINK)) {
+					windows.add(window(packets, first, idx, time));
+					first = idx;
+				}
+				last = time;
+			}
+		}
+		windows.add(window(packets, first, size, traceDuration));
+		return windows;
+	}
+
+	private static TraceWindow window(List<PacketInfo> packets, int first, int end, double endTime) {
+		double beginTime = first == 0 ? 0.0 : packets.get(first).getTimeStamp();
+		return new TraceWindow(first, end, new TimeRange(beginTime, endTime));
+	}
+
+	private static boolean isSorted(List<PacketInfo> packets) {
+		double last = Double.NEGATIVE_INFINITY;
+		for (PacketInfo packet : packets) {
+			if (packet.getTimeStamp() < last) {
+				return false;
+			}
+			last = packet.getTimeStamp();
+		}
+		return true;
+	}
+
+	/**
+	 * The shortest gap a window is cut at. It covers the tails and the
+	 * promotion of the profile, so the radio is idle for a while before the
+	 * next window starts. 3G promotions are modeled from the direction of the
+	 * packet, windows of a 3G trace also have to start on an uplink packet.
+	 * The burst thresholds are added on top, so no burst or inter-burst time
+	 * reaches over the gap.
+	 */
+	static double cutGap(Profile profile) {
+		double idle;
+		if (profile.getProfileType() == ProfileType.LTE) {
+			ProfileLTE lte = (ProfileLTE) profile;
+			idle = lte.getInactivityTimer() + lte.getDrxShortTime() + lte.getDrxLongTime() + lte.getPromotionTime();
+		} else if (profile.getProfileType() == ProfileType.T3G) {
+			Profile3G prof3g = (Profile3G) profile;
+			double promotion = Math.max(Math.max(prof3g.getIdleDchPromoMax(), prof3g.getIdleDchPromoAvg()),
+					Math.max(prof3g.getFachDchPromoMax(), prof3g.getFachDchPromoAvg()));
+			// the DCH tail can be stretched back over the gap by as much as the
+			// DCH timer, burst grouping takes up to two promotions out of it
+			idle = 3 * promotion + 2 * prof3g.getDchFachTimer() + prof3g.getFachIdleTimer();
+		} else if (profile.getProfileType() == ProfileType.WIFI) {
+			idle = ((ProfileWiFi) profile).getWifiTailTime();
+		} else {
+			throw new IllegalArgumentException("Invalid profile type for state machine: " + profile.getClass());
+		}
+		return idle + Math.max(profile.getBurstTh(), profile.getLongBurstTh());
+	}
+
+	/**
+	 * Runs the tasks, on the calling thread when there is only one. Each task
+	 * writes its own part of the results, so one that has to be run again
+	 * after an interrupt does no harm.
+	 */
+	static void runAll(List<Callable<Void>> tasks, int threads) {
+		if (tasks.size() < 2 || threads < 2) {
+			for (Callable<Void> task : tasks) {
+				call(task);
+			}
+			return;
+		}
+		ExecutorService exec = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+			for (Callable<Void> task : tasks) {
+				futures.add(exec.submit(task));
+			}
+			for (int idx = 0; idx < futures.size(); idx++) {
+				try {
+					futures.get(idx).get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					call(tasks.get(idx));
+				} catch (ExecutionException e) {
+					throw rethrow(e.getCause());
+				}
+			}
+		} finally {
+			exec.shutdownNow();
+		}
+	}
+
+	static void runAll(List<Callable<Void>> tasks) {
+		runAll(tasks, Runtime.getRuntime().availableProcessors());
+	}
+
+	private static void call(Callable<Void> task) {
+		try {
+			task.call();
+		} catch (Exception e) {
+			throw rethrow(e);
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable cause) {
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new IllegalStateException(cause);
+	}
+}
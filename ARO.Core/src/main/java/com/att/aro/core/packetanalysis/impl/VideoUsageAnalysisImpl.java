@@ -21,10 +21,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
@@ -37,7 +35,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import com.att.aro.core.ILogger;
 import com.att.aro.core.bestpractice.pojo.VideoUsage;
-import com.att.aro.core.commandline.IExternalProcessRunner;
+import com.att.aro.core.commandline.IProcessExecutor;
+import com.att.aro.core.commandline.pojo.ProcessResult;
 import com.att.aro.core.fileio.IFileManager;
 import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
@@ -57,6 +56,7 @@ import com.att.aro.core.util.StringParse;
 import com.att.aro.core.util.Util;
 import com.att.aro.core.videoanalysis.IVideoAnalysisConfigHelper;
 import com.att.aro.core.videoanalysis.IVideoEventDataHelper;
+import com.att.aro.core.videoanalysis.impl.VideoSegmentStoreImpl;
 import com.att.aro.core.videoanalysis.pojo.AROManifest;
 import com.att.aro.core.videoanalysis.pojo.ManifestDash;
 import com.att.aro.core.videoanalysis.pojo.ManifestHLS;
@@ -83,12 +83,11 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 	@InjectLogger
 	private static ILogger log;
 
-	private IExternalProcessRunner extrunner;
-
 	@Autowired
-	public void setExternalProcessRunner(IExternalProcessRunner runner) {
-		this.extrunner = runner;
-	}
+	private IProcessExecutor processExecutor;
+
+	// a single segment, ffmpeg normally needs well under a second
+	private static final long FFMPEG_TIMEOUT = 60 * 1000L;
 
 	@Autowired
 	private IVideoAnalysisConfigHelper voConfigHelper;
@@ -106,6 +105,8 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 	private boolean imageExtractionRequired = false;
 
 	private String videoPath;
+
+	private VideoSegmentStoreImpl segmentStore;
 	
 	private String imagePath;
 	
@@ -188,9 +189,12 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 		videoPath = tracePath + fileVideoSegments + Util.FILE_SEPARATOR;
 		if (!filemanager.directoryExist(videoPath)) {
 			filemanager.mkDir(videoPath);
-		} else {
+		} else if (checkDevMode()) {
+			// the named debug copies are written again on every run
 			filemanager.directoryDeleteInnerFiles(videoPath);
 		}
+		// segment files are named by content, files of an earlier run of this trace are reused
+		segmentStore = new VideoSegmentStoreImpl(videoPath, reqhelper);
 
 		imagePath = tracePath + "Image" + Util.FILE_SEPARATOR;
 
@@ -206,6 +210,7 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 		aroManifest = null;
 		videoUsage = new VideoUsage(result.getTraceDirectory());
 		videoUsage.setVideoUsagePrefs(videoUsagePrefs);
+		videoUsage.setSegmentStore(segmentStore);
 		aroManifestMap = videoUsage.getAroManifestMap();
 
 		// Go through trace-directory/download folder to load external manifests, if exist
@@ -390,11 +395,13 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 //			log.setLevel(originalLevel);
 //		}
 		
-		// Always delete the temp segment folder
-		if (!checkDevMode()) {
-			filemanager.directoryDeleteInnerFiles(videoPath);
+		// keep the segment files for the next run, only those this trace no longer has go
+		int deleted = segmentStore.deleteUnused();
+		if (!filemanager.directoryExistAndNotEmpty(videoPath)) {
 			filemanager.deleteFile(videoPath);
 		}
+		log.info(String.format("video segments :%d, files written :%d, reused :%d, deleted :%d", segmentStore.size(),
+				segmentStore.getWrittenCount(), segmentStore.getReusedCount(), deleted));
 
 		return videoUsage;
 	}
@@ -602,7 +609,6 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 
 		String fullName = extractFullNameFromRRInfo(request);
 		byte[] content = null;
-		String fullpath;
 
 		String[] voValues = null;
 		vConfig = voConfigHelper.findConfig(request.getObjUri().toString());
@@ -660,6 +666,7 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 		Integer[] segmentMetaData = new Integer[2];
 
 		String segName = null;
+		String segmentKey = null;
 
 		try {
 			content = reqhelper.getContent(response, session);
@@ -686,19 +693,26 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 
 			}
 
-			fullpath = constructDebugName(request, ved);
-
 			log.debug(fileName + ", content.length :" + content.length);
 
 			if (segment == 0 && aroManifest.isVideoType(VideoType.DASH)) {
 				VideoData vData = new VideoData(aroManifest.getEventType(), quality, content);
 				aroManifest.addVData(vData);
+				segmentKey = segmentStore.add(response, session, null, ved.getExtension());
 			} else {
-				String seg = String.format("%08d", ((Double) segment).intValue());
-				segName = getDebugPath() + seg + '_' + ved.getId() + '.' + ved.getExtension();
-				thumbnail = extractThumbnail(aroManifest, content, ved);
+				// ffmpeg needs the init segment (mbox0) ahead of the segment to decode it
+				VideoData vData = aroManifest.getVData(ved.getQuality());
+				segmentKey = segmentStore.add(response, session, vData != null ? vData.getContent() : null, ved.getExtension());
+				if (vData != null) {
+					segName = getSegmentFile(segmentKey);
+					if (segName != null) {
+						thumbnail = extractVideoFrameShell(segName);
+					}
+				}
+			}
+			if (checkDevMode()) {
+				filemanager.saveFile(new ByteArrayInputStream(content), constructDebugName(request, ved));
 			}
-			filemanager.saveFile(new ByteArrayInputStream(content), fullpath);
 
 		} catch (Exception e) {
 
@@ -737,6 +751,7 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 		
 
 		VideoEvent vEvent = new VideoEvent(thumbnail, aroManifest.getEventType(), segment, quality, rangeList, bitrate, duration, segmentStartTime, segmentMetaData[0], response);
+		vEvent.setSegmentKey(segmentKey);
 		aroManifest.addVideoEvent(segment, response.getTimeStamp(), vEvent);
 
 	}
@@ -788,8 +803,9 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 	 */
 	private TreeMap<String, Double> extractMetadata(String srcpath) {
 		TreeMap<String, Double> results = new TreeMap<>();
-		String cmd = Util.getFFMPEG() + " -i " + srcpath;
-		String lines = extrunner.executeCmd(cmd);
+		// ffmpeg -i prints the stream info on stderr, the result is kept for the segment bytes
+		ProcessResult result = processExecutor.execute(Arrays.asList(Util.getFFMPEG(), "-i", srcpath), FFMPEG_TIMEOUT, new File(srcpath));
+		String lines = result.getErrorOutput();
 		if (lines.indexOf("No such file") == -1) {
 			double bitrate = getBitrate("bitrate: ", lines);
 			results.put("bitrate", bitrate);
@@ -932,67 +948,33 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 
 
 	/**
-	 * Extract a Thumbnail image from the first frame of a video
-	 * 
-	 * @param aroManifest
-	 * @param content
+	 * Returns the path of the segment file for ffmpeg, writing the file if an
+	 * earlier run did not leave it
 	 * 
-	 * @param srcpath
-	 * @param segmentName
-	 * @param quality
-	 * @param videoData
-	 * @return
+	 * @param segmentKey
+	 * @return path or null if the file could not be written
 	 */
-	private byte[] extractThumbnail(AROManifest aroManifest, byte[] content, VideoEventData ved) {
-		
-		String //segName = getDebugPath() + String.format("%08d", ved.getIntSegment()) + '_' + ved.getId() + '.' + ved.getExtension();
-		segName = (new StringBuilder(getDebugPath()))
-				.append(String.format("%08d", ved.getSegment()))
-				.append('_')
-				.append(ved.getId())
-				.append('.')
-				.append(ved.getExtension())
-				.toString();
-		
-		byte[] data = null;
-		filemanager.deleteFile(ved.getId());
-
-		VideoData vData = aroManifest.getVData(ved.getQuality());
-		if (vData == null) {
-			return null;
-		}
-
-		// join mbox0 with segment
-		byte[] mbox0 = vData.getContent();
-		byte[] movie = new byte[mbox0.length + content.length];
-		System.arraycopy(mbox0, 0, movie, 0, mbox0.length);
-		System.arraycopy(content, 0, movie, mbox0.length, content.length);
-
+	private String getSegmentFile(String segmentKey) {
 		try {
-			filemanager.saveFile(new ByteArrayInputStream(movie), segName);
-		} catch (IOException e1) {
-			log.error("IOException:"+e1.getMessage());
+			return segmentStore.getFile(segmentKey).getPath();
+		} catch (IOException e) {
+			log.error("IOException:" + e.getMessage());
+			return null;
 		}
-
-		data = extractVideoFrameShell(segName);
-
-		return data;
 	}
 
 	private byte[] extractVideoFrameShell(String segmentName) {
 		byte[] data = null;
-		String thumbnail = getDebugPath() + "thumbnail.png";
-		filemanager.deleteFile(thumbnail);
 
-		String cmd = Util.getFFMPEG() + " -y -i " + segmentName + " -ss 00:00:00   -vframes 1 " + thumbnail;
-		String ff_lines = extrunner.executeCmd(cmd);
-		log.debug("ff_lines :" + ff_lines);
+		// the png is piped back on stdout instead of going through thumbnail.png
+		List<String> cmd = Arrays.asList(Util.getFFMPEG(), "-i", segmentName, "-ss", "00:00:00", "-vframes", "1", "-f", "image2pipe", "-vcodec", "png", "-");
+		ProcessResult result = processExecutor.execute(cmd, FFMPEG_TIMEOUT, new File(segmentName));
+		log.debug("ff_lines :" + result.getErrorOutput());
 
-		Path path = Paths.get(thumbnail);
-		try {
-			data = Files.readAllBytes(path);
-		} catch (IOException e) {
-			log.debug("getThumnail IOException:" + e.getMessage());
+		if (result.getOutput().length > 0) {
+			data = result.getOutput();
+		} else {
+			log.debug("getThumnail no frame from " + segmentName);
 		}
 		return data;
 	}
@@ -1110,7 +1092,9 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 			fname.append('_');
 			fname.append(videoName);
 			fname.append("_ManifestHLS.m3u8");
-			filemanager.saveFile(new ByteArrayInputStream(content), fname.toString());
+			if (checkDevMode()) {
+				filemanager.saveFile(new ByteArrayInputStream(content), fname.toString());
+			}
 
 		} catch (Exception e) {
 			videoUsage.addFailedRequestMap(request);
@@ -1242,13 +1226,17 @@ public class VideoUsageAnalysisImpl implements IVideoUsageAnalysis {
 	}
 	
 	/**
-	 * Saves byte[] to a file
+	 * Saves byte[] to a file, in dev mode only
 	 * 
 	 * @param request
 	 * @param content
 	 * @throws IOException
 	 */
 	private void saveManifestFile(HttpRequestResponseInfo request, byte[] content) throws IOException {
+		// a debugging copy, nothing reads it back
+		if (!checkDevMode()) {
+			return;
+		}
 		StringBuffer fname = new StringBuffer(getDebugPath());
 		String temp = extractNameFromRRInfo(request);
 		fname.append(temp.equals("manifest") ? "_SSM_manifest" : temp);
@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.att.aro.core.configuration.IProfileFactory;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.configuration.pojo.Profile3G;
+import com.att.aro.core.configuration.pojo.ProfileLTE;
+import com.att.aro.core.configuration.pojo.ProfileType;
+import com.att.aro.core.configuration.pojo.ProfileWiFi;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RRCState;
+import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+
+/**
+ * Works out RRC energy of long traces in time windows on a thread pool.
+ *
+ * energyLTE finds the throughput of an LTE_CONTINUOUS range by walking the
+ * packet list from its first packet, so a multi-hour trace walks every packet
+ * again for every range. Each call made here only gets the packets around its
+ * range. The throughput comes out the same, packets before the range add to
+ * both ends of every sample and packets after it are never reached.
+ *
+ * Windows end on an idle state range, where the radio starts over, and are
+ * split off once they hold enough packets to be worth a thread. Energies are handed back
+ * one per range or burst, callers add them up in trace order so the totals
+ * match a single pass to the last bit.
+ */
+final class WindowedEnergyCalculator {
+
+	/**
+	 * Default window size, smaller windows are not worth a thread.
+	 */
+	static final int WINDOW_PACKETS = 20000;
+
+	private final IProfileFactory profilefactory;
+	private final Profile profile;
+	private final List<PacketInfo> packets;
+	// null when the packets are not in time order, every call then gets all of them
+	private final double[] timestamps;
+	private final int threads;
+	private final int windowPackets;
+
+	WindowedEnergyCalculator(IProfileFactory profilefactory, Profile profile, List<PacketInfo> packets) {
+		this(profilefactory, profile, packets, Runtime.getRuntime().availableProcessors(), WINDOW_PACKETS);
+	}
+
+	WindowedEnergyCalculator(IProfileFactory profilefactory, Profile profile, List<PacketInfo> packets, int threads,
+			int windowPackets) {
+		this.profilefactory = profilefactory;
+		this.profile = profile;
+		this.packets = packets;
+		this.timestamps = sortedTimestamps(packets);
+		this.threads = threads;
+		this.windowPackets = windowPackets;
+	}
+
+	int getWindowPackets() {
+		return windowPackets;
+	}
+
+	private static double[] sortedTimestamps(List<PacketInfo> packets) {
+		if (packets == null) {
+			return null;
+		}
+		double[] timestamps = new double[packets.size()];
+		for (int idx = 0; idx < timestamps.length; idx++) {
+			timestamps[idx] = packets.get(idx).getTimeStamp();
+			if (idx > 0 && timestamps[idx] < timestamps[idx - 1]) {
+				return null;
+			}
+		}
+		return timestamps;
+	}
+
+	/**
+	 * Same as the IProfileFactory energy method for the profile type.
+	 */
+	double energy(double time1, double time2, RRCState state) {
+		if (profile.getProfileType() == ProfileType.T3G) {
+			return profilefactory.energy3G(time1, time2, state, (Profile3G) profile);
+		} else if (profile.getProfileType() == ProfileType.LTE) {
+			return profilefactory.energyLTE(time1, time2, state, (ProfileLTE) profile, packetsAround(time1, time2));
+		} else if (profile.getProfileType() == ProfileType.WIFI) {
+			return profilefactory.energyWiFi(time1, time2, state, (ProfileWiFi) profile);
+		}
+		return 0;
+	}
+
+	/**
+	 * Packets energyLTE needs for the time span. Keeps one packet ahead of the
+	 * span so throughput samples are still made for a span without packets,
+	 * and one throughput window past its end for samples that a rounding error
+	 * ends a little late.
+	 */
+	List<PacketInfo> packetsAround(double begin, double end) {
+		if (timestamps == null || timestamps.length == 0) {
+			return packets;
+		}
+		int from = Math.max(0, indexOf(begin) - 1);
+		int to = Math.max(indexOf(end + profile.getThroughputWindow()), from + 1);
+		return packets.subList(from, to);
+	}
+
+	/**
+	 * @return position of the first packet at or after the time
+	 */
+	int indexOf(double time) {
+		int low = 0;
+		int high = timestamps.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (timestamps[mid] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return energy of each range, in range order
+	 */
+	double[] rangeEnergies(final List<RrcStateRange> ranges) {
+		final double[] energies = new double[ranges.size()];
+		List<Callable<Void>> windows = new ArrayList<Callable<Void>>();
+		int begin = 0;
+		int windowStart = 0;
+		for (int idx = 0; timestamps != null && idx < ranges.size() - 1; idx++) {
+			RrcStateRange range = ranges.get(idx);
+			int packetsSoFar = indexOf(range.getEndTime());
+			if (isIdle(range.getState()) && packetsSoFar - windowStart >= windowPackets) {
+				windows.add(rangeWindow(ranges, energies, begin, idx + 1));
+				begin = idx + 1;
+				windowStart = packetsSoFar;
+			}
+		}
+		windows.add(rangeWindow(ranges, energies, begin, ranges.size()));
+		runAll(windows);
+		return energies;
+	}
+
+	private Callable<Void> rangeWindow(final List<RrcStateRange> ranges, final double[] energies, final int begin, final int end) {
+		return new Callable<Void>() {
+			@Override
+			public Void call() {
+				for (int idx = begin; idx < end; idx++) {
+					RrcStateRange range = ranges.get(idx);
+					energies[idx] = energy(range.getBeginTime(), range.getEndTime(), range.getState());
+				}
+				return null;
+			}
+		};
+	}
+
+	static boolean isIdle(RRCState state) {
+		return state == RRCState.LTE_IDLE || state == RRCState.STATE_IDLE || state == RRCState.WIFI_IDLE;
+	}
+
+	/**
+	 * Runs the windows on the thread pool, see TraceWindows.runAll.
+	 */
+	void runAll(List<Callable<Void>> windows) {
+		TraceWindows.runAll(windows, threads);
+	}
+}
@@ -37,6 +37,9 @@ public class AnalysisFilter implements Serializable {
 	private boolean ipv6Sel = true;
 	private boolean udpSel = true; 
 	
+	// display filter expression, null to keep all packets
+	private String displayFilter;
+	
 	
 	public AnalysisFilter(Map<String, ApplicationSelection> appSelections, TimeRange timeRange, Map<InetAddress, String> domainNames){
 		this.appSelections = appSelections;
@@ -146,5 +149,20 @@ public class AnalysisFilter implements Serializable {
 	public void setUdpSel(boolean udpSel) {
 		this.udpSel = udpSel;
 	}
+
+	/**
+	 * The display filter packets have to match to be analyzed. Packets are
+	 * filtered before sessions are assembled, so session and http fields are
+	 * missing and comparisons on them do not match.
+	 * 
+	 * @return display filter expression, null if there is none
+	 */
+	public String getDisplayFilter() {
+		return displayFilter;
+	}
+
+	public void setDisplayFilter(String displayFilter) {
+		this.displayFilter = displayFilter;
+	}
 	
 }
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.pojo;
+
+import java.util.Arrays;
+
+/**
+ * SHA-256 digest and size of the bytes of a request/response body as they are
+ * in the session storage, before any content encoding is undone. Two bodies
+ * with equal fingerprints have the same content.
+ */
+public final class ContentFingerprint {
+
+	private final long byteCount;
+	private final byte[] digest;
+
+	public ContentFingerprint(long byteCount, byte[] digest) {
+		this.byteCount = byteCount;
+		this.digest = digest.clone();
+	}
+
+	/**
+	 * Returns the number of body bytes that were captured
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	public byte[] getDigest() {
+		return digest.clone();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ContentFingerprint)) {
+			return false;
+		}
+		ContentFingerprint other = (ContentFingerprint) obj;
+		return byteCount == other.byteCount && Arrays.equals(digest, other.digest);
+	}
+
+	@Override
+	public int hashCode() {
+		// the digest is already evenly spread, its first bytes will do
+		return (digest[0] & 0xFF) << 24 | (digest[1] & 0xFF) << 16 | (digest[2] & 0xFF) << 8 | (digest[3] & 0xFF);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(digest.length * 2 + 24);
+		for (byte value : digest) {
+			text.append(Character.forDigit(value >> 4 & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+		}
+		return text.append(" (").append(byteCount).append(" bytes)").toString();
+	}
+}
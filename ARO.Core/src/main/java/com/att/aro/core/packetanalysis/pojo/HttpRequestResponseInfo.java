@@ -16,6 +16,7 @@
 package com.att.aro.core.packetanalysis.pojo;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.SortedMap;
 
@@ -127,6 +128,13 @@ public class HttpRequestResponseInfo implements Comparable<HttpRequestResponseIn
 	private HttpRequestResponseInfo assocReqResp;
 	private RequestResponseTimeline waterfallInfos;
 	private String allHeaders;
+	// header lines still in the session storage, see setAllHeaders(byte[], int, int)
+	@JsonIgnore
+	private byte[] headerData;
+	private int headerStart;
+	private int headerEnd;
+	@JsonIgnore
+	private ContentFingerprint contentFingerprint;
 
 	private Session session;
 
@@ -802,11 +810,62 @@ public class HttpRequestResponseInfo implements Comparable<HttpRequestResponseIn
 	}
 
 	public String getAllHeaders() {
+		if (headerData != null) {
+			allHeaders = decodeHeaders(headerData, headerStart, headerEnd);
+			headerData = null;
+		}
 		return allHeaders;
 	}
 
 	public void setAllHeaders(String allHeaders) {
 		this.allHeaders = allHeaders;
+		this.headerData = null;
+	}
+
+	/**
+	 * Sets the CRLF terminated header lines at data[start, end) as the
+	 * headers. They are only decoded into the String returned by
+	 * getAllHeaders() when it is first called, most are never looked at.
+	 * 
+	 * @param data
+	 *            session storage the headers were read from
+	 * @param start
+	 *            offset of the first header line
+	 * @param end
+	 *            offset after the CRLF of the last header line
+	 */
+	public void setAllHeaders(byte[] data, int start, int end) {
+		this.allHeaders = null;
+		this.headerData = start < end ? data : null;
+		this.headerStart = start;
+		this.headerEnd = end;
+	}
+
+	private static String decodeHeaders(byte[] data, int start, int end) {
+		StringBuilder headers = new StringBuilder(end - start + 16);
+		int lineStart = start;
+		while (lineStart < end) {
+			int lineEnd = lineStart;
+			while (lineEnd < end && !(data[lineEnd] == '\r' && lineEnd + 1 < end && data[lineEnd + 1] == '\n')) {
+				lineEnd += data[lineEnd] == '\r' ? 2 : 1;
+			}
+			lineEnd = Math.min(lineEnd, end);
+			headers.append(' ').append(new String(data, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+			lineStart = lineEnd + 2;
+		}
+		return headers.toString();
+	}
+
+	/**
+	 * Returns the fingerprint of the body, null until
+	 * IHttpRequestResponseHelper.getContentFingerprint computed it
+	 */
+	public ContentFingerprint getContentFingerprint() {
+		return contentFingerprint;
+	}
+
+	public void setContentFingerprint(ContentFingerprint contentFingerprint) {
+		this.contentFingerprint = contentFingerprint;
 	}
 
 	/**
@@ -22,6 +22,8 @@ package com.att.aro.core.packetanalysis.pojo;
 public class HttpRequestResponseInfoWithSession implements Comparable<HttpRequestResponseInfoWithSession> {
 	HttpRequestResponseInfo info;
 	Session session;
+	HttpRequestResponseInfo precedingRequest;
+	int order;
 	public HttpRequestResponseInfo getInfo() {
 		return info;
 	}
@@ -34,6 +36,15 @@ public class HttpRequestResponseInfoWithSession implements Comparable<HttpReques
 	public void setSession(Session session) {
 		this.session = session;
 	}
+	/**
+	 * Returns the last request seen in the session before this item, the item itself when it is a request
+	 */
+	public HttpRequestResponseInfo getPrecedingRequest() {
+		return precedingRequest;
+	}
+	public void setPrecedingRequest(HttpRequestResponseInfo precedingRequest) {
+		this.precedingRequest = precedingRequest;
+	}
 	@Override
 	public int compareTo(HttpRequestResponseInfoWithSession target) {
 		return info.compareTo(target.getInfo());
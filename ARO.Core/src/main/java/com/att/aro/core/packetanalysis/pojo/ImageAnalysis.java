@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.pojo;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result of an image analysis (see ImageAnalysisImpl), shared by the image best practices
+ * <pre>
+ *  images               // every image response in trace order
+ *  trials               // the optional work that was done
+ *  imageFolderPath      // folder the images were extracted to
+ *  compressedFolderPath // folder of the mid and low quality images
+ *  formatFolderPath     // folder of the converted images
+ *  convertedExtension   // webp or jp2
+ * </pre>
+ */
+public class ImageAnalysis {
+
+	private List<ImageInfo> images = new ArrayList<ImageInfo>();
+	private Set<ImageTrial> trials = EnumSet.noneOf(ImageTrial.class);
+	private String imageFolderPath = "";
+	private String compressedFolderPath = "";
+	private String formatFolderPath = "";
+	private String convertedExtension = "";
+
+	public List<ImageInfo> getImages() {
+		return images;
+	}
+
+	public void setImages(List<ImageInfo> images) {
+		this.images = images;
+	}
+
+	public Set<ImageTrial> getTrials() {
+		return trials;
+	}
+
+	public void setTrials(Set<ImageTrial> trials) {
+		this.trials = trials;
+	}
+
+	/**
+	 * @param trial
+	 * @return true if the results of the trial are filled in
+	 */
+	public boolean hasTrial(ImageTrial trial) {
+		return trials.contains(trial);
+	}
+
+	public String getImageFolderPath() {
+		return imageFolderPath;
+	}
+
+	public void setImageFolderPath(String imageFolderPath) {
+		this.imageFolderPath = imageFolderPath;
+	}
+
+	public String getCompressedFolderPath() {
+		return compressedFolderPath;
+	}
+
+	public void setCompressedFolderPath(String compressedFolderPath) {
+		this.compressedFolderPath = compressedFolderPath;
+	}
+
+	public String getFormatFolderPath() {
+		return formatFolderPath;
+	}
+
+	public void setFormatFolderPath(String formatFolderPath) {
+		this.formatFolderPath = formatFolderPath;
+	}
+
+	public String getConvertedExtension() {
+		return convertedExtension;
+	}
+
+	public void setConvertedExtension(String convertedExtension) {
+		this.convertedExtension = convertedExtension;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.pojo;
+
+/**
+ * One image response of a trace and what an image analysis learned about the image file extracted from it.
+ * Sizes are in bytes, 0 when the file or trial output does not exist. Width and height are -1 when unknown.
+ */
+public class ImageInfo {
+
+	private HttpRequestResponseInfo response;
+	private HttpRequestResponseInfo precedingRequest;
+	private Session session;
+
+	/**
+	 * name of the extracted image file, taken from the request object name
+	 */
+	private String fileName = "";
+	private String filePath = "";
+	private long fileSize;
+	private boolean jpeg;
+
+	private int width = -1;
+	private int height = -1;
+
+	private boolean metadataPresent;
+	private long metadataSize;
+
+	private long midQualitySize;
+	private long lowQualitySize;
+	private long convertedSize;
+
+	public HttpRequestResponseInfo getResponse() {
+		return response;
+	}
+
+	public void setResponse(HttpRequestResponseInfo response) {
+		this.response = response;
+	}
+
+	/**
+	 * @return the last request before the response in its session, may be null
+	 */
+	public HttpRequestResponseInfo getPrecedingRequest() {
+		return precedingRequest;
+	}
+
+	public void setPrecedingRequest(HttpRequestResponseInfo precedingRequest) {
+		this.precedingRequest = precedingRequest;
+	}
+
+	public Session getSession() {
+		return session;
+	}
+
+	public void setSession(Session session) {
+		this.session = session;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public void setFilePath(String filePath) {
+		this.filePath = filePath;
+	}
+
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	public void setFileSize(long fileSize) {
+		this.fileSize = fileSize;
+	}
+
+	/**
+	 * @return true if the file has a jpeg or jpg extension
+	 */
+	public boolean isJpeg() {
+		return jpeg;
+	}
+
+	public void setJpeg(boolean jpeg) {
+		this.jpeg = jpeg;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public void setWidth(int width) {
+		this.width = width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public void setHeight(int height) {
+		this.height = height;
+	}
+
+	/**
+	 * @return true if EXIF or enough generic metadata was found, see {@link ImageTrial#METADATA}
+	 */
+	public boolean isMetadataPresent() {
+		return metadataPresent;
+	}
+
+	public void setMetadataPresent(boolean metadataPresent) {
+		this.metadataPresent = metadataPresent;
+	}
+
+	/**
+	 * @return size of the raw EXIF data
+	 */
+	public long getMetadataSize() {
+		return metadataSize;
+	}
+
+	public void setMetadataSize(long metadataSize) {
+		this.metadataSize = metadataSize;
+	}
+
+	public long getMidQualitySize() {
+		return midQualitySize;
+	}
+
+	public void setMidQualitySize(long midQualitySize) {
+		this.midQualitySize = midQualitySize;
+	}
+
+	public long getLowQualitySize() {
+		return lowQualitySize;
+	}
+
+	public void setLowQualitySize(long lowQualitySize) {
+		this.lowQualitySize = lowQualitySize;
+	}
+
+	public long getConvertedSize() {
+		return convertedSize;
+	}
+
+	public void setConvertedSize(long convertedSize) {
+		this.convertedSize = convertedSize;
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.pojo;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State of a live analysis at one point of the collection. The lists are
+ * copies, later snapshots do not change them, but the sessions and packets in
+ * them are shared with the analysis and must be treated as read only.
+ */
+public class LiveTraceSnapshot {
+
+	private final int packetCount;
+	private final double traceDuration;
+	private final long uploadBytes;
+	private final long downloadBytes;
+	private final List<Session> sessions;
+	private final List<RrcStateRange> rrcStateRanges;
+	private final List<Throughput> throughput;
+	private final boolean last;
+
+	public LiveTraceSnapshot(int packetCount, double traceDuration, long uploadBytes, long downloadBytes,
+			List<Session> sessions, List<RrcStateRange> rrcStateRanges, List<Throughput> throughput, boolean last) {
+		this.packetCount = packetCount;
+		this.traceDuration = traceDuration;
+		this.uploadBytes = uploadBytes;
+		this.downloadBytes = downloadBytes;
+		this.sessions = Collections.unmodifiableList(sessions);
+		this.rrcStateRanges = Collections.unmodifiableList(rrcStateRanges);
+		this.throughput = Collections.unmodifiableList(throughput);
+		this.last = last;
+	}
+
+	/**
+	 * @return number of IP packets read so far
+	 */
+	public int getPacketCount() {
+		return packetCount;
+	}
+
+	/**
+	 * @return seconds from the first to the latest packet
+	 */
+	public double getTraceDuration() {
+		return traceDuration;
+	}
+
+	public long getUploadBytes() {
+		return uploadBytes;
+	}
+
+	public long getDownloadBytes() {
+		return downloadBytes;
+	}
+
+	/**
+	 * @return TCP sessions by start time, followed by the UDP sessions
+	 */
+	public List<Session> getSessions() {
+		return sessions;
+	}
+
+	public List<RrcStateRange> getRrcStateRanges() {
+		return rrcStateRanges;
+	}
+
+	/**
+	 * @return throughput per throughput window of the profile, the last sample
+	 *         may cover part of a window
+	 */
+	public List<Throughput> getThroughput() {
+		return throughput;
+	}
+
+	/**
+	 * @return true for the snapshot taken after the stream ended
+	 */
+	public boolean isLast() {
+		return last;
+	}
+}
@@ -32,6 +32,12 @@ public class PacketAnalyzerResult {
 	@JsonIgnore
 	private List<Session> sessionlist;
 
+	/**
+	 * HTTP requests and responses of sessionlist, indexed once for every consumer
+	 */
+	@JsonIgnore
+	private RequestResponseIndex requestResponseIndex;
+
 	private Statistic statistic;
 	private AbstractRrcStateMachine statemachine;
 	private EnergyModel energyModel;
@@ -61,6 +67,12 @@ public class PacketAnalyzerResult {
 	 * Results of a cache analysis of the HTTP requests and responses.
 	 */
 	private CacheAnalysis cacheAnalysis = null;
+
+	/**
+	 * Images extracted from the HTTP responses, shared by the image best practices
+	 */
+	@JsonIgnore
+	private ImageAnalysis imageAnalysis = null;
 	
 	/**
 	 * sensitive data from device
@@ -106,6 +118,30 @@ public class PacketAnalyzerResult {
 	 */
 	public void setSessionlist(List<Session> sessionlist) {
 		this.sessionlist = sessionlist;
+		this.requestResponseIndex = null;
+	}
+
+	/**
+	 * Returns the index of all HTTP requests and responses in sessionlist,
+	 * built on first use when it was not set by the analyzer
+	 * 
+	 * @return a RequestResponseIndex
+	 */
+	@JsonIgnore
+	public RequestResponseIndex getRequestResponseIndex() {
+		if (requestResponseIndex == null) {
+			requestResponseIndex = new RequestResponseIndex(sessionlist);
+		}
+		return requestResponseIndex;
+	}
+
+	/**
+	 * Sets the index of all HTTP requests and responses in sessionlist
+	 * 
+	 * @param requestResponseIndex a RequestResponseIndex built from sessionlist
+	 */
+	public void setRequestResponseIndex(RequestResponseIndex requestResponseIndex) {
+		this.requestResponseIndex = requestResponseIndex;
 	}
 
 	/**
@@ -234,6 +270,25 @@ public class PacketAnalyzerResult {
 		this.cacheAnalysis = cacheAnalysis;
 	}
 
+	/**
+	 * Returns image analysis of trace
+	 * 
+	 * @return imageAnalysis an ImageAnalysis object, null until an image best practice ran
+	 */
+	@JsonIgnore
+	public ImageAnalysis getImageAnalysis() {
+		return imageAnalysis;
+	}
+
+	/**
+	 * Sets image analysis of trace
+	 * 
+	 * @param imageAnalysis - results from reading the images extracted from the HTTP responses
+	 */
+	public void setImageAnalysis(ImageAnalysis imageAnalysis) {
+		this.imageAnalysis = imageAnalysis;
+	}
+
 	/**
 	 * @return the ipv4Packets
 	 */
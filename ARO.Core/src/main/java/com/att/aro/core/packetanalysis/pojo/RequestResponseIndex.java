@@ -0,0 +1,290 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.aro.core.packetanalysis.pojo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable index of every HTTP request and response in a trace, built once per analysis.
+ * <p>
+ * Two orderings are kept: trace order (sessions in session list order, each session's
+ * request/responses in their own order), which is how best practices walk sessions, and
+ * timestamp order over TCP sessions, which is what cache analysis and the diagnostics tables use.
+ * Secondary indexes over responses (content type, content family, status code) and over all items
+ * (host) return their items in trace order.
+ */
+public class RequestResponseIndex {
+
+	private static final Comparator<HttpRequestResponseInfoWithSession> TRACE_ORDER = new Comparator<HttpRequestResponseInfoWithSession>() {
+		@Override
+		public int compare(HttpRequestResponseInfoWithSession first, HttpRequestResponseInfoWithSession second) {
+			return Integer.compare(first.order, second.order);
+		}
+	};
+
+	private final List<HttpRequestResponseInfoWithSession> traceOrdered;
+	private final List<HttpRequestResponseInfoWithSession> sorted;
+	private final double[] sortedTimestamps;
+	private final List<HttpRequestResponseInfoWithSession> responses;
+	private final Map<String, List<HttpRequestResponseInfoWithSession>> byContentType;
+	private final Map<String, List<HttpRequestResponseInfoWithSession>> byContentFamily;
+	private final Map<String, List<HttpRequestResponseInfoWithSession>> byHost;
+	private final NavigableMap<Integer, List<HttpRequestResponseInfoWithSession>> byStatusCode;
+
+	public RequestResponseIndex(List<Session> sessionlist) {
+		List<HttpRequestResponseInfoWithSession> all = new ArrayList<HttpRequestResponseInfoWithSession>();
+		List<HttpRequestResponseInfoWithSession> tcp = new ArrayList<HttpRequestResponseInfoWithSession>();
+		List<HttpRequestResponseInfoWithSession> responseList = new ArrayList<HttpRequestResponseInfoWithSession>();
+		Map<String, List<HttpRequestResponseInfoWithSession>> contentTypes = new HashMap<String, List<HttpRequestResponseInfoWithSession>>();
+		Map<String, List<HttpRequestResponseInfoWithSession>> contentFamilies = new HashMap<String, List<HttpRequestResponseInfoWithSession>>();
+		Map<String, List<HttpRequestResponseInfoWithSession>> hosts = new HashMap<String, List<HttpRequestResponseInfoWithSession>>();
+		NavigableMap<Integer, List<HttpRequestResponseInfoWithSession>> statusCodes = new TreeMap<Integer, List<HttpRequestResponseInfoWithSession>>();
+
+		if (sessionlist != null) {
+			for (Session session : sessionlist) {
+				HttpRequestResponseInfo lastRequest = null;
+				for (HttpRequestResponseInfo item : session.getRequestResponseInfo()) {
+					HttpRequestResponseInfoWithSession itemsession = new HttpRequestResponseInfoWithSession();
+					itemsession.setInfo(item);
+					itemsession.setSession(session);
+					itemsession.order = all.size();
+					all.add(itemsession);
+					if (!session.isUDP()) {
+						tcp.add(itemsession);
+					}
+					if (item.getDirection() == HttpDirection.REQUEST) {
+						lastRequest = item;
+					}
+					itemsession.setPrecedingRequest(lastRequest);
+
+					String host = item.getHostName();
+					if (host == null && item.getAssocReqResp() != null) {
+						host = item.getAssocReqResp().getHostName();
+					}
+					if (host != null) {
+						add(hosts, host.toLowerCase(Locale.ENGLISH), itemsession);
+					}
+					if (item.getDirection() == HttpDirection.RESPONSE) {
+						responseList.add(itemsession);
+						String contentType = normalizeContentType(item.getContentType());
+						if (contentType != null) {
+							add(contentTypes, contentType, itemsession);
+							int slash = contentType.indexOf('/');
+							add(contentFamilies, slash > 0 ? contentType.substring(0, slash) : contentType, itemsession);
+						}
+						add(statusCodes, item.getStatusCode(), itemsession);
+					}
+				}
+			}
+		}
+		Collections.sort(tcp);
+
+		this.traceOrdered = Collections.unmodifiableList(all);
+		this.sorted = Collections.unmodifiableList(tcp);
+		this.responses = Collections.unmodifiableList(responseList);
+		this.sortedTimestamps = new double[tcp.size()];
+		for (int idx = 0; idx < sortedTimestamps.length; idx++) {
+			sortedTimestamps[idx] = tcp.get(idx).getInfo().getTimeStamp();
+		}
+		this.byContentType = Collections.unmodifiableMap(freeze(contentTypes));
+		this.byContentFamily = Collections.unmodifiableMap(freeze(contentFamilies));
+		this.byHost = Collections.unmodifiableMap(freeze(hosts));
+		this.byStatusCode = Collections.unmodifiableNavigableMap(freeze(statusCodes));
+	}
+
+	/**
+	 * Returns every request and response of TCP sessions sorted by timestamp
+	 *
+	 * @return unmodifiable List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getSorted() {
+		return sorted;
+	}
+
+	/**
+	 * Returns every request and response in trace order, session by session
+	 *
+	 * @return unmodifiable List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getTraceOrdered() {
+		return traceOrdered;
+	}
+
+	/**
+	 * Returns every response in trace order
+	 *
+	 * @return unmodifiable List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getResponses() {
+		return responses;
+	}
+
+	/**
+	 * Returns responses of any of the contentTypes, in trace order.
+	 * Content types are matched ignoring case and parameters such as charset.
+	 *
+	 * @param contentTypes
+	 *            such as "text/html"
+	 * @return List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getResponsesByContentType(String... contentTypes) {
+		Set<String> types = new LinkedHashSet<String>();
+		for (String contentType : contentTypes) {
+			types.add(normalizeContentType(contentType));
+		}
+		List<List<HttpRequestResponseInfoWithSession>> lists = new ArrayList<List<HttpRequestResponseInfoWithSession>>(types.size());
+		for (String type : types) {
+			List<HttpRequestResponseInfoWithSession> list = byContentType.get(type);
+			if (list != null) {
+				lists.add(list);
+			}
+		}
+		return merge(lists);
+	}
+
+	/**
+	 * Returns responses whose content type belongs to the family, in trace order
+	 *
+	 * @param family
+	 *            the top level media type, such as "image" or "video"
+	 * @return List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getResponsesByContentFamily(String family) {
+		return listOrEmpty(byContentFamily.get(family.toLowerCase(Locale.ENGLISH)));
+	}
+
+	/**
+	 * Returns requests and responses for the host, in trace order.
+	 * Responses without a host name are indexed under the host of their request.
+	 *
+	 * @param host
+	 * @return List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getByHost(String host) {
+		return listOrEmpty(byHost.get(host.toLowerCase(Locale.ENGLISH)));
+	}
+
+	/**
+	 * Returns the lower cased host names found in the trace
+	 *
+	 * @return unmodifiable Collection of host names
+	 */
+	public Collection<String> getHosts() {
+		return byHost.keySet();
+	}
+
+	/**
+	 * Returns responses with a status code from fromCode (inclusive) to toCode (exclusive), in trace order
+	 *
+	 * @param fromCode
+	 * @param toCode
+	 * @return List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getResponsesByStatusCode(int fromCode, int toCode) {
+		return merge(new ArrayList<List<HttpRequestResponseInfoWithSession>>(byStatusCode.subMap(fromCode, true, toCode, false).values()));
+	}
+
+	/**
+	 * Returns requests and responses of TCP sessions with a timestamp from beginTime to endTime, both inclusive, sorted by timestamp
+	 *
+	 * @param beginTime
+	 * @param endTime
+	 * @return unmodifiable List of HttpRequestResponseInfoWithSession
+	 */
+	public List<HttpRequestResponseInfoWithSession> getBetween(double beginTime, double endTime) {
+		int from = search(beginTime, false);
+		int to = Math.max(from, search(endTime, true));
+		return sorted.subList(from, to);
+	}
+
+	/**
+	 * Returns the position in getSorted() of the first item after the timestamp, or at the timestamp when inclusive is false
+	 */
+	private int search(double timestamp, boolean inclusive) {
+		int low = 0;
+		int high = sortedTimestamps.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sortedTimestamps[mid] < timestamp || (inclusive && sortedTimestamps[mid] == timestamp)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Lower cased media type without parameters, null for a missing content type
+	 */
+	public static String normalizeContentType(String contentType) {
+		if (contentType == null) {
+			return null;
+		}
+		int semicolon = contentType.indexOf(';');
+		String type = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim();
+		return type.isEmpty() ? null : type.toLowerCase(Locale.ENGLISH);
+	}
+
+	private static <K> void add(Map<K, List<HttpRequestResponseInfoWithSession>> map, K key, HttpRequestResponseInfoWithSession item) {
+		List<HttpRequestResponseInfoWithSession> list = map.get(key);
+		if (list == null) {
+			list = new ArrayList<HttpRequestResponseInfoWithSession>();
+			map.put(key, list);
+		}
+		list.add(item);
+	}
+
+	private static <K, M extends Map<K, List<HttpRequestResponseInfoWithSession>>> M freeze(M map) {
+		for (Map.Entry<K, List<HttpRequestResponseInfoWithSession>> entry : map.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return map;
+	}
+
+	private static List<HttpRequestResponseInfoWithSession> listOrEmpty(List<HttpRequestResponseInfoWithSession> list) {
+		return list != null ? list : Collections.<HttpRequestResponseInfoWithSession> emptyList();
+	}
+
+	/**
+	 * merge lists that are each in trace order into one list in trace order
+	 */
+	private static List<HttpRequestResponseInfoWithSession> merge(List<List<HttpRequestResponseInfoWithSession>> lists) {
+		if (lists.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (lists.size() == 1) {
+			return lists.get(0);
+		}
+		List<HttpRequestResponseInfoWithSession> result = new ArrayList<HttpRequestResponseInfoWithSession>();
+		for (List<HttpRequestResponseInfoWithSession> list : lists) {
+			result.addAll(list);
+		}
+		Collections.sort(result, TRACE_ORDER);
+		return result;
+	}
+}
@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -254,6 +255,30 @@ public class Session implements Serializable, Comparable<Session> {
 		this.localPort = localPort;
 	}
 
+	/**
+	 * Drops what is only needed while the session is assembled, the TLS
+	 * records, the decrypted and raw stream buffers and the packet ranges.
+	 * storageUl/Dl and the packet offsets stay, the request/response content
+	 * and headers are read from them later on.
+	 */
+	public void releaseAssemblyStorage() {
+		bdcRaw = Collections.emptyList();
+		mrList = Collections.emptyList();
+		dec2encUL = Collections.emptyList();
+		dec2encDL = Collections.emptyList();
+		if (pStorageBothRAW != null) {
+			pStorageBothRAW.clear();
+			pStorageBothRAW = null;
+		}
+		pktRangesUl = null;
+		pktRangesDl = null;
+		storageUlext = null;
+		storageDlext = null;
+		pStorageULDCPT = null;
+		pStorageDLDCPT = null;
+		pStorageBothDCPT = null;
+	}
+
 	/**
 	 * Compares Session start times
 	 * 
@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.pojo;
+
+/**
+ * Estimate of the heap one analyzed trace holds on to, by what holds it. The
+ * sizes are estimates for a 64 bit JVM with compressed references, good
+ * enough to tell which part of a trace to blame, not exact.
+ */
+public class TraceMemoryReport {
+
+	private final int packetCount;
+	private final long packetBytes;
+	private final int sessionCount;
+	private final long sessionStorageBytes;
+	private final int requestResponseCount;
+	private final long requestResponseBytes;
+	private final long stringBytes;
+	private final long duplicateStringBytes;
+
+	public TraceMemoryReport(int packetCount, long packetBytes, int sessionCount, long sessionStorageBytes,
+			int requestResponseCount, long requestResponseBytes, long stringBytes, long duplicateStringBytes) {
+		this.packetCount = packetCount;
+		this.packetBytes = packetBytes;
+		this.sessionCount = sessionCount;
+		this.sessionStorageBytes = sessionStorageBytes;
+		this.requestResponseCount = requestResponseCount;
+		this.requestResponseBytes = requestResponseBytes;
+		this.stringBytes = stringBytes;
+		this.duplicateStringBytes = duplicateStringBytes;
+	}
+
+	public int getPacketCount() {
+		return packetCount;
+	}
+
+	/**
+	 * @return the packet objects and their captured bytes
+	 */
+	public long getPacketBytes() {
+		return packetBytes;
+	}
+
+	public int getSessionCount() {
+		return sessionCount;
+	}
+
+	/**
+	 * @return the reassembled uplink and downlink streams of the sessions
+	 */
+	public long getSessionStorageBytes() {
+		return sessionStorageBytes;
+	}
+
+	public int getRequestResponseCount() {
+		return requestResponseCount;
+	}
+
+	/**
+	 * @return the HttpRequestResponseInfo objects, without their Strings
+	 */
+	public long getRequestResponseBytes() {
+		return requestResponseBytes;
+	}
+
+	/**
+	 * @return the Strings of the requests, responses and sessions, each
+	 *         instance counted once
+	 */
+	public long getStringBytes() {
+		return stringBytes;
+	}
+
+	/**
+	 * @return the part of getStringBytes() taken by Strings that equal an
+	 *         other instance, what interning them would still save
+	 */
+	public long getDuplicateStringBytes() {
+		return duplicateStringBytes;
+	}
+
+	public long getTotalBytes() {
+		return packetBytes + sessionStorageBytes + requestResponseBytes + stringBytes;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder("trace heap ~");
+		report.append(kiloBytes(getTotalBytes()));
+		report.append(": packets ").append(packetCount).append(" ~").append(kiloBytes(packetBytes));
+		report.append(", sessions ").append(sessionCount).append(" storage ~").append(kiloBytes(sessionStorageBytes));
+		report.append(", requests/responses ").append(requestResponseCount).append(" ~").append(kiloBytes(requestResponseBytes));
+		report.append(", strings ~").append(kiloBytes(stringBytes));
+		report.append(" (duplicates ~").append(kiloBytes(duplicateStringBytes)).append(')');
+		return report.toString();
+	}
+
+	private static String kiloBytes(long bytes) {
+		return (bytes + 1023) / 1024 + " KB";
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.pojo;
+
+import java.util.List;
+
+/**
+ * A stretch of a long trace that is analyzed on its own. Every window but
+ * the first starts on the packet after an RRC idle gap, so the radio is idle
+ * when it starts.
+ */
+public class TraceWindow {
+
+	private final int firstPacket;
+	private final int endPacket;
+	private final TimeRange timeRange;
+
+	/**
+	 * @param firstPacket
+	 *            position of the first packet of the window in the analyzed
+	 *            packets
+	 * @param endPacket
+	 *            position after the last packet of the window
+	 * @param timeRange
+	 *            from the first packet, or the start of the trace for the
+	 *            first window, to the first packet of the next window, or the
+	 *            end of the trace for the last one
+	 */
+	public TraceWindow(int firstPacket, int endPacket, TimeRange timeRange) {
+		this.firstPacket = firstPacket;
+		this.endPacket = endPacket;
+		this.timeRange = timeRange;
+	}
+
+	/**
+	 * @return position of the first packet of the window
+	 */
+	public int getFirstPacket() {
+		return firstPacket;
+	}
+
+	/**
+	 * @return position after the last packet of the window
+	 */
+	public int getEndPacket() {
+		return endPacket;
+	}
+
+	public TimeRange getTimeRange() {
+		return timeRange;
+	}
+
+	/**
+	 * @param packets
+	 *            the packets the window was made from
+	 * @return the packets of the window
+	 */
+	public List<PacketInfo> getPackets(List<PacketInfo> packets) {
+		return packets.subList(firstPacket, endPacket);
+	}
+}
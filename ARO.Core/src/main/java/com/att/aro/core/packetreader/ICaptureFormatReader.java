@@ -0,0 +1,31 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader;
+
+import com.att.aro.core.packetreader.pojo.CaptureFormat;
+
+public interface ICaptureFormatReader {
+	/**
+	 * Reads the header of a capture file, and for a pcapng the interface
+	 * descriptions that come before its first packet.
+	 * 
+	 * @param captureFile
+	 *            The path of the capture.
+	 * @return The format of the file, CaptureFormat.UNKNOWN if it is not a
+	 *         capture or cannot be read.
+	 */
+	CaptureFormat read(String captureFile);
+}
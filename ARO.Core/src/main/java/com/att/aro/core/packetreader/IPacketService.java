@@ -15,11 +15,31 @@
 */
 package com.att.aro.core.packetreader;
 
+import com.att.aro.core.packetreader.pojo.CaptureFormat;
 import com.att.aro.core.packetreader.pojo.Packet;
 
 public interface IPacketService {
+	/**
+	 * Returns a new instance of the Packet class for a packet of a pcap file.
+	 * For a link type it does not know the file header is read to tell an
+	 * Apple pcapng apart, prefer the CaptureFormat variant when reading a file.
+	 */
 	Packet createPacketFromPcap(int datalink, long seconds, long microSeconds, int len,
 			byte[] data, String pcapfile);
+	/**
+	 * Returns a new instance of the Packet class for a packet of a capture
+	 * whose header was read before, see ICaptureFormatReader.
+	 * @param capture The format of the capture file, null if not known.
+	 * @param datalink The link type of the packet.
+	 * @param seconds The number of seconds for the packet.
+	 * @param microSeconds The number of microseconds for the packet.
+	 * @param len The length of the packet (in bytes) including both the header and the data.
+	 * @param data An array of bytes that is the data portion of the packet.
+	 * 
+	 * @return The newly created packet.
+	 */
+	Packet createPacketFromPcap(CaptureFormat capture, int datalink, long seconds, long microSeconds, int len,
+			byte[] data);
 	/**
 	 * Returns a new instance of the Packet class, using a datalink to the Microsoft Network Monitor 
 	 * and the specified parameters to initialize the class members.
@@ -0,0 +1,213 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.att.aro.core.ILogger;
+import com.att.aro.core.model.InjectLogger;
+import com.att.aro.core.packetreader.ICaptureFormatReader;
+import com.att.aro.core.packetreader.pojo.CaptureFileType;
+import com.att.aro.core.packetreader.pojo.CaptureFormat;
+
+public class CaptureFormatReaderImpl implements ICaptureFormatReader {
+
+	@InjectLogger
+	private static ILogger logger;
+
+	private static final int PCAP_MAGIC_MICROS = 0xa1b2c3d4;
+	private static final int PCAP_MAGIC_NANOS = 0xa1b23c4d;
+	private static final int PCAP_HEADER_SIZE = 24;
+
+	private static final int NETMON_MAGIC = 0x474d4255; // "GMBU"
+	private static final int NETMON_HEADER_SIZE = 8;
+
+	private static final int PCAPNG_SECTION_HEADER = 0x0a0d0d0a;
+	private static final int PCAPNG_BYTE_ORDER_MAGIC = 0x1a2b3c4d;
+	private static final int PCAPNG_INTERFACE_DESCRIPTION = 1;
+	private static final int PCAPNG_PACKET = 2;
+	private static final int PCAPNG_SIMPLE_PACKET = 3;
+	private static final int PCAPNG_ENHANCED_PACKET = 6;
+	private static final int PCAPNG_OPTION_END = 0;
+	private static final int PCAPNG_IF_TSRESOL = 9;
+	// PcapngHelperImpl looks for the Apple tool in this much of the section header
+	private static final int APPLE_HEADER_SIZE = 2048;
+	// interface descriptions come before the packets, this bounds the search in a file where they do not
+	private static final int PCAPNG_SEARCH_LIMIT = 1 << 20;
+	private static final int MAX_BLOCK_READ = 64 * 1024;
+
+	@Override
+	public CaptureFormat read(String captureFile) {
+		CaptureFormat format;
+		try {
+			FileChannel channel = FileChannel.open(Paths.get(captureFile), StandardOpenOption.READ);
+			try {
+				format = read(channel);
+			} finally {
+				channel.close();
+			}
+		} catch (IOException | RuntimeException e) {
+			logger.debug("Cannot read the header of " + captureFile + ": " + e.getMessage());
+			return CaptureFormat.UNKNOWN;
+		}
+		logger.debug(captureFile + ": " + format);
+		return format;
+	}
+
+	private CaptureFormat read(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(PCAP_HEADER_SIZE);
+		if (read(channel, header, 0) < NETMON_HEADER_SIZE) {
+			return CaptureFormat.UNKNOWN;
+		}
+		int magic = header.getInt(0);
+		if (magic == PCAPNG_SECTION_HEADER) {
+			return readPcapng(channel, header);
+		}
+		if (magic == NETMON_MAGIC) {
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			return new CaptureFormat(CaptureFileType.NETMON, ByteOrder.LITTLE_ENDIAN, header.getShort(6) & 0xffff, 0,
+					1000000, new int[0], false);
+		}
+		ByteOrder order = pcapByteOrder(magic);
+		if (order == null || header.limit() < PCAP_HEADER_SIZE) {
+			return CaptureFormat.UNKNOWN;
+		}
+		header.order(order);
+		long timestampsPerSecond = header.getInt(0) == PCAP_MAGIC_NANOS ? 1000000000L : 1000000L;
+		return new CaptureFormat(CaptureFileType.PCAP, order, header.getInt(20), header.getInt(16), timestampsPerSecond,
+				new int[0], false);
+	}
+
+	private static ByteOrder pcapByteOrder(int magic) {
+		if (magic == PCAP_MAGIC_MICROS || magic == PCAP_MAGIC_NANOS) {
+			return ByteOrder.BIG_ENDIAN;
+		}
+		if (Integer.reverseBytes(magic) == PCAP_MAGIC_MICROS || Integer.reverseBytes(magic) == PCAP_MAGIC_NANOS) {
+			return ByteOrder.LITTLE_ENDIAN;
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the section header and the interface descriptions up to the first
+	 * packet block. Only the first section of a file is looked at.
+	 */
+	private CaptureFormat readPcapng(FileChannel channel, ByteBuffer header) throws IOException {
+		ByteOrder order;
+		if (header.getInt(8) == PCAPNG_BYTE_ORDER_MAGIC) {
+			order = ByteOrder.BIG_ENDIAN;
+		} else if (Integer.reverseBytes(header.getInt(8)) == PCAPNG_BYTE_ORDER_MAGIC) {
+			order = ByteOrder.LITTLE_ENDIAN;
+		} else {
+			return CaptureFormat.UNKNOWN;
+		}
+		header.order(order);
+		long position = header.getInt(4) & 0xffffffffL;
+
+		ByteBuffer section = ByteBuffer.allocate((int) Math.min(APPLE_HEADER_SIZE, Math.max(position, 0)));
+		read(channel, section, 0);
+		boolean apple = isApple(section);
+
+		int[] linkTypes = new int[0];
+		int snapLength = 0;
+		long timestampsPerSecond = 1000000L;
+		ByteBuffer blockHeader = ByteBuffer.allocate(8).order(order);
+		while (position < PCAPNG_SEARCH_LIMIT) {
+			blockHeader.clear();
+			if (read(channel, blockHeader, position) < 8) {
+				break;
+			}
+			int type = blockHeader.getInt(0);
+			long length = blockHeader.getInt(4) & 0xffffffffL;
+			if (length < 12 || type == PCAPNG_SECTION_HEADER || type == PCAPNG_PACKET || type == PCAPNG_SIMPLE_PACKET
+					|| type == PCAPNG_ENHANCED_PACKET) {
+				break;
+			}
+			if (type == PCAPNG_INTERFACE_DESCRIPTION) {
+				ByteBuffer body = ByteBuffer.allocate((int) Math.min(length - 12, MAX_BLOCK_READ)).order(order);
+				if (read(channel, body, position + 8) < 8) {
+					break;
+				}
+				linkTypes = Arrays.copyOf(linkTypes, linkTypes.length + 1);
+				linkTypes[linkTypes.length - 1] = body.getShort(0) & 0xffff;
+				if (linkTypes.length == 1) {
+					snapLength = body.getInt(4);
+					timestampsPerSecond = timestampResolution(body);
+				}
+			}
+			position += length;
+		}
+		int linkType = linkTypes.length > 0 ? linkTypes[0] : -1;
+		return new CaptureFormat(CaptureFileType.PCAPNG, order, linkType, snapLength, timestampsPerSecond, linkTypes, apple);
+	}
+
+	private static boolean isApple(ByteBuffer section) {
+		try {
+			return new PcapngHelperImpl().isApplePcapng(Arrays.copyOf(section.array(), section.limit()));
+		} catch (RuntimeException e) {
+			logger.debug("Unreadable pcapng section header: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * if_tsresol is a power of 10, or of 2 when its top bit is set. Without it
+	 * timestamps are microseconds.
+	 */
+	private static long timestampResolution(ByteBuffer body) {
+		int position = 8;
+		while (position + 4 <= body.limit()) {
+			int code = body.getShort(position) & 0xffff;
+			int length = body.getShort(position + 2) & 0xffff;
+			if (code == PCAPNG_OPTION_END) {
+				break;
+			}
+			if (code == PCAPNG_IF_TSRESOL && length >= 1 && position + 4 < body.limit()) {
+				int value = body.get(position + 4);
+				int exponent = value & 0x7f;
+				if ((value & 0x80) != 0) {
+					return exponent < 63 ? 1L << exponent : 1000000L;
+				}
+				long resolution = 1;
+				for (int idx = 0; idx < exponent && idx < 18; idx++) {
+					resolution *= 10;
+				}
+				return resolution;
+			}
+			position += 4 + ((length + 3) & ~3);
+		}
+		return 1000000L;
+	}
+
+	private static int read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long offset = position;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, offset);
+			if (read < 0) {
+				break;
+			}
+			offset += read;
+		}
+		buffer.flip();
+		return buffer.limit();
+	}
+}
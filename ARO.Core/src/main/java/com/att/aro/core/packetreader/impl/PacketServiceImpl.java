@@ -25,8 +25,10 @@ import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.packetreader.IDomainNameParser;
 import com.att.aro.core.packetreader.IPacketService;
 import com.att.aro.core.packetreader.IPcapngHelper;
+import com.att.aro.core.packetreader.pojo.CaptureFormat;
 import com.att.aro.core.packetreader.pojo.DomainNameSystem;
 import com.att.aro.core.packetreader.pojo.IPPacket;
+import com.att.aro.core.packetreader.pojo.LinkDecoder;
 import com.att.aro.core.packetreader.pojo.Packet;
 import com.att.aro.core.packetreader.pojo.TCPPacket;
 import com.att.aro.core.packetreader.pojo.UDPPacket;
@@ -39,10 +41,6 @@ public class PacketServiceImpl implements IPacketService {
 	private static final short IPV4 = 0x0800;
 	private static final short IPV6 = (short) 0x86DD;
 
-	private static final int DLT_EN10MB = 1;
-	private static final int DLT_RAW = 12;
-	private static final int DLT_LINUX_SLL = 113;
-
 	private static final int NETMON_ETHERNET = 1;
 	private static final int NETMON_WIFI = 6;
 	private static final int NETMON_WIRELESSWAN = 8;
@@ -74,40 +72,54 @@ public class PacketServiceImpl implements IPacketService {
 	 */
 	@Override
 	public Packet createPacketFromPcap(int datalink, long seconds, long microSeconds, int len, byte[] data, String pcapfile) {
+		LinkDecoder decoder = LinkDecoder.forLinkType(datalink, false);
+		if (decoder == LinkDecoder.NONE && pcapfile != null) {
+			try {
+				decoder = LinkDecoder.forLinkType(datalink, pcapngHelper.isApplePcapng(pcapfile));
+			} catch (IOException e) {
+				logger.error(e.getMessage());
+			}
+		}
+		return createPacket(decoder, seconds, microSeconds, len, data);
+	}
+
+	/**
+	 * Returns a new instance of the Packet class for a packet of a capture
+	 * whose format was read before, the decoder of its link type is taken
+	 * from the format.
+	 * 
+	 * @param capture
+	 *            The format of the capture file, null if not known.
+	 * @param datalink
+	 *            The link type of the packet.
+	 * @param seconds
+	 *            The number of seconds for the packet.
+	 * @param microSeconds
+	 *            The number of microseconds for the packet.
+	 * @param len
+	 *            The length of the packet (in bytes) including both the header
+	 *            and the data.
+	 * @param data
+	 *            An array of bytes that is the data portion of the packet.
+	 * 
+	 * @return The newly created packet.
+	 */
+	@Override
+	public Packet createPacketFromPcap(CaptureFormat capture, int datalink, long seconds, long microSeconds, int len, byte[] data) {
+		LinkDecoder decoder = capture != null ? capture.getDecoder(datalink) : LinkDecoder.forLinkType(datalink, false);
+		return createPacket(decoder, seconds, microSeconds, len, data);
+	}
+
+	private Packet createPacket(LinkDecoder decoder, long seconds, long microSeconds, int len, byte[] data) {
 		// Determine network protocol
 		short network = 0;
 		int hdrLen = 0;
-		ByteBuffer bytes = ByteBuffer.wrap(data);
 		try {
-			switch (datalink) {
-			case DLT_RAW: // Raw IP
-				network = IPV4;
-				break;
-			case DLT_EN10MB: // Ethernet (WiFi)
-				network = bytes.getShort(12);
-				hdrLen = 14;
-				break;
-			case DLT_LINUX_SLL: // Linux cooked capture (Android)
-				network = bytes.getShort(14);
-				hdrLen = 16;
-				break;
-			default:
-				if (pcapfile != null) {
-					try {
-						if (pcapngHelper.isApplePcapng(pcapfile)) {
-							network = IPV4;
-							hdrLen = 4;
-						}
-					} catch (IOException e) {
-						logger.error(e.getMessage());
-					}
-				}
-				break;
-			}
+			network = decoder.getNetwork(data);
+			hdrLen = decoder.getHeaderLength();
 		} catch (IndexOutOfBoundsException e) {
 			logger.error(e.getMessage());
 		}
-
 		return createPacket(network, seconds, microSeconds, len, hdrLen, data);
 	}
 
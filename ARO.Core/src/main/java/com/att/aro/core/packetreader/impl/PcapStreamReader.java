@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.impl;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.att.aro.core.packetreader.INativePacketSubscriber;
+
+/**
+ * Reads a libpcap stream record by record in plain Java, for captures that are
+ * still being written such as a growing file or a socket. The native reader
+ * only opens a complete file.
+ *
+ * Both byte orders and nanosecond captures are understood, timestamps are
+ * handed on in microseconds. A record cut short by the end of the stream is
+ * taken as the end of the capture.
+ */
+public class PcapStreamReader {
+
+	private static final int MAGIC_MICROS = 0xa1b2c3d4;
+	private static final int MAGIC_NANOS = 0xa1b23c4d;
+	private static final int FILE_HEADER_SIZE = 24;
+	private static final int RECORD_HEADER_SIZE = 16;
+	// larger than any snap length a capture tool writes, a bigger record means the stream is out of step
+	private static final int MAX_RECORD_SIZE = 256 * 1024;
+
+	private final DataInputStream input;
+	private ByteOrder order;
+	private boolean nanos;
+	private int datalink = -1;
+
+	public PcapStreamReader(InputStream input) {
+		this.input = new DataInputStream(input);
+	}
+
+	/**
+	 * Reads the global header, blocking until it is there.
+	 * 
+	 * @return link type of the capture
+	 * @throws IOException
+	 *             if the stream does not start with a pcap header
+	 */
+	public int readHeader() throws IOException {
+		byte[] header = new byte[FILE_HEADER_SIZE];
+		input.readFully(header);
+		ByteBuffer buffer = ByteBuffer.wrap(header);
+		int magic = buffer.getInt(0);
+		if (magic == MAGIC_MICROS || magic == MAGIC_NANOS) {
+			order = ByteOrder.BIG_ENDIAN;
+		} else if (Integer.reverseBytes(magic) == MAGIC_MICROS || Integer.reverseBytes(magic) == MAGIC_NANOS) {
+			order = ByteOrder.LITTLE_ENDIAN;
+		} else {
+			throw new IOException("Not a pcap stream, magic number " + Integer.toHexString(magic));
+		}
+		buffer.order(order);
+		nanos = buffer.getInt(0) == MAGIC_NANOS;
+		datalink = buffer.getInt(20);
+		return datalink;
+	}
+
+	/**
+	 * @return link type of the capture, -1 before the header is read
+	 */
+	public int getDatalink() {
+		return datalink;
+	}
+
+	/**
+	 * Hands every record to the subscriber until the stream ends, reading the
+	 * global header first if that was not done yet.
+	 * 
+	 * @param subscriber
+	 * @return number of records read
+	 * @throws IOException
+	 */
+	public long readRecords(INativePacketSubscriber subscriber) throws IOException {
+		if (order == null) {
+			readHeader();
+		}
+		byte[] header = new byte[RECORD_HEADER_SIZE];
+		ByteBuffer buffer = ByteBuffer.wrap(header).order(order);
+		long count = 0;
+		while (true) {
+			byte[] data;
+			try {
+				input.readFully(header);
+				int capturedLength = buffer.getInt(8);
+				if (capturedLength < 0 || capturedLength > MAX_RECORD_SIZE) {
+					throw new IOException("Corrupt pcap record, captured length " + capturedLength);
+				}
+				data = new byte[capturedLength];
+				input.readFully(data);
+			} catch (EOFException e) {
+				return count;
+			}
+			long seconds = buffer.getInt(0) & 0xffffffffL;
+			long fraction = buffer.getInt(4) & 0xffffffffL;
+			int length = buffer.getInt(12);
+			subscriber.receive(datalink, seconds, nanos ? fraction / 1000 : fraction, length, data);
+			count++;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Reads a file that another process is still writing to. At the end of the
+ * file a read waits for more data instead of returning -1, until
+ * {@link #finish()} says the writer is done. The file does not have to exist
+ * yet when the stream is made.
+ */
+public class TailingFileInputStream extends InputStream {
+
+	private static final long DEFAULT_POLL_MILLIS = 200;
+
+	private final File file;
+	private final long pollMillis;
+	private volatile FileInputStream input;
+	private volatile boolean finished;
+	private volatile boolean closed;
+
+	public TailingFileInputStream(File file) {
+		this(file, DEFAULT_POLL_MILLIS);
+	}
+
+	public TailingFileInputStream(File file, long pollMillis) {
+		this.file = file;
+		this.pollMillis = pollMillis;
+	}
+
+	/**
+	 * The writer is done, reads return -1 once the rest of the file is read.
+	 */
+	public void finish() {
+		finished = true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		int count = read(single, 0, 1);
+		return count == -1 ? -1 : single[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		while (true) {
+			if (closed) {
+				throw new IOException("Stream closed");
+			}
+			// read once more after finish, the last write may have come in meanwhile
+			boolean last = finished;
+			if (input == null && file.exists()) {
+				input = new FileInputStream(file);
+			}
+			if (input != null) {
+				int count = input.read(buffer, offset, length);
+				if (count > 0) {
+					return count;
+				}
+			}
+			if (last) {
+				return -1;
+			}
+			try {
+				Thread.sleep(pollMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for " + file);
+			}
+		}
+	}
+
+	@Override
+	public int available() throws IOException {
+		return input == null ? 0 : input.available();
+	}
+
+	/**
+	 * Can be called from another thread to stop a waiting read.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		finished = true;
+		if (input != null) {
+			input.close();
+		}
+	}
+}
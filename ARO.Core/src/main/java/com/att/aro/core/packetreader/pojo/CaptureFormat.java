@@ -0,0 +1,187 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.pojo;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * What a capture file is, found by reading its header once before the
+ * packets: format, byte order, link types, snap length and timestamp
+ * resolution. The decoders of the link types are chosen here, so the packets
+ * of the file are built without looking at the file again.
+ * 
+ * A pcapng has a link type per interface, the first interface is the link
+ * type of the capture.
+ */
+public final class CaptureFormat {
+
+	private static final int[] NO_INTERFACES = new int[0];
+
+	/**
+	 * A file that is not a capture or could not be read, packets are decoded by
+	 * their link type alone.
+	 */
+	public static final CaptureFormat UNKNOWN = new CaptureFormat(CaptureFileType.UNKNOWN, ByteOrder.BIG_ENDIAN, -1, 0, 1000000,
+			NO_INTERFACES, false);
+
+	private final CaptureFileType type;
+	private final ByteOrder byteOrder;
+	private final int linkType;
+	private final int snapLength;
+	private final long timestampsPerSecond;
+	private final int[] interfaceLinkTypes;
+	private final boolean applePcapng;
+	private final LinkDecoder decoder;
+	private final LinkDecoder[] interfaceDecoders;
+
+	/**
+	 * @param type
+	 *            The file format.
+	 * @param byteOrder
+	 *            The byte order of the headers in the file.
+	 * @param linkType
+	 *            The link type of the capture, for pcapng that of the first
+	 *            interface, -1 if not known.
+	 * @param snapLength
+	 *            The largest number of bytes kept of a packet.
+	 * @param timestampsPerSecond
+	 *            1000000 for microsecond timestamps, 1000000000 for nanosecond.
+	 * @param interfaceLinkTypes
+	 *            The link type of each pcapng interface in order of their ids,
+	 *            empty for other formats.
+	 * @param applePcapng
+	 *            Whether the file is a pcapng written by the Apple tcpdump.
+	 */
+	public CaptureFormat(CaptureFileType type, ByteOrder byteOrder, int linkType, int snapLength, long timestampsPerSecond,
+			int[] interfaceLinkTypes, boolean applePcapng) {
+		this.type = type;
+		this.byteOrder = byteOrder;
+		this.linkType = linkType;
+		this.snapLength = snapLength;
+		this.timestampsPerSecond = timestampsPerSecond;
+		this.interfaceLinkTypes = interfaceLinkTypes.clone();
+		this.applePcapng = applePcapng;
+		this.decoder = LinkDecoder.forLinkType(linkType, applePcapng);
+		this.interfaceDecoders = new LinkDecoder[interfaceLinkTypes.length];
+		for (int idx = 0; idx < interfaceLinkTypes.length; idx++) {
+			interfaceDecoders[idx] = LinkDecoder.forLinkType(interfaceLinkTypes[idx], applePcapng);
+		}
+	}
+
+	public CaptureFileType getType() {
+		return type;
+	}
+
+	public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+
+	public int getLinkType() {
+		return linkType;
+	}
+
+	public int getSnapLength() {
+		return snapLength;
+	}
+
+	public long getTimestampsPerSecond() {
+		return timestampsPerSecond;
+	}
+
+	public boolean isNanosecondResolution() {
+		return timestampsPerSecond == 1000000000L;
+	}
+
+	public boolean isApplePcapng() {
+		return applePcapng;
+	}
+
+	/**
+	 * @return The number of pcapng interfaces, 0 for other formats.
+	 */
+	public int getInterfaceCount() {
+		return interfaceLinkTypes.length;
+	}
+
+	/**
+	 * @param interfaceId
+	 *            The id of a pcapng interface, the order of its description
+	 *            block in the file.
+	 * @return The link type of the interface.
+	 */
+	public int getLinkType(int interfaceId) {
+		return interfaceLinkTypes[interfaceId];
+	}
+
+	/**
+	 * @param interfaceId
+	 *            The id of a pcapng interface.
+	 * @return The decoder of the link type of the interface.
+	 */
+	public LinkDecoder getInterfaceDecoder(int interfaceId) {
+		return interfaceDecoders[interfaceId];
+	}
+
+	/**
+	 * Returns the decoder of a link type reported by a reader of this file.
+	 * That is the link type of the capture except for a pcapng whose
+	 * interfaces differ.
+	 * 
+	 * @param datalink
+	 *            The link type of the packet.
+	 * @return The decoder of the link type.
+	 */
+	public LinkDecoder getDecoder(int datalink) {
+		if (datalink == linkType) {
+			return decoder;
+		}
+		for (int idx = 0; idx < interfaceLinkTypes.length; idx++) {
+			if (interfaceLinkTypes[idx] == datalink) {
+				return interfaceDecoders[idx];
+			}
+		}
+		return LinkDecoder.forLinkType(datalink, applePcapng);
+	}
+
+	/**
+	 * @return true for a pcapng whose interfaces do not all have the same link
+	 *         type
+	 */
+	public boolean hasMixedLinkTypes() {
+		for (int each : interfaceLinkTypes) {
+			if (each != linkType) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(type.name());
+		builder.append(", link type ").append(linkType);
+		if (interfaceLinkTypes.length > 1) {
+			builder.append(", interfaces ").append(Arrays.toString(interfaceLinkTypes));
+		}
+		builder.append(", ").append(byteOrder).append(", snap length ").append(snapLength);
+		builder.append(isNanosecondResolution() ? ", ns" : ", us");
+		if (applePcapng) {
+			builder.append(", Apple");
+		}
+		return builder.toString();
+	}
+}
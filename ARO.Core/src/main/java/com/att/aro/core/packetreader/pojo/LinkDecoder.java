@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.pojo;
+
+/**
+ * Finds the network protocol and the length of the link layer header of a
+ * frame, one constant per link type so the choice is made once per capture
+ * rather than once per packet.
+ */
+public enum LinkDecoder {
+	/**
+	 * DLT_RAW, the frame starts with the IP header.
+	 */
+	RAW(0) {
+		@Override
+		public short getNetwork(byte[] data) {
+			return IPV4;
+		}
+	},
+	/**
+	 * DLT_EN10MB, Ethernet (WiFi).
+	 */
+	ETHERNET(14) {
+		@Override
+		public short getNetwork(byte[] data) {
+			return readShort(data, 12);
+		}
+	},
+	/**
+	 * DLT_LINUX_SLL, Linux cooked capture (Android).
+	 */
+	LINUX_SLL(16) {
+		@Override
+		public short getNetwork(byte[] data) {
+			return readShort(data, 14);
+		}
+	},
+	/**
+	 * The 4 byte protocol family header of the iOS tunnel interfaces in an
+	 * Apple pcapng.
+	 */
+	APPLE_TUNNEL(4) {
+		@Override
+		public short getNetwork(byte[] data) {
+			return IPV4;
+		}
+	},
+	/**
+	 * Any other link type, the frame is not decoded further.
+	 */
+	NONE(0) {
+		@Override
+		public short getNetwork(byte[] data) {
+			return 0;
+		}
+	};
+
+	public static final int DLT_EN10MB = 1;
+	public static final int DLT_RAW = 12;
+	public static final int DLT_LINUX_SLL = 113;
+
+	private static final short IPV4 = 0x0800;
+
+	private final int headerLength;
+
+	private LinkDecoder(int headerLength) {
+		this.headerLength = headerLength;
+	}
+
+	/**
+	 * Returns the network protocol of the frame, such as 0x0800 for IPv4.
+	 * 
+	 * @param data
+	 *            The frame.
+	 * @return The ether type, 0 if not known.
+	 * @throws IndexOutOfBoundsException
+	 *             if the frame is shorter than its link layer header
+	 */
+	public abstract short getNetwork(byte[] data);
+
+	/**
+	 * @return The length of the link layer header in bytes.
+	 */
+	public int getHeaderLength() {
+		return headerLength;
+	}
+
+	/**
+	 * Returns the decoder of a link type.
+	 * 
+	 * @param linkType
+	 *            The link type of the capture or interface.
+	 * @param applePcapng
+	 *            Whether the capture is a pcapng written by the Apple tcpdump,
+	 *            whose link types other than the ones above are tunnels.
+	 * @return The decoder, NONE for link types that are not decoded.
+	 */
+	public static LinkDecoder forLinkType(int linkType, boolean applePcapng) {
+		switch (linkType) {
+		case DLT_RAW:
+			return RAW;
+		case DLT_EN10MB:
+			return ETHERNET;
+		case DLT_LINUX_SLL:
+			return LINUX_SLL;
+		default:
+			return applePcapng ? APPLE_TUNNEL : NONE;
+		}
+	}
+
+	private static short readShort(byte[] data, int offset) {
+		if (offset + 2 > data.length) {
+			throw new IndexOutOfBoundsException("Frame of " + data.length + " bytes has no network type at " + offset);
+		}
+		return (short) ((data[offset] << 8) | (data[offset + 1] & 0xff));
+	}
+}
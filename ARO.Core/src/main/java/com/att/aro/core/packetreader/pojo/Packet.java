@@ -30,6 +30,7 @@ public class Packet implements Serializable {
 	private int len;
 	private int dataOffset;
 	private Packet nextPacketInSession;
+	private long recordOffset = -1;
 
 	/**
 	 *  Initializes  a new instance of the Packet class, using the specified parameters.
@@ -134,6 +135,20 @@ public class Packet implements Serializable {
 	public void setNextPacketInSession(Packet nextPacketInSession) {
 		this.nextPacketInSession = nextPacketInSession;
 	}
+
+	/**
+	 * Returns where the record of this packet starts in the capture file it
+	 * was read from, -1 when that is not known.
+	 * 
+	 * @return The file offset of the record header.
+	 */
+	public long getRecordOffset() {
+		return recordOffset;
+	}
+
+	public void setRecordOffset(long recordOffset) {
+		this.recordOffset = recordOffset;
+	}
 	
 	
 }
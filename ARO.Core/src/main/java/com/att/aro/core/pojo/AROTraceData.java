@@ -17,7 +17,10 @@ package com.att.aro.core.pojo;
 
 import java.util.List;
 
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
 import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
+import com.att.aro.core.metrics.pojo.MetricsReport;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 
 /**
@@ -28,6 +31,7 @@ import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
  *   <br>
  *   <li><b>success</b> the success of the analysis <br></li>
  *   <li><b>error</b> the ErrorCode if success is false <br></li>
+ *   <li><b>metrics</b> timings of the analysis, only when metrics are enabled <br></li>
  * </ul>
  *
  */
@@ -36,6 +40,7 @@ public class AROTraceData {
 	private ErrorCode error = null;
 	private List<AbstractBestPracticeResult> bestPracticeResults;
 	private PacketAnalyzerResult analyzerResult;
+	private MetricsReport metrics;
 
 	/**
 	 * Returns the PacketAnalyzerResult, an object that contains the analyzed trace.
@@ -110,4 +115,19 @@ public class AROTraceData {
 		this.bestPracticeResults = bestPracticeResults;
 	}
 
+	/**
+	 * Timings, counts and allocations of the analysis stages, left out of the
+	 * JSON report when null.
+	 * 
+	 * @return MetricsReport or null if metrics were disabled
+	 */
+	@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+	public MetricsReport getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(MetricsReport metrics) {
+		this.metrics = metrics;
+	}
+
 }
@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.configuration.pojo.Profile;
+
+/**
+ * Analyzes many traces and writes their AROTraceData as one JSON array.
+ * Traces are analyzed a few at a time and every result is written as soon as
+ * its analysis completes, so the dump never holds more than a handful of
+ * traces in memory.
+ */
+public interface IDataDump {
+
+	/**
+	 * Trace folders at or below the folder, that is folders holding a
+	 * traffic.cap.
+	 * 
+	 * @param folder
+	 * @return paths of the trace folders, parents before their subfolders
+	 */
+	List<String> findTraces(String folder);
+
+	/**
+	 * Analyzes the traces and writes the results to the output file, in the
+	 * order the analyses complete. A trace that cannot be analyzed is left out
+	 * of the dump.
+	 * 
+	 * @param requests
+	 *            best practices to run on every trace
+	 * @param traces
+	 *            trace directories or files
+	 * @param profile
+	 *            device profile, null for the default profile
+	 * @param output
+	 *            JSON file, replaced if it exists
+	 * @param listener
+	 *            told about every trace as it is done, may be null
+	 * @return number of traces written
+	 * @throws IOException
+	 *             if the output cannot be written
+	 * @throws InterruptedException
+	 *             if the thread running the dump is interrupted, the analyses
+	 *             still running are cancelled and the output holds the traces
+	 *             written so far
+	 */
+	int dump(List<BestPracticeType> requests, List<String> traces, Profile profile, File output,
+			IDataDumpListener listener) throws IOException, InterruptedException;
+
+	/**
+	 * Sets how many traces are analyzed at the same time.
+	 * 
+	 * @param parallelism
+	 *            at least 1
+	 */
+	void setParallelism(int parallelism);
+
+	int getParallelism();
+}
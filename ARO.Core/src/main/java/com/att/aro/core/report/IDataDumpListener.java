@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.report;
+
+import com.att.aro.core.pojo.AROTraceData;
+
+/**
+ * Told about every trace of a data dump once it is analyzed, in the order the
+ * analyses complete. Called on the thread that runs the dump.
+ */
+public interface IDataDumpListener {
+
+	/**
+	 * @param trace
+	 *            trace directory or file
+	 * @param data
+	 *            result written to the dump, null if the analysis failed and
+	 *            nothing was written
+	 * @param done
+	 *            number of traces finished so far, this one included
+	 * @param total
+	 *            number of traces in the dump
+	 */
+	void traceDone(String trace, AROTraceData data, int done, int total);
+}
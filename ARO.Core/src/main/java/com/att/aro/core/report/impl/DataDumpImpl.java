@@ -0,0 +1,136 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.report.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.concurrent.IAnalysisContextFactory;
+import com.att.aro.core.concurrent.ITraceAnalysisHandler;
+import com.att.aro.core.concurrent.impl.ParallelTraceAnalyzer;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.pojo.AROTraceData;
+import com.att.aro.core.report.IDataDump;
+import com.att.aro.core.report.IDataDumpListener;
+
+/**
+ * Runs the analyses on a ParallelTraceAnalyzer and streams every result into
+ * the JSON array as soon as it is handed back, then drops it.
+ */
+public class DataDumpImpl implements IDataDump {
+
+	private static final String TRAFFIC_FILE = "traffic.cap";
+
+	private int parallelism = ParallelTraceAnalyzer.getDefaultParallelism();
+
+	private final ParallelTraceAnalyzer analyzer;
+
+	public DataDumpImpl() {
+		analyzer = new ParallelTraceAnalyzer("ARO-datadump");
+	}
+
+	/**
+	 * @param contextFactory
+	 *            creates the context every analysis worker runs on
+	 */
+	public DataDumpImpl(IAnalysisContextFactory contextFactory) {
+		analyzer = new ParallelTraceAnalyzer("ARO-datadump", contextFactory);
+	}
+
+	@Override
+	public List<String> findTraces(String folder) {
+		List<String> traces = new ArrayList<String>();
+		findTraces(new File(folder), traces);
+		return traces;
+	}
+
+	private void findTraces(File folder, List<String> traces) {
+		if (new File(folder, TRAFFIC_FILE).exists()) {
+			traces.add(folder.getAbsolutePath());
+		}
+		File[] subfolders = folder.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isDirectory();
+			}
+		});
+		if (subfolders != null) {
+			for (File subfolder : subfolders) {
+				findTraces(subfolder, traces);
+			}
+		}
+	}
+
+	@Override
+	public int dump(List<BestPracticeType> requests, List<String> traces, Profile profile, File output,
+			final IDataDumpListener listener) throws IOException, InterruptedException {
+		final ObjectMapper mapper = new ObjectMapper();
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(output));
+		JsonGenerator generator = null;
+		final int[] written = new int[1];
+		try {
+			generator = mapper.getJsonFactory().createJsonGenerator(out, JsonEncoding.UTF8);
+			generator.writeStartArray();
+
+			final JsonGenerator arrayGenerator = generator;
+			analyzer.run(requests, traces, profile, parallelism, new ITraceAnalysisHandler() {
+				@Override
+				public void traceDone(String trace, AROTraceData data, int done, int total) throws IOException {
+					if (data != null) {
+						mapper.writeValue(arrayGenerator, data);
+						written[0]++;
+					}
+					if (listener != null) {
+						listener.traceDone(trace, data, done, total);
+					}
+				}
+			});
+			generator.writeEndArray();
+		} finally {
+			// closing the generator also ends an array cut short by an interrupt
+			if (generator != null) {
+				generator.close();
+			} else {
+				out.close();
+			}
+		}
+		return written[0];
+	}
+
+	@Override
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public int getParallelism() {
+		return parallelism;
+	}
+}
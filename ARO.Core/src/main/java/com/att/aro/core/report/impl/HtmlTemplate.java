@@ -0,0 +1,185 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.report.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A template read once from the classpath and split into named sections.
+ * A section starts at a line {@code <!-- section:name -->} and runs to the
+ * next one. Inside a section {@code {{name}}} is replaced by the HTML escaped
+ * value and {@code {{{name}}}} by the value as it is. Sections are rendered
+ * straight to a Writer, nothing of the document is kept in memory.
+ */
+class HtmlTemplate {
+
+	private static final Pattern SECTION = Pattern.compile("<!-- section:(\\w+) -->");
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\{(\\w+)\\}\\}\\}|\\{\\{(\\w+)\\}\\}");
+
+	private final Map<String, Section> sections = new HashMap<String, Section>();
+
+	/**
+	 * @param resource
+	 *            classpath resource of the template
+	 * @throws IllegalStateException
+	 *             if the resource is missing
+	 */
+	HtmlTemplate(String resource) {
+		InputStream input = HtmlTemplate.class.getClassLoader().getResourceAsStream(resource);
+		if (input == null) {
+			throw new IllegalStateException("Missing template " + resource);
+		}
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+			String name = null;
+			StringBuilder text = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Matcher matcher = SECTION.matcher(line.trim());
+				if (matcher.matches()) {
+					if (name != null) {
+						sections.put(name, new Section(text.toString()));
+					}
+					name = matcher.group(1);
+					text.setLength(0);
+				} else if (name != null) {
+					text.append(line).append('\n');
+				}
+			}
+			if (name != null) {
+				sections.put(name, new Section(text.toString()));
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read template " + resource, e);
+		}
+	}
+
+	/**
+	 * Writes a section that has no placeholders.
+	 */
+	void render(String section, Writer out) throws IOException {
+		render(section, out, null);
+	}
+
+	/**
+	 * Writes a section with its placeholders replaced from the values, a null
+	 * value is written as nothing.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the section does not exist or a placeholder has no entry
+	 *             in the values
+	 */
+	void render(String section, Writer out, Map<String, ?> values) throws IOException {
+		Section compiled = sections.get(section);
+		if (compiled == null) {
+			throw new IllegalArgumentException("No template section " + section);
+		}
+		compiled.render(out, values);
+	}
+
+	/**
+	 * Escapes the characters that would end an attribute or start markup.
+	 */
+	static void escape(String value, Writer out) throws IOException {
+		int start = 0;
+		for (int idx = 0; idx < value.length(); idx++) {
+			String entity;
+			switch (value.charAt(idx)) {
+			case '&':
+				entity = "&amp;";
+				break;
+			case '<':
+				entity = "&lt;";
+				break;
+			case '>':
+				entity = "&gt;";
+				break;
+			case '"':
+				entity = "&quot;";
+				break;
+			case '\'':
+				entity = "&#39;";
+				break;
+			default:
+				continue;
+			}
+			out.write(value, start, idx - start);
+			out.write(entity);
+			start = idx + 1;
+		}
+		out.write(value, start, value.length() - start);
+	}
+
+	/**
+	 * A section split into literal text and placeholders, literals[i] is
+	 * written before names[i] and the last literal after all of them.
+	 */
+	private static class Section {
+		private final String[] literals;
+		private final String[] names;
+		private final boolean[] raw;
+
+		Section(String text) {
+			List<String> literalList = new ArrayList<String>();
+			List<String> nameList = new ArrayList<String>();
+			List<Boolean> rawList = new ArrayList<Boolean>();
+			Matcher matcher = PLACEHOLDER.matcher(text);
+			int start = 0;
+			while (matcher.find()) {
+				literalList.add(text.substring(start, matcher.start()));
+				boolean isRaw = matcher.group(1) != null;
+				nameList.add(isRaw ? matcher.group(1) : matcher.group(2));
+				rawList.add(isRaw);
+				start = matcher.end();
+			}
+			literalList.add(text.substring(start));
+			literals = literalList.toArray(new String[literalList.size()]);
+			names = nameList.toArray(new String[nameList.size()]);
+			raw = new boolean[rawList.size()];
+			for (int idx = 0; idx < raw.length; idx++) {
+				raw[idx] = rawList.get(idx);
+			}
+		}
+
+		void render(Writer out, Map<String, ?> values) throws IOException {
+			for (int idx = 0; idx < names.length; idx++) {
+				out.write(literals[idx]);
+				if (values == null || !values.containsKey(names[idx])) {
+					throw new IllegalArgumentException("No value for " + names[idx]);
+				}
+				Object value = values.get(names[idx]);
+				if (value != null) {
+					if (raw[idx]) {
+						out.write(value.toString());
+					} else {
+						escape(value.toString(), out);
+					}
+				}
+			}
+			out.write(literals[names.length]);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.report.pojo;
+
+/**
+ * Optional parts of the HTML report. The session and request tables list
+ * every session or HTTP message of the trace, split into pages of pageSize
+ * rows.
+ */
+public class HtmlReportOptions {
+
+	public static final int DEFAULT_PAGE_SIZE = 500;
+
+	private boolean sessionTable;
+	private boolean requestTable;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	public boolean isSessionTable() {
+		return sessionTable;
+	}
+
+	public void setSessionTable(boolean sessionTable) {
+		this.sessionTable = sessionTable;
+	}
+
+	public boolean isRequestTable() {
+		return requestTable;
+	}
+
+	public void setRequestTable(boolean requestTable) {
+		this.requestTable = requestTable;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @param pageSize
+	 *            rows per page, values below 1 mean the default
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+	}
+}
@@ -38,7 +38,7 @@ import com.att.aro.core.settings.Settings;
  */
 public final class SettingsImpl implements Settings {
 	public enum ConfigFileAttributes {
-		adb, gaTrackerId
+		adb, gaTrackerId, processParallelism
 	}
 
 	public static final String CONFIG_FILE_PATH = System.getProperty("user.home") + System.getProperty("file.separator")
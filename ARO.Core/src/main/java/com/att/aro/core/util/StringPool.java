@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed size cache of Strings that returns the same instance for values that
+ * repeat, such as the host names and content types of the thousands of
+ * requests in a trace.
+ * 
+ * Each value has one slot, picked by its hash, and a new value replaces the
+ * one in its slot. The pool never grows, so it can be shared by every trace
+ * that is opened. Slots are read and written without locking, a String is
+ * immutable and a lost write only costs a duplicate.
+ */
+public final class StringPool {
+
+	/** longer values hardly repeat and would only push out the short ones */
+	public static final int MAX_LENGTH = 128;
+
+	private final String[] slots;
+	private final int mask;
+
+	/**
+	 * @param size
+	 *            number of slots, rounded up to a power of two
+	 */
+	public StringPool(int size) {
+		int capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+		slots = new String[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the pooled String equal to value, pooling value when there is
+	 * none.
+	 * 
+	 * @param value
+	 * @return pooled String, null for null
+	 */
+	public String intern(String value) {
+		if (value == null || value.length() > MAX_LENGTH) {
+			return value;
+		}
+		int slot = slot(value.hashCode());
+		String pooled = slots[slot];
+		if (value.equals(pooled)) {
+			return pooled;
+		}
+		slots[slot] = value;
+		return value;
+	}
+
+	/**
+	 * Returns the pooled String for the UTF-8 bytes data[start, end), the
+	 * String is only created when it is not in the pool yet.
+	 * 
+	 * @param data
+	 * @param start
+	 * @param end
+	 * @return pooled String
+	 */
+	public String intern(byte[] data, int start, int end) {
+		return intern(data, start, end, false);
+	}
+
+	/**
+	 * Same as intern(data, start, end).toLowerCase() for ASCII values.
+	 * 
+	 * @param data
+	 * @param start
+	 * @param end
+	 * @return pooled lower case String
+	 */
+	public String internLowerCase(byte[] data, int start, int end) {
+		return intern(data, start, end, true);
+	}
+
+	private String intern(byte[] data, int start, int end, boolean lowerCase) {
+		if (end - start > MAX_LENGTH) {
+			return decode(data, start, end, lowerCase);
+		}
+		// same hash as String.hashCode() while every byte is ASCII
+		int hash = 0;
+		for (int idx = start; idx < end; idx++) {
+			byte value = data[idx];
+			if (value < 0) {
+				return intern(decode(data, start, end, lowerCase));
+			}
+			hash = 31 * hash + (lowerCase ? lower(value) : value);
+		}
+		int slot = slot(hash);
+		String pooled = slots[slot];
+		if (pooled != null && matches(pooled, data, start, end, lowerCase)) {
+			return pooled;
+		}
+		String value = decode(data, start, end, lowerCase);
+		slots[slot] = value;
+		return value;
+	}
+
+	private int slot(int hash) {
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private static boolean matches(String pooled, byte[] data, int start, int end, boolean lowerCase) {
+		if (pooled.length() != end - start) {
+			return false;
+		}
+		for (int idx = start; idx < end; idx++) {
+			int value = lowerCase ? lower(data[idx]) : data[idx];
+			if (pooled.charAt(idx - start) != value) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int lower(byte value) {
+		return value >= 'A' && value <= 'Z' ? value + ('a' - 'A') : value;
+	}
+
+	private static String decode(byte[] data, int start, int end, boolean lowerCase) {
+		String value = new String(data, start, end - start, StandardCharsets.UTF_8);
+		return lowerCase ? value.toLowerCase() : value;
+	}
+}
@@ -352,7 +352,7 @@ public final class Util {
 	 *            Jan 1 1970 GMT Date
 	 * @return formated Date value else null.
 	 */
-	public static  Date readHttpDate(String value, boolean defaultForExpired) {
+	public static synchronized Date readHttpDate(String value, boolean defaultForExpired) {
 		if (value != null) {
 			for (DateFormat dateFormat : dateFormats) {
 				try {
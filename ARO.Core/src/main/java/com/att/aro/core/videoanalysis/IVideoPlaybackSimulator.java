@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.videoanalysis;
+
+import java.util.List;
+import java.util.Map;
+
+import com.att.aro.core.videoanalysis.pojo.PlaybackSimulation;
+import com.att.aro.core.videoanalysis.pojo.VideoEvent;
+
+/**
+ * Replays the segment downloads of a trace against a player that plays the
+ * segments one after another, stalling whenever the next one has not arrived.
+ */
+public interface IVideoPlaybackSimulator {
+
+	/**
+	 * Runs one simulation and records the buffer series for the plots.
+	 * 
+	 * @param segments
+	 *            segments in play order, one per segment number
+	 * @param durations
+	 *            play time in seconds of each segment, same order as segments
+	 * @param downloads
+	 *            every segment download, including the ones that were not played,
+	 *            for the buffer in bytes
+	 * @param firstPlayStart
+	 *            time the first segment is due to play
+	 * @param playStartTimes
+	 *            play start times picked by the user, matched on segment number,
+	 *            may be null
+	 * @return PlaybackSimulation
+	 */
+	PlaybackSimulation simulate(List<VideoEvent> segments, double[] durations, List<VideoEvent> downloads, double firstPlayStart,
+			Map<VideoEvent, Double> playStartTimes);
+
+	/**
+	 * What-if run of the same downloads for each startup delay, counted from the
+	 * arrival of the first segment. Buffer series are not recorded.
+	 * 
+	 * @param segments
+	 * @param durations
+	 * @param downloads
+	 * @param startupDelays
+	 * @return one PlaybackSimulation per startup delay, in the same order
+	 */
+	List<PlaybackSimulation> sweepStartupDelay(List<VideoEvent> segments, double[] durations, List<VideoEvent> downloads, double[] startupDelays);
+
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.videoanalysis;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+
+/**
+ * Video segments of one trace, kept as references to the response bodies in
+ * the session storage. A segment is written to the video_segments folder only
+ * when a file is asked for, under a name made from its content hash, so a
+ * file left by an earlier analysis of the same trace is used as is.
+ */
+public interface IVideoSegmentStore {
+
+	/**
+	 * Adds a segment, nothing is written yet.
+	 * 
+	 * @param response
+	 *            response carrying the segment body
+	 * @param session
+	 *            session the response was read from
+	 * @param prefix
+	 *            bytes written ahead of the body, such as the DASH
+	 *            initialization segment, or null. The array is kept, not
+	 *            copied.
+	 * @param extension
+	 *            file extension without the dot
+	 * @return key of the segment, the same for the same prefix and body
+	 */
+	String add(HttpRequestResponseInfo response, Session session, byte[] prefix, String extension);
+
+	boolean contains(String key);
+
+	/**
+	 * Returns the file of the segment, writing it first if it is not on disk.
+	 * 
+	 * @param key
+	 *            as returned by add
+	 * @return the file
+	 * @throws IOException
+	 *             when the body cannot be read or the file cannot be written
+	 */
+	File getFile(String key) throws IOException;
+
+	/**
+	 * Returns the folder the files are written to.
+	 */
+	String getFolder();
+
+	/**
+	 * Deletes the segment files in the folder that no segment of this store
+	 * has, the leftovers of earlier analyses. Other files are not touched.
+	 * 
+	 * @return number of files deleted
+	 */
+	int deleteUnused();
+}
@@ -30,6 +30,7 @@ import com.att.aro.core.model.InjectLogger;
 import com.att.aro.core.videoanalysis.pojo.AROManifest;
 import com.att.aro.core.videoanalysis.pojo.ManifestDash;
 import com.att.aro.core.videoanalysis.pojo.ManifestHLS;
+import com.att.aro.core.videoanalysis.pojo.PlaybackSimulation;
 import com.att.aro.core.videoanalysis.pojo.VideoEvent;
 import com.att.aro.core.videoanalysis.pojo.VideoUsagePrefs.DUPLICATE_HANDLING;
 
@@ -37,7 +38,6 @@ public abstract class PlotHelperAbstract {
 
 	private static Map<VideoEvent, AROManifest> veManifestList;
 	private List<VideoEvent> chunkDownload;
-	public static Map<VideoEvent, Double> chunkPlayTimeList = new TreeMap<>();
 	protected static List<VideoEvent> chunksBySegment;
 	protected static List<VideoEvent> removeChunks;
 	public static List<VideoEvent> filteredSegments;
@@ -46,6 +46,9 @@ public abstract class PlotHelperAbstract {
 
 	@Autowired
 	private IVideoUsagePrefsManager videoPrefManager;
+
+	@Autowired
+	private IVideoPlaybackSimulator playbackSimulator;
 	
 	@InjectLogger
 	private static ILogger logger;
@@ -252,31 +255,73 @@ public abstract class PlotHelperAbstract {
 	public double getChunkPlayTimeDuration(VideoEvent ve) {
 		double duration = ve.getDuration();
 		if (duration == 0 && veManifestList != null) {
-			for (VideoEvent vEvent : veManifestList.keySet()) {
-				if (ve.equals(vEvent)) {
-					AROManifest aroManifest = veManifestList.get(vEvent);
-					duration = aroManifest.getDuration();
-					double timescale = aroManifest.getTimeScale();
-					duration = duration / timescale;
-					return duration;
-				}
+			AROManifest aroManifest = veManifestList.get(ve);
+			if (aroManifest != null) {
+				duration = aroManifest.getDuration();
+				double timescale = aroManifest.getTimeScale();
+				duration = duration / timescale;
 			}
 		}
 
 		return duration;
 	}
 
-	public void setChunkPlayBackTimeList(Map<VideoEvent, Double> chunkPlayTimeList) {
-		PlotHelperAbstract.chunkPlayTimeList = chunkPlayTimeList;
+	/**
+	 * Simulates playback of the segments by segment number, starting at the
+	 * startup delay of the manifest or at the play start time the user picked,
+	 * and keeps the result on the VideoUsage.
+	 * 
+	 * @param videoUsage
+	 * @return PlaybackSimulation
+	 */
+	public PlaybackSimulation simulatePlayback(VideoUsage videoUsage) {
+		List<VideoEvent> segments = getChunksBySegmentNumber() != null ? getChunksBySegmentNumber() : new ArrayList<VideoEvent>();
+		double firstPlayStart = 0;
+		if (!segments.isEmpty()) {
+			VideoEvent first = segments.get(0);
+			AROManifest aroManifest = veManifestList != null ? veManifestList.get(first) : null;
+			firstPlayStart = first.getEndTS() + (aroManifest != null ? aroManifest.getDelay() : 0);
+		}
+		PlaybackSimulation simulation = playbackSimulator.simulate(segments, getPlayDurations(segments), getSegmentDownloads(videoUsage),
+				firstPlayStart, videoUsage.getChunkPlayTimeList());
+		videoUsage.setPlaybackSimulation(simulation);
+		return simulation;
+	}
+
+	/**
+	 * What-if playback of the segments by segment number for each startup
+	 * delay, in seconds after the first segment arrived.
+	 * 
+	 * @param videoUsage
+	 * @param startupDelays
+	 * @return one PlaybackSimulation per startup delay
+	 */
+	public List<PlaybackSimulation> sweepStartupDelay(VideoUsage videoUsage, double... startupDelays) {
+		List<VideoEvent> segments = getChunksBySegmentNumber() != null ? getChunksBySegmentNumber() : new ArrayList<VideoEvent>();
+		return playbackSimulator.sweepStartupDelay(segments, getPlayDurations(segments), getSegmentDownloads(videoUsage), startupDelays);
 	}
 
-	public double getChunkPlayStartTime(VideoEvent chunkPlaying) {
-		for (VideoEvent veEvent : chunkPlayTimeList.keySet()) {
-			if (veEvent.getSegment() == chunkPlaying.getSegment()) { // veEvent.equals(chunkPlaying)){
-				return chunkPlayTimeList.get(veEvent); // return play start time
+	private double[] getPlayDurations(List<VideoEvent> segments) {
+		double[] durations = new double[segments.size()];
+		for (int index = 0; index < durations.length; index++) {
+			durations[index] = getChunkPlayTimeDuration(segments.get(index));
+		}
+		return durations;
+	}
+
+	/**
+	 * every segment downloaded, including duplicates
+	 */
+	private List<VideoEvent> getSegmentDownloads(VideoUsage videoUsage) {
+		List<VideoEvent> downloads = new ArrayList<>();
+		for (AROManifest aroManifest : videoUsage.getManifests()) {
+			for (VideoEvent videoEvent : aroManifest.getVideoEventList().values()) {
+				if (videoEvent.getSegment() != 0) {
+					downloads.add(videoEvent);
+				}
 			}
 		}
-		return -1;
+		return downloads;
 	}
 
 	public Map<VideoEvent, AROManifest> getVideoEventManifestMap() {
@@ -15,44 +15,26 @@
 */
 package com.att.aro.core.videoanalysis.impl;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-import org.apache.commons.math3.util.MathUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.att.aro.core.bestpractice.pojo.VideoUsage;
 import com.att.aro.core.packetanalysis.pojo.VideoStall;
-import com.att.aro.core.videoanalysis.AbstractBufferOccupancyCalculator;
 import com.att.aro.core.videoanalysis.IVideoUsagePrefsManager;
-import com.att.aro.core.videoanalysis.pojo.AROManifest;
+import com.att.aro.core.videoanalysis.PlotHelperAbstract;
+import com.att.aro.core.videoanalysis.pojo.PlaybackSimulation;
 import com.att.aro.core.videoanalysis.pojo.VideoEvent;
 
-public class BufferInSecondsCalculatorImpl extends AbstractBufferOccupancyCalculator {
-
-	private List<VideoEvent> filteredChunk;
-	private List<VideoEvent> chunkDownload;
-	private Map<VideoEvent, AROManifest> veManifestList;
-
-	private List<VideoEvent> veDone;
-
-	double beginBuffer, endBuffer;
-
-	Map<Integer, String> seriesDataSets = new TreeMap<Integer, String>();
-	int key;
+public class BufferInSecondsCalculatorImpl extends PlotHelperAbstract {
 
 	@Autowired
 	private VideoChunkPlotterImpl videoChunkPlotterImpl;
 	
-	private List<VideoEvent> veWithIn;
-	private List<VideoEvent> completedDownloads = new ArrayList<>();
-	// private int stallCount;
 	private List<VideoStall> videoStallResult;
-	private boolean stallStarted;
 
 	@Autowired
 	private IVideoUsagePrefsManager videoPrefManager;
@@ -71,269 +53,27 @@ public class BufferInSecondsCalculatorImpl extends AbstractBufferOccupancyCalcul
 		this.stallTriggerTime = stallTriggerTime;
 	}
 
-	public Map<Integer, String> populate(VideoUsage videoUsage, Map<VideoEvent, Double> chunkPlayTimeList) {
+	/**
+	 * Buffer in seconds of play time against trace time, drained while a segment plays and filled as segments arrive.
+	 * Stalls of the same simulation are kept for getVideoStallResult().
+	 * 
+	 * @param videoUsage
+	 * @return Map of "timestamp,seconds" entries in drawing order
+	 */
+	public Map<Integer, String> populate(VideoUsage videoUsage) {
 		if (videoPrefManager.getVideoUsagePreference() != null) {
 			setStallTriggerTime(videoPrefManager.getVideoUsagePreference().getStallTriggerTime());
 		}
-		// this.chunkPlayTimeList = chunkPlayTimeList;
-		seriesDataSets.clear();
-		key = 0;
-		// stallCount=0;
 		videoStallResult = new ArrayList<>();
-		if (videoUsage != null) {
-			filteredChunk = new ArrayList<>();
-			chunkDownload = new ArrayList<>();
-			veDone = new ArrayList<>();
-			veWithIn = new ArrayList<>();
-			completedDownloads.clear();
-			beginBuffer = 0;
-			endBuffer = 0;
-			stallStarted = false;
-
-			initialize(videoUsage);
-
-			double bufferInSeconds = 0;
-			for (int index = 0; index < getChunksBySegmentNumber().size(); index++) {// filteredChunk
-				bufferInSeconds = 0;
-
-				updateUnfinishedDoneVideoEvent();
-
-				bufferInSeconds = drawVeDone(veDone, beginBuffer);
-				veDone.clear();
-
-				bufferInSeconds = drawVeWithIn(veWithIn, bufferInSeconds);
-				veWithIn.clear();
-
-				endBuffer = bufferInSeconds;
-
-				if (bufferInSeconds < 0 ) { // using -ve as stall indicator
-					// if indicated push the chunk play start time
-					double possibleStartPlayTime = updatePlayStartTime(chunkPlaying);
-
-					if (possibleStartPlayTime == -1) {
-						if (!videoStallResult.isEmpty()) {
-							videoStallResult.get(videoStallResult.size() - 1).setSegmentTryingToPlay(chunkPlaying);
-						}
-						possibleStartPlayTime = updatePlayStartTimeAfterStall(chunkPlaying);
-						addToChunkPlayTimeList(chunkPlaying, possibleStartPlayTime);
-					}
-					index--;
-					continue;
-				}
-
-				beginBuffer = endBuffer;
-				if (index + 1 <= getChunksBySegmentNumber().size() - 1) {
-					setNextPlayingChunk(index + 1, getChunksBySegmentNumber());
-				}
-			}
-		}
-
-		return seriesDataSets;
-
-	}
-
-	@Override
-	public double drawVeDone(List<VideoEvent> veDone, double beginBuffer) {
-		double buffer = beginBuffer;
-		Collections.sort(veDone, new VideoEventComparator(SortSelection.END_TS));
-
-		for (VideoEvent chunk : veDone) {
-			
-			seriesDataSets.put(key, chunk.getEndTS() + "," + buffer);
-			key++;
-
-			buffer = buffer + getChunkPlayTimeDuration(chunk);
-
-			seriesDataSets.put(key, chunk.getEndTS() + "," + buffer);
-			key++;
-
-			completedDownloads.add(chunk);
-			chunkDownload.remove(chunk);
-
+		if (videoUsage == null) {
+			return new TreeMap<Integer, String>();
 		}
 
-		return buffer;
+		PlaybackSimulation simulation = simulatePlayback(videoUsage);
+		videoStallResult = simulation.getStalls();
+		return simulation.getBufferSecondsSeries();
 	}
 
-	public double drawVeWithIn(List<VideoEvent> veWithIn, double beginBuffer) {
-		double buffer = beginBuffer;
-
-		if (veWithIn.size() == 0) {
-			buffer = bufferDrain(buffer);
-		} else if (completedDownloads.contains(chunkPlaying)) {
-			Collections.sort(veWithIn, new VideoEventComparator(SortSelection.END_TS));
-
-			boolean drained = false;
-			VideoEvent chunk;
-			double timeRange;
-			double durationLeft = chunkPlayTimeDuration;
-
-			seriesDataSets.put(key, chunkPlayStartTime + "," + buffer);
-			key++;
-
-			if (stallStarted) {
-				updateStallInformation(chunkPlayStartTime);
-				stallStarted = false;
-			}
-
-			for (int index = 0; index < veWithIn.size(); index++) {
-				chunk = veWithIn.get(index);
-				if (MathUtils.equals(chunk.getEndTS(), chunkPlayEndTime)) {
-					// finish draining
-					buffer = buffer - durationLeft;
-					if (buffer <= 0) {
-						buffer = 0;
-						updateStallInformation(chunk.getEndTS());
-					}
-					seriesDataSets.put(key, chunkPlayEndTime + "," + buffer);
-					key++;
-					drained = true;
-
-					buffer = buffer + getChunkPlayTimeDuration(chunk);
-
-					seriesDataSets.put(key, chunk.getEndTS() + "," + buffer);
-					key++;
-
-					completedDownloads.add(chunk);
-					chunkDownload.remove(chunk);
-				} else {
-					if (index == 0) {
-						timeRange = chunk.getEndTS() - chunkPlayStartTime;
-					} else {
-						timeRange = chunk.getEndTS() - veWithIn.get(index - 1).getEndTS();
-					}
-
-					buffer = buffer - timeRange;
-					if (buffer <= 0) {
-						buffer = 0;
-						stallStarted = true;
-						updateStallInformation(chunk.getEndTS());
-					}
-					durationLeft = durationLeft - timeRange;
-
-					seriesDataSets.put(key, chunk.getEndTS() + "," + buffer);
-					key++;
-
-					buffer = buffer + getChunkPlayTimeDuration(chunk);
-
-					seriesDataSets.put(key, chunk.getEndTS() + "," + buffer);
-					key++;
-
-					completedDownloads.add(chunk);
-					chunkDownload.remove(chunk);
-				}
-			}
-
-			if (drained == false) {
-				buffer = buffer - durationLeft;
-				if (buffer <= 0) {
-					buffer = 0;
-					stallStarted = true;
-					updateStallInformation(chunkPlayEndTime);
-				}
-				seriesDataSets.put(key, chunkPlayEndTime + "," + buffer);
-				key++;
-
-			}
-
-		} else {
-			boolean skipStallStart = false;
-			for (VideoStall stall : videoStallResult) {
-				if (BigDecimal.valueOf(stall.getStallStartTimeStamp()) == BigDecimal.valueOf(chunkPlayStartTime)) {
-					skipStallStart = true;
-					break;
-				}
-			}
-			if (skipStallStart == false) {
-				stallStarted = true;
-				VideoStall stall = new VideoStall(chunkPlayStartTime);
-				videoStallResult.add(stall);
-			}
-			return -1;
-		}
-
-		return buffer;
-
-	}
-
-	private void initialize(VideoUsage videoUsage) {
-		filteredChunk = getFilteredSegments(); // filterVideoSegment(videoUsage);
-		chunkDownload = new ArrayList<>();
-		for (VideoEvent vEvent : filteredChunk) {
-			chunkDownload.add(vEvent);
-		}
-		veManifestList = getVideoEventManifestMap();
-
-		runInit(veManifestList, getChunksBySegmentNumber());
-	}
-
-	public double getChunkPlayStartTime(VideoEvent chunkPlaying) {
-		for (VideoEvent veEvent : chunkPlayTimeList.keySet()) {
-			if (veEvent.equals(chunkPlaying)) {
-				return chunkPlayTimeList.get(veEvent); // return play start time
-			}
-		}
-		return -1;
-	}
-
-	public void updateUnfinishedDoneVideoEvent() {
-		for (VideoEvent ve : chunkDownload) {
-			if (ve.getDLTimeStamp() < chunkPlayStartTime && ve.getEndTS() <= chunkPlayStartTime) {
-				veDone.add(ve);
-			} else if (ve.getEndTS() > chunkPlayStartTime && ve.getEndTS() <= chunkPlayEndTime) {
-				veWithIn.add(ve);
-			}
-		}
-	}
-
-	public void updateStallInformation(double stallTime) {
-		if (stallStarted) {
-			// oops >> videoStallResult.size() - 1 = 0
-			videoStallResult.get(videoStallResult.size() - 1).setStallEndTimeStamp(stallTime);
-		} else {
-			stallStarted = true;
-			VideoStall stall = new VideoStall(stallTime);
-			videoStallResult.add(stall);
-		}
-	}
-
-	@Override
-	public double bufferDrain(double buffer) {
-		if (buffer > 0 && completedDownloads.contains(chunkPlaying)) {
-			seriesDataSets.put(key, chunkPlayStartTime + "," + buffer);
-			key++;
-
-			buffer = buffer - chunkPlayTimeDuration;
-			if (buffer <= 0) {
-				buffer = 0;
-				stallStarted = true;
-				VideoStall stall = new VideoStall(chunkPlayEndTime);
-				videoStallResult.add(stall);
-			} else {
-				if (stallStarted) {
-					updateStallInformation(chunkPlayStartTime);
-					stallStarted = false;
-				}
-			}
-
-			seriesDataSets.put(key, chunkPlayEndTime + "," + buffer);
-			key++;
-
-		} else {
-			// stall
-			if (buffer <= 0) { // want to see if buffer >0 & stall happening
-				buffer = 0;
-				stallStarted = true;
-				updateStallInformation(chunkPlayStartTime);
-			}
-			seriesDataSets.put(key, chunkPlayStartTime + "," + buffer);
-			key++;
-			return -1;
-		}
-
-		return buffer;
-	}
-	
 	public Map<Long, Double> getSegmentStartTimeMap() {
 		return videoChunkPlotterImpl.getSegmentStartTimeList();
 		}
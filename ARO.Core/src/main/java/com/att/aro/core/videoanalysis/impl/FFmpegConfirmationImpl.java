@@ -1,28 +1,31 @@
 package com.att.aro.core.videoanalysis.impl;
 
 import java.io.IOException;
+import java.util.Arrays;
+
 import org.codehaus.jackson.map.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.att.aro.core.commandline.IExternalProcessRunner;
+import com.att.aro.core.commandline.IProcessExecutor;
 import com.att.aro.core.packetanalysis.IVideoUsageAnalysis;
 import com.att.aro.core.util.Util;
 import com.att.aro.core.videoanalysis.pojo.VideoUsagePrefs;
 
 public class FFmpegConfirmationImpl {
 
+	private static final long VERSION_TIMEOUT = 10 * 1000L;
+
 	private VideoUsagePrefs videoUsagePrefs;
 
 	@Autowired
-	private IExternalProcessRunner extProcessRunner;
+	private IProcessExecutor processExecutor;
 
 	@Autowired
 	private IVideoUsageAnalysis videoUsage;
 
 	public boolean checkFFmpegExistance() {
 		if (!ffmpegDontShowAgainStatus()) {
-			String cmd = Util.getFFMPEG() + " -version";
-			String result = extProcessRunner.executeCmd(cmd);
+			String result = processExecutor.execute(Arrays.asList(Util.getFFMPEG(), "-version"), VERSION_TIMEOUT).getOutputString();
 			String[] lines = result.split("\\n");
 			// Check & launch dialog if dont show again is false
 			if (lines.length != 0 && lines != null) {
@@ -40,22 +40,23 @@ public class VideoAnalysisConfigHelperImpl implements IVideoAnalysisConfigHelper
 	@InjectLogger
 	private static ILogger log;
 
+	private VideoConfigDispatcher dispatcher = null;
+
 	@Override
 	public VideoAnalysisConfig findConfig(String target) {
 		initConfigFiles();
 
 		if (vaConfig != null && vaConfig.getPattern().matcher(target).matches()) {
 			return vaConfig;
-		} else {
-			for (VideoAnalysisConfig tempConfig : vaConfigMap.values()) {
-				log.info(tempConfig.getDesc());
-				if (tempConfig.isValidated() && tempConfig.patternFind(target)) {
-					vaConfig = tempConfig;
-					return vaConfig;
-				}
-			}
 		}
-		return null;
+		if (dispatcher == null || !dispatcher.isCurrent()) {
+			dispatcher = new VideoConfigDispatcher(vaConfigMap.values());
+		}
+		VideoAnalysisConfig tempConfig = dispatcher.find(target);
+		if (tempConfig != null) {
+			vaConfig = tempConfig;
+		}
+		return tempConfig;
 	}
 
 	private void initConfigFiles() {
@@ -225,6 +226,7 @@ public class VideoAnalysisConfigHelperImpl implements IVideoAnalysisConfigHelper
 			vConfig = mapper.readValue(temp, VideoAnalysisConfig.class);
 			validateConfig(vConfig);
 			vaConfigMap.put(vConfig.desc, vConfig);
+			dispatcher = null;
 			return vConfig;
 		} catch (PatternSyntaxException e) {
 			error = String.format("Invalid regex pattern :%s", e.getMessage());
@@ -18,6 +18,7 @@ package com.att.aro.core.videoanalysis.impl;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -28,8 +29,10 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import com.att.aro.core.bestpractice.IBestPractice;
 import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.VideoUsage;
+import com.att.aro.core.packetanalysis.pojo.VideoStall;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.core.videoanalysis.PlotHelperAbstract;
+import com.att.aro.core.videoanalysis.pojo.PlaybackSimulation;
 import com.att.aro.core.videoanalysis.pojo.VideoEvent;
 
 public class VideoChunkPlotterImpl extends PlotHelperAbstract {
@@ -71,11 +74,12 @@ public class VideoChunkPlotterImpl extends PlotHelperAbstract {
 			key = 0;
 			imgSeries = new ArrayList<BufferedImage>();
 			seriesDataSets.clear();
+			filterVideoSegment(videoUsage);
 			filterVideoSegmentUpdated(videoUsage);
 
-			if (!chunkPlayTimeList.isEmpty()) {
+			if (!videoUsage.getChunkPlayTimeList().isEmpty()) {
 				videoEventListBySegment(videoUsage);
-				updateChunkPlayStartTimes();
+				updateChunkPlayStartTimes(videoUsage);
 
 			}
 
@@ -128,60 +132,50 @@ public class VideoChunkPlotterImpl extends PlotHelperAbstract {
 		return firstChunkTimestamp;
 	}
 
-	public void updateChunkPlayStartTimes() {
+	/**
+	 * Simulates playback and records the play start time of each filtered segment. When the player had to wait for a
+	 * segment while another quality of it had already arrived, that quality is taken as the one played and playback is
+	 * simulated again.
+	 * 
+	 * @param videoUsage
+	 */
+	public void updateChunkPlayStartTimes(VideoUsage videoUsage) {
 		this.chunkPlayStartTimes.clear();
 		this.segmentStartTimeList.clear();
 		boolean filterAgain = false;
-		double playtime = chunkPlayTimeList.get(chunkPlayTimeList.keySet().toArray()[0]); // Apply the first startup delay set to the First segment to be played
-		double possibleStartTime;
-		double duration = getChunkPlayTimeDuration(getChunksBySegmentNumber().get(0)); // filteredChunks
-		Map<Double, VideoEvent> playStartTimeBySegment = new TreeMap<>();
-
-		for (int i = 0; i < getChunksBySegmentNumber().size(); i++) {
-			possibleStartTime = getChunkPlayStartTime(getChunksBySegmentNumber().get(i));
-			if (possibleStartTime != -1)
-				playtime = possibleStartTime;
-			else {
-				playtime = duration + playtime;
-			}
+		PlaybackSimulation simulation = simulatePlayback(videoUsage);
 
-			if (getChunksBySegmentNumber().get(i).getEndTS() > playtime) { // Meaning this is not the right quality level chunk picked by the player
-				// alter filteredChunks & chunksBySegment List
-				boolean shuffled = alterFilteredSegmentList(getChunksBySegmentNumber().get(i),playtime);
-				if(shuffled){
-					filterAgain = true;
-				}
+		for (VideoStall stall : simulation.getStalls()) {
+			VideoEvent segmentTryingToPlay = stall.getSegmentTryingToPlay();
+			if (segmentTryingToPlay != null && alterFilteredSegmentList(segmentTryingToPlay, stall.getStallStartTimeStamp())) {
+				filterAgain = true;
 			}
-			playStartTimeBySegment.put(playtime, getChunksBySegmentNumber().get(i));
-			duration = getChunkPlayTimeDuration(getChunksBySegmentNumber().get(i));
 		}
 
-		for (VideoEvent ve : getFilteredSegments()) {
-			for (int index = 0; index < playStartTimeBySegment.keySet().size(); index++) {
-				VideoEvent veSegment = playStartTimeBySegment.get(playStartTimeBySegment.keySet().toArray()[index]);
-				if (veSegment.getSegment() == ve.getSegment()) {
-					double playStartTime = (double) playStartTimeBySegment.keySet().toArray()[index];
-					chunkPlayStartTimes.add(playStartTime);
-					segmentStartTimeList.put((new Double(veSegment.getSegment())).longValue(), playStartTime);
-					break;
-				}
-			}
-		}
-		
 		if(filterAgain){
 			Collections.sort(getFilteredSegments(), new VideoEventComparator(SortSelection.START_TS));
-			for (VideoEvent ve : getFilteredSegments()) { //Originally Content of filteredSegments List and chunksBySegment List should be the same, the difference is chunksBySegment is ordered by segment number while the other is ordered by dlTime
-				if(!getChunksBySegmentNumber().contains(ve)){
-					for(VideoEvent segment:getChunksBySegmentNumber()){
-						if(segment.getSegment() == ve.getSegment()){
-							//segment should be replaced by ve
-							getChunksBySegmentNumber().add(getChunksBySegmentNumber().indexOf(segment), ve);
-							getChunksBySegmentNumber().remove(segment);
-							break;
-						}
-					}	
+			//Originally Content of filteredSegments List and chunksBySegment List should be the same, the difference is chunksBySegment is ordered by segment number while the other is ordered by dlTime
+			Map<Double, Integer> positionBySegment = new HashMap<>();
+			for (int index = 0; index < getChunksBySegmentNumber().size(); index++) {
+				positionBySegment.put(getChunksBySegmentNumber().get(index).getSegment(), index);
+			}
+			for (VideoEvent ve : getFilteredSegments()) {
+				Integer position = positionBySegment.get(ve.getSegment());
+				if (position != null) {
+					getChunksBySegmentNumber().set(position, ve);
 				}
 			}
+			simulation = simulatePlayback(videoUsage);
+		}
+
+		Map<Long, Double> segmentStartTimes = simulation.getSegmentStartTimes();
+		for (VideoEvent ve : getFilteredSegments()) {
+			long segment = (new Double(ve.getSegment())).longValue();
+			Double playStartTime = segmentStartTimes.get(segment);
+			if (playStartTime != null) {
+				chunkPlayStartTimes.add(playStartTime);
+				segmentStartTimeList.put(segment, playStartTime);
+			}
 		}
 
 	}
@@ -237,9 +231,6 @@ public class VideoChunkPlotterImpl extends PlotHelperAbstract {
 		return segmentStartTimeList;
 	}
 	
-	public Map<VideoEvent, Double> getChunkPlayTimeList() {
-		return chunkPlayTimeList;
-	}
 
 	
 	
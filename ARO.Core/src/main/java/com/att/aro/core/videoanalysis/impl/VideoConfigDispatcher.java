@@ -0,0 +1,279 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.videoanalysis.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.att.aro.core.videoanalysis.pojo.config.VideoAnalysisConfig;
+
+/**
+ * Finds the first VideoAnalysisConfig, in the order given, whose request
+ * pattern is found in a request URI, the same answer as running patternFind
+ * on every config in turn.
+ * 
+ * Each request regex is boiled down to the literal strings every match has to
+ * contain, host names and path tokens mostly. A URI missing one of them
+ * cannot match, so the regex only runs on the configs whose literals are all
+ * present. Answers are kept per URI, the analysis asks for the same request
+ * more than once.
+ */
+public class VideoConfigDispatcher {
+
+	private static final int MIN_LITERAL_LENGTH = 3;
+
+	private static final int CACHE_SIZE = 1024;
+
+	private static final int NO_MATCH = -1;
+
+	private final VideoAnalysisConfig[] configs;
+	// what each config looked like when the literals were taken, the RegexWizard edits configs in place
+	private final String[] regexes;
+	private final boolean[] validated;
+	private final String[][] literals;
+
+	private final Map<String, Integer> cache = new LinkedHashMap<String, Integer>(64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	public VideoConfigDispatcher(Collection<VideoAnalysisConfig> configs) {
+		int count = configs.size();
+		this.configs = configs.toArray(new VideoAnalysisConfig[count]);
+		this.regexes = new String[count];
+		this.validated = new boolean[count];
+		this.literals = new String[count][];
+		for (int idx = 0; idx < count; idx++) {
+			VideoAnalysisConfig config = this.configs[idx];
+			regexes[idx] = config.getRegex();
+			validated[idx] = config.isValidated();
+			List<String> required = requiredLiterals(config.getRegex());
+			literals[idx] = required.toArray(new String[required.size()]);
+		}
+	}
+
+	/**
+	 * @return false if a config changed its regex or validity since this
+	 *         dispatcher was built
+	 */
+	public boolean isCurrent() {
+		for (int idx = 0; idx < configs.length; idx++) {
+			if (configs[idx].getRegex() != regexes[idx] || configs[idx].isValidated() != validated[idx]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param target
+	 *            request URI
+	 * @return first validated config whose pattern is found in the target,
+	 *         null if none
+	 */
+	public VideoAnalysisConfig find(String target) {
+		Integer found = cache.get(target);
+		if (found == null) {
+			found = dispatch(target);
+			cache.put(target, found);
+		}
+		return found == NO_MATCH ? null : configs[found];
+	}
+
+	private int dispatch(String target) {
+		for (int idx = 0; idx < configs.length; idx++) {
+			if (validated[idx] && containsAll(target, literals[idx]) && configs[idx].patternFind(target)) {
+				return idx;
+			}
+		}
+		return NO_MATCH;
+	}
+
+	private static boolean containsAll(String target, String[] required) {
+		for (String literal : required) {
+			if (!target.contains(literal)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Literal runs outside of groups and classes that every match of the
+	 * regex contains. Anything the scan is not sure of, alternation at the
+	 * top, inline flags or quoting, gives no literals so the regex always
+	 * runs.
+	 * 
+	 * @param regex
+	 * @return literals of at least three characters, empty if none
+	 */
+	static List<String> requiredLiterals(String regex) {
+		List<String> required = new ArrayList<String>();
+		if (regex == null || regex.contains("(?") || regex.contains("\\Q")) {
+			return required;
+		}
+		StringBuilder run = new StringBuilder();
+		int index = 0;
+		int length = regex.length();
+		while (index < length) {
+			char chr = regex.charAt(index);
+			if (chr == '|') {
+				required.clear();
+				return required;
+			} else if (chr == '\\' && index + 1 < length) {
+				char escaped = regex.charAt(index + 1);
+				index += 2;
+				if (Character.isLetterOrDigit(escaped)) {
+					// \d, \w, \b, back references and the like
+					flush(run, required);
+					index = skipQuantifier(regex, index);
+				} else {
+					run.append(escaped);
+					index = quantify(regex, index, run, required);
+				}
+			} else if (chr == '[') {
+				index = skipClass(regex, index);
+				if (index < 0) {
+					required.clear();
+					return required;
+				}
+				flush(run, required);
+				index = skipQuantifier(regex, index);
+			} else if (chr == '(') {
+				index = skipGroup(regex, index);
+				if (index < 0) {
+					required.clear();
+					return required;
+				}
+				flush(run, required);
+				index = skipQuantifier(regex, index);
+			} else if (chr == '.' || chr == '^' || chr == '$') {
+				flush(run, required);
+				index = skipQuantifier(regex, index + 1);
+			} else {
+				run.append(chr);
+				index = quantify(regex, index + 1, run, required);
+			}
+		}
+		flush(run, required);
+		return required;
+	}
+
+	/**
+	 * Applies the quantifiers following the last character of the run. A
+	 * character that may be missing is taken off the run, any quantifier ends
+	 * the run.
+	 */
+	private static int quantify(String regex, int index, StringBuilder run, List<String> required) {
+		int end = skipQuantifier(regex, index);
+		if (end == index) {
+			return index;
+		}
+		for (int idx = index; idx < end; idx++) {
+			char chr = regex.charAt(idx);
+			// a lazy ? counts as well, which only drops a character too many
+			if (chr == '?' || chr == '*' || (chr == '{' && idx + 1 < end && regex.charAt(idx + 1) == '0')) {
+				run.setLength(run.length() - 1);
+				break;
+			}
+		}
+		flush(run, required);
+		return end;
+	}
+
+	/**
+	 * @return index after the quantifiers at the index, Pattern takes several
+	 *         in a row
+	 */
+	private static int skipQuantifier(String regex, int index) {
+		while (index < regex.length()) {
+			char chr = regex.charAt(index);
+			if (chr == '?' || chr == '*' || chr == '+') {
+				index++;
+			} else if (chr == '{') {
+				int close = regex.indexOf('}', index);
+				index = close < 0 ? regex.length() : close + 1;
+			} else {
+				break;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @return index after the class, -1 if the class is one the scan does
+	 *         not follow
+	 */
+	private static int skipClass(String regex, int index) {
+		int start = index + 1;
+		if (start < regex.length() && regex.charAt(start) == '^') {
+			start++;
+		}
+		if (start < regex.length() && regex.charAt(start) == ']') {
+			return -1;
+		}
+		int depth = 0;
+		while (index < regex.length()) {
+			char chr = regex.charAt(index);
+			if (chr == '\\') {
+				index++;
+			} else if (chr == '[') {
+				depth++;
+			} else if (chr == ']' && --depth == 0) {
+				return index + 1;
+			}
+			index++;
+		}
+		return -1;
+	}
+
+	private static int skipGroup(String regex, int index) {
+		int depth = 0;
+		while (index < regex.length()) {
+			char chr = regex.charAt(index);
+			if (chr == '\\') {
+				index += 2;
+				continue;
+			} else if (chr == '[') {
+				index = skipClass(regex, index);
+				if (index < 0) {
+					return -1;
+				}
+				continue;
+			} else if (chr == '(') {
+				depth++;
+			} else if (chr == ')' && --depth == 0) {
+				return index + 1;
+			}
+			index++;
+		}
+		return -1;
+	}
+
+	private static void flush(StringBuilder run, List<String> required) {
+		if (run.length() >= MIN_LITERAL_LENGTH) {
+			required.add(run.toString());
+		}
+		run.setLength(0);
+	}
+}
@@ -0,0 +1,279 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.videoanalysis.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.att.aro.core.packetanalysis.pojo.VideoStall;
+import com.att.aro.core.videoanalysis.IVideoPlaybackSimulator;
+import com.att.aro.core.videoanalysis.pojo.PlaybackSimulation;
+import com.att.aro.core.videoanalysis.pojo.VideoEvent;
+
+/**
+ * Event driven playback simulation.
+ * 
+ * Downloads are known up front and are sorted once by arrival. The player only
+ * ever has one event pending, the start or the end of the segment it is on, so
+ * the event queue is the sorted arrivals merged with that one event. At equal
+ * times arrivals go first, a segment that arrives right when it is due does not
+ * stall.
+ * 
+ * A segment that is due but has not arrived stalls the player until it does.
+ * Playback then resumes on the next whole second, as the buffer plots always
+ * did. A start time picked by the user for a segment replaces the end of the
+ * segment before it, but never goes back before it.
+ */
+public class VideoPlaybackSimulatorImpl implements IVideoPlaybackSimulator {
+
+	private static final int DOWNLOAD = 0;
+	private static final int READY = 1;
+	private static final int PLAY_END = 2;
+	private static final int PLAY_START = 3;
+
+	private static final Comparator<Arrival> ARRIVAL_ORDER = new Comparator<Arrival>() {
+		@Override
+		public int compare(Arrival arrival1, Arrival arrival2) {
+			int result = Double.compare(arrival1.time, arrival2.time);
+			return result != 0 ? result : Integer.compare(arrival1.type, arrival2.type);
+		}
+	};
+
+	@Override
+	public PlaybackSimulation simulate(List<VideoEvent> segments, double[] durations, List<VideoEvent> downloads, double firstPlayStart,
+			Map<VideoEvent, Double> playStartTimes) {
+		Map<Double, Integer> segmentIndex = indexSegments(segments);
+		Map<Integer, Double> pickedStartTimes = new HashMap<>();
+		if (playStartTimes != null) {
+			for (Map.Entry<VideoEvent, Double> entry : playStartTimes.entrySet()) {
+				Integer index = segmentIndex.get(entry.getKey().getSegment());
+				if (index != null && entry.getValue() != null) {
+					pickedStartTimes.put(index, entry.getValue());
+				}
+			}
+		}
+		if (pickedStartTimes.containsKey(0)) {
+			firstPlayStart = pickedStartTimes.get(0);
+		}
+		return run(segments, durations, arrivals(segments, downloads, segmentIndex), firstPlayStart, pickedStartTimes, true);
+	}
+
+	@Override
+	public List<PlaybackSimulation> sweepStartupDelay(List<VideoEvent> segments, double[] durations, List<VideoEvent> downloads, double[] startupDelays) {
+		List<PlaybackSimulation> simulations = new ArrayList<>(startupDelays.length);
+		if (segments.isEmpty()) {
+			for (int idx = 0; idx < startupDelays.length; idx++) {
+				simulations.add(new PlaybackSimulation());
+			}
+			return simulations;
+		}
+		List<Arrival> arrivals = arrivals(segments, downloads, indexSegments(segments));
+		Map<Integer, Double> noPickedStartTimes = Collections.emptyMap();
+		double firstArrival = segments.get(0).getEndTS();
+		for (double startupDelay : startupDelays) {
+			simulations.add(run(segments, durations, arrivals, firstArrival + startupDelay, noPickedStartTimes, false));
+		}
+		return simulations;
+	}
+
+	private Map<Double, Integer> indexSegments(List<VideoEvent> segments) {
+		Map<Double, Integer> segmentIndex = new HashMap<>();
+		for (int index = 0; index < segments.size(); index++) {
+			segmentIndex.put(segments.get(index).getSegment(), index);
+		}
+		return segmentIndex;
+	}
+
+	/**
+	 * Every download adds to the buffer in bytes, only the download of the
+	 * segment that gets played adds to the buffer in seconds.
+	 */
+	private List<Arrival> arrivals(List<VideoEvent> segments, List<VideoEvent> downloads, Map<Double, Integer> segmentIndex) {
+		List<Arrival> arrivals = new ArrayList<>(downloads.size() + segments.size());
+		for (VideoEvent download : downloads) {
+			Integer index = segmentIndex.get(download.getSegment());
+			if (index != null) {
+				arrivals.add(new Arrival(download.getEndTS(), DOWNLOAD, index, download.getTotalBytes()));
+			}
+		}
+		for (int index = 0; index < segments.size(); index++) {
+			arrivals.add(new Arrival(segments.get(index).getEndTS(), READY, index, 0));
+		}
+		Collections.sort(arrivals, ARRIVAL_ORDER);
+		return arrivals;
+	}
+
+	private PlaybackSimulation run(List<VideoEvent> segments, double[] durations, List<Arrival> arrivals, double firstPlayStart,
+			Map<Integer, Double> pickedStartTimes, boolean recordSeries) {
+		PlaybackSimulation simulation = new PlaybackSimulation();
+		int count = segments.size();
+		if (count == 0) {
+			return simulation;
+		}
+
+		double[] playStartTimes = new double[count];
+		double[] unplayedBytes = new double[count];
+		boolean[] ready = new boolean[count];
+		boolean[] played = new boolean[count];
+		List<VideoStall> stalls = new ArrayList<>();
+		Series bytesSeries = new Series(recordSeries);
+		Series secondsSeries = new Series(recordSeries);
+
+		double bufferBytes = 0;
+		double bufferSeconds = 0;
+		double bufferTime = 0;
+		boolean draining = false;
+		VideoStall stall = null;
+
+		int pendingType = PLAY_START;
+		int pendingIndex = 0;
+		double pendingTime = firstPlayStart;
+
+		int next = 0;
+		while (next < arrivals.size() || pendingType != -1) {
+			double time;
+			int type;
+			int index;
+			double bytes = 0;
+			if (next < arrivals.size() && (pendingType == -1 || arrivals.get(next).time <= pendingTime)) {
+				Arrival arrival = arrivals.get(next++);
+				time = arrival.time;
+				type = arrival.type;
+				index = arrival.index;
+				bytes = arrival.bytes;
+			} else {
+				time = pendingTime;
+				type = pendingType;
+				index = pendingIndex;
+				pendingType = -1;
+			}
+
+			// events never go back in time, the player only schedules ahead of the event it is on
+			if (draining) {
+				bufferSeconds = Math.max(0, bufferSeconds - (time - bufferTime));
+			}
+			bufferTime = time;
+
+			switch (type) {
+			case DOWNLOAD:
+				if (!played[index]) {
+					bytesSeries.add(time, bufferBytes);
+					bufferBytes += bytes;
+					unplayedBytes[index] += bytes;
+					bytesSeries.add(time, bufferBytes);
+					simulation.setMaxBufferBytes(Math.max(simulation.getMaxBufferBytes(), bufferBytes));
+				}
+				break;
+
+			case READY:
+				ready[index] = true;
+				secondsSeries.add(time, bufferSeconds);
+				bufferSeconds += durations[index];
+				secondsSeries.add(time, bufferSeconds);
+				simulation.setMaxBufferSeconds(Math.max(simulation.getMaxBufferSeconds(), bufferSeconds));
+				if (stall != null && pendingType == -1 && index == pendingIndex) {
+					pendingType = PLAY_START;
+					pendingTime = Math.ceil(time);
+				}
+				break;
+
+			case PLAY_START:
+				if (!ready[index]) {
+					// wait for the arrival, the READY above picks the segment up again
+					stall = new VideoStall(time);
+					stall.setSegmentTryingToPlay(segments.get(index));
+					stalls.add(stall);
+					pendingIndex = index;
+					draining = false;
+					secondsSeries.add(time, bufferSeconds);
+					break;
+				}
+				if (stall != null) {
+					stall.setStallEndTimeStamp(time);
+					stall = null;
+				}
+				played[index] = true;
+				playStartTimes[index] = time;
+				bytesSeries.add(time, bufferBytes);
+				bufferBytes = Math.max(0, bufferBytes - unplayedBytes[index]);
+				bytesSeries.add(time, bufferBytes);
+				secondsSeries.add(time, bufferSeconds);
+				draining = true;
+				pendingType = PLAY_END;
+				pendingIndex = index;
+				pendingTime = time + durations[index];
+				break;
+
+			case PLAY_END:
+				draining = false;
+				secondsSeries.add(time, bufferSeconds);
+				if (index + 1 < count) {
+					Double picked = pickedStartTimes.get(index + 1);
+					pendingType = PLAY_START;
+					pendingIndex = index + 1;
+					pendingTime = picked != null ? Math.max(picked, time) : time;
+				}
+				break;
+
+			default:
+			}
+		}
+
+		simulation.setPlayback(segments, playStartTimes);
+		simulation.setStalls(stalls);
+		simulation.setStartupDelay(playStartTimes[0] - segments.get(0).getEndTS());
+		simulation.setBufferBytesSeries(bytesSeries.points);
+		simulation.setBufferSecondsSeries(secondsSeries.points);
+		return simulation;
+	}
+
+	private static final class Arrival {
+		private final double time;
+		private final int type;
+		private final int index;
+		private final double bytes;
+
+		private Arrival(double time, int type, int index, double bytes) {
+			this.time = time;
+			this.type = type;
+			this.index = index;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Points in the "timestamp,value" form of the buffer plots.
+	 */
+	private static final class Series {
+		private final Map<Integer, String> points = new TreeMap<>();
+		private final boolean record;
+
+		private Series(boolean record) {
+			this.record = record;
+		}
+
+		private void add(double time, double value) {
+			if (record) {
+				points.put(points.size(), time + "," + value);
+			}
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.videoanalysis.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
+import com.att.aro.core.packetanalysis.pojo.ContentFingerprint;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.videoanalysis.IVideoSegmentStore;
+
+/**
+ * Segment store of one trace. The key of a segment is a SHA-256 over the
+ * prefix and the content fingerprint of the response body, which is taken
+ * straight from the session storage, so adding a segment neither copies nor
+ * writes its bytes.
+ * 
+ * Files are written under a temporary name and renamed once complete, a file
+ * named after a key always holds the whole segment and is never written
+ * again.
+ */
+public class VideoSegmentStoreImpl implements IVideoSegmentStore {
+
+	private static final String PART = ".part";
+
+	// names this store writes, key.extension or key.extension.part
+	private static final Pattern SEGMENT_FILE = Pattern.compile("[0-9a-f]{64}\\.[^.]+(\\.part)?");
+
+	private final String folder;
+
+	private final IHttpRequestResponseHelper reqhelper;
+
+	private final Map<String, Segment> segments = new HashMap<>();
+
+	private int written;
+
+	private int reused;
+
+	/**
+	 * @param folder
+	 *            folder for the segment files, created when the first file is
+	 *            written
+	 * @param reqhelper
+	 *            reads the response bodies
+	 */
+	public VideoSegmentStoreImpl(String folder, IHttpRequestResponseHelper reqhelper) {
+		this.folder = folder;
+		this.reqhelper = reqhelper;
+	}
+
+	@Override
+	public synchronized String add(HttpRequestResponseInfo response, Session session, byte[] prefix, String extension) {
+		MessageDigest digest = newDigest();
+		if (prefix != null) {
+			digest.update(prefix);
+		}
+		// the prefix length keeps prefix and body apart
+		digest.update(Integer.toString(prefix == null ? -1 : prefix.length).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		// the file holds the decoded body, which depends on the encoding as well
+		String encoding = response.getContentEncoding();
+		digest.update((encoding == null ? "" : encoding).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		ContentFingerprint fingerprint = reqhelper.getContentFingerprint(response, session);
+		digest.update(fingerprint.getDigest());
+		digest.update(Long.toString(fingerprint.getByteCount()).getBytes(StandardCharsets.UTF_8));
+
+		StringBuilder key = new StringBuilder(72);
+		for (byte value : digest.digest()) {
+			key.append(Character.forDigit(value >> 4 & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+		}
+		key.append('.').append(extension);
+		String name = key.toString();
+		if (!segments.containsKey(name)) {
+			segments.put(name, new Segment(response, session, prefix));
+		}
+		return name;
+	}
+
+	@Override
+	public synchronized boolean contains(String key) {
+		return segments.containsKey(key);
+	}
+
+	@Override
+	public synchronized File getFile(String key) throws IOException {
+		Segment segment = segments.get(key);
+		if (segment == null) {
+			throw new IllegalArgumentException("unknown segment " + key);
+		}
+		File file = new File(folder, key);
+		if (file.isFile()) {
+			reused++;
+			return file;
+		}
+
+		byte[] body;
+		try {
+			body = reqhelper.getContent(segment.response, segment.session);
+		} catch (Exception e) {
+			throw new IOException("cannot read segment " + key + ": " + e.getMessage(), e);
+		}
+		if (body == null || body.length == 0) {
+			throw new IOException("no content for segment " + key);
+		}
+
+		File dir = new File(folder);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("cannot create " + folder);
+		}
+		File part = new File(folder, key + PART);
+		try (OutputStream output = new FileOutputStream(part)) {
+			if (segment.prefix != null) {
+				output.write(segment.prefix);
+			}
+			output.write(body);
+		}
+		try {
+			Files.move(part.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		written++;
+		return file;
+	}
+
+	@Override
+	public String getFolder() {
+		return folder;
+	}
+
+	@Override
+	public synchronized int deleteUnused() {
+		String[] names = new File(folder).list();
+		int deleted = 0;
+		if (names != null) {
+			for (String name : names) {
+				if (SEGMENT_FILE.matcher(name).matches() && (name.endsWith(PART) || !segments.containsKey(name))
+						&& new File(folder, name).delete()) {
+					deleted++;
+				}
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Returns the number of files written by getFile.
+	 */
+	public synchronized int getWrittenCount() {
+		return written;
+	}
+
+	/**
+	 * Returns the number of times getFile found the file already on disk.
+	 */
+	public synchronized int getReusedCount() {
+		return reused;
+	}
+
+	public synchronized int size() {
+		return segments.size();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final class Segment {
+		private final HttpRequestResponseInfo response;
+		private final Session session;
+		private final byte[] prefix;
+
+		private Segment(HttpRequestResponseInfo response, Session session, byte[] prefix) {
+			this.response = response;
+			this.session = session;
+			this.prefix = prefix;
+		}
+	}
+}
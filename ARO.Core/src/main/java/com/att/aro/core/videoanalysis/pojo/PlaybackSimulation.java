@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.videoanalysis.pojo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.att.aro.core.packetanalysis.pojo.VideoStall;
+
+/**
+ * Outcome of one playback simulation of the segments of a trace: when each
+ * segment started to play, where playback stalled and how full the buffer was
+ * along the way.
+ * 
+ * Buffer series use the "timestamp,value" entries the buffer plots read, keyed
+ * in drawing order. They are empty for simulations run without series, such as
+ * the startup delay sweeps.
+ */
+public class PlaybackSimulation {
+
+	private List<VideoEvent> segments = new ArrayList<>();
+	private double[] playStartTimes = new double[0];
+	private List<VideoStall> stalls = new ArrayList<>();
+	private double startupDelay;
+
+	private Map<Integer, String> bufferBytesSeries = new TreeMap<>();
+	private Map<Integer, String> bufferSecondsSeries = new TreeMap<>();
+	private double maxBufferBytes;
+	private double maxBufferSeconds;
+
+	/**
+	 * @return segments in the order they were played
+	 */
+	public List<VideoEvent> getSegments() {
+		return segments;
+	}
+
+	/**
+	 * @return play start time of each segment, same order as getSegments()
+	 */
+	public double[] getPlayStartTimes() {
+		return playStartTimes;
+	}
+
+	public void setPlayback(List<VideoEvent> segments, double[] playStartTimes) {
+		this.segments = segments;
+		this.playStartTimes = playStartTimes;
+	}
+
+	/**
+	 * Returns the play start times keyed by segment number.
+	 * 
+	 * @return Map of segment number to play start time
+	 */
+	public Map<Long, Double> getSegmentStartTimes() {
+		Map<Long, Double> startTimes = new HashMap<>();
+		for (int index = 0; index < segments.size(); index++) {
+			startTimes.put((long) segments.get(index).getSegment(), playStartTimes[index]);
+		}
+		return startTimes;
+	}
+
+	public List<VideoStall> getStalls() {
+		return stalls;
+	}
+
+	public void setStalls(List<VideoStall> stalls) {
+		this.stalls = stalls;
+	}
+
+	public double getTotalStallDuration() {
+		double total = 0;
+		for (VideoStall stall : stalls) {
+			total += stall.getDuration();
+		}
+		return total;
+	}
+
+	/**
+	 * @return seconds from the arrival of the first segment until it started to play
+	 */
+	public double getStartupDelay() {
+		return startupDelay;
+	}
+
+	public void setStartupDelay(double startupDelay) {
+		this.startupDelay = startupDelay;
+	}
+
+	public Map<Integer, String> getBufferBytesSeries() {
+		return bufferBytesSeries;
+	}
+
+	public void setBufferBytesSeries(Map<Integer, String> bufferBytesSeries) {
+		this.bufferBytesSeries = bufferBytesSeries;
+	}
+
+	public Map<Integer, String> getBufferSecondsSeries() {
+		return bufferSecondsSeries;
+	}
+
+	public void setBufferSecondsSeries(Map<Integer, String> bufferSecondsSeries) {
+		this.bufferSecondsSeries = bufferSecondsSeries;
+	}
+
+	public double getMaxBufferBytes() {
+		return maxBufferBytes;
+	}
+
+	public void setMaxBufferBytes(double maxBufferBytes) {
+		this.maxBufferBytes = maxBufferBytes;
+	}
+
+	public double getMaxBufferSeconds() {
+		return maxBufferSeconds;
+	}
+
+	public void setMaxBufferSeconds(double maxBufferSeconds) {
+		this.maxBufferSeconds = maxBufferSeconds;
+	}
+
+	@Override
+	public String toString() {
+		return "PlaybackSimulation segments:" + segments.size() + ", stalls:" + stalls.size() + ", startupDelay:" + startupDelay;
+	}
+}
@@ -65,6 +65,8 @@ public class VideoEvent {
 	private double endTS;
 	private double duration;
 	private double segmentStartTime;
+	// IVideoSegmentStore key of the segment, null if it was not stored
+	private String segmentKey;
 
 //	private byte[] content;
 	
@@ -289,6 +291,20 @@ public class VideoEvent {
 		this.segment = segment;
 	}
 
+	/**
+	 * Returns the key to get the segment file from the IVideoSegmentStore of
+	 * the VideoUsage, null if the segment was not stored.
+	 * 
+	 * @return key or null
+	 */
+	public String getSegmentKey() {
+		return segmentKey;
+	}
+
+	public void setSegmentKey(String segmentKey) {
+		this.segmentKey = segmentKey;
+	}
+
 	private double getBeginByte() {
 		if (rangeList.isEmpty()){
 			return 0;
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace;
+
+import java.util.List;
+
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.pojo.AROTraceData;
+import com.att.aro.core.workspace.pojo.TraceComparison;
+import com.att.aro.core.workspace.pojo.TraceSnapshot;
+
+/**
+ * Holds several analyzed traces at once to compare them, such as the same
+ * test run on two builds of an app. Each trace is kept as a TraceSnapshot,
+ * the full AROTraceData is dropped once the snapshot is taken, so a workspace
+ * of many traces stays small.
+ */
+public interface ITraceWorkspace {
+
+	/**
+	 * Analyzes the traces a few at a time and adds them to the workspace, a
+	 * trace already in it is replaced.
+	 * 
+	 * @param requests
+	 *            best practices to run on every trace
+	 * @param traces
+	 *            trace directories or files
+	 * @param profile
+	 *            device profile, null for the default profile
+	 * @param listener
+	 *            told about every trace as it is done, may be null
+	 * @return snapshots in the order the analyses completed
+	 * @throws InterruptedException
+	 *             if the thread running the load is interrupted, the traces
+	 *             done so far stay in the workspace
+	 */
+	List<TraceSnapshot> load(List<BestPracticeType> requests, List<String> traces, Profile profile,
+			ITraceWorkspaceListener listener) throws InterruptedException;
+
+	/**
+	 * Adds a trace that has been analyzed already, such as the one open in
+	 * the UI, replacing a trace with the same name.
+	 * 
+	 * @param trace
+	 *            name to keep it under, normally the trace directory or file
+	 * @param data
+	 * @return the snapshot kept
+	 */
+	TraceSnapshot add(String trace, AROTraceData data);
+
+	/**
+	 * Returns the snapshot of the trace, null if it is not in the workspace.
+	 */
+	TraceSnapshot get(String trace);
+
+	/**
+	 * Returns the snapshots in the order they were added.
+	 */
+	List<TraceSnapshot> getTraces();
+
+	boolean remove(String trace);
+
+	void clear();
+
+	/**
+	 * Compares two traces of the workspace.
+	 * 
+	 * @param baseline
+	 *            trace to compare against
+	 * @param candidate
+	 * @return TraceComparison
+	 * @throws IllegalArgumentException
+	 *             if either trace is not in the workspace
+	 */
+	TraceComparison compare(String baseline, String candidate);
+
+	/**
+	 * Sets how many traces load analyzes at the same time.
+	 * 
+	 * @param parallelism
+	 *            at least 1
+	 */
+	void setParallelism(int parallelism);
+
+	int getParallelism();
+}
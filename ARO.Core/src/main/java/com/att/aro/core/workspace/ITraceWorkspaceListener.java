@@ -0,0 +1,36 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace;
+
+import com.att.aro.core.workspace.pojo.TraceSnapshot;
+
+/**
+ * Told about every trace a workspace load is done with, on the thread that
+ * started the load.
+ */
+public interface ITraceWorkspaceListener {
+
+	/**
+	 * @param snapshot
+	 *            the trace as kept in the workspace, not successful if the
+	 *            analysis failed
+	 * @param done
+	 *            number of traces done so far, this one included
+	 * @param total
+	 *            number of traces in the load
+	 */
+	void traceLoaded(TraceSnapshot snapshot, int done, int total);
+}
@@ -0,0 +1,273 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.att.aro.core.ILogger;
+import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
+import com.att.aro.core.bestpractice.pojo.BPResultType;
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.concurrent.IAnalysisContextFactory;
+import com.att.aro.core.concurrent.ITraceAnalysisHandler;
+import com.att.aro.core.concurrent.impl.ParallelTraceAnalyzer;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.model.InjectLogger;
+import com.att.aro.core.packetanalysis.pojo.AbstractRrcStateMachine;
+import com.att.aro.core.packetanalysis.pojo.AbstractTraceResult;
+import com.att.aro.core.packetanalysis.pojo.Burst;
+import com.att.aro.core.packetanalysis.pojo.EnergyModel;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.Statistic;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+import com.att.aro.core.pojo.AROTraceData;
+import com.att.aro.core.workspace.ITraceWorkspace;
+import com.att.aro.core.workspace.ITraceWorkspaceListener;
+import com.att.aro.core.workspace.pojo.SessionSummary;
+import com.att.aro.core.workspace.pojo.TraceComparison;
+import com.att.aro.core.workspace.pojo.TraceMetric;
+import com.att.aro.core.workspace.pojo.TraceSnapshot;
+
+/**
+ * Loads traces on a ParallelTraceAnalyzer and keeps a TraceSnapshot of each.
+ * Snapshots are taken on the loading thread as the results come in, so only
+ * the traces still being analyzed are held in full.
+ */
+public class TraceWorkspaceImpl implements ITraceWorkspace {
+
+	@InjectLogger
+	private static ILogger logger;
+
+	private final Map<String, TraceSnapshot> traces = new LinkedHashMap<String, TraceSnapshot>();
+
+	private int parallelism = ParallelTraceAnalyzer.getDefaultParallelism();
+
+	private final ParallelTraceAnalyzer analyzer;
+
+	public TraceWorkspaceImpl() {
+		analyzer = new ParallelTraceAnalyzer("ARO-workspace");
+	}
+
+	/**
+	 * @param contextFactory
+	 *            creates the context every analysis worker runs on
+	 */
+	public TraceWorkspaceImpl(IAnalysisContextFactory contextFactory) {
+		analyzer = new ParallelTraceAnalyzer("ARO-workspace", contextFactory);
+	}
+
+	@Override
+	public List<TraceSnapshot> load(List<BestPracticeType> requests, List<String> traceList, Profile profile,
+			final ITraceWorkspaceListener listener) throws InterruptedException {
+		final List<TraceSnapshot> loaded = new ArrayList<TraceSnapshot>(traceList.size());
+		try {
+			analyzer.run(requests, traceList, profile, parallelism, new ITraceAnalysisHandler() {
+				@Override
+				public void traceDone(String trace, AROTraceData data, int done, int total) {
+					TraceSnapshot snapshot = data != null ? add(trace, data) : put(new TraceSnapshot(trace, null));
+					loaded.add(snapshot);
+					if (listener != null) {
+						listener.traceLoaded(snapshot, done, total);
+					}
+				}
+			});
+		} catch (IOException exception) {
+			// the handler above does not throw
+			throw new IllegalStateException(exception);
+		}
+		return loaded;
+	}
+
+	@Override
+	public TraceSnapshot add(String trace, AROTraceData data) {
+		return put(snapshot(trace, data));
+	}
+
+	private TraceSnapshot put(TraceSnapshot snapshot) {
+		synchronized (traces) {
+			// a reloaded trace moves to the end
+			traces.remove(snapshot.getTrace());
+			traces.put(snapshot.getTrace(), snapshot);
+		}
+		logger.debug("workspace trace " + snapshot.getTrace() + ", about " + snapshot.getEstimatedSize() + " bytes");
+		return snapshot;
+	}
+
+	@Override
+	public TraceSnapshot get(String trace) {
+		synchronized (traces) {
+			return traces.get(trace);
+		}
+	}
+
+	@Override
+	public List<TraceSnapshot> getTraces() {
+		synchronized (traces) {
+			return new ArrayList<TraceSnapshot>(traces.values());
+		}
+	}
+
+	@Override
+	public boolean remove(String trace) {
+		synchronized (traces) {
+			return traces.remove(trace) != null;
+		}
+	}
+
+	@Override
+	public void clear() {
+		synchronized (traces) {
+			traces.clear();
+		}
+	}
+
+	@Override
+	public TraceComparison compare(String baseline, String candidate) {
+		TraceSnapshot before = get(baseline);
+		TraceSnapshot after = get(candidate);
+		if (before == null || after == null) {
+			throw new IllegalArgumentException("not in the workspace: " + (before == null ? baseline : candidate));
+		}
+		return new TraceComparison(before, after);
+	}
+
+	@Override
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Takes what the comparisons need from the analysis, nothing refers back
+	 * to it afterwards.
+	 */
+	TraceSnapshot snapshot(String trace, AROTraceData data) {
+		PacketAnalyzerResult result = data.getAnalyzerResult();
+		if (!data.isSuccess() || result == null) {
+			return new TraceSnapshot(trace, data.getError());
+		}
+
+		Map<BestPracticeType, BPResultType> bestPractices = new EnumMap<BestPracticeType, BPResultType>(BestPracticeType.class);
+		Map<BestPracticeType, String> resultTexts = new EnumMap<BestPracticeType, String>(BestPracticeType.class);
+		if (data.getBestPracticeResults() != null) {
+			for (AbstractBestPracticeResult practice : data.getBestPracticeResults()) {
+				if (practice.getBestPracticeType() != null && practice.getResultType() != null) {
+					bestPractices.put(practice.getBestPracticeType(), practice.getResultType());
+					resultTexts.put(practice.getBestPracticeType(), practice.getResultText());
+				}
+			}
+		}
+
+		Map<TraceMetric, Double> metrics = new EnumMap<TraceMetric, Double>(TraceMetric.class);
+		AbstractTraceResult traceResult = result.getTraceresult();
+		if (traceResult != null) {
+			metrics.put(TraceMetric.TRACE_DURATION, traceResult.getTraceDuration());
+		}
+		Statistic statistic = result.getStatistic();
+		if (statistic != null) {
+			metrics.put(TraceMetric.PACKET_DURATION, statistic.getPacketDuration());
+			metrics.put(TraceMetric.PACKETS, (double) statistic.getTotalPackets());
+			metrics.put(TraceMetric.TOTAL_BYTES, (double) statistic.getTotalByte());
+			metrics.put(TraceMetric.HTTPS_BYTES, (double) statistic.getTotalHTTPSByte());
+			metrics.put(TraceMetric.AVERAGE_KBPS, statistic.getAverageKbps());
+		}
+		AbstractRrcStateMachine statemachine = result.getStatemachine();
+		if (statemachine != null) {
+			metrics.put(TraceMetric.RRC_ENERGY, statemachine.getTotalRRCEnergy());
+			metrics.put(TraceMetric.JOULES_PER_KILOBYTE, statemachine.getJoulesPerKilobyte());
+		}
+		EnergyModel energyModel = result.getEnergyModel();
+		if (energyModel != null) {
+			metrics.put(TraceMetric.GPS_ENERGY, energyModel.getTotalGpsEnergy());
+			metrics.put(TraceMetric.CAMERA_ENERGY, energyModel.getTotalCameraEnergy());
+			metrics.put(TraceMetric.BLUETOOTH_ENERGY, energyModel.getTotalBluetoothEnergy());
+			metrics.put(TraceMetric.SCREEN_ENERGY, energyModel.getTotalScreenEnergy());
+			metrics.put(TraceMetric.TOTAL_ENERGY, energyModel.getTotalEnergyConsumed());
+		}
+
+		List<SessionSummary> sessions = new ArrayList<SessionSummary>();
+		if (result.getSessionlist() != null) {
+			for (Session session : result.getSessionlist()) {
+				sessions.add(summarize(session));
+			}
+			metrics.put(TraceMetric.SESSIONS, (double) sessions.size());
+		}
+
+		List<PacketInfo> packets = traceResult != null ? traceResult.getAllpackets() : null;
+		int count = packets != null ? packets.size() : 0;
+		double[] times = new double[count];
+		int[] lengths = new int[count];
+		byte[] directions = new byte[count];
+		for (int index = 0; index < count; index++) {
+			PacketInfo packet = packets.get(index);
+			times[index] = packet.getTimeStamp();
+			lengths[index] = packet.getLen();
+			directions[index] = packet.getDir() == PacketDirection.UPLINK ? TraceSnapshot.UPLINK
+					: packet.getDir() == PacketDirection.DOWNLINK ? TraceSnapshot.DOWNLINK : TraceSnapshot.OTHER;
+		}
+
+		List<Burst> bursts = result.getBurstcollectionAnalysisData() != null
+				? result.getBurstcollectionAnalysisData().getBurstCollection() : null;
+		int burstCount = bursts != null ? bursts.size() : 0;
+		double[] burstTimes = new double[burstCount];
+		double[] burstEnergies = new double[burstCount];
+		for (int index = 0; index < burstCount; index++) {
+			burstTimes[index] = bursts.get(index).getBeginTime();
+			burstEnergies[index] = bursts.get(index).getEnergy();
+		}
+
+		return new TraceSnapshot(trace, true, null, bestPractices, resultTexts, metrics, sessions, times, lengths,
+				directions, burstTimes, burstEnergies);
+	}
+
+	private SessionSummary summarize(Session session) {
+		int packets = 0;
+		long bytes = 0;
+		double start = Double.NaN;
+		double end = Double.NaN;
+		// TCP and UDP packets both
+		for (PacketInfo packet : session.getAllPackets()) {
+			packets++;
+			bytes += packet.getLen();
+			if (!(packet.getTimeStamp() >= start)) {
+				start = packet.getTimeStamp();
+			}
+			if (!(packet.getTimeStamp() <= end)) {
+				end = packet.getTimeStamp();
+			}
+		}
+		String remoteIP = session.getRemoteIP() != null ? session.getRemoteIP().getHostAddress() : null;
+		String host = session.getDomainName() != null && !session.getDomainName().isEmpty() ? session.getDomainName()
+				: remoteIP;
+		int requests = session.getRequestResponseInfo() != null ? session.getRequestResponseInfo().size() : 0;
+		return new SessionSummary(host, remoteIP, session.getRemotePort(), session.getLocalPort(), session.isUDP(),
+				packets > 0 ? start : 0, packets > 0 ? end : 0, packets, bytes, requests);
+	}
+}
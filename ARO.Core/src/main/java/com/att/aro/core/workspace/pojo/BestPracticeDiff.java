@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+import com.att.aro.core.bestpractice.pojo.BPResultType;
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+
+/**
+ * Result of one best practice in the baseline and in the candidate trace.
+ */
+public class BestPracticeDiff {
+
+	private final BestPracticeType type;
+	private final BPResultType baseline;
+	private final BPResultType candidate;
+
+	/**
+	 * @param type
+	 * @param baseline
+	 *            null if the best practice did not run on the baseline
+	 * @param candidate
+	 *            null if the best practice did not run on the candidate
+	 */
+	public BestPracticeDiff(BestPracticeType type, BPResultType baseline, BPResultType candidate) {
+		this.type = type;
+		this.baseline = baseline;
+		this.candidate = candidate;
+	}
+
+	public BestPracticeType getType() {
+		return type;
+	}
+
+	public BPResultType getBaseline() {
+		return baseline;
+	}
+
+	public BPResultType getCandidate() {
+		return candidate;
+	}
+
+	public boolean isChanged() {
+		return baseline != candidate;
+	}
+
+	/**
+	 * Returns true if the candidate does worse, PASS to WARNING or FAIL, or
+	 * WARNING to FAIL.
+	 */
+	public boolean isRegression() {
+		return rank(baseline) >= 0 && rank(candidate) > rank(baseline);
+	}
+
+	/**
+	 * Returns true if the candidate does better.
+	 */
+	public boolean isImprovement() {
+		return rank(candidate) >= 0 && rank(candidate) < rank(baseline);
+	}
+
+	/**
+	 * Returns 0 for PASS, 1 for WARNING, 2 for FAIL and -1 for the results
+	 * that do not rank, a missing one or SELF_TEST.
+	 */
+	private static int rank(BPResultType result) {
+		if (result == null) {
+			return -1;
+		}
+		switch (result) {
+		case PASS:
+			return 0;
+		case WARNING:
+			return 1;
+		case FAIL:
+			return 2;
+		default:
+			return -1;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return type + ": " + baseline + " -> " + candidate;
+	}
+}
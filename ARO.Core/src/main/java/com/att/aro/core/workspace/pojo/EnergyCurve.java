@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+/**
+ * Radio energy of a trace in consecutive windows of the same length, starting
+ * at the beginning of the trace.
+ */
+public class EnergyCurve {
+
+	private final double window;
+	private final double[] joules;
+
+	public EnergyCurve(double window, double[] joules) {
+		this.window = window;
+		this.joules = joules;
+	}
+
+	/**
+	 * Returns the length of a window in seconds.
+	 */
+	public double getWindow() {
+		return window;
+	}
+
+	public int size() {
+		return joules.length;
+	}
+
+	/**
+	 * Returns the end of the window, in seconds from the start of the trace,
+	 * like ThroughputCurve.getTime.
+	 */
+	public double getTime(int index) {
+		return (index + 1) * window;
+	}
+
+	public double getJoules(int index) {
+		return joules[index];
+	}
+
+	/**
+	 * Returns the energy of all windows together.
+	 */
+	public double getTotalJoules() {
+		double total = 0;
+		for (double value : joules) {
+			total += value;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the highest energy of a single window.
+	 */
+	public double getPeakJoules() {
+		double peak = 0;
+		for (double value : joules) {
+			peak = Math.max(peak, value);
+		}
+		return peak;
+	}
+
+	/**
+	 * Returns this curve minus the other, window by window. A window only one
+	 * of the curves has counts as zero in the other one.
+	 *
+	 * @param other
+	 *            curve with the same window length
+	 * @return difference, as long as the longer curve
+	 */
+	public EnergyCurve minus(EnergyCurve other) {
+		if (Double.compare(window, other.window) != 0) {
+			throw new IllegalArgumentException("windows differ, " + window + " and " + other.window);
+		}
+		double[] delta = new double[Math.max(size(), other.size())];
+		for (int index = 0; index < delta.length; index++) {
+			delta[index] = valueAt(joules, index) - valueAt(other.joules, index);
+		}
+		return new EnergyCurve(window, delta);
+	}
+
+	private static double valueAt(double[] values, int index) {
+		return index < values.length ? values[index] : 0;
+	}
+}
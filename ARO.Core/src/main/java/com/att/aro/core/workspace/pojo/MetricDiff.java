@@ -0,0 +1,63 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+/**
+ * Value of one metric in the baseline and in the candidate trace.
+ */
+public class MetricDiff {
+
+	private final TraceMetric metric;
+	private final double baseline;
+	private final double candidate;
+
+	public MetricDiff(TraceMetric metric, double baseline, double candidate) {
+		this.metric = metric;
+		this.baseline = baseline;
+		this.candidate = candidate;
+	}
+
+	public TraceMetric getMetric() {
+		return metric;
+	}
+
+	public double getBaseline() {
+		return baseline;
+	}
+
+	public double getCandidate() {
+		return candidate;
+	}
+
+	/**
+	 * Returns candidate minus baseline.
+	 */
+	public double getDelta() {
+		return candidate - baseline;
+	}
+
+	/**
+	 * Returns the change in percent of the baseline, NaN if the baseline is 0.
+	 */
+	public double getPercentChange() {
+		return baseline == 0 ? Double.NaN : getDelta() * 100 / Math.abs(baseline);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %.3f -> %.3f (%+.1f%%)", metric, baseline, candidate, getPercentChange());
+	}
+}
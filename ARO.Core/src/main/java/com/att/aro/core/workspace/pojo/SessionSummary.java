@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+/**
+ * What a workspace keeps of a session, a few numbers instead of its packets
+ * and storage.
+ */
+public class SessionSummary {
+
+	private final String remoteHost;
+	private final String remoteIP;
+	private final int remotePort;
+	private final int localPort;
+	private final boolean udp;
+	private final double startTime;
+	private final double endTime;
+	private final int packets;
+	private final long bytes;
+	private final int requests;
+
+	public SessionSummary(String remoteHost, String remoteIP, int remotePort, int localPort, boolean udp,
+			double startTime, double endTime, int packets, long bytes, int requests) {
+		this.remoteHost = remoteHost;
+		this.remoteIP = remoteIP;
+		this.remotePort = remotePort;
+		this.localPort = localPort;
+		this.udp = udp;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.packets = packets;
+		this.bytes = bytes;
+		this.requests = requests;
+	}
+
+	/**
+	 * Returns the domain name, or the remote IP address if there is none.
+	 */
+	public String getRemoteHost() {
+		return remoteHost;
+	}
+
+	public String getRemoteIP() {
+		return remoteIP;
+	}
+
+	public int getRemotePort() {
+		return remotePort;
+	}
+
+	public int getLocalPort() {
+		return localPort;
+	}
+
+	public boolean isUdp() {
+		return udp;
+	}
+
+	public double getStartTime() {
+		return startTime;
+	}
+
+	public double getEndTime() {
+		return endTime;
+	}
+
+	public int getPackets() {
+		return packets;
+	}
+
+	/**
+	 * Returns the bytes of all packets of the session, both directions.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of HTTP requests and responses.
+	 */
+	public int getRequests() {
+		return requests;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+/**
+ * Throughput of a trace in consecutive windows of the same length, starting
+ * at the beginning of the trace.
+ */
+public class ThroughputCurve {
+
+	private final double window;
+	private final double[] uploadKbps;
+	private final double[] downloadKbps;
+
+	public ThroughputCurve(double window, double[] uploadKbps, double[] downloadKbps) {
+		if (uploadKbps.length != downloadKbps.length) {
+			throw new IllegalArgumentException("upload and download need the same number of windows");
+		}
+		this.window = window;
+		this.uploadKbps = uploadKbps;
+		this.downloadKbps = downloadKbps;
+	}
+
+	/**
+	 * Returns the length of a window in seconds.
+	 */
+	public double getWindow() {
+		return window;
+	}
+
+	public int size() {
+		return uploadKbps.length;
+	}
+
+	/**
+	 * Returns the end of the window, in seconds from the start of the trace,
+	 * like Throughput.getTime.
+	 */
+	public double getTime(int index) {
+		return (index + 1) * window;
+	}
+
+	public double getUploadKbps(int index) {
+		return uploadKbps[index];
+	}
+
+	public double getDownloadKbps(int index) {
+		return downloadKbps[index];
+	}
+
+	public double getKbps(int index) {
+		return uploadKbps[index] + downloadKbps[index];
+	}
+
+	/**
+	 * Returns the highest throughput of all windows, upload and download
+	 * together.
+	 */
+	public double getPeakKbps() {
+		double peak = 0;
+		for (int index = 0; index < size(); index++) {
+			peak = Math.max(peak, getKbps(index));
+		}
+		return peak;
+	}
+
+	/**
+	 * Returns this curve minus the other, window by window. A window only one
+	 * of the curves has counts as zero in the other one.
+	 * 
+	 * @param other
+	 *            curve with the same window length
+	 * @return difference, as long as the longer curve
+	 */
+	public ThroughputCurve minus(ThroughputCurve other) {
+		if (Double.compare(window, other.window) != 0) {
+			throw new IllegalArgumentException("windows differ, " + window + " and " + other.window);
+		}
+		int length = Math.max(size(), other.size());
+		double[] upload = new double[length];
+		double[] download = new double[length];
+		for (int index = 0; index < length; index++) {
+			upload[index] = valueAt(uploadKbps, index) - valueAt(other.uploadKbps, index);
+			download[index] = valueAt(downloadKbps, index) - valueAt(other.downloadKbps, index);
+		}
+		return new ThroughputCurve(window, upload, download);
+	}
+
+	private static double valueAt(double[] values, int index) {
+		return index < values.length ? values[index] : 0;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.jackson.annotate.JsonIgnore;
+
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+
+/**
+ * Differences between a baseline trace and a candidate trace, typically the
+ * same test run on two builds of an app.
+ */
+public class TraceComparison {
+
+	private final TraceSnapshot baseline;
+	private final TraceSnapshot candidate;
+	private final List<BestPracticeDiff> bestPracticeDiffs;
+	private final List<MetricDiff> metricDiffs;
+
+	public TraceComparison(TraceSnapshot baseline, TraceSnapshot candidate) {
+		this.baseline = baseline;
+		this.candidate = candidate;
+
+		Set<BestPracticeType> types = EnumSet.noneOf(BestPracticeType.class);
+		types.addAll(baseline.getBestPractices().keySet());
+		types.addAll(candidate.getBestPractices().keySet());
+		List<BestPracticeDiff> practices = new ArrayList<BestPracticeDiff>(types.size());
+		for (BestPracticeType type : types) {
+			practices.add(new BestPracticeDiff(type, baseline.getBestPractices().get(type),
+					candidate.getBestPractices().get(type)));
+		}
+		this.bestPracticeDiffs = Collections.unmodifiableList(practices);
+
+		List<MetricDiff> metrics = new ArrayList<MetricDiff>();
+		for (TraceMetric metric : TraceMetric.values()) {
+			if (baseline.getMetrics().containsKey(metric) || candidate.getMetrics().containsKey(metric)) {
+				metrics.add(new MetricDiff(metric, baseline.getMetric(metric), candidate.getMetric(metric)));
+			}
+		}
+		this.metricDiffs = Collections.unmodifiableList(metrics);
+	}
+
+	public String getBaselineTrace() {
+		return baseline.getTrace();
+	}
+
+	public String getCandidateTrace() {
+		return candidate.getTrace();
+	}
+
+	@JsonIgnore
+	public TraceSnapshot getBaseline() {
+		return baseline;
+	}
+
+	@JsonIgnore
+	public TraceSnapshot getCandidate() {
+		return candidate;
+	}
+
+	/**
+	 * Returns every best practice that ran on either trace, in
+	 * BestPracticeType order.
+	 */
+	public List<BestPracticeDiff> getBestPracticeDiffs() {
+		return bestPracticeDiffs;
+	}
+
+	/**
+	 * Returns the best practices the candidate does worse on.
+	 */
+	public List<BestPracticeDiff> getRegressions() {
+		List<BestPracticeDiff> regressions = new ArrayList<BestPracticeDiff>();
+		for (BestPracticeDiff diff : bestPracticeDiffs) {
+			if (diff.isRegression()) {
+				regressions.add(diff);
+			}
+		}
+		return regressions;
+	}
+
+	/**
+	 * Returns the statistics and energy figures either trace has, in
+	 * TraceMetric order.
+	 */
+	public List<MetricDiff> getMetricDiffs() {
+		return metricDiffs;
+	}
+
+	/**
+	 * Returns the diff of one metric, null if neither trace has it.
+	 */
+	public MetricDiff getMetricDiff(TraceMetric metric) {
+		for (MetricDiff diff : metricDiffs) {
+			if (diff.getMetric() == metric) {
+				return diff;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the candidate throughput minus the baseline throughput, both
+	 * taken from the start of their trace.
+	 * 
+	 * @param window
+	 *            seconds per window
+	 * @return ThroughputCurve, negative where the candidate moved less data
+	 */
+	public ThroughputCurve getThroughputDelta(double window) {
+		return candidate.getThroughput(window).minus(baseline.getThroughput(window));
+	}
+
+	/**
+	 * Returns the candidate radio energy minus the baseline radio energy, both
+	 * taken from the start of their trace.
+	 * 
+	 * @param window
+	 *            seconds per window
+	 * @return EnergyCurve, negative where the candidate used less energy
+	 */
+	public EnergyCurve getEnergyDelta(double window) {
+		return candidate.getEnergy(window).minus(baseline.getEnergy(window));
+	}
+}
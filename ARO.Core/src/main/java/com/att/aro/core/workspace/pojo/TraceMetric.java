@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+/**
+ * Statistics and energy figures kept for every trace of a workspace.
+ */
+public enum TraceMetric {
+	/** seconds */
+	TRACE_DURATION,
+	/** seconds from the first to the last packet */
+	PACKET_DURATION,
+	PACKETS,
+	SESSIONS,
+	TOTAL_BYTES,
+	HTTPS_BYTES,
+	AVERAGE_KBPS,
+	/** joules */
+	RRC_ENERGY,
+	JOULES_PER_KILOBYTE,
+	/** joules */
+	GPS_ENERGY,
+	/** joules */
+	CAMERA_ENERGY,
+	/** joules */
+	BLUETOOTH_ENERGY,
+	/** joules */
+	SCREEN_ENERGY,
+	/** joules, radio and peripherals */
+	TOTAL_ENERGY
+}
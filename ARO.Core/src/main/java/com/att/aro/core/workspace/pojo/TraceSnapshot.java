@@ -0,0 +1,258 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.pojo;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.annotate.JsonIgnore;
+
+import com.att.aro.core.bestpractice.pojo.BPResultType;
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.pojo.ErrorCode;
+
+/**
+ * What a workspace keeps of an analyzed trace. The packets are down to a time,
+ * a length and a direction each, held in plain arrays, and the sessions to a
+ * SessionSummary, so a snapshot takes a small part of the heap of the
+ * AROTraceData it was made from.
+ */
+public class TraceSnapshot {
+
+	public static final byte UPLINK = 1;
+	public static final byte DOWNLINK = 2;
+	public static final byte OTHER = 0;
+
+	private final String trace;
+	private final boolean success;
+	private final ErrorCode error;
+	private final Map<BestPracticeType, BPResultType> bestPractices;
+	private final Map<BestPracticeType, String> resultTexts;
+	private final Map<TraceMetric, Double> metrics;
+	private final List<SessionSummary> sessions;
+
+	// one entry per packet, in time order
+	private final double[] packetTimes;
+	private final int[] packetLengths;
+	private final byte[] packetDirections;
+
+	// one entry per burst, in time order
+	private final double[] burstTimes;
+	private final double[] burstEnergies;
+
+	/**
+	 * Snapshot of a trace that could not be analyzed.
+	 */
+	public TraceSnapshot(String trace, ErrorCode error) {
+		this(trace, false, error, new EnumMap<BestPracticeType, BPResultType>(BestPracticeType.class),
+				new EnumMap<BestPracticeType, String>(BestPracticeType.class),
+				new EnumMap<TraceMetric, Double>(TraceMetric.class), Collections.<SessionSummary>emptyList(),
+				new double[0], new int[0], new byte[0], new double[0], new double[0]);
+	}
+
+	public TraceSnapshot(String trace, boolean success, ErrorCode error,
+			Map<BestPracticeType, BPResultType> bestPractices, Map<BestPracticeType, String> resultTexts,
+			Map<TraceMetric, Double> metrics, List<SessionSummary> sessions, double[] packetTimes,
+			int[] packetLengths, byte[] packetDirections, double[] burstTimes, double[] burstEnergies) {
+		if (packetTimes.length != packetLengths.length || packetTimes.length != packetDirections.length) {
+			throw new IllegalArgumentException("packet arrays differ in length");
+		}
+		if (burstTimes.length != burstEnergies.length) {
+			throw new IllegalArgumentException("burst arrays differ in length");
+		}
+		this.trace = trace;
+		this.success = success;
+		this.error = error;
+		this.bestPractices = Collections.unmodifiableMap(bestPractices);
+		this.resultTexts = Collections.unmodifiableMap(resultTexts);
+		this.metrics = Collections.unmodifiableMap(metrics);
+		this.sessions = Collections.unmodifiableList(sessions);
+		this.packetTimes = packetTimes;
+		this.packetLengths = packetLengths;
+		this.packetDirections = packetDirections;
+		this.burstTimes = burstTimes;
+		this.burstEnergies = burstEnergies;
+	}
+
+	/**
+	 * Returns the trace directory or file.
+	 */
+	public String getTrace() {
+		return trace;
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+
+	public ErrorCode getError() {
+		return error;
+	}
+
+	/**
+	 * Returns the result of every best practice that ran.
+	 */
+	public Map<BestPracticeType, BPResultType> getBestPractices() {
+		return bestPractices;
+	}
+
+	/**
+	 * Returns the result text of a best practice, null if it did not run.
+	 */
+	public String getResultText(BestPracticeType type) {
+		return resultTexts.get(type);
+	}
+
+	public Map<TraceMetric, Double> getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns the value of the metric, NaN if the analysis had none.
+	 */
+	public double getMetric(TraceMetric metric) {
+		Double value = metrics.get(metric);
+		return value != null ? value : Double.NaN;
+	}
+
+	@JsonIgnore
+	public List<SessionSummary> getSessions() {
+		return sessions;
+	}
+
+	public int getPacketCount() {
+		return packetTimes.length;
+	}
+
+	/**
+	 * Returns the time of the packet in seconds from the start of the trace.
+	 */
+	public double getPacketTime(int index) {
+		return packetTimes[index];
+	}
+
+	public int getPacketLength(int index) {
+		return packetLengths[index];
+	}
+
+	/**
+	 * Returns UPLINK, DOWNLINK or OTHER.
+	 */
+	public byte getPacketDirection(int index) {
+		return packetDirections[index];
+	}
+
+	/**
+	 * Returns the throughput of the trace in windows of the given length,
+	 * from the start of the trace to its end or its last packet, whichever
+	 * is later. A packet counts in the window its time falls in and every
+	 * window, the last one included, is divided by the full window length.
+	 * 
+	 * @param window
+	 *            seconds, more than 0
+	 * @return ThroughputCurve
+	 */
+	public ThroughputCurve getThroughput(double window) {
+		int windows = windowCount(window);
+		long[] upload = new long[windows];
+		long[] download = new long[windows];
+		for (int index = 0; index < packetTimes.length; index++) {
+			int bin = (int) (Math.max(0, packetTimes[index]) / window);
+			if (packetDirections[index] == UPLINK) {
+				upload[bin] += packetLengths[index];
+			} else if (packetDirections[index] == DOWNLINK) {
+				download[bin] += packetLengths[index];
+			}
+		}
+		double[] uploadKbps = new double[windows];
+		double[] downloadKbps = new double[windows];
+		for (int bin = 0; bin < windows; bin++) {
+			uploadKbps[bin] = upload[bin] * 8 / 1000.0 / window;
+			downloadKbps[bin] = download[bin] * 8 / 1000.0 / window;
+		}
+		return new ThroughputCurve(window, uploadKbps, downloadKbps);
+	}
+
+	/**
+	 * Returns the radio energy of the trace in windows of the given length,
+	 * over the same windows as getThroughput. Each burst is charged from its
+	 * start until the next burst starts, the first one from the start of the
+	 * trace and the last one until its end, as the burst analysis does, and
+	 * its energy is spread evenly over that time.
+	 * 
+	 * @param window
+	 *            seconds, more than 0
+	 * @return EnergyCurve, empty windows only when the analysis had no bursts
+	 */
+	public EnergyCurve getEnergy(double window) {
+		int windows = windowCount(window);
+		double end = windows * window;
+		double[] joules = new double[windows];
+		if (windows == 0) {
+			return new EnergyCurve(window, joules);
+		}
+		for (int index = 0; index < burstTimes.length; index++) {
+			double from = index == 0 ? 0 : Math.max(0, burstTimes[index]);
+			double to = index + 1 < burstTimes.length ? burstTimes[index + 1] : end;
+			int first = Math.min((int) (from / window), windows - 1);
+			if (!(to > from)) {
+				joules[first] += burstEnergies[index];
+				continue;
+			}
+			int last = Math.min((int) Math.ceil(to / window), windows);
+			for (int bin = first; bin < last; bin++) {
+				double overlap = Math.min(to, (bin + 1) * window) - Math.max(from, bin * window);
+				joules[bin] += burstEnergies[index] * overlap / (to - from);
+			}
+		}
+		return new EnergyCurve(window, joules);
+	}
+
+	/**
+	 * Number of windows from the start of the trace to its end or its last
+	 * packet, whichever is later.
+	 */
+	private int windowCount(double window) {
+		if (!(window > 0)) {
+			throw new IllegalArgumentException("window must be more than 0, was " + window);
+		}
+		double end = getMetric(TraceMetric.TRACE_DURATION);
+		if (Double.isNaN(end)) {
+			end = 0;
+		}
+		if (packetTimes.length > 0) {
+			end = Math.max(end, packetTimes[packetTimes.length - 1]);
+		}
+		int windows = (int) Math.ceil(end / window);
+		if (packetTimes.length > 0 && (int) (packetTimes[packetTimes.length - 1] / window) >= windows) {
+			// the last packet sits right on the end
+			windows++;
+		}
+		return windows;
+	}
+
+	/**
+	 * Returns a rough size of the snapshot on the heap in bytes, the packet
+	 * and burst arrays and the sessions.
+	 */
+	@JsonIgnore
+	public long getEstimatedSize() {
+		// 8 + 4 + 1 bytes per packet, 16 per burst, about 100 per session summary
+		return packetTimes.length * 13L + burstTimes.length * 16L + sessions.size() * 100L;
+	}
+}
@@ -50,6 +50,7 @@ import com.att.aro.core.fileio.IFileManager;
 import com.att.aro.core.mobiledevice.pojo.AroDevices;
 import com.att.aro.core.mobiledevice.pojo.IAroDevice;
 import com.att.aro.core.mobiledevice.pojo.IAroDevices;
+import com.att.aro.core.packetanalysis.ITraceMemoryReporter;
 import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
 import com.att.aro.core.packetanalysis.pojo.ApplicationSelection;
 import com.att.aro.core.packetanalysis.pojo.IPAddressSelection;
@@ -58,8 +59,14 @@ import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetanalysis.pojo.TimeRange;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.core.pojo.ErrorCodeRegistry;
+import com.att.aro.core.report.IDataDump;
+import com.att.aro.core.report.IDataDumpListener;
 import com.att.aro.core.util.Util;
 import com.att.aro.core.video.pojo.VideoOption;
+import com.att.aro.core.workspace.ITraceWorkspace;
+import com.att.aro.core.workspace.ITraceWorkspaceListener;
+import com.att.aro.core.workspace.pojo.TraceComparison;
+import com.att.aro.core.workspace.pojo.TraceSnapshot;
 
 public class AROController implements PropertyChangeListener, ActionListener {
 
@@ -142,6 +149,9 @@ public class AROController implements PropertyChangeListener, ActionListener {
 				} else {
 					results = serv.analyzeDirectory(getBestPractice(), trace, profile, filter);
 				}
+				if (results.isSuccess() && results.getAnalyzerResult() != null) {
+					log.info(trace + " " + context.getBean(ITraceMemoryReporter.class).report(results.getAnalyzerResult()));
+				}
 			} catch(OutOfMemoryError err) {
 				log.error(err.getMessage(), err);
 				results.setSuccess(false);
@@ -156,6 +166,55 @@ public class AROController implements PropertyChangeListener, ActionListener {
 		return results;
 	}
 
+	/**
+	 * Analyzes many traces with the same best practices as runAnalyzer and
+	 * streams the results into one JSON file.
+	 * 
+	 * @param traces The FQPN of the directories or pcap files to analyze
+	 * @param profile The Profile to use for every trace - LTE if null
+	 * @param output The JSON file to write
+	 * @param listener Told about every trace as it is done, may be null
+	 * @return the number of traces written
+	 * @see IDataDump#dump(List, List, Profile, File, IDataDumpListener)
+	 */
+	public int runDataDump(List<String> traces, Profile profile, File output, IDataDumpListener listener)
+			throws IOException, InterruptedException {
+		return context.getBean(IDataDump.class).dump(getBestPractice(), traces, profile, output, listener);
+	}
+
+	/**
+	 * Returns the workspace holding every trace analyzed through this
+	 * controller, next to the one in the model.
+	 */
+	public ITraceWorkspace getTraceWorkspace() {
+		return context.getBean(ITraceWorkspace.class);
+	}
+
+	/**
+	 * Analyzes traces with the same best practices as runAnalyzer and adds
+	 * them to the workspace, the model is left as it is.
+	 * 
+	 * @param traces The FQPN of the directories or pcap files to analyze
+	 * @param profile The Profile to use for every trace - LTE if null
+	 * @param listener Told about every trace as it is done, may be null
+	 * @return snapshots in the order the analyses completed
+	 * @see ITraceWorkspace#load(List, List, Profile, ITraceWorkspaceListener)
+	 */
+	public List<TraceSnapshot> loadTraces(List<String> traces, Profile profile, ITraceWorkspaceListener listener)
+			throws InterruptedException {
+		return getTraceWorkspace().load(getBestPractice(), traces, profile, listener);
+	}
+
+	/**
+	 * Compares two traces of the workspace, each named by the path it was
+	 * analyzed from.
+	 * 
+	 * @see ITraceWorkspace#compare(String, String)
+	 */
+	public TraceComparison compareTraces(String baseline, String candidate) {
+		return getTraceWorkspace().compare(baseline, candidate);
+	}
+
 	/**
 	 * Not to be directly called.  Triggers a re-analysis if a property change is detected.
 	 */
@@ -266,6 +325,9 @@ public class AROController implements PropertyChangeListener, ActionListener {
 				if (filter == null && theModel.isSuccess()) { //when the first loading traces, set the filter				
 					initializeFilter();
 				}
+				if (theModel.isSuccess()) { // keep it for comparing once another trace is opened
+					getTraceWorkspace().add(path, theModel);
+				}
 				theView.refresh();
 			}
 		} catch(Exception ex){
@@ -17,6 +17,7 @@ import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -83,6 +84,7 @@ public class AsyncCheckInScriptImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		asyncCheckScriptImpl.setHttpRequestResponseHelper(reqhelper);
 		AbstractBestPracticeResult testResult = asyncCheckScriptImpl.runTest(tracedata);
 		assertEquals(BPResultType.FAIL, testResult.getResultType());
@@ -117,6 +119,7 @@ public class AsyncCheckInScriptImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		asyncCheckScriptImpl.setHttpRequestResponseHelper(reqhelper);
 		AbstractBestPracticeResult testResult = asyncCheckScriptImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS, testResult.getResultType());
@@ -144,6 +147,7 @@ public class AsyncCheckInScriptImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 
 		asyncCheckScriptImpl.setHttpRequestResponseHelper(reqhelper);
 		try {
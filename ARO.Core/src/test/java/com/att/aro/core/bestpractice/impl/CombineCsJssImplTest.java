@@ -16,6 +16,7 @@ import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -66,6 +67,7 @@ public class CombineCsJssImplTest extends BaseTest{
 		sessionList.add(session02);
 
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		csjsImpl = (CombineCsJssImpl) context.getBean("combineCsJss");	
 		AbstractBestPracticeResult result = csjsImpl.runTest(tracedata);
 		assertEquals(BPResultType.FAIL,result.getResultType() );
@@ -99,6 +101,7 @@ public class CombineCsJssImplTest extends BaseTest{
 		sessionList.add(session02);
 
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		csjsImpl = (CombineCsJssImpl) context.getBean("combineCsJss");	
 		AbstractBestPracticeResult result = csjsImpl.runTest(tracedata);
 		assertEquals(BPResultType.FAIL,result.getResultType() );
@@ -125,6 +128,7 @@ public class CombineCsJssImplTest extends BaseTest{
 		sessionList.add(session02);
 
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		csjsImpl = (CombineCsJssImpl) context.getBean("combineCsJss");	
 		AbstractBestPracticeResult result = csjsImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS,result.getResultType() );
@@ -18,6 +18,7 @@ import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -126,6 +127,7 @@ public class DisplayNoneInCSSImplTest extends BaseTest{
 		sessionList.add(session01);
 		
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		
 		AbstractBestPracticeResult testResult = displayNoneInCSSImpl.runTest(tracedata);
 		assertEquals(BPResultType.FAIL,testResult.getResultType() );
@@ -155,6 +157,7 @@ public class DisplayNoneInCSSImplTest extends BaseTest{
 		sessionList.add(session03);
 		
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		
 		AbstractBestPracticeResult testResult = displayNoneInCSSImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS,testResult.getResultType() );
@@ -17,6 +17,7 @@ import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -84,6 +85,7 @@ public class EmptyUrlImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		emptyUrlImpl.setHttpReqResHelper(reqhelper);
 		AbstractBestPracticeResult testResult = emptyUrlImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS, testResult.getResultType());
@@ -124,6 +126,7 @@ public class EmptyUrlImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		emptyUrlImpl.setHttpReqResHelper(reqhelper);
 
 		AbstractBestPracticeResult testResult = emptyUrlImpl.runTest(tracedata);
@@ -163,6 +166,7 @@ public class EmptyUrlImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		emptyUrlImpl.setHttpReqResHelper(reqhelper);
 		AbstractBestPracticeResult testResult = emptyUrlImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS, testResult.getResultType());
@@ -16,6 +16,7 @@ import com.att.aro.core.packetanalysis.pojo.Burst;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetreader.pojo.Packet;
 import com.att.aro.core.packetreader.pojo.PacketDirection;
@@ -64,6 +65,7 @@ public class FileCompressionImplTest extends BaseTest{
 		Mockito.when(req.getContentEncoding()).thenReturn("identity");
 		
 		FileCompressionImpl = (FileCompressionImpl)context.getBean("textFileCompression");
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionlist));
 		AbstractBestPracticeResult result = FileCompressionImpl.runTest(tracedata);
 
 		result = FileCompressionImpl.runTest(tracedata);
@@ -111,6 +113,7 @@ public class FileCompressionImplTest extends BaseTest{
 		Mockito.when(req.getContentEncoding()).thenReturn("identity");
 				
 		FileCompressionImpl = (FileCompressionImpl)context.getBean("textFileCompression");
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionlist));
 		AbstractBestPracticeResult result = FileCompressionImpl.runTest(tracedata);
 
 		assertEquals("Sending compressed files over the network will speed delivery, and unzipping files on a device is a very low overhead operation. Ensure that all your text files are compressed while being sent over the network.",result.getAboutText());
@@ -157,6 +160,7 @@ public class FileCompressionImplTest extends BaseTest{
 		
 		
 		FileCompressionImpl = (FileCompressionImpl)context.getBean("textFileCompression");
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionlist));
 		AbstractBestPracticeResult result = FileCompressionImpl.runTest(tracedata);
 
 		assertEquals("Sending compressed files over the network will speed delivery, and unzipping files on a device is a very low overhead operation. Ensure that all your text files are compressed while being sent over the network.",result.getAboutText());
@@ -19,6 +19,7 @@ import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -96,6 +97,7 @@ public class FileOrderImplTest extends BaseTest {
 		sessionList.add(session01);
 
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 
 		AbstractBestPracticeResult testResult = fileOrderImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS, testResult.getResultType());
@@ -151,6 +153,7 @@ public class FileOrderImplTest extends BaseTest {
 		sessionList.add(session01);
 
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 
 		AbstractBestPracticeResult testResult = fileOrderImpl.runTest(tracedata);
 		assertEquals(BPResultType.FAIL, testResult.getResultType());
@@ -17,6 +17,7 @@ import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -101,6 +102,7 @@ public class FlashImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 
 		try {
 			Mockito.when(reqhelper.getContentString(any(HttpRequestResponseInfo.class), any(Session.class)))
@@ -150,6 +152,7 @@ public class FlashImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 
 		try {
 			Mockito.when(reqhelper.getContentString(any(HttpRequestResponseInfo.class), any(Session.class)))
@@ -14,6 +14,7 @@ import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
 import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
 public class Http10UsageImplTest extends BaseTest {
@@ -46,6 +47,7 @@ public class Http10UsageImplTest extends BaseTest {
 		sessionList.add(session01);
 
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		httpUsageImpl = (Http10UsageImpl) context.getBean("http10Usage");
 
 		AbstractBestPracticeResult result = httpUsageImpl.runTest(tracedata);
@@ -65,6 +67,7 @@ public class Http10UsageImplTest extends BaseTest {
 		sessionList.add(session01);
 
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		httpUsageImpl = (Http10UsageImpl) context.getBean("http10Usage");
 
 		AbstractBestPracticeResult result = httpUsageImpl.runTest(tracedata);
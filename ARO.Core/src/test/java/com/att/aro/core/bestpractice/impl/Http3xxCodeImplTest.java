@@ -15,6 +15,7 @@ import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
 public class Http3xxCodeImplTest extends BaseTest {
@@ -55,6 +56,7 @@ public class Http3xxCodeImplTest extends BaseTest {
 		List<Session> sessionList = new ArrayList<Session>();
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		http3xxCodeImpl = (Http3xxCodeImpl) context.getBean("http3xx");
 		AbstractBestPracticeResult result = http3xxCodeImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS, result.getResultType());
@@ -91,6 +93,7 @@ public class Http3xxCodeImplTest extends BaseTest {
 		List<Session> sessionList = new ArrayList<Session>();
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		http3xxCodeImpl = (Http3xxCodeImpl) context.getBean("http3xx");
 		AbstractBestPracticeResult result = http3xxCodeImpl.runTest(tracedata);
 		assertEquals(BPResultType.FAIL, result.getResultType());
@@ -15,6 +15,7 @@ import com.att.aro.core.bestpractice.pojo.BPResultType;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
 public class Http4xx5xxImplTest extends BaseTest{
@@ -59,6 +60,7 @@ public class Http4xx5xxImplTest extends BaseTest{
 		List<Session> sessionList = new ArrayList<Session>();
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		http4xx5xxImpl = (Http4xx5xxImpl) context.getBean("http4xx5xx");	
 		AbstractBestPracticeResult result = http4xx5xxImpl.runTest(tracedata);
 		assertEquals(BPResultType.PASS,result.getResultType() );
@@ -96,6 +98,7 @@ public class Http4xx5xxImplTest extends BaseTest{
 		List<Session> sessionList = new ArrayList<Session>();
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		http4xx5xxImpl = (Http4xx5xxImpl) context.getBean("http4xx5xx");	
 		AbstractBestPracticeResult result = http4xx5xxImpl.runTest(tracedata);
 		assertEquals(BPResultType.FAIL,result.getResultType() );
@@ -0,0 +1,67 @@
+package com.att.aro.core.bestpractice.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PeriodicityDetectorTest {
+
+	PeriodicityDetector detector = new PeriodicityDetector(10.0, 1.0, 3);
+
+	@Test
+	public void isPeriodic_heartbeat() {
+		assertTrue(detector.isPeriodic(new double[] { 90.2, 0.0, 30.1, 60.0, 120.3 }));
+	}
+
+	@Test
+	public void isPeriodic_needsMinimumSamples() {
+		assertFalse(detector.isPeriodic(new double[] { 0.0, 30.0, 60.0 }));
+		assertTrue(detector.isPeriodic(new double[] { 0.0, 30.0, 60.0, 90.0 }));
+	}
+
+	@Test
+	public void isPeriodic_ignoresShortCycles() {
+		assertFalse(detector.isPeriodic(new double[] { 0.0, 5.0, 10.0 - 0.1, 15.0, 20.0 - 0.1 }));
+		assertFalse(new PeriodicityDetector(10.0, 0.0, 3).isPeriodic(new double[] { 0.0, 30.0, 60.0, 90.0 }));
+	}
+
+	@Test
+	public void isPeriodic_jitterBeyondTolerance() {
+		assertFalse(detector.isPeriodic(new double[] { 0.0, 30.0, 61.5, 90.0, 121.5 }));
+	}
+
+	@Test
+	public void isPeriodic_doesNotSortCallerArray() {
+		double[] timeline = { 60.0, 0.0, 30.0, 90.0 };
+		detector.isPeriodic(timeline);
+		assertEquals(60.0, timeline[0], 0.0);
+	}
+
+	@Test
+	public void isPeriodic_manyRequests() {
+		// random traffic with one heartbeat, far above the exact pair limit
+		Random random = new Random(3);
+		double[] timeline = new double[2000];
+		for (int idx = 0; idx < timeline.length; idx++) {
+			timeline[idx] = idx % 500 == 0 ? idx / 500 * 45.0 + 0.1 * random.nextDouble() : 7.0 * random.nextDouble();
+		}
+		assertTrue(detector.isPeriodic(timeline));
+
+		for (int idx = 0; idx < timeline.length; idx++) {
+			timeline[idx] = 7.0 * random.nextDouble();
+		}
+		assertFalse(detector.isPeriodic(timeline));
+	}
+
+	@Test
+	public void longestChain() {
+		double[] times = { 0.0, 10.0, 20.0, 25.0, 30.0, 45.0 };
+		assertEquals(3, detector.longestChain(times, 9.5));
+		assertEquals(1, detector.longestChain(times, 14.5));
+		assertEquals(0, detector.longestChain(times, 50.0));
+	}
+}
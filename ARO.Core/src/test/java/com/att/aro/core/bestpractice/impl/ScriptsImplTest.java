@@ -17,6 +17,7 @@ import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 
@@ -78,6 +79,7 @@ public class ScriptsImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		scriptImpl.setHttpRequestResponseHelper(reqhelper);
 
 		AbstractBestPracticeResult testResult = scriptImpl.runTest(tracedata);
@@ -121,6 +123,7 @@ public class ScriptsImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		scriptImpl.setHttpRequestResponseHelper(reqhelper);
 		AbstractBestPracticeResult testResult = scriptImpl.runTest(tracedata);
 		scriptImpl.setHttpRequestResponseHelper(null);
@@ -160,6 +163,7 @@ public class ScriptsImplTest extends BaseTest {
 		Mockito.when(session01.getDomainName()).thenReturn("www.google.com");
 		sessionList.add(session01);
 		Mockito.when(tracedata.getSessionlist()).thenReturn(sessionList);
+		Mockito.when(tracedata.getRequestResponseIndex()).thenReturn(new RequestResponseIndex(sessionList));
 		scriptImpl.setHttpRequestResponseHelper(reqhelper);
 		AbstractBestPracticeResult testResult = scriptImpl.runTest(tracedata);
 		scriptImpl.setHttpRequestResponseHelper(null);
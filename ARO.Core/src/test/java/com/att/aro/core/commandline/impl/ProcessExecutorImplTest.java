@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.commandline.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.commandline.IProcessExecutor;
+import com.att.aro.core.commandline.pojo.ProcessExecutorStats;
+import com.att.aro.core.commandline.pojo.ProcessResult;
+
+public class ProcessExecutorImplTest extends BaseTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	IProcessExecutor executor;
+
+	@Before
+	public void setUp() {
+		executor = context.getBean(IProcessExecutor.class);
+		executor.clearCache();
+		executor.resetStats();
+	}
+
+	@After
+	public void tearDown() {
+		executor.clearCache();
+	}
+
+	@Test
+	public void execute_passesArgumentsWithoutShell() {
+		ProcessResult result = executor.execute(Arrays.asList("echo", "a;b $HOME"), 10000);
+		assertTrue(result.isSuccess());
+		assertEquals("a;b $HOME\n", result.getOutputString());
+	}
+
+	@Test
+	public void execute_keepsStderrApart() {
+		ProcessResult result = executor.execute(Arrays.asList("sh", "-c", "echo out; echo err 1>&2; exit 3"), 10000);
+		assertEquals(3, result.getExitCode());
+		assertEquals("out\n", result.getOutputString());
+		assertEquals("err\n", result.getErrorOutput());
+		assertFalse(result.isSuccess());
+	}
+
+	@Test
+	public void execute_killsAfterTimeout() {
+		long start = System.currentTimeMillis();
+		ProcessResult result = executor.execute(Arrays.asList("sleep", "30"), 200);
+		assertTrue(result.isTimedOut());
+		assertTrue(System.currentTimeMillis() - start < 10000);
+		assertEquals(1, executor.getStats().getTimeouts());
+	}
+
+	@Test
+	public void execute_unknownProgram() {
+		ProcessResult result = executor.execute(Arrays.asList("no-such-program-aro"), 10000);
+		assertEquals(-1, result.getExitCode());
+		assertEquals(1, executor.getStats().getFailures());
+	}
+
+	@Test
+	public void submit_reusesResultForSameContent() throws Exception {
+		File first = write("first.ts", new byte[] { 1, 2, 3 });
+		File copy = write("copy.ts", new byte[] { 1, 2, 3 });
+		File other = write("other.ts", new byte[] { 1, 2, 4 });
+
+		Future<ProcessResult> result = executor.submit(Arrays.asList("cat", first.getPath()), 10000, first);
+		assertSame(result, executor.submit(Arrays.asList("cat", copy.getPath()), 10000, copy));
+		ProcessResult changed = executor.execute(Arrays.asList("cat", other.getPath()), 10000, other);
+
+		assertArrayEquals(new byte[] { 1, 2, 3 }, result.get().getOutput());
+		assertArrayEquals(new byte[] { 1, 2, 4 }, changed.getOutput());
+		ProcessExecutorStats stats = executor.getStats();
+		assertEquals(3, stats.getSubmitted());
+		assertEquals(2, stats.getExecuted());
+		assertEquals(1, stats.getCacheHits());
+	}
+
+	@Test
+	public void submit_doesNotKeepFailedRun() throws Exception {
+		File input = write("input.ts", new byte[] { 1, 2, 3 });
+		List<String> command = Arrays.asList("sh", "-c", "exit 2", input.getPath());
+
+		assertEquals(2, executor.execute(command, 10000, input).getExitCode());
+		assertEquals(2, executor.execute(command, 10000, input).getExitCode());
+		assertEquals(2, executor.getStats().getExecuted());
+		assertEquals(0, executor.getStats().getCacheHits());
+	}
+
+	@Test
+	public void setParallelism_limitsRunningProcesses() throws Exception {
+		int parallelism = executor.getParallelism();
+		try {
+			executor.setParallelism(1);
+			Future<ProcessResult> first = executor.submit(Arrays.asList("sleep", "0.3"), 10000);
+			Future<ProcessResult> second = executor.submit(Arrays.asList("sleep", "0.3"), 10000);
+			assertTrue(first.get().isSuccess());
+			assertTrue(second.get().isSuccess());
+			assertTrue(executor.getStats().getMaxQueueWaitMillis() >= 200);
+		} finally {
+			executor.setParallelism(parallelism);
+		}
+	}
+
+	private File write(String name, byte[] content) throws IOException {
+		File file = folder.newFile(name);
+		Files.write(file.toPath(), content);
+		return file;
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.displayfilter.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.displayfilter.IDisplayFilterService;
+import com.att.aro.core.displayfilter.pojo.DisplayFilterResult;
+import com.att.aro.core.displayfilter.pojo.PacketTable;
+import com.att.aro.core.exception.DisplayFilterException;
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+import com.att.aro.core.packetreader.pojo.TCPPacket;
+import com.att.aro.core.packetreader.pojo.UDPPacket;
+
+public class DisplayFilterServiceImplTest extends BaseTest {
+
+	private static final byte SYN = 0x02;
+	private static final byte ACK = 0x10;
+	private static final byte PSH_ACK = 0x18;
+	private static final byte RST = 0x04;
+
+	private IDisplayFilterService service;
+	private List<PacketInfo> packets;
+	private List<Session> sessions;
+	private PacketTable table;
+
+	@Before
+	public void setUp() throws Exception {
+		service = context.getBean(IDisplayFilterService.class);
+		packets = new ArrayList<PacketInfo>();
+		// rows 0-3, a session to a web server
+		packets.add(tcp("10.0.0.2", "93.184.216.34", 40000, 80, SYN, 1.0, PacketDirection.UPLINK, "browser"));
+		packets.add(tcp("93.184.216.34", "10.0.0.2", 80, 40000, (byte) (SYN | ACK), 1.1, PacketDirection.DOWNLINK, "browser"));
+		packets.add(tcp("10.0.0.2", "93.184.216.34", 40000, 80, PSH_ACK, 1.2, PacketDirection.UPLINK, "browser"));
+		packets.add(tcp("93.184.216.34", "10.0.0.2", 80, 40000, PSH_ACK, 1.5, PacketDirection.DOWNLINK, "browser"));
+		// row 4, DNS
+		packets.add(udp("10.0.0.2", "8.8.8.8", 53000, 53, 2.0, PacketDirection.UPLINK, "resolver"));
+		// rows 5-6, a session to a CDN that gets reset
+		packets.add(tcp("10.0.0.2", "151.101.1.1", 40002, 443, SYN, 3.0, PacketDirection.UPLINK, "player"));
+		packets.add(tcp("151.101.1.1", "10.0.0.2", 443, 40002, RST, 3.2, PacketDirection.DOWNLINK, "player"));
+
+		Session web = session(packets.subList(0, 4));
+		web.setRequestResponseInfo(Arrays.asList(message(HttpDirection.REQUEST, "Example.com", 0, packets.get(2)),
+				message(HttpDirection.RESPONSE, null, 404, packets.get(3))));
+		Session cdn = session(packets.subList(5, 7));
+		sessions = Arrays.asList(web, cdn);
+		table = service.createTable(packets, sessions);
+	}
+
+	private int[] rows(String expression) {
+		return service.filter(service.compile(expression), table).getRows();
+	}
+
+	@Test
+	public void addressesAndPorts() {
+		assertArrayEquals(new int[] { 0, 1, 2, 3 }, rows("ip.addr == 93.184.216.34"));
+		assertArrayEquals(new int[] { 1, 3, 6 }, rows("ip.dst == 10.0.0.2"));
+		assertArrayEquals(new int[] { 5, 6 }, rows("ip.addr == 151.101.0.0/16"));
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5, 6 }, rows("ip.addr == 10.0.0.2"));
+		// != needs both addresses to differ
+		assertArrayEquals(new int[0], rows("ip.addr != 10.0.0.2"));
+		assertArrayEquals(new int[] { 0, 1, 2, 3 }, rows("tcp.port == 80"));
+		assertArrayEquals(new int[] { 5, 6 }, rows("tcp.port != 80"));
+		assertArrayEquals(new int[] { 4 }, rows("udp.dstport == 53"));
+		assertArrayEquals(new int[] { 4 }, rows("udp"));
+	}
+
+	@Test
+	public void flags() {
+		assertArrayEquals(new int[] { 0, 5 }, rows("tcp.flags.syn && !tcp.flags.ack"));
+		assertArrayEquals(new int[] { 0, 5 }, rows("tcp.flags.syn == 1 and tcp.flags.ack == 0"));
+		assertArrayEquals(new int[] { 6 }, rows("tcp.flags.reset"));
+		assertArrayEquals(new int[] { 1 }, rows("tcp.flags == 0x12"));
+	}
+
+	@Test
+	public void httpFields() {
+		assertArrayEquals(new int[] { 2 }, rows("http.host == \"example.com\""));
+		assertArrayEquals(new int[] { 2 }, rows("http.host contains AMPLE"));
+		assertArrayEquals(new int[] { 3 }, rows("http.status >= 400"));
+		assertArrayEquals(new int[] { 2, 3 }, rows("http"));
+	}
+
+	@Test
+	public void packetFields() {
+		assertArrayEquals(new int[] { 0, 2, 4, 5 }, rows("dir == up"));
+		assertArrayEquals(new int[] { 5, 6 }, rows("app == player"));
+		assertArrayEquals(new int[] { 2, 3, 4 }, rows("time > 1.1 && time <= 2"));
+		assertArrayEquals(new int[] { 4 }, rows("size == 28"));
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, rows("(app == browser or app == resolver) and not time > 2.5"));
+	}
+
+	@Test
+	public void sessions() {
+		assertArrayEquals(new int[] { 5, 6 }, rows("session == 1"));
+		assertArrayEquals(new int[] { 6 }, rows("session == 1 && dir == down"));
+		assertArrayEquals(new int[0], rows("session == 7"));
+
+		DisplayFilterResult result = service.filter(service.compile("http.status == 404"), table);
+		assertEquals(1, result.getPacketCount());
+		assertTrue(result.includes(sessions.get(0)));
+		assertFalse(result.includes(sessions.get(1)));
+		assertTrue(result.includes(packets.get(3)));
+		assertFalse(result.includes(packets.get(2)));
+		assertEquals(Arrays.asList(sessions.get(0)), result.getSessions());
+	}
+
+	@Test
+	public void tableWithoutSessions() {
+		PacketTable packetsOnly = service.createTable(packets, null);
+		assertEquals(0, service.filter(service.compile("http.host contains example"), packetsOnly).getPacketCount());
+		assertEquals(2, service.filter(service.compile("tcp.flags.syn && !tcp.flags.ack"), packetsOnly).getPacketCount());
+	}
+
+	@Test
+	public void largeTableIsFilteredInChunks() throws Exception {
+		List<PacketInfo> many = new ArrayList<PacketInfo>();
+		int count = DisplayFilterServiceImpl.CHUNK_SIZE * 3 + 17;
+		for (int idx = 0; idx < count; idx++) {
+			many.add(tcp("10.0.0.2", "93.184.216.34", 40000 + idx % 7, 443, ACK, idx / 100.0,
+					PacketDirection.UPLINK, "app"));
+		}
+		PacketTable large = service.createTable(many, null);
+		assertTrue(large.isTimeSorted());
+		int[] rows = service.filter(service.compile("tcp.srcport == 40003"), large).getRows();
+		assertEquals((count - 3 + 6) / 7, rows.length);
+		for (int idx = 0; idx < rows.length; idx++) {
+			assertEquals(3 + idx * 7, rows[idx]);
+		}
+		rows = service.filter(service.compile("time >= 100 && time < 200"), large).getRows();
+		assertEquals(10000, rows.length);
+		assertEquals(10000, rows[0]);
+	}
+
+	@Test
+	public void invalidExpressions() {
+		assertInvalid("", 0);
+		assertInvalid("tcp.prot == 80", 0);
+		assertInvalid("tcp.port == ", 12);
+		assertInvalid("tcp.port contains 80", 9);
+		assertInvalid("ip.addr == example.com", 11);
+		assertInvalid("ip.addr == 300.1.1.1", 11);
+		assertInvalid("(tcp", 4);
+		assertInvalid("tcp udp", 4);
+		assertInvalid("dir == sideways", 7);
+		assertInvalid("http.host == \"open", 13);
+		assertInvalid("tcp.flags.syn == 2", 17);
+		assertInvalid("size = 10", 5);
+	}
+
+	private void assertInvalid(String expression, int position) {
+		try {
+			service.compile(expression);
+			fail("compiled " + expression);
+		} catch (DisplayFilterException exception) {
+			assertEquals(expression, position, exception.getPosition());
+		}
+	}
+
+	private static PacketInfo tcp(String source, String destination, int sourcePort, int destinationPort, byte flags,
+			double time, PacketDirection direction, String app) throws Exception {
+		ByteBuffer data = ipHeader(source, destination, 6, 40);
+		data.putShort((short) sourcePort).putShort((short) destinationPort).putInt(1).putInt(1);
+		data.put((byte) 0x50).put(flags).putShort((short) 65535).putInt(0);
+		return packetInfo(new TCPPacket(0, 0, 40, 0, data.array()), time, direction, app);
+	}
+
+	private static PacketInfo udp(String source, String destination, int sourcePort, int destinationPort, double time,
+			PacketDirection direction, String app) throws Exception {
+		ByteBuffer data = ipHeader(source, destination, 17, 28);
+		data.putShort((short) sourcePort).putShort((short) destinationPort).putShort((short) 8).putShort((short) 0);
+		return packetInfo(new UDPPacket(0, 0, 28, 0, data.array()), time, direction, app);
+	}
+
+	private static ByteBuffer ipHeader(String source, String destination, int protocol, int length) throws Exception {
+		ByteBuffer data = ByteBuffer.allocate(length);
+		data.put((byte) 0x45).put((byte) 0).putShort((short) length).putInt(0);
+		data.put((byte) 64).put((byte) protocol).putShort((short) 0);
+		data.put(InetAddress.getByName(source).getAddress()).put(InetAddress.getByName(destination).getAddress());
+		return data;
+	}
+
+	private static PacketInfo packetInfo(com.att.aro.core.packetreader.pojo.Packet packet, double time,
+			PacketDirection direction, String app) {
+		PacketInfo packetInfo = new PacketInfo(app, packet);
+		packetInfo.setTimestamp(time);
+		packetInfo.setDir(direction);
+		return packetInfo;
+	}
+
+	private static Session session(List<PacketInfo> sessionPackets) throws Exception {
+		Session session = new Session(InetAddress.getByName("93.184.216.34"), 80, 40000);
+		session.setPackets(new ArrayList<PacketInfo>(sessionPackets));
+		return session;
+	}
+
+	private static HttpRequestResponseInfo message(HttpDirection direction, String host, int status, PacketInfo first) {
+		HttpRequestResponseInfo info = new HttpRequestResponseInfo();
+		info.setDirection(direction);
+		info.setHostName(host);
+		info.setStatusCode(status);
+		info.setFirstDataPacket(first);
+		return info;
+	}
+}
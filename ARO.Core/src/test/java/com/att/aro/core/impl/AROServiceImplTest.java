@@ -4,7 +4,6 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -25,12 +24,13 @@ import com.att.aro.core.bestpractice.pojo.BestPracticeType;
 import com.att.aro.core.bestpractice.pojo.PeriodicTransferResult;
 import com.att.aro.core.configuration.pojo.Profile;
 import com.att.aro.core.packetanalysis.ICacheAnalysis;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
 import com.att.aro.core.packetanalysis.IPacketAnalyzer;
 import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
 import com.att.aro.core.packetanalysis.pojo.CacheAnalysis;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
-import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.RequestResponseIndex;
 import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
 import com.att.aro.core.packetanalysis.pojo.TraceFileResult;
 import com.att.aro.core.packetreader.pojo.Packet;
@@ -47,6 +47,8 @@ public class AROServiceImplTest extends BaseTest {
 	@Mock
 	ICacheAnalysis cacheAnalyzer;
 	@Mock
+	IImageAnalysis imageAnalyzer;
+	@Mock
 	IBestPractice worker;
 	@Mock
 	transient VersionInfo info;
@@ -309,7 +311,7 @@ public class AROServiceImplTest extends BaseTest {
 		when(worker.runTest(any(PacketAnalyzerResult.class)))
 		.thenReturn(periodicTransferResult);
 
-		when(cacheAnalyzer.analyze(anyListOf(Session.class)))
+		when(cacheAnalyzer.analyze(any(RequestResponseIndex.class)))
 		.thenReturn(cacheAnalysis);
 		
 		AROTraceData testResult 
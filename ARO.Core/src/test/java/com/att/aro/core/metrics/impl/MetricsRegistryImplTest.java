@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.metrics.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.metrics.IMetricsRegistry;
+import com.att.aro.core.metrics.IStopwatch;
+import com.att.aro.core.metrics.MetricName;
+import com.att.aro.core.metrics.pojo.HistogramMetric;
+import com.att.aro.core.metrics.pojo.MetricsReport;
+import com.att.aro.core.metrics.pojo.TimerMetric;
+
+public class MetricsRegistryImplTest extends BaseTest {
+
+	private IMetricsRegistry metrics;
+
+	@Before
+	public void setUp() {
+		metrics = context.getBean(IMetricsRegistry.class);
+		metrics.reset();
+		metrics.setEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		metrics.setEnabled(false);
+		metrics.reset();
+	}
+
+	@Test
+	public void disabledRecordsNothing() {
+		metrics.setEnabled(false);
+		IStopwatch watch = metrics.start(MetricName.ANALYSIS);
+		metrics.increment(MetricName.PACKETS, 5);
+		metrics.record(MetricName.PACKET_SIZE, 60);
+		assertEquals(0, watch.stop());
+		assertTrue(watch == metrics.start(MetricName.RRC));
+		assertNull(metrics.report());
+
+		metrics.setEnabled(true);
+		MetricsReport report = metrics.report();
+		assertTrue(report.getTimers().isEmpty());
+		assertTrue(report.getCounters().isEmpty());
+		assertTrue(report.getHistograms().isEmpty());
+	}
+
+	@Test
+	public void timersKeepTheOrderTheyFirstRan() {
+		IStopwatch analysis = metrics.start(MetricName.ANALYSIS);
+		metrics.start(MetricName.SESSION_ASSEMBLY).stop();
+		metrics.addTime(MetricName.RRC, 2000000);
+		metrics.addTime(MetricName.RRC, 4000000);
+		metrics.start(MetricName.SESSION_ASSEMBLY).stop();
+		analysis.stop();
+		analysis.stop();
+
+		List<TimerMetric> timers = metrics.report().getTimers();
+		assertEquals(3, timers.size());
+		assertEquals(MetricName.ANALYSIS, timers.get(0).getName());
+		assertEquals(1, timers.get(0).getCount());
+		assertEquals(MetricName.SESSION_ASSEMBLY, timers.get(1).getName());
+		assertEquals(2, timers.get(1).getCount());
+
+		TimerMetric rrc = timers.get(2);
+		assertEquals(MetricName.RRC, rrc.getName());
+		assertEquals(2, rrc.getCount());
+		assertEquals(6.0, rrc.getTotalMillis(), 0.0001);
+		assertEquals(4.0, rrc.getMaxMillis(), 0.0001);
+		assertEquals(3.0, rrc.getMeanMillis(), 0.0001);
+		// addTime does not measure allocations
+		assertEquals(-1, rrc.getAllocatedBytes());
+	}
+
+	@Test
+	public void ratesAreOverTheAnalysis() {
+		metrics.increment(MetricName.PACKETS, 1);
+		metrics.increment(MetricName.PACKETS, 9);
+		metrics.increment(MetricName.PACKET_BYTES, 1500);
+		metrics.addTime(MetricName.ANALYSIS, 500000000);
+
+		MetricsReport report = metrics.report();
+		assertEquals(10, report.getPackets());
+		assertEquals(1500, report.getBytes());
+		assertEquals(500.0, report.getWallTimeMillis(), 0.0001);
+		assertEquals(20.0, report.getPacketsPerSecond(), 0.0001);
+		assertEquals(3000.0, report.getBytesPerSecond(), 0.0001);
+		assertEquals(Long.valueOf(10), report.getCounters().get(MetricName.PACKETS));
+	}
+
+	@Test
+	public void histogramPercentilesAreBucketBounds() {
+		for (int value = 1; value <= 100; value++) {
+			metrics.record(MetricName.PACKET_SIZE, value);
+		}
+		metrics.record(MetricName.SESSION_PACKETS, -3);
+
+		List<HistogramMetric> histograms = metrics.report().getHistograms();
+		assertEquals(2, histograms.size());
+		HistogramMetric sizes = histograms.get(0);
+		assertEquals(MetricName.PACKET_SIZE, sizes.getName());
+		assertEquals(100, sizes.getCount());
+		assertEquals(1, sizes.getMin());
+		assertEquals(100, sizes.getMax());
+		assertEquals(50.5, sizes.getMean(), 0.0001);
+		// 50 falls in 32..63, 90 and 99 in 64..127 which is cut at the max
+		assertEquals(63, sizes.getP50());
+		assertEquals(100, sizes.getP90());
+		assertEquals(100, sizes.getP99());
+
+		HistogramMetric sessions = histograms.get(1);
+		assertEquals(0, sessions.getMin());
+		assertEquals(0, sessions.getP99());
+	}
+
+	@Test
+	public void resetDropsEverything() {
+		metrics.start(MetricName.VIDEO).stop();
+		metrics.increment(MetricName.SESSIONS, 3);
+		metrics.reset();
+
+		MetricsReport report = metrics.report();
+		assertNotNull(report);
+		assertNull(report.getTimer(MetricName.VIDEO));
+		assertTrue(report.getCounters().isEmpty());
+		assertEquals(-1, report.getAllocatedBytes());
+	}
+}
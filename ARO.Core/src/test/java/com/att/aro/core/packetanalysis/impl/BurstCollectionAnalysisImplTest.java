@@ -4,6 +4,9 @@
 package com.att.aro.core.packetanalysis.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.net.InetAddress;
 import java.util.ArrayList;
@@ -11,6 +14,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Before;
@@ -20,12 +24,15 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import com.att.aro.core.BaseTest;
+import com.att.aro.core.configuration.IProfileFactory;
 import com.att.aro.core.configuration.pojo.Profile3G;
 import com.att.aro.core.configuration.pojo.ProfileLTE;
 import com.att.aro.core.configuration.pojo.ProfileType;
 import com.att.aro.core.configuration.pojo.ProfileWiFi;
 import com.att.aro.core.packetanalysis.IBurstCollectionAnalysis;
 import com.att.aro.core.packetanalysis.IRequestResponseBuilder;
+import com.att.aro.core.packetanalysis.pojo.Burst;
+import com.att.aro.core.packetanalysis.pojo.BurstCategory;
 import com.att.aro.core.packetanalysis.pojo.BurstCollectionAnalysisData;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.RRCState;
@@ -33,6 +40,7 @@ import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetanalysis.pojo.TcpInfo;
 import com.att.aro.core.packetreader.pojo.DomainNameSystem;
+import com.att.aro.core.packetreader.pojo.Packet;
 import com.att.aro.core.packetreader.pojo.PacketDirection;
 import com.att.aro.core.packetreader.pojo.TCPPacket;
 import com.att.aro.core.packetreader.pojo.UDPPacket;
@@ -46,6 +54,86 @@ import com.att.aro.core.peripheral.pojo.UserEvent.UserEventType;
  */
 public class BurstCollectionAnalysisImplTest extends BaseTest {
 
+	// begin packet, end packet, category, energy and active time of every burst, as the implementation
+	// before bursts were indexed by packet position found them on the timelines of seeds 1 to 3
+	private static final String[][] EXPECTED_BURSTS = {
+			{ "0 2 TCP_LOSS_OR_DUP 0.0 0.0",
+					"3 3 TCP_LOSS_OR_DUP 10.928291491662467 15.042174451457747",
+					"4 12 CLIENT_APP 4.363881161306756 4.895448253337655",
+					"13 15 USER_INPUT 2.359358369902279 3.370511957003256",
+					"16 17 CLIENT_APP 2.7763567474558757 3.9662239249369655",
+					"18 18 TCP_LOSS_OR_DUP 4.565730661240397 2.770594722109628",
+					"19 22 SERVER_NET_DELAY 0.7350173298893032 0.0",
+					"23 25 CLIENT_APP 17.546230593985847 19.517094293595562",
+					"26 28 CLIENT_APP 5.092106726057236 3.063572624159491",
+					"29 34 CLIENT_APP 39.41589075892913 39.022250517806086",
+					"35 35 CLIENT_APP 0.0 0.0",
+					"36 40 TCP_LOSS_OR_DUP 10.171926041001013 12.263551146266707",
+					"41 44 CPU 13.454009923484659 14.247867864963354",
+					"45 47 TCP_LOSS_OR_DUP 4.468995972761288 3.6692371596508906",
+					"48 50 SERVER_NET_DELAY 11.2473067157011 11.300363499632198",
+					"51 55 CPU 10.792258910750453 10.812668023258254",
+					"56 58 TCP_LOSS_OR_DUP 1.6686055319882795 0.0",
+					"59 59 TCP_LOSS_OR_DUP 8.852928915319664 10.82431254587533",
+					"60 63 USER_INPUT 1.5601146741982286 1.9196627903858143",
+					"64 64 TCP_LOSS_OR_DUP 2.0608223401626447 2.944031914518064",
+					"65 74 CLIENT_APP 13.358425623472254 13.857150020953554",
+					"75 76 SERVER_NET_DELAY 15.608357190233843 20.88514165725229",
+					"77 79 SERVER_NET_DELAY 15.208005593477193 9.035490443120523" },
+			{ "0 4 CLIENT_APP 16.15458340203175 19.42187886179698",
+					"5 5 TCP_LOSS_OR_DUP 6.699020971306691 8.091405158762754",
+					"6 13 CLIENT_APP 2.260117809025019 3.228739727178599",
+					"14 15 CLIENT_APP 1.548801854010368 2.2125740771576687",
+					"16 16 UNKNOWN 1.9667990317815707 2.809712902545101",
+					"17 23 SERVER_NET_DELAY 7.320713653085823 8.7243420542814",
+					"24 26 CLIENT_APP 5.2652778533985405 7.521825504855059",
+					"27 32 CLIENT_APP 2.788556702241574 3.9836524317736774",
+					"33 35 USER_INPUT 10.099294195464804 10.883809285632026",
+					"36 37 CPU 1.9200373680364036 2.742910525766291",
+					"38 38 TCP_LOSS_OR_DUP 5.745049155710978 6.823636678427135",
+					"39 39 CLIENT_APP 0.0 0.0",
+					"40 41 CLIENT_APP 0.0 0.0",
+					"42 44 TCP_LOSS_OR_DUP 1.2841906509709933 1.331934053212393",
+					"45 48 TCP_LOSS_OR_DUP 3.038372224217221 4.3405317488817445",
+					"49 49 TCP_LOSS_OR_DUP 1.2544971728151153 1.7921388183073077",
+					"50 50 SERVER_NET_DELAY 5.0544323636967725 7.220617662423962",
+					"51 55 CLIENT_APP 15.165246474197385 14.890837671226336",
+					"56 66 SERVER_NET_DELAY 17.322032071416736 18.770092595279067",
+					"67 68 CLIENT_APP 2.118131513653918 3.0259021623627405",
+					"69 73 CLIENT_APP 14.394373203969163 16.376566240170433",
+					"74 74 USER_INPUT 4.707815041252431 5.699421385350291",
+					"75 78 CLIENT_APP 5.606836284050927 6.095346758220671",
+					"79 79 TCP_LOSS_OR_DUP 5.9165034717083 6.159954286842549" },
+			{ "0 0 TCP_LOSS_OR_DUP 12.448273929828572 16.42303298333401",
+					"1 2 CLIENT_APP 1.0118735094602118 0.0",
+					"3 5 USER_INPUT 0.6207905419857109 0.0",
+					"6 6 SERVER_NET_DELAY 3.69639769506889 3.521078371557131",
+					"7 7 CLIENT_APP 6.622061933404307 8.296720969739177",
+					"8 8 USER_INPUT 0.6464780625999719 0.0",
+					"9 14 CLIENT_APP 6.730701367323765 6.424560719715643",
+					"15 24 CLIENT_APP 38.58989837946425 39.744133039472814",
+					"25 27 CLIENT_APP 17.684078172396493 14.820129177554207",
+					"28 29 SCREEN_ROTATION 0.2658693595997187 0.0",
+					"30 33 CLIENT_APP 1.620244356342574 1.537892601188247",
+					"34 37 CLIENT_APP 9.19475935616466 13.135370508806659",
+					"38 44 CLIENT_APP 2.570631200992588 3.6723302871322687",
+					"45 56 CLIENT_APP 1.8129981458046245 2.5899973511494636",
+					"57 61 TCP_LOSS_OR_DUP 9.016208783300838 5.431962557951863",
+					"62 64 CLIENT_APP 26.78063513506976 29.150220704506353",
+					"65 69 TCP_LOSS_OR_DUP 9.073595097954048 11.62078542623425",
+					"70 73 TCP_LOSS_OR_DUP 13.462333822438104 15.383185910801558",
+					"74 74 UNKNOWN 0.0 0.0",
+					"75 75 SERVER_NET_DELAY 7.729080204027428 9.84229179011686",
+					"76 79 USER_INPUT 15.305234011087533 17.940627010382855" } };
+
+	private static final double[] EXPECTED_TOTAL_ENERGY = { 196.2346212729799, 137.6306824680425, 184.88214306431405 };
+
+	// normalized timestamp of every tenth packet
+	private static final double[][] EXPECTED_NORMALIZED = {
+			{ 1.0, 21.023907135403086, 43.92557983568925, 88.87862992688706, 163.5098133779704, 226.5282264426982, 291.68910824553336, 296.9085423968827 },
+			{ 1.0, 52.86481793695924, 60.033902380607735, 79.92323119263051, 115.76280943429305, 127.29793154985558, 161.21440893974787, 190.58699005283924 },
+			{ 1.0, 43.01352971855189, 119.43272426718679, 176.38681259954203, 192.21176584765786, 195.11634023232426, 197.69919431747442, 287.68820674369704 } };
+
 	BurstCollectionAnalysisImpl aBurstCollectionAnalysis;
 
 	@Mock
@@ -702,4 +790,114 @@ public class BurstCollectionAnalysisImplTest extends BaseTest {
 
 	}
 
+	/**
+	 * Bursts, categories, energy and normalized timestamps of randomized 3G
+	 * timelines with promotion delays, user events and cpu samples are the
+	 * ones in EXPECTED_BURSTS and EXPECTED_NORMALIZED.
+	 */
+	@Test
+	public void analyze_sameAsPreviousImplementation() {
+		Profile3G profile = (Profile3G) context.getBean(IProfileFactory.class).create3Gdefault();
+
+		for (int seed = 1; seed <= EXPECTED_BURSTS.length; seed++) {
+			Random random = new Random(seed);
+			List<PacketInfo> packets = randomPackets(random, 80);
+			double traceEnd = packets.get(packets.size() - 1).getTimeStamp() + 20;
+			List<RrcStateRange> rrcRanges = randomRrcRanges(random, traceEnd);
+			List<UserEvent> userEvents = new ArrayList<UserEvent>();
+			List<CpuActivity> cpuEvents = new ArrayList<CpuActivity>();
+			for (double time = random.nextDouble() * 10; time < traceEnd; time += random.nextDouble() * 20) {
+				UserEventType type = random.nextInt(5) == 0 ? UserEventType.SCREEN_LANDSCAPE : UserEventType.SCREEN_TOUCH;
+				userEvents.add(new UserEvent(type, time, time + random.nextDouble() * 0.5));
+			}
+			for (double time = 0; time < traceEnd; time += 0.5 + random.nextDouble()) {
+				CpuActivity cpu = new CpuActivity();
+				cpu.setTimestamp(time);
+				cpu.setTotalCpuUsage(random.nextDouble() * 100);
+				cpuEvents.add(cpu);
+			}
+			Map<Integer, Integer> packetSizeToCountMap = new HashMap<Integer, Integer>();
+			for (PacketInfo packet : packets) {
+				Integer count = packetSizeToCountMap.get(packet.getPayloadLen());
+				packetSizeToCountMap.put(packet.getPayloadLen(), count == null ? 1 : count + 1);
+			}
+
+			BurstCollectionAnalysisData actual = aBurstCollectionAnalysis.analyze(packets, profile, packetSizeToCountMap, rrcRanges,
+					userEvents, cpuEvents, new ArrayList<Session>());
+
+			String trial = "seed " + seed;
+			String[] expectedBursts = EXPECTED_BURSTS[seed - 1];
+			List<Burst> actualBursts = actual.getBurstCollection();
+			assertEquals(trial, expectedBursts.length, actualBursts.size());
+			for (int idx = 0; idx < expectedBursts.length; idx++) {
+				String[] expected = expectedBursts[idx].split(" ");
+				int begin = Integer.parseInt(expected[0]);
+				int end = Integer.parseInt(expected[1]);
+				Burst actualBurst = actualBursts.get(idx);
+				String burst = trial + " burst " + idx;
+				assertEquals(burst, packets.subList(begin, end + 1), actualBurst.getPackets());
+				assertSame(burst, packets.get(begin), actualBurst.getBeginPacket());
+				assertSame(burst, packets.get(end), actualBurst.getEndPacket());
+				assertEquals(burst, BurstCategory.valueOf(expected[2]), actualBurst.getBurstCategory());
+				assertEquals(burst, Double.parseDouble(expected[3]), actualBurst.getEnergy(), 1e-9);
+				assertEquals(burst, Double.parseDouble(expected[4]), actualBurst.getActiveTime(), 1e-9);
+			}
+			assertEquals(trial, 0, actual.getLongBurstCount());
+			assertEquals(trial, EXPECTED_TOTAL_ENERGY[seed - 1], actual.getTotalEnergy(), 1e-9);
+			assertNull(trial, actual.getShortestPeriodPacketInfo());
+
+			double[] timestamps = new double[packets.size()];
+			for (int idx = 0; idx < timestamps.length; idx++) {
+				timestamps[idx] = packets.get(idx).getTimeStamp();
+			}
+			double[] normalized = aBurstCollectionAnalysis.normalizeCore(timestamps, rrcRanges);
+			double[] expectedNormalized = EXPECTED_NORMALIZED[seed - 1];
+			for (int idx = 0; idx < expectedNormalized.length; idx++) {
+				assertEquals(trial + " packet " + idx * 10, expectedNormalized[idx], normalized[idx * 10], 0);
+			}
+		}
+	}
+
+	/**
+	 * Packets in clusters, gaps below and above the burst threshold, full size
+	 * segments so mss packets keep bursts together.
+	 */
+	private List<PacketInfo> randomPackets(Random random, int count) {
+		int[] payloadSizes = { 0, 0, 40, 517, 1358, 1460 };
+		TcpInfo[] tcpInfos = { null, TcpInfo.TCP_DATA, TcpInfo.TCP_ACK, TcpInfo.TCP_ESTABLISH, TcpInfo.TCP_CLOSE,
+				TcpInfo.TCP_ACK_DUP, TcpInfo.TCP_DATA_RECOVER, TcpInfo.TCP_ACK_RECOVER, TcpInfo.TCP_KEEP_ALIVE };
+		List<PacketInfo> packets = new ArrayList<PacketInfo>(count);
+		double time = 1;
+		for (int idx = 0; idx < count; idx++) {
+			int size = payloadSizes[random.nextInt(payloadSizes.length)];
+			PacketInfo packet = new PacketInfo(random.nextInt(4) == 0 ? null : "app", new Packet(0, 0, size, 0, null));
+			packet.setTimestamp(time);
+			packet.setDir(random.nextBoolean() ? PacketDirection.UPLINK : PacketDirection.DOWNLINK);
+			packet.setTcpInfo(tcpInfos[random.nextInt(tcpInfos.length)]);
+			packets.add(packet);
+			int gap = random.nextInt(10);
+			time += gap < 6 ? random.nextDouble() * 0.2 : gap < 8 ? 1 + random.nextDouble() * 2 : 3 + random.nextDouble() * 30;
+		}
+		return packets;
+	}
+
+	/**
+	 * Back to back 3G states covering the trace, promotions included.
+	 */
+	private List<RrcStateRange> randomRrcRanges(Random random, double traceEnd) {
+		RRCState[] cycle = { RRCState.STATE_IDLE, RRCState.PROMO_IDLE_DCH, RRCState.STATE_DCH, RRCState.TAIL_DCH,
+				RRCState.STATE_FACH, RRCState.PROMO_FACH_DCH, RRCState.STATE_DCH, RRCState.TAIL_DCH, RRCState.TAIL_FACH };
+		List<RrcStateRange> ranges = new ArrayList<RrcStateRange>();
+		double begin = 0;
+		int state = 0;
+		while (begin < traceEnd) {
+			RRCState rrcState = cycle[state++ % cycle.length];
+			boolean promo = rrcState == RRCState.PROMO_IDLE_DCH || rrcState == RRCState.PROMO_FACH_DCH;
+			double end = begin + (promo ? 0.5 + random.nextDouble() * 1.5 : random.nextDouble() * 12);
+			ranges.add(new RrcStateRange(begin, end, rrcState));
+			begin = end;
+		}
+		return ranges;
+	}
+
 }
@@ -0,0 +1,200 @@
+package com.att.aro.core.packetanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.packetanalysis.IHttpHeaderParser;
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+
+public class HttpHeaderParserImplTest extends BaseTest {
+
+	IHttpHeaderParser parser;
+	HttpRequestResponseInfo rrInfo;
+
+	@Before
+	public void setUp() {
+		parser = context.getBean(IHttpHeaderParser.class);
+		rrInfo = new HttpRequestResponseInfo();
+	}
+
+	@Test
+	public void findLineEnd() {
+		byte[] data = bytes("ab\r\ncd\re\r\n\r\nf");
+		assertEquals(2, parser.findLineEnd(data, 0, data.length));
+		assertEquals(8, parser.findLineEnd(data, 4, data.length));
+		assertEquals(10, parser.findLineEnd(data, 10, data.length));
+		assertEquals(-1, parser.findLineEnd(data, 12, data.length));
+		assertEquals(-1, parser.findLineEnd(data, 0, 3));
+	}
+
+	@Test
+	public void parseRequestLine() {
+		assertTrue(parseRequestLine("GET http://www.example.com/index.html?a=1 HTTP/1.1"));
+		assertEquals(HttpDirection.REQUEST, rrInfo.getDirection());
+		assertEquals("GET", rrInfo.getRequestType());
+		assertEquals("http://www.example.com/index.html?a=1", rrInfo.getObjName());
+		assertEquals("www.example.com", rrInfo.getHostName());
+		assertEquals("HTTP/1.1", rrInfo.getVersion());
+		assertEquals("HTTP", rrInfo.getScheme());
+		assertEquals("GET http://www.example.com/index.html?a=1 HTTP/1.1", rrInfo.getStatusLine());
+
+		rrInfo = new HttpRequestResponseInfo();
+		assertTrue(parseRequestLine("DESCRIBE rtsp://media.example.com/clip RTSP/1.0"));
+		assertEquals("DESCRIBE", rrInfo.getRequestType());
+		assertEquals("RTSP", rrInfo.getScheme());
+
+		rrInfo = new HttpRequestResponseInfo();
+		assertFalse(parseRequestLine("GET / HTTP/2.0"));
+		assertFalse(parseRequestLine("HTTP/1.1 200 OK"));
+		assertFalse(parseRequestLine("\u0016\u0003\u0001\u0000"));
+		assertNull(rrInfo.getDirection());
+	}
+
+	@Test
+	public void parseStatusLine() {
+		assertTrue(parseStatusLine("HTTP/1.1 404 Not Found"));
+		assertEquals(HttpDirection.RESPONSE, rrInfo.getDirection());
+		assertEquals(404, rrInfo.getStatusCode());
+		assertEquals("Not Found", rrInfo.getResponseResult());
+		assertEquals("HTTP/1.1", rrInfo.getVersion());
+
+		rrInfo = new HttpRequestResponseInfo();
+		assertTrue(parseStatusLine("HTTP/1.0 204"));
+		assertEquals(204, rrInfo.getStatusCode());
+		assertEquals("", rrInfo.getResponseResult());
+
+		rrInfo = new HttpRequestResponseInfo();
+		assertFalse(parseStatusLine("HTTP/1.1 2OO OK"));
+		assertFalse(parseStatusLine("HTTP/1.1 99999999999 OK"));
+		assertFalse(parseStatusLine("GET / HTTP/1.1"));
+		assertNull(rrInfo.getDirection());
+	}
+
+	@Test
+	public void parseHeaderLine_ignoresCase() {
+		parseHeaderLine("HOST: www.example.com:8080");
+		parseHeaderLine("content-length: 229");
+		parseHeaderLine("Transfer-Encoding : chunked");
+		parseHeaderLine("content-type: Text/HTML; foo=bar; charset=UTF-8");
+		parseHeaderLine("CONTENT-ENCODING: GZIP");
+		parseHeaderLine("X-Content-Type-Options: nosniff");
+
+		assertEquals("www.example.com", rrInfo.getHostName());
+		assertEquals(229, rrInfo.getContentLength());
+		assertTrue(rrInfo.isChunked());
+		assertEquals("text/html", rrInfo.getContentType());
+		assertEquals("UTF-8", rrInfo.getCharset());
+		assertEquals("gzip", rrInfo.getContentEncoding());
+	}
+
+	@Test
+	public void parseHeaderLine_badNumbers() {
+		parseHeaderLine("Content-Length: 2z9");
+		assertEquals(0, rrInfo.getContentLength());
+		parseHeaderLine("Content-Length: 99999999999");
+		assertEquals(0, rrInfo.getContentLength());
+
+		rrInfo.setDirection(HttpDirection.RESPONSE);
+		parseHeaderLine("Age: ");
+		assertNull(rrInfo.getAge());
+		parseHeaderLine("Cache-Control: max-age=");
+		assertTrue(rrInfo.isHasCacheHeaders());
+		assertNull(rrInfo.getMaxAge());
+	}
+
+	@Test
+	public void parseHeaderLine_response() {
+		rrInfo.setDirection(HttpDirection.RESPONSE);
+		parseHeaderLine("Cache-Control: private, max-age = 12, s-maxage=40, must-revalidate");
+		parseHeaderLine("etag: W/\"abc\"d\"");
+		parseHeaderLine("Content-Range: bytes 100-199/*");
+		parseHeaderLine("If-None-Match: \"abc\"");
+
+		assertTrue(rrInfo.isPrivateCache());
+		assertTrue(rrInfo.isMustRevalidate());
+		assertEquals(Long.valueOf(12), rrInfo.getMaxAge());
+		assertEquals(Long.valueOf(40), rrInfo.getsMaxAge());
+		assertEquals("abc\"d", rrInfo.getEtag());
+		assertTrue(rrInfo.isRangeResponse());
+		assertEquals(100, rrInfo.getRangeFirst());
+		assertEquals(199, rrInfo.getRangeLast());
+		assertEquals(100, rrInfo.getContentLength());
+		assertFalse(rrInfo.isIfNoneMatch());
+	}
+
+	@Test
+	public void parseHeaderLine_request() {
+		rrInfo.setDirection(HttpDirection.REQUEST);
+		parseHeaderLine("Cache-Control: max-stale, only-if-cached, public");
+		parseHeaderLine("Referer: http://www.example.com/start");
+		parseHeaderLine("If-Modified-Since: Sat, 29 Oct 1994 19:43:31 GMT");
+
+		assertEquals(Long.valueOf(Long.MAX_VALUE), rrInfo.getMaxStale());
+		assertTrue(rrInfo.isOnlyIfCached());
+		assertFalse(rrInfo.isPublicCache());
+		assertEquals("www.example.com", rrInfo.getReferrer().getHost());
+		assertTrue(rrInfo.isIfModifiedSince());
+	}
+
+	@Test
+	public void parseHeaderLine_withinStorage() {
+		byte[] data = bytes("GET / HTTP/1.1\r\nHost: a.com\r\nContent-Length: 5\r\n\r\nhello");
+		int end = parser.findLineEnd(data, 16, data.length);
+		parser.parseHeaderLine(data, 16, end, rrInfo);
+		assertEquals("a.com", rrInfo.getHostName());
+		assertEquals(0, rrInfo.getContentLength());
+	}
+
+	@Test
+	public void parseHeaderLine_sharesRepeatedValues() {
+		parseHeaderLine("Host: cdn.example.com");
+		parseHeaderLine("Content-Type: Text/HTML; charset=UTF-8");
+		HttpRequestResponseInfo first = rrInfo;
+		rrInfo = new HttpRequestResponseInfo();
+		parseHeaderLine("Host: cdn.example.com:443");
+		parseHeaderLine("Content-Type: text/html");
+
+		assertEquals("text/html", rrInfo.getContentType());
+		assertSame(first.getHostName(), rrInfo.getHostName());
+		assertSame(first.getContentType(), rrInfo.getContentType());
+	}
+
+	@Test
+	public void allHeadersAreDecodedOnDemand() {
+		byte[] data = bytes("GET / HTTP/1.1\r\nHost: a.com\r\nAccept: */*\r\n\r\n");
+		rrInfo.setAllHeaders(data, 16, data.length - 2);
+		assertEquals(" Host: a.com Accept: */*", rrInfo.getAllHeaders());
+
+		rrInfo.setAllHeaders(data, 16, 16);
+		assertNull(rrInfo.getAllHeaders());
+	}
+
+	private boolean parseRequestLine(String line) {
+		byte[] data = bytes(line);
+		return parser.parseRequestLine(data, 0, data.length, rrInfo);
+	}
+
+	private boolean parseStatusLine(String line) {
+		byte[] data = bytes(line);
+		return parser.parseStatusLine(data, 0, data.length, rrInfo);
+	}
+
+	private void parseHeaderLine(String line) {
+		byte[] data = bytes(line);
+		parser.parseHeaderLine(data, 0, data.length, rrInfo);
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.ISO_8859_1);
+	}
+}
@@ -2,6 +2,7 @@ package com.att.aro.core.packetanalysis.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -19,6 +20,8 @@ import org.mockito.Spy;
 
 import com.att.aro.core.BaseTest;
 import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
+import com.att.aro.core.packetanalysis.pojo.ContentFingerprint;
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetreader.pojo.PacketDirection;
@@ -154,6 +157,52 @@ public class HttpRequestResponseHelperImplTest extends BaseTest {
 
 	}
 
+	@Test
+	public void isSameContent_comparesEveryByte() {
+		// same length, the bodies only differ in the second segment
+		byte[] dataLeft = "HTTP/1.1 200 OK\r\n\r\nabcdefgh".getBytes();
+		byte[] dataRight = "HTTP/1.1 200 OK\r\n\r\nabcdefgX".getBytes();
+		Session sessionLeft = new Session(null, 0, 0);
+		sessionLeft.setStorageDl(dataLeft);
+		Session sessionRight = new Session(null, 0, 0);
+		sessionRight.setStorageDl(dataRight);
+
+		HttpRequestResponseInfo left = body(19, 4, 23, 4);
+		HttpRequestResponseInfo right = body(19, 4, 23, 4);
+		assertFalse(httpRequestResponseHelper.isSameContent(left, right, sessionLeft, sessionRight));
+
+		sessionRight.setStorageDl(dataLeft);
+		assertTrue(httpRequestResponseHelper.isSameContent(body(19, 4, 23, 4), body(19, 4, 23, 4), sessionLeft, sessionRight));
+	}
+
+	@Test
+	public void getContentFingerprint_isKept() {
+		Session session = new Session(null, 0, 0);
+		session.setStorageDl(storage);
+		HttpRequestResponseInfo item = body(1, 2);
+
+		ContentFingerprint fingerprint = httpRequestResponseHelper.getContentFingerprint(item, session);
+		assertEquals(2, fingerprint.getByteCount());
+		assertSame(fingerprint, item.getContentFingerprint());
+		session.setStorageDl(new byte[] { 0, 0, 0 });
+		assertSame(fingerprint, httpRequestResponseHelper.getContentFingerprint(item, session));
+
+		// body cut short by the end of the capture
+		assertEquals(1, httpRequestResponseHelper.getContentFingerprint(body(2, 5), session).getByteCount());
+	}
+
+	private HttpRequestResponseInfo body(int... offsetLengths) {
+		HttpRequestResponseInfo item = new HttpRequestResponseInfo();
+		SortedMap<Integer, Integer> contentOffsetLength = new TreeMap<Integer, Integer>();
+		for (int idx = 0; idx < offsetLengths.length; idx += 2) {
+			contentOffsetLength.put(offsetLengths[idx], offsetLengths[idx + 1]);
+		}
+		item.setDirection(HttpDirection.RESPONSE);
+		item.setContentOffsetLength(contentOffsetLength);
+		item.setPacketDirection(PacketDirection.DOWNLINK);
+		return item;
+	}
+
 	@Ignore
 	@Test
 	public void isSameContent() {
@@ -0,0 +1,159 @@
+package com.att.aro.core.packetanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.packetanalysis.IImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.ImageInfo;
+import com.att.aro.core.packetanalysis.pojo.ImageTrial;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
+
+public class ImageAnalysisImplTest extends BaseTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	IImageAnalysis imageAnalysis;
+	PacketAnalyzerResult tracedata;
+	Session session01;
+	HttpRequestResponseInfo request01;
+	HttpRequestResponseInfo response01;
+	HttpRequestResponseInfo request02;
+	HttpRequestResponseInfo response02;
+	HttpRequestResponseInfo response03;
+
+	@Before
+	public void setup() throws IOException {
+		imageAnalysis = context.getBean(IImageAnalysis.class);
+
+		File imageFolder = folder.newFolder("Image");
+		writeJpeg(new File(imageFolder, "photo.jpg"), 320, 240);
+
+		TraceDirectoryResult traceresult = Mockito.mock(TraceDirectoryResult.class);
+		Mockito.when(traceresult.getTraceDirectory()).thenReturn(folder.getRoot().getAbsolutePath());
+
+		request01 = request("/images/photo.jpg");
+		response01 = response(request01, "image/jpeg");
+		request02 = request("/other/PHOTO.JPG");
+		response02 = response(request02, "image/jpeg");
+		response03 = response(request01, "text/html");
+
+		session01 = Mockito.mock(Session.class);
+		Mockito.when(session01.getRequestResponseInfo()).thenReturn(Arrays.asList(request01, response01, request02, response02, response03));
+		Mockito.when(session01.getDomainName()).thenReturn("www.example.com");
+		List<Session> sessionList = new ArrayList<Session>();
+		sessionList.add(session01);
+
+		tracedata = new PacketAnalyzerResult();
+		tracedata.setTraceresult(traceresult);
+		tracedata.setSessionlist(sessionList);
+	}
+
+	@Test
+	public void analyze_readsEveryImageResponse() {
+		ImageAnalysis result = imageAnalysis.analyze(tracedata, EnumSet.noneOf(ImageTrial.class));
+
+		assertEquals(2, result.getImages().size());
+		ImageInfo first = result.getImages().get(0);
+		assertSame(response01, first.getResponse());
+		assertSame(request01, first.getPrecedingRequest());
+		assertSame(session01, first.getSession());
+		assertEquals("photo.jpg", first.getFileName());
+		assertTrue(first.isJpeg());
+		assertEquals(320, first.getWidth());
+		assertEquals(240, first.getHeight());
+		assertTrue(first.getFileSize() > 0);
+		assertEquals(0, first.getMidQualitySize());
+
+		// url names are matched to extracted files ignoring case
+		ImageInfo second = result.getImages().get(1);
+		assertSame(request02, second.getPrecedingRequest());
+		assertEquals(320, second.getWidth());
+	}
+
+	@Test
+	public void analyze_runsCompressionTrial() {
+		ImageAnalysis result = imageAnalysis.analyze(tracedata, EnumSet.of(ImageTrial.COMPRESSION));
+
+		ImageInfo image = result.getImages().get(0);
+		assertTrue(image.getMidQualitySize() > 0);
+		assertTrue(image.getLowQualitySize() > 0);
+		assertTrue(new File(result.getCompressedFolderPath() + "photo_compressed_85.0.jpg").isFile());
+		assertTrue(new File(result.getCompressedFolderPath() + "photo_compressed_70.0.jpg").isFile());
+	}
+
+	@Test
+	public void analyze_isSharedUntilNewTrialsAreAsked() {
+		ImageAnalysis first = imageAnalysis.analyze(tracedata, EnumSet.of(ImageTrial.COMPRESSION));
+		assertSame(first, tracedata.getImageAnalysis());
+		assertSame(first, imageAnalysis.analyze(tracedata, EnumSet.noneOf(ImageTrial.class)));
+
+		ImageAnalysis second = imageAnalysis.analyze(tracedata, EnumSet.of(ImageTrial.METADATA));
+		assertTrue(second.hasTrial(ImageTrial.COMPRESSION));
+		assertTrue(second.hasTrial(ImageTrial.METADATA));
+		assertFalse(second.getImages().get(0).isMetadataPresent());
+	}
+
+	@Test
+	public void analyze_withoutTraceDirectory() {
+		tracedata.setTraceresult(null);
+		ImageAnalysis result = imageAnalysis.analyze(tracedata, EnumSet.of(ImageTrial.COMPRESSION));
+
+		assertEquals(2, result.getImages().size());
+		assertEquals(-1, result.getImages().get(0).getWidth());
+	}
+
+	private HttpRequestResponseInfo request(String objName) {
+		HttpRequestResponseInfo request = Mockito.mock(HttpRequestResponseInfo.class);
+		Mockito.when(request.getDirection()).thenReturn(HttpDirection.REQUEST);
+		Mockito.when(request.getObjName()).thenReturn(objName);
+		return request;
+	}
+
+	private HttpRequestResponseInfo response(HttpRequestResponseInfo request, String contentType) {
+		HttpRequestResponseInfo response = Mockito.mock(HttpRequestResponseInfo.class);
+		Mockito.when(response.getDirection()).thenReturn(HttpDirection.RESPONSE);
+		Mockito.when(response.getContentType()).thenReturn(contentType);
+		Mockito.when(response.getAssocReqResp()).thenReturn(request);
+		return response;
+	}
+
+	private void writeJpeg(File file, int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		Random random = new Random(1);
+		for (int idx = 0; idx < 200; idx++) {
+			graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+			graphics.fillOval(random.nextInt(width), random.nextInt(height), 20, 20);
+		}
+		graphics.dispose();
+		ImageIO.write(image, "jpg", file);
+	}
+}
@@ -0,0 +1,355 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.configuration.IProfileFactory;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.packetanalysis.ILiveTraceAnalyzer;
+import com.att.aro.core.packetanalysis.ILiveTraceListener;
+import com.att.aro.core.packetanalysis.IRrcStateRangeFactory;
+import com.att.aro.core.packetanalysis.ISessionManager;
+import com.att.aro.core.packetanalysis.IThroughputCalculator;
+import com.att.aro.core.packetanalysis.pojo.LiveTraceSnapshot;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.Throughput;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
+import com.att.aro.core.packetreader.IPacketService;
+import com.att.aro.core.packetreader.impl.TailingFileInputStream;
+import com.att.aro.pcap.packetrebuild.PCapFileWriter;
+
+public class LiveTraceAnalyzerImplTest extends BaseTest {
+
+	private static final long START_MICROS = 1500000000000000L;
+	private static final byte[] DEVICE = { 10, 0, 0, 2 };
+	private static final byte[] SERVER = { 93, (byte) 184, (byte) 216, 34 };
+	private static final byte[] RESOLVER = { 8, 8, 8, 8 };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	ILiveTraceAnalyzer analyzer;
+	IProfileFactory profilefactory;
+	Profile profile;
+	File pcap;
+
+	@Before
+	public void setUp() {
+		analyzer = context.getBean(ILiveTraceAnalyzer.class);
+		profilefactory = context.getBean(IProfileFactory.class);
+		profile = profilefactory.createLTEdefault();
+		pcap = new File(folder.getRoot(), "traffic.cap");
+	}
+
+	@After
+	public void tearDown() {
+		analyzer.setSnapshotInterval(2000);
+	}
+
+	@Test
+	public void analyze_replayMatchesWholeTrace() throws Exception {
+		PCapFileWriter writer = new PCapFileWriter(pcap);
+		writeTrace(writer, 0, 3);
+		writer.close();
+
+		LiveTraceSnapshot last = analyzer.analyze(new FileInputStream(pcap), profile, null).get(10, TimeUnit.SECONDS);
+
+		assertTrue(last.isLast());
+		assertEquals(3 * 9, last.getPacketCount());
+		assertEquals(60.31, last.getTraceDuration(), 1e-6);
+
+		// one session per connection, the DNS exchanges after the TCP sessions
+		List<Session> sessions = last.getSessions();
+		assertEquals(6, sessions.size());
+		for (int idx = 0; idx < 3; idx++) {
+			assertFalse(sessions.get(idx).isUDP());
+			assertEquals(7, sessions.get(idx).getPackets().size());
+			assertEquals(40000 + idx, sessions.get(idx).getLocalPort());
+			assertEquals("example.com", sessions.get(idx).getRemoteHostName());
+			assertTrue(sessions.get(3 + idx).isUDP());
+			assertEquals(2, sessions.get(3 + idx).getUDPPackets().size());
+		}
+
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		for (Session session : sessions) {
+			packets.addAll(session.isUDP() ? session.getUDPPackets() : session.getPackets());
+		}
+		Collections.sort(packets);
+		long bytes = 0;
+		for (PacketInfo packet : packets) {
+			bytes += packet.getLen();
+		}
+		assertEquals(bytes, last.getUploadBytes() + last.getDownloadBytes());
+		assertRanges(context.getBean(IRrcStateRangeFactory.class).create(packets, profile, last.getTraceDuration()),
+				last.getRrcStateRanges());
+		assertThroughput(context.getBean(IThroughputCalculator.class).calculateThroughput(0, last.getTraceDuration(),
+				profile.getThroughputWindow(), packets), last.getThroughput());
+	}
+
+	@Test
+	public void analyze_followsGrowingFile() throws Exception {
+		final List<LiveTraceSnapshot> snapshots = new CopyOnWriteArrayList<LiveTraceSnapshot>();
+		analyzer.setSnapshotInterval(20);
+		TailingFileInputStream input = new TailingFileInputStream(pcap, 10);
+		Future<LiveTraceSnapshot> future = analyzer.analyze(input, profile, new ILiveTraceListener() {
+			@Override
+			public void snapshotUpdated(LiveTraceSnapshot snapshot) {
+				snapshots.add(snapshot);
+			}
+		});
+
+		PCapFileWriter writer = new PCapFileWriter(pcap);
+		writeTrace(writer, 0, 1);
+		waitForPackets(snapshots, 9);
+		writeTrace(writer, 1, 2);
+		writer.close();
+		input.finish();
+
+		LiveTraceSnapshot last = future.get(10, TimeUnit.SECONDS);
+		assertEquals(18, last.getPacketCount());
+		assertEquals(4, last.getSessions().size());
+		assertSame(last, snapshots.get(snapshots.size() - 1));
+		assertFalse(snapshots.get(0).isLast());
+	}
+
+	@Test
+	public void analyze_cancelClosesStream() throws Exception {
+		TailingFileInputStream input = new TailingFileInputStream(pcap, 10);
+		Future<LiveTraceSnapshot> future = analyzer.analyze(input, profile, null);
+		Thread.sleep(50);
+		assertTrue(future.cancel(true));
+		long end = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < end) {
+			try {
+				input.read();
+			} catch (IOException e) {
+				return;
+			}
+		}
+		fail("stream still open");
+	}
+
+	@Test
+	public void liveTrace_rrcStateRangesMatchWholeTrace() {
+		IRrcStateRangeFactory staterange = context.getBean(IRrcStateRangeFactory.class);
+		IPacketService packetservice = context.getBean(IPacketService.class);
+		Profile[] profiles = { profilefactory.createLTEdefault(), profilefactory.create3Gdefault(),
+				profilefactory.createWiFidefault() };
+		Random random = new Random(3);
+		for (Profile each : profiles) {
+			LiveTrace trace = new LiveTrace(context.getBean(ISessionManager.class), staterange, each);
+			List<PacketInfo> packets = new ArrayList<PacketInfo>();
+			long time = START_MICROS;
+			for (int idx = 0; idx < 2000; idx++) {
+				double gap = random.nextDouble();
+				time += (long) (1000000 * (gap < 0.85 ? gap * 0.05 : gap < 0.95 ? gap * 3 : gap * 40));
+				boolean up = random.nextBoolean();
+				byte[] frame = frame(up, up ? SERVER : DEVICE, udp(5000, 5000, new byte[random.nextInt(1400)]), 17);
+				PacketInfo packet = new PacketInfo(packetservice.createPacketFromPcap(1, time / 1000000, time % 1000000,
+						frame.length, frame, null));
+				trace.add(packet);
+				packets.add(packet);
+				if (idx % 50 == 49) {
+					LiveTraceSnapshot snapshot = trace.snapshot(false);
+					List<RrcStateRange> expected = staterange.create(packets, each, snapshot.getTraceDuration());
+					assertRanges(expected, snapshot.getRrcStateRanges());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void liveTrace_portUsedAgainKeepsEverySession() {
+		IPacketService packetservice = context.getBean(IPacketService.class);
+		LiveTrace trace = new LiveTrace(context.getBean(ISessionManager.class), context.getBean(IRrcStateRangeFactory.class),
+				profile);
+		// two connections from port 40000, the second starts with a new sequence number after the first ended
+		int[] seqs = { 100, 9000 };
+		long time = START_MICROS;
+		for (int seq : seqs) {
+			trace.add(packet(packetservice, frame(true, SERVER, tcp(40000, 80, seq, 0, 0x02, new byte[0]), 6), time));
+			trace.add(packet(packetservice, frame(false, SERVER, tcp(80, 40000, 500, seq + 1, 0x12, new byte[0]), 6), time + 50000));
+			trace.add(packet(packetservice, frame(true, SERVER, tcp(40000, 80, seq + 1, 501, 0x11, new byte[0]), 6), time + 60000));
+			trace.add(packet(packetservice, frame(false, SERVER, tcp(80, 40000, 501, seq + 2, 0x11, new byte[0]), 6), time + 100000));
+			trace.add(packet(packetservice, frame(true, SERVER, tcp(40000, 80, seq + 2, 502, 0x10, new byte[0]), 6), time + 110000));
+			time += 5000000;
+		}
+
+		List<Session> sessions = trace.snapshot(false).getSessions();
+		assertEquals(2, sessions.size());
+		for (Session session : sessions) {
+			assertEquals(40000, session.getLocalPort());
+			assertEquals(5, session.getPackets().size());
+		}
+	}
+
+	@Test
+	public void liveTrace_largeConnectionAssembledAsItGrows() {
+		IPacketService packetservice = context.getBean(IPacketService.class);
+		final ISessionManager sessionmanager = context.getBean(ISessionManager.class);
+		final int[] assembled = new int[1];
+		ISessionManager counting = new ISessionManager() {
+			@Override
+			public List<Session> assembleSession(List<PacketInfo> packets) {
+				assembled[0] += packets.size();
+				return sessionmanager.assembleSession(packets);
+			}
+
+			@Override
+			public List<Session> assembleSession(List<PacketInfo> packets, List<TraceWindow> windows) {
+				throw new UnsupportedOperationException();
+			}
+		};
+		LiveTrace trace = new LiveTrace(counting, context.getBean(IRrcStateRangeFactory.class), profile);
+		int count = 20 * LiveTrace.LARGE_CONNECTION;
+		LiveTraceSnapshot snapshot = null;
+		for (int idx = 0; idx < count; idx++) {
+			long time = START_MICROS + idx * 10000L;
+			trace.add(packet(packetservice, frame(idx % 2 == 0, SERVER, udp(5000, 5000, new byte[100]), 17), time));
+			if (idx % 10 == 9) {
+				snapshot = trace.snapshot(false);
+				assertEquals(1, snapshot.getSessions().size());
+			}
+		}
+		// all packets again for every snapshot would be count * count / 20
+		assertTrue(assembled[0] + " packets assembled", assembled[0] < 10 * count);
+		assertTrue(snapshot.getSessions().get(0).getUDPPackets().size() < count);
+
+		snapshot = trace.snapshot(true);
+		assertEquals(count, snapshot.getSessions().get(0).getUDPPackets().size());
+	}
+
+	private static PacketInfo packet(IPacketService packetservice, byte[] frame, long micros) {
+		return new PacketInfo(packetservice.createPacketFromPcap(1, micros / 1000000, micros % 1000000, frame.length, frame, null));
+	}
+
+	private void waitForPackets(List<LiveTraceSnapshot> snapshots, int count) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < end) {
+			if (!snapshots.isEmpty() && snapshots.get(snapshots.size() - 1).getPacketCount() == count) {
+				return;
+			}
+			Thread.sleep(10);
+		}
+		fail("no snapshot with " + count + " packets");
+	}
+
+	private void assertRanges(List<RrcStateRange> expected, List<RrcStateRange> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int idx = 0; idx < expected.size(); idx++) {
+			assertEquals(expected.get(idx).getState(), actual.get(idx).getState());
+			assertEquals(expected.get(idx).getBeginTime(), actual.get(idx).getBeginTime(), 0);
+			assertEquals(expected.get(idx).getEndTime(), actual.get(idx).getEndTime(), 0);
+		}
+	}
+
+	private void assertThroughput(List<Throughput> expected, List<Throughput> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int idx = 0; idx < expected.size(); idx++) {
+			assertEquals(expected.get(idx).getTime(), actual.get(idx).getTime(), 1e-9);
+			assertEquals(expected.get(idx).getKbps(), actual.get(idx).getKbps(), 1e-9);
+		}
+	}
+
+	/**
+	 * A DNS lookup of example.com and an HTTP request on a connection of its
+	 * own, every 30 seconds.
+	 */
+	private void writeTrace(PCapFileWriter writer, int from, int to) throws IOException {
+		for (int round = from; round < to; round++) {
+			long time = START_MICROS + round * 30000000L;
+			int port = 40000 + round;
+			writer.addPacket(frame(true, RESOLVER, udp(port + 1000, 53, dns(round, false)), 17), time);
+			writer.addPacket(frame(false, RESOLVER, udp(53, port + 1000, dns(round, true)), 17), time + 50000);
+			byte[] request = "GET / HTTP/1.1\r\nHost: example.com\r\n\r\n".getBytes("US-ASCII");
+			byte[] response = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello".getBytes("US-ASCII");
+			writer.addPacket(frame(true, SERVER, tcp(port, 80, 100, 0, 0x02, new byte[0]), 6), time + 100000);
+			writer.addPacket(frame(false, SERVER, tcp(80, port, 500, 101, 0x12, new byte[0]), 6), time + 150000);
+			writer.addPacket(frame(true, SERVER, tcp(port, 80, 101, 501, 0x10, new byte[0]), 6), time + 160000);
+			writer.addPacket(frame(true, SERVER, tcp(port, 80, 101, 501, 0x18, request), 6), time + 200000);
+			writer.addPacket(frame(false, SERVER, tcp(80, port, 501, 101 + request.length, 0x10, new byte[0]), 6), time + 250000);
+			writer.addPacket(frame(false, SERVER, tcp(80, port, 501, 101 + request.length, 0x18, response), 6), time + 300000);
+			writer.addPacket(frame(true, SERVER, tcp(port, 80, 101 + request.length, 501 + response.length, 0x10,
+					new byte[0]), 6), time + 310000);
+		}
+	}
+
+	private static byte[] frame(boolean up, byte[] remote, byte[] segment, int protocol) {
+		ByteBuffer buffer = ByteBuffer.allocate(14 + 20 + segment.length);
+		buffer.position(12);
+		buffer.putShort((short) 0x0800);
+		buffer.put((byte) 0x45).put((byte) 0).putShort((short) (20 + segment.length)).putInt(0);
+		buffer.put((byte) 64).put((byte) protocol).putShort((short) 0);
+		buffer.put(up ? DEVICE : remote).put(up ? remote : DEVICE);
+		buffer.put(segment);
+		return buffer.array();
+	}
+
+	private static byte[] tcp(int sourcePort, int destinationPort, int seq, int ack, int flags, byte[] payload) {
+		ByteBuffer buffer = ByteBuffer.allocate(20 + payload.length);
+		buffer.putShort((short) sourcePort).putShort((short) destinationPort).putInt(seq).putInt(ack);
+		buffer.put((byte) 0x50).put((byte) flags).putShort((short) 65535).putInt(0);
+		buffer.put(payload);
+		return buffer.array();
+	}
+
+	private static byte[] udp(int sourcePort, int destinationPort, byte[] payload) {
+		ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+		buffer.putShort((short) sourcePort).putShort((short) destinationPort).putShort((short) (8 + payload.length))
+				.putShort((short) 0);
+		buffer.put(payload);
+		return buffer.array();
+	}
+
+	private static byte[] dns(int id, boolean response) {
+		ByteBuffer buffer = ByteBuffer.allocate(29 + (response ? 16 : 0));
+		buffer.putShort((short) id).putShort((short) (response ? 0x8180 : 0x0100));
+		buffer.putShort((short) 1).putShort((short) (response ? 1 : 0)).putShort((short) 0).putShort((short) 0);
+		buffer.put((byte) 7).put("example".getBytes()).put((byte) 3).put("com".getBytes()).put((byte) 0);
+		buffer.putShort((short) 1).putShort((short) 1);
+		if (response) {
+			buffer.putShort((short) 0xc00c).putShort((short) 1).putShort((short) 1).putInt(300).putShort((short) 4);
+			buffer.put(SERVER);
+		}
+		return buffer.array();
+	}
+}
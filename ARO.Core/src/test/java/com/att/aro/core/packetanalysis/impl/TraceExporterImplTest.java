@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.packetanalysis.ITraceExporter;
+import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
+import com.att.aro.core.packetanalysis.pojo.ApplicationSelection;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TimeRange;
+import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
+import com.att.aro.core.packetreader.IPacketService;
+import com.att.aro.core.packetreader.pojo.Packet;
+import com.att.aro.pcap.packetrebuild.PCapFileWriter;
+
+public class TraceExporterImplTest extends BaseTest {
+
+	private static final long START_SECONDS = 1500000000L;
+	private static final byte[] DEVICE = { 10, 0, 0, 2 };
+	private static final byte[] SERVER = { 93, (byte) 184, (byte) 216, 34 };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	ITraceExporter exporter;
+	File source;
+	File target;
+	TraceDirectoryResult trace;
+	List<PacketInfo> packets;
+	List<long[]> records;
+
+	/**
+	 * Six packets ten seconds apart, of app0 and app1 in turn, with a gps,
+	 * cpu, appid, time and video file next to them.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		exporter = context.getBean(ITraceExporter.class);
+		IPacketService packetservice = context.getBean(IPacketService.class);
+		source = folder.newFolder("trace");
+		target = new File(folder.getRoot(), "export");
+
+		packets = new ArrayList<PacketInfo>();
+		records = new ArrayList<long[]>();
+		PCapFileWriter writer = new PCapFileWriter(new File(source, "traffic.cap"));
+		long offset = 24;
+		for (int idx = 0; idx < 6; idx++) {
+			byte[] frame = frame(idx % 2 == 0, new byte[100 + idx * 10]);
+			long time = (START_SECONDS + idx * 10) * 1000000L + 250000;
+			writer.addPacket(frame, time);
+			Packet packet = packetservice.createPacketFromPcap(1, time / 1000000, time % 1000000, frame.length, frame, null);
+			packet.setRecordOffset(offset);
+			PacketInfo info = new PacketInfo("app" + idx % 2, packet);
+			info.setTimestamp(packet.getTimeStamp() - START_SECONDS);
+			packets.add(info);
+			records.add(new long[] { offset, 16 + frame.length });
+			offset += 16 + frame.length;
+		}
+		writer.close();
+
+		write("time", "Synchronized timestamps", String.valueOf(START_SECONDS), "0", String.valueOf(START_SECONDS + 60));
+		write("appid", "0", "1", "0", "1", "0", "1");
+		write("gps_events", (START_SECONDS + 5) + " ACTIVE", (START_SECONDS + 25) + " DISABLED", (START_SECONDS + 50) + " ACTIVE");
+		write("cpu", (START_SECONDS + 10) + " 20", (START_SECONDS + 20) + " 30", (START_SECONDS + 30) + " 40",
+				(START_SECONDS + 50) + " 50");
+		write("device_details", "com.example", "Pixel");
+		write("video.mp4", "not a video");
+
+		trace = new TraceDirectoryResult();
+		trace.setTraceDirectory(source.getAbsolutePath());
+		trace.setAllpackets(packets);
+		trace.setPcapTime0(START_SECONDS);
+		trace.setAppInfos(Arrays.asList("app0", "app1"));
+	}
+
+	@Test
+	public void export_copiesRecordsOfTimeRange() throws IOException {
+		AnalysisFilter filter = new AnalysisFilter(null, new TimeRange(15, 45), null);
+
+		assertEquals(3, exporter.export(trace, filter, null, target.getAbsolutePath()));
+
+		assertArrayEquals(capture(2, 3, 4), read("traffic.cap"));
+		assertEquals(Arrays.asList("0", "1", "0"), lines("appid"));
+		// the state before the window still holds at its start
+		assertEquals(Arrays.asList((START_SECONDS + 5) + " ACTIVE", (START_SECONDS + 25) + " DISABLED"), lines("gps_events"));
+		assertEquals(Arrays.asList((START_SECONDS + 20) + " 30", (START_SECONDS + 30) + " 40"), lines("cpu"));
+		assertEquals(String.valueOf(START_SECONDS), lines("time").get(1));
+		assertEquals(START_SECONDS + 45, Double.parseDouble(lines("time").get(3)), 1e-6);
+		assertEquals(Arrays.asList("com.example", "Pixel"), lines("device_details"));
+		assertFalse(new File(target, "video.mp4").exists());
+	}
+
+	@Test
+	public void export_selectedApplication() throws IOException {
+		Map<String, ApplicationSelection> apps = new HashMap<String, ApplicationSelection>();
+		apps.put("app1", new ApplicationSelection("app1", Collections.<InetAddress>emptyList()));
+		AnalysisFilter filter = new AnalysisFilter(apps, null, null);
+
+		assertEquals(3, exporter.export(trace, filter, null, target.getAbsolutePath()));
+
+		assertArrayEquals(capture(1, 3, 5), read("traffic.cap"));
+		assertEquals(Arrays.asList("1", "1", "1"), lines("appid"));
+	}
+
+	@Test
+	public void export_withoutOffsetsWritesSameRecords() throws IOException {
+		for (PacketInfo packet : packets) {
+			packet.getPacket().setRecordOffset(-1);
+		}
+		AnalysisFilter filter = new AnalysisFilter(null, new TimeRange(15, 45), null);
+
+		assertEquals(3, exporter.export(trace, filter, null, target.getAbsolutePath()));
+
+		assertArrayEquals(capture(2, 3, 4), read("traffic.cap"));
+	}
+
+	@Test
+	public void export_changedCaptureWritesFromMemory() throws IOException {
+		// the record lengths no longer match where the offsets point
+		packets.get(3).getPacket().setRecordOffset(records.get(3)[0] + 4);
+		packets.remove(4);
+
+		assertEquals(5, exporter.export(trace, null, null, target.getAbsolutePath()));
+
+		assertArrayEquals(capture(0, 1, 2, 3, 5), read("traffic.cap"));
+	}
+
+	@Test
+	public void export_sessionPackets() throws IOException {
+		Session session = new Session(InetAddress.getByAddress(SERVER), 80, 40000);
+		session.setPackets(new ArrayList<PacketInfo>(Arrays.asList(packets.get(0), packets.get(4), packets.get(5))));
+
+		assertEquals(3, exporter.export(trace, null, Collections.singletonList(session), target.getAbsolutePath()));
+
+		assertArrayEquals(capture(0, 4, 5), read("traffic.cap"));
+	}
+
+	@Test
+	public void export_refusesTraceFolder() throws IOException {
+		byte[] before = Files.readAllBytes(new File(source, "traffic.cap").toPath());
+		try {
+			exporter.export(trace, null, null, source.getAbsolutePath());
+			fail("exported into the trace folder");
+		} catch (IOException e) {
+			assertArrayEquals(before, Files.readAllBytes(new File(source, "traffic.cap").toPath()));
+		}
+	}
+
+	@Test
+	public void export_refusesOtherFormats() throws IOException {
+		RandomAccessFile file = new RandomAccessFile(new File(source, "traffic.cap"), "rw");
+		file.writeInt(0x0a0d0d0a);
+		file.close();
+		try {
+			exporter.export(trace, null, null, target.getAbsolutePath());
+			fail("exported a pcapng capture");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("libpcap"));
+		}
+	}
+
+	/**
+	 * The file header and the given records of the source capture.
+	 */
+	private byte[] capture(int... indexes) throws IOException {
+		byte[] source = Files.readAllBytes(new File(this.source, "traffic.cap").toPath());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(source, 0, 24);
+		for (int index : indexes) {
+			out.write(source, (int) records.get(index)[0], (int) records.get(index)[1]);
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] read(String name) throws IOException {
+		return Files.readAllBytes(new File(target, name).toPath());
+	}
+
+	private List<String> lines(String name) throws IOException {
+		return Files.readAllLines(new File(target, name).toPath(), StandardCharsets.UTF_8);
+	}
+
+	private void write(String name, String... lines) throws IOException {
+		Files.write(new File(source, name).toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] frame(boolean up, byte[] payload) {
+		ByteBuffer buffer = ByteBuffer.allocate(14 + 20 + 8 + payload.length);
+		buffer.position(12);
+		buffer.putShort((short) 0x0800);
+		buffer.put((byte) 0x45).put((byte) 0).putShort((short) (28 + payload.length)).putInt(0);
+		buffer.put((byte) 64).put((byte) 17).putShort((short) 0);
+		buffer.put(up ? DEVICE : SERVER).put(up ? SERVER : DEVICE);
+		buffer.putShort((short) 40000).putShort((short) 40000).putShort((short) (8 + payload.length)).putShort((short) 0);
+		buffer.put(payload);
+		return buffer.array();
+	}
+}
@@ -0,0 +1,102 @@
+package com.att.aro.core.packetanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.packetanalysis.ITraceMemoryReporter;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
+import com.att.aro.core.packetanalysis.pojo.TraceMemoryReport;
+import com.att.aro.core.packetreader.pojo.Packet;
+
+public class TraceMemoryReporterImplTest extends BaseTest {
+
+	ITraceMemoryReporter reporter;
+	PacketAnalyzerResult tracedata;
+	Session session;
+
+	@Before
+	public void setUp() throws Exception {
+		reporter = context.getBean(ITraceMemoryReporter.class);
+
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		packets.add(new PacketInfo("app", new Packet(0, 0, 100, 0, new byte[100])));
+		packets.add(new PacketInfo("app", new Packet(1, 0, 60, 0, new byte[60])));
+		TraceDirectoryResult traceresult = new TraceDirectoryResult();
+		traceresult.setAllpackets(packets);
+
+		session = new Session(InetAddress.getByName("10.0.0.1"), 80, 40000);
+		session.setStorageUl(new byte[1000]);
+		session.setStorageDl(new byte[5000]);
+		TreeMap<Integer, PacketInfo> offsets = new TreeMap<Integer, PacketInfo>();
+		offsets.put(0, packets.get(0));
+		session.setPacketOffsetsUl(offsets);
+		session.setDomainName("www.example.com");
+
+		tracedata = new PacketAnalyzerResult();
+		tracedata.setTraceresult(traceresult);
+		tracedata.setSessionlist(Arrays.asList(session));
+	}
+
+	@Test
+	public void report_addsUpTheTrace() {
+		String host = "www.example.com";
+		session.setRequestResponseInfo(Arrays.asList(request(host), request(host)));
+
+		TraceMemoryReport report = reporter.report(tracedata);
+		assertEquals(2, report.getPacketCount());
+		assertEquals(2 * (TraceMemoryReporterImpl.PACKET_OBJECTS + TraceMemoryReporterImpl.ARRAY_HEADER) + 160, report.getPacketBytes());
+		assertEquals(1, report.getSessionCount());
+		assertEquals(2 * TraceMemoryReporterImpl.ARRAY_HEADER + 6000 + TraceMemoryReporterImpl.MAP_ENTRY, report.getSessionStorageBytes());
+		assertEquals(2, report.getRequestResponseCount());
+		assertEquals(2 * TraceMemoryReporterImpl.REQUEST_RESPONSE_OBJECT, report.getRequestResponseBytes());
+		// "app", the domain name literal shared with the host name, "text/html"
+		assertEquals(TraceMemoryReporterImpl.stringBytes("app") + TraceMemoryReporterImpl.stringBytes(host)
+				+ TraceMemoryReporterImpl.stringBytes("text/html"), report.getStringBytes());
+		assertEquals(0, report.getDuplicateStringBytes());
+		assertEquals(report.getPacketBytes() + report.getSessionStorageBytes() + report.getRequestResponseBytes()
+				+ report.getStringBytes(), report.getTotalBytes());
+		assertTrue(report.toString().startsWith("trace heap ~"));
+	}
+
+	@Test
+	public void report_countsDuplicateStrings() {
+		String host = new String("cdn.example.com");
+		String copy = new String("cdn.example.com");
+		session.setRequestResponseInfo(Arrays.asList(request(host), request(copy)));
+
+		TraceMemoryReport report = reporter.report(tracedata);
+		assertEquals(TraceMemoryReporterImpl.stringBytes(copy), report.getDuplicateStringBytes());
+	}
+
+	@Test
+	public void report_withoutTraceResult() {
+		tracedata.setTraceresult(null);
+		session.setRequestResponseInfo(new ArrayList<HttpRequestResponseInfo>());
+		session.getPackets().add(new PacketInfo(new Packet(0, 0, 40, 0, new byte[40])));
+
+		TraceMemoryReport report = reporter.report(tracedata);
+		assertEquals(1, report.getPacketCount());
+		assertEquals(TraceMemoryReporterImpl.PACKET_OBJECTS + TraceMemoryReporterImpl.ARRAY_HEADER + 40, report.getPacketBytes());
+	}
+
+	private HttpRequestResponseInfo request(String host) {
+		HttpRequestResponseInfo rrInfo = new HttpRequestResponseInfo();
+		rrInfo.setHostName(host);
+		rrInfo.setContentType("text/html");
+		return rrInfo;
+	}
+}
@@ -0,0 +1,472 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.configuration.IProfileFactory;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.packetanalysis.ISessionManager;
+import com.att.aro.core.packetanalysis.IVideoUsageAnalysis;
+import com.att.aro.core.packetanalysis.pojo.Burst;
+import com.att.aro.core.packetanalysis.pojo.BurstCollectionAnalysisData;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.TimeRange;
+import com.att.aro.core.packetanalysis.pojo.TraceFileResult;
+import com.att.aro.core.packetanalysis.pojo.TraceWindow;
+import com.att.aro.core.packetreader.IPacketService;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+import com.att.aro.core.peripheral.pojo.BluetoothInfo;
+import com.att.aro.core.peripheral.pojo.CameraInfo;
+import com.att.aro.core.peripheral.pojo.CpuActivity;
+import com.att.aro.core.peripheral.pojo.CpuActivityList;
+import com.att.aro.core.peripheral.pojo.GpsInfo;
+import com.att.aro.core.peripheral.pojo.ScreenStateInfo;
+import com.att.aro.core.peripheral.pojo.UserEvent;
+import com.att.aro.core.peripheral.pojo.UserEvent.UserEventType;
+
+public class TraceWindowsTest extends BaseTest {
+
+	private static final long START_MICROS = 1500000000000000L;
+	private static final byte[] DEVICE = { 10, 0, 0, 2 };
+	private static final byte[] RESOLVER = { 8, 8, 8, 8 };
+	private static final byte[][] SERVERS = { { 93, (byte) 184, (byte) 216, 34 }, { 93, (byte) 184, (byte) 216, 35 },
+			{ 93, (byte) 184, (byte) 216, 36 } };
+	private static final String[] NAMES = { "a.example.com", "b.example.com", "c.example.com" };
+	private static final int WINDOW_PACKETS = 200;
+
+	IProfileFactory profilefactory;
+	IPacketService packetservice;
+
+	@Before
+	public void setUp() {
+		profilefactory = context.getBean(IProfileFactory.class);
+		packetservice = context.getBean(IPacketService.class);
+	}
+
+	@Test
+	public void split_cutsAtIdleGaps() throws Exception {
+		Profile profile = profilefactory.createLTEdefault();
+		double gap = TraceWindows.cutGap(profile) + 1;
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		double time = 1;
+		for (int idx = 0; idx < 12; idx++) {
+			// a long gap after every third packet, the first one too soon
+			time += idx % 3 == 0 && idx > 0 ? gap : 0.1;
+			add(packets, true, SERVERS[0], udp(5000, 5000, new byte[10]), 17, time);
+		}
+
+		List<TraceWindow> windows = TraceWindows.split(packets, profile, 100 + 4 * gap, 4);
+
+		assertEquals(2, windows.size());
+		assertEquals(0, windows.get(0).getFirstPacket());
+		assertEquals(6, windows.get(0).getEndPacket());
+		assertEquals(0, windows.get(0).getTimeRange().getBeginTime(), 0);
+		assertEquals(packets.get(6).getTimeStamp(), windows.get(0).getTimeRange().getEndTime(), 0);
+		assertEquals(6, windows.get(1).getFirstPacket());
+		assertEquals(12, windows.get(1).getEndPacket());
+		assertEquals(packets.get(6).getTimeStamp(), windows.get(1).getTimeRange().getBeginTime(), 0);
+		assertEquals(100 + 4 * gap, windows.get(1).getTimeRange().getEndTime(), 0);
+		assertEquals(6, windows.get(1).getPackets(packets).size());
+	}
+
+	@Test
+	public void split_keepsShortOrUnsortedTracesWhole() throws Exception {
+		Profile profile = profilefactory.createLTEdefault();
+		double gap = TraceWindows.cutGap(profile) + 1;
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		for (int idx = 0; idx < 6; idx++) {
+			add(packets, true, SERVERS[0], udp(5000, 5000, new byte[10]), 17, 1 + idx * gap);
+		}
+		assertEquals(1, TraceWindows.split(packets, profile, 100, 4).size());
+		assertEquals(3, TraceWindows.split(packets, profile, 100, 2).size());
+
+		Collections.swap(packets, 0, 1);
+		assertEquals(1, TraceWindows.split(packets, profile, 100, 2).size());
+		assertEquals(1, TraceWindows.split(new ArrayList<PacketInfo>(), profile, 100, 2).size());
+	}
+
+	@Test
+	public void split_3gWindowsStartOnUplink() throws Exception {
+		Profile profile = profilefactory.create3Gdefault();
+		double gap = TraceWindows.cutGap(profile) + 1;
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		for (int idx = 0; idx < 5; idx++) {
+			add(packets, idx != 2, SERVERS[0], udp(5000, 5000, new byte[10]), 17, 1 + idx * gap);
+		}
+		List<TraceWindow> windows = TraceWindows.split(packets, profile, 1000, 2);
+		assertEquals(2, windows.size());
+		assertEquals(3, windows.get(1).getFirstPacket());
+	}
+
+	@Test
+	public void rrcStateRanges_cutOutsideIdleFallsBackToSinglePass() throws Exception {
+		Profile profile = profilefactory.createLTEdefault();
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		for (int idx = 0; idx < 20; idx++) {
+			add(packets, idx % 2 == 0, SERVERS[0], udp(5000, 5000, new byte[10]), 17, 1 + idx * 0.05);
+		}
+		double end = 30;
+		double cut = packets.get(10).getTimeStamp();
+		List<TraceWindow> windows = new ArrayList<TraceWindow>();
+		windows.add(new TraceWindow(0, 10, new TimeRange(0, cut)));
+		windows.add(new TraceWindow(10, 20, new TimeRange(cut, end)));
+		RrcStateRangeFactoryImpl staterange = new RrcStateRangeFactoryImpl();
+
+		List<RrcStateRange> expected = staterange.create(packets, profile, end);
+		List<RrcStateRange> actual = staterange.create(packets, profile, end, windows);
+
+		assertEquals(expected.size(), actual.size());
+		for (int idx = 0; idx < expected.size(); idx++) {
+			assertEquals(expected.get(idx).getState(), actual.get(idx).getState());
+			assertEquals(expected.get(idx).getBeginTime(), actual.get(idx).getBeginTime(), 0);
+			assertEquals(expected.get(idx).getEndTime(), actual.get(idx).getEndTime(), 0);
+		}
+	}
+
+	@Test
+	public void finalResult_windowedSameAsSinglePass() throws Exception {
+		Profile[] profiles = { profilefactory.createLTEdefault(), profilefactory.create3Gdefault(),
+				profilefactory.createWiFidefault() };
+		for (Profile profile : profiles) {
+			for (long seed = 1; seed <= 3; seed++) {
+				TraceFileResult single = trace(seed);
+				TraceFileResult windowed = trace(seed);
+				assertTrue(TraceWindows.split(windowed.getAllpackets(), profile, windowed.getTraceDuration(),
+						WINDOW_PACKETS).size() > 2);
+
+				PacketAnalyzerResult expected = analyzer(false).finalResult(single, profile, null);
+				PacketAnalyzerResult actual = analyzer(true).finalResult(windowed, profile, null);
+
+				assertSameResult(single.getAllpackets(), expected, windowed.getAllpackets(), actual);
+			}
+		}
+	}
+
+	private PacketAnalyzerImpl analyzer(boolean windowed) {
+		// own instances, other tests put mocks into the shared ones
+		RrcStateMachineFactoryImpl statemachinefactory = new RrcStateMachineFactoryImpl();
+		statemachinefactory.staterange = new RrcStateRangeFactoryImpl();
+		statemachinefactory.profilefactory = profilefactory;
+		BurstCollectionAnalysisImpl burstcollectionanalysis = new BurstCollectionAnalysisImpl();
+		burstcollectionanalysis.profilefactory = profilefactory;
+
+		PacketAnalyzerImpl analyzer = new PacketAnalyzerImpl();
+		analyzer.setSessionManager(context.getBean(ISessionManager.class));
+		analyzer.setRrcStateMachineFactory(statemachinefactory);
+		analyzer.setProfileFactory(profilefactory);
+		analyzer.setEnergyModelFactory(new EnergyModelFactoryImpl());
+		analyzer.setBurstCollectionAnalayzer(burstcollectionanalysis);
+		analyzer.setVideoUsageAnalayzer(mock(IVideoUsageAnalysis.class));
+		analyzer.setWindowed(windowed);
+		analyzer.windowPackets = WINDOW_PACKETS;
+		return analyzer;
+	}
+
+	private void assertSameResult(List<PacketInfo> expectedPackets, PacketAnalyzerResult expected,
+			List<PacketInfo> actualPackets, PacketAnalyzerResult actual) {
+		Map<PacketInfo, Integer> expectedIndex = index(expectedPackets);
+		Map<PacketInfo, Integer> actualIndex = index(actualPackets);
+
+		for (int idx = 0; idx < expectedPackets.size(); idx++) {
+			assertEquals(expectedPackets.get(idx).getTcpInfo(), actualPackets.get(idx).getTcpInfo());
+			assertEquals(expectedPackets.get(idx).getStateMachine(), actualPackets.get(idx).getStateMachine());
+		}
+
+		List<Session> expectedSessions = expected.getSessionlist();
+		List<Session> actualSessions = actual.getSessionlist();
+		assertEquals(expectedSessions.size(), actualSessions.size());
+		for (int idx = 0; idx < expectedSessions.size(); idx++) {
+			Session expectedSession = expectedSessions.get(idx);
+			Session actualSession = actualSessions.get(idx);
+			assertEquals(expectedSession.getRemoteIP(), actualSession.getRemoteIP());
+			assertEquals(expectedSession.getLocalPort(), actualSession.getLocalPort());
+			assertEquals(expectedSession.getRemotePort(), actualSession.getRemotePort());
+			assertEquals(expectedSession.isUDP(), actualSession.isUDP());
+			assertEquals(expectedSession.getRemoteHostName(), actualSession.getRemoteHostName());
+			assertEquals(expectedSession.getDomainName(), actualSession.getDomainName());
+			assertEquals(expectedSession.getBytesTransferred(), actualSession.getBytesTransferred());
+			assertEquals(expectedSession.getFileDownloadCount(), actualSession.getFileDownloadCount());
+			assertEquals(positions(expectedIndex, expectedSession.getAllPackets()),
+					positions(actualIndex, actualSession.getAllPackets()));
+			assertEquals(expectedIndex.get(expectedSession.getDnsResponsePacket()),
+					actualIndex.get(actualSession.getDnsResponsePacket()));
+			if (expectedSession.getSessionTermination() == null) {
+				assertNull(actualSession.getSessionTermination());
+			} else {
+				assertEquals(expectedIndex.get(expectedSession.getSessionTermination().getPacket()),
+						actualIndex.get(actualSession.getSessionTermination().getPacket()));
+			}
+			List<HttpRequestResponseInfo> expectedInfos = expectedSession.getRequestResponseInfo();
+			List<HttpRequestResponseInfo> actualInfos = actualSession.getRequestResponseInfo();
+			assertEquals(expectedInfos.size(), actualInfos.size());
+			for (int info = 0; info < expectedInfos.size(); info++) {
+				assertEquals(expectedInfos.get(info).getDirection(), actualInfos.get(info).getDirection());
+				assertEquals(expectedInfos.get(info).getHostName(), actualInfos.get(info).getHostName());
+				assertEquals(expectedInfos.get(info).getObjName(), actualInfos.get(info).getObjName());
+				assertEquals(expectedInfos.get(info).getStatusCode(), actualInfos.get(info).getStatusCode());
+				assertEquals(expectedInfos.get(info).getContentLength(), actualInfos.get(info).getContentLength());
+				assertEquals(expectedIndex.get(expectedInfos.get(info).getFirstDataPacket()),
+						actualIndex.get(actualInfos.get(info).getFirstDataPacket()));
+			}
+		}
+
+		assertEquals(expected.getStatistic().getTotalByte(), actual.getStatistic().getTotalByte());
+		assertEquals(expected.getStatistic().getTotalPackets(), actual.getStatistic().getTotalPackets());
+		assertEquals(expected.getStatistic().getPacketDuration(), actual.getStatistic().getPacketDuration(), 0);
+
+		List<RrcStateRange> expectedRanges = expected.getStatemachine().getStaterangelist();
+		List<RrcStateRange> actualRanges = actual.getStatemachine().getStaterangelist();
+		assertEquals(expectedRanges.size(), actualRanges.size());
+		for (int idx = 0; idx < expectedRanges.size(); idx++) {
+			assertEquals(expectedRanges.get(idx).getState(), actualRanges.get(idx).getState());
+			assertEquals(expectedRanges.get(idx).getBeginTime(), actualRanges.get(idx).getBeginTime(), 0);
+			assertEquals(expectedRanges.get(idx).getEndTime(), actualRanges.get(idx).getEndTime(), 0);
+		}
+		assertEquals(expected.getStatemachine().getTotalRRCEnergy(), actual.getStatemachine().getTotalRRCEnergy(), 1e-9);
+		assertEquals(expected.getStatemachine().getJoulesPerKilobyte(),
+				actual.getStatemachine().getJoulesPerKilobyte(), 1e-9);
+		assertEquals(expected.getEnergyModel().getTotalEnergyConsumed(),
+				actual.getEnergyModel().getTotalEnergyConsumed(), 1e-9);
+
+		BurstCollectionAnalysisData expectedBursts = expected.getBurstcollectionAnalysisData();
+		BurstCollectionAnalysisData actualBursts = actual.getBurstcollectionAnalysisData();
+		assertEquals(expectedBursts.getLongBurstCount(), actualBursts.getLongBurstCount());
+		assertEquals(expectedBursts.getTotalEnergy(), actualBursts.getTotalEnergy(), 1e-9);
+		assertEquals(expectedIndex.get(expectedBursts.getShortestPeriodPacketInfo()),
+				actualIndex.get(actualBursts.getShortestPeriodPacketInfo()));
+		assertEquals(expectedBursts.getBurstAnalysisInfo().size(), actualBursts.getBurstAnalysisInfo().size());
+		assertEquals(expectedBursts.getBurstCollection().size(), actualBursts.getBurstCollection().size());
+		for (int idx = 0; idx < expectedBursts.getBurstCollection().size(); idx++) {
+			Burst expectedBurst = expectedBursts.getBurstCollection().get(idx);
+			Burst actualBurst = actualBursts.getBurstCollection().get(idx);
+			assertEquals(positions(expectedIndex, expectedBurst.getPackets()),
+					positions(actualIndex, actualBurst.getPackets()));
+			assertEquals(expectedBurst.getBurstCategory(), actualBurst.getBurstCategory());
+			assertEquals(expectedBurst.isbLong(), actualBurst.isbLong());
+			assertEquals(expectedBurst.getEnergy(), actualBurst.getEnergy(), 1e-9);
+			assertEquals(expectedBurst.getActiveTime(), actualBurst.getActiveTime(), 1e-9);
+		}
+	}
+
+	private static Map<PacketInfo, Integer> index(List<PacketInfo> packets) {
+		Map<PacketInfo, Integer> index = new IdentityHashMap<PacketInfo, Integer>();
+		for (int idx = 0; idx < packets.size(); idx++) {
+			index.put(packets.get(idx), idx);
+		}
+		return index;
+	}
+
+	private static List<Integer> positions(Map<PacketInfo, Integer> index, List<PacketInfo> packets) {
+		List<Integer> positions = new ArrayList<Integer>(packets.size());
+		for (PacketInfo packet : packets) {
+			positions.add(index.get(packet));
+		}
+		return positions;
+	}
+
+	/**
+	 * HTTP on connections to a few servers looked up by DNS, connections that
+	 * stay open over idle gaps, new connections from a port in use, data sent
+	 * twice and other UDP. Made anew for every analysis, it changes the
+	 * packets.
+	 */
+	private TraceFileResult trace(long seed) throws Exception {
+		Random random = new Random(seed);
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		List<int[]> connections = new ArrayList<int[]>(); // server, port, uplink seq, downlink seq
+		List<UserEvent> userEvents = new ArrayList<UserEvent>();
+		CpuActivityList cpuActivities = new CpuActivityList();
+		double time = 0;
+		double cpuTime = 0;
+		int nextPort = 40000;
+		while (packets.size() < 3000) {
+			double gap = random.nextDouble();
+			if (gap >= 0.97 && !connections.isEmpty() && random.nextBoolean()) {
+				// a full segment right before the radio goes idle, no window starts after it
+				int[] connection = connections.get(random.nextInt(connections.size()));
+				add(packets, false, SERVERS[connection[0]], tcp(80, connection[1], connection[3], connection[2], 0x18,
+						new byte[1460]), 6, time + 0.02);
+				connection[3] += 1460;
+			}
+			time += gap < 0.9 ? gap * 0.3 : gap < 0.97 ? gap * 4 : 20 + gap * 60;
+			if (random.nextInt(8) == 0) {
+				userEvents.add(new UserEvent(UserEventType.SCREEN_TOUCH, time - 0.5, time - 0.4));
+			}
+			while (cpuTime < time) {
+				CpuActivity cpu = new CpuActivity();
+				cpu.setTimestamp(cpuTime);
+				cpu.setTotalCpuUsage(random.nextInt(100));
+				cpuActivities.add(cpu);
+				cpuTime += 1;
+			}
+			int action = random.nextInt(10);
+			if (connections.isEmpty() || action == 0) {
+				int[] connection;
+				if (!connections.isEmpty() && random.nextBoolean()) {
+					// a new connection on the ports of one that is still open
+					int[] old = connections.get(random.nextInt(connections.size()));
+					connection = new int[] { old[0], old[1], 1000 + random.nextInt(100000), 2000 + random.nextInt(100000) };
+				} else {
+					int server = random.nextInt(SERVERS.length);
+					connection = new int[] { server, nextPort++, 1000 + random.nextInt(100000),
+							2000 + random.nextInt(100000) };
+					int id = random.nextInt(65535);
+					add(packets, true, RESOLVER, udp(connection[1] + 10000, 53, dns(id, server, false)), 17, time);
+					time += 0.05;
+					add(packets, false, RESOLVER, udp(53, connection[1] + 10000, dns(id, server, true)), 17, time);
+				}
+				byte[] remote = SERVERS[connection[0]];
+				time += 0.01;
+				add(packets, true, remote, tcp(connection[1], 80, connection[2]++, 0, 0x02, new byte[0]), 6, time);
+				time += 0.05;
+				add(packets, false, remote, tcp(80, connection[1], connection[3]++, connection[2], 0x12, new byte[0]), 6,
+						time);
+				time += 0.01;
+				add(packets, true, remote, tcp(connection[1], 80, connection[2], connection[3], 0x10, new byte[0]), 6,
+						time);
+				connections.add(connection);
+			} else if (action == 1) {
+				int[] connection = connections.remove(random.nextInt(connections.size()));
+				byte[] remote = SERVERS[connection[0]];
+				add(packets, true, remote, tcp(connection[1], 80, connection[2]++, connection[3], 0x11, new byte[0]), 6,
+						time);
+				time += 0.05;
+				add(packets, false, remote, tcp(80, connection[1], connection[3]++, connection[2], 0x11, new byte[0]), 6,
+						time);
+				time += 0.01;
+				add(packets, true, remote, tcp(connection[1], 80, connection[2], connection[3], 0x10, new byte[0]), 6,
+						time);
+			} else if (action == 2) {
+				add(packets, true, SERVERS[random.nextInt(SERVERS.length)], udp(5000, 5000,
+						new byte[random.nextInt(500)]), 17, time);
+			} else {
+				int[] connection = connections.get(random.nextInt(connections.size()));
+				byte[] remote = SERVERS[connection[0]];
+				byte[] request = ("GET /" + packets.size() + " HTTP/1.1\r\nHost: " + NAMES[connection[0]] + "\r\n\r\n")
+						.getBytes("US-ASCII");
+				add(packets, true, remote, tcp(connection[1], 80, connection[2], connection[3], 0x18, request), 6, time);
+				connection[2] += request.length;
+				int length = random.nextInt(4000);
+				byte[] header = ("HTTP/1.1 200 OK\r\nContent-Length: " + length + "\r\n\r\n").getBytes("US-ASCII");
+				byte[] response = new byte[header.length + length];
+				System.arraycopy(header, 0, response, 0, header.length);
+				byte[] segment = null;
+				for (int offset = 0; offset < response.length; offset += 1460) {
+					int end = Math.min(offset + 1460, response.length);
+					segment = new byte[end - offset];
+					System.arraycopy(response, offset, segment, 0, segment.length);
+					time += 0.02;
+					add(packets, false, remote, tcp(80, connection[1], connection[3], connection[2], 0x18, segment), 6,
+							time);
+					connection[3] += segment.length;
+				}
+				if (random.nextInt(5) == 0) {
+					// the last segment again
+					time += 0.2;
+					add(packets, false, remote, tcp(80, connection[1], connection[3] - segment.length, connection[2],
+							0x18, segment), 6, time);
+				}
+				time += 0.01;
+				add(packets, true, remote, tcp(connection[1], 80, connection[2], connection[3], 0x10, new byte[0]), 6,
+						time);
+			}
+		}
+
+		TraceFileResult result = new TraceFileResult();
+		result.setAllpackets(packets);
+		result.setTraceDuration(time + 10);
+		result.setUserEvents(userEvents);
+		result.setCpuActivityList(cpuActivities);
+		result.setGpsInfos(new ArrayList<GpsInfo>());
+		result.setCameraInfos(new ArrayList<CameraInfo>());
+		result.setBluetoothInfos(new ArrayList<BluetoothInfo>());
+		result.setScreenStateInfos(new ArrayList<ScreenStateInfo>());
+		result.setAppInfos(new ArrayList<String>());
+		return result;
+	}
+
+	private void add(List<PacketInfo> packets, boolean up, byte[] remote, byte[] segment, int protocol, double time) {
+		byte[] frame = frame(up, remote, segment, protocol);
+		long micros = START_MICROS + (long) (time * 1000000);
+		PacketInfo packet = new PacketInfo("com.example", packetservice.createPacketFromPcap(1, micros / 1000000,
+				micros % 1000000, frame.length, frame, null));
+		packet.setTimestamp((micros - START_MICROS) / 1000000.0);
+		packet.setDir(up ? PacketDirection.UPLINK : PacketDirection.DOWNLINK);
+		packet.setPacketId(packets.size() + 1);
+		packets.add(packet);
+	}
+
+	private static byte[] frame(boolean up, byte[] remote, byte[] segment, int protocol) {
+		ByteBuffer buffer = ByteBuffer.allocate(14 + 20 + segment.length);
+		buffer.position(12);
+		buffer.putShort((short) 0x0800);
+		buffer.put((byte) 0x45).put((byte) 0).putShort((short) (20 + segment.length)).putInt(0);
+		buffer.put((byte) 64).put((byte) protocol).putShort((short) 0);
+		buffer.put(up ? DEVICE : remote).put(up ? remote : DEVICE);
+		buffer.put(segment);
+		return buffer.array();
+	}
+
+	private static byte[] tcp(int sourcePort, int destinationPort, int seq, int ack, int flags, byte[] payload) {
+		ByteBuffer buffer = ByteBuffer.allocate(20 + payload.length);
+		buffer.putShort((short) sourcePort).putShort((short) destinationPort).putInt(seq).putInt(ack);
+		buffer.put((byte) 0x50).put((byte) flags).putShort((short) 65535).putInt(0);
+		buffer.put(payload);
+		return buffer.array();
+	}
+
+	private static byte[] udp(int sourcePort, int destinationPort, byte[] payload) {
+		ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+		buffer.putShort((short) sourcePort).putShort((short) destinationPort).putShort((short) (8 + payload.length))
+				.putShort((short) 0);
+		buffer.put(payload);
+		return buffer.array();
+	}
+
+	private static byte[] dns(int id, int server, boolean response) {
+		ByteBuffer buffer = ByteBuffer.allocate(31 + (response ? 16 : 0));
+		buffer.putShort((short) id).putShort((short) (response ? 0x8180 : 0x0100));
+		buffer.putShort((short) 1).putShort((short) (response ? 1 : 0)).putShort((short) 0).putShort((short) 0);
+		buffer.put((byte) 1).put(NAMES[server].substring(0, 1).getBytes());
+		buffer.put((byte) 7).put("example".getBytes()).put((byte) 3).put("com".getBytes()).put((byte) 0);
+		buffer.putShort((short) 1).putShort((short) 1);
+		if (response) {
+			buffer.putShort((short) 0xc00c).putShort((short) 1).putShort((short) 1).putInt(300).putShort((short) 4);
+			buffer.put(SERVERS[server]);
+		}
+		return buffer.array();
+	}
+}
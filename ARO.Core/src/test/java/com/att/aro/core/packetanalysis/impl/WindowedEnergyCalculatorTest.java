@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.configuration.IProfileFactory;
+import com.att.aro.core.configuration.pojo.ProfileLTE;
+import com.att.aro.core.packetanalysis.IRrcStateRangeFactory;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.RrcStateRange;
+import com.att.aro.core.packetreader.pojo.Packet;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+
+public class WindowedEnergyCalculatorTest extends BaseTest {
+
+	IProfileFactory profilefactory;
+	ProfileLTE profile;
+
+	@Before
+	public void setUp() {
+		profilefactory = context.getBean(IProfileFactory.class);
+		profile = (ProfileLTE) profilefactory.createLTEdefault();
+	}
+
+	@Test
+	public void rangeEnergies_matchWholeTrace() {
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		Random random = new Random(7);
+		double time = 0.5;
+		for (int idx = 0; idx < 3000; idx++) {
+			double gap = random.nextDouble();
+			time += gap < 0.9 ? gap * 0.05 : gap < 0.97 ? gap * 3 : 10 + gap * 60;
+			packets.add(packet(time, 40 + random.nextInt(1460), random.nextBoolean() ? PacketDirection.UPLINK : PacketDirection.DOWNLINK));
+		}
+		List<RrcStateRange> ranges = context.getBean(IRrcStateRangeFactory.class).create(packets, profile, time + 20);
+
+		double[] energies = new WindowedEnergyCalculator(profilefactory, profile, packets, 4, 300).rangeEnergies(ranges);
+
+		assertEquals(ranges.size(), energies.length);
+		for (int idx = 0; idx < ranges.size(); idx++) {
+			RrcStateRange range = ranges.get(idx);
+			double expected = profilefactory.energyLTE(range.getBeginTime(), range.getEndTime(), range.getState(), profile, packets);
+			assertEquals("range " + idx, expected, energies[idx], 0.0);
+		}
+	}
+
+	@Test
+	public void packetsAround_keepsOnePacketAhead() {
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		for (double time : new double[] { 1, 2, 3, 10, 20 }) {
+			packets.add(packet(time, 100, PacketDirection.DOWNLINK));
+		}
+		WindowedEnergyCalculator calculator = new WindowedEnergyCalculator(profilefactory, profile, packets);
+
+		List<PacketInfo> around = calculator.packetsAround(5, 6);
+		assertEquals(1, around.size());
+		assertEquals(3, around.get(0).getTimeStamp(), 0.0);
+
+		// one throughput window past the end, 0.5 seconds in lte.conf
+		around = calculator.packetsAround(2, 9.6);
+		assertEquals(4, around.size());
+		assertEquals(1, around.get(0).getTimeStamp(), 0.0);
+		assertEquals(10, around.get(3).getTimeStamp(), 0.0);
+	}
+
+	@Test
+	public void packetsAround_unsortedTraceGetsAllPackets() {
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		for (double time : new double[] { 1, 3, 2 }) {
+			packets.add(packet(time, 100, PacketDirection.UPLINK));
+		}
+		WindowedEnergyCalculator calculator = new WindowedEnergyCalculator(profilefactory, profile, packets);
+		assertSame(packets, calculator.packetsAround(2.5, 2.6));
+	}
+
+	private PacketInfo packet(double time, int len, PacketDirection dir) {
+		long seconds = (long) time;
+		PacketInfo packet = new PacketInfo(new Packet(seconds, Math.round((time - seconds) * 1000000), len, 0, new byte[len]));
+		packet.setTimestamp(time);
+		packet.setDir(dir);
+		return packet;
+	}
+}
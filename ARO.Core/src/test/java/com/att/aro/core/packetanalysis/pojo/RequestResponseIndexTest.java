@@ -0,0 +1,122 @@
+package com.att.aro.core.packetanalysis.pojo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class RequestResponseIndexTest {
+
+	Session tcpSession;
+	Session udpSession;
+	HttpRequestResponseInfo request01;
+	HttpRequestResponseInfo response01;
+	HttpRequestResponseInfo request02;
+	HttpRequestResponseInfo response02;
+	HttpRequestResponseInfo udpResponse;
+	RequestResponseIndex index;
+
+	@Before
+	public void setup() {
+		request01 = item(HttpDirection.REQUEST, 3.0, 0, null, "www.Example.com");
+		response01 = item(HttpDirection.RESPONSE, 4.0, 200, "text/html; charset=UTF-8", null);
+		Mockito.when(response01.getAssocReqResp()).thenReturn(request01);
+		request02 = item(HttpDirection.REQUEST, 1.0, 0, null, "cdn.example.com");
+		response02 = item(HttpDirection.RESPONSE, 2.0, 404, "image/png", "cdn.example.com");
+		udpResponse = item(HttpDirection.RESPONSE, 0.5, 302, "Text/HTML", null);
+
+		tcpSession = Mockito.mock(Session.class);
+		Mockito.when(tcpSession.getRequestResponseInfo()).thenReturn(Arrays.asList(request01, response01, request02, response02));
+		udpSession = Mockito.mock(Session.class);
+		Mockito.when(udpSession.isUDP()).thenReturn(true);
+		Mockito.when(udpSession.getRequestResponseInfo()).thenReturn(Arrays.asList(udpResponse));
+
+		List<Session> sessionList = new ArrayList<Session>();
+		sessionList.add(tcpSession);
+		sessionList.add(udpSession);
+		index = new RequestResponseIndex(sessionList);
+	}
+
+	@Test
+	public void traceOrdered_keepsSessionOrderAndPrecedingRequest() {
+		List<HttpRequestResponseInfoWithSession> items = index.getTraceOrdered();
+		assertEquals(5, items.size());
+		assertSame(request01, items.get(0).getInfo());
+		assertSame(response01, items.get(1).getInfo());
+		assertSame(request01, items.get(1).getPrecedingRequest());
+		assertSame(request02, items.get(3).getPrecedingRequest());
+		assertSame(udpSession, items.get(4).getSession());
+		assertNull(items.get(4).getPrecedingRequest());
+	}
+
+	@Test
+	public void sorted_isTcpOnlyByTimestamp() {
+		List<HttpRequestResponseInfoWithSession> items = index.getSorted();
+		assertEquals(4, items.size());
+		assertSame(request02, items.get(0).getInfo());
+		assertSame(response02, items.get(1).getInfo());
+		assertSame(request01, items.get(2).getInfo());
+		assertSame(response01, items.get(3).getInfo());
+	}
+
+	@Test
+	public void responsesByContentType_ignoresCaseAndParameters() {
+		List<HttpRequestResponseInfoWithSession> items = index.getResponsesByContentType("TEXT/HTML", "image/png");
+		assertEquals(3, items.size());
+		assertSame(response01, items.get(0).getInfo());
+		assertSame(response02, items.get(1).getInfo());
+		assertSame(udpResponse, items.get(2).getInfo());
+		assertEquals(1, index.getResponsesByContentFamily("image").size());
+		assertTrue(index.getResponsesByContentType("video/mp4").isEmpty());
+	}
+
+	@Test
+	public void responsesByStatusCode_isHalfOpenRange() {
+		assertEquals(2, index.getResponsesByStatusCode(300, 500).size());
+		assertSame(response02, index.getResponsesByStatusCode(400, 500).get(0).getInfo());
+		assertTrue(index.getResponsesByStatusCode(300, 302).isEmpty());
+	}
+
+	@Test
+	public void byHost_usesRequestHostForResponses() {
+		assertEquals(2, index.getByHost("WWW.EXAMPLE.COM").size());
+		assertEquals(2, index.getByHost("cdn.example.com").size());
+		assertEquals(2, index.getHosts().size());
+	}
+
+	@Test
+	public void between_isInclusive() {
+		List<HttpRequestResponseInfoWithSession> items = index.getBetween(2.0, 3.0);
+		assertEquals(2, items.size());
+		assertSame(response02, items.get(0).getInfo());
+		assertSame(request01, items.get(1).getInfo());
+		assertTrue(index.getBetween(5.0, 6.0).isEmpty());
+		assertTrue(index.getBetween(3.0, 1.0).isEmpty());
+	}
+
+	@Test
+	public void nullSessionList_isEmpty() {
+		RequestResponseIndex empty = new RequestResponseIndex(null);
+		assertTrue(empty.getTraceOrdered().isEmpty());
+		assertTrue(empty.getBetween(0, 10).isEmpty());
+	}
+
+	private HttpRequestResponseInfo item(HttpDirection direction, double timeStamp, int statusCode, String contentType, String hostName) {
+		HttpRequestResponseInfo info = Mockito.mock(HttpRequestResponseInfo.class);
+		Mockito.when(info.getDirection()).thenReturn(direction);
+		Mockito.when(info.getTimeStamp()).thenReturn(timeStamp);
+		Mockito.when(info.getStatusCode()).thenReturn(statusCode);
+		Mockito.when(info.getContentType()).thenReturn(contentType);
+		Mockito.when(info.getHostName()).thenReturn(hostName);
+		Mockito.when(info.compareTo(Mockito.any(HttpRequestResponseInfo.class))).thenCallRealMethod();
+		return info;
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.packetreader.ICaptureFormatReader;
+import com.att.aro.core.packetreader.pojo.CaptureFileType;
+import com.att.aro.core.packetreader.pojo.CaptureFormat;
+import com.att.aro.core.packetreader.pojo.LinkDecoder;
+
+public class CaptureFormatReaderImplTest extends BaseTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	ICaptureFormatReader reader;
+
+	@Before
+	public void setUp() {
+		reader = context.getBean(ICaptureFormatReader.class);
+	}
+
+	@Test
+	public void read_pcap() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.BIG_ENDIAN);
+		header.putInt(0xa1b2c3d4).putShort((short) 2).putShort((short) 4).putInt(0).putInt(0).putInt(65535).putInt(1);
+
+		CaptureFormat format = reader.read(write("be.cap", header.array()));
+
+		assertEquals(CaptureFileType.PCAP, format.getType());
+		assertEquals(ByteOrder.BIG_ENDIAN, format.getByteOrder());
+		assertEquals(1, format.getLinkType());
+		assertEquals(65535, format.getSnapLength());
+		assertFalse(format.isNanosecondResolution());
+		assertSame(LinkDecoder.ETHERNET, format.getDecoder(1));
+	}
+
+	@Test
+	public void read_littleEndianNanosecondPcap() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(0xa1b23c4d).putShort((short) 2).putShort((short) 4).putInt(0).putInt(0).putInt(262144).putInt(113);
+
+		CaptureFormat format = reader.read(write("le.cap", header.array()));
+
+		assertEquals(CaptureFileType.PCAP, format.getType());
+		assertEquals(ByteOrder.LITTLE_ENDIAN, format.getByteOrder());
+		assertEquals(113, format.getLinkType());
+		assertEquals(262144, format.getSnapLength());
+		assertTrue(format.isNanosecondResolution());
+		assertSame(LinkDecoder.LINUX_SLL, format.getDecoder(113));
+		assertEquals(0, format.getInterfaceCount());
+	}
+
+	@Test
+	public void read_applePcapngInterfaces() throws IOException {
+		ByteBuffer file = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+		block(file, 0x0a0d0d0a, sectionHeader());
+		block(file, 1, interfaceDescription(0, 9));
+		block(file, 1, interfaceDescription(1, -1));
+		block(file, 6, new byte[24]);
+		// an interface after the first packet is not looked for
+		block(file, 1, interfaceDescription(113, -1));
+
+		CaptureFormat format = reader.read(write("apple.pcapng", Arrays.copyOf(file.array(), file.position())));
+
+		assertEquals(CaptureFileType.PCAPNG, format.getType());
+		assertEquals(ByteOrder.LITTLE_ENDIAN, format.getByteOrder());
+		assertTrue(format.isApplePcapng());
+		assertEquals(2, format.getInterfaceCount());
+		assertEquals(0, format.getLinkType());
+		assertEquals(1, format.getLinkType(1));
+		assertTrue(format.hasMixedLinkTypes());
+		assertEquals(1000000000L, format.getTimestampsPerSecond());
+		assertEquals(65535, format.getSnapLength());
+		assertSame(LinkDecoder.APPLE_TUNNEL, format.getDecoder(0));
+		assertSame(LinkDecoder.ETHERNET, format.getDecoder(1));
+		assertSame(LinkDecoder.ETHERNET, format.getInterfaceDecoder(1));
+	}
+
+	@Test
+	public void read_netmon() throws IOException {
+		byte[] header = new byte[] { 'G', 'M', 'B', 'U', 2, 2, 1, 0, 0, 0, 0, 0 };
+
+		CaptureFormat format = reader.read(write("trace.cap", header));
+
+		assertEquals(CaptureFileType.NETMON, format.getType());
+		assertEquals(1, format.getLinkType());
+	}
+
+	@Test
+	public void read_unknown() throws IOException {
+		assertSame(CaptureFormat.UNKNOWN, reader.read(write("time", "1500000000.0\n".getBytes(StandardCharsets.US_ASCII))));
+		assertSame(CaptureFormat.UNKNOWN, reader.read(new File(folder.getRoot(), "missing.cap").getAbsolutePath()));
+		assertSame(CaptureFormat.UNKNOWN, reader.read(write("short.cap", new byte[] { (byte) 0xd4, (byte) 0xc3 })));
+		// a reader of the unknown format still decodes the link types it knows
+		assertSame(LinkDecoder.RAW, CaptureFormat.UNKNOWN.getDecoder(12));
+		assertSame(LinkDecoder.NONE, CaptureFormat.UNKNOWN.getDecoder(0));
+	}
+
+	private String write(String name, byte[] data) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		Files.write(file.toPath(), data);
+		return file.getAbsolutePath();
+	}
+
+	private static byte[] sectionHeader() {
+		ByteBuffer body = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+		body.putInt(0x1a2b3c4d).putShort((short) 1).putShort((short) 0).putLong(-1);
+		option(body, 2, "x86_64");
+		option(body, 3, "Darwin 13.0.0");
+		option(body, 4, "tcpdump (libpcap version 1.3.0 - Apple version 41)");
+		body.putInt(0);
+		return Arrays.copyOf(body.array(), body.position());
+	}
+
+	private static byte[] interfaceDescription(int linkType, int tsresol) {
+		ByteBuffer body = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+		body.putShort((short) linkType).putShort((short) 0).putInt(65535);
+		if (tsresol >= 0) {
+			body.putShort((short) 9).putShort((short) 1).put((byte) tsresol).put(new byte[3]);
+		}
+		body.putInt(0);
+		return Arrays.copyOf(body.array(), body.position());
+	}
+
+	private static void option(ByteBuffer body, int code, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+		body.putShort((short) code).putShort((short) bytes.length).put(bytes);
+		body.put(new byte[(4 - bytes.length % 4) % 4]);
+	}
+
+	private static void block(ByteBuffer file, int type, byte[] body) {
+		file.putInt(type).putInt(12 + body.length).put(body).putInt(12 + body.length);
+	}
+}
@@ -2,6 +2,7 @@ package com.att.aro.core.packetreader.impl;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.junit.Test;
 import org.junit.Before;
@@ -12,6 +13,8 @@ import static org.junit.Assert.*;
 import com.att.aro.core.BaseTest;
 import com.att.aro.core.packetreader.IPacketService;
 import com.att.aro.core.packetreader.IPcapngHelper;
+import com.att.aro.core.packetreader.pojo.CaptureFileType;
+import com.att.aro.core.packetreader.pojo.CaptureFormat;
 import com.att.aro.core.packetreader.pojo.IPPacket;
 import com.att.aro.core.packetreader.pojo.Packet;
 import com.att.aro.core.packetreader.pojo.TCPPacket;
@@ -123,4 +126,26 @@ public class PacketServiceImplTest extends BaseTest {
 		
 		assertNotNull(packet);
 	}
+
+	@Test
+	public void createPacketFromPcapWithFormat() {
+		byte[] data = new byte[4 + 28];
+		data[0] = 2;
+		data[4] = 0x45;
+		data[4 + 9] = 17;
+		CaptureFormat apple = new CaptureFormat(CaptureFileType.PCAPNG, ByteOrder.LITTLE_ENDIAN, 0, 65535, 1000000,
+				new int[] { 0 }, true);
+
+		Packet packet = service.createPacketFromPcap(apple, 0, 1, 1, data.length, data);
+		assertTrue(packet instanceof UDPPacket);
+		assertEquals(4, packet.getDatalinkHeaderSize());
+
+		packet = service.createPacketFromPcap(null, 0, 1, 1, data.length, data);
+		assertEquals(Packet.class, packet.getClass());
+		assertEquals(0, packet.getDatalinkHeaderSize());
+
+		// too short for its ethernet header
+		packet = service.createPacketFromPcap(CaptureFormat.UNKNOWN, 1, 1, 1, 10, new byte[10]);
+		assertEquals(0, packet.getDatalinkHeaderSize());
+	}
 }
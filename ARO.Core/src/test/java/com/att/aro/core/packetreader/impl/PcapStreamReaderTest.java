@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.packetreader.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.att.aro.core.packetreader.INativePacketSubscriber;
+import com.att.aro.pcap.packetrebuild.PCapFileWriter;
+
+public class PcapStreamReaderTest {
+
+	private final List<long[]> times = new ArrayList<long[]>();
+	private final List<byte[]> records = new ArrayList<byte[]>();
+
+	private final INativePacketSubscriber subscriber = new INativePacketSubscriber() {
+		@Override
+		public void receive(int datalink, long seconds, long microSeconds, int len, byte[] data) {
+			times.add(new long[] { datalink, seconds, microSeconds, len });
+			records.add(data);
+		}
+	};
+
+	@Test
+	public void readRecords_fromPCapFileWriter() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PCapFileWriter writer = new PCapFileWriter(out);
+		writer.addPacket(new byte[] { 1, 2, 3 }, 1500000000123456L);
+		writer.addPacket(new byte[60], 1500000001000001L);
+
+		PcapStreamReader reader = new PcapStreamReader(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(2, reader.readRecords(subscriber));
+		assertEquals(1, reader.getDatalink());
+		assertArrayEquals(new long[] { 1, 1500000000, 123456, 3 }, times.get(0));
+		assertArrayEquals(new byte[] { 1, 2, 3 }, records.get(0));
+		assertArrayEquals(new long[] { 1, 1500000001, 1, 60 }, times.get(1));
+	}
+
+	@Test
+	public void readRecords_otherByteOrderAndNanoseconds() throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(24 + 16 + 4).order(ByteOrder.BIG_ENDIAN);
+		buffer.putInt(0xa1b23c4d).putShort((short) 2).putShort((short) 4).putInt(0).putInt(0).putInt(65535).putInt(101);
+		buffer.putInt(7).putInt(999999000).putInt(4).putInt(1400).put(new byte[] { 9, 8, 7, 6 });
+
+		PcapStreamReader reader = new PcapStreamReader(new ByteArrayInputStream(buffer.array()));
+		assertEquals(101, reader.readHeader());
+		assertEquals(1, reader.readRecords(subscriber));
+		assertArrayEquals(new long[] { 101, 7, 999999, 1400 }, times.get(0));
+	}
+
+	@Test
+	public void readRecords_stopsAtCutRecord() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PCapFileWriter writer = new PCapFileWriter(out);
+		writer.addPacket(new byte[40], 1000000L);
+		writer.addPacket(new byte[40], 2000000L);
+		byte[] cut = Arrays.copyOf(out.toByteArray(), out.size() - 10);
+
+		assertEquals(1, new PcapStreamReader(new ByteArrayInputStream(cut)).readRecords(subscriber));
+	}
+
+	@Test(expected = IOException.class)
+	public void readHeader_notPcap() throws IOException {
+		new PcapStreamReader(new ByteArrayInputStream(new byte[24])).readHeader();
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.report.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.IAROService;
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.concurrent.IAnalysisContextFactory;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
+import com.att.aro.core.pojo.AROTraceData;
+import com.att.aro.core.report.IDataDump;
+import com.att.aro.core.report.IDataDumpListener;
+
+public class DataDumpImplTest extends BaseTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private IAROService service;
+	private List<ConfigurableApplicationContext> workerContexts;
+	private DataDumpImpl dataDump;
+	private List<String> done;
+	private IDataDumpListener listener;
+
+	@Before
+	public void setUp() throws IOException {
+		// the bean gets the logger injected, the instance below shares it
+		context.getBean(IDataDump.class);
+		service = mock(IAROService.class);
+		when(service.analyzeDirectory(anyListOf(BestPracticeType.class), anyString(), any(Profile.class),
+				any(AnalysisFilter.class))).thenReturn(traceData());
+		workerContexts = Collections.synchronizedList(new ArrayList<ConfigurableApplicationContext>());
+		dataDump = new DataDumpImpl(new IAnalysisContextFactory() {
+			@Override
+			public ConfigurableApplicationContext createContext() {
+				ConfigurableApplicationContext workerContext = mock(ConfigurableApplicationContext.class);
+				when(workerContext.getBean(IAROService.class)).thenReturn(service);
+				workerContexts.add(workerContext);
+				return workerContext;
+			}
+		});
+		done = new ArrayList<String>();
+		listener = new IDataDumpListener() {
+			@Override
+			public void traceDone(String trace, AROTraceData data, int count, int total) {
+				done.add(trace + ":" + (data != null) + ":" + count + "/" + total);
+			}
+		};
+	}
+
+	private AROTraceData traceData() {
+		AROTraceData data = new AROTraceData();
+		data.setSuccess(true);
+		return data;
+	}
+
+	@Test
+	public void dump_writesEveryTraceAsItCompletes() throws Exception {
+		dataDump.setParallelism(2);
+		File output = folder.newFile("dump.json");
+		List<String> traces = Arrays.asList("trace1", "trace2", "trace3");
+
+		int written = dataDump.dump(new ArrayList<BestPracticeType>(), traces, null, output, listener);
+
+		assertEquals(3, written);
+		JsonNode json = new ObjectMapper().readTree(output);
+		assertTrue(json.isArray());
+		assertEquals(3, json.size());
+		assertEquals(3, done.size());
+		assertTrue(done.get(2).endsWith(":true:3/3"));
+		assertTrue(workerContexts.size() >= 1 && workerContexts.size() <= 2);
+		for (ConfigurableApplicationContext workerContext : workerContexts) {
+			verify(workerContext).close();
+		}
+	}
+
+	@Test
+	public void dump_leavesOutTraceThatThrows() throws Exception {
+		dataDump.setParallelism(1);
+		when(service.analyzeDirectory(anyListOf(BestPracticeType.class), eq("broken"), any(Profile.class),
+				any(AnalysisFilter.class))).thenThrow(new IllegalStateException("broken"));
+		File output = folder.newFile("dump.json");
+
+		int written = dataDump.dump(new ArrayList<BestPracticeType>(), Arrays.asList("trace1", "broken", "trace2"),
+				null, output, listener);
+
+		assertEquals(2, written);
+		assertEquals(2, new ObjectMapper().readTree(output).size());
+		assertEquals(Arrays.asList("trace1:true:1/3", "broken:false:2/3", "trace2:true:3/3"), done);
+	}
+
+	@Test(timeout = 10000)
+	public void dump_leavesOutTraceThatThrowsError() throws Exception {
+		dataDump.setParallelism(1);
+		when(service.analyzeDirectory(anyListOf(BestPracticeType.class), eq("broken"), any(Profile.class),
+				any(AnalysisFilter.class))).thenThrow(new NoClassDefFoundError("broken"));
+		File output = folder.newFile("dump.json");
+
+		int written = dataDump.dump(new ArrayList<BestPracticeType>(), Arrays.asList("trace1", "broken", "trace2"),
+				null, output, listener);
+
+		assertEquals(2, written);
+		assertEquals(Arrays.asList("trace1:true:1/3", "broken:false:2/3", "trace2:true:3/3"), done);
+	}
+
+	@Test
+	public void dump_keepsErrorOfUnreadableTrace() throws Exception {
+		when(service.analyzeDirectory(anyListOf(BestPracticeType.class), eq("unreadable"), any(Profile.class),
+				any(AnalysisFilter.class))).thenThrow(new IOException("unreadable"));
+		File output = folder.newFile("dump.json");
+
+		int written = dataDump.dump(new ArrayList<BestPracticeType>(), Arrays.asList("unreadable"), null, output,
+				listener);
+
+		assertEquals(1, written);
+		JsonNode json = new ObjectMapper().readTree(output);
+		assertFalse(json.get(0).get("success").getBooleanValue());
+		assertEquals(106, json.get(0).get("error").get("code").getIntValue());
+	}
+
+	@Test
+	public void dump_noTraces() throws Exception {
+		File output = folder.newFile("dump.json");
+
+		assertEquals(0, dataDump.dump(new ArrayList<BestPracticeType>(), new ArrayList<String>(), null, output, null));
+		assertEquals(0, new ObjectMapper().readTree(output).size());
+	}
+
+	@Test
+	public void findTraces_descendsIntoSubfolders() throws IOException {
+		File root = folder.newFolder("traces");
+		File trace1 = new File(root, "trace1");
+		File nested = new File(root, "group/trace2");
+		File empty = new File(root, "empty");
+		assertTrue(trace1.mkdirs() && nested.mkdirs() && empty.mkdirs());
+		assertTrue(new File(trace1, "traffic.cap").createNewFile());
+		assertTrue(new File(nested, "traffic.cap").createNewFile());
+
+		List<String> traces = dataDump.findTraces(root.getAbsolutePath());
+
+		Collections.sort(traces);
+		assertEquals(Arrays.asList(nested.getAbsolutePath(), trace1.getAbsolutePath()), traces);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setParallelism_rejectsZero() {
+		dataDump.setParallelism(0);
+	}
+
+	@Test
+	public void getParallelism_defaultIsBounded() {
+		assertTrue(dataDump.getParallelism() >= 1 && dataDump.getParallelism() <= 4);
+	}
+}
@@ -2,7 +2,11 @@ package com.att.aro.core.report.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertTrue;
@@ -30,11 +34,15 @@ import com.att.aro.core.bestpractice.pojo.ConnectionOpeningResult;
 import com.att.aro.core.fileio.IFileManager;
 import com.att.aro.core.packetanalysis.pojo.AbstractTraceResult;
 import com.att.aro.core.packetanalysis.pojo.EnergyModel;
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.packetanalysis.pojo.Statistic;
 import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.core.report.IReport;
+import com.att.aro.core.report.pojo.HtmlReportOptions;
 import com.att.aro.core.util.Util;
 
 public class HtmlReportImplTest extends BaseTest{
@@ -103,6 +111,44 @@ public class HtmlReportImplTest extends BaseTest{
     	assertTrue(htmlReportImpl.reportGenerator("abc.html", results));
     }
      
+    @Test
+    public void reportGenerator_pagedTables() throws IOException{
+    	File tempFile = folder.newFile("tables.html");
+		when(filereader.createFile(any(String.class))).thenReturn(tempFile);
+
+		List<Session> sessions = new ArrayList<Session>();
+		for (int idx = 0; idx < 3; idx++) {
+			Session session = new Session(InetAddress.getByName("10.0.0." + (idx + 1)), 443, 40000 + idx);
+			HttpRequestResponseInfo request = new HttpRequestResponseInfo();
+			request.setDirection(HttpDirection.REQUEST);
+			request.setHostName("a&b.example.com");
+			session.setRequestResponseInfo(Arrays.asList(request));
+			sessions.add(session);
+		}
+    	PacketAnalyzerResult analyzerResult = new PacketAnalyzerResult();
+    	TraceDirectoryResult tracedirresult = new TraceDirectoryResult();
+    	tracedirresult.setTraceDirectory("<trace>");
+    	analyzerResult.setTraceresult(tracedirresult);
+    	analyzerResult.setSessionlist(sessions);
+    	AROTraceData results = new AROTraceData();
+    	results.setAnalyzerResult(analyzerResult);
+    	results.setBestPracticeResults(new ArrayList<AbstractBestPracticeResult>());
+
+    	HtmlReportOptions options = new HtmlReportOptions();
+    	options.setSessionTable(true);
+    	options.setRequestTable(true);
+    	options.setPageSize(2);
+    	assertTrue(((HtmlReportImpl) htmlReportImpl).reportGenerator("tables.html", results, options));
+
+    	String html = new String(Files.readAllBytes(tempFile.toPath()), StandardCharsets.UTF_8);
+    	assertTrue(html.contains("<th>&lt;trace&gt;</th>"));
+    	assertTrue(html.contains("<summary>1 - 2 of 3</summary>"));
+    	assertTrue(html.contains("<summary>3 - 3 of 3</summary>"));
+    	assertTrue(html.contains("<td>10.0.0.3</td>"));
+    	assertTrue(html.contains("<td>a&amp;b.example.com</td>"));
+    	assertTrue(html.trim().endsWith("</html>"));
+    }
+     
     @Test
     public  void reportGenerator_retunrIsFalse(){
     	assertFalse(htmlReportImpl.reportGenerator("abc.html", null));
@@ -0,0 +1,69 @@
+package com.att.aro.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class StringPoolTest {
+
+	@Test
+	public void intern_returnsPooledInstance() {
+		StringPool pool = new StringPool(16);
+		byte[] data = bytes("xx www.example.com yy");
+		String first = pool.intern(data, 3, 18);
+		assertEquals("www.example.com", first);
+		assertSame(first, pool.intern(bytes("www.example.com"), 0, 15));
+		assertSame(first, pool.intern(new String("www.example.com")));
+		assertNull(pool.intern(null));
+	}
+
+	@Test
+	public void internLowerCase() {
+		StringPool pool = new StringPool(16);
+		String type = pool.internLowerCase(bytes("Text/HTML"), 0, 9);
+		assertEquals("text/html", type);
+		assertSame(type, pool.internLowerCase(bytes("text/html"), 0, 9));
+		assertSame(type, pool.intern(bytes("text/html"), 0, 9));
+		assertEquals("Text/HTML", pool.intern(bytes("Text/HTML"), 0, 9));
+	}
+
+	@Test
+	public void intern_nonAscii() {
+		StringPool pool = new StringPool(16);
+		byte[] data = "café".getBytes(StandardCharsets.UTF_8);
+		String first = pool.intern(data, 0, data.length);
+		assertEquals("café", first);
+		assertSame(first, pool.intern(data, 0, data.length));
+		assertEquals("café", pool.internLowerCase("CAFÉ".getBytes(StandardCharsets.UTF_8), 0, data.length));
+	}
+
+	@Test
+	public void intern_longValuesAreNotPooled() {
+		StringPool pool = new StringPool(16);
+		byte[] data = new byte[StringPool.MAX_LENGTH + 1];
+		Arrays.fill(data, (byte) 'a');
+		String first = pool.intern(data, 0, data.length);
+		assertEquals(StringPool.MAX_LENGTH + 1, first.length());
+		assertNotSame(first, pool.intern(data, 0, data.length));
+	}
+
+	@Test
+	public void intern_replacesOnCollision() {
+		// one slot, every value collides
+		StringPool pool = new StringPool(1);
+		String first = pool.intern(bytes("gzip"), 0, 4);
+		String second = pool.intern(bytes("deflate"), 0, 7);
+		assertEquals("deflate", second);
+		assertNotSame(first, pool.intern(bytes("gzip"), 0, 4));
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,133 @@
+package com.att.aro.core.videoanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.aro.core.videoanalysis.pojo.VideoEvent.VideoType;
+import com.att.aro.core.videoanalysis.pojo.config.VideoAnalysisConfig;
+import com.att.aro.core.videoanalysis.pojo.config.VideoDataTags;
+
+public class VideoConfigDispatcherTest {
+
+	private static final String[] URIS = {
+			"http://directv-vod.hls.adaptive.level3.net/aav/30/B001573958U3/HLS4/B001573958U0_4_289.ts?exptime=1474072717&token=fa36ffe95386a7384260f920d813f101",
+			"http://directvc3m-prod-vod.hls.adaptive.level3.net/c3/30/movie/2016_12/B002021484/B002021484U3/06/33.ts?exptime=1481067556&token=3d469e9848c0679ff4cc0cd84364fc4e",
+			"http://directvlst-live.hls.adaptive.level3.net/livetv/30/8249/05/20161122T223049150.ts?exptime=1479868099&token=aab902d3ef9e795f1cd9d51bb8c99c53",
+			"http://directvlst.vo.llnwd.net/e1/livetv/30/1363/03/20170120T005340128.ts?p=43&e=1484888011&h=90341b161288c119408ee821bbea41d6",
+			"http://aav-akamai3.directv.com.edgesuite.net/aav/30/B001844891U3/HLS2/B001844891U0_2_11.ts?exptime=1476236042&token=ce277f64e9b02097f4348298653ea86a",
+			"http://a19avoddashs3us-a.akamaihd.net/d/1$A43PXU4ZN2AL1,6B4DCD80/videoquality$480p/ondemand/c4ea/0a2e/f7f7/481b-9753-a90e82e9b0e8/ced3d82d-e939-418b-a06c-59e11f7e1bdd_video_2.mp4",
+			"http://ds79lt46qzmj0.cloudfront.net/dm/2$w-i4rGny79gdQDF6YsenLjtAzZ0~/6d64/b2c7/6f71/4725-b1e2-b68bb43c0171/7b81c27d-83fc-4f78-98ca-d549ed3a211c.ism/QualityLevels(450000)/Fragments(video=560560000)",
+			"http://cdn09dld.uverse.com.edgesuite.net/m/1/372496/16/2651920/SFMM3028H-YouTube_1489616158_166645_112.mp4",
+			"http://dtvn-live-pplus-sponsored.akamaized.net/Content/HLS_hls.pr/Live/channel(FNCHD.gmott.1080.mobile)/20170218T195758-247961301-05-20170221T002136.ts",
+			"http://api.example.com/v1/feed?limit=25",
+			"http://cdn.example.com/assets/img/hero@2x.jpg",
+			"/vod/movie/720p/segment_00042.ts" };
+
+	private List<VideoAnalysisConfig> configs;
+
+	@Before
+	public void setUp() {
+		configs = new ArrayList<VideoAnalysisConfig>();
+		configs.add(config("HLS-NOW", "(dtvn-live).+channel\\((.+)\\).+-(\\d{2})-(\\d{8}T\\d{6})\\.([a-zA-Z]*)"));
+		configs.add(config("HLS-VOD", "http:\\/\\/directv-vod\\.hls\\.adaptive\\.(level3)\\.net\\/.+\\/([A|B]\\d+U)(\\d)_(\\d)_(\\d{1,4})\\.([a-zA-Z]*)\\?exptime=(\\d+)"));
+		configs.add(config("HLS-vc3m", "http:\\/\\/directvc3m\\-prod\\-vod\\.hls\\.adaptive\\.(level3)\\.net\\/.+\\/([A|B]\\d+U)(\\d)\\/(\\d{2})\\/(\\d{1,4})\\.([a-zA-Z]*)\\?exptime=(\\d+)"));
+		configs.add(config("HLS-vlst-live", "directvlst-live\\.hls\\.adaptive\\.(level3)\\.net\\/livetv\\/30\\/(\\d+)\\/(\\d{2})\\/(\\d{8}T\\d{8,10})\\.([a-zA-Z]*)\\?exptime=(\\d+).+"));
+		configs.add(config("HLS-vlst_llnwd", "http:\\/\\/directvlst\\.vo\\.(llnwd)\\.net\\/e1\\/livetv\\/30\\/(\\d+)\\/(\\d{2})\\/(\\d{8}T\\d{8,10})\\.([a-zA-Z]*)\\?p=([a-zA-Z_0-9]*)"));
+		configs.add(config("HLS_aav", "directvaav.+\\/(aav).+\\/([A|B]\\d+U)(\\d)_(\\d{1,2})_(\\d{1,4})\\.([a-zA-Z]*)"));
+		configs.add(config("HLS_aav_akamai", "http:\\/\\/aav-akamai3.directv.com.edgesuite.net\\/(aav).+\\/([A|B]\\d+U)(\\d)_(\\d{1,2})_(\\d{1,4})\\.([a-zA-Z]*)\\?exptime=(\\d+).+"));
+		configs.add(config("dash_vod", "\\/([a-zA-Z_0-9\\-]*)_video_(\\d)\\.([a-zA-Z]*\\d{1})"));
+		configs.add(config("ssm_ism", "\\/([a-zA-Z_0-9\\-]*)\\.ism\\/QualityLevels\\((\\d+)\\)\\/Fragments\\(video=(\\d+)\\)"));
+		configs.add(config("uverse-YouTube", "\\.(uverse)\\..+\\/([a-zA-Z_0-9\\-]*)\\.([a-zA-Z]*\\d{1})"));
+		configs.add(config("anything-ts", "\\.ts"));
+	}
+
+	private VideoAnalysisConfig config(String desc, String regex) {
+		VideoAnalysisConfig config = new VideoAnalysisConfig(VideoType.HLS, desc, "GET", regex, null, null, new VideoDataTags[0]);
+		config.setValid(true);
+		return config;
+	}
+
+	private VideoAnalysisConfig linearFind(String target) {
+		for (VideoAnalysisConfig config : configs) {
+			if (config.isValidated() && config.patternFind(target)) {
+				return config;
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void find_agreesWithPatternFindOnEveryConfig() {
+		VideoConfigDispatcher dispatcher = new VideoConfigDispatcher(configs);
+		for (String uri : URIS) {
+			assertSame(linearFind(uri), dispatcher.find(uri));
+			// second time from the cache
+			assertSame(linearFind(uri), dispatcher.find(uri));
+		}
+	}
+
+	@Test
+	public void find_firstConfigInOrderWins() {
+		VideoConfigDispatcher dispatcher = new VideoConfigDispatcher(configs);
+
+		assertEquals("HLS-VOD", dispatcher.find(URIS[0]).getDesc());
+		assertEquals("anything-ts", dispatcher.find(URIS[11]).getDesc());
+		assertNull(dispatcher.find(URIS[9]));
+	}
+
+	@Test
+	public void find_skipsConfigsNotValidated() {
+		configs.get(1).setValid(false);
+		VideoConfigDispatcher dispatcher = new VideoConfigDispatcher(configs);
+
+		assertEquals("anything-ts", dispatcher.find(URIS[0]).getDesc());
+	}
+
+	@Test
+	public void isCurrent_falseOnceARegexIsEdited() {
+		VideoConfigDispatcher dispatcher = new VideoConfigDispatcher(configs);
+		assertTrue(dispatcher.isCurrent());
+
+		configs.get(0).setRegex(new String(configs.get(0).getRegex()));
+
+		assertFalse(dispatcher.isCurrent());
+	}
+
+	@Test
+	public void requiredLiterals_topLevelRunsOnly() {
+		assertEquals(Arrays.asList("http://directv-vod.hls.adaptive.", ".net/", "?exptime="),
+				VideoConfigDispatcher.requiredLiterals(configs.get(1).getRegex()));
+		assertEquals(Arrays.asList(".ism/QualityLevels(", ")/Fragments(video="),
+				VideoConfigDispatcher.requiredLiterals(configs.get(8).getRegex()));
+		assertEquals(Arrays.asList("_video_"), VideoConfigDispatcher.requiredLiterals("\\/([a-zA-Z_0-9\\-]*)_video_(\\d)\\.([a-zA-Z]*\\d{1})"));
+	}
+
+	@Test
+	public void requiredLiterals_optionalCharactersAreDropped() {
+		assertEquals(Arrays.asList("abc", "xyz"), VideoConfigDispatcher.requiredLiterals("abcd?xyz"));
+		assertEquals(Arrays.asList("abc", "xyz"), VideoConfigDispatcher.requiredLiterals("abcd*xyz"));
+		assertEquals(Arrays.asList("abcd", "xyz"), VideoConfigDispatcher.requiredLiterals("abcd+xyz"));
+		assertEquals(Arrays.asList("abc", "xyz"), VideoConfigDispatcher.requiredLiterals("abcd{0,2}xyz"));
+		assertEquals(Arrays.asList("abcd", "xyz"), VideoConfigDispatcher.requiredLiterals("abcd{2}xyz"));
+	}
+
+	@Test
+	public void requiredLiterals_noneWhenUnsure() {
+		assertTrue(VideoConfigDispatcher.requiredLiterals("video|audio").isEmpty());
+		assertTrue(VideoConfigDispatcher.requiredLiterals("(?i)video").isEmpty());
+		assertTrue(VideoConfigDispatcher.requiredLiterals("\\Qvideo\\E").isEmpty());
+		assertTrue(VideoConfigDispatcher.requiredLiterals("").isEmpty());
+		assertEquals(Collections.singletonList("video"), VideoConfigDispatcher.requiredLiterals("(a|b)video"));
+	}
+}
@@ -0,0 +1,134 @@
+package com.att.aro.core.videoanalysis.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.packetanalysis.pojo.VideoStall;
+import com.att.aro.core.videoanalysis.IVideoPlaybackSimulator;
+import com.att.aro.core.videoanalysis.pojo.PlaybackSimulation;
+import com.att.aro.core.videoanalysis.pojo.VideoEvent;
+
+public class VideoPlaybackSimulatorImplTest extends BaseTest {
+
+	IVideoPlaybackSimulator simulator;
+	double[] durations = { 2, 2, 2 };
+
+	@Before
+	public void setup() {
+		simulator = context.getBean(IVideoPlaybackSimulator.class);
+	}
+
+	@Test
+	public void simulate_playsSegmentsBackToBack() {
+		List<VideoEvent> segments = Arrays.asList(segment(1, 1, 100), segment(2, 2, 100), segment(3, 3, 100));
+
+		PlaybackSimulation simulation = simulator.simulate(segments, durations, segments, 3, null);
+
+		assertEquals(3, simulation.getPlayStartTimes()[0], 0);
+		assertEquals(5, simulation.getPlayStartTimes()[1], 0);
+		assertEquals(7, simulation.getPlayStartTimes()[2], 0);
+		assertTrue(simulation.getStalls().isEmpty());
+		assertEquals(2, simulation.getStartupDelay(), 0);
+		assertEquals(6, simulation.getMaxBufferSeconds(), 0);
+		assertEquals(300, simulation.getMaxBufferBytes(), 0);
+		assertEquals("9.0,0.0", last(simulation.getBufferSecondsSeries()));
+		assertEquals("7.0,0.0", last(simulation.getBufferBytesSeries()));
+	}
+
+	@Test
+	public void simulate_stallsUntilSegmentArrives() {
+		VideoEvent late = segment(2, 6.5, 100);
+		List<VideoEvent> segments = Arrays.asList(segment(1, 1, 100), late, segment(3, 3, 100));
+
+		PlaybackSimulation simulation = simulator.simulate(segments, durations, segments, 2, null);
+
+		assertEquals(1, simulation.getStalls().size());
+		VideoStall stall = simulation.getStalls().get(0);
+		assertEquals(4, stall.getStallStartTimeStamp(), 0);
+		// playback resumes on the next whole second
+		assertEquals(7, stall.getStallEndTimeStamp(), 0);
+		assertSame(late, stall.getSegmentTryingToPlay());
+		assertEquals(7, simulation.getPlayStartTimes()[1], 0);
+		assertEquals(9, simulation.getPlayStartTimes()[2], 0);
+		assertEquals(3, simulation.getTotalStallDuration(), 0);
+	}
+
+	@Test
+	public void simulate_usesPickedStartTimes() {
+		List<VideoEvent> segments = Arrays.asList(segment(1, 1, 100), segment(2, 2, 100), segment(3, 3, 100));
+		Map<VideoEvent, Double> picked = new HashMap<>();
+		picked.put(segment(1, 0, 0), 4.0);
+		picked.put(segment(3, 0, 0), 10.0);
+
+		PlaybackSimulation simulation = simulator.simulate(segments, durations, segments, 3, picked);
+
+		assertEquals(4, simulation.getPlayStartTimes()[0], 0);
+		assertEquals(6, simulation.getPlayStartTimes()[1], 0);
+		assertEquals(10, simulation.getPlayStartTimes()[2], 0);
+		assertEquals(Double.valueOf(10), simulation.getSegmentStartTimes().get(3L));
+	}
+
+	@Test
+	public void simulate_drainsDuplicateDownloadsWithSegment() {
+		List<VideoEvent> segments = Arrays.asList(segment(1, 1, 100), segment(2, 2, 100));
+		List<VideoEvent> downloads = new ArrayList<>(segments);
+		downloads.add(segment(1, 1.5, 50));
+		// arrives after segment 1 played, never enters the buffer
+		downloads.add(segment(1, 8, 500));
+
+		PlaybackSimulation simulation = simulator.simulate(segments, durations, downloads, 3, null);
+
+		assertEquals(250, simulation.getMaxBufferBytes(), 0);
+		assertEquals("5.0,0.0", last(simulation.getBufferBytesSeries()));
+		assertEquals(4, simulation.getMaxBufferSeconds(), 0);
+	}
+
+	@Test
+	public void sweepStartupDelay() {
+		List<VideoEvent> segments = Arrays.asList(segment(1, 1, 100), segment(2, 6.5, 100), segment(3, 7, 100));
+
+		List<PlaybackSimulation> simulations = simulator.sweepStartupDelay(segments, durations, segments, new double[] { 0, 1, 6 });
+
+		assertEquals(3, simulations.size());
+		assertEquals(1, simulations.get(0).getStalls().size());
+		assertEquals(1, simulations.get(1).getStalls().size());
+		assertTrue(simulations.get(2).getStalls().isEmpty());
+		assertEquals(6, simulations.get(2).getStartupDelay(), 0);
+		assertTrue(simulations.get(2).getBufferSecondsSeries().isEmpty());
+		assertEquals(300, simulations.get(2).getMaxBufferBytes(), 0);
+	}
+
+	@Test
+	public void simulate_withoutSegments() {
+		List<VideoEvent> segments = new ArrayList<>();
+
+		PlaybackSimulation simulation = simulator.simulate(segments, new double[0], segments, 0, null);
+
+		assertTrue(simulation.getStalls().isEmpty());
+		assertTrue(simulation.getBufferBytesSeries().isEmpty());
+	}
+
+	private VideoEvent segment(double segment, double endTS, double bytes) {
+		VideoEvent videoEvent = Mockito.mock(VideoEvent.class);
+		Mockito.when(videoEvent.getSegment()).thenReturn(segment);
+		Mockito.when(videoEvent.getEndTS()).thenReturn(endTS);
+		Mockito.when(videoEvent.getTotalBytes()).thenReturn(bytes);
+		return videoEvent;
+	}
+
+	private String last(Map<Integer, String> series) {
+		return series.get(series.size() - 1);
+	}
+}
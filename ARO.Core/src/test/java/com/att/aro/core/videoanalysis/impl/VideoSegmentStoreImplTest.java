@@ -0,0 +1,127 @@
+package com.att.aro.core.videoanalysis.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.packetanalysis.IHttpRequestResponseHelper;
+import com.att.aro.core.packetanalysis.pojo.HttpDirection;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+
+public class VideoSegmentStoreImplTest extends BaseTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private IHttpRequestResponseHelper reqhelper;
+	private String videoPath;
+	private Session session;
+
+	@Before
+	public void setUp() throws IOException {
+		reqhelper = context.getBean(IHttpRequestResponseHelper.class);
+		videoPath = folder.newFolder("video_segments").getPath();
+		session = new Session(InetAddress.getLoopbackAddress(), 80, 50000);
+		// two segment bodies, "segment-one" at 0 and "segment-two" at 11
+		session.setStorageDl("segment-onesegment-two".getBytes("UTF-8"));
+	}
+
+	private HttpRequestResponseInfo response(int offset, int length) {
+		HttpRequestResponseInfo response = new HttpRequestResponseInfo();
+		response.setDirection(HttpDirection.RESPONSE);
+		response.setPacketDirection(PacketDirection.DOWNLINK);
+		TreeMap<Integer, Integer> contentOffsetLength = new TreeMap<>();
+		contentOffsetLength.put(offset, length);
+		response.setContentOffsetLength(contentOffsetLength);
+		return response;
+	}
+
+	@Test
+	public void getFile_writesOnlyWhenAsked() throws IOException {
+		VideoSegmentStoreImpl store = new VideoSegmentStoreImpl(videoPath, reqhelper);
+		byte[] mbox0 = "mbox0-".getBytes("UTF-8");
+		String key = store.add(response(0, 11), session, mbox0, "mp4");
+
+		assertTrue(store.contains(key));
+		assertEquals(0, new File(videoPath).list().length);
+
+		File file = store.getFile(key);
+		assertArrayEquals("mbox0-segment-one".getBytes("UTF-8"), Files.readAllBytes(file.toPath()));
+		assertTrue(file.getName().endsWith(".mp4"));
+		assertEquals(1, store.getWrittenCount());
+
+		assertEquals(file, store.getFile(key));
+		assertEquals(1, store.getWrittenCount());
+	}
+
+	@Test
+	public void add_keyFollowsContent() throws IOException {
+		VideoSegmentStoreImpl store = new VideoSegmentStoreImpl(videoPath, reqhelper);
+		String one = store.add(response(0, 11), session, null, "mp4");
+		String two = store.add(response(11, 11), session, null, "mp4");
+		String sameAsOne = store.add(response(0, 11), session, null, "mp4");
+		String withPrefix = store.add(response(0, 11), session, "mbox0".getBytes("UTF-8"), "mp4");
+
+		assertEquals(one, sameAsOne);
+		assertNotEquals(one, two);
+		assertNotEquals(one, withPrefix);
+		assertEquals(3, store.size());
+	}
+
+	@Test
+	public void getFile_reusesFileOfEarlierRun() throws IOException {
+		VideoSegmentStoreImpl firstRun = new VideoSegmentStoreImpl(videoPath, reqhelper);
+		File written = firstRun.getFile(firstRun.add(response(0, 11), session, null, "ts"));
+		assertTrue(written.setLastModified(1000L));
+
+		VideoSegmentStoreImpl secondRun = new VideoSegmentStoreImpl(videoPath, reqhelper);
+		File reused = secondRun.getFile(secondRun.add(response(0, 11), session, null, "ts"));
+
+		assertEquals(written, reused);
+		assertEquals(0, secondRun.getWrittenCount());
+		assertEquals(1, secondRun.getReusedCount());
+		assertEquals(1000L, reused.lastModified());
+	}
+
+	@Test
+	public void deleteUnused_keepsSegmentsOfThisRunAndOtherFiles() throws IOException {
+		VideoSegmentStoreImpl firstRun = new VideoSegmentStoreImpl(videoPath, reqhelper);
+		File kept = firstRun.getFile(firstRun.add(response(0, 11), session, null, "mp4"));
+		File stale = firstRun.getFile(firstRun.add(response(11, 11), session, null, "mp4"));
+		File part = new File(videoPath, kept.getName() + ".part");
+		assertTrue(part.createNewFile());
+		File other = new File(videoPath, "notes.txt");
+		assertTrue(other.createNewFile());
+
+		VideoSegmentStoreImpl secondRun = new VideoSegmentStoreImpl(videoPath, reqhelper);
+		secondRun.add(response(0, 11), session, null, "mp4");
+
+		assertEquals(2, secondRun.deleteUnused());
+		assertTrue(kept.exists());
+		assertTrue(other.exists());
+		assertFalse(stale.exists());
+		assertFalse(part.exists());
+	}
+
+	@Test(expected = IOException.class)
+	public void getFile_noContent() throws IOException {
+		VideoSegmentStoreImpl store = new VideoSegmentStoreImpl(videoPath, reqhelper);
+		store.getFile(store.add(response(40, 10), session, null, "mp4"));
+	}
+}
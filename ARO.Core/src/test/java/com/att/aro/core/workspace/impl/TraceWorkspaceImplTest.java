@@ -0,0 +1,314 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.core.workspace.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.att.aro.core.BaseTest;
+import com.att.aro.core.IAROService;
+import com.att.aro.core.bestpractice.pojo.AbstractBestPracticeResult;
+import com.att.aro.core.bestpractice.pojo.AsyncCheckInScriptResult;
+import com.att.aro.core.bestpractice.pojo.BPResultType;
+import com.att.aro.core.bestpractice.pojo.BestPracticeType;
+import com.att.aro.core.bestpractice.pojo.ConnectionOpeningResult;
+import com.att.aro.core.concurrent.IAnalysisContextFactory;
+import com.att.aro.core.configuration.pojo.Profile;
+import com.att.aro.core.packetanalysis.pojo.AnalysisFilter;
+import com.att.aro.core.packetanalysis.pojo.Burst;
+import com.att.aro.core.packetanalysis.pojo.BurstCollectionAnalysisData;
+import com.att.aro.core.packetanalysis.pojo.PacketAnalyzerResult;
+import com.att.aro.core.packetanalysis.pojo.PacketInfo;
+import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.Statistic;
+import com.att.aro.core.packetanalysis.pojo.TraceDirectoryResult;
+import com.att.aro.core.packetreader.pojo.Packet;
+import com.att.aro.core.packetreader.pojo.PacketDirection;
+import com.att.aro.core.pojo.AROTraceData;
+import com.att.aro.core.pojo.ErrorCodeRegistry;
+import com.att.aro.core.workspace.ITraceWorkspace;
+import com.att.aro.core.workspace.ITraceWorkspaceListener;
+import com.att.aro.core.workspace.pojo.BestPracticeDiff;
+import com.att.aro.core.workspace.pojo.EnergyCurve;
+import com.att.aro.core.workspace.pojo.MetricDiff;
+import com.att.aro.core.workspace.pojo.ThroughputCurve;
+import com.att.aro.core.workspace.pojo.TraceComparison;
+import com.att.aro.core.workspace.pojo.TraceMetric;
+import com.att.aro.core.workspace.pojo.TraceSnapshot;
+
+public class TraceWorkspaceImplTest extends BaseTest {
+
+	private TraceWorkspaceImpl workspace;
+
+	@Before
+	public void setUp() {
+		// the bean gets the logger injected, the instance below shares it
+		context.getBean(ITraceWorkspace.class);
+		workspace = new TraceWorkspaceImpl();
+	}
+
+	private PacketInfo packet(double time, int length, PacketDirection dir) {
+		PacketInfo packet = new PacketInfo(new Packet(0, 0, length, 0, new byte[0]));
+		packet.setTimestamp(time);
+		packet.setDir(dir);
+		return packet;
+	}
+
+	private AbstractBestPracticeResult practice(AbstractBestPracticeResult result, BPResultType type) {
+		result.setResultType(type);
+		return result;
+	}
+
+	/**
+	 * A trace of the given duration with 1000 bytes down at each of the times
+	 * and one 100 byte request at the start.
+	 */
+	private AROTraceData traceData(double duration, int totalByte, BPResultType opening, BPResultType async,
+			double... downloadTimes) {
+		List<PacketInfo> packets = new ArrayList<PacketInfo>();
+		packets.add(packet(0.1, 100, PacketDirection.UPLINK));
+		for (double time : downloadTimes) {
+			packets.add(packet(time, 1000, PacketDirection.DOWNLINK));
+		}
+		TraceDirectoryResult traceResult = new TraceDirectoryResult();
+		traceResult.setAllpackets(packets);
+		traceResult.setTraceDuration(duration);
+
+		Statistic statistic = new Statistic();
+		statistic.setTotalByte(totalByte);
+		statistic.setTotalPackets(packets.size());
+
+		PacketAnalyzerResult result = new PacketAnalyzerResult();
+		result.setTraceresult(traceResult);
+		result.setStatistic(statistic);
+		result.setSessionlist(Collections.<Session>emptyList());
+
+		AROTraceData data = new AROTraceData();
+		data.setSuccess(true);
+		data.setAnalyzerResult(result);
+		data.setBestPracticeResults(Arrays.asList(practice(new ConnectionOpeningResult(), opening),
+				practice(new AsyncCheckInScriptResult(), async)));
+		return data;
+	}
+
+	/**
+	 * One burst per energy, each made of the packet at the same position.
+	 */
+	private BurstCollectionAnalysisData bursts(List<PacketInfo> packets, double... energies) {
+		List<Burst> bursts = new ArrayList<Burst>();
+		for (int index = 0; index < energies.length; index++) {
+			Burst burst = new Burst(Collections.singletonList(packets.get(index)));
+			burst.setEnergy(energies[index]);
+			bursts.add(burst);
+		}
+		BurstCollectionAnalysisData data = new BurstCollectionAnalysisData();
+		data.setBurstCollection(bursts);
+		return data;
+	}
+
+	@Test
+	public void add_keepsResultsMetricsAndPackets() {
+		TraceSnapshot snapshot = workspace.add("before", traceData(10, 3100, BPResultType.PASS, BPResultType.FAIL, 1.5, 2.5, 3.5));
+
+		assertTrue(snapshot.isSuccess());
+		assertEquals(BPResultType.PASS, snapshot.getBestPractices().get(BestPracticeType.CONNECTION_OPENING));
+		assertEquals(BPResultType.FAIL, snapshot.getBestPractices().get(BestPracticeType.ASYNC_CHECK));
+		assertEquals(3100, snapshot.getMetric(TraceMetric.TOTAL_BYTES), 0);
+		assertEquals(10, snapshot.getMetric(TraceMetric.TRACE_DURATION), 0);
+		assertEquals(0, snapshot.getMetric(TraceMetric.SESSIONS), 0);
+		assertTrue(Double.isNaN(snapshot.getMetric(TraceMetric.TOTAL_ENERGY)));
+		assertEquals(4, snapshot.getPacketCount());
+		assertEquals(TraceSnapshot.UPLINK, snapshot.getPacketDirection(0));
+		assertEquals(1000, snapshot.getPacketLength(1));
+		assertEquals(2.5, snapshot.getPacketTime(2), 0);
+		assertEquals(Collections.singletonList(snapshot), workspace.getTraces());
+	}
+
+	@Test
+	public void add_failedTrace() {
+		AROTraceData data = new AROTraceData();
+		data.setSuccess(false);
+		data.setError(ErrorCodeRegistry.getUnknownFileFormat());
+
+		TraceSnapshot snapshot = workspace.add("broken", data);
+
+		assertFalse(snapshot.isSuccess());
+		assertEquals(106, snapshot.getError().getCode());
+		assertEquals(0, snapshot.getPacketCount());
+		assertTrue(snapshot.getBestPractices().isEmpty());
+	}
+
+	@Test
+	public void getThroughput_countsPacketsInTheirWindow() {
+		TraceSnapshot snapshot = workspace.add("before", traceData(4, 3100, BPResultType.PASS, BPResultType.PASS, 1.5, 1.7, 3.2));
+
+		ThroughputCurve curve = snapshot.getThroughput(1);
+
+		assertEquals(4, curve.size());
+		assertEquals(0.8, curve.getUploadKbps(0), 1e-9);
+		assertEquals(0, curve.getDownloadKbps(0), 1e-9);
+		assertEquals(16, curve.getDownloadKbps(1), 1e-9);
+		assertEquals(0, curve.getKbps(2), 1e-9);
+		assertEquals(8, curve.getDownloadKbps(3), 1e-9);
+		assertEquals(4, curve.getTime(3), 0);
+		assertEquals(16, curve.getPeakKbps(), 1e-9);
+	}
+
+	@Test
+	public void getEnergy_spreadsBurstsUntilTheNextOne() {
+		AROTraceData data = traceData(4, 3100, BPResultType.PASS, BPResultType.PASS, 1.5, 3.5);
+		List<PacketInfo> packets = data.getAnalyzerResult().getTraceresult().getAllpackets();
+		data.getAnalyzerResult().setBurstcollectionAnalysisData(bursts(packets, 2, 6));
+		TraceSnapshot snapshot = workspace.add("before", data);
+
+		EnergyCurve curve = snapshot.getEnergy(1);
+
+		// the first burst is charged from 0 to 1.5, the second from 1.5 to 4
+		assertEquals(4, curve.size());
+		assertEquals(2 / 1.5, curve.getJoules(0), 1e-9);
+		assertEquals(2 * 0.5 / 1.5 + 6 * 0.5 / 2.5, curve.getJoules(1), 1e-9);
+		assertEquals(6 / 2.5, curve.getJoules(2), 1e-9);
+		assertEquals(6 / 2.5, curve.getJoules(3), 1e-9);
+		assertEquals(8, curve.getTotalJoules(), 1e-9);
+		assertEquals(0, workspace.add("none", traceData(4, 3100, BPResultType.PASS, BPResultType.PASS, 1.5))
+				.getEnergy(1).getTotalJoules(), 0);
+	}
+
+	@Test
+	public void compare_reportsRegressionsAndDeltas() {
+		workspace.add("before", traceData(4, 2100, BPResultType.PASS, BPResultType.FAIL, 1.5));
+		workspace.add("after", traceData(6, 4200, BPResultType.WARNING, BPResultType.PASS, 1.5, 5.5));
+
+		TraceComparison comparison = workspace.compare("before", "after");
+
+		assertEquals("before", comparison.getBaselineTrace());
+		assertEquals(2, comparison.getBestPracticeDiffs().size());
+		List<BestPracticeDiff> regressions = comparison.getRegressions();
+		assertEquals(1, regressions.size());
+		assertEquals(BestPracticeType.CONNECTION_OPENING, regressions.get(0).getType());
+		for (BestPracticeDiff diff : comparison.getBestPracticeDiffs()) {
+			if (diff.getType() == BestPracticeType.ASYNC_CHECK) {
+				assertTrue(diff.isImprovement());
+			}
+		}
+
+		MetricDiff bytes = comparison.getMetricDiff(TraceMetric.TOTAL_BYTES);
+		assertEquals(2100, bytes.getDelta(), 0);
+		assertEquals(100, bytes.getPercentChange(), 1e-9);
+		assertNull(comparison.getMetricDiff(TraceMetric.RRC_ENERGY));
+
+		ThroughputCurve delta = comparison.getThroughputDelta(1);
+		assertEquals(6, delta.size());
+		assertEquals(0, delta.getKbps(1), 1e-9);
+		assertEquals(8, delta.getDownloadKbps(5), 1e-9);
+	}
+
+	@Test
+	public void compare_energyDelta() {
+		AROTraceData before = traceData(2, 2100, BPResultType.PASS, BPResultType.PASS, 1.5);
+		before.getAnalyzerResult().setBurstcollectionAnalysisData(
+				bursts(before.getAnalyzerResult().getTraceresult().getAllpackets(), 4));
+		AROTraceData after = traceData(3, 2100, BPResultType.PASS, BPResultType.PASS, 1.5);
+		after.getAnalyzerResult().setBurstcollectionAnalysisData(
+				bursts(after.getAnalyzerResult().getTraceresult().getAllpackets(), 3));
+		workspace.add("before", before);
+		workspace.add("after", after);
+
+		EnergyCurve delta = workspace.compare("before", "after").getEnergyDelta(1);
+
+		assertEquals(3, delta.size());
+		assertEquals(-1, delta.getJoules(0), 1e-9);
+		assertEquals(-1, delta.getJoules(1), 1e-9);
+		assertEquals(1, delta.getJoules(2), 1e-9);
+		assertEquals(-1, delta.getTotalJoules(), 1e-9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void compare_unknownTrace() {
+		workspace.add("before", traceData(4, 2100, BPResultType.PASS, BPResultType.PASS, 1.5));
+		workspace.compare("before", "missing");
+	}
+
+	@Test
+	public void add_replacesTraceOfSameName() {
+		workspace.add("trace", traceData(4, 2100, BPResultType.PASS, BPResultType.PASS, 1.5));
+		workspace.add("other", traceData(4, 2100, BPResultType.PASS, BPResultType.PASS, 1.5));
+		TraceSnapshot reloaded = workspace.add("trace", traceData(8, 5000, BPResultType.PASS, BPResultType.PASS, 1.5));
+
+		assertEquals(2, workspace.getTraces().size());
+		assertEquals(reloaded, workspace.getTraces().get(1));
+		assertEquals(5000, workspace.get("trace").getMetric(TraceMetric.TOTAL_BYTES), 0);
+		assertTrue(workspace.remove("other"));
+		assertFalse(workspace.remove("other"));
+	}
+
+	@Test
+	public void load_analyzesOnWorkerContexts() throws Exception {
+		final IAROService service = mock(IAROService.class);
+		when(service.analyzeDirectory(anyListOf(BestPracticeType.class), anyString(), any(Profile.class),
+				any(AnalysisFilter.class))).thenReturn(traceData(4, 2100, BPResultType.PASS, BPResultType.PASS, 1.5));
+		when(service.analyzeDirectory(anyListOf(BestPracticeType.class), eq("broken"), any(Profile.class),
+				any(AnalysisFilter.class))).thenThrow(new IllegalStateException("broken"));
+		final List<ConfigurableApplicationContext> workerContexts = Collections
+				.synchronizedList(new ArrayList<ConfigurableApplicationContext>());
+		TraceWorkspaceImpl loading = new TraceWorkspaceImpl(new IAnalysisContextFactory() {
+			@Override
+			public ConfigurableApplicationContext createContext() {
+				ConfigurableApplicationContext workerContext = mock(ConfigurableApplicationContext.class);
+				when(workerContext.getBean(IAROService.class)).thenReturn(service);
+				workerContexts.add(workerContext);
+				return workerContext;
+			}
+		});
+		loading.setParallelism(2);
+		final List<String> done = new ArrayList<String>();
+
+		List<TraceSnapshot> loaded = loading.load(new ArrayList<BestPracticeType>(),
+				Arrays.asList("trace1", "broken", "trace2"), null, new ITraceWorkspaceListener() {
+					@Override
+					public void traceLoaded(TraceSnapshot snapshot, int count, int total) {
+						done.add(count + "/" + total);
+					}
+				});
+
+		assertEquals(3, loaded.size());
+		assertEquals(Arrays.asList("1/3", "2/3", "3/3"), done);
+		assertEquals(3, loading.getTraces().size());
+		assertTrue(loading.get("trace1").isSuccess());
+		assertFalse(loading.get("broken").isSuccess());
+		for (ConfigurableApplicationContext workerContext : workerContexts) {
+			verify(workerContext).close();
+		}
+	}
+}
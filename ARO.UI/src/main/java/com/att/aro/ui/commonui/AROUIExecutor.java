@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.ui.commonui;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.att.aro.core.ILogger;
+
+/**
+ * Small shared pool for UI work that must stay off the event dispatch thread, such as sorting large tables or
+ * waiting out a double click. Tasks that touch Swing components have to hand their result back with
+ * SwingUtilities.invokeLater.
+ */
+public final class AROUIExecutor {
+
+	private static final int THREADS = 2;
+
+	private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+	private AROUIExecutor() {
+	}
+
+	private static ScheduledThreadPoolExecutor createExecutor() {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(THREADS, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "ARO-UI-worker-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
+
+	/**
+	 * Runs the task as soon as a worker is free.
+	 *
+	 * @param task
+	 * @return Future to cancel the task with
+	 */
+	public static Future<?> submit(Runnable task) {
+		return EXECUTOR.submit(logged(task));
+	}
+
+	/**
+	 * Runs the task after the delay unless it is cancelled first.
+	 *
+	 * @param task
+	 * @param delayMillis
+	 * @return ScheduledFuture to cancel the task with
+	 */
+	public static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+		return EXECUTOR.schedule(logged(task), delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Futures keep the exceptions of their tasks to themselves, nobody waits on these so log them instead.
+	 */
+	private static Runnable logged(final Runnable task) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} catch (RuntimeException exception) {
+					ContextAware.getAROConfigContext().getBean(ILogger.class).error("UI background task failed", exception);
+				}
+			}
+		};
+	}
+}
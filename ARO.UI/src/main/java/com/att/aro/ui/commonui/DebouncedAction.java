@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.ui.commonui;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Runs only the last of a burst of requests, once no new request came in for the delay. Used by the image tables
+ * to tell a single click, which opens a viewer, from the first half of a double click.
+ *
+ * The task runs on an {@link AROUIExecutor} worker, not on the event dispatch thread.
+ */
+public class DebouncedAction {
+
+	private final long delayMillis;
+	private ScheduledFuture<?> pending;
+
+	public DebouncedAction(long delayMillis) {
+		this.delayMillis = delayMillis;
+	}
+
+	/**
+	 * Replaces any waiting task with this one.
+	 *
+	 * @param task
+	 */
+	public synchronized void schedule(Runnable task) {
+		cancel();
+		pending = AROUIExecutor.schedule(task, delayMillis);
+	}
+
+	/**
+	 * Drops the waiting task, if any.
+	 */
+	public synchronized void cancel() {
+		if (pending != null) {
+			pending.cancel(false);
+			pending = null;
+		}
+	}
+}
@@ -36,6 +36,8 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	private static final long serialVersionUID = 1L;
 
 	private List<T> data = new ArrayList<T>();
+	// true while data is a list handed in by setRows, copied before the first change
+	private boolean shared;
 	private String[] columns;
 
 	/**
@@ -145,13 +147,53 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 *            set to null, it will clear the existing table data.
 	 */
 	public  void setData(Collection<T> data) {
-		this.data.clear();
+		clearData();
 		if (data != null) {
 			this.data.addAll(data);
 		}
 		fireTableDataChanged();
 	}
 
+	/**
+	 * Displays the rows without copying them, cell values are still only
+	 * computed for the rows the table paints. Meant for the large lists of the
+	 * trace analysis, the caller must not change the list afterwards.
+	 * 
+	 * @param rows
+	 *            The rows to be displayed in the table, null clears the table.
+	 */
+	public void setRows(List<T> rows) {
+		if (rows == null) {
+			setData(null);
+			return;
+		}
+		this.data = rows;
+		this.shared = true;
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Empties the table, a list given to setRows is left as it is.
+	 */
+	private void clearData() {
+		if (shared) {
+			this.data = new ArrayList<T>();
+			this.shared = false;
+		} else {
+			this.data.clear();
+		}
+	}
+
+	/**
+	 * Copies a list given to setRows before this model changes it.
+	 */
+	private void ensureOwnData() {
+		if (shared) {
+			this.data = new ArrayList<T>(data);
+			this.shared = false;
+		}
+	}
+
 	/**
 	 * Adds a single row to the end of the data set.
 	 * 
@@ -159,6 +201,7 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 *            The new row to be added.
 	 */
 	public  void addRow(T row) {
+		ensureOwnData();
 		this.data.add(row);
 		fireTableDataChanged();
 	}
@@ -172,6 +215,7 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 *            The new row to be added.
 	 */
 	public  void addRow(int location, T row) {
+		ensureOwnData();
 		this.data.add(location, row);
 		fireTableDataChanged();
 	}
@@ -185,6 +229,7 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 */
 	public  void addRows(Collection<T> rows) {
 		if (rows != null && rows.size() > 0) {
+			ensureOwnData();
 			this.data.addAll(rows);
 			fireTableDataChanged();
 		}
@@ -198,6 +243,7 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 * @return The data object that was removed.
 	 */
 	public  T removeRow(int index) {
+		ensureOwnData();
 		T removed = this.data.remove(index);
 		fireTableDataChanged();
 		return removed;
@@ -219,7 +265,7 @@ public abstract class DataTableModel<T> extends AbstractTableModel {
 	 * Removes all data from the data table.
 	 */
 	public  void removeAllRows() {
-		this.data.clear();
+		clearData();
 		fireTableDataChanged();
 	}
 
@@ -0,0 +1,414 @@
+/*
+ *  Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package com.att.aro.ui.model;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+
+import com.att.aro.ui.commonui.AROUIExecutor;
+
+/**
+ * RowSorter for a DataTableModel that sorts and filters on an AROUIExecutor worker instead of the event dispatch
+ * thread. TableRowSorter asks the model for cell values O(n log n) times on the event dispatch thread, which freezes
+ * the diagnostics tab on traces with 100k+ packets.
+ *
+ * The rows keep their previous order until the worker is done, then the new order is swapped in at once. After a
+ * change of the model rows are shown in model order until they are sorted again.
+ *
+ * @param <T>
+ *            The row type of the model.
+ */
+public class DataTableRowSorter<T> extends RowSorter<DataTableModel<T>> {
+
+	private static final int MAX_SORT_KEYS = 3;
+
+	private final DataTableModel<T> model;
+	private List<SortKey> sortKeys = Collections.emptyList();
+	private RowFilter<? super DataTableModel<T>, ? super Integer> rowFilter;
+
+	// both null while rows are shown in model order
+	private int[] viewToModel;
+	private int[] modelToView;
+
+	// bumped by every change, a worker result for an older generation is dropped
+	private int generation;
+	private Future<?> pending;
+
+	public DataTableRowSorter(DataTableModel<T> model) {
+		this.model = model;
+	}
+
+	@Override
+	public DataTableModel<T> getModel() {
+		return model;
+	}
+
+	/**
+	 * Makes the column the primary sort key, ascending, or flips its order if
+	 * it already is the primary key.
+	 */
+	@Override
+	public void toggleSortOrder(int column) {
+		checkColumn(column);
+		List<SortKey> keys = new ArrayList<SortKey>(sortKeys);
+		int index = keys.size() - 1;
+		while (index >= 0 && keys.get(index).getColumn() != column) {
+			index--;
+		}
+		if (index == 0) {
+			SortOrder order = keys.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+			keys.set(0, new SortKey(column, order));
+		} else {
+			if (index > 0) {
+				keys.remove(index);
+			}
+			keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+			if (keys.size() > MAX_SORT_KEYS) {
+				keys = keys.subList(0, MAX_SORT_KEYS);
+			}
+		}
+		setSortKeys(keys);
+	}
+
+	@Override
+	public List<? extends SortKey> getSortKeys() {
+		return sortKeys;
+	}
+
+	@Override
+	public void setSortKeys(List<? extends SortKey> keys) {
+		List<SortKey> newKeys = Collections.emptyList();
+		if (keys != null) {
+			for (SortKey key : keys) {
+				checkColumn(key.getColumn());
+			}
+			newKeys = Collections.unmodifiableList(new ArrayList<SortKey>(keys));
+		}
+		if (!newKeys.equals(sortKeys)) {
+			sortKeys = newKeys;
+			fireSortOrderChanged();
+			sort();
+		}
+	}
+
+	public RowFilter<? super DataTableModel<T>, ? super Integer> getRowFilter() {
+		return rowFilter;
+	}
+
+	/**
+	 * Hides the rows the filter does not include, null shows all rows. The
+	 * filter is called on a worker thread.
+	 *
+	 * @param rowFilter
+	 */
+	public void setRowFilter(RowFilter<? super DataTableModel<T>, ? super Integer> rowFilter) {
+		this.rowFilter = rowFilter;
+		sort();
+	}
+
+	@Override
+	public int convertRowIndexToModel(int index) {
+		if (viewToModel == null) {
+			checkRow(index, model.getRowCount());
+			return index;
+		}
+		checkRow(index, viewToModel.length);
+		return viewToModel[index];
+	}
+
+	@Override
+	public int convertRowIndexToView(int index) {
+		if (modelToView == null) {
+			checkRow(index, model.getRowCount());
+			return index;
+		}
+		checkRow(index, modelToView.length);
+		return modelToView[index];
+	}
+
+	@Override
+	public int getViewRowCount() {
+		return viewToModel == null ? model.getRowCount() : viewToModel.length;
+	}
+
+	@Override
+	public int getModelRowCount() {
+		return model.getRowCount();
+	}
+
+	@Override
+	public void modelStructureChanged() {
+		allRowsChanged();
+	}
+
+	@Override
+	public void allRowsChanged() {
+		resetOrder();
+		sort();
+	}
+
+	@Override
+	public void rowsInserted(int firstRow, int endRow) {
+		allRowsChanged();
+	}
+
+	@Override
+	public void rowsDeleted(int firstRow, int endRow) {
+		allRowsChanged();
+	}
+
+	@Override
+	public void rowsUpdated(int firstRow, int endRow) {
+		sort();
+	}
+
+	@Override
+	public void rowsUpdated(int firstRow, int endRow, int column) {
+		if (rowFilter != null || isSortedBy(column)) {
+			sort();
+		}
+	}
+
+	private boolean isSortedBy(int column) {
+		for (SortKey key : sortKeys) {
+			if (key.getColumn() == column && key.getSortOrder() != SortOrder.UNSORTED) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The rows of the model changed, the old order may point at rows that no
+	 * longer exist. JTable reads the new row count right after this, so the
+	 * rows fall back to model order without an event.
+	 */
+	private void resetOrder() {
+		generation++;
+		viewToModel = null;
+		modelToView = null;
+	}
+
+	/**
+	 * Hands the current rows to a worker, which posts the new order back to
+	 * the event dispatch thread.
+	 */
+	private void sort() {
+		final int requested = ++generation;
+		if (pending != null) {
+			pending.cancel(false);
+			pending = null;
+		}
+		if (!isSorted() && rowFilter == null) {
+			if (viewToModel != null) {
+				int[] last = viewToModel;
+				viewToModel = null;
+				modelToView = null;
+				fireRowSorterChanged(last);
+			}
+			return;
+		}
+		final List<T> rows = new ArrayList<T>(model.getData());
+		final List<SortKey> keys = sortKeys;
+		final RowFilter<? super DataTableModel<T>, ? super Integer> filter = rowFilter;
+		pending = AROUIExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				final int[] order = order(rows, keys, filter);
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						apply(requested, order, rows.size());
+					}
+				});
+			}
+		});
+	}
+
+	private boolean isSorted() {
+		for (SortKey key : sortKeys) {
+			if (key.getSortOrder() != SortOrder.UNSORTED) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void apply(int requested, int[] order, int rowCount) {
+		if (requested != generation || rowCount != model.getRowCount()) {
+			return;
+		}
+		pending = null;
+		int[] last = viewToModel != null ? viewToModel : identity(rowCount);
+		viewToModel = order;
+		modelToView = new int[rowCount];
+		Arrays.fill(modelToView, -1);
+		for (int viewIndex = 0; viewIndex < order.length; viewIndex++) {
+			modelToView[order[viewIndex]] = viewIndex;
+		}
+		fireRowSorterChanged(last);
+	}
+
+	/**
+	 * Runs on the worker. Reads every sort column once per row, then sorts the
+	 * model indexes, rows that compare equal stay in model order.
+	 */
+	private int[] order(final List<T> rows, List<SortKey> keys, RowFilter<? super DataTableModel<T>, ? super Integer> filter) {
+		List<Integer> included = new ArrayList<Integer>(rows.size());
+		RowEntry entry = new RowEntry(rows);
+		for (int row = 0; row < rows.size(); row++) {
+			entry.row = row;
+			if (filter == null || filter.include(entry)) {
+				included.add(row);
+			}
+		}
+
+		final List<Object[]> columnValues = new ArrayList<Object[]>();
+		final List<Comparator<Object>> comparators = new ArrayList<Comparator<Object>>();
+		final List<Boolean> descending = new ArrayList<Boolean>();
+		for (SortKey key : keys) {
+			if (key.getSortOrder() == SortOrder.UNSORTED) {
+				continue;
+			}
+			Object[] values = new Object[rows.size()];
+			for (Integer row : included) {
+				values[row] = model.getColumnValue(rows.get(row), key.getColumn());
+			}
+			columnValues.add(values);
+			comparators.add(getComparator(key.getColumn()));
+			descending.add(key.getSortOrder() == SortOrder.DESCENDING);
+		}
+
+		if (!columnValues.isEmpty()) {
+			Collections.sort(included, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer row1, Integer row2) {
+					for (int idx = 0; idx < columnValues.size(); idx++) {
+						Object value1 = columnValues.get(idx)[row1];
+						Object value2 = columnValues.get(idx)[row2];
+						int result;
+						if (value1 == null) {
+							result = value2 == null ? 0 : -1;
+						} else if (value2 == null) {
+							result = 1;
+						} else {
+							result = comparators.get(idx).compare(value1, value2);
+						}
+						if (result != 0) {
+							return descending.get(idx) ? -result : result;
+						}
+					}
+					return 0;
+				}
+			});
+		}
+
+		int[] order = new int[included.size()];
+		for (int viewIndex = 0; viewIndex < order.length; viewIndex++) {
+			order[viewIndex] = included.get(viewIndex);
+		}
+		return order;
+	}
+
+	/**
+	 * Same choice as TableRowSorter, strings by collator, Comparable classes
+	 * by their natural order, anything else by its string value.
+	 */
+	private Comparator<Object> getComparator(int column) {
+		Class<?> columnClass = model.getColumnClass(column);
+		final Collator collator = Collator.getInstance();
+		if (columnClass != String.class && Comparable.class.isAssignableFrom(columnClass)) {
+			return new Comparator<Object>() {
+				@SuppressWarnings({ "unchecked", "rawtypes" })
+				@Override
+				public int compare(Object value1, Object value2) {
+					if (value1 instanceof Comparable && value1.getClass().isInstance(value2)) {
+						return ((Comparable) value1).compareTo(value2);
+					}
+					return collator.compare(value1.toString(), value2.toString());
+				}
+			};
+		}
+		return new Comparator<Object>() {
+			@Override
+			public int compare(Object value1, Object value2) {
+				return collator.compare(value1.toString(), value2.toString());
+			}
+		};
+	}
+
+	private static int[] identity(int count) {
+		int[] indexes = new int[count];
+		for (int idx = 0; idx < count; idx++) {
+			indexes[idx] = idx;
+		}
+		return indexes;
+	}
+
+	private void checkColumn(int column) {
+		if (column < 0 || column >= model.getColumnCount()) {
+			throw new IndexOutOfBoundsException("column " + column + " out of range");
+		}
+	}
+
+	private static void checkRow(int row, int count) {
+		if (row < 0 || row >= count) {
+			throw new IndexOutOfBoundsException("row " + row + " out of range");
+		}
+	}
+
+	/**
+	 * Row of the snapshot being sorted, as seen by a RowFilter.
+	 */
+	private class RowEntry extends RowFilter.Entry<DataTableModel<T>, Integer> {
+		private final List<T> rows;
+		private int row;
+
+		RowEntry(List<T> rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public DataTableModel<T> getModel() {
+			return model;
+		}
+
+		@Override
+		public int getValueCount() {
+			return model.getColumnCount();
+		}
+
+		@Override
+		public Object getValue(int index) {
+			return model.getColumnValue(rows.get(row), index);
+		}
+
+		@Override
+		public Integer getIdentifier() {
+			return row;
+		}
+	}
+}
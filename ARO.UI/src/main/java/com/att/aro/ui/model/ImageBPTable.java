@@ -24,9 +24,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
@@ -41,60 +44,62 @@ import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
 
 import com.att.aro.core.preferences.impl.PreferenceHandlerImpl;
 import com.att.aro.ui.commonui.ContentViewer;
+import com.att.aro.ui.commonui.DebouncedAction;
 
 public class ImageBPTable<T> extends JTable {
 	private static final long serialVersionUID = 1L;
+	private static final long CLICK_DELAY = 500;
+	private static final Logger LOGGER = Logger.getLogger(ImageBPTable.class.getName());
+
+	// a single click opens the metadata viewer once it is clear no double click follows
+	private final DebouncedAction singleClick = new DebouncedAction(CLICK_DELAY);
 
 	// Listener to handle the events on table.
 	private MouseListener mouseListener = new MouseAdapter() {
-		private boolean lastClicked = false;
 
 		@Override
 		public void mousePressed(final MouseEvent mEvent) {
 			if (mEvent.getClickCount() < 2) {
-				lastClicked = true;
-				Thread t = new Thread(new Runnable() {
-
+				Point point = mEvent.getPoint();
+				int row = rowAtPoint(point);
+				if (row == -1 || columnAtPoint(point) == -1) {
+					return;
+				}
+				final String imageUrl = getValueAt(row, 1).toString();
+				singleClick.schedule(new Runnable() {
 					@Override
 					public void run() {
-						try {
-							Thread.sleep(500);
-						} catch (InterruptedException e) {
-							e.printStackTrace();
-						}
-						if (lastClicked) {
-							showContent(mEvent);
-						}
-						lastClicked = false;
+						showContent(imageUrl);
 					}
-
 				});
-				t.start();
 			} else {
-				lastClicked = false;
+				singleClick.cancel();
 			}
 
 			// showPopup(mEvent);
 		}
 
-		protected void showContent(MouseEvent mEvent) {
-
-			Point point = mEvent.getPoint();
-			int row = rowAtPoint(point);
-			int col = columnAtPoint(point);
-			if(col == -1) {
-				return;
-			}
+		/**
+		 * Reads the metadata on the worker, the viewer is shown on the event dispatch thread.
+		 */
+		protected void showContent(final String imageUrl) {
+			final StringBuffer metadata;
 			try {
-				ContentViewer.getInstance().viewImageMetadataContent(getEXIF(getValueAt(row, 1).toString()));
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+				metadata = getEXIF(imageUrl);
 			} catch (Exception e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+				LOGGER.log(Level.SEVERE, "Failed to read image metadata for " + imageUrl, e);
+				return;
 			}
-
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						ContentViewer.getInstance().viewImageMetadataContent(metadata);
+					} catch (Exception e) {
+						LOGGER.log(Level.SEVERE, "Failed to show image metadata for " + imageUrl, e);
+					}
+				}
+			});
 		}
 
 	};
@@ -198,7 +203,7 @@ public class ImageBPTable<T> extends JTable {
 			}
 
 		} catch (IOException | ImageReadException e) {
-			e.printStackTrace();
+			LOGGER.log(Level.WARNING, "Failed to read metadata from " + fullpath, e);
 		}
 
 		return completeMetadata;
@@ -25,6 +25,7 @@ import java.util.List;
 
 import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
@@ -32,39 +33,34 @@ import javax.swing.table.TableModel;
 
 import com.att.aro.core.preferences.impl.PreferenceHandlerImpl;
 import com.att.aro.ui.commonui.ContentViewer;
+import com.att.aro.ui.commonui.DebouncedAction;
 
 public class ImageCompressionDataTable<T> extends JTable {
 	private static final long serialVersionUID = 1L;
+	private static final long CLICK_DELAY = 500;
+
+	// a single click opens the image viewer once it is clear no double click follows
+	private final DebouncedAction singleClick = new DebouncedAction(CLICK_DELAY);
 
 	// Listener to handle the events on table.
 	private MouseListener mouseListener = new MouseAdapter() {
-		private boolean lastClicked = false;
 
 		@Override
 		public void mousePressed(final MouseEvent mEvent) {
-			// showPopup(mEvent);
-			
 			if (mEvent.getClickCount() < 2) {
-				lastClicked = true;
-				Thread t = new Thread(new Runnable() {
-
+				singleClick.schedule(new Runnable() {
 					@Override
 					public void run() {
-						try {
-							Thread.sleep(500);
-						} catch (InterruptedException e) {
-							e.printStackTrace();
-						}
-						if (lastClicked) {
-							showContent(mEvent);
-						}
-						lastClicked = false;
+						SwingUtilities.invokeLater(new Runnable() {
+							@Override
+							public void run() {
+								showContent(mEvent);
+							}
+						});
 					}
-
 				});
-				t.start();
 			} else {
-				lastClicked = false;
+				singleClick.cancel();
 			}
 			
 		}
@@ -68,7 +68,7 @@ public class RequestResponseTableModel extends DataTableModel<HttpRequestRespons
 	
 	public void refresh(Session session) {
 		setSession(session);
-		setData(session.getRequestResponseInfo());
+		setRows(session.getRequestResponseInfo());
 	}
 
 
@@ -16,11 +16,12 @@
 package com.att.aro.ui.model.diagnostic;
 
 import java.text.DecimalFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
@@ -65,24 +66,19 @@ public class TCPUDPFlowsTableModel extends DataTableModel<Session> {
 	private Set<Session> highlighted = new HashSet<Session>();
 	private TableColumnModel cols;
 	
-	private Map<String, Session> sessionMap;
-	private Map<String, Boolean> checkboxMap;// side load and track...
-	
-	public Map<String, Session> getSessionMap() {
-		return sessionMap;
-	}
-	
-	public Map<String, Boolean> getCheckboxMap() {
-		return checkboxMap;
-	}
+	/**
+	 * Keys of the sessions whose check box was cleared, every other session is
+	 * checked. Keeps refresh independent of the number of sessions, the key of
+	 * a row is only built when the row is painted. Concurrent because the
+	 * DataTableRowSorter reads it from its worker.
+	 */
+	private Set<String> uncheckedKeys = ConcurrentHashMap.newKeySet();
 	
 	/**
 	 * Initializes a new instance of the BurstAnalysisTableModel class.
 	 */
 	public TCPUDPFlowsTableModel() {
 		super(COLUMNNAMES);
-		sessionMap = new HashMap<String, Session>();
-		checkboxMap = new HashMap<String, Boolean>();
 		this.addTableModelListener(new TableModelListener() {
 			@Override
 			public void tableChanged(TableModelEvent arg0) {
@@ -95,13 +91,45 @@ public class TCPUDPFlowsTableModel extends DataTableModel<Session> {
 	}
 	
 	public void refresh(AROTraceData aroTraceData) {
-		setData(aroTraceData.getAnalyzerResult().getSessionlist());
-		getCheckboxMap().clear();
-		for(int index = 0 ;index < aroTraceData.getAnalyzerResult().getSessionlist().size();index++) {
-			Session session = aroTraceData.getAnalyzerResult().getSessionlist().get(index);
-			String sessionKey = getSessionKey(session);
-			sessionMap.put(sessionKey, session);
-			checkboxMap.put(sessionKey, new Boolean(true));
+		uncheckedKeys.clear();
+		setRows(aroTraceData.getAnalyzerResult().getSessionlist());
+	}
+	
+	public boolean isChecked(Session session) {
+		return !uncheckedKeys.contains(getSessionKey(session));
+	}
+	
+	/**
+	 * @return the checked sessions, in the order of the model
+	 */
+	public List<Session> getCheckedSessions() {
+		List<Session> checked = new ArrayList<Session>(getRowCount());
+		for (Session session : getData()) {
+			if (uncheckedKeys.isEmpty() || isChecked(session)) {
+				checked.add(session);
+			}
+		}
+		return checked;
+	}
+	
+	public int getCheckedCount() {
+		return getRowCount() - uncheckedKeys.size();
+	}
+	
+	/**
+	 * Checks or clears every row, with one table event instead of one per row.
+	 * 
+	 * @param checked
+	 */
+	public void setAllChecked(boolean checked) {
+		uncheckedKeys.clear();
+		if (!checked) {
+			for (Session session : getData()) {
+				uncheckedKeys.add(getSessionKey(session));
+			}
+		}
+		if (getRowCount() > 0) {
+			fireTableChanged(new TableModelEvent(this, 0, getRowCount() - 1, CHECKBOX_COL));
 		}
 	}
 	
@@ -222,8 +250,7 @@ public class TCPUDPFlowsTableModel extends DataTableModel<Session> {
 				return item.getPackets().get(0).getTimeStamp();
 			}
 		case CHECKBOX_COL:
-			String sessionKey = getSessionKey(item);
-			return getCheckboxMap().get(sessionKey);
+			return isChecked(item);
 		case APP_COL:
 			if(item.isUDP()){
 				return item.getUDPPackets().get(0).getAppName();
@@ -319,9 +346,10 @@ public class TCPUDPFlowsTableModel extends DataTableModel<Session> {
 			if(value instanceof Boolean){
 				boolean checkBoxValue = (Boolean) value;
 				String sessionKey = getSessionKey(item);
-				if(sessionMap.containsKey(sessionKey) && checkboxMap.containsKey(sessionKey)) {
-					sessionMap.put(sessionKey, item);
-					checkboxMap.put(sessionKey, checkBoxValue);
+				if (checkBoxValue) {
+					uncheckedKeys.remove(sessionKey);
+				} else {
+					uncheckedKeys.add(sessionKey);
 				}
 			}
 			
@@ -18,11 +18,14 @@ package com.att.aro.ui.view.diagnostictab;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import javax.swing.JLabel;
@@ -30,29 +33,37 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
+import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
-import javax.swing.RowSorter;
+import javax.swing.RowFilter;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
-import javax.swing.table.TableRowSorter;
 
 import com.att.aro.core.ILogger;
 import com.att.aro.core.bestpractice.pojo.ForwardSecrecyEntry;
 import com.att.aro.core.bestpractice.pojo.TransmissionPrivateDataEntry;
 import com.att.aro.core.bestpractice.pojo.UnsecureSSLVersionEntry;
 import com.att.aro.core.bestpractice.pojo.WeakCipherEntry;
+import com.att.aro.core.displayfilter.IDisplayFilterService;
+import com.att.aro.core.displayfilter.pojo.DisplayFilter;
+import com.att.aro.core.displayfilter.pojo.DisplayFilterResult;
+import com.att.aro.core.displayfilter.pojo.PacketTable;
+import com.att.aro.core.exception.DisplayFilterException;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.PacketInfo;
 import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.mvc.IAROView;
+import com.att.aro.ui.commonui.AROUIExecutor;
 import com.att.aro.ui.commonui.ContextAware;
 import com.att.aro.ui.commonui.TabPanelJPanel;
 import com.att.aro.ui.model.DataTable;
+import com.att.aro.ui.model.DataTableModel;
+import com.att.aro.ui.model.DataTableRowSorter;
 import com.att.aro.ui.model.diagnostic.PacketViewTableModel;
 import com.att.aro.ui.model.diagnostic.TCPUDPFlowsTableModel;
 import com.att.aro.ui.utils.ResourceBundleHelper;
@@ -76,6 +87,12 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 	// TCP Flows header
 	private JPanel tcpFlowsHeadingPanel;
 	private JLabel tcpFlowsLabel;
+	private JTextField displayFilterField;
+
+	// display filter over the packets of the trace, the table is read once per trace on a worker
+	private IDisplayFilterService displayFilterService = ContextAware.getAROConfigContext().getBean(IDisplayFilterService.class);
+	private AROTraceData displayFilterTrace;
+	private PacketTable displayFilterTable;
 
 	private DataTable<PacketInfo> jPacketViewTable;
 	
@@ -261,7 +278,7 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 	private DataTable<PacketInfo> getJPacketViewTable() {
 		if (jPacketViewTable == null) {
 			jPacketViewTable = new DataTable<PacketInfo>(jPacketViewTableModel);
-			jPacketViewTable.setAutoCreateRowSorter(true);
+			jPacketViewTable.setRowSorter(new DataTableRowSorter<PacketInfo>(jPacketViewTableModel));
 			jPacketViewTable.setGridColor(Color.LIGHT_GRAY);
 			jPacketViewTable.getSelectionModel().addListSelectionListener(
 					new ListSelectionListener() {
@@ -340,8 +357,11 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 		if (tcpFlowsHeadingPanel == null) {
 			tcpFlowsHeadingPanel = new JPanel();
 			tcpFlowsHeadingPanel.setLayout(new GridBagLayout());
-			tcpFlowsHeadingPanel.add(getTcpFlowsLabel());
-			tcpFlowsHeadingPanel.setPreferredSize(new Dimension(110, 15));
+			tcpFlowsHeadingPanel.add(getTcpFlowsLabel(), new GridBagConstraints(0, 0, 1, 1, 0.0, 0.0,
+					GridBagConstraints.CENTER, GridBagConstraints.NONE, new Insets(0, 10, 0, 10), 0, 0));
+			tcpFlowsHeadingPanel.add(getDisplayFilterField(), new GridBagConstraints(1, 0, 1, 1, 1.0, 0.0,
+					GridBagConstraints.CENTER, GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 10), 0, 0));
+			tcpFlowsHeadingPanel.setPreferredSize(new Dimension(110, 24));
 		}
 		return tcpFlowsHeadingPanel;
 	}
@@ -355,6 +375,97 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 		}
 		return tcpFlowsLabel;
 	}
+
+	/**
+	 * Returns the display filter field, the filter is applied on Enter.
+	 */
+	private JTextField getDisplayFilterField() {
+		if (displayFilterField == null) {
+			displayFilterField = new JTextField();
+			displayFilterField.setToolTipText(ResourceBundleHelper.getMessageString("tcp.filter.tooltip"));
+			displayFilterField.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent event) {
+					applyDisplayFilter(displayFilterField.getText().trim());
+				}
+			});
+		}
+		return displayFilterField;
+	}
+
+	/**
+	 * Compiles the filter on the event dispatch thread so errors show at once,
+	 * the packets are matched on a worker.
+	 */
+	private void applyDisplayFilter(String expression) {
+		JTextField field = getDisplayFilterField();
+		field.setBackground(Color.WHITE);
+		field.setToolTipText(ResourceBundleHelper.getMessageString("tcp.filter.tooltip"));
+		if (expression.isEmpty() || analyzerResult == null) {
+			setDisplayFilterResult(analyzerResult, null);
+			return;
+		}
+		final DisplayFilter filter;
+		try {
+			filter = displayFilterService.compile(expression);
+		} catch (DisplayFilterException exception) {
+			field.setBackground(Color.PINK);
+			field.setToolTipText(exception.getMessage());
+			field.setCaretPosition(Math.min(exception.getPosition(), field.getText().length()));
+			return;
+		}
+		final AROTraceData trace = analyzerResult;
+		AROUIExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				final DisplayFilterResult result = displayFilterService.filter(filter, getDisplayFilterTable(trace));
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						setDisplayFilterResult(trace, result);
+					}
+				});
+			}
+		});
+	}
+
+	private synchronized PacketTable getDisplayFilterTable(AROTraceData trace) {
+		if (displayFilterTrace != trace) {
+			displayFilterTable = displayFilterService.createTable(trace.getAnalyzerResult().getTraceresult().getAllpackets(),
+					trace.getAnalyzerResult().getSessionlist());
+			displayFilterTrace = trace;
+		}
+		return displayFilterTable;
+	}
+
+	/**
+	 * Hides the flows and packets the filter does not match, null shows all of
+	 * them. A result for a trace that was replaced in the meantime is dropped.
+	 */
+	@SuppressWarnings("unchecked")
+	private void setDisplayFilterResult(AROTraceData trace, final DisplayFilterResult result) {
+		if (trace != analyzerResult) {
+			return;
+		}
+		RowFilter<DataTableModel<Session>, Integer> sessionFilter = null;
+		RowFilter<DataTableModel<PacketInfo>, Integer> packetFilter = null;
+		if (result != null) {
+			sessionFilter = new RowFilter<DataTableModel<Session>, Integer>() {
+				@Override
+				public boolean include(Entry<? extends DataTableModel<Session>, ? extends Integer> entry) {
+					return result.includes(entry.getModel().getValueAt(entry.getIdentifier()));
+				}
+			};
+			packetFilter = new RowFilter<DataTableModel<PacketInfo>, Integer>() {
+				@Override
+				public boolean include(Entry<? extends DataTableModel<PacketInfo>, ? extends Integer> entry) {
+					return result.includes(entry.getModel().getValueAt(entry.getIdentifier()));
+				}
+			};
+		}
+		((DataTableRowSorter<Session>) getJTCPFlowsTable().getRowSorter()).setRowFilter(sessionFilter);
+		((DataTableRowSorter<PacketInfo>) getJPacketViewTable().getRowSorter()).setRowFilter(packetFilter);
+	}
 	/**
 	 * Initializes and returns the TCPFlowsScrollPane.
 	 */
@@ -372,7 +483,7 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 	public TCPFlowsDataTable<Session> getJTCPFlowsTable(){
 		if (tcpflowsTable == null) {
 			tcpflowsTable = new TCPFlowsDataTable<Session>(jTcpUdpFlowsModel);
-			tcpflowsTable.setAutoCreateRowSorter(true);
+			tcpflowsTable.setRowSorter(new DataTableRowSorter<Session>(jTcpUdpFlowsModel));
 			tcpflowsTable.setGridColor(Color.LIGHT_GRAY);
 			tcpflowsTable.getSelectionModel().addListSelectionListener(this);
 			//Adding the table listner for getting the check box changes //greg story 
@@ -405,13 +516,14 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 		analyzerResult = AnalyzerResult;
 		setAroTraceData(analyzerResult);
 		getDeviceNetworkProfilePanel().refresh(analyzerResult);
+		// a new trace starts out in time order, sorting happens off the EDT
+		getJTCPFlowsTable().getRowSorter().setSortKeys(null);
+		getDisplayFilterField().setText("");
+		applyDisplayFilter("");
 		jTcpUdpFlowsModel.refresh(analyzerResult);
-		RowSorter<TCPUDPFlowsTableModel> sorter = new TableRowSorter<TCPUDPFlowsTableModel>(jTcpUdpFlowsModel);
-		getJTCPFlowsTable().setRowSorter(sorter);
 
 		sessionsSortedByTimestamp = analyzerResult.getAnalyzerResult().getSessionlist();
-		setRequestResponseWithSession(buildHttpRequestResponseWithSession(
-				analyzerResult.getAnalyzerResult().getSessionlist()));
+		setRequestResponseWithSession(analyzerResult.getAnalyzerResult().getRequestResponseIndex().getSorted());
 		getGraphPanel().refresh(analyzerResult);
 		//clear table
 		jPacketViewTableModel.removeAllRows();
@@ -453,7 +565,7 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 
 				}else{
 	  				if(session.isUDP()){
-	  					jPacketViewTableModel.setData(session.getUDPPackets());
+	  					jPacketViewTableModel.setRows(session.getUDPPackets());
 	  					getJPacketViewTable().setGridColor(Color.LIGHT_GRAY);
 						if (!session.getUDPPackets().isEmpty()) {
 							getJPacketViewTable().getSelectionModel()
@@ -466,7 +578,7 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 						getJContentViewPanel().getJContentTextArea().setCaretPosition(0);
 						getJHttpReqResPanel().updateTable(session);
 	 				}else{
-	 					jPacketViewTableModel.setData(session.getPackets());
+	 					jPacketViewTableModel.setRows(session.getPackets());
 	 					getJPacketViewTable().setGridColor(Color.LIGHT_GRAY);
 	 					if(!session.getPackets().isEmpty()){
 	 						getJPacketViewTable().getSelectionModel().setSelectionInterval(0, 0);
@@ -491,32 +603,6 @@ public class DiagnosticsTab extends TabPanelJPanel implements ListSelectionListe
 		return reqInfo;
  	}
 	
-	/**
-	 * TODO:  This belongs in core!  As a matter of fact, it's mostly copied and pasted from
-	 * internal code in CacheAnalysisImpl
-	 * 
-	 * @param sessions
-	 * @return
-	 */
-	private List<HttpRequestResponseInfoWithSession> buildHttpRequestResponseWithSession(
-			List<Session> sessions) {
-		List<HttpRequestResponseInfoWithSession> returnList =
-				new ArrayList<HttpRequestResponseInfoWithSession>();
-		for (Session session : sessions) {
-			if(!session.isUDP()){
-				for(HttpRequestResponseInfo item: session.getRequestResponseInfo()){
-					HttpRequestResponseInfoWithSession itemsession =
-							new HttpRequestResponseInfoWithSession();
-					itemsession.setInfo(item);
-					itemsession.setSession(session);
-					returnList.add(itemsession);
-				}
-			} 
-		}
-		Collections.sort(returnList);
-		return Collections.unmodifiableList(returnList);
-	}
-
 	private void setHighlightedPacket(Session session) {
 //		requestResponseWithSession.contains(session);
 		for (HttpRequestResponseInfoWithSession reqResSession : requestResponseWithSession) {
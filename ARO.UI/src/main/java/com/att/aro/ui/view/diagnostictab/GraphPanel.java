@@ -383,13 +383,7 @@ public class GraphPanel extends JPanel implements ActionListener, ChartMouseList
 			return;
 		} else {
 			TCPUDPFlowsTableModel model = (TCPUDPFlowsTableModel) parent.getJTCPFlowsTable().getModel();
-			Map<String, Session> subSessionMap = model.getSessionMap();
-			Map<String, Boolean> subcheckboxMap = model.getCheckboxMap();
-			for (Map.Entry<String, Boolean> entry : subcheckboxMap.entrySet()) {
-				if (entry.getValue()) {
-					tcpsessionsList.add(subSessionMap.get(entry.getKey()));
-				}
-			}
+			tcpsessionsList = model.getCheckedSessions();
 
 			// tcpsessionsList =
 			// parent.getJTCPFlowsTable().getSelectedCheckboxRows(1);
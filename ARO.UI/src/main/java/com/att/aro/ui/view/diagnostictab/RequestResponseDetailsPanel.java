@@ -45,6 +45,7 @@ import com.att.aro.ui.commonui.ContentViewer;
 import com.att.aro.ui.commonui.ContextAware;
 import com.att.aro.ui.commonui.MessageDialogFactory;
 import com.att.aro.ui.model.DataTable;
+import com.att.aro.ui.model.DataTableRowSorter;
 import com.att.aro.ui.model.diagnostic.RequestResponseTableModel;
 import com.att.aro.ui.utils.ResourceBundleHelper;
 
@@ -109,7 +110,8 @@ public class RequestResponseDetailsPanel extends  JPanel {
 		if (jRequestResponseTable == null) {
 			jRequestResponseTable = new DataTable<HttpRequestResponseInfo>(
 					jRequestResponseTableModel);
-			jRequestResponseTable.setAutoCreateRowSorter(true);
+			jRequestResponseTable.setRowSorter(
+					new DataTableRowSorter<HttpRequestResponseInfo>(jRequestResponseTableModel));
 			jRequestResponseTable.setGridColor(Color.LIGHT_GRAY);
 			jRequestResponseTable.getSelectionModel().addListSelectionListener(
 					new ListSelectionListener() {
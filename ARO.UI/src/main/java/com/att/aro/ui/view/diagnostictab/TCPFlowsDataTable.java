@@ -81,13 +81,8 @@ public class TCPFlowsDataTable<T> extends DataTable<T>
 
 	      DataTableModel<T> dataModel = getDataTableModel(); 
 	      TCPUDPFlowsTableModel tcpmodel = (TCPUDPFlowsTableModel)dataModel; //get the specific model for this table
-	      for(int x = 0;  x < table.getRowCount(); x++)     
-	      {	  	    	  
-	    	  tcpmodel.setValueAt(checked, x, 1);
-	    	  tcpmodel.fireTableCellUpdated(x, 1);
-	      }
-	      
-	      
+	      // one table event for all rows, each event makes the graph panel ask for a refresh
+	      tcpmodel.setAllChecked(checked);
 	    }     
 	  }  
 	 
@@ -138,13 +133,7 @@ public class TCPFlowsDataTable<T> extends DataTable<T>
 	          rendererComponent.removeItemListener(it);  
 	          
 	          if (rendererComponent instanceof JCheckBox) {  
-	              boolean[] flags = new boolean[table.getRowCount()];  
-	              for (int i = 0; i < table.getRowCount(); i++) {  
-	                  flags[i] = ((Boolean) table.getValueAt(i, 1)).booleanValue();  
-	                  if(flags[i]){  
-	                      checkedCount++;  
-	                  }  
-	              }
+	              checkedCount = ((TCPUDPFlowsTableModel) getDataTableModel()).getCheckedCount();
 	              if(checkedCount== table.getRowCount()){  
 	                  ((JCheckBox)rendererComponent).setSelected(true);                 
 	              }  
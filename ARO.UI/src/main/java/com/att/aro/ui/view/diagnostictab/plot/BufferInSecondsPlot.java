@@ -52,11 +52,6 @@ public class BufferInSecondsPlot implements IPlot{
 
 	BufferInSecondsCalculatorImpl bufferInSecondsCalculatorImpl= (BufferInSecondsCalculatorImpl) ContextAware.getAROConfigContext().getBean("bufferInSecondsCalculatorImpl",PlotHelperAbstract.class);
 	
-	Map<VideoEvent,Double> chunkPlayTimeList;
-	
-	public void setChunkPlayTimeList(Map<VideoEvent,Double> chunkPlayTime){
-		this.chunkPlayTimeList = chunkPlayTime;
-	}
 	
 	@Override
 	public void populate(XYPlot plot, AROTraceData analysis) {
@@ -66,7 +61,7 @@ public class BufferInSecondsPlot implements IPlot{
 			seriesBufferFill = new XYSeries("Buffer Against Play Time");
 			seriesDataSets = new TreeMap<>();
 			
-			seriesDataSets = bufferInSecondsCalculatorImpl.populate(analysis.getAnalyzerResult().getVideoUsage(),chunkPlayTimeList);
+			seriesDataSets = bufferInSecondsCalculatorImpl.populate(analysis.getAnalyzerResult().getVideoUsage());
 			//updating video stall result in packetAnalyzerResult
 			analysis.getAnalyzerResult().setVideoStalls(bufferInSecondsCalculatorImpl.getVideoStallResult());
 			
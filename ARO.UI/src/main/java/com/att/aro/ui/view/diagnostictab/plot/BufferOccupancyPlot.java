@@ -39,7 +39,6 @@ import com.att.aro.core.packetanalysis.pojo.BufferOccupancyBPResult;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.core.videoanalysis.PlotHelperAbstract;
 import com.att.aro.core.videoanalysis.impl.BufferOccupancyCalculatorImpl;
-import com.att.aro.core.videoanalysis.pojo.VideoEvent;
 import com.att.aro.ui.commonui.ContextAware;
 import com.att.aro.ui.utils.ResourceBundleHelper;
 
@@ -55,11 +54,6 @@ public class BufferOccupancyPlot implements IPlot {
 	XYSeries seriesBufferFill;
 	Map<Integer,String> seriesDataSets; 
 	BufferOccupancyCalculatorImpl bufferOccupancyCalculatorImpl= (BufferOccupancyCalculatorImpl) ContextAware.getAROConfigContext().getBean("bufferOccupancyCalculatorImpl",PlotHelperAbstract.class);
-	Map<VideoEvent,Double> chunkPlayTimeList;
-	
-	public void setChunkPlayTimeList(Map<VideoEvent,Double> chunkPlayTime){
-		this.chunkPlayTimeList = chunkPlayTime;
-	}
 	
 	public void clearPlot(XYPlot plot){
 		plot.setDataset(null);	
@@ -75,7 +69,7 @@ public class BufferOccupancyPlot implements IPlot {
 			seriesBufferFill = new XYSeries("Buffer Fill");
 			seriesDataSets = new TreeMap<>();
 			
-			seriesDataSets = bufferOccupancyCalculatorImpl.populateBufferOccupancyDataSet(analysis.getAnalyzerResult().getVideoUsage(),chunkPlayTimeList);
+			seriesDataSets = bufferOccupancyCalculatorImpl.populateBufferOccupancyDataSet(analysis.getAnalyzerResult().getVideoUsage());
 			bufferSizeList.clear();
 			
 			double xCoordinate,yCoordinate;
@@ -90,8 +90,7 @@ public class VideoChunksPlot implements IPlot{
 	public void refreshPlot(XYPlot plot, AROTraceData analysis, double startTime, VideoEvent selectedChunk) {
 		chunkPlayTime.put(selectedChunk, startTime);
 
-		videoChunkPlotter.setChunkPlayBackTimeList(chunkPlayTime);
-		boPlot.setChunkPlayTimeList(chunkPlayTime);
+		analysis.getAnalyzerResult().getVideoUsage().setChunkPlayTimeList(chunkPlayTime);
 
 		populate(plot, analysis);
 		
@@ -19,37 +19,35 @@ package com.att.aro.ui.view.menu.tools;
 import java.awt.Desktop;
 import java.awt.Frame;
 import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
-import org.codehaus.jackson.JsonGenerationException;
-import org.codehaus.jackson.map.JsonMappingException;
-import org.codehaus.jackson.map.ObjectMapper;
-
 import com.att.aro.core.ILogger;
 import com.att.aro.core.impl.LoggerImpl;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.core.preferences.UserPreferences;
 import com.att.aro.core.preferences.UserPreferencesFactory;
+import com.att.aro.core.report.IDataDumpListener;
 import com.att.aro.core.util.CrashHandler;
 import com.att.aro.mvc.AROController;
 import com.att.aro.ui.commonui.AROUIManager;
 import com.att.aro.ui.commonui.MessageDialogFactory;
 import com.att.aro.ui.utils.ResourceBundleHelper;
-import com.att.aro.ui.view.menu.profiles.ProfileException;
 
 /**
  * Manages export functionality of multiple traces.
@@ -69,6 +67,8 @@ public class DataDump {
 
 	private static final int FILE_NAME_MAX_LENGTH = 50;
 
+	private static final int CANCEL_POLL_MILLIS = 500;
+
 	private static final String EXTENSION_FILTER = "." + ResourceBundleHelper.getMessageString(
 			MessageItem.fileChooser_contentType_json);
 
@@ -90,6 +90,8 @@ public class DataDump {
 		fileChooser_fileExists,
 		datadump_trafficFile,
 		datadump_subfolder,
+		datadump_progress,
+		datadump_progress_note,
 	}
 
 	/**
@@ -185,20 +187,42 @@ public class DataDump {
 	}
 	
 	/**
-	 * Initialize and start background worker thread to create datadump file
+	 * Initialize and start background worker thread to create datadump file.
+	 * Unless it is a single trace, a progress monitor counts the traces done
+	 * and cancelling it stops the analyses still running.
 	 * @param traceFolders
 	 */
 	private void startBackgroundWorker(final List<File> traceFolders) {
-		SwingWorker<File, Object> datadumpWorker = new SwingWorker<File, Object>() {
+		final ProgressMonitor monitor = singleTrace ? null : new ProgressMonitor(MSG_WINDOW,
+				ResourceBundleHelper.getMessageString(MessageItem.datadump_progress), null, 0, 100);
+		final SwingWorker<File, String> datadumpWorker = new SwingWorker<File, String>() {
 			@Override
-			protected File doInBackground() throws IOException, ProfileException {
+			protected File doInBackground() throws IOException, InterruptedException {
 				Thread.setDefaultUncaughtExceptionHandler(new CrashHandler());
-				startDataDump(traceFolders);
+				startDataDump(traceFolders, new IDataDumpListener() {
+					@Override
+					public void traceDone(String trace, AROTraceData data, int done, int total) {
+						setProgress(done * 100 / total);
+						publish(MessageFormat.format(ResourceBundleHelper.getMessageString(
+								MessageItem.datadump_progress_note), done, total));
+					}
+				});
 				return fileToSave;
 			}
 
+			@Override
+			protected void process(List<String> notes) {
+				if (monitor != null) {
+					monitor.setNote(notes.get(notes.size() - 1));
+					monitor.setProgress(getProgress());
+				}
+			}
+
 			@Override
 			protected void done() {
+				if (monitor != null) {
+					monitor.close();
+				}
 				try {
 					if (get().getName().contains(EXTENSION_FILTER)) {
 						if (singleTrace) {
@@ -214,6 +238,8 @@ public class DataDump {
 						}
 					}
 					this.cancel(true);
+				} catch (CancellationException e) {
+					log.info("Data dump cancelled, " + fileToSave + " holds the traces done so far");
 				} catch (IOException e) {
 					log.error("Unexpected IOException analyzing trace", e);
 					new MessageDialogFactory().showUnexpectedExceptionDialog(MSG_WINDOW, e);
@@ -236,7 +262,23 @@ public class DataDump {
 				}
 			}
 		};
-		
+
+		if (monitor != null) {
+			// ProgressMonitor has no cancel event, watch it until the worker is done
+			final Timer cancelWatch = new Timer(CANCEL_POLL_MILLIS, null);
+			cancelWatch.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent event) {
+					if (datadumpWorker.isDone()) {
+						cancelWatch.stop();
+					} else if (monitor.isCanceled()) {
+						cancelWatch.stop();
+						datadumpWorker.cancel(true);
+					}
+				}
+			});
+			cancelWatch.start();
+		}
 		datadumpWorker.execute();
 	}
 	
@@ -288,48 +330,34 @@ public class DataDump {
 	}
 
 	/**
-	 * Starts dumping data in CSV file for the provided trace files.
+	 * Analyzes the valid trace folders a few at a time and streams every
+	 * result into the JSON file as soon as it is done.
 	 * 
 	 * @param traceFolders
 	 *            - List of trace folder names.
-	 * @return A FileWriter object.
+	 * @param listener
+	 *            - Told about every trace as it is done.
 	 * @throws IOException
+	 * @throws InterruptedException
+	 *             - if the worker is cancelled, the file keeps the traces
+	 *             done so far.
 	 */
-	private FileWriter startDataDump(List<File> traceFolders) throws IOException, ProfileException {
+	private void startDataDump(List<File> traceFolders, IDataDumpListener listener)
+			throws IOException, InterruptedException {
+		List<File> validFolderList = new ArrayList<File>();
+		getValidFolderList(traceFolders, validFolderList);
 
-		FileWriter writer = new FileWriter(fileToSave);
-		try {
-			List<File> validFolderList = new ArrayList<File>();
-			Set<AROTraceData> analysis = new LinkedHashSet<AROTraceData>();
-			
-			getValidFolderList(traceFolders, validFolderList);
-			for (File traceDirectory : validFolderList) {
-				try {
-					analysis.add(controller.runAnalyzer(traceDirectory.getAbsolutePath(),
-						controller.getTheModel().getAnalyzerResult().getProfile(), null));
-				} catch (Exception e) {
-					log.warn("Unable to run analysis on folder: " + traceDirectory, e);
-				}
-			}
-
-			try {
-				new ObjectMapper().writeValue(fileToSave, analysis);
-			} catch (JsonGenerationException e) {
-				log.error(e.getMessage());
-				new MessageDialogFactory().showUnexpectedExceptionDialog(MSG_WINDOW, e);
-			} catch (JsonMappingException e) {
-				log.error(e.getMessage());
-				new MessageDialogFactory().showUnexpectedExceptionDialog(MSG_WINDOW, e);
-			} catch (IOException e) {
-				log.error(e.getMessage());
-				new MessageDialogFactory().showUnexpectedExceptionDialog(MSG_WINDOW, e);
-			}
-
-			userPreferences.setLastTraceDirectory(traceDir);
-		} finally {
-			writer.close();
+		List<String> traces = new ArrayList<String>(validFolderList.size());
+		for (File traceDirectory : validFolderList) {
+			traces.add(traceDirectory.getAbsolutePath());
+		}
+		int written = controller.runDataDump(traces,
+				controller.getTheModel().getAnalyzerResult().getProfile(), fileToSave, listener);
+		if (written < traces.size()) {
+			log.warn("Unable to run analysis on " + (traces.size() - written) + " of " + traces.size() + " folders");
 		}
-		return writer;
+
+		userPreferences.setLastTraceDirectory(traceDir);
 	}
 
 	/**
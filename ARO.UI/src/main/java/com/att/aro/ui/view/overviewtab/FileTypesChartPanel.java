@@ -48,9 +48,8 @@ import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.general.DatasetUtilities;
 import org.jfree.ui.TextAnchor;
 
-import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
-import com.att.aro.core.packetanalysis.pojo.Session;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.ui.commonui.AROUIManager;
 import com.att.aro.ui.commonui.TabPanelJPanel;
@@ -229,30 +228,25 @@ public class FileTypesChartPanel extends TabPanelJPanel{
 		Map<String, FileTypeSummary> content = new HashMap<String, FileTypeSummary>();
 		int totalContentLength = 0;
 		if (traceDataModel != null && traceDataModel.getAnalyzerResult() != null) {
-			for (Session tcp : traceDataModel.getAnalyzerResult().getSessionlist()) {
-					if(!tcp.isUDP()){
-						for (HttpRequestResponseInfo info : tcp.getRequestResponseInfo()) {
-							if (HttpDirection.RESPONSE
-									.equals(info.getDirection())) {
-								long contentLength = info.getRawSize();//info.getContentLength();
-								if (contentLength > 0) {
-									String contentType = info.getContentType();
-									if (contentType == null || contentType.isEmpty()) {
-										contentType = ResourceBundleHelper.getMessageString("chart.filetype.unknown");
-									}
-									FileTypeSummary summary = content.get(contentType);
-									if (summary == null) {
-										summary = new FileTypeSummary(contentType);
-										content.put(contentType, summary);
-									}
-									// summary.bytes += contentLength;
-									summary.setBytes(summary.getBytes() + contentLength);
-									totalContentLength += contentLength;
-								}
-							}
+			for (HttpRequestResponseInfoWithSession itemsession : traceDataModel.getAnalyzerResult().getRequestResponseIndex().getResponses()) {
+				if (!itemsession.getSession().isUDP()) {
+					HttpRequestResponseInfo info = itemsession.getInfo();
+					long contentLength = info.getRawSize();//info.getContentLength();
+					if (contentLength > 0) {
+						String contentType = info.getContentType();
+						if (contentType == null || contentType.isEmpty()) {
+							contentType = ResourceBundleHelper.getMessageString("chart.filetype.unknown");
 						}
+						FileTypeSummary summary = content.get(contentType);
+						if (summary == null) {
+							summary = new FileTypeSummary(contentType);
+							content.put(contentType, summary);
+						}
+						// summary.bytes += contentLength;
+						summary.setBytes(summary.getBytes() + contentLength);
+						totalContentLength += contentLength;
 					}
-
+				}
 			}
 		}
 
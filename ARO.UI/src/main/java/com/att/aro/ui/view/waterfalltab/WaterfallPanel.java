@@ -69,8 +69,8 @@ import org.jfree.ui.TextAnchor;
 
 import com.att.aro.core.packetanalysis.pojo.HttpDirection;
 import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfo;
+import com.att.aro.core.packetanalysis.pojo.HttpRequestResponseInfoWithSession;
 import com.att.aro.core.packetanalysis.pojo.RequestResponseTimeline;
-import com.att.aro.core.packetanalysis.pojo.Session;
 import com.att.aro.core.pojo.AROTraceData;
 import com.att.aro.ui.commonui.TabPanelJPanel;
 import com.att.aro.ui.model.waterfall.WaterfallCategory;
@@ -478,17 +478,11 @@ public class WaterfallPanel extends TabPanelJPanel{
 			this.traceDuration *= 1.2; 
 			range = Math.min(this.traceDuration, DEFAULT_TIMELINE);
 			
-			for (Session tcpSession : aModel.getAnalyzerResult().getSessionlist()) {
-				Session thisSession = tcpSession;
-				if(!tcpSession.isUDP()){
-					for (HttpRequestResponseInfo reqResInfo : tcpSession.getRequestResponseInfo()) {
-						if(reqResInfo.getDirection() == HttpDirection.REQUEST && reqResInfo.getWaterfallInfos() != null){
-							categoryList.add(new WaterfallCategory(reqResInfo,thisSession));							
-						} 						
-					}
-					
+			for (HttpRequestResponseInfoWithSession itemsession : aModel.getAnalyzerResult().getRequestResponseIndex().getTraceOrdered()) {
+				HttpRequestResponseInfo reqResInfo = itemsession.getInfo();
+				if(!itemsession.getSession().isUDP() && reqResInfo.getDirection() == HttpDirection.REQUEST && reqResInfo.getWaterfallInfos() != null){
+					categoryList.add(new WaterfallCategory(reqResInfo,itemsession.getSession()));
 				}
-				
 			}
 			
 			// Sort and set index
@@ -42,6 +42,8 @@ import com.att.aro.core.adb.IAdbService;
 import com.att.aro.core.android.AndroidApiLevel;
 import com.att.aro.core.android.IAndroid;
 import com.att.aro.core.commandline.IExternalProcessRunner;
+import com.att.aro.core.commandline.IProcessExecutor;
+import com.att.aro.core.commandline.pojo.ProcessResult;
 import com.att.aro.core.concurrent.IThreadExecutor;
 import com.att.aro.core.datacollector.DataCollectorType;
 import com.att.aro.core.datacollector.IDataCollector;
@@ -77,6 +79,8 @@ public class NorootedAndroidCollectorImpl implements IDataCollector, IVideoImage
 	// local directory in user machine to pull trace from device to
 	private String localTraceFolder;
 	private static final int MILLISECONDSFORTIMEOUT = 300;
+	// long traces with video take minutes to pull over usb 2
+	private static final long PULL_TIMEOUT = 30 * 60 * 1000L;
 	private static final String APK_FILE_NAME = "VPNCollector-1.0.0.apk";
 	private static final String ARO_PACKAGE_NAME = "com.att.arocollector";
 
@@ -110,6 +114,13 @@ public class NorootedAndroidCollectorImpl implements IDataCollector, IVideoImage
 		this.extrunner = runner;
 	}
 
+	private IProcessExecutor processExecutor;
+
+	@Autowired
+	public void setProcessExecutor(IProcessExecutor processExecutor) {
+		this.processExecutor = processExecutor;
+	}
+
 	@Autowired
 	public void setFileManager(IFileManager filemanager) {
 		this.filemanager = filemanager;
@@ -774,9 +785,8 @@ public class NorootedAndroidCollectorImpl implements IDataCollector, IVideoImage
 		} else {
 
 			deviceTracePath = "/sdcard/ARO/";
-			setCommand = adbservice.getAdbPath() + " -s " + device.getSerialNumber() + " pull " + deviceTracePath + ". "
-					+ localTraceFolder;
-			commandFailure = runCommand(setCommand);
+			commandFailure = runCommand(Arrays.asList(adbservice.getAdbPath(), "-s", device.getSerialNumber(), "pull",
+					deviceTracePath + ".", localTraceFolder));
 		}
 		if (commandFailure) {
 			result.setError(ErrorCodeRegistry.getAdbPullFailure());
@@ -803,6 +813,26 @@ public class NorootedAndroidCollectorImpl implements IDataCollector, IVideoImage
 		return commandFailed;
 	}
 
+	/**
+	 * Runs adb without a shell, so a trace folder with spaces in its name needs
+	 * no quoting.
+	 */
+	private boolean runCommand(List<String> command) {
+		boolean commandFailed = false;
+		try {
+			ProcessResult result = processExecutor.execute(command, PULL_TIMEOUT);
+			String commandOutput = result.getOutputString() + result.getErrorOutput();
+			if (!result.isSuccess() || commandOutput.contains("adb: error")) {
+				commandFailed = true;
+				log.info("ADB command execute: " + commandOutput);
+			}
+		} catch (Exception e1) {
+			commandFailed = true;
+			log.error("Failed to run " + command, e1);
+		}
+		return commandFailed;
+	}
+
 	private <T> T[] concat(T[] first, T[] second) {
 		T[] result = Arrays.copyOf(first, first.length + second.length);
 		System.arraycopy(second, 0, result, first.length, second.length);
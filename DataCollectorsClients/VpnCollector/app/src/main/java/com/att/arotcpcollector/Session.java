@@ -18,6 +18,7 @@ package com.att.arotcpcollector;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
@@ -30,8 +31,8 @@ import com.att.arotcpcollector.udp.UDPHeader;
 import com.att.arotcpcollector.util.PacketUtil;
 
 /**
- * This object stores information about a socket connection from a VPN client. Each session
- * is used by background worker to serve request from client.
+ * This object stores information about a socket connection from a VPN client. Sessions
+ * are only touched by the relay loop in SocketNIODataService, which owns their channels.
  * 
  * @author Borey Sao Date: May 19, 2014
  */
@@ -84,8 +85,14 @@ public class Session {
 	//sending buffer for storing data from vpn client to be send to destination host
 	private final ByteArrayOutputStream sendingStream;
 
+	//data taken from sendingStream that the socket did not accept yet
+	private ByteBuffer pendingWrite = null;
+
 	private boolean hasReceivedLastSegment = false;
 
+	//the server closed its side, the client gets a FIN once the buffered data is sent
+	private boolean serverClosed = false;
+
 	//last packet received from client
 	private IPv4Header lastIpHeader = null;
 	private TCPHeader lastTcpHeader = null;
@@ -115,13 +122,12 @@ public class Session {
 	//timestamp when FIN as been acknowledged, this is used to removed session after n minute
 	private long ackedToFinTime = 0;
 
-	//indicate that this session is currently being worked on by some SocketDataWorker already
-	private volatile boolean isbusyread = false;
-	private volatile boolean isbusywrite = false;
-
-	//closing session and aborting connection, will be done by background task
+	//closing session and aborting connection, will be done by the relay loop
 	private volatile boolean abortingConnection = false;
 
+	//waiting in the ready sessions of SessionManager for the relay loop
+	private boolean ready = false;
+
 	private SelectionKey selectionKey = null;
 	private String sessionKey = null;
 
@@ -166,19 +172,44 @@ public class Session {
 		}
 	}
 
+	/**
+	 * count data sent to the client, it stays counted until the client acks it
+	 *
+	 * @param amount amount
+	 */
+	public void increaseAmountSentSinceLastAck(int amount) {
+		synchronized (syncSendAmount) {
+			sendAmountSinceLastAck += amount;
+		}
+	}
+
+	/**
+	 * the client acked everything sent so far
+	 */
+	void clearAmountSentSinceLastAck() {
+		synchronized (syncSendAmount) {
+			sendAmountSinceLastAck = 0;
+		}
+	}
+
 	/**
 	 * determine if client's receiving window is full or not.
 	 * 
 	 * @return true if client window is full
 	 */
 	public boolean isClientWindowFull() {
-		boolean yes = false;
-		if (sendWindow > 0 && sendAmountSinceLastAck >= sendWindow) {
-			yes = true;
-		} else if (sendWindow == 0 && sendAmountSinceLastAck > 65535) {
-			yes = true;
-		}
-		return yes;
+		return getClientWindowRoom() <= 0;
+	}
+
+	/**
+	 * how much more data the client's receiving window takes, 64K when the
+	 * client gave no window
+	 * 
+	 * @return number of bytes, 0 or less when the window is full
+	 */
+	public int getClientWindowRoom() {
+		int window = sendWindow > 0 ? sendWindow : 65536;
+		return window - sendAmountSinceLastAck;
 	}
 
 	/**
@@ -188,15 +219,23 @@ public class Session {
 	 * @return success/failure
 	 */
 	public boolean addReceivedData(byte[] data) {
-		boolean success = true;
+		return addReceivedData(data, 0, data.length);
+	}
+
+	/**
+	 * append part of an array, such as the rest of a read buffer the client
+	 * window had no room for
+	 * 
+	 * @param data array holding the data
+	 * @param offset position of the data
+	 * @param length length of the data
+	 * @return success/failure
+	 */
+	public boolean addReceivedData(byte[] data, int offset, int length) {
 		synchronized (syncReceive) {
-			try {
-				receivingStream.write(data);
-			} catch (IOException e) {
-				success = false;
-			}
+			receivingStream.write(data, offset, length);
 		}
-		return success;
+		return true;
 	}
 
 	public void resetReceivingData() {
@@ -211,7 +250,6 @@ public class Session {
 	 * @return received data
 	 */
 	public byte[] getReceivedData(int maxSize) {
-		Log.d(TAG, "getReceivedData maxSize:" + maxSize);
 		byte[] data;
 		synchronized (syncReceive) {
 			data = receivingStream.toByteArray();
@@ -286,6 +324,50 @@ public class Session {
 		return sendingStream.size() > 0;
 	}
 
+	public ByteBuffer getPendingWrite() {
+		return pendingWrite;
+	}
+
+	public void setPendingWrite(ByteBuffer pendingWrite) {
+		this.pendingWrite = pendingWrite;
+	}
+
+	/**
+	 * The selector events the session waits for in its current state:
+	 * connecting waits for the connection only, once connected it reads
+	 * while the client has room in its window and writes while there is data
+	 * for the server. Packets to the client are built from its last header,
+	 * so a TCP session reads nothing before the client acked the SYN-ACK.
+	 *
+	 * @return SelectionKey interest set
+	 */
+	public int getInterestOps() {
+		if (socketchannel != null && !isConnected) {
+			return SelectionKey.OP_CONNECT;
+		}
+		int ops = 0;
+		boolean clientReady = socketchannel == null || getLastTCPheader() != null;
+		if (clientReady && !serverClosed && !isClientWindowFull()) {
+			ops |= SelectionKey.OP_READ;
+		}
+		if (pendingWrite != null || (hasDataToSend() && isDataForSendingReady)) {
+			ops |= SelectionKey.OP_WRITE;
+		}
+		return ops;
+	}
+
+	/**
+	 * apply getInterestOps() to the selection key, on the relay loop only
+	 */
+	public void updateInterestOps() {
+		if (selectionKey != null && selectionKey.isValid()) {
+			int ops = getInterestOps();
+			if (selectionKey.interestOps() != ops) {
+				selectionKey.interestOps(ops);
+			}
+		}
+	}
+
 	public int getDestAddress() {
 		return destAddress;
 	}
@@ -419,6 +501,14 @@ public class Session {
 		this.hasReceivedLastSegment = hasReceivedLastSegment;
 	}
 
+	public boolean isServerClosed() {
+		return serverClosed;
+	}
+
+	public void setServerClosed(boolean serverClosed) {
+		this.serverClosed = serverClosed;
+	}
+
 	public IPv4Header getLastIPheader() {
 		IPv4Header header;
 		synchronized (syncLastHeader) {
@@ -533,22 +623,6 @@ public class Session {
 		this.ackedToFinTime = ackedToFinTime;
 	}
 
-	public boolean isBusyRead() {
-		return isbusyread;
-	}
-
-	public void setBusyRead(boolean isbusyread) {
-		this.isbusyread = isbusyread;
-	}
-
-	public boolean isBusyWrite() {
-		return isbusywrite;
-	}
-
-	public void setBusyWrite(boolean isbusywrite) {
-		this.isbusywrite = isbusywrite;
-	}
-
 	public boolean isAbortingConnection() {
 		return abortingConnection;
 	}
@@ -557,6 +631,14 @@ public class Session {
 		this.abortingConnection = abortingConnection;
 	}
 
+	boolean isReady() {
+		return ready;
+	}
+
+	void setReady(boolean ready) {
+		this.ready = ready;
+	}
+
 	public SelectionKey getSelectionkey() {
 		return selectionKey;
 	}
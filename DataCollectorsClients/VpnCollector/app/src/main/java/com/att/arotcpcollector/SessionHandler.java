@@ -111,6 +111,7 @@ public class SessionHandler {
 		session.setLastUDPheader(udpheader);
 		int len = sessionManager.addClientUDPData(ipheader, udpheader, clientpacketdata, session);
 		session.setDataForSendingReady(true);
+		sessionManager.markReady(session);
 		Log.d(TAG, "added UDP data for bg worker to send: " + len);
 		sessionManager.keepSessionAlive(session);
 	}
@@ -394,6 +395,7 @@ public class SessionHandler {
 	void pushDataToDestination(Session session, IPv4Header ip, TCPHeader tcp) {
 
 		session.setDataForSendingReady(true);
+		sessionManager.markReady(session);
 
 		session.setLastIPheader(ip);
 		session.setLastTCPheader(tcp);
@@ -467,7 +469,10 @@ public class SessionHandler {
 				session.setSendWindowSizeAndScale(tcpheader.getWindowSize(), session.getSendWindowScale());
 			}
 			int byteReceived = tcpheader.getAckNumber() - session.getSendUnack();
-			if (byteReceived > 0) {
+			if (tcpheader.getAckNumber() == session.getSendNext()) {
+				//everything sent is acked, reopens the window even if the count drifted
+				session.clearAmountSentSinceLastAck();
+			} else if (byteReceived > 0) {
 				session.decreaseAmountSentSinceLastAck(byteReceived);
 			}
 			if(session.isClientWindowFull()){
@@ -480,6 +485,8 @@ public class SessionHandler {
 			Date dt = new Date();
 			int timestampSender = (int) dt.getTime();
 			session.setTimestampSender(timestampSender);
+			//the relay loop sends what the ack made room for
+			sessionManager.markReady(session);
 		} else {
 			Log.d(TAG, "Not Accepting ack# " + tcpheader.getAckNumber() + " , it should be: " + session.getSendNext());
 			Log.d(TAG, "Prev sendUnack: " + session.getSendUnack());
@@ -488,7 +495,7 @@ public class SessionHandler {
 	}
 
 	/**
-	 * Set connection as aborting so that background worker will close it.
+	 * Set connection as aborting so that the relay loop will close it.
 	 * 
 	 * @param ipHeader
 	 * @param tcpHeader
@@ -497,6 +504,7 @@ public class SessionHandler {
 		Session session = sessionManager.getSession(ipHeader.getDestinationIP(), tcpHeader.getDestinationPort(), ipHeader.getSourceIP(), tcpHeader.getSourcePort());
 		if (session != null) {
 			session.setAbortingConnection(true);
+			sessionManager.markReady(session);
 		}
 	}
 
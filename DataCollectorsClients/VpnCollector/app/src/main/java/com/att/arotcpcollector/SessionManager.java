@@ -19,7 +19,6 @@ package com.att.arotcpcollector;
 import android.util.Log;
 
 import com.att.arotcpcollector.ip.IPv4Header;
-import com.att.arotcpcollector.socket.SocketNIODataService;
 import com.att.arotcpcollector.socket.SocketProtector;
 import com.att.arotcpcollector.tcp.TCPHeader;
 import com.att.arotcpcollector.udp.UDPHeader;
@@ -31,16 +30,17 @@ import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.DatagramChannel;
-import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.UnresolvedAddressException;
 import java.nio.channels.UnsupportedAddressTypeException;
-import java.util.Hashtable;
+import java.util.ArrayDeque;
 import java.util.Iterator;
 
 /**
- * Manage in-memory storage for VPN client session.
+ * Manage in-memory storage for VPN client session. Sessions are created and
+ * their channels registered on the relay loop of SocketNIODataService, which
+ * owns the selector, so registering needs no locking.
  * @author Borey Sao Date: May 20, 2014
  */
 public class SessionManager {
@@ -54,6 +54,9 @@ public class SessionManager {
 	private SocketProtector protector = null;
 	Selector selector;
 
+	//sessions the relay loop has to look at on its next turn, see markReady
+	private final ArrayDeque<Session> readySessions = new ArrayDeque<Session>(SESSION_LIMIT);
+
 	private SessionManager() {
 		table = new SessionTable(SESSION_LIMIT);
 		protector = SocketProtector.getInstance();
@@ -100,6 +103,40 @@ public class SessionManager {
 		return table.values().iterator();
 	}
 
+	/**
+	 * Queue the session for the relay loop, which closes it if it is aborting,
+	 * sends the server data an ack made room for and updates its selector
+	 * interest. Called on the relay loop only, when client data waits, an ack
+	 * arrived or the session is aborting. A session is queued once however
+	 * often it is marked.
+	 * 
+	 * @param session
+	 */
+	public void markReady(Session session) {
+		if (!session.isReady()) {
+			session.setReady(true);
+			readySessions.add(session);
+		}
+	}
+
+	/**
+	 * @return the next session marked ready, null if there is none
+	 */
+	public Session pollReadySession() {
+		Session session = readySessions.poll();
+		if (session != null) {
+			session.setReady(false);
+		}
+		return session;
+	}
+
+	private void removeReady(Session session) {
+		if (session.isReady()) {
+			session.setReady(false);
+			readySessions.remove(session);
+		}
+	}
+
 	public int addClientUDPData(IPv4Header ip, UDPHeader udp, byte[] buffer, Session session) {
 		int start = ip.getIPHeaderLength() + 8;
 		int len = udp.getLength() - 8;//exclude header size
@@ -181,36 +218,6 @@ public class SessionManager {
 		return session;
 	}
 
-	public Session getSessionByDatagramChannel(DatagramChannel channel) {
-		Session session = null;
-		synchronized (syncTable) {
-			Iterator<Session> it = table.values().iterator();
-			while (it.hasNext()) {
-				Session sess = it.next();
-				if (sess.getUdpChannel() == channel) {
-					session = sess;
-					break;
-				}
-			}
-		}
-		return session;
-	}
-
-	public Session getSessionByChannel(SocketChannel channel) {
-		Session session = null;
-		synchronized (syncTable) {
-			Iterator<Session> it = table.values().iterator();
-			while (it.hasNext()) {
-				Session sess = it.next();
-				if (sess.getSocketchannel() == channel) {
-					session = sess;
-					break;
-				}
-			}
-		}
-		return session;
-	}
-
 	public void removeSessionByChannel(SocketChannel channel) {
 		String key = null;
 		String tmp = null;
@@ -256,6 +263,7 @@ public class SessionManager {
 			session = table.remove(keys);
 		}
 		if (session != null) {
+			removeReady(session);
 			try {
 				SocketChannel chan = session.getSocketchannel();
 				if (chan != null) {
@@ -272,7 +280,7 @@ public class SessionManager {
 	}
 
 	/**
-	 * Close the session
+	 * Close the session, its selection key and its TCP or UDP channel
 	 * 
 	 * @param session
 	 */
@@ -290,11 +298,19 @@ public class SessionManager {
 			table.remove(sessionKey);
 		}
 		if (session != null) {
+			removeReady(session);
+			if (session.getSelectionkey() != null) {
+				session.getSelectionkey().cancel();
+			}
 			try {
 				SocketChannel chan = session.getSocketchannel();
 				if (chan != null) {
 					chan.close();
 				}
+				DatagramChannel udpChannel = session.getUdpChannel();
+				if (udpChannel != null) {
+					udpChannel.close();
+				}
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -362,30 +378,28 @@ public class SessionManager {
 		} catch (IOException ex5) {
 		}
 
-		Object isudp = new Object();
-		try {
-
-			synchronized (SocketNIODataService.syncSelectorForUse) {
-				selector.wakeup();
-				synchronized (SocketNIODataService.syncSelectorForSelection) {
-					SelectionKey selectkey = null;
-					if (!channel.isConnected()) {
-						selectkey = channel.register(selector, SelectionKey.OP_CONNECT | SelectionKey.OP_READ | SelectionKey.OP_WRITE, isudp);
-					} else {
-						selectkey = channel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE, isudp);
-					}
-					ses.setSelectionkey(selectkey);
-					Log.d(TAG, "Registered udp selector successfully");
-				}
+		if (!channel.isConnected()) {
+			// a DatagramChannel connects at once or not at all, it has no OP_CONNECT
+			Log.e(TAG, "failed to connect udp channel to " + ips + ":" + port);
+			try {
+				channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
+			return null;
+		}
+
+		ses.setUdpChannel(channel);
+		try {
+			//the session is the attachment, the relay loop needs no lookup per event
+			ses.setSelectionkey(channel.register(selector, ses.getInterestOps(), ses));
+			Log.d(TAG, "Registered udp selector successfully");
 		} catch (ClosedChannelException e1) {
 			e1.printStackTrace();
 			Log.e(TAG, "failed to register udp channel with selector: " + e1.getMessage());
 			return null;
 		}
 
-		ses.setUdpChannel(channel);
-
 		synchronized (syncTable) {
 			if (!table.containsKey(sessionKey)) {
 				table.put(sessionKey, ses);
@@ -425,6 +439,7 @@ public class SessionManager {
 		if (found) {
 			Session session = table.get(sessionKey);
 			session.setAbortingConnection(true);
+			markReady(session);
 			throw new SessionCreateException("Session already exist");
 		}
 		
@@ -477,25 +492,24 @@ public class SessionManager {
 		}
 
 		session.setConnected(connected);
+		if (!connected && !channel.isConnectionPending()) {
+			//connect failed at once, no OP_CONNECT will come, the relay loop closes it
+			session.setAbortingConnection(true);
+			markReady(session);
+		}
+		session.setSocketchannel(channel);
 
 		//register for non-blocking operation
 		try {
-			synchronized (SocketNIODataService.syncSelectorForUse) {
-				selector.wakeup();
-				synchronized (SocketNIODataService.syncSelectorForSelection) {
-					SelectionKey selectkey = channel.register(selector, SelectionKey.OP_CONNECT | SelectionKey.OP_READ | SelectionKey.OP_WRITE);
-					session.setSelectionkey(selectkey);
-					Log.d(TAG, "Registered tcp selector successfully");
-				}
-			}
+			//the session is the attachment, the relay loop needs no lookup per event
+			session.setSelectionkey(channel.register(selector, session.getInterestOps(), session));
+			Log.d(TAG, "Registered tcp selector successfully");
 		} catch (ClosedChannelException e1) {
 			e1.printStackTrace();
 			Log.e(TAG, "failed to register tcp channel with selector: " + e1.getMessage());
 			return null;
 		}
 
-		session.setSocketchannel(channel);
-
 		synchronized (syncTable) {
 			if (!table.containsKey(sessionKey)) {
 				table.put(sessionKey, session);
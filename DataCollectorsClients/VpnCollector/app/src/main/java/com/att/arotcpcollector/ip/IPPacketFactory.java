@@ -18,9 +18,6 @@ package com.att.arotcpcollector.ip;
 import com.att.arotcpcollector.tcp.PacketHeaderException;
 import com.att.arotcpcollector.util.PacketUtil;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
 /**
  * class for creating packet data, header etc related to IP
  * 
@@ -50,57 +47,67 @@ public class IPPacketFactory {
 	public static byte[] createIPv4HeaderData(IPv4Header header) {
 
 		byte[] buffer = new byte[header.getIPHeaderLength()];
+		writeIPv4Header(header, buffer, 0);
+		return buffer;
+	}
+
+	/**
+	 * write IPv4 Header into an array of byte, where the packet is built, so
+	 * the header is not copied again
+	 * 
+	 * @param header
+	 *            instance of IPv4Header
+	 * @param buffer
+	 *            array of byte with room for header.getIPHeaderLength() bytes from start
+	 * @param start
+	 *            position of the header in buffer
+	 */
+	public static void writeIPv4Header(IPv4Header header, byte[] buffer, int start) {
+
 		byte first = (byte) (header.getInternetHeaderLength() & 0xF);
 		first = (byte) (first | 0x40);
-		buffer[0] = first;
+		buffer[start] = first;
 		byte second = (byte) (header.getDscpOrTypeOfService() << 2);
 		byte ecnMask = (byte) (header.getEcn() & 0xFF);
 		second = (byte) (second & ecnMask);
-		buffer[1] = second;
+		buffer[start + 1] = second;
 
 		byte totallength1 = (byte) (header.getTotalLength() >> 8);
 		byte totallength2 = (byte) header.getTotalLength();
-		buffer[2] = totallength1;
-		buffer[3] = totallength2;
+		buffer[start + 2] = totallength1;
+		buffer[start + 3] = totallength2;
 
 		byte id1 = (byte) (header.getIdenfication() >> 8);
 		byte id2 = (byte) header.getIdenfication();
-		buffer[4] = id1;
-		buffer[5] = id2;
+		buffer[start + 4] = id1;
+		buffer[start + 5] = id2;
 
 		//combine flags and partial fragment offset
 		byte leftfrag = (byte) ((header.getFragmentOffset() >> 8) & 0x1F);
 		byte flag = (byte) (header.getFlag() | leftfrag);
-		buffer[6] = flag;
+		buffer[start + 6] = flag;
 		byte rightfrag = (byte) header.getFragmentOffset();
-		buffer[7] = rightfrag;
+		buffer[start + 7] = rightfrag;
 
 		byte timeToLive = header.getTimeToLive();
-		buffer[8] = timeToLive;
+		buffer[start + 8] = timeToLive;
 
 		byte protocol = header.getProtocol();
-		buffer[9] = protocol;
+		buffer[start + 9] = protocol;
 
 		byte checksum1 = (byte) (header.getHeaderChecksum() >> 8);
 		byte checksum2 = (byte) header.getHeaderChecksum();
-		buffer[10] = checksum1;
-		buffer[11] = checksum2;
-
-		ByteBuffer buf = ByteBuffer.allocate(8);
-		buf.order(ByteOrder.BIG_ENDIAN);
-		buf.putInt(0, header.getSourceIP());
-		buf.putInt(4, header.getDestinationIP());
+		buffer[start + 10] = checksum1;
+		buffer[start + 11] = checksum2;
 
 		//souce ip
-		System.arraycopy(buf.array(), 0, buffer, 12, 4);
+		PacketUtil.writeIntToBytes(header.getSourceIP(), buffer, start + 12);
 		//dest ip
-		System.arraycopy(buf.array(), 4, buffer, 16, 4);
+		PacketUtil.writeIntToBytes(header.getDestinationIP(), buffer, start + 16);
 
 		if (header.getOptionBytes().length > 0) {
-			System.arraycopy(header.getOptionBytes(), 0, buffer, 20, header.getOptionBytes().length);
+			System.arraycopy(header.getOptionBytes(), 0, buffer, start + 20, header.getOptionBytes().length);
 		}
-
-		return buffer;
 	}
 
 	/**
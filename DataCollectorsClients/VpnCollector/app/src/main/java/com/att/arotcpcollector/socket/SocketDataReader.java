@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.arotcpcollector.socket;
+
+import android.util.Log;
+
+import com.att.arotcpcollector.IClientPacketWriter;
+import com.att.arotcpcollector.Session;
+import com.att.arotcpcollector.ip.IPv4Header;
+import com.att.arotcpcollector.tcp.TCPHeader;
+import com.att.arotcpcollector.tcp.TCPPacketFactory;
+import com.att.arotcpcollector.udp.UDPPacketFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Reads data from remote servers and writes it to the vpn client. Called by
+ * the relay loop of SocketNIODataService when a channel is readable, one
+ * read per event so a busy server cannot starve the other sessions.
+ * 
+ * @author Borey Sao Date: July 30, 2014
+ */
+public class SocketDataReader {
+	public static final String TAG = "SocketDataReader";
+	private IClientPacketWriter clientPacketWriter;
+	private TCPPacketFactory tcpFactory;
+	private UDPPacketFactory udpFactory;
+	private SocketData pcapData; // for traffic.cap
+
+	// reused for every read, the relay loop reads one channel at a time
+	private final ByteBuffer buffer = ByteBuffer.allocate(DataConst.MAX_RECEIVE_BUFFER_SIZE);
+
+	public SocketDataReader(TCPPacketFactory tcpfactory, UDPPacketFactory udpfactory, IClientPacketWriter clientPacketWriter) {
+		pcapData = SocketData.getInstance();
+		this.tcpFactory = tcpfactory;
+		this.udpFactory = udpfactory;
+		this.clientPacketWriter = clientPacketWriter;
+ 	}
+
+	/**
+	 * Read what the server sent, the caller closes the session if it is
+	 * aborting afterwards.
+	 * 
+	 * @param session
+	 */
+	public void read(Session session) {
+		session.setLastAccessed(System.currentTimeMillis());
+
+		if (session.getSocketchannel() != null) {
+			try {
+				readTCP(session);
+			} catch (Exception ex) {
+				Log.e(TAG, "error processRead: " + ex.getMessage());
+			}
+		} else if (session.getUdpChannel() != null) {
+			readUDP(session);
+		}
+	}
+
+	/**
+	 * Receive TCP data, nothing is read while the client window is full so the
+	 * server is slowed down by its own TCP flow control
+	 * 
+	 * @param session
+	 */
+	void readTCP(Session session) {
+		if (session.isAbortingConnection() || session.isClientWindowFull()) {
+			return;
+		}
+		SocketChannel channel = session.getSocketchannel();
+		buffer.clear();
+		try {
+			int len = channel.read(buffer);
+			if (len > 0) {
+				sendToRequester(len, session);
+			} else if (len == -1) { // -1 indicates end of stream
+				// the server is done, whatever is still buffered goes out before the FIN
+				session.setServerClosed(true);
+				flushToClient(session);
+			}
+		} catch (NotYetConnectedException ex2) {
+			Log.e(TAG, "socket not connected");
+			session.setAbortingConnection(true);
+		} catch (ClosedByInterruptException cex) {
+			Log.e(TAG, "ClosedByInterruptException reading socketchannel: " + cex.getMessage());
+			session.setAbortingConnection(true);
+		} catch (ClosedChannelException clex) {
+			Log.e(TAG, "ClosedChannelException reading socketchannel: " + clex.getMessage());
+			session.setAbortingConnection(true);
+		} catch (IOException e) {
+			Log.e(TAG, "Error reading data from socketchannel: " + e.getMessage());
+			session.setAbortingConnection(true);
+		}
+	}
+
+	/**
+	 * Send as much of the data as the client window allows and buffer the
+	 * rest in the session. While nothing is buffered ahead of it the data goes
+	 * out straight from the read buffer, without a copy in between.
+	 * 
+	 * @param datasize
+	 * @param sess
+	 */
+	void sendToRequester(int datasize, Session sess) {
+
+		//last piece of data is usually smaller than MAX_RECEIVE_BUFFER_SIZE
+		if (datasize < DataConst.MAX_RECEIVE_BUFFER_SIZE) {
+			sess.setHasReceivedLastSegment(true);
+		} else {
+			sess.setHasReceivedLastSegment(false);
+		}
+
+		byte[] data = buffer.array();
+		int offset = 0;
+		if (!sess.hasReceivedData()) {
+			while (offset < datasize && !sess.isClientWindowFull()) {
+				int length = Math.min(getSegmentData(sess), datasize - offset);
+				boolean sent = sendSegment(sess, data, offset, length);
+				offset += length;
+				if (!sent) {
+					break;
+				}
+			}
+		}
+		if (offset < datasize) {
+			sess.addReceivedData(data, offset, datasize - offset);
+		}
+
+		flushToClient(sess);
+	}
+
+	/**
+	 * Send buffered server data to the client until the client window is
+	 * full, the rest is sent once the client acks. The FIN follows the last of
+	 * it when the server has closed, and the session is closed.
+	 * 
+	 * @param session
+	 */
+	public void flushToClient(Session session) {
+		while (session.hasReceivedData() && !session.isClientWindowFull()) {
+			if (!pushDataToClient(session)) {
+				break;
+			}
+		}
+		if (session.isServerClosed() && !session.hasReceivedData()) {
+			sendFin(session);
+			session.setAbortingConnection(true);
+		}
+	}
+
+	/**
+	 * create packet data and send it to VPN client
+	 * @param session
+	 * @return
+	 */
+	boolean pushDataToClient(Session session) {
+		
+		if (!session.hasReceivedData()) {
+			//no data to send
+			Log.d(TAG, "no data for vpn client");
+			return false;
+		}
+
+		byte[] packetbody = session.getReceivedData(getSegmentData(session));
+		if (packetbody != null && packetbody.length > 0) {
+			return sendSegment(session, packetbody, 0, packetbody.length);
+		}
+		return false;
+	}
+
+	/**
+	 * most data that fits in one packet to the client and in its window
+	 */
+	private int getSegmentData(Session session) {
+		int max = session.getMaxSegmentSize() - 60;
+
+		if (max < 1) {
+			max = 1024;
+		}
+		return Math.min(max, session.getClientWindowRoom());
+	}
+
+	/**
+	 * create a packet from part of an array and send it to the VPN client,
+	 * the same packet array is recorded in traffic.cap
+	 * 
+	 * @param session
+	 * @param packetbody array holding the data
+	 * @param offset position of the data
+	 * @param length length of the data
+	 * @return
+	 */
+	private boolean sendSegment(Session session, byte[] packetbody, int offset, int length) {
+		IPv4Header ipheader = session.getLastIPheader();
+		TCPHeader tcpheader = session.getLastTCPheader();
+
+		int unack = session.getSendNext();
+		int nextUnack = session.getSendNext() + length;
+
+		session.setSendNext(nextUnack);
+		session.setResendPacketCounter(0);
+		//counts against the client window until acked
+		session.increaseAmountSentSinceLastAck(length);
+
+		byte[] data = tcpFactory.createResponsePacketData(ipheader, tcpheader, packetbody, offset, length, session.hasReceivedLastSegment(),
+				session.getRecSequence(), unack, session.getTimestampSender(), session.getTimestampReplyto());
+
+		try {
+			clientPacketWriter.write(data); // send packet back to client
+			pcapData.sendDataToPcap(data); // send packet off to be recorded in traffic.cap
+
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to send ACK+Data packet: " + e.getMessage());
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Send a tcp FIN packet<br>
+	 * FIN (1 bit) – No more data from sender
+	 * 
+	 * @param session
+	 */
+	private void sendFin(Session session) {
+		IPv4Header ipheader = session.getLastIPheader();
+		TCPHeader tcpheader = session.getLastTCPheader();
+		//the FIN comes after the last byte sent, ack and seq are not swapped
+		byte[] data = tcpFactory.createFinData(ipheader, tcpheader, session.getRecSequence(), session.getSendNext(), session.getTimestampSender(), session.getTimestampReplyto());
+		try {
+			clientPacketWriter.write(data); // send packet back to client
+			pcapData.sendDataToPcap(data); // send packet off to be recorded in traffic.cap
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to send FIN packet: " + e.getMessage());
+
+		}
+	}
+
+	private void readUDP(Session session) {
+		if (session.isAbortingConnection()) {
+			return;
+		}
+		DatagramChannel channel = session.getUdpChannel();
+		buffer.clear();
+		try {
+			int len = channel.read(buffer);
+			if (len > 0) {
+				//create UDP packet straight from the read buffer
+				byte[] packetdata = udpFactory.createResponsePacket(session.getLastIPheader(), session.getLastUDPheader(), buffer.array(), 0, len);
+				//write to client
+				clientPacketWriter.write(packetdata); // send packet back to client
+
+				//publish to packet subscriber
+				pcapData.sendDataToPcap(packetdata); // send packet off to be recorded in traffic.cap
+				Log.d(TAG, "SDR: sent " + len + " bytes to UDP client, packetdata.length: " + packetdata.length);
+			}
+		} catch (NotYetConnectedException ex) {
+			Log.e(TAG, "failed to read from unconnected UDP socket");
+			session.setAbortingConnection(true);
+		} catch (IOException e) {
+			e.printStackTrace();
+			Log.e(TAG, "Faild to read from UDP socket, aborting connection");
+			session.setAbortingConnection(true);
+		}
+	}
+}
@@ -19,10 +19,7 @@ import android.util.Log;
 
 import com.att.arotcpcollector.IClientPacketWriter;
 import com.att.arotcpcollector.Session;
-import com.att.arotcpcollector.SessionManager;
 import com.att.arotcpcollector.tcp.TCPPacketFactory;
-import com.att.arotcpcollector.udp.UDPPacketFactory;
-import com.att.arotcpcollector.util.PacketUtil;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -30,71 +27,51 @@ import java.nio.channels.DatagramChannel;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.SocketChannel;
 
-public class SocketDataWriterWorker implements Runnable {
+/**
+ * Writes data from the vpn client to remote servers. Called by the relay loop
+ * of SocketNIODataService when a channel is writable. A write the socket only
+ * takes part of stays in the session and is finished on the next writable
+ * event instead of spinning on the channel.
+ */
+public class SocketDataWriter {
 
-	public static final String TAG = "SocketDataWriterWorker";
+	public static final String TAG = "SocketDataWriter";
 	private IClientPacketWriter clientPacketWriter;
 	private TCPPacketFactory tcpFactory;
-	private UDPPacketFactory udpFactory;
-	private SessionManager sessionMngr;
-	private String sessionKey = "";
 	private SocketData pcapData; // for traffic.cap
 	
-	public SocketDataWriterWorker(TCPPacketFactory tcpFactory, UDPPacketFactory udpFactory, IClientPacketWriter clientPacketWriter) {
-		sessionMngr = SessionManager.getInstance();
+	public SocketDataWriter(TCPPacketFactory tcpFactory, IClientPacketWriter clientPacketWriter) {
 		pcapData = SocketData.getInstance();
 		this.tcpFactory = tcpFactory;
-		this.udpFactory = udpFactory;
 		this.clientPacketWriter = clientPacketWriter;
 	}
 
-	public String getSessionKey() {
-		return sessionKey;
-	}
-
-	public void setSessionKey(String sessionKey) {
-		this.sessionKey = sessionKey;
-	}
-
-	@Override
-	public void run() {
-
-		Session session = sessionMngr.getSessionByKey(sessionKey);
-		
-		if (session == null) {
-			return;
-		}
-
+	/**
+	 * Write what the client sent, the caller closes the session if it is
+	 * aborting afterwards.
+	 * 
+	 * @param session
+	 */
+	public void write(Session session) {
 		session.setLastAccessed(System.currentTimeMillis());
-		session.setBusyWrite(true);
 		
 		if (session.getSocketchannel() != null) {
 			writeTCP(session);
 		} else if (session.getUdpChannel() != null) {
 			writeUDP(session);
 		}
+	}
 
-		if (session != null) {
-			session.setBusyWrite(false);
-			if (session.isAbortingConnection()) {
-				Log.d(TAG, "removing aborted connection -> " + session.getSessionName());
-				session.getSelectionkey().cancel();
-				if (session.getSocketchannel() != null && session.getSocketchannel().isConnected()) {
-					try {
-						session.getSocketchannel().close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-				} else if (session.getUdpChannel() != null && session.getUdpChannel().isConnected()) {
-					try {
-						session.getUdpChannel().close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-				}
-				sessionMngr.closeSession(session);
-			}
+	/**
+	 * @return the unfinished write or the data waiting in the session, null if
+	 *         there is nothing to write
+	 */
+	private ByteBuffer nextBuffer(Session session) {
+		ByteBuffer buffer = session.getPendingWrite();
+		if (buffer == null && session.hasDataToSend()) {
+			buffer = ByteBuffer.wrap(session.getSendingData());
 		}
+		return buffer;
 	}
 
 	/**
@@ -103,24 +80,15 @@ public class SocketDataWriterWorker implements Runnable {
 	 * @param session
 	 */
 	void writeUDP(Session session) {
-		if (!session.hasDataToSend()) {
+		ByteBuffer buffer = nextBuffer(session);
+		if (buffer == null) {
 			return;
 		}
 		DatagramChannel channel = session.getUdpChannel();
-		String sessionKey = PacketUtil.intToIPAddress(session.getDestAddress()) + ":" + session.getDestPort() + "-" + PacketUtil.intToIPAddress(session.getSourceIp()) + ":"
-						+ session.getSourcePort();
-		byte[] data = session.getSendingData();
-		ByteBuffer buffer = ByteBuffer.allocate(data.length);
-		buffer.put(data);
-		buffer.flip();
 		try {
-			//          String str = new String(data);
-			//			Log.d(TAG, "****** data write to server ********");
-			//			Log.d(TAG, str);
-			//			Log.d(TAG, "***** end writing to server *******");
-			//			Log.d(TAG, "writing data to remote UDP: " + session.getSessionName());
+			// a datagram is sent whole or not at all, 0 means no room in the socket buffer yet
 			channel.write(buffer);
-			
+			session.setPendingWrite(buffer.hasRemaining() ? buffer : null);
 		} catch (NotYetConnectedException ex2) {
 			session.setAbortingConnection(true);
 			Log.e(TAG, "Error writing to unconnected-UDP server, will abort current connection: " + ex2.getMessage());
@@ -137,25 +105,17 @@ public class SocketDataWriterWorker implements Runnable {
 	 * @param session
 	 */
 	void writeTCP(Session session) {
-
-		SocketChannel channel = session.getSocketchannel();
-
-		byte[] data = session.getSendingData();
-		if (data != null && data.length>0){
-			Log.i("SSL", "data more than zero, data length: " + data.length);
+		ByteBuffer buffer = nextBuffer(session);
+		if (buffer == null) {
+			return;
 		}
-		ByteBuffer buffer = ByteBuffer.allocate(data.length);
-		buffer.put(data);
-		buffer.flip();
-		
+		SocketChannel channel = session.getSocketchannel();
 		try {
-			//Log.d(TAG, "writing TCP data to: " + name);
-			// Make sure that the buffer was fully drained
-			while (buffer.hasRemaining()) {
-				channel.write(buffer);
-			}
+			channel.write(buffer);
+			session.setPendingWrite(buffer.hasRemaining() ? buffer : null);
 		} catch (NotYetConnectedException ex) {
 			Log.e(TAG, "failed to write to unconnected socket: " + ex.getMessage());
+			session.setPendingWrite(buffer);
 		} catch (IOException e) {
 			Log.e(TAG, "Error writing to server: " + e.getMessage());
 
@@ -27,52 +27,54 @@ import com.att.arotcpcollector.udp.UDPPacketFactory;
 import com.att.arotcpcollector.util.PacketUtil;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.SocketAddress;
-import java.nio.channels.DatagramChannel;
+import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The relay loop. One thread owns the selector and every session channel:
+ * it handles the packets the vpn interface read, connects, reads and writes
+ * the server sockets, and closes sessions. Nothing else touches a session
+ * or the selector, so none of it needs locking.
+ * 
+ * Each session waits only for the events its state calls for, see
+ * Session.getInterestOps(). Backpressure works both ways: server data is not
+ * read while the client window is full, and the vpn interface reader blocks
+ * once MAX_QUEUED_PACKETS packets wait for the loop.
+ */
 public class SocketNIODataService implements Runnable, ISocketDataSubscriber{
 	public static final String TAG = "CaptureVpnService";
-	public static Object syncSelectorForSelection = new Object();
-	public static Object syncSelectorForUse = new Object();
 
-	private Queue<byte[]> dataToBeTransmitted;
-	private static Object syncTransmittedData = new Object();
+	// client packets handled before the loop looks at the sockets again
+	private static final int MAX_PACKETS_PER_TURN = 256;
+	private static final int MAX_QUEUED_PACKETS = 1024;
 
+	private final BlockingQueue<byte[]> dataToBeTransmitted = new ArrayBlockingQueue<byte[]>(MAX_QUEUED_PACKETS);
+	// set once a wakeup is on its way, so a burst of packets costs one wakeup
+	private final AtomicBoolean wakeupPending = new AtomicBoolean();
 
 	SessionManager sessionmg;
 	SessionHandler sessionHandler;
 
-	int printcount = 0;
 	SocketData socketData;
 	private IClientPacketWriter clientPacketWriter;
 	private TCPPacketFactory tcpFactory;
 	private UDPPacketFactory udpFactory;
+	private SocketDataReader reader;
+	private SocketDataWriter writer;
 	private volatile boolean shutdown = false;
-	private Selector selector = null;
-	
-	//create thread pool for reading/writing data to socket
-	private BlockingQueue<Runnable> taskQueue;
-	private ThreadPoolExecutor workerPool;
+	private volatile Selector selector = null;
 
 	public SocketNIODataService() {
 		tcpFactory = new TCPPacketFactory();
 		udpFactory = new UDPPacketFactory();
 		socketData = SocketData.getInstance();
 		socketData.registerDataTransmitterSubscriber(this);
-		dataToBeTransmitted = new LinkedList<byte[]>();
-		taskQueue = new LinkedBlockingQueue<Runnable>();
-		workerPool = new ThreadPoolExecutor(8, 100, 10, TimeUnit.SECONDS, taskQueue);//8, 100
 	}
 
 	public void setClientWriter(IClientPacketWriter clientPacketWriter) {
@@ -86,9 +88,11 @@ public class SocketNIODataService implements Runnable, ISocketDataSubscriber{
 	public void run() {
 		Log.d(TAG, "SocketDataService starting in background...");
 		sessionmg = SessionManager.getInstance();
-		selector = sessionmg.getSelector();
 		sessionHandler = SessionHandler.getInstance();
  		sessionHandler.setClientWriter(clientPacketWriter);
+		reader = new SocketDataReader(tcpFactory, udpFactory, clientPacketWriter);
+		writer = new SocketDataWriter(tcpFactory, clientPacketWriter);
+		selector = sessionmg.getSelector();
 		runTask();
 	}
 
@@ -109,32 +113,21 @@ public class SocketNIODataService implements Runnable, ISocketDataSubscriber{
 
  		while (!shutdown) {
 
-			byte[] packetdata;
-
-			synchronized (syncTransmittedData) {
-				packetdata = dataToBeTransmitted.poll();
-			}
-
-			if (packetdata != null) {
-				try {
-					Log.d(TAG, "Step 1");
-					sessionHandler.handlePacket(packetdata);
-				} catch (PacketHeaderException e) {
-					Log.e(TAG, "Packet Header Exception Thrown: " + e.getMessage());
-					e.printStackTrace();
-				}
-			}
+			// cleared before draining, a packet queued after this wakes the select below
+			wakeupPending.set(false);
+			handleClientPackets();
+			serviceSessions();
 
 			try {
-				synchronized (syncSelectorForSelection) {
+				if (dataToBeTransmitted.isEmpty()) {
 					selector.select();
+				} else {
+					selector.selectNow();
 				}
 			} catch (IOException e) {
 				Log.e(TAG, "Error in Selector.select(): " + e.getMessage());
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e1) {
-					Log.d(TAG, "Selector Thread Sleep " + e.getMessage());
+				if (!selector.isOpen()) {
+					break;
 				}
 				continue;
 			}
@@ -144,166 +137,120 @@ public class SocketNIODataService implements Runnable, ISocketDataSubscriber{
 				break;
 			}
 
-			synchronized (syncSelectorForUse) {
-				Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
-				while (iter.hasNext()) {
-					SelectionKey key = (SelectionKey) iter.next();
-					if (key.isValid()) {// adding this check to avoid java.nio.channels.CancelledKeyException
-						if (key.attachment() == null) {
-							try {
-								processTCPSelectionKey(key);
-							} catch (IOException e) {
-								key.cancel();
-							}
-						} else {
-							processUDPSelectionKey(key);
-						}
-						iter.remove();
-						if (shutdown) {
-							Log.d(TAG, "syncSelectorForUse is in shutdown...");
-							break;
-						}
-					} else {
-						Log.d(TAG, "Invalid Key...");
- 					}
-				}
+			Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+			while (iter.hasNext()) {
+				SelectionKey key = iter.next();
+				iter.remove();
+				processSelectionKey(key);
 			}
-
 		}
 	}
 
-	void processUDPSelectionKey(SelectionKey key) {
-		if (!key.isValid()) {
-			Log.d(TAG, "Invalid SelectionKey for UDP");
-			return;
-		}
-		DatagramChannel channel = (DatagramChannel) key.channel();
-		Session session = sessionmg.getSessionByDatagramChannel(channel);
-		if (session == null) {
-			return;
+	/**
+	 * Hands up to MAX_PACKETS_PER_TURN packets from the vpn interface to the
+	 * SessionHandler, which may create sessions and register their channels.
+	 */
+	private void handleClientPackets() {
+		byte[] packetdata;
+		int count = 0;
+		while (count++ < MAX_PACKETS_PER_TURN && (packetdata = dataToBeTransmitted.poll()) != null) {
+			try {
+				sessionHandler.handlePacket(packetdata);
+			} catch (PacketHeaderException e) {
+				Log.e(TAG, "Packet Header Exception Thrown: " + e.getMessage());
+			}
 		}
+	}
 
-		if (!session.isConnected() && key.isConnectable()) {
-			String ips = PacketUtil.intToIPAddress(session.getDestAddress());
-			int port = session.getDestPort();
-			SocketAddress addr = new InetSocketAddress(ips, port);
+	/**
+	 * Goes through the sessions the client packets marked ready, see
+	 * SessionManager.markReady: closes aborted ones, sends server data an ack
+	 * made room for, and brings their selector interest up to date. Sessions
+	 * nothing happened to are not looked at.
+	 */
+	private void serviceSessions() {
+		Session session;
+		while ((session = sessionmg.pollReadySession()) != null) {
+			if (!session.isAbortingConnection() && session.getSocketchannel() != null && session.isConnected()) {
+				reader.flushToClient(session);
+			}
+			if (session.isAbortingConnection()) {
+				closeSession(session);
+				continue;
+			}
 			try {
-//				Log.d(TAG, "selector: connecting to remote UDP server: " + ips + ":" + port);
- 				channel = channel.connect(addr);
-				session.setUdpChannel(channel);
-				session.setConnected(channel.isConnected());
-
-			} catch (Exception e) {
-				Log.e(TAG,"failed to connect to udp: "+e.getMessage());				
-				session.setAbortingConnection(true);
+				session.updateInterestOps();
+			} catch (CancelledKeyException e) {
+				closeSession(session);
 			}
-
-		}
-		if (channel.isConnected()) {
-			processSelector(key, session);
 		}
 	}
 
- 	void processTCPSelectionKey(SelectionKey key) throws IOException {
-		if (!key.isValid()) {
-			Log.d(TAG, "Invalid SelectionKey for TCP");
-			return;
-		}
-		SocketChannel channel = (SocketChannel) key.channel();
-		Session session = sessionmg.getSessionByChannel(channel);
-		if (session == null) {
+	private void processSelectionKey(SelectionKey key) {
+		Session session = (Session) key.attachment();
+		if (session == null || !key.isValid()) {
 			return;
 		}
-
-		if (!session.isConnected() && key.isConnectable()) {
-
-			String ips = PacketUtil.intToIPAddress(session.getDestAddress());
-			int port = session.getDestPort();
-			SocketAddress addr = new InetSocketAddress(ips, port);
-			Log.d(TAG, "connecting to remote tcp server: " + ips + ":" + port);
-
-			boolean connected = false;
-			if (!channel.isConnected() && !channel.isConnectionPending()) {
-				try {
-					connected = channel.connect(addr);
-				} catch (Exception e) {
-					Log.e(TAG, "processTCPSelectionKey Exception :"+e.getMessage());
-					session.setAbortingConnection(true);
-				} 
- 
+		try {
+			if (key.isConnectable()) {
+				finishConnect(key, session);
 			}
-
-			if (connected) {
-				session.setConnected(connected);
-				Log.d(TAG, "connected immediately to remote tcp server: " + ips + ":" + port);
-			} else {
-				if (channel.isConnectionPending()) {
-					connected = channel.finishConnect();
-					session.setConnected(connected);
-					Log.d(TAG, "connected to remote tcp server: " + ips + ":" + port);
-				}
+			if (key.isValid() && key.isWritable()) {
+				writer.write(session);
 			}
-
+			if (key.isValid() && key.isReadable()) {
+				reader.read(session);
+			}
+		} catch (CancelledKeyException e) {
+			session.setAbortingConnection(true);
 		}
-		if (channel.isConnected()) {
-			processSelector(key, session);
+		if (session.isAbortingConnection()) {
+			closeSession(session);
+		} else if (key.isValid()) {
+			session.updateInterestOps();
 		}
 	}
 
 	/**
-	 * Launch a Thread via ThreadPoolExecutor to "run" a SocketDataWriterWorker.
-	 * The worker will handle the session
-	 * 
-	 * @param key
-	 *            A SelectionKey represents the relationship between a channel
-	 *            and a selector for which the channel is registered.<br>
-	 * @param session
-	 *            a connected Session
+	 * Completes the connect started by SessionManager.createNewSession.
 	 */
-	private void processSelector(SelectionKey key, Session session) {
-		
-		String sessionKey = session.getSessionKey();
-		
-		if (sessionKey == null) {
-			sessionKey = sessionmg.createKey(session.getDestAddress(), session.getDestPort(), session.getSourceIp(), session.getSourcePort());
-		}
-						
-		if(key.isValid() && key.isWritable() && !session.isBusyWrite()){
-			if(session.hasDataToSend() && session.isDataForSendingReady()){
- 					session.setBusyWrite(true);
-					SocketDataWriterWorker worker = new SocketDataWriterWorker(tcpFactory, udpFactory, clientPacketWriter);
-					worker.setSessionKey(sessionKey);
-					workerPool.execute(worker);
-			}	 
+	private void finishConnect(SelectionKey key, Session session) {
+		SocketChannel channel = (SocketChannel) key.channel();
+		String ips = PacketUtil.intToIPAddress(session.getDestAddress());
+		int port = session.getDestPort();
+		try {
+			if (channel.isConnectionPending() && channel.finishConnect()) {
+				session.setConnected(true);
+				Log.d(TAG, "connected to remote tcp server: " + ips + ":" + port);
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "failed to connect to " + ips + ":" + port + " " + e.getMessage());
+			session.setAbortingConnection(true);
 		}
-		
-		if(key.isValid() && key.isReadable() && !session.isBusyRead()){
- 				session.setBusyRead(true);
-				SocketDataReaderWorker worker = new SocketDataReaderWorker(tcpFactory, udpFactory, clientPacketWriter);
-				worker.setSessionKey(sessionKey);
-				workerPool.execute(worker);
-		} 
-		
-
+	}
 
+	private void closeSession(Session session) {
+		Log.d(TAG, "removing aborted connection -> " + session.getSessionName());
+		sessionmg.closeSession(session);
 	}
 
+	/**
+	 * Called by the thread reading the vpn interface. Blocks while the loop
+	 * has MAX_QUEUED_PACKETS packets to handle, which holds back the vpn
+	 * interface instead of queueing without limit.
+	 */
 	@Override
 	public void transmitData(byte[] packet) {
-		synchronized (syncTransmittedData) {
-			try {
-				dataToBeTransmitted.add(packet);
-				synchronized (syncSelectorForUse) {
-					selector.wakeup();
-				}
-			} catch (IllegalStateException ex) {
-				ex.printStackTrace();
-			} catch (NullPointerException ex1) {
-				ex1.printStackTrace();
-			} catch (Exception ex2) {
-				ex2.printStackTrace();
-			}
+		try {
+			dataToBeTransmitted.put(packet);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Log.e(TAG, "interrupted, dropped client packet");
+			return;
+		}
+		Selector loopSelector = selector;
+		if (loopSelector != null && wakeupPending.compareAndSet(false, true)) {
+			loopSelector.wakeup();
 		}
 	}
 }
-
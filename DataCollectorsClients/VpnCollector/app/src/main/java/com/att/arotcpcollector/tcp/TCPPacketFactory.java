@@ -23,9 +23,6 @@ import com.att.arotcpcollector.ip.IPPacketFactory;
 import com.att.arotcpcollector.ip.IPv4Header;
 import com.att.arotcpcollector.util.PacketUtil;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.Date;
 import java.util.Random;
 
 /**
@@ -107,8 +104,7 @@ public class TCPPacketFactory {
 
 		//set response timestamps in options fields
 		tcp.setTimeStampReplyTo(tcp.getTimeStampSender());
-		Date currentdate = new Date();
-		int sendertimestamp = (int) currentdate.getTime();
+		int sendertimestamp = (int) System.currentTimeMillis();
 		tcp.setTimeStampSender(sendertimestamp);
 
 		//recalculate IP length
@@ -275,8 +271,7 @@ public class TCPPacketFactory {
 
 		//set response timestamps in options fields
 		tcp.setTimeStampReplyTo(tcp.getTimeStampSender());
-		Date currentdate = new Date();
-		int sendertimestamp = (int) currentdate.getTime();
+		int sendertimestamp = (int) System.currentTimeMillis();
 		tcp.setTimeStampSender(sendertimestamp);
 
 		//recalculate IP length
@@ -293,6 +288,16 @@ public class TCPPacketFactory {
 	 * create packet data for sending back to client
  	 */
 	public byte[] createResponsePacketData(IPv4Header ip, TCPHeader tcp, byte[] packetdata, boolean ispsh, int ackNumber, int seqNumber, int timeSender, int timeReplyto) {
+		int datalength = packetdata != null ? packetdata.length : 0;
+		return createResponsePacketData(ip, tcp, packetdata, 0, datalength, ispsh, ackNumber, seqNumber, timeSender, timeReplyto);
+	}
+
+	/**
+	 * create packet data for sending back to client from part of an array,
+	 * such as the buffer the server data was read into
+	 */
+	public byte[] createResponsePacketData(IPv4Header ip, TCPHeader tcp, byte[] packetdata, int offset, int datalength, boolean ispsh, int ackNumber,
+			int seqNumber, int timeSender, int timeReplyto) {
 
 		byte[] buffer = null;
 		IPv4Header ipheader = IPPacketFactory.copyIPv4Header(ip);
@@ -323,13 +328,10 @@ public class TCPPacketFactory {
 		tcpheader.setTimeStampSender(timeSender);
 		tcpheader.setTimeStampReplyTo(timeReplyto);
 		//recalculate IP length
-		int totalLength = ipheader.getIPHeaderLength() + tcpheader.getTCPHeaderLength();
-		if (packetdata != null) {
-			totalLength += packetdata.length;
-		}
+		int totalLength = ipheader.getIPHeaderLength() + tcpheader.getTCPHeaderLength() + datalength;
 		ipheader.setTotalLength(totalLength);
 
-		buffer = this.createPacketData(ipheader, tcpheader, packetdata);
+		buffer = this.createPacketData(ipheader, tcpheader, packetdata, offset, datalength);
 		return buffer;
 	}
 
@@ -378,8 +380,7 @@ public class TCPPacketFactory {
 
 		//timestamp in options fields
 		tcpheader.setTimeStampReplyTo(tcpheader.getTimeStampSender());
-		Date currentdate = new Date();
-		int sendertimestamp = (int) currentdate.getTime();
+		int sendertimestamp = (int) System.currentTimeMillis();
 		tcpheader.setTimeStampSender(sendertimestamp);
 
 		packet.setIpheader(ipheader);
@@ -403,38 +404,54 @@ public class TCPPacketFactory {
 	 * @return array of byte
 	 */
 	public byte[] createPacketData(IPv4Header ipheader, TCPHeader tcpheader, byte[] data) {
-		Log.d(TAG, "createPacketData d:" + PacketUtil.intToIPAddress(ipheader.getDestinationIP()) + " s:" + PacketUtil.intToIPAddress(ipheader.getSourceIP()));
+		int datalength = data != null ? data.length : 0;
+		return createPacketData(ipheader, tcpheader, data, 0, datalength);
+	}
 
-		int datalength = 0;
-		if (data != null) {
-			datalength = data.length;
-		}
-		byte[] buffer = new byte[ipheader.getIPHeaderLength() + tcpheader.getTCPHeaderLength() + datalength];
-		byte[] ipbuffer = IPPacketFactory.createIPv4HeaderData(ipheader);
-		byte[] tcpbuffer = createTCPHeaderData(tcpheader);
+	/**
+	 * create packet data from IP Header, TCP header and part of an array of
+	 * byte. Headers and data are written straight into the one array that is
+	 * returned and the checksums are calculated where they are, the same array
+	 * then goes to the vpn client and to traffic.cap.
+	 * 
+	 * @param ipheader
+	 *            IPv4Header object
+	 * @param tcpheader
+	 *            TCPHeader object
+	 * @param data
+	 *            array of byte holding the packet body, may be null if datalength is 0
+	 * @param offset
+	 *            position of the packet body in data
+	 * @param datalength
+	 *            length of the packet body
+	 * @return array of byte
+	 */
+	public byte[] createPacketData(IPv4Header ipheader, TCPHeader tcpheader, byte[] data, int offset, int datalength) {
 
-		System.arraycopy(ipbuffer, 0, buffer, 0, ipbuffer.length);
-		System.arraycopy(tcpbuffer, 0, buffer, ipbuffer.length, tcpbuffer.length);
+		int iplength = ipheader.getIPHeaderLength();
+		int tcplength = tcpheader.getTCPHeaderLength();
+		byte[] buffer = new byte[iplength + tcplength + datalength];
+		IPPacketFactory.writeIPv4Header(ipheader, buffer, 0);
+		writeTCPHeader(tcpheader, buffer, iplength);
 		if (datalength > 0) {
-			int offset = ipbuffer.length + tcpbuffer.length;
-			System.arraycopy(data, 0, buffer, offset, datalength);
+			System.arraycopy(data, offset, buffer, iplength + tcplength, datalength);
 		}
-		//calculate checksum for both IP and TCP header
-		byte[] zero = { 0, 0 };
-		//zero out checksum first before calculation
-		System.arraycopy(zero, 0, buffer, 10, 2);
-		byte[] ipchecksum = PacketUtil.calculateChecksum(buffer, 0, ipbuffer.length);
-		//write result of checksum back to buffer
-		System.arraycopy(ipchecksum, 0, buffer, 10, 2);
-
-		//zero out TCP header checksum first
-		int tcpstart = ipbuffer.length;
-		System.arraycopy(zero, 0, buffer, tcpstart + 16, 2);
-		byte[] tcpchecksum = PacketUtil.calculateTCPHeaderChecksum(buffer, tcpstart, tcpbuffer.length + datalength, 
-				ipheader.getDestinationIP(), ipheader.getSourceIP());
-
-		//write new checksum back to array
-		System.arraycopy(tcpchecksum, 0, buffer, tcpstart + 16, 2);
+
+		//zero out IP checksum first before calculation, then write it back to buffer
+		buffer[10] = 0;
+		buffer[11] = 0;
+		int ipchecksum = PacketUtil.finishChecksum(PacketUtil.sumWords(buffer, 0, iplength, 0));
+		buffer[10] = (byte) (ipchecksum >> 8);
+		buffer[11] = (byte) ipchecksum;
+
+		//same for the TCP checksum, which also covers the pseudo header and the data
+		int tcpstart = iplength;
+		buffer[tcpstart + 16] = 0;
+		buffer[tcpstart + 17] = 0;
+		int sum = PacketUtil.sumPseudoHeader(ipheader.getSourceIP(), ipheader.getDestinationIP(), 6, tcplength + datalength);
+		int tcpchecksum = PacketUtil.finishChecksum(PacketUtil.sumWords(buffer, tcpstart, tcplength + datalength, sum));
+		buffer[tcpstart + 16] = (byte) (tcpchecksum >> 8);
+		buffer[tcpstart + 17] = (byte) tcpchecksum;
 
 		return buffer;
 	}
@@ -449,26 +466,36 @@ public class TCPPacketFactory {
 	public byte[] createTCPHeaderData(TCPHeader header) {
 
 		byte[] buffer = new byte[header.getTCPHeaderLength()];
+		writeTCPHeader(header, buffer, 0);
+		return buffer;
+	}
+
+	/**
+	 * write a TCPHeader into an array of byte, where the packet is built
+	 * 
+	 * @param header
+	 *            instance of TCPHeader
+	 * @param buffer
+	 *            array of byte with room for header.getTCPHeaderLength() bytes from start
+	 * @param start
+	 *            position of the header in buffer
+	 */
+	public void writeTCPHeader(TCPHeader header, byte[] buffer, int start) {
+
 		byte sourcePort1 = (byte) (header.getSourcePort() >> 8);
 		byte sourcePort2 = (byte) (header.getSourcePort());
 
-		buffer[0] = sourcePort1;
-		buffer[1] = sourcePort2;
+		buffer[start] = sourcePort1;
+		buffer[start + 1] = sourcePort2;
 
 		byte destPort1 = (byte) (header.getDestinationPort() >> 8);
 		byte destPort2 = (byte) (header.getDestinationPort());
-		buffer[2] = destPort1;
-		buffer[3] = destPort2;
-		ByteBuffer buf = ByteBuffer.allocate(4);
-		buf.order(ByteOrder.BIG_ENDIAN);
-		buf.putInt(header.getSequenceNumber());
+		buffer[start + 2] = destPort1;
+		buffer[start + 3] = destPort2;
 
 		//sequence number
-		System.arraycopy(buf.array(), 0, buffer, 4, 4);
-
-		buf.clear();
-		buf.putInt(header.getAckNumber());
-		System.arraycopy(buf.array(), 0, buffer, 8, 4);
+		PacketUtil.writeIntToBytes(header.getSequenceNumber(), buffer, start + 4);
+		PacketUtil.writeIntToBytes(header.getAckNumber(), buffer, start + 8);
 
 		byte dataoffset = (byte) header.getDataOffset();
 		dataoffset <<= 4;
@@ -476,25 +503,25 @@ public class TCPPacketFactory {
 		if (header.isNS()) {
 			dataoffset |= 0x1;
 		}
-		buffer[12] = dataoffset;
+		buffer[start + 12] = dataoffset;
 
 		byte flag = (byte) header.getTcpFlags();
-		buffer[13] = flag;
+		buffer[start + 13] = flag;
 
 		byte window1 = (byte) (header.getWindowSize() >> 8);
 		byte window2 = (byte) header.getWindowSize();
-		buffer[14] = window1;
-		buffer[15] = window2;
+		buffer[start + 14] = window1;
+		buffer[start + 15] = window2;
 
 		byte checksum1 = (byte) (header.getChecksum() >> 8);
 		byte checksum2 = (byte) header.getChecksum();
-		buffer[16] = checksum1;
-		buffer[17] = checksum2;
+		buffer[start + 16] = checksum1;
+		buffer[start + 17] = checksum2;
 
 		byte urgpointer1 = (byte) (header.getUrgentPointer() >> 8);
 		byte urgpointer2 = (byte) header.getUrgentPointer();
-		buffer[18] = urgpointer1;
-		buffer[19] = urgpointer2;
+		buffer[start + 18] = urgpointer1;
+		buffer[start + 19] = urgpointer2;
 
 		//set timestamp for both sender and reply to
 		byte[] options = header.getOptions();
@@ -519,10 +546,9 @@ public class TCPPacketFactory {
 				}
 			}
 		}
-		if (header.getOptions().length > 0) {
-			System.arraycopy(header.getOptions(), 0, buffer, 20, header.getOptions().length);
+		if (options.length > 0) {
+			System.arraycopy(options, 0, buffer, start + 20, options.length);
 		}
-		return buffer;
 	}
 
 	/**
@@ -58,11 +58,24 @@ public class UDPPacketFactory {
 	 * @return array of byte
 	 */
 	public byte[] createResponsePacket(IPv4Header ip, UDPHeader udp, byte[] packetdata){
+		int datalength = packetdata != null ? packetdata.length : 0;
+		return createResponsePacket(ip, udp, packetdata, 0, datalength);
+	}
+
+	/**
+	 * create packet data for responding to vpn client from part of an array,
+	 * such as the buffer the server data was read into. Headers and data are
+	 * written straight into the returned array.
+	 * @param ip IPv4Header sent from VPN client, will be used as the template for response
+	 * @param udp UDPHeader sent from VPN client
+	 * @param packetdata array holding the data to be sent to client
+	 * @param offset position of the data in packetdata
+	 * @param datalength length of the data
+	 * @return array of byte
+	 */
+	public byte[] createResponsePacket(IPv4Header ip, UDPHeader udp, byte[] packetdata, int offset, int datalength){
 		byte[] buffer = null;
-		int udplen = 8;
-		if(packetdata != null){
-			udplen += packetdata.length;
-		}
+		int udplen = 8 + datalength;
 		int srcPort = udp.getDestinationPort();
 		int destPort = udp.getSourcePort();
 		short checksum = 0;
@@ -77,42 +90,36 @@ public class UDPPacketFactory {
 		ipheader.setIdenfication(PacketUtil.getPacketId());
 		
 		//ip's length is the length of the entire packet => IP header length + UDP header length (8) + UDP body length
-		int totallength = ipheader.getIPHeaderLength() + udplen;
+		int iplength = ipheader.getIPHeaderLength();
+		int totallength = iplength + udplen;
 		
 		ipheader.setTotalLength(totallength);
 		buffer = new byte[totallength];
-		byte[] ipdata = IPPacketFactory.createIPv4HeaderData(ipheader);
-		//calculate checksum for IP header
-		byte[] zero = {0,0};
+		IPPacketFactory.writeIPv4Header(ipheader, buffer, 0);
 		//zero out checksum first before calculation
-		System.arraycopy(zero, 0, ipdata, 10, 2);
-		byte[] ipchecksum = PacketUtil.calculateChecksum(ipdata, 0, ipdata.length);
+		buffer[10] = 0;
+		buffer[11] = 0;
+		int ipchecksum = PacketUtil.finishChecksum(PacketUtil.sumWords(buffer, 0, iplength, 0));
 		//write result of checksum back to buffer
-		System.arraycopy(ipchecksum, 0, ipdata, 10, 2);
-		System.arraycopy(ipdata, 0, buffer, 0, ipdata.length);
-		
-		//copy UDP header to buffer
-		int start = ipdata.length;
-		byte[] intcontainer = new byte[4];
-		PacketUtil.writeIntToBytes(srcPort, intcontainer, 0);
-		//extract the last two bytes of int value
-		System.arraycopy(intcontainer,2,buffer,start,2);
-		start += 2;
+		buffer[10] = (byte) (ipchecksum >> 8);
+		buffer[11] = (byte) ipchecksum;
 		
-		PacketUtil.writeIntToBytes(destPort, intcontainer, 0);
-		System.arraycopy(intcontainer, 2, buffer, start, 2);
-		start += 2;
-		
-		PacketUtil.writeIntToBytes(udplen, intcontainer, 0);
-		System.arraycopy(intcontainer, 2, buffer, start, 2);
-		start += 2;
-		
-		PacketUtil.writeIntToBytes(checksum, intcontainer, 0);
-		System.arraycopy(intcontainer, 2, buffer, start, 2);
-		start += 2;
+		//UDP header, the last two bytes of each int value
+		int start = iplength;
+		buffer[start] = (byte) (srcPort >> 8);
+		buffer[start + 1] = (byte) srcPort;
+		buffer[start + 2] = (byte) (destPort >> 8);
+		buffer[start + 3] = (byte) destPort;
+		buffer[start + 4] = (byte) (udplen >> 8);
+		buffer[start + 5] = (byte) udplen;
+		buffer[start + 6] = (byte) (checksum >> 8);
+		buffer[start + 7] = (byte) checksum;
+		start += 8;
 		
 		//now copy udp data
-		System.arraycopy(packetdata, 0, buffer, start, packetdata.length);
+		if (datalength > 0) {
+			System.arraycopy(packetdata, offset, buffer, start, datalength);
+		}
 		
 		return buffer;
 	}
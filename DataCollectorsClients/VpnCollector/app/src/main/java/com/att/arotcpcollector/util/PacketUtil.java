@@ -21,7 +21,6 @@ import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.Date;
 import java.util.Enumeration;
 
@@ -201,58 +200,89 @@ public class PacketUtil {
 		return (result == 0);
 	}
 
-	public static byte[] calculateChecksum(byte[] data, int offset, int length) {
-		int start = offset;
-		int sum = 0;
-		int value = 0;
-		while (start < length) {
-			value = PacketUtil.getNetworkInt(data, start, 2);
-			sum += value;
-			start = start + 2;
-		}
-		//carry over one's complement
-		while ((sum >> 16) > 0) {
-			sum = (sum & 0xffff) + (sum >> 16);
-		}
-		//flip the bit to get one' complement
-		sum = ~sum;
+	/**
+	 * internet checksum of the 16 bit words from offset up to end
+	 * 
+	 * @param data
+	 *            array of byte
+	 * @param offset
+	 *            position of the first byte
+	 * @param end
+	 *            position after the last byte, not a length
+	 * @return checksum in two bytes, network order
+	 */
+	public static byte[] calculateChecksum(byte[] data, int offset, int end) {
+		int checksum = finishChecksum(sumWords(data, offset, Math.max(0, end - offset), 0));
 
 		//extract the last two byte of int
-		byte[] checksum = new byte[2];
-		checksum[0] = (byte) (sum >> 8);
-		checksum[1] = (byte) sum;
+		byte[] result = new byte[2];
+		result[0] = (byte) (checksum >> 8);
+		result[1] = (byte) checksum;
 
-		return checksum;
+		return result;
 	}
 
 	public static byte[] calculateTCPHeaderChecksum(byte[] data, int offset, int tcplength, int destip, int sourceip) {
-		int buffersize = tcplength + 12;
-		boolean odd = false;
-		if (buffersize % 2 != 0) {
-			buffersize++;
-			odd = true;
-		}
-		ByteBuffer buffer = ByteBuffer.allocate(buffersize);
-		buffer.order(ByteOrder.BIG_ENDIAN);
+		int sum = sumPseudoHeader(sourceip, destip, 6, tcplength);
+		int checksum = finishChecksum(sumWords(data, offset, tcplength, sum));
 
-		//create virtual header
-		buffer.putInt(sourceip);
-		buffer.putInt(destip);
-		buffer.put((byte) 0);//reserved => 0
-		buffer.put((byte) 6);//tcp protocol => 6
-		buffer.putShort((short) tcplength);
+		byte[] result = new byte[2];
+		result[0] = (byte) (checksum >> 8);
+		result[1] = (byte) checksum;
 
-		//add actual header + data
-		buffer.put(data, offset, tcplength);
+		return result;
+	}
 
-		//padding last byte to zero
-		if (odd) {
-			buffer.put((byte) 0);
+	/**
+	 * add the 16 bit words of data to a running internet checksum sum, an odd
+	 * last byte is padded with zero. Nothing is copied, so headers and payload
+	 * can be summed where they are.
+	 * 
+	 * @param data
+	 *            array of byte
+	 * @param offset
+	 *            position of the first byte
+	 * @param length
+	 *            number of bytes to add
+	 * @param sum
+	 *            sum so far, 0 to start a new one
+	 * @return sum to pass on or to finishChecksum
+	 */
+	public static int sumWords(byte[] data, int offset, int length, int sum) {
+		int end = offset + (length & ~1);
+		for (int i = offset; i < end; i += 2) {
+			sum += ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+			//fold early so a 64K packet can not overflow the int
+			if ((sum & 0x80000000) != 0) {
+				sum = (sum & 0xFFFF) + (sum >>> 16);
+			}
+		}
+		if ((length & 1) != 0) {
+			sum += (data[end] & 0xFF) << 8;
 		}
-		byte[] tcparray = buffer.array();
-		byte[] tcpchecksum = calculateChecksum(tcparray, 0, buffersize);
+		return sum;
+	}
 
-		return tcpchecksum;
+	/**
+	 * sum of the TCP/UDP pseudo header: source ip, destination ip, protocol
+	 * and the length of the TCP/UDP header plus data
+	 */
+	public static int sumPseudoHeader(int sourceip, int destip, int protocol, int length) {
+		return (sourceip >>> 16) + (sourceip & 0xFFFF) + (destip >>> 16) + (destip & 0xFFFF) + protocol + length;
+	}
+
+	/**
+	 * carry over and flip a sum to the 16 bit checksum
+	 * 
+	 * @param sum
+	 *            from sumWords
+	 * @return checksum in the lower 16 bits
+	 */
+	public static int finishChecksum(int sum) {
+		while ((sum >>> 16) > 0) {
+			sum = (sum & 0xFFFF) + (sum >>> 16);
+		}
+		return ~sum & 0xFFFF;
 	}
 
 	public static String intToIPAddress(int addressInt) {
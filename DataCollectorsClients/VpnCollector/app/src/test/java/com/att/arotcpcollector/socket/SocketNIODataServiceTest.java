@@ -0,0 +1,414 @@
+/*
+ * Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.arotcpcollector.socket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.att.arotcpcollector.IClientPacketWriter;
+
+/**
+ * Runs the relay loop against loopback servers. The test plays the vpn
+ * interface: it hands the loop the packets an app would send and reads the
+ * packets the loop writes back to the app.
+ */
+public class SocketNIODataServiceTest {
+
+	private static final int CLIENT_IP = 0x0A000002; // 10.0.0.2
+	private static final int LOOPBACK_IP = 0x7F000001;
+	private static final int SYN = 0x02;
+	private static final int FIN = 0x01;
+	private static final int PSH = 0x08;
+	private static final int ACK = 0x10;
+	// sent by the relay when the client gave no mss, see SocketDataReader
+	private static final int SEGMENT = 1024;
+	private static final long TIMEOUT_MS = 10000;
+
+	// sessions stay in the SessionManager singleton, every connection gets its own port
+	private static int nextPort = 41000;
+
+	// packets the relay wrote to the app, by app port
+	private final ConcurrentHashMap<Integer, BlockingQueue<byte[]>> toClient = new ConcurrentHashMap<Integer, BlockingQueue<byte[]>>();
+	private SocketNIODataService service;
+	private Thread loop;
+
+	@Before
+	public void setUp() {
+		SocketProtector.getInstance().setProtector(new IProtectSocket() {
+			@Override
+			public void protectSocket(Socket socket) {
+			}
+
+			@Override
+			public void protectSocket(int socket) {
+			}
+
+			@Override
+			public void protectSocket(DatagramSocket socket) {
+			}
+		});
+		service = new SocketNIODataService();
+		service.setClientWriter(new IClientPacketWriter() {
+			@Override
+			public void write(byte[] data) throws IOException {
+				write(data, 0, data.length);
+			}
+
+			@Override
+			public void write(byte[] data, int offset, int count) throws IOException {
+				byte[] packet = Arrays.copyOfRange(data, offset, offset + count);
+				BlockingQueue<byte[]> packets = toClient.get(tcpInt(packet, 2, 2));
+				if (packets != null) {
+					packets.add(packet);
+				}
+			}
+		});
+		loop = new Thread(service, "relay loop");
+		loop.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		service.setShutdown(true);
+		loop.join(TIMEOUT_MS);
+		SocketData.getInstance().unregisterDataTransmitterSubscriber(service);
+	}
+
+	@Test
+	public void connect_echoesThroughRelay() throws Exception {
+		ServerSocket server = echoServer();
+		try {
+			Connection connection = new Connection(server.getLocalPort(), 65535);
+			byte[] request = "hello through the relay".getBytes("US-ASCII");
+			connection.write(request);
+			assertArrayEquals(request, connection.read(request.length, true));
+			assertFalse(connection.fin);
+		} finally {
+			server.close();
+		}
+	}
+
+	@Test
+	public void write_partialWritesGoOutWholeAndInOrder() throws Exception {
+		// the server reads nothing until released, the relay can only write part of the data
+		final ServerSocket stalled = new ServerSocket();
+		stalled.setReceiveBufferSize(4096);
+		stalled.bind(null);
+		final CountDownLatch release = new CountDownLatch(1);
+		final byte[] data = data(8 * 1024 * 1024, 1);
+		final byte[] serverReceived = new byte[data.length];
+		Thread reader = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Socket socket = stalled.accept();
+					release.await();
+					InputStream in = socket.getInputStream();
+					int offset = 0;
+					int length;
+					while (offset < serverReceived.length
+							&& (length = in.read(serverReceived, offset, serverReceived.length - offset)) != -1) {
+						offset += length;
+					}
+					socket.close();
+				} catch (Exception e) {
+					// the assert on what arrived fails
+				}
+			}
+		};
+		reader.start();
+		ServerSocket echo = echoServer();
+		try {
+			Connection connection = new Connection(stalled.getLocalPort(), 65535);
+			connection.write(data);
+
+			// the loop does not wait on the full socket, other sessions go on
+			Connection other = new Connection(echo.getLocalPort(), 65535);
+			byte[] request = "still relaying".getBytes("US-ASCII");
+			other.write(request);
+			assertArrayEquals(request, other.read(request.length, true));
+
+			release.countDown();
+			reader.join(TIMEOUT_MS);
+			assertArrayEquals(data, serverReceived);
+		} finally {
+			release.countDown();
+			stalled.close();
+			echo.close();
+		}
+	}
+
+	@Test
+	public void read_fullWindowHoldsServerBack() throws Exception {
+		int window = 4096;
+		byte[] data = data(256 * 1024, 2);
+		ServerSocket server = sendingServer(data, false);
+		try {
+			Connection connection = new Connection(server.getLocalPort(), window);
+			// nothing acked, the relay stops at the window
+			connection.read(window, false);
+			Thread.sleep(300);
+			connection.drain();
+			assertTrue("sent past the window: " + connection.received.size(),
+					connection.received.size() < window + SEGMENT);
+			// every ack lets more through
+			connection.ack();
+			connection.read(data.length - connection.received.size(), true);
+			assertArrayEquals(data, connection.received.toByteArray());
+		} finally {
+			server.close();
+		}
+	}
+
+	@Test
+	public void read_flushesBufferedDataBeforeFin() throws Exception {
+		byte[] data = data(200 * 1024, 3);
+		ServerSocket server = sendingServer(data, true);
+		try {
+			Connection connection = new Connection(server.getLocalPort(), 8192);
+			connection.read(data.length, true);
+			assertArrayEquals(data, connection.received.toByteArray());
+			connection.awaitFin();
+		} finally {
+			server.close();
+		}
+	}
+
+	/**
+	 * The app side of one TCP connection through the relay. It sends packets
+	 * the way the vpn interface hands them to the relay loop and keeps what
+	 * the loop writes back.
+	 */
+	private class Connection {
+		final int port = nextPort++;
+		final int serverPort;
+		final int window;
+		final BlockingQueue<byte[]> packets = new LinkedBlockingQueue<byte[]>();
+		final ByteArrayOutputStream received = new ByteArrayOutputStream();
+		int seq = 1000;
+		int ack;
+		boolean fin;
+		byte[] lastFin;
+
+		Connection(int serverPort, int window) throws Exception {
+			this.serverPort = serverPort;
+			this.window = window;
+			toClient.put(port, packets);
+			send(SYN, null, 0, 0);
+			byte[] synAck = next();
+			assertEquals(SYN | ACK, tcpInt(synAck, 13, 1) & (SYN | ACK));
+			seq++;
+			ack = tcpInt(synAck, 4, 4) + 1;
+			send(ACK, null, 0, 0);
+		}
+
+		/**
+		 * send the data in segments the relay acks, the last one pushes it
+		 */
+		void write(byte[] data) throws Exception {
+			int segment = 60000;
+			for (int offset = 0; offset < data.length; offset += segment) {
+				int length = Math.min(segment, data.length - offset);
+				send(ACK | PSH, data, offset, length);
+				seq += length;
+			}
+		}
+
+		/**
+		 * ack everything received so far
+		 */
+		void ack() {
+			send(ACK, null, 0, 0);
+		}
+
+		/**
+		 * @return the next length bytes from the server, each packet acked
+		 *         when ackEach is set
+		 */
+		byte[] read(int length, boolean ackEach) throws Exception {
+			int start = received.size();
+			while (received.size() - start < length) {
+				byte[] packet = next();
+				take(packet);
+				assertFalse("FIN before all data", fin);
+				if (ackEach) {
+					ack();
+				}
+			}
+			byte[] all = received.toByteArray();
+			return Arrays.copyOfRange(all, start, start + length);
+		}
+
+		/**
+		 * keep what has already been sent, without acking it
+		 */
+		void drain() {
+			byte[] packet;
+			while ((packet = packets.poll()) != null) {
+				take(packet);
+			}
+		}
+
+		void awaitFin() throws Exception {
+			while (!fin) {
+				take(next());
+			}
+			assertEquals("FIN after the last byte", ack, tcpInt(lastFin, 4, 4));
+		}
+
+		private void take(byte[] packet) {
+			int ipLength = (packet[0] & 0x0F) * 4;
+			int dataStart = ipLength + ((packet[ipLength + 12] >> 4) & 0x0F) * 4;
+			int length = packet.length - dataStart;
+			if (length > 0) {
+				assertEquals("data out of order", ack, tcpInt(packet, 4, 4));
+				received.write(packet, dataStart, length);
+				ack += length;
+			}
+			if ((tcpInt(packet, 13, 1) & FIN) != 0) {
+				fin = true;
+				lastFin = packet;
+			}
+		}
+
+		private byte[] next() throws Exception {
+			byte[] packet = packets.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			assertNotNull("nothing from the relay on " + port, packet);
+			return packet;
+		}
+
+		private void send(int flags, byte[] data, int offset, int length) {
+			byte[] packet = new byte[40 + length];
+			packet[0] = 0x45;
+			putInt(packet, 2, 2, packet.length);
+			packet[8] = 64;
+			packet[9] = 6;
+			putInt(packet, 12, 4, CLIENT_IP);
+			putInt(packet, 16, 4, LOOPBACK_IP);
+			putInt(packet, 20, 2, port);
+			putInt(packet, 22, 2, serverPort);
+			putInt(packet, 24, 4, seq);
+			putInt(packet, 28, 4, (flags & ACK) != 0 ? ack : 0);
+			packet[32] = 0x50;
+			packet[33] = (byte) flags;
+			putInt(packet, 34, 2, window);
+			if (length > 0) {
+				System.arraycopy(data, offset, packet, 40, length);
+			}
+			service.transmitData(packet);
+		}
+	}
+
+	/**
+	 * @return a server that sends every connection back what it sent
+	 */
+	private static ServerSocket echoServer() throws IOException {
+		final ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						Socket socket = server.accept();
+						copy(socket.getInputStream(), socket.getOutputStream());
+						socket.close();
+					}
+				} catch (IOException e) {
+					// closed by the test
+				}
+			}
+		}.start();
+		return server;
+	}
+
+	/**
+	 * @return a server that sends the data to the first connection and closes
+	 *         it afterwards if close is set
+	 */
+	private static ServerSocket sendingServer(final byte[] data, final boolean close) throws IOException {
+		final ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					Socket socket = server.accept();
+					socket.getOutputStream().write(data);
+					if (close) {
+						socket.close();
+					}
+				} catch (IOException e) {
+					// the assert on what arrived fails
+				}
+			}
+		}.start();
+		return server;
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[8192];
+		int length;
+		while ((length = in.read(buffer)) != -1) {
+			out.write(buffer, 0, length);
+		}
+	}
+
+	private static byte[] data(int length, long seed) {
+		byte[] data = new byte[length];
+		new Random(seed).nextBytes(data);
+		return data;
+	}
+
+	/**
+	 * read a field of the TCP header of a packet with a 20 byte IP header
+	 */
+	private static int tcpInt(byte[] packet, int offset, int length) {
+		int value = 0;
+		for (int i = 0; i < length; i++) {
+			value = (value << 8) | (packet[20 + offset + i] & 0xFF);
+		}
+		return value;
+	}
+
+	private static void putInt(byte[] packet, int offset, int length, int value) {
+		for (int i = length - 1; i >= 0; i--) {
+			packet[offset + i] = (byte) value;
+			value >>= 8;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.arotcpcollector.tcp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.att.arotcpcollector.ip.IPv4Header;
+import com.att.arotcpcollector.util.PacketUtil;
+
+/**
+ * The expected packets were built once by the factory as it was before it
+ * wrote packets in place. Total length is left 0, the callers set it.
+ */
+public class TCPPacketFactoryTest {
+
+	private static final byte[] ACK_PACKET = bytes("450000001c4640004006ded55db8d8220a000002"
+			+ "01bba028123456780badf00d5010ffff69ad0000");
+
+	// odd length payload, timestamp option
+	private static final byte[] PSH_PACKET = bytes("450000001c4740004006ded45db8d8220a000002"
+			+ "01bba028123456790badf00d8018721060870000"
+			+ "0101080a010203040a0b0c0d68656c6c6f");
+
+	private static final byte[] PSH_HEADER = bytes("01bba028123456790badf00d8018721000000000"
+			+ "0101080a010203040a0b0c0d");
+
+	// IP option, fragment fields, NS flag, urgent pointer and all TCP options in use
+	private static final byte[] SYN_ACK_PACKET = bytes("46000000beef2123ff067b350a000002c0a80101"
+			+ "940400001f90cb20fffffffeffffffffa1121234"
+			+ "c60d0102020405b40402080affffffff7f000001"
+			+ "01030307000102030405060708090a0b0c0d0e0f");
+
+	private final TCPPacketFactory factory = new TCPPacketFactory();
+
+	@Test
+	public void createPacketData_noPayload() {
+		IPv4Header ip = new IPv4Header((byte) 4, (byte) 5, (byte) 0, (byte) 0, 0, 0x1c46, true, false, (short) 0, (byte) 64, (byte) 6, 0,
+				0x5db8d822, 0x0a000002, new byte[0]);
+		TCPHeader tcp = new TCPHeader(443, 41000, 0x12345678, 5, false, 0x10, 65535, 0, 0, new byte[0], 0x0badf00d);
+
+		assertArrayEquals(ACK_PACKET, factory.createPacketData(ip, tcp, null));
+	}
+
+	@Test
+	public void createPacketData_oddPayloadAndTimestamp() {
+		assertArrayEquals(PSH_PACKET, factory.createPacketData(pshIPHeader(), pshTCPHeader(), "hello".getBytes()));
+	}
+
+	@Test
+	public void createPacketData_partOfArray() {
+		byte[] readBuffer = "..hello...".getBytes();
+		assertArrayEquals(PSH_PACKET, factory.createPacketData(pshIPHeader(), pshTCPHeader(), readBuffer, 2, 5));
+	}
+
+	@Test
+	public void createPacketData_allOptions() {
+		IPv4Header ip = new IPv4Header((byte) 4, (byte) 6, (byte) 10, (byte) 2, 0, 0xbeef, false, true, (short) 0x123, (byte) 255,
+				(byte) 6, 0, 0x0a000002, 0xc0a80101, new byte[] { (byte) 0x94, 4, 0, 0 });
+		TCPHeader tcp = new TCPHeader(8080, 52000, -2, 10, true, 0x12, 0x1234, 0, 0x0102,
+				new byte[] { 2, 4, 5, (byte) 0xb4, 4, 2, 8, 10, 0, 0, 0, 0, 0, 0, 0, 0, 1, 3, 3, 7 }, -1);
+		tcp.setTimeStampSender(-1);
+		tcp.setTimeStampReplyTo(0x7f000001);
+		byte[] data = new byte[16];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+
+		assertArrayEquals(SYN_ACK_PACKET, factory.createPacketData(ip, tcp, data));
+	}
+
+	@Test
+	public void createTCPHeaderData_timestampWritten() {
+		assertArrayEquals(PSH_HEADER, factory.createTCPHeaderData(pshTCPHeader()));
+	}
+
+	@Test
+	public void createPacketData_validChecksums() {
+		Random random = new Random(50);
+		for (int i = 0; i < 200; i++) {
+			IPv4Header ip = new IPv4Header((byte) 4, (byte) 5, (byte) 0, (byte) 0, 0, random.nextInt(0x10000), true, false, (short) 0,
+					(byte) 64, (byte) 6, 0, random.nextInt(), random.nextInt(), new byte[0]);
+			TCPHeader tcp = new TCPHeader(random.nextInt(0x10000), random.nextInt(0x10000), random.nextInt(), 5, false, 0x18,
+					random.nextInt(0x10000), 0, 0, new byte[0], random.nextInt());
+			byte[] data = new byte[random.nextInt(1461)];
+			random.nextBytes(data);
+
+			byte[] packet = factory.createPacketData(ip, tcp, data);
+			short tcplength = (short) (packet.length - 20);
+			assertTrue("run " + i, PacketUtil.isValidIPChecksum(packet, 20));
+			assertTrue("run " + i, PacketUtil.isValidTCPChecksum(ip.getSourceIP(), ip.getDestinationIP(), packet, tcplength, 20));
+		}
+	}
+
+	/**
+	 * Only the packet itself is allocated, the payload is copied once into
+	 * it. Checked where the JVM can tell what a thread allocated.
+	 */
+	@Test
+	public void createPacketData_allocatesOnlyThePacket() throws Exception {
+		byte[] readBuffer = new byte[65535];
+		Arrays.fill(readBuffer, (byte) 1);
+		IPv4Header ip = pshIPHeader();
+		TCPHeader tcp = pshTCPHeader();
+		int packetLength = factory.createPacketData(ip, tcp, readBuffer, 0, 1400).length;
+		for (int i = 0; i < 1000; i++) {
+			factory.createPacketData(ip, tcp, readBuffer, 0, 1400);
+		}
+
+		long allocated = allocatedBytes();
+		for (int i = 0; i < 1000; i++) {
+			factory.createPacketData(ip, tcp, readBuffer, 0, 1400);
+		}
+		if (allocated >= 0) {
+			long perPacket = (allocatedBytes() - allocated) / 1000;
+			assertTrue(perPacket + " bytes per packet", perPacket < packetLength * 3 / 2);
+		}
+	}
+
+	private static IPv4Header pshIPHeader() {
+		return new IPv4Header((byte) 4, (byte) 5, (byte) 0, (byte) 0, 0, 0x1c47, true, false, (short) 0, (byte) 64, (byte) 6, 0,
+				0x5db8d822, 0x0a000002, new byte[0]);
+	}
+
+	private static TCPHeader pshTCPHeader() {
+		TCPHeader tcp = new TCPHeader(443, 41000, 0x12345679, 8, false, 0x18, 29200, 0, 0,
+				new byte[] { 1, 1, 8, 10, 0, 0, 0, 0, 0, 0, 0, 0 }, 0x0badf00d);
+		tcp.setTimeStampSender(0x01020304);
+		tcp.setTimeStampReplyTo(0x0a0b0c0d);
+		return tcp;
+	}
+
+	/**
+	 * bytes allocated by this thread so far, -1 if the JVM can not tell.
+	 * Looked up by reflection, java.lang.management is not in android.jar.
+	 */
+	private static long allocatedBytes() {
+		try {
+			Object bean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+			Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+			if (!beanClass.isInstance(bean)) {
+				return -1;
+			}
+			Method method = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+			return (Long) method.invoke(bean, Thread.currentThread().getId());
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	private static byte[] bytes(String hex) {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.arotcpcollector.udp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.att.arotcpcollector.ip.IPv4Header;
+import com.att.arotcpcollector.util.PacketUtil;
+
+/**
+ * The expected packet was built once by the factory as it was before it
+ * wrote packets in place, with packet id 0.
+ */
+public class UDPPacketFactoryTest {
+
+	private static final byte[] DNS_RESPONSE = bytes("4500002300000000401160b9080808080a000002"
+			+ "0035a028000f0000616e7377657221");
+
+	private final UDPPacketFactory factory = new UDPPacketFactory();
+
+	@Test
+	public void createResponsePacket_sameBytes() {
+		assertResponse(factory.createResponsePacket(clientIPHeader(), clientUDPHeader(), "answer!".getBytes()));
+	}
+
+	@Test
+	public void createResponsePacket_partOfArray() {
+		byte[] readBuffer = "...answer!..".getBytes();
+		assertResponse(factory.createResponsePacket(clientIPHeader(), clientUDPHeader(), readBuffer, 3, 7));
+	}
+
+	/**
+	 * every packet takes the next packet id, which also changes the IP checksum
+	 */
+	private static void assertResponse(byte[] packet) {
+		assertTrue(PacketUtil.isValidIPChecksum(packet, 20));
+		byte[] expected = DNS_RESPONSE.clone();
+		System.arraycopy(packet, 4, expected, 4, 2);
+		System.arraycopy(packet, 10, expected, 10, 2);
+		assertArrayEquals(expected, packet);
+	}
+
+	private static IPv4Header clientIPHeader() {
+		return new IPv4Header((byte) 4, (byte) 5, (byte) 0, (byte) 0, 0, 0x4242, true, false, (short) 0, (byte) 64, (byte) 17, 0,
+				0x0a000002, 0x08080808, new byte[0]);
+	}
+
+	private static UDPHeader clientUDPHeader() {
+		return new UDPHeader(41000, 53, 0, 0);
+	}
+
+	private static byte[] bytes(String hex) {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 AT&T
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.att.arotcpcollector.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PacketUtilTest {
+
+	private final Random random = new Random(50);
+
+	@Test
+	public void calculateChecksum_thirdArgumentIsEndIndex() {
+		// the words 0x0102 and 0x0304 from position 2 up to 6, the bytes around them must not count
+		byte[] data = { (byte) 0xff, (byte) 0xff, 0x01, 0x02, 0x03, 0x04, (byte) 0xff, (byte) 0xff };
+		int checksum = ~(0x0102 + 0x0304) & 0xFFFF;
+		assertArrayEquals(new byte[] { (byte) (checksum >> 8), (byte) checksum }, PacketUtil.calculateChecksum(data, 2, 6));
+	}
+
+	@Test
+	public void calculateChecksum_sameAsSumWords() {
+		for (int i = 0; i < 1000; i++) {
+			byte[] data = new byte[1 + random.nextInt(1500)];
+			random.nextBytes(data);
+			int offset = random.nextInt(data.length);
+			int end = offset + random.nextInt(data.length - offset + 1);
+
+			int checksum = PacketUtil.finishChecksum(PacketUtil.sumWords(data, offset, end - offset, 0));
+			byte[] result = PacketUtil.calculateChecksum(data, offset, end);
+			assertEquals("run " + i, checksum, ((result[0] & 0xFF) << 8) | (result[1] & 0xFF));
+		}
+	}
+
+	@Test
+	public void calculateChecksum_endBeforeOffsetIsEmpty() {
+		byte[] data = { 0x01, 0x02, 0x03, 0x04 };
+		assertArrayEquals(new byte[] { (byte) 0xff, (byte) 0xff }, PacketUtil.calculateChecksum(data, 2, 0));
+	}
+
+	@Test
+	public void sumWords_oddLengthPaddedWithZero() {
+		byte[] data = { 0x01, 0x02, 0x03, 0x7f };
+		assertEquals(0x0102 + 0x0300, PacketUtil.sumWords(data, 0, 3, 0));
+	}
+}